@@ -23,6 +23,7 @@ import java.util.Properties;
 
 import org.apache.commons.jcs3.access.CacheAccess;
 import org.apache.commons.jcs3.access.GroupCacheAccess;
+import org.apache.commons.jcs3.access.PartitionedCacheAccess;
 import org.apache.commons.jcs3.access.exception.CacheException;
 import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes;
 import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
@@ -142,7 +143,7 @@ public abstract class JCS
         throws CacheException
     {
         final CompositeCache<K, V> cache = getCacheManager().getCache( region );
-        return new CacheAccess<>( cache );
+        return newCacheAccess( cache );
     }
 
     /**
@@ -157,7 +158,7 @@ public abstract class JCS
         throws CacheException
     {
         final CompositeCache<K, V> cache = getCacheManager().getCache( region, icca );
-        return new CacheAccess<>( cache );
+        return newCacheAccess( cache );
     }
 
     /**
@@ -173,6 +174,23 @@ public abstract class JCS
         throws CacheException
     {
         final CompositeCache<K, V> cache = getCacheManager().getCache( region, icca, eattr );
+        return newCacheAccess( cache );
+    }
+
+    /**
+     * Creates the access to a region, spreading the keys over its partitions if it has several.
+     * <p>
+     * @param cache the region
+     * @return a CacheAccess, a PartitionedCacheAccess for a partitioned region
+     * @throws CacheException
+     */
+    private static <K, V> CacheAccess<K, V> newCacheAccess( final CompositeCache<K, V> cache )
+        throws CacheException
+    {
+        if ( cache.getCacheAttributes().getNumberOfPartitions() > 1 )
+        {
+            return new PartitionedCacheAccess<>( getCacheManager().getPartitions( cache ) );
+        }
         return new CacheAccess<>( cache );
     }
 
@@ -26,6 +26,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.jcs3.access.behavior.ICacheAccess;
 import org.apache.commons.jcs3.access.exception.CacheException;
@@ -81,6 +82,10 @@ public class CacheAccess<K, V>
      * If the object cannot be found in the cache, it will be retrieved by
      * calling the supplier and subsequently storing it in the cache.
      * <p>
+     * If the element is within the refresh ahead window of its attributes, the cached value is
+     * returned and the supplier is called in the background to replace it. The reloaded value is
+     * only put if the element was not replaced or removed meanwhile.
+     * <p>
      * @param name
      * @param supplier supplier to be called if the value is not found
      * @return Object.
@@ -88,13 +93,34 @@ public class CacheAccess<K, V>
     @Override
     public V get(final K name, final Supplier<V> supplier)
     {
-        V value = get(name);
+        final ICacheElement<K, V> element = getCacheElement(name);
+        V value = element != null ? element.getVal() : null;
 
         if (value == null)
         {
             value = supplier.get();
             put(name, value);
         }
+        else if (this.getCacheControl().isRefreshAheadDue(element, System.currentTimeMillis()))
+        {
+            this.getCacheControl().refreshAhead(name, () -> {
+                final V reloaded = supplier.get();
+                if (reloaded != null)
+                {
+                    final CacheElement<K, V> ce = new CacheElement<>(this.getCacheControl().getCacheName(), name,
+                            reloaded);
+                    ce.setElementAttributes(this.getCacheControl().getElementAttributes());
+                    try
+                    {
+                        this.getCacheControl().replace(element, ce);
+                    }
+                    catch (final IOException e)
+                    {
+                        throw new CacheException(e);
+                    }
+                }
+            });
+        }
 
         return value;
     }
@@ -196,6 +222,19 @@ public class CacheAccess<K, V>
         return this.getCacheControl().getMatching( pattern );
     }
 
+    /**
+     * Stream the elements of the region held in memory and on disk, without building the key set
+     * first. The stream is weakly consistent and reading does not touch the elements.
+     * <p>
+     * @return a stream of the elements of the region
+     * @see org.apache.commons.jcs3.engine.control.CompositeCache#getElementStream()
+     */
+    @Override
+    public Stream<ICacheElement<K, V>> getCacheElementStream()
+    {
+        return this.getCacheControl().getElementStream();
+    }
+
     /**
      * Place a new object in the cache, associated with key name. If there is currently an object
      * associated with name in the region an ObjectExistsException is thrown. Names are scoped to a
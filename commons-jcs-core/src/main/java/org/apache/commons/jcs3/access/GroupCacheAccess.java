@@ -172,9 +172,8 @@ public class GroupCacheAccess<K, V>
     {
         final GroupId groupId = new GroupId( this.getCacheControl().getCacheName(), group );
 
-        return this.getCacheControl().getKeySet()
+        return this.getCacheControl().getGroupKeys(groupId)
                 .stream()
-                .filter(gan -> gan.groupId.equals(groupId))
                 .map(gan -> gan.attrName)
                 .collect(Collectors.toSet());
     }
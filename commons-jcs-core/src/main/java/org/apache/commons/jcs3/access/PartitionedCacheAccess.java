@@ -0,0 +1,456 @@
+package org.apache.commons.jcs3.access;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.commons.jcs3.access.exception.CacheException;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes;
+import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.stats.CacheStats;
+import org.apache.commons.jcs3.engine.stats.StatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.ICacheStats;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
+import org.apache.commons.jcs3.utils.threadpool.ThreadPoolManager;
+
+/**
+ * Access to a region whose keys are spread over several partitions by hash. Each partition is a
+ * region of its own, with its own memory cache, lock and auxiliaries, so a busy region scales with
+ * the number of partitions instead of being serialized by a single memory cache.
+ * <p>
+ * Operations on a key go to the partition of the key. Operations on several keys or on the whole
+ * region are run on all the concerned partitions in parallel, on the "partitions" pool of the
+ * ThreadPoolManager by default. These operations may block on the auxiliaries, so they are not
+ * run on the common fork-join pool.
+ * <p>
+ * JCS.getInstance returns this access for the regions configured with a NumberOfPartitions
+ * greater than 1. The keys of a partitioned region can't be used with a GroupCacheAccess.
+ */
+public class PartitionedCacheAccess<K, V>
+    extends CacheAccess<K, V>
+{
+    /** The name of the region */
+    private final String regionName;
+
+    /** One access per partition, the first one is the region itself */
+    private final List<CacheAccess<K, V>> partitions;
+
+    /** The pool running the operations on several partitions */
+    private final ExecutorService pool;
+
+    /**
+     * Constructor using the "partitions" thread pool.
+     * <p>
+     * @param partitions the regions holding the keys, the first one being the partitioned region
+     */
+    public PartitionedCacheAccess( final List<CompositeCache<K, V>> partitions )
+    {
+        this( partitions, ThreadPoolManager.getInstance().getExecutorService( "partitions" ) );
+    }
+
+    /**
+     * Constructor.
+     * <p>
+     * @param partitions the regions holding the keys, the first one being the partitioned region
+     * @param pool the pool running the operations on several partitions
+     */
+    public PartitionedCacheAccess( final List<CompositeCache<K, V>> partitions, final ExecutorService pool )
+    {
+        super( partitions.get( 0 ) );
+        this.regionName = partitions.get( 0 ).getCacheName();
+        this.partitions = new ArrayList<>( partitions.size() );
+        for ( final CompositeCache<K, V> partition : partitions )
+        {
+            this.partitions.add( new CacheAccess<>( partition ) );
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * @return the number of partitions
+     */
+    public int getNumberOfPartitions()
+    {
+        return partitions.size();
+    }
+
+    /**
+     * Gets the partition of a key. The hash code of the key is spread so that keys differing only
+     * in their high bits don't end up in the same partition.
+     * <p>
+     * @param key the key
+     * @return the index of the partition holding the key
+     */
+    protected int getPartitionNumberForKey( final K key )
+    {
+        if ( key == null )
+        {
+            return 0;
+        }
+        final int hash = key.hashCode();
+        return Math.floorMod( hash ^ ( hash >>> 16 ), partitions.size() );
+    }
+
+    /**
+     * @param key the key
+     * @return the access to the partition of the key
+     */
+    private CacheAccess<K, V> partition( final K key )
+    {
+        return partitions.get( getPartitionNumberForKey( key ) );
+    }
+
+    /**
+     * Runs an operation on some partitions, in parallel. The calling thread runs the first one
+     * and then waits for the others.
+     * <p>
+     * @param targets the partitions
+     * @param operation what to do with each one
+     * @return the results, in the order of the partitions
+     */
+    private <R> List<R> fanOut( final List<CacheAccess<K, V>> targets, final Function<CacheAccess<K, V>, R> operation )
+    {
+        if ( targets.size() == 1 )
+        {
+            return Collections.singletonList( operation.apply( targets.get( 0 ) ) );
+        }
+
+        final List<Future<R>> tasks = new ArrayList<>( targets.size() - 1 );
+        for ( int i = 1; i < targets.size(); i++ )
+        {
+            final CacheAccess<K, V> target = targets.get( i );
+            tasks.add( pool.submit( () -> operation.apply( target ) ) );
+        }
+
+        final List<R> results = new ArrayList<>( targets.size() );
+        results.add( operation.apply( targets.get( 0 ) ) );
+        for ( final Future<R> task : tasks )
+        {
+            results.add( join( task ) );
+        }
+        return results;
+    }
+
+    /**
+     * Waits for the operation on a partition, rethrowing what it threw.
+     * <p>
+     * @param task the operation
+     * @return its result
+     * @throws CacheException if the operation threw a checked exception or was interrupted
+     */
+    private static <R> R join( final Future<R> task )
+    {
+        try
+        {
+            return task.get();
+        }
+        catch ( final ExecutionException e )
+        {
+            if ( e.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            if ( e.getCause() instanceof Error )
+            {
+                throw (Error) e.getCause();
+            }
+            throw new CacheException( e.getCause() );
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new CacheException( e );
+        }
+    }
+
+    /**
+     * @see org.apache.commons.jcs3.access.behavior.ICacheAccess#get(Object)
+     */
+    @Override
+    public V get( final K name )
+    {
+        return partition( name ).get( name );
+    }
+
+    /**
+     * @see org.apache.commons.jcs3.access.behavior.ICacheAccess#get(Object, Supplier)
+     */
+    @Override
+    public V get( final K name, final Supplier<V> supplier )
+    {
+        return partition( name ).get( name, supplier );
+    }
+
+    /**
+     * Gets the matching elements of all the partitions, in parallel.
+     * <p>
+     * @param pattern - a key pattern for the objects stored
+     * @return A map of key to values.  These are stripped from the wrapper.
+     */
+    @Override
+    public Map<K, V> getMatching( final String pattern )
+    {
+        final Map<K, V> result = new HashMap<>();
+        fanOut( partitions, partition -> partition.getMatching( pattern ) ).forEach( result::putAll );
+        return result;
+    }
+
+    /**
+     * @see org.apache.commons.jcs3.access.behavior.ICacheAccess#getCacheElement(Object)
+     */
+    @Override
+    public ICacheElement<K, V> getCacheElement( final K name )
+    {
+        return partition( name ).getCacheElement( name );
+    }
+
+    /**
+     * Splits the keys by partition and gets them from each partition in parallel.
+     * <p>
+     * @param names set of Serializable cache keys
+     * @return a map of K key to ICacheElement&lt;K, V&gt; element, or empty map if none of the keys are present
+     */
+    @Override
+    public Map<K, ICacheElement<K, V>> getCacheElements( final Set<K> names )
+    {
+        final Map<CacheAccess<K, V>, Set<K>> namesByPartition = new HashMap<>();
+        for ( final K name : names )
+        {
+            namesByPartition.computeIfAbsent( partition( name ), p -> new HashSet<>() ).add( name );
+        }
+        if ( namesByPartition.isEmpty() )
+        {
+            return new HashMap<>();
+        }
+
+        final Map<K, ICacheElement<K, V>> result = new HashMap<>();
+        fanOut( new ArrayList<>( namesByPartition.keySet() ),
+                partition -> partition.getCacheElements( namesByPartition.get( partition ) ) )
+            .forEach( result::putAll );
+        return result;
+    }
+
+    /**
+     * Gets the matching elements of all the partitions, in parallel.
+     * <p>
+     * @param pattern key search pattern
+     * @return a map of K key to ICacheElement&lt;K, V&gt; element, or empty map if no keys match the pattern
+     */
+    @Override
+    public Map<K, ICacheElement<K, V>> getMatchingCacheElements( final String pattern )
+    {
+        final Map<K, ICacheElement<K, V>> result = new HashMap<>();
+        fanOut( partitions, partition -> partition.getMatchingCacheElements( pattern ) ).forEach( result::putAll );
+        return result;
+    }
+
+    /**
+     * @return the elements of the partitions, one partition after the other
+     */
+    @Override
+    public Stream<ICacheElement<K, V>> getCacheElementStream()
+    {
+        return partitions.stream().flatMap( CacheAccess::getCacheElementStream );
+    }
+
+    /**
+     * @see org.apache.commons.jcs3.access.behavior.ICacheAccess#putSafe(Object, Object)
+     */
+    @Override
+    public void putSafe( final K key, final V value )
+    {
+        partition( key ).putSafe( key, value );
+    }
+
+    /**
+     * @see org.apache.commons.jcs3.access.behavior.ICacheAccess#put(Object, Object)
+     */
+    @Override
+    public void put( final K name, final V obj )
+    {
+        partition( name ).put( name, obj );
+    }
+
+    /**
+     * @see org.apache.commons.jcs3.access.behavior.ICacheAccess#put(Object, Object, IElementAttributes)
+     */
+    @Override
+    public void put( final K key, final V val, final IElementAttributes attr )
+    {
+        partition( key ).put( key, val, attr );
+    }
+
+    /**
+     * @see org.apache.commons.jcs3.access.behavior.ICacheAccess#remove(Object)
+     */
+    @Override
+    public void remove( final K name )
+    {
+        partition( name ).remove( name );
+    }
+
+    /**
+     * @see org.apache.commons.jcs3.access.behavior.ICacheAccess#resetElementAttributes(Object, IElementAttributes)
+     */
+    @Override
+    public void resetElementAttributes( final K name, final IElementAttributes attr )
+    {
+        partition( name ).resetElementAttributes( name, attr );
+    }
+
+    /**
+     * @see org.apache.commons.jcs3.access.behavior.ICacheAccess#getElementAttributes(Object)
+     */
+    @Override
+    public IElementAttributes getElementAttributes( final K name ) throws CacheException
+    {
+        return partition( name ).getElementAttributes( name );
+    }
+
+    /**
+     * Removes all of the elements from all the partitions, in parallel.
+     * <p>
+     * @throws CacheException
+     */
+    @Override
+    public void clear()
+        throws CacheException
+    {
+        fanOut( partitions, partition -> {
+            partition.clear();
+            return null;
+        });
+    }
+
+    /**
+     * Sets the default element attributes of all the partitions.
+     * <p>
+     * @param attr the default attributes.
+     * @throws CacheException if something goes wrong.
+     */
+    @Override
+    public void setDefaultElementAttributes( final IElementAttributes attr )
+        throws CacheException
+    {
+        for ( final CacheAccess<K, V> partition : partitions )
+        {
+            partition.setDefaultElementAttributes( attr.clone() );
+        }
+    }
+
+    /**
+     * Sets a copy of the attributes, named after the partition, on each partition. MaxObjects is
+     * the limit of the whole region, so each partition gets its share, as when the partitions
+     * were created.
+     * <p>
+     * @param cattr The new ICompositeCacheAttribute value
+     */
+    @Override
+    public void setCacheAttributes( final ICompositeCacheAttributes cattr )
+    {
+        final int maxObjects = cattr.getMaxObjects() > 0
+                ? ( cattr.getMaxObjects() + partitions.size() - 1 ) / partitions.size() : cattr.getMaxObjects();
+        for ( final CacheAccess<K, V> partition : partitions )
+        {
+            final ICompositeCacheAttributes partitionAttr = cattr.clone();
+            partitionAttr.setCacheName( partition.getCacheControl().getCacheName() );
+            partitionAttr.setMaxObjects( maxObjects );
+            partition.setCacheAttributes( partitionAttr );
+        }
+    }
+
+    /**
+     * Frees elements from the memory of all the partitions in parallel, each one freeing its share
+     * of numberToFree.
+     * <p>
+     * @param numberToFree
+     * @return the number that were removed.
+     * @throws CacheException
+     */
+    @Override
+    public int freeMemoryElements( final int numberToFree )
+        throws CacheException
+    {
+        final int share = ( numberToFree + partitions.size() - 1 ) / partitions.size();
+        return fanOut( partitions, partition -> Integer.valueOf( partition.freeMemoryElements( share ) ) )
+            .stream().mapToInt( Integer::intValue ).sum();
+    }
+
+    /**
+     * The statistics of the region hold those of each partition as auxiliary statistics.
+     * <p>
+     * @return ICacheStats
+     */
+    @Override
+    public ICacheStats getStatistics()
+    {
+        final CacheStats stats = new CacheStats();
+        stats.setRegionName( regionName );
+
+        final List<IStatElement<?>> elems = new ArrayList<>();
+        elems.add( new StatElement<>( "Partitions", Integer.valueOf( partitions.size() ) ) );
+        stats.setStatElements( elems );
+
+        final List<IStats> partitionStats = new ArrayList<>( partitions.size() );
+        for ( final CacheAccess<K, V> partition : partitions )
+        {
+            partitionStats.add( partition.getStatistics() );
+        }
+        stats.setAuxiliaryCacheStats( partitionStats );
+
+        return stats;
+    }
+
+    /**
+     * @return A String version of the stats.
+     */
+    @Override
+    public String getStats()
+    {
+        return getStatistics().toString();
+    }
+
+    /**
+     * Disposes all the partitions.
+     */
+    @Override
+    public void dispose()
+    {
+        for ( final CacheAccess<K, V> partition : partitions )
+        {
+            partition.dispose();
+        }
+    }
+}
@@ -22,6 +22,7 @@ package org.apache.commons.jcs3.access.behavior;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import org.apache.commons.jcs3.access.exception.CacheException;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
@@ -147,6 +148,18 @@ public interface ICacheAccess<K, V>
      */
     Map<K, ICacheElement<K, V>> getMatchingCacheElements(String pattern);
 
+    /**
+     * Stream the elements of the region held in memory and on disk, without building the key set
+     * first.
+     * <p>
+     * The stream is weakly consistent: changes made while it is consumed may or may not be seen.
+     * Unlike the get methods, reading the elements does not update their last access time nor
+     * their position in the memory cache. The stream can be processed in parallel.
+     * <p>
+     * @return a stream of the elements of the region
+     */
+    Stream<ICacheElement<K, V>> getCacheElementStream();
+
     /**
      * Remove an object for this key if one exists, else do nothing.
      * <p>
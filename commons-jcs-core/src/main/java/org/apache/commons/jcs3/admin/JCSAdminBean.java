@@ -41,6 +41,8 @@ import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
 import org.apache.commons.jcs3.engine.control.CompositeCache;
 import org.apache.commons.jcs3.engine.control.CompositeCacheManager;
 import org.apache.commons.jcs3.engine.memory.behavior.IMemoryCache;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
 
 /**
  * A servlet which provides HTTP access to JCS. Allows a summary of regions to be viewed, and
@@ -170,6 +172,34 @@ public class JCSAdminBean implements JCSJMXBean
 		return getByteCount(cacheHub.getCache(cacheName));
 	}
 
+    /**
+     * Gets the latency percentiles, in microseconds, of the gets, puts and removes of each tier of
+     * a region.
+     * <p>
+     * @param cacheName
+     * @return the percentiles by tier type and stat name, empty if the region doesn't record them
+     */
+    @Override
+    public Map<String, Long> getLatencyPercentiles(final String cacheName)
+    {
+        final Map<String, Long> percentiles = new TreeMap<>();
+        for (final IStats tier : cacheHub.getCache(cacheName).getStatistics().getAuxiliaryCacheStats())
+        {
+            if (tier == null || tier.getStatElements() == null)
+            {
+                continue;
+            }
+            for (final IStatElement<?> elem : tier.getStatElements())
+            {
+                if (elem.getName().contains(" Micros p") && elem.getData() instanceof Long)
+                {
+                    percentiles.put(tier.getTypeName() + " " + elem.getName(), (Long) elem.getData());
+                }
+            }
+        }
+        return percentiles;
+    }
+
 	/**
      * Tries to estimate how much data is in a region. This is expensive. If there are any non serializable objects in
      * the region or an error occurs, suppresses exceptions and returns 0.
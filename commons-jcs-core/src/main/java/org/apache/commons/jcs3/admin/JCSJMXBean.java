@@ -2,6 +2,7 @@ package org.apache.commons.jcs3.admin;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 /*
  * Licensed to the Apache Software Foundation (ASF) under one
@@ -57,6 +58,18 @@ public interface JCSJMXBean
      */
     long getByteCount(String cacheName);
 
+    /**
+     * Gets the latency percentiles, in microseconds, of the gets, puts and removes of each tier of
+     * a region: the memory cache and every auxiliary. Keys are the tier type followed by the stat
+     * name, for instance "LRU Memory Cache Get Micros p99".
+     * <p>
+     * The map is empty unless the region is configured with UseLatencyHistograms.
+     *
+     * @param cacheName
+     * @return the percentiles by tier and operation
+     */
+    Map<String, Long> getLatencyPercentiles(String cacheName);
+
     /**
      * Clears all regions in the cache.
      * <p>
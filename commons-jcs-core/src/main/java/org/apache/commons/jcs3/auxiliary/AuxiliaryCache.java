@@ -21,9 +21,13 @@ package org.apache.commons.jcs3.auxiliary;
 
 import java.io.IOException;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.jcs3.engine.behavior.ICache;
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.engine.control.group.GroupAttrName;
+import org.apache.commons.jcs3.engine.control.group.GroupId;
 import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
 import org.apache.commons.jcs3.engine.stats.behavior.IStats;
 
@@ -47,6 +51,33 @@ public interface AuxiliaryCache<K, V>
      */
     Set<K> getKeySet() throws IOException;
 
+    /**
+     * Streams the keys of the elements in the auxiliary cache. Implementations able to walk their
+     * key store without copying it return a weakly consistent stream, the default streams the key set.
+     * <p>
+     * @return a stream of the keys
+     * @throws IOException if access to the auxiliary cache fails
+     */
+    default Stream<K> getKeyStream() throws IOException
+    {
+        return getKeySet().stream();
+    }
+
+    /**
+     * Gets the keys of the members of a group. Implementations keeping a group index answer
+     * without scanning all the keys, the default filters the key stream.
+     * <p>
+     * @param groupId the group
+     * @return a set of the GroupAttrName keys of the group
+     * @throws IOException if access to the auxiliary cache fails
+     */
+    default Set<K> getGroupKeys(final GroupId groupId) throws IOException
+    {
+        return getKeyStream()
+                .filter(key -> key instanceof GroupAttrName && ((GroupAttrName<?>) key).groupId.equals(groupId))
+                .collect(Collectors.toSet());
+    }
+
     /**
      * @return the historical and statistical data for a region's auxiliary cache.
      */
@@ -22,12 +22,20 @@ package org.apache.commons.jcs3.auxiliary.disk;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.jcs3.auxiliary.AbstractAuxiliaryCacheEventLogging;
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCache;
@@ -39,12 +47,16 @@ import org.apache.commons.jcs3.engine.behavior.ICache;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICacheEventQueue;
 import org.apache.commons.jcs3.engine.behavior.ICacheListener;
+import org.apache.commons.jcs3.engine.behavior.IRequireScheduler;
+import org.apache.commons.jcs3.engine.control.group.GroupAttrName;
+import org.apache.commons.jcs3.engine.control.group.GroupId;
 import org.apache.commons.jcs3.engine.stats.StatElement;
 import org.apache.commons.jcs3.engine.stats.Stats;
 import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
 import org.apache.commons.jcs3.engine.stats.behavior.IStats;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.struct.BloomFilter;
 import org.apache.commons.jcs3.utils.struct.LRUMap;
 
 /**
@@ -58,10 +70,18 @@ import org.apache.commons.jcs3.utils.struct.LRUMap;
  * Error handling in this class needs to be addressed. Currently if an exception is thrown by the
  * persistence mechanism, this class destroys the event queue. Should it also destroy purgatory?
  * Should it dispose itself?
+ *
+ * If UseKeyFilter is set, a Bloom filter of the keys answers the gets of keys that were never put
+ * without calling the implementation. Removed keys stay in the filter until it is rebuilt from the
+ * keys of the store, every KeyFilterRebuildSeconds.
  */
 public abstract class AbstractDiskCache<K, V>
     extends AbstractAuxiliaryCacheEventLogging<K, V>
+    implements IRequireScheduler
 {
+    /** The smallest number of keys a key filter is sized for */
+    private static final int MIN_KEY_FILTER_SIZE = 1024;
+
     /** The logger */
     private static final Log log = LogManager.getLog( AbstractDiskCache.class );
 
@@ -102,6 +122,24 @@ public abstract class AbstractDiskCache<K, V>
      */
     private final ReentrantReadWriteLock removeAllLock = new ReentrantReadWriteLock();
 
+    /** The filter of the keys in the cache, null unless UseKeyFilter is set and it was built. */
+    private volatile BloomFilter keyFilter;
+
+    /** The filter being built, which also gets the keys put while the store is read. */
+    private volatile BloomFilter rebuildingKeyFilter;
+
+    /**
+     * Puts hold the read lock from adding the key to the filters to putting the element in
+     * purgatory, so that a rebuild sees in purgatory or on disk the keys it did not get.
+     */
+    private final ReentrantReadWriteLock keyFilterLock = new ReentrantReadWriteLock();
+
+    /** The scheduled rebuild of the key filter */
+    private ScheduledFuture<?> keyFilterFuture;
+
+    /** The number of gets answered by the key filter */
+    private final AtomicLong keyFilterMisses = new AtomicLong();
+
     // ----------------------------------------------------------- constructors
 
     /**
@@ -208,7 +246,23 @@ public abstract class AbstractDiskCache<K, V>
             pe.setSpoolable( true );
 
             // Add the element to purgatory
-            purgatory.put( pe.getKey(), pe );
+            if ( diskCacheAttributes.isUseKeyFilter() )
+            {
+                keyFilterLock.readLock().lock();
+                try
+                {
+                    addToKeyFilter( pe.getKey() );
+                    purgatory.put( pe.getKey(), pe );
+                }
+                finally
+                {
+                    keyFilterLock.readLock().unlock();
+                }
+            }
+            else
+            {
+                purgatory.put( pe.getKey(), pe );
+            }
 
             // Queue element for serialization
             cacheEventQueue.addPutEvent( pe );
@@ -270,7 +324,12 @@ public abstract class AbstractDiskCache<K, V>
         }
 
         // If we reach this point, element was not found in purgatory, so get
-        // it from the cache.
+        // it from the cache, unless the key filter knows it is not there.
+        if ( !mightContain( key ) )
+        {
+            return null;
+        }
+
         try
         {
             return doGet( key );
@@ -284,6 +343,43 @@ public abstract class AbstractDiskCache<K, V>
         return null;
     }
 
+    /**
+     * Gets the elements of the keys that the key filter does not rule out. The elements in
+     * purgatory are in the filter.
+     *
+     * @param keys
+     * @return a map of K key to ICacheElement&lt;K, V&gt; element, or an empty map if there is no
+     *         data in cache for any of these keys
+     * @throws IOException
+     */
+    @Override
+    public Map<K, ICacheElement<K, V>> getMultiple( final Set<K> keys )
+        throws IOException
+    {
+        if ( keyFilter == null )
+        {
+            return super.getMultiple( keys );
+        }
+
+        final Set<K> candidates = keys.stream()
+                .filter( this::mightContain )
+                .collect( Collectors.toSet() );
+        return candidates.isEmpty() ? new HashMap<>() : super.getMultiple( candidates );
+    }
+
+    /**
+     * Gets an element that is still waiting in purgatory. Children overriding processGetMultiple
+     * use this to see the elements that are not spooled yet.
+     *
+     * @param key
+     * @return the element waiting to be spooled, or null
+     */
+    protected ICacheElement<K, V> getPurgatoryElement( final K key )
+    {
+        final PurgatoryElement<K, V> pe = purgatory.get( key );
+        return pe == null ? null : pe.getCacheElement();
+    }
+
     /**
      * Gets items from the cache matching the given pattern. Items from memory will replace those
      * from remote sources.
@@ -326,6 +422,85 @@ public abstract class AbstractDiskCache<K, V>
     @Override
     public abstract Set<K> getKeySet() throws IOException;
 
+    /**
+     * Streams the keys waiting in purgatory, then the keys of the disk store that are not in
+     * purgatory. Only the purgatory keys are copied.
+     * <p>
+     * @return a weakly consistent stream of the keys
+     * @throws IOException
+     * @see org.apache.commons.jcs3.auxiliary.AuxiliaryCache#getKeyStream()
+     */
+    @Override
+    public Stream<K> getKeyStream()
+        throws IOException
+    {
+        final Map<K, PurgatoryElement<K, V>> currentPurgatory = purgatory;
+        final Set<K> purgatoryKeys;
+        synchronized ( currentPurgatory )
+        {
+            purgatoryKeys = new HashSet<>( currentPurgatory.keySet() );
+        }
+        if ( purgatoryKeys.isEmpty() )
+        {
+            return processGetKeyStream();
+        }
+        return Stream.concat( purgatoryKeys.stream(),
+                processGetKeyStream().filter( key -> !purgatoryKeys.contains( key ) ) );
+    }
+
+    /**
+     * Gets the keys of a group waiting in purgatory and the ones of the disk store.
+     * <p>
+     * @param groupId the group
+     * @return the keys of the group
+     * @throws IOException
+     * @see org.apache.commons.jcs3.auxiliary.AuxiliaryCache#getGroupKeys(GroupId)
+     */
+    @Override
+    public Set<K> getGroupKeys( final GroupId groupId )
+        throws IOException
+    {
+        final Map<K, PurgatoryElement<K, V>> currentPurgatory = purgatory;
+        final Set<K> keys;
+        synchronized ( currentPurgatory )
+        {
+            keys = currentPurgatory.keySet().stream()
+                    .filter( key -> key instanceof GroupAttrName && ( (GroupAttrName<?>) key ).groupId.equals( groupId ) )
+                    .collect( Collectors.toSet() );
+        }
+        keys.addAll( processGetGroupKeys( groupId ) );
+        return keys;
+    }
+
+    /**
+     * Gets the keys of a group in the disk store. Implementations keeping a group index should
+     * use it; the default filters the key stream.
+     * <p>
+     * @param groupId the group
+     * @return the keys of the group on disk
+     * @throws IOException
+     */
+    protected Set<K> processGetGroupKeys( final GroupId groupId )
+        throws IOException
+    {
+        return processGetKeyStream()
+                .filter( key -> key instanceof GroupAttrName && ( (GroupAttrName<?>) key ).groupId.equals( groupId ) )
+                .collect( Collectors.toSet() );
+    }
+
+    /**
+     * Streams the keys of the disk store. Implementations should walk their key store without
+     * copying it; the default streams the key set.
+     * <p>
+     * @return a stream of the keys on disk
+     * @throws IOException
+     */
+    protected Stream<K> processGetKeyStream()
+        throws IOException
+    {
+        return getKeySet().stream();
+    }
+
     /**
      * Removes are not queued. A call to remove is immediate.
      *
@@ -374,8 +549,21 @@ public abstract class AbstractDiskCache<K, V>
     {
         if ( this.diskCacheAttributes.isAllowRemoveAll() )
         {
-            // Replace purgatory with a new empty hashtable
-            initPurgatory();
+            // Replace purgatory with a new empty hashtable, and the key filter
+            // with an empty one
+            keyFilterLock.writeLock().lock();
+            try
+            {
+                if ( keyFilter != null )
+                {
+                    keyFilter = createKeyFilter( 0 );
+                }
+                initPurgatory();
+            }
+            finally
+            {
+                keyFilterLock.writeLock().unlock();
+            }
 
             // Remove all from persistent store immediately
             doRemoveAll();
@@ -426,6 +614,11 @@ public abstract class AbstractDiskCache<K, V>
                     cacheEventQueue::getStatistics);
         }
 
+        if ( keyFilterFuture != null )
+        {
+            keyFilterFuture.cancel( false );
+        }
+
         log.info( "In dispose, destroying event queue." );
         // This stops the processor thread.
         cacheEventQueue.destroy();
@@ -474,6 +667,14 @@ public abstract class AbstractDiskCache<K, V>
         elems.add(new StatElement<>( "Purgatory Hits", Integer.valueOf(purgHits) ) );
         elems.add(new StatElement<>( "Purgatory Size", Integer.valueOf(purgatory.size()) ) );
 
+        final BloomFilter filter = keyFilter;
+        if ( filter != null )
+        {
+            elems.add(new StatElement<>( "Key Filter Misses Avoided", Long.valueOf(keyFilterMisses.get()) ) );
+            elems.add(new StatElement<>( "Key Filter Insertions", Long.valueOf(filter.getInsertions()) ) );
+            elems.add(new StatElement<>( "Key Filter Bytes", Long.valueOf(filter.getNumberOfBits() / 8) ) );
+        }
+
         // get the stats from the event queue too
         final IStats eqStats = this.cacheEventQueue.getStatistics();
         elems.addAll(eqStats.getStatElements());
@@ -483,6 +684,170 @@ public abstract class AbstractDiskCache<K, V>
         return stats;
     }
 
+    /**
+     * Schedules the rebuild of the key filter if UseKeyFilter is set. The first build runs at
+     * once; until it completes, every get reaches the store. Children overriding this must call
+     * it.
+     *
+     * @see org.apache.commons.jcs3.engine.behavior.IRequireScheduler#setScheduledExecutorService(java.util.concurrent.ScheduledExecutorService)
+     */
+    @Override
+    public void setScheduledExecutorService( final ScheduledExecutorService scheduledExecutor )
+    {
+        if ( diskCacheAttributes.isUseKeyFilter() )
+        {
+            if ( keyFilterFuture != null )
+            {
+                keyFilterFuture.cancel( false );
+            }
+
+            final long interval = Math.max( 1, diskCacheAttributes.getKeyFilterRebuildSeconds() );
+            keyFilterFuture = scheduledExecutor.scheduleWithFixedDelay( this::rebuildKeyFilter,
+                    0, interval, TimeUnit.SECONDS );
+        }
+    }
+
+    /**
+     * Builds a new key filter from the keys in purgatory and in the store, and replaces the
+     * current one, forgetting the keys removed since the last build. Keys put during the build are
+     * added to both filters.
+     *
+     * If the store cannot list its keys, the key filter is disabled.
+     */
+    public void rebuildKeyFilter()
+    {
+        if ( !diskCacheAttributes.isUseKeyFilter() || !alive.get() )
+        {
+            return;
+        }
+
+        final BloomFilter filter = createKeyFilter( getSize() );
+
+        keyFilterLock.writeLock().lock();
+        try
+        {
+            rebuildingKeyFilter = filter;
+        }
+        finally
+        {
+            keyFilterLock.writeLock().unlock();
+        }
+
+        try
+        {
+            // purgatory first: the elements leave purgatory after they are on disk
+            final Map<K, PurgatoryElement<K, V>> currentPurgatory = purgatory;
+            final List<K> purgatoryKeys;
+            synchronized ( currentPurgatory )
+            {
+                purgatoryKeys = new ArrayList<>( currentPurgatory.keySet() );
+            }
+            purgatoryKeys.forEach( key -> filter.add( toKeyFilterKey( key ) ) );
+
+            try (Stream<?> keys = getKeyFilterKeys())
+            {
+                keys.forEach( filter::add );
+            }
+
+            keyFilter = filter;
+            log.debug( "{0}: Rebuilt key filter {1}", cacheName, filter );
+        }
+        catch ( final UnsupportedOperationException e )
+        {
+            log.warn( "{0}: The keys cannot be listed, disabling the key filter", cacheName );
+            if ( keyFilterFuture != null )
+            {
+                keyFilterFuture.cancel( false );
+            }
+            keyFilter = null;
+        }
+        catch ( final IOException | RuntimeException e )
+        {
+            log.error( "{0}: Problem rebuilding the key filter", cacheName, e );
+        }
+        finally
+        {
+            rebuildingKeyFilter = null;
+        }
+    }
+
+    /**
+     * Streams the keys of the store, as given to the key filter. The default streams the keys on
+     * disk without copying them.
+     *
+     * @return the keys of the store
+     * @throws IOException
+     */
+    protected Stream<?> getKeyFilterKeys()
+        throws IOException
+    {
+        return processGetKeyStream();
+    }
+
+    /**
+     * Converts a key to the object added to the key filter, which must be equal to the one
+     * {@link #getKeyFilterKeys()} streams for the same key. The default is the key.
+     *
+     * @param key
+     * @return the object to add to and look up in the key filter
+     */
+    protected Object toKeyFilterKey( final K key )
+    {
+        return key;
+    }
+
+    /**
+     * @param key
+     * @return false if the key filter knows the key is not in the cache
+     */
+    private boolean mightContain( final K key )
+    {
+        final BloomFilter filter = keyFilter;
+        if ( filter == null || filter.mightContain( toKeyFilterKey( key ) ) )
+        {
+            return true;
+        }
+
+        keyFilterMisses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Adds a key to the key filter and to the one being built. The filter being built is read
+     * first: once it is cleared, the current filter is the one it replaced.
+     *
+     * @param key
+     */
+    private void addToKeyFilter( final K key )
+    {
+        final BloomFilter rebuilding = rebuildingKeyFilter;
+        final BloomFilter filter = keyFilter;
+        if ( rebuilding == null && filter == null )
+        {
+            return;
+        }
+
+        final Object filterKey = toKeyFilterKey( key );
+        if ( rebuilding != null )
+        {
+            rebuilding.add( filterKey );
+        }
+        if ( filter != null )
+        {
+            filter.add( filterKey );
+        }
+    }
+
+    /**
+     * @param size the number of keys in the cache
+     * @return an empty key filter with room for twice the given number of keys
+     */
+    private BloomFilter createKeyFilter( final int size )
+    {
+        return new BloomFilter( (int) Math.max( MIN_KEY_FILTER_SIZE, Math.min( Integer.MAX_VALUE, 2L * size ) ),
+                diskCacheAttributes.getKeyFilterFalsePositiveRate() );
+    }
+
     /**
      * @return the status -- alive or disposed from CacheConstants
      * @see ICache#getStatus
@@ -58,6 +58,18 @@ public abstract class AbstractDiskCacheAttributes extends AbstractAuxiliaryCache
     /** Type of disk limit: SIZE or COUNT */
     private DiskLimitType diskLimitType = DiskLimitType.COUNT;
 
+    /** Whether the keys are indexed by text */
+    private boolean useKeyIndex;
+
+    /** Whether a key filter guards the gets */
+    private boolean useKeyFilter;
+
+    /** The number of seconds between two rebuilds of the key filter */
+    private int keyFilterRebuildSeconds = 300;
+
+    /** The false positive rate of the key filter */
+    private double keyFilterFalsePositiveRate = 0.01;
+
     /**
      * Sets the diskPath attribute of the DiskCacheAttributes object
      * <p>
@@ -180,6 +192,86 @@ public abstract class AbstractDiskCacheAttributes extends AbstractAuxiliaryCache
         return allowRemoveAll;
     }
 
+    /**
+     * @return Returns the useKeyIndex.
+     */
+    @Override
+    public boolean isUseKeyIndex()
+    {
+        return useKeyIndex;
+    }
+
+    /**
+     * By default this is false.
+     * <p>
+     * @param useKeyIndex
+     *            The useKeyIndex to set.
+     */
+    public void setUseKeyIndex(final boolean useKeyIndex)
+    {
+        this.useKeyIndex = useKeyIndex;
+    }
+
+    /**
+     * @return Returns the useKeyFilter.
+     */
+    @Override
+    public boolean isUseKeyFilter()
+    {
+        return useKeyFilter;
+    }
+
+    /**
+     * By default this is false.
+     * <p>
+     * @param useKeyFilter
+     *            The useKeyFilter to set.
+     */
+    public void setUseKeyFilter(final boolean useKeyFilter)
+    {
+        this.useKeyFilter = useKeyFilter;
+    }
+
+    /**
+     * @return Returns the keyFilterRebuildSeconds.
+     */
+    @Override
+    public int getKeyFilterRebuildSeconds()
+    {
+        return keyFilterRebuildSeconds;
+    }
+
+    /**
+     * By default this is 300.
+     * <p>
+     * @param keyFilterRebuildSeconds
+     *            The keyFilterRebuildSeconds to set.
+     */
+    public void setKeyFilterRebuildSeconds(final int keyFilterRebuildSeconds)
+    {
+        this.keyFilterRebuildSeconds = keyFilterRebuildSeconds;
+    }
+
+    /**
+     * @return Returns the keyFilterFalsePositiveRate.
+     */
+    @Override
+    public double getKeyFilterFalsePositiveRate()
+    {
+        return keyFilterFalsePositiveRate;
+    }
+
+    /**
+     * By default this is 0.01.
+     * <p>
+     * @param keyFilterFalsePositiveRate
+     *            The keyFilterFalsePositiveRate to set.
+     */
+    public void setKeyFilterFalsePositiveRate(final double keyFilterFalsePositiveRate)
+    {
+        this.keyFilterFalsePositiveRate = keyFilterFalsePositiveRate;
+    }
+
     /**
      * Includes the common attributes for a debug message.
      * <p>
@@ -195,6 +287,10 @@ public abstract class AbstractDiskCacheAttributes extends AbstractAuxiliaryCache
         str.append("\n maxPurgatorySize   = " + getMaxPurgatorySize());
         str.append("\n allowRemoveAll   = " + isAllowRemoveAll());
         str.append("\n ShutdownSpoolTimeLimit   = " + getShutdownSpoolTimeLimit());
+        str.append("\n useKeyIndex   = " + isUseKeyIndex());
+        str.append("\n useKeyFilter   = " + isUseKeyFilter());
+        str.append("\n keyFilterRebuildSeconds   = " + getKeyFilterRebuildSeconds());
+        str.append("\n keyFilterFalsePositiveRate   = " + getKeyFilterFalsePositiveRate());
         return str.toString();
     }
 
@@ -109,6 +109,46 @@ public interface IDiskCacheAttributes
      */
     void setAllowRemoveAll( boolean allowRemoveAll );
 
+    /**
+     * Whether the keys are also kept ordered by text, so that hierarchical removals and
+     * getMatching patterns starting with a literal prefix don't scan all the keys. Only the
+     * indexed and block disk caches use it.
+     * <p>
+     * @return true if the cache keeps a key index
+     */
+    default boolean isUseKeyIndex()
+    {
+        return false;
+    }
+
+    /**
+     * Whether a Bloom filter of the keys answers the gets of keys that are not in the cache
+     * without reading the store. The filter is rebuilt every KeyFilterRebuildSeconds to forget
+     * the removed keys.
+     * <p>
+     * @return true if the cache keeps a key filter
+     */
+    default boolean isUseKeyFilter()
+    {
+        return false;
+    }
+
+    /**
+     * @return the number of seconds between two rebuilds of the key filter
+     */
+    default int getKeyFilterRebuildSeconds()
+    {
+        return 300;
+    }
+
+    /**
+     * @return the rate of gets of missing keys that the key filter lets through to the store
+     */
+    default double getKeyFilterFalsePositiveRate()
+    {
+        return 0.01;
+    }
+
     /**
      * set the type of the limit of the cache size
      * @param diskLimitType COUNT - limit by count of the elements, SIZE, limit by sum of element's size
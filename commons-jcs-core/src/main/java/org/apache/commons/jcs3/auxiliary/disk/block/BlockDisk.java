@@ -24,8 +24,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.StandardOpenOption;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
@@ -54,14 +53,8 @@ public class BlockDisk implements AutoCloseable
     /** Size of the blocks */
     private final int blockSizeBytes;
 
-    /**
-     * the total number of blocks that have been used. If there are no free, we will use this to
-     * calculate the position of the next block.
-     */
-    private final AtomicInteger numberOfBlocks = new AtomicInteger(0);
-
-    /** Empty blocks that can be reused. */
-    private final ConcurrentLinkedQueue<Integer> emptyBlocks = new ConcurrentLinkedQueue<>();
+    /** The blocks of the file and the empty blocks that can be reused. */
+    private final BlockDiskAllocator allocator;
 
     /** The serializer. */
     private final IElementSerializer elementSerializer;
@@ -120,7 +113,7 @@ public class BlockDisk implements AutoCloseable
                 StandardOpenOption.CREATE,
                 StandardOpenOption.READ,
                 StandardOpenOption.WRITE);
-        this.numberOfBlocks.set((int) Math.ceil(1f * this.fc.size() / blockSizeBytes));
+        this.allocator = new BlockDiskAllocator((int) Math.ceil(1f * this.fc.size() / blockSizeBytes));
 
         log.info("Constructing BlockDisk, blockSizeBytes [{0}]", blockSizeBytes);
 
@@ -128,31 +121,6 @@ public class BlockDisk implements AutoCloseable
         this.elementSerializer = elementSerializer;
     }
 
-    /**
-     * Allocate a given number of blocks from the available set
-     *
-     * @param numBlocksNeeded
-     * @return an array of allocated blocks
-     */
-    private int[] allocateBlocks(final int numBlocksNeeded)
-    {
-        assert numBlocksNeeded >= 1;
-
-        final int[] blocks = new int[numBlocksNeeded];
-        // get them from the empty list or take the next one
-        for (int i = 0; i < numBlocksNeeded; i++)
-        {
-            Integer emptyBlock = emptyBlocks.poll();
-            if (emptyBlock == null)
-            {
-                emptyBlock = Integer.valueOf(numberOfBlocks.getAndIncrement());
-            }
-            blocks[i] = emptyBlock.intValue();
-        }
-
-        return blocks;
-    }
-
     /**
      * This writes an object to disk and returns the blocks it was stored in.
      * <p>
@@ -160,11 +128,9 @@ public class BlockDisk implements AutoCloseable
      * <ol>
      * <li>Serialize the object.</li>
      * <li>Determine the number of blocks needed.</li>
-     * <li>Look for free blocks in the emptyBlock list.</li>
-     * <li>If there were not enough in the empty list. Take the nextBlock and increment it.</li>
-     * <li>If the data will not fit in one block, create sub arrays.</li>
-     * <li>Write the subarrays to disk.</li>
-     * <li>If the process fails we should decrement the block count if we took from it.</li>
+     * <li>Allocate them, as a contiguous run when possible.</li>
+     * <li>Lay out the chunks, each with its header, in a buffer per run.</li>
+     * <li>Write each run with a single write.</li>
      * </ol>
      * @param object
      * @return the blocks we used.
@@ -187,33 +153,38 @@ public class BlockDisk implements AutoCloseable
         log.debug("numBlocksNeeded = {0}", numBlocksNeeded);
 
         // allocate blocks
-        final int[] blocks = allocateBlocks(numBlocksNeeded);
+        final int[] blocks = allocator.allocate(numBlocksNeeded);
 
         int offset = 0;
         final int maxChunkSize = blockSizeBytes - HEADER_SIZE_BYTES;
-        final ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_SIZE_BYTES);
-        final ByteBuffer dataBuffer = ByteBuffer.wrap(data);
 
-        for (int i = 0; i < numBlocksNeeded; i++)
+        for (int runStart = 0; runStart < numBlocksNeeded;)
         {
-            headerBuffer.clear();
-            final int length = Math.min(maxChunkSize, data.length - offset);
-            headerBuffer.putInt(length);
-            headerBuffer.flip();
+            final int runEnd = findRunEnd(blocks, runStart);
 
-            dataBuffer.position(offset).limit(offset + length);
-            final ByteBuffer slice = dataBuffer.slice();
+            // the last block of the run is only written up to the end of its chunk
+            final int lastLength = Math.min(maxChunkSize,
+                    data.length - offset - (runEnd - runStart - 1) * maxChunkSize);
+            final ByteBuffer buffer = ByteBuffer.allocate(
+                    (runEnd - runStart - 1) * blockSizeBytes + HEADER_SIZE_BYTES + lastLength);
 
-            final long position = calculateByteOffsetForBlockAsLong(blocks[i]);
-            // write the header
-            int written = fc.write(headerBuffer, position);
-            assert written == HEADER_SIZE_BYTES;
+            for (int i = runStart; i < runEnd; i++)
+            {
+                final int length = Math.min(maxChunkSize, data.length - offset);
+                buffer.position((i - runStart) * blockSizeBytes);
+                buffer.putInt(length);
+                buffer.put(data, offset, length);
+                offset += length;
+            }
+            buffer.clear();
 
-            //write the data
-            written = fc.write(slice, position + HEADER_SIZE_BYTES);
-            assert written == length;
+            long position = calculateByteOffsetForBlockAsLong(blocks[runStart]);
+            while (buffer.hasRemaining())
+            {
+                position += fc.write(buffer, position);
+            }
 
-            offset += length;
+            runStart = runEnd;
         }
 
         //fc.force(false);
@@ -269,83 +240,101 @@ public class BlockDisk implements AutoCloseable
     protected <T> T read(final int[] blockNumbers)
         throws IOException, ClassNotFoundException
     {
-        final ByteBuffer data;
+        final int maxChunkSize = blockSizeBytes - HEADER_SIZE_BYTES;
+        final byte[] data = new byte[blockNumbers.length * maxChunkSize];
+        int length = 0;
 
-        if (blockNumbers.length == 1)
-        {
-            data = readBlock(blockNumbers[0]);
-        }
-        else
+        for (int runStart = 0; runStart < blockNumbers.length;)
         {
-            data = ByteBuffer.allocate(blockNumbers.length * getBlockSizeBytes());
-            // get all the blocks into data
-            for (short i = 0; i < blockNumbers.length; i++)
+            final int runEnd = findRunEnd(blockNumbers, runStart);
+            final ByteBuffer run = readRun(blockNumbers[runStart], runEnd - runStart);
+
+            for (int i = 0; i < runEnd - runStart; i++)
             {
-                final ByteBuffer chunk = readBlock(blockNumbers[i]);
-                data.put(chunk);
+                final int blockStart = i * blockSizeBytes;
+                String message = null;
+                int datalen = 0;
+                if (run.limit() < blockStart + HEADER_SIZE_BYTES)
+                {
+                    message = "Record " + calculateByteOffsetForBlockAsLong(blockNumbers[runStart + i])
+                        + " starts past EOF.";
+                }
+                else
+                {
+                    datalen = run.getInt(blockStart);
+                    if (datalen < 0 || datalen > maxChunkSize
+                        || run.limit() < blockStart + HEADER_SIZE_BYTES + datalen)
+                    {
+                        message = "Record " + calculateByteOffsetForBlockAsLong(blockNumbers[runStart + i])
+                            + " exceeds file length.";
+                    }
+                }
+
+                if (message != null)
+                {
+                    log.warn("\n The file is corrupt: \n {0}", message);
+                    throw new IOException("The File Is Corrupt, need to reset");
+                }
+
+                System.arraycopy(run.array(), blockStart + HEADER_SIZE_BYTES, data, length, datalen);
+                length += datalen;
             }
 
-            data.flip();
+            runStart = runEnd;
         }
 
-        log.debug("read, total post combination data.length = {0}", data::limit);
+        log.debug("read, total post combination data.length = {0}", length);
 
-        return elementSerializer.deSerialize(data.array(), null);
+        return elementSerializer.deSerialize(length == data.length ? data : Arrays.copyOf(data, length), null);
     }
 
     /**
-     * This reads the occupied data in a block.
+     * Finds the end of the run of consecutive blocks starting at an index.
      * <p>
-     * The first four bytes of the record should tell us how long it is. The data is read into a
-     * byte array and then an object is constructed from the byte array.
+     * @param blocks
+     * @param runStart the index of the first block of the run
+     * @return the index after the last block of the run
+     */
+    private static int findRunEnd(final int[] blocks, final int runStart)
+    {
+        int runEnd = runStart + 1;
+        while (runEnd < blocks.length && blocks[runEnd] == blocks[runEnd - 1] + 1)
+        {
+            runEnd++;
+        }
+        return runEnd;
+    }
+
+    /**
+     * Reads consecutive blocks with a single read. The returned buffer is shorter than the blocks
+     * if the file ends before.
      * <p>
-     * @return byte[]
-     * @param block
+     * @param block the first block
+     * @param count the number of blocks
+     * @return the content of the blocks, headers included
      * @throws IOException
      */
-    private ByteBuffer readBlock(final int block)
+    private ByteBuffer readRun(final int block, final int count)
         throws IOException
     {
-        int datalen = 0;
-
-        String message = null;
-        boolean corrupted = false;
-        final long fileLength = fc.size();
-
-        final long position = calculateByteOffsetForBlockAsLong(block);
-//        if (position > fileLength)
-//        {
-//            corrupted = true;
-//            message = "Record " + position + " starts past EOF.";
-//        }
-//        else
+        final ByteBuffer run = ByteBuffer.allocate(count * blockSizeBytes);
+        long position = calculateByteOffsetForBlockAsLong(block);
+        while (run.hasRemaining())
         {
-            final ByteBuffer datalength = ByteBuffer.allocate(HEADER_SIZE_BYTES);
-            fc.read(datalength, position);
-            datalength.flip();
-            datalen = datalength.getInt();
-            if (position + datalen > fileLength)
+            final int read = fc.read(run, position);
+            if (read < 0)
             {
-                corrupted = true;
-                message = "Record " + position + " exceeds file length.";
+                break;
             }
+            position += read;
         }
+        run.flip();
 
-        if (corrupted)
-        {
-            log.warn("\n The file is corrupt: \n {0}", message);
-            throw new IOException("The File Is Corrupt, need to reset");
-        }
-
-        final ByteBuffer data = ByteBuffer.allocate(datalen);
-        fc.read(data, position + HEADER_SIZE_BYTES);
-        data.flip();
-
-        return data;
+        return run;
     }
 
     /**
-     * Add these blocks to the emptyBlock list.
+     * Makes these blocks available again.
      * <p>
      * @param blocksToFree
      */
@@ -353,10 +342,7 @@ public class BlockDisk implements AutoCloseable
     {
         if (blocksToFree != null)
         {
-            for (short i = 0; i < blocksToFree.length; i++)
-            {
-                emptyBlocks.offer(Integer.valueOf(blocksToFree[i]));
-            }
+            allocator.free(blocksToFree);
         }
     }
 
@@ -420,8 +406,7 @@ public class BlockDisk implements AutoCloseable
     public void close()
         throws IOException
     {
-        this.numberOfBlocks.set(0);
-        this.emptyBlocks.clear();
+        this.allocator.reset();
         fc.close();
     }
 
@@ -433,8 +418,7 @@ public class BlockDisk implements AutoCloseable
     protected synchronized void reset()
         throws IOException
     {
-        this.numberOfBlocks.set(0);
-        this.emptyBlocks.clear();
+        this.allocator.reset();
         fc.truncate(0);
         fc.force(true);
     }
@@ -444,7 +428,7 @@ public class BlockDisk implements AutoCloseable
      */
     protected int getNumberOfBlocks()
     {
-        return numberOfBlocks.get();
+        return allocator.getNumberOfBlocks();
     }
 
     /**
@@ -474,7 +458,23 @@ public class BlockDisk implements AutoCloseable
      */
     protected int getEmptyBlocks()
     {
-        return this.emptyBlocks.size();
+        return allocator.getNumberOfFreeBlocks();
+    }
+
+    /**
+     * @return Returns the number of runs of empty blocks.
+     */
+    protected int getEmptyRuns()
+    {
+        return allocator.getNumberOfFreeRuns();
+    }
+
+    /**
+     * @return the allocator of the blocks, for persistence
+     */
+    protected BlockDiskAllocator getAllocator()
+    {
+        return allocator;
     }
 
     /**
@@ -488,7 +488,7 @@ public class BlockDisk implements AutoCloseable
         final StringBuilder buf = new StringBuilder();
         buf.append("\nBlock Disk ");
         buf.append("\n  Filepath [" + filepath + "]");
-        buf.append("\n  NumberOfBlocks [" + this.numberOfBlocks.get() + "]");
+        buf.append("\n  NumberOfBlocks [" + getNumberOfBlocks() + "]");
         buf.append("\n  BlockSizeBytes [" + this.blockSizeBytes + "]");
         buf.append("\n  Put Bytes [" + this.putBytes + "]");
         buf.append("\n  Put Count [" + this.putCount + "]");
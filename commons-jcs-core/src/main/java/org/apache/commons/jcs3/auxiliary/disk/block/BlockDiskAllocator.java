@@ -0,0 +1,291 @@
+package org.apache.commons.jcs3.auxiliary.disk.block;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * This class manages the free space of a block disk. The free blocks are kept in a bitmap, and
+ * the blocks of a value are allocated as a contiguous run when possible, so that the value can be
+ * written and read with a single I/O.
+ * <p>
+ * A run is taken from the first free run large enough, then from the free run at the end of the
+ * file, which is extended. If there is none, the file is extended, unless more than half of the
+ * blocks are free: the value is then spread over the free runs to keep the file from growing.
+ */
+public class BlockDiskAllocator
+{
+    /** Identifies the free space file format */
+    private static final int FREE_FILE_SIGNATURE = 0x6A637366; // "jcsf"
+
+    /** Free blocks, set bits are free. */
+    private final BitSet freeBlocks = new BitSet();
+
+    /** The total number of blocks in the file, free or not. */
+    private int numberOfBlocks;
+
+    /** The number of set bits. */
+    private int numberOfFreeBlocks;
+
+    /**
+     * Creates the allocator for a file holding the given number of blocks, all in use.
+     * <p>
+     * @param numberOfBlocks
+     */
+    public BlockDiskAllocator(final int numberOfBlocks)
+    {
+        this.numberOfBlocks = numberOfBlocks;
+    }
+
+    /**
+     * Allocates the given number of blocks. The blocks are returned in order, and consecutive
+     * blocks form the runs.
+     * <p>
+     * @param numBlocksNeeded
+     * @return an array of allocated blocks
+     */
+    public synchronized int[] allocate(final int numBlocksNeeded)
+    {
+        final int[] blocks = new int[numBlocksNeeded];
+
+        // first fit
+        int start = freeBlocks.nextSetBit(0);
+        while (start >= 0)
+        {
+            final int end = freeBlocks.nextClearBit(start);
+            if (end - start >= numBlocksNeeded || end >= numberOfBlocks)
+            {
+                break;
+            }
+            start = freeBlocks.nextSetBit(end);
+        }
+
+        if (start < 0 && numberOfFreeBlocks >= numBlocksNeeded && numberOfFreeBlocks * 2 > numberOfBlocks)
+        {
+            // too fragmented, fill the holes
+            int block = -1;
+            for (int i = 0; i < numBlocksNeeded; i++)
+            {
+                block = freeBlocks.nextSetBit(block + 1);
+                blocks[i] = block;
+                freeBlocks.clear(block);
+            }
+            numberOfFreeBlocks -= numBlocksNeeded;
+            return blocks;
+        }
+
+        if (start < 0)
+        {
+            start = numberOfBlocks;
+        }
+        final int end = start + numBlocksNeeded;
+        final int taken = Math.min(end, numberOfBlocks) - start;
+        freeBlocks.clear(start, start + taken);
+        numberOfFreeBlocks -= taken;
+        numberOfBlocks = Math.max(numberOfBlocks, end);
+
+        for (int i = 0; i < numBlocksNeeded; i++)
+        {
+            blocks[i] = start + i;
+        }
+        return blocks;
+    }
+
+    /**
+     * Makes the blocks available again.
+     * <p>
+     * @param blocksToFree
+     */
+    public synchronized void free(final int[] blocksToFree)
+    {
+        for (final int block : blocksToFree)
+        {
+            if (block < numberOfBlocks && !freeBlocks.get(block))
+            {
+                freeBlocks.set(block);
+                numberOfFreeBlocks++;
+            }
+        }
+    }
+
+    /**
+     * Marks the blocks as used. This is used to reconcile the persisted free space with the keys.
+     * <p>
+     * @param blocksInUse
+     */
+    public synchronized void use(final int[] blocksInUse)
+    {
+        for (final int block : blocksInUse)
+        {
+            if (freeBlocks.get(block))
+            {
+                freeBlocks.clear(block);
+                numberOfFreeBlocks--;
+            }
+        }
+    }
+
+    /**
+     * Marks all the blocks as free. Used before marking the blocks of the keys as used when there
+     * is no usable free space file.
+     */
+    public synchronized void freeAll()
+    {
+        freeBlocks.set(0, numberOfBlocks);
+        numberOfFreeBlocks = numberOfBlocks;
+    }
+
+    /**
+     * Forgets all the blocks.
+     */
+    public synchronized void reset()
+    {
+        freeBlocks.clear();
+        numberOfBlocks = 0;
+        numberOfFreeBlocks = 0;
+    }
+
+    /**
+     * Writes the free runs to a file.
+     * <p>
+     * @param file
+     * @throws IOException
+     */
+    public void save(final File file)
+        throws IOException
+    {
+        final ByteBuffer buffer;
+        synchronized (this)
+        {
+            final int runs = getNumberOfFreeRuns();
+            buffer = ByteBuffer.allocate(12 + runs * 8);
+            buffer.putInt(FREE_FILE_SIGNATURE);
+            buffer.putInt(numberOfBlocks);
+            buffer.putInt(runs);
+            for (int start = freeBlocks.nextSetBit(0); start >= 0;)
+            {
+                final int end = freeBlocks.nextClearBit(start);
+                buffer.putInt(start);
+                buffer.putInt(end - start);
+                start = freeBlocks.nextSetBit(end);
+            }
+        }
+        buffer.flip();
+
+        try (FileChannel fc = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while (buffer.hasRemaining())
+            {
+                fc.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads the free runs from a file written by {@link #save(File)}.
+     * <p>
+     * @param file
+     * @return false if the file is missing or does not describe the current number of blocks
+     * @throws IOException
+     */
+    public boolean load(final File file)
+        throws IOException
+    {
+        if (file.length() < 12)
+        {
+            return false;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate((int) file.length());
+        try (FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            while (buffer.hasRemaining() && fc.read(buffer) >= 0)
+            {
+                // read it all
+            }
+        }
+        buffer.flip();
+
+        synchronized (this)
+        {
+            if (buffer.getInt() != FREE_FILE_SIGNATURE || buffer.getInt() != numberOfBlocks)
+            {
+                return false;
+            }
+            final int runs = buffer.getInt();
+            if (buffer.remaining() < runs * 8)
+            {
+                return false;
+            }
+
+            freeBlocks.clear();
+            numberOfFreeBlocks = 0;
+            for (int i = 0; i < runs; i++)
+            {
+                final int start = buffer.getInt();
+                final int end = Math.min(start + buffer.getInt(), numberOfBlocks);
+                if (start >= 0 && start < end)
+                {
+                    freeBlocks.set(start, end);
+                }
+            }
+            numberOfFreeBlocks = freeBlocks.cardinality();
+        }
+        return true;
+    }
+
+    /**
+     * @return the total number of blocks
+     */
+    public synchronized int getNumberOfBlocks()
+    {
+        return numberOfBlocks;
+    }
+
+    /**
+     * @return the number of free blocks
+     */
+    public synchronized int getNumberOfFreeBlocks()
+    {
+        return numberOfFreeBlocks;
+    }
+
+    /**
+     * @return the number of runs of free blocks, a measure of fragmentation
+     */
+    public synchronized int getNumberOfFreeRuns()
+    {
+        int runs = 0;
+        for (int start = freeBlocks.nextSetBit(0); start >= 0;
+                start = freeBlocks.nextSetBit(freeBlocks.nextClearBit(start)))
+        {
+            runs++;
+        }
+        return runs;
+    }
+}
@@ -33,6 +33,7 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheAttributes;
 import org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache;
@@ -41,6 +42,7 @@ import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.engine.behavior.IRequireScheduler;
 import org.apache.commons.jcs3.engine.control.group.GroupAttrName;
 import org.apache.commons.jcs3.engine.control.group.GroupId;
+import org.apache.commons.jcs3.engine.match.KeyPrefixIndex;
 import org.apache.commons.jcs3.engine.stats.StatElement;
 import org.apache.commons.jcs3.engine.stats.Stats;
 import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
@@ -141,6 +143,10 @@ public class BlockDiskCache<K, V>
             {
                 this.reset();
             }
+            else
+            {
+                keyStore.restoreFreeSpace( dataFile.getAllocator() );
+            }
 
             // Initialization finished successfully, so set alive to true.
             setAlive(true);
@@ -159,6 +165,8 @@ public class BlockDiskCache<K, V>
     @Override
     public void setScheduledExecutorService(final ScheduledExecutorService scheduledExecutor)
     {
+        super.setScheduledExecutorService(scheduledExecutor);
+
         // add this region to the persistence thread.
         // TODO we might need to stagger this a bit.
         if ( this.blockDiskCacheAttributes.getKeyPersistenceIntervalSeconds() > 0 )
@@ -242,6 +250,30 @@ public class BlockDiskCache<K, V>
         return keys;
     }
 
+    /**
+     * Streams the key store without copying it when the key map is unlimited and concurrent, so
+     * no lock is needed. A size limited key map gives a copy of its keys.
+     * <p>
+     * @see org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache#processGetKeyStream()
+     */
+    @Override
+    protected Stream<K> processGetKeyStream()
+    {
+        return keyStore.keySet().stream();
+    }
+
+    /**
+     * Gets the keys of the group from the group index of the key store. The index is concurrent,
+     * so no lock is needed.
+     * <p>
+     * @see org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache#processGetGroupKeys(GroupId)
+     */
+    @Override
+    protected Set<K> processGetGroupKeys(final GroupId groupId)
+    {
+        return keyStore.getGroupKeys(groupId);
+    }
+
     /**
      * Gets matching items from the cache.
      * <p>
@@ -252,18 +284,23 @@ public class BlockDiskCache<K, V>
     @Override
     public Map<K, ICacheElement<K, V>> processGetMatching( final String pattern )
     {
-        Set<K> keyArray = null;
-        storageLock.readLock().lock();
-        try
-        {
-            keyArray = new HashSet<>(keyStore.keySet());
-        }
-        finally
+        final KeyPrefixIndex<K> keyIndex = keyStore.getKeyIndex();
+        Set<K> matchingKeys = keyIndex == null ? null : keyIndex.getMatchingKeys( getKeyMatcher(), pattern );
+        if ( matchingKeys == null )
         {
-            storageLock.readLock().unlock();
-        }
+            Set<K> keyArray = null;
+            storageLock.readLock().lock();
+            try
+            {
+                keyArray = new HashSet<>(keyStore.keySet());
+            }
+            finally
+            {
+                storageLock.readLock().unlock();
+            }
 
-        final Set<K> matchingKeys = getKeyMatcher().getMatchingKeysFromArray( pattern, keyArray );
+            matchingKeys = getKeyMatcher().getMatchingKeysFromArray( pattern, keyArray );
+        }
 
         return matchingKeys.stream()
             .collect(Collectors.toMap(
@@ -461,19 +498,18 @@ public class BlockDiskCache<K, V>
      */
     private boolean performGroupRemoval(final GroupId key)
     {
-        // remove all keys of the same name group.
-        final List<K> itemsToRemove = keyStore.keySet()
-                .stream()
-                .filter(k -> k instanceof GroupAttrName && ((GroupAttrName<?>) k).groupId.equals(key))
-                .collect(Collectors.toList());
+        // the index gives the members of the group, no need to scan the keys
+        boolean removed = false;
 
-        // remove matches.
         // Don't add to recycle bin here
         // https://issues.apache.org/jira/browse/JCS-67
-        itemsToRemove.forEach(this::performSingleKeyRemoval);
+        for (final K k : keyStore.removeGroup(key))
+        {
+            removed |= performSingleKeyRemoval(k);
+        }
         // TODO this needs to update the remove count separately
 
-        return !itemsToRemove.isEmpty();
+        return removed;
     }
 
     /**
@@ -489,7 +525,10 @@ public class BlockDiskCache<K, V>
     private boolean performPartialKeyRemoval(final String key)
     {
         // remove all keys of the same name hierarchy.
-        final List<K> itemsToRemove = keyStore.keySet()
+        // the key index only holds the keys having the prefix
+        final KeyPrefixIndex<K> keyIndex = keyStore.getKeyIndex();
+        final Set<K> candidates = keyIndex == null ? keyStore.keySet() : keyIndex.getKeysWithPrefix(key);
+        final List<K> itemsToRemove = candidates
                 .stream()
                 .filter(k -> k instanceof String && k.toString().startsWith(key))
                 .collect(Collectors.toList());
@@ -569,6 +608,7 @@ public class BlockDiskCache<K, V>
             // Prevents any interaction with the cache while we're shutting down.
             setAlive(false);
             this.keyStore.saveKeys();
+            this.keyStore.saveFreeSpace( dataFile.getAllocator() );
 
             if (future != null)
             {
@@ -619,12 +659,12 @@ public class BlockDiskCache<K, V>
         {
             storageLock.writeLock().lock();
 
-            this.keyStore.reset();
-
             if ( dataFile != null )
             {
                 dataFile.reset();
             }
+
+            this.keyStore.reset();
         }
         catch ( final IOException e )
         {
@@ -661,6 +701,8 @@ public class BlockDiskCache<K, V>
 
         elems.add(new StatElement<>( "Is Alive", Boolean.valueOf(isAlive()) ) );
         elems.add(new StatElement<>( "Key Map Size", Integer.valueOf(this.keyStore.size()) ) );
+        this.keyStore.getGroupIndex().addStatElements(elems);
+        this.keyStore.addStatElements(elems);
 
         if (this.dataFile != null)
         {
@@ -681,6 +723,8 @@ public class BlockDiskCache<K, V>
                     Long.valueOf(this.dataFile.getAveragePutSizeBytes()) ) );
             elems.add(new StatElement<>( "Empty Blocks",
                     Integer.valueOf(this.dataFile.getEmptyBlocks()) ) );
+            elems.add(new StatElement<>( "Empty Runs",
+                    Integer.valueOf(this.dataFile.getEmptyRuns()) ) );
         }
 
         // get the stats from the super too
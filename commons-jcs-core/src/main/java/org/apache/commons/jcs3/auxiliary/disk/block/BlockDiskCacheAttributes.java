@@ -47,6 +47,12 @@ public class BlockDiskCacheAttributes
     /** The keys will be persisted at this interval.  -1 mean never. */
     private long keyPersistenceIntervalSeconds = DEFAULT_KEY_PERSISTENCE_INTERVAL_SECONDS;
 
+    /** Should the keys be kept in a compact index. */
+    private boolean compactKeyStore = false;
+
+    /** Should the compact index keep the block numbers outside of the heap. */
+    private boolean compactKeyStoreOffHeap = false;
+
     /**
      * The size of the blocks. All blocks are the same size.
      * <p>
@@ -97,6 +103,44 @@ public class BlockDiskCacheAttributes
         return keyPersistenceIntervalSeconds;
     }
 
+    /**
+     * If true, the keys are kept in an open addressing index with the block numbers in primitive
+     * arrays, which takes several times less memory than the default LRU map for large key
+     * counts. The least recently used keys are then approximated with a clock.
+     * <p>
+     * @param compactKeyStore The compactKeyStore to set.
+     */
+    public void setCompactKeyStore( final boolean compactKeyStore )
+    {
+        this.compactKeyStore = compactKeyStore;
+    }
+
+    /**
+     * @return Returns the compactKeyStore.
+     */
+    public boolean isCompactKeyStore()
+    {
+        return compactKeyStore;
+    }
+
+    /**
+     * If true, the compact key store keeps the block numbers in a direct buffer.
+     * <p>
+     * @param compactKeyStoreOffHeap The compactKeyStoreOffHeap to set.
+     */
+    public void setCompactKeyStoreOffHeap( final boolean compactKeyStoreOffHeap )
+    {
+        this.compactKeyStoreOffHeap = compactKeyStoreOffHeap;
+    }
+
+    /**
+     * @return Returns the compactKeyStoreOffHeap.
+     */
+    public boolean isCompactKeyStoreOffHeap()
+    {
+        return compactKeyStoreOffHeap;
+    }
+
     /**
      * Write out the values for debugging purposes.
      * <p>
@@ -113,6 +157,8 @@ public class BlockDiskCacheAttributes
         str.append( "\n BlockSizeBytes [" + this.getBlockSizeBytes() + "]" );
         str.append( "\n KeyPersistenceIntervalSeconds [" + this.getKeyPersistenceIntervalSeconds() + "]" );
         str.append( "\n DiskLimitType [" + this.getDiskLimitType() + "]" );
+        str.append( "\n CompactKeyStore [" + this.isCompactKeyStore() + "]" );
+        str.append( "\n CompactKeyStoreOffHeap [" + this.isCompactKeyStoreOffHeap() + "]" );
         return str.toString();
     }
 }
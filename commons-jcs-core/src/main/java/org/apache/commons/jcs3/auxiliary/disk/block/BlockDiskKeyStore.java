@@ -29,21 +29,33 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.jcs3.auxiliary.disk.behavior.IDiskCacheAttributes.DiskLimitType;
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.engine.control.group.GroupId;
+import org.apache.commons.jcs3.engine.control.group.GroupIndex;
+import org.apache.commons.jcs3.engine.match.KeyPrefixIndex;
+import org.apache.commons.jcs3.engine.stats.StatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
 import org.apache.commons.jcs3.io.ObjectInputStreamClassLoaderAware;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
 import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 import org.apache.commons.jcs3.utils.struct.AbstractLRUMap;
+import org.apache.commons.jcs3.utils.struct.CompactKeyIndex;
 import org.apache.commons.jcs3.utils.struct.LRUMap;
 import org.apache.commons.jcs3.utils.timing.ElapsedTimer;
 
@@ -84,6 +96,7 @@ public class BlockDiskKeyStore<K>
         protected void processRemovedLRU(final K key, final int[] value)
         {
             blockDiskCache.freeBlocks(value);
+            unindexKey(key);
             if (log.isDebugEnabled())
             {
                 log.debug("{0}: Removing key: [{1}] from key store.", logCacheName, key);
@@ -144,6 +157,7 @@ public class BlockDiskKeyStore<K>
         protected void processRemovedLRU(final K key, final int[] value)
         {
             blockDiskCache.freeBlocks(value);
+            unindexKey(key);
             if (log.isDebugEnabled())
             {
                 log.debug("{0}: Removing key: [{1}] from key store.", logCacheName, key);
@@ -212,6 +226,271 @@ public class BlockDiskKeyStore<K>
         }
     }
 
+    /**
+     * Key map backed by a compact index. A value made of consecutive blocks is stored as its
+     * first block and block count. The few values spread over several runs are kept aside.
+     * Eviction uses the clock of the index instead of a strict LRU.
+     */
+    public class CompactKeyMap extends AbstractMap<K, int[]>
+    {
+        /** The index of the keys */
+        private final CompactKeyIndex<K> index;
+
+        /** Values which are not a single run of blocks */
+        private final Map<K, int[]> scattered = new ConcurrentHashMap<>();
+
+        /** size of the content in kB, for the size limit */
+        private final AtomicInteger contentSize = new AtomicInteger(0);
+
+        /** The limit on the number of keys or on the content size, 0 or less for none */
+        private final int maxSize;
+
+        /**
+         * @param maxSize the maximum number of keys, or the maximum size in kB with a size limit
+         * @param offHeap whether the index keeps the positions outside of the heap
+         */
+        public CompactKeyMap(final int maxSize, final boolean offHeap)
+        {
+            this.maxSize = maxSize;
+            this.index = new CompactKeyIndex<>(Math.max(maxSize, 0), offHeap, this::processEvicted);
+        }
+
+        /**
+         * Frees the blocks of an evicted key.
+         */
+        private void processEvicted(final K key, final long position, final int length)
+        {
+            final int[] value = decode(key, position, length, true);
+            blockDiskCache.freeBlocks(value);
+            unindexKey(key);
+            subLengthFromCacheSize(value);
+            log.debug("{0}: Removing key: [{1}] from key store.", logCacheName, key);
+        }
+
+        /**
+         * Rebuilds the blocks of an entry of the index.
+         */
+        private int[] decode(final K key, final long position, final int length, final boolean remove)
+        {
+            if (length < 0)
+            {
+                return remove ? scattered.remove(key) : scattered.get(key);
+            }
+            final int[] blocks = new int[length];
+            for (int i = 0; i < length; i++)
+            {
+                blocks[i] = (int) position + i;
+            }
+            return blocks;
+        }
+
+        /**
+         * @return whether the blocks are consecutive
+         */
+        private boolean isRun(final int[] blocks)
+        {
+            for (int i = 1; i < blocks.length; i++)
+            {
+                if (blocks[i] != blocks[i - 1] + 1)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int[] get(final Object key)
+        {
+            @SuppressWarnings("unchecked")
+            final K k = (K) key;
+            final long[] entry = index.get(k);
+            return entry == null ? null : decode(k, entry[0], (int) entry[1], false);
+        }
+
+        @Override
+        public boolean containsKey(final Object key)
+        {
+            @SuppressWarnings("unchecked")
+            final K k = (K) key;
+            return index.containsKey(k);
+        }
+
+        @Override
+        public int[] put(final K key, final int[] value)
+        {
+            final long[] previous;
+            int[] oldValue = null;
+            if (isRun(value))
+            {
+                previous = index.put(key, value.length == 0 ? 0 : value[0], value.length);
+                if (previous != null && previous[1] < 0)
+                {
+                    oldValue = scattered.remove(key);
+                }
+            }
+            else
+            {
+                oldValue = scattered.put(key, value);
+                previous = index.put(key, 0, -1);
+            }
+            if (previous != null && previous[1] >= 0)
+            {
+                oldValue = decode(key, previous[0], (int) previous[1], false);
+            }
+
+            addLengthToCacheSize(value);
+            subLengthFromCacheSize(oldValue);
+
+            while (shouldRemove() && index.evict())
+            {
+                // evicted
+            }
+
+            return oldValue;
+        }
+
+        @Override
+        public int[] remove(final Object key)
+        {
+            @SuppressWarnings("unchecked")
+            final K k = (K) key;
+            final long[] entry = index.remove(k);
+            if (entry == null)
+            {
+                return null;
+            }
+            final int[] value = decode(k, entry[0], (int) entry[1], true);
+            subLengthFromCacheSize(value);
+            return value;
+        }
+
+        @Override
+        public int size()
+        {
+            return index.size();
+        }
+
+        @Override
+        public void clear()
+        {
+            index.clear();
+            scattered.clear();
+            contentSize.set(0);
+        }
+
+        /**
+         * @return a copy of the keys
+         */
+        @Override
+        public Set<K> keySet()
+        {
+            return new HashSet<>(index.keys());
+        }
+
+        /**
+         * The index is copied under its lock into a compact snapshot, and the blocks of each
+         * entry are rebuilt as it is iterated, so the index is not locked while the caller
+         * works through the entries.
+         * <p>
+         * @return a copy of the entries
+         */
+        @Override
+        public Set<Map.Entry<K, int[]>> entrySet()
+        {
+            final CompactKeyIndex.Snapshot<K> snapshot = index.snapshot();
+            return new AbstractSet<Map.Entry<K, int[]>>()
+            {
+                @Override
+                public int size()
+                {
+                    return snapshot.size();
+                }
+
+                @Override
+                public Iterator<Map.Entry<K, int[]>> iterator()
+                {
+                    return new Iterator<Map.Entry<K, int[]>>()
+                    {
+                        private int i;
+                        private Map.Entry<K, int[]> next = advance();
+
+                        // skips the scattered entries removed since the snapshot
+                        private Map.Entry<K, int[]> advance()
+                        {
+                            while (i < snapshot.size())
+                            {
+                                final K key = snapshot.getKey(i);
+                                final int[] value = decode(key, snapshot.getPosition(i), snapshot.getLength(i), false);
+                                i++;
+                                if (value != null)
+                                {
+                                    return new AbstractMap.SimpleImmutableEntry<>(key, value);
+                                }
+                            }
+                            return null;
+                        }
+
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return next != null;
+                        }
+
+                        @Override
+                        public Map.Entry<K, int[]> next()
+                        {
+                            if (next == null)
+                            {
+                                throw new NoSuchElementException();
+                            }
+                            final Map.Entry<K, int[]> current = next;
+                            next = advance();
+                            return current;
+                        }
+                    };
+                }
+            };
+        }
+
+        /**
+         * @return the index, for the statistics
+         */
+        public CompactKeyIndex<K> getIndex()
+        {
+            return index;
+        }
+
+        /**
+         * @return whether the limit is exceeded
+         */
+        private boolean shouldRemove()
+        {
+            if (maxSize <= 0 || index.size() <= 1)
+            {
+                return false;
+            }
+            return diskLimitType == DiskLimitType.SIZE ? contentSize.get() > maxSize : index.size() > maxSize;
+        }
+
+        // keep the content size in kB, so 2^31 kB is reasonable value
+        private void addLengthToCacheSize(final int[] value)
+        {
+            if (value != null)
+            {
+                contentSize.addAndGet(value.length * blockSize / 1024 + 1);
+            }
+        }
+
+        private void subLengthFromCacheSize(final int[] value)
+        {
+            if (value != null)
+            {
+                contentSize.addAndGet(value.length * blockSize / -1024 - 1);
+            }
+        }
+    }
+
     /** The logger */
     private static final Log log = LogManager.getLog(BlockDiskKeyStore.class);
 
@@ -221,9 +500,18 @@ public class BlockDiskKeyStore<K>
     /** The key to block map */
     private Map<K, int[]> keyHash;
 
+    /** The group members in the key map. */
+    private final GroupIndex<K> groupIndex = new GroupIndex<>();
+
+    /** The keys of the key map ordered by text, null unless UseKeyIndex is set. */
+    private final KeyPrefixIndex<K> keyIndex;
+
     /** The file where we persist the keys */
     private final File keyFile;
 
+    /** The file where we persist the free blocks on shutdown */
+    private final File freeFile;
+
     /** The key file signature for new-style key files */
     private final static int KEY_FILE_SIGNATURE = 0x6A63734B; // "jcsK"
 
@@ -268,6 +556,7 @@ public class BlockDiskKeyStore<K>
         this.blockDiskCache = blockDiskCache;
         this.diskLimitType = cacheAttributes.getDiskLimitType();
         this.blockSize = cacheAttributes.getBlockSizeBytes();
+        this.keyIndex = cacheAttributes.isUseKeyIndex() ? new KeyPrefixIndex<>() : null;
 
         if (blockDiskCache == null)
         {
@@ -284,6 +573,8 @@ public class BlockDiskKeyStore<K>
 
         this.keyFile = new File(rootDirectory, fileName + ".key");
 
+        this.freeFile = new File(rootDirectory, fileName + ".free");
+
         log.info("{0}: Key File [{1}]", logCacheName, this.keyFile.getAbsolutePath());
 
         if (keyFile.length() > 0)
@@ -309,6 +600,7 @@ public class BlockDiskKeyStore<K>
     protected void clearMemoryMap()
     {
         this.keyHash.clear();
+        clearIndexes();
     }
 
     /**
@@ -340,7 +632,12 @@ public class BlockDiskKeyStore<K>
     private void initKeyMap()
     {
         keyHash = null;
-        if (maxKeySize >= 0)
+        if (blockDiskCacheAttributes.isCompactKeyStore())
+        {
+            keyHash = new CompactKeyMap(maxKeySize, blockDiskCacheAttributes.isCompactKeyStoreOffHeap());
+            log.info("{0}: Set compact key store with maxKeySize: \"{1}\"", logCacheName, maxKeySize);
+        }
+        else if (maxKeySize >= 0)
         {
             if (this.diskLimitType == DiskLimitType.SIZE)
             {
@@ -354,10 +651,9 @@ public class BlockDiskKeyStore<K>
         }
         else
         {
-            // If no max size, use a plain map for memory and processing
-            // efficiency.
-            keyHash = new HashMap<>();
-            // keyHash = Collections.synchronizedMap( new HashMap() );
+            // If no max size, use a plain concurrent map, the keys can then be
+            // streamed without holding the storage lock.
+            keyHash = new ConcurrentHashMap<>();
             log.info("{0}: Set maxKeySize to unlimited", logCacheName);
         }
     }
@@ -394,6 +690,7 @@ public class BlockDiskKeyStore<K>
 
         // create a key map to use.
         initKeyMap();
+        clearIndexes();
 
         final HashMap<K, int[]> keys = new HashMap<>();
 
@@ -465,6 +762,7 @@ public class BlockDiskKeyStore<K>
         if (!keys.isEmpty())
         {
             keyHash.putAll(keys);
+            keyHash.keySet().forEach(this::indexKey);
 
             log.debug("{0}: Found {1} in keys file.", logCacheName, keys.size());
             log.info("{0}: Loaded keys from [{1}], key count: {2}; up to {3} will be available.",
@@ -483,6 +781,7 @@ public class BlockDiskKeyStore<K>
     public void put(final K key, final int[] value)
     {
         this.keyHash.put(key, value);
+        indexKey(key);
     }
 
     /**
@@ -494,9 +793,107 @@ public class BlockDiskKeyStore<K>
      */
     public int[] remove(final K key)
     {
+        unindexKey(key);
         return this.keyHash.remove(key);
     }
 
+    /**
+     * Gets the keys of a group from the group index.
+     * <p>
+     * @param groupId the group
+     * @return a copy of the keys of the group
+     */
+    public Set<K> getGroupKeys(final GroupId groupId)
+    {
+        return this.groupIndex.getKeys(groupId);
+    }
+
+    /**
+     * Forgets the group in the group index. The caller removes the returned keys.
+     * <p>
+     * @param groupId the group
+     * @return the keys of the group
+     */
+    public Set<K> removeGroup(final GroupId groupId)
+    {
+        return this.groupIndex.removeGroup(groupId);
+    }
+
+    /**
+     * @return the index of the group members
+     */
+    public GroupIndex<K> getGroupIndex()
+    {
+        return this.groupIndex;
+    }
+
+    /**
+     * @return the keys ordered by text, null if the cache doesn't use a key index
+     */
+    public KeyPrefixIndex<K> getKeyIndex()
+    {
+        return this.keyIndex;
+    }
+
+    /**
+     * Adds a key entering the key map to the indexes.
+     * <p>
+     *
+     * @param key
+     */
+    private void indexKey(final K key)
+    {
+        this.groupIndex.add(key);
+        if (this.keyIndex != null)
+        {
+            this.keyIndex.add(key);
+        }
+    }
+
+    /**
+     * Adds the footprint of the compact key store to the statistics.
+     * <p>
+     *
+     * @param elems
+     */
+    public void addStatElements(final List<IStatElement<?>> elems)
+    {
+        if (keyHash instanceof BlockDiskKeyStore.CompactKeyMap)
+        {
+            final CompactKeyIndex<K> index = ((CompactKeyMap) keyHash).getIndex();
+            elems.add(new StatElement<>("Key Store Slots", Integer.valueOf(index.capacity())));
+            elems.add(new StatElement<>("Key Store Heap Bytes", Long.valueOf(index.getHeapBytes())));
+            elems.add(new StatElement<>("Key Store Off Heap Bytes", Long.valueOf(index.getOffHeapBytes())));
+        }
+    }
+
+    /**
+     * Removes a key leaving the key map from the indexes.
+     * <p>
+     *
+     * @param key
+     */
+    private void unindexKey(final K key)
+    {
+        this.groupIndex.remove(key);
+        if (this.keyIndex != null)
+        {
+            this.keyIndex.remove(key);
+        }
+    }
+
+    /**
+     * Empties the indexes along with the key map.
+     */
+    private void clearIndexes()
+    {
+        this.groupIndex.clear();
+        if (this.keyIndex != null)
+        {
+            this.keyIndex.clear();
+        }
+    }
+
     /**
      * Resets the file and creates a new key map.
      */
@@ -506,12 +903,87 @@ public class BlockDiskKeyStore<K>
         {
             clearMemoryMap();
             saveKeys();
+            deleteFreeSpace();
+        }
+    }
+
+    /**
+     * Saves the free blocks of the data file. This is only consistent with the keys when the
+     * cache is idle, so it is done on shutdown, after saving the keys.
+     * <p>
+     *
+     * @param allocator the allocator of the data file
+     */
+    protected void saveFreeSpace(final BlockDiskAllocator allocator)
+    {
+        synchronized (keyFile)
+        {
+            try
+            {
+                allocator.save(freeFile);
+                log.info("{0}: Saved {1} free blocks to [{2}]", () -> logCacheName,
+                        allocator::getNumberOfFreeBlocks, freeFile::getAbsolutePath);
+            }
+            catch (final IOException e)
+            {
+                log.error("{0}: Problem storing free blocks.", logCacheName, e);
+                deleteFreeSpace();
+            }
+        }
+    }
+
+    /**
+     * Restores the free blocks of the data file. The file saved on shutdown is used once, and
+     * deleted so that the keys saved later by the persistence thread are not checked against a
+     * stale map. Without it, the blocks which are not used by any key are free.
+     * <p>
+     *
+     * @param allocator the allocator of the data file
+     */
+    protected void restoreFreeSpace(final BlockDiskAllocator allocator)
+    {
+        synchronized (keyFile)
+        {
+            boolean loaded = false;
+            try
+            {
+                loaded = allocator.load(freeFile);
+            }
+            catch (final IOException e)
+            {
+                log.warn("{0}: Problem loading free blocks, rebuilding them from the keys.", logCacheName, e);
+            }
+            deleteFreeSpace();
+
+            if (!loaded)
+            {
+                allocator.freeAll();
+                keyHash.values().forEach(allocator::use);
+            }
+
+            log.info("{0}: {1} {2} free blocks", logCacheName,
+                    loaded ? "Loaded" : "Rebuilt", allocator.getNumberOfFreeBlocks());
+        }
+    }
+
+    /**
+     * Deletes the free blocks file.
+     */
+    private void deleteFreeSpace()
+    {
+        try
+        {
+            Files.deleteIfExists(freeFile.toPath());
+        }
+        catch (final IOException e)
+        {
+            log.warn("{0}: Could not delete [{1}]", logCacheName, freeFile, e);
         }
     }
 
     /**
-     * Saves key file to disk. This gets the LRUMap entry set and write the
-     * entries out one by one after putting them in a wrapper.
+     * Saves key file to disk. This visits the entries of the key map and write
+     * them out one by one after putting them in a wrapper.
      */
     protected void saveKeys()
     {
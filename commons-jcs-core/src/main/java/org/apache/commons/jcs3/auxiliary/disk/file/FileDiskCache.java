@@ -0,0 +1,1111 @@
+package org.apache.commons.jcs3.auxiliary.disk.file;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheAttributes;
+import org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.engine.behavior.IRequireScheduler;
+import org.apache.commons.jcs3.engine.control.group.GroupAttrName;
+import org.apache.commons.jcs3.engine.stats.StatElement;
+import org.apache.commons.jcs3.engine.stats.Stats;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+
+/**
+ * This disk cache writes each item to a separate file. This is for regions with big items, images
+ * or rendered fragments for instance, where a file per item is the right model.
+ * <p>
+ * The file of a key is named after a 64 bit hash of the key and stored below the region directory
+ * in DirectoryLevels levels of directories, each named after two hex digits of the hash. No
+ * directory gets more than a few hundred entries, even with millions of files.
+ * <p>
+ * Each file starts with a header holding the serialized key, followed by the serialized element.
+ * The keys are kept in an index in memory, which is rebuilt from the headers at startup, so the
+ * key set and the size never list the directories.
+ * <p>
+ * Writes go to a temporary file in the directory of the target with an asynchronous channel, and
+ * the temporary file is renamed over the target once complete, so a reader never sees a partial
+ * file. The event queue thread only serializes the element and starts the write. Until the
+ * rename, gets are served from the element in memory.
+ * <p>
+ * When MaxNumberOfFiles or MaxTotalBytes is exceeded, the sweeper removes the least recently
+ * used files down to LowWaterMarkPercent of the limits.
+ */
+public class FileDiskCache<K, V>
+    extends AbstractDiskCache<K, V>
+    implements IRequireScheduler
+{
+    /** The logger. */
+    private static final Log log = LogManager.getLog( FileDiskCache.class );
+
+    /** Marks the start of a file written by this cache. */
+    private static final int MAGIC = 0x4A435346;
+
+    /** The length of the magic number and of the key length. */
+    private static final int HEADER_LENGTH = 8;
+
+    /** The suffix of the complete files. */
+    private static final String DATA_SUFFIX = ".data";
+
+    /** The suffix of the files being written. */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** The name to prefix all log messages with. */
+    private final String logCacheName;
+
+    /** The config values. */
+    private final FileDiskCacheAttributes diskFileCacheAttributes;
+
+    /** The directory where the files are stored */
+    private Path directory;
+
+    /** The keys of the complete files. */
+    private final ConcurrentMap<K, FileEntry> index = new ConcurrentHashMap<>();
+
+    /**
+     * The writes which are not renamed yet. The changes of the files of a key are made in a
+     * compute of this map on the key, so they are serialized.
+     */
+    private final ConcurrentMap<K, PendingWrite<K, V>> pendingWrites = new ConcurrentHashMap<>();
+
+    /** Completes the asynchronous writes. */
+    private final WriteHandler writeHandler = new WriteHandler();
+
+    /** The size of all the complete files. */
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    /** Makes the names of the temporary files unique. */
+    private final AtomicLong tempCounter = new AtomicLong();
+
+    /** The number of files removed by the sweeper. */
+    private final AtomicLong sweptCount = new AtomicLong();
+
+    /** Set while the sweeper runs. */
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    /** Runs the sweeper, if null the sweeper runs in the thread completing the write. */
+    private ScheduledExecutorService scheduledExecutor;
+
+    /**
+     * Constructor for the DiskCache object.
+     * <p>
+     * @param cacheAttributes
+     */
+    public FileDiskCache( final FileDiskCacheAttributes cacheAttributes )
+    {
+        this( cacheAttributes, new StandardSerializer() );
+    }
+
+    /**
+     * Constructor for the DiskCache object. Will not be marked alive if the directory cannot be
+     * created.
+     * <p>
+     * @param cattr
+     * @param elementSerializer used if supplied, the super's super will not set a null
+     */
+    public FileDiskCache( final FileDiskCacheAttributes cattr, final IElementSerializer elementSerializer )
+    {
+        super( cattr );
+        setElementSerializer( elementSerializer );
+        this.diskFileCacheAttributes = cattr;
+        this.logCacheName = "Region [" + getCacheName() + "] ";
+        setAlive( initializeFileSystem( cattr ) );
+    }
+
+    /**
+     * Creates the root directory if it does not already exist and builds the index from the
+     * headers of the files.
+     * <p>
+     * @param cattr
+     * @return does the directory exist.
+     */
+    private boolean initializeFileSystem( final FileDiskCacheAttributes cattr )
+    {
+        this.directory = cattr.getDiskPath().toPath().resolve( getCacheName().replaceAll( "[^a-zA-Z0-9-_\\.]", "_" ) );
+        log.info( "{0}: Cache file root directory: {1}", logCacheName, directory );
+
+        try
+        {
+            Files.createDirectories( directory );
+            loadIndex();
+        }
+        catch ( final IOException e )
+        {
+            log.error( "{0}: Could not initialize File Disk Cache in {1}", logCacheName, directory, e );
+            return false;
+        }
+
+        log.info( "{0}: Found {1} files, {2} bytes", logCacheName, index.size(), totalBytes );
+        if ( isOverLimit() )
+        {
+            sweep();
+        }
+        return true;
+    }
+
+    /**
+     * Reads the keys from the headers of the files. The temporary files left by a crash and the
+     * files which cannot be read are removed.
+     * <p>
+     * @throws IOException
+     */
+    private void loadIndex()
+        throws IOException
+    {
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk( directory ))
+        {
+            files = walk.filter( Files::isRegularFile ).collect( Collectors.toList() );
+        }
+
+        for ( final Path file : files )
+        {
+            final String name = file.getFileName().toString();
+            if ( !name.endsWith( DATA_SUFFIX ) )
+            {
+                if ( name.endsWith( TEMP_SUFFIX ) )
+                {
+                    deleteWithRetry( file );
+                }
+                continue;
+            }
+
+            try (FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ))
+            {
+                final ByteBuffer header = ByteBuffer.allocate( HEADER_LENGTH );
+                readFully( channel, header );
+                header.flip();
+                if ( header.getInt() != MAGIC )
+                {
+                    throw new IOException( "Not a cache file" );
+                }
+                final ByteBuffer keyBytes = ByteBuffer.allocate( header.getInt() );
+                readFully( channel, keyBytes );
+                final K key = getElementSerializer().deSerialize( keyBytes.array(), null );
+
+                final FileEntry entry = new FileEntry( channel.size(), Files.getLastModifiedTime( file ).toMillis() );
+                if ( index.put( key, entry ) == null )
+                {
+                    totalBytes.addAndGet( entry.size );
+                }
+            }
+            catch ( final IOException | ClassNotFoundException | RuntimeException e )
+            {
+                log.warn( "{0}: Removing unreadable file {1}", logCacheName, file, e );
+                deleteWithRetry( file );
+            }
+        }
+    }
+
+    /**
+     * Reads from the channel until the buffer is full.
+     * <p>
+     * @param channel
+     * @param buffer
+     * @throws IOException
+     */
+    private static void readFully( final FileChannel channel, final ByteBuffer buffer )
+        throws IOException
+    {
+        while ( buffer.hasRemaining() )
+        {
+            if ( channel.read( buffer ) < 0 )
+            {
+                throw new EOFException( "Truncated header" );
+            }
+        }
+    }
+
+    /**
+     * @see org.apache.commons.jcs3.engine.behavior.IRequireScheduler#setScheduledExecutorService(java.util.concurrent.ScheduledExecutorService)
+     */
+    @Override
+    public void setScheduledExecutorService( final ScheduledExecutorService scheduledExecutor )
+    {
+        super.setScheduledExecutorService( scheduledExecutor );
+        this.scheduledExecutor = scheduledExecutor;
+    }
+
+    /**
+     * Creates the file for a key. The name is the hash of the key, the directories are named
+     * after the first digits of the hash.
+     * <p>
+     * Protected for testing.
+     * <p>
+     * @param key
+     * @return the file for the key
+     */
+    protected Path file( final K key )
+    {
+        final String hash = hash( key.toString() );
+
+        Path dir = directory;
+        for ( int i = 0; i < diskFileCacheAttributes.getDirectoryLevels(); i++ )
+        {
+            dir = dir.resolve( hash.substring( 2 * i, 2 * i + 2 ) );
+        }
+
+        return dir.resolve( hash + DATA_SUFFIX );
+    }
+
+    /**
+     * 64 bit FNV-1a hash, as 16 hex digits.
+     * <p>
+     * @param value
+     * @return the hash
+     */
+    private static String hash( final String value )
+    {
+        long hash = 0xcbf29ce484222325L;
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            hash ^= value.charAt( i );
+            hash *= 0x100000001b3L;
+        }
+
+        final String hex = Long.toHexString( hash );
+        return "0000000000000000".substring( hex.length() ) + hex;
+    }
+
+    /**
+     * Return the keys in this cache, from the index.
+     * <p>
+     * @see org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache#getKeySet()
+     */
+    @Override
+    public Set<K> getKeySet() throws IOException
+    {
+        final Set<K> keys = new HashSet<>( index.keySet() );
+        keys.addAll( pendingWrites.keySet() );
+        return keys;
+    }
+
+    /**
+     * Streams the keys being written, then the keys of the index.
+     * <p>
+     * @see org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache#processGetKeyStream()
+     */
+    @Override
+    protected Stream<K> processGetKeyStream()
+    {
+        return Stream.concat( pendingWrites.keySet().stream().filter( key -> !index.containsKey( key ) ),
+                index.keySet().stream() );
+    }
+
+    /**
+     * @return the number of keys in the index and being written
+     */
+    @Override
+    public int getSize()
+    {
+        if ( pendingWrites.isEmpty() )
+        {
+            return index.size();
+        }
+        return index.size() + (int) pendingWrites.keySet().stream().filter( key -> !index.containsKey( key ) ).count();
+    }
+
+    /**
+     * @return AuxiliaryCacheAttributes
+     */
+    @Override
+    public AuxiliaryCacheAttributes getAuxiliaryCacheAttributes()
+    {
+        return diskFileCacheAttributes;
+    }
+
+    /**
+     * @return String the path to the directory
+     */
+    @Override
+    protected String getDiskLocation()
+    {
+        return directory.toAbsolutePath().toString();
+    }
+
+    /**
+     * Waits for the writes in progress and sets alive to false.
+     */
+    @Override
+    protected void processDispose()
+    {
+        if ( !isAlive() )
+        {
+            log.error( "{0}: Not alive and dispose was called, directory: {1}", logCacheName, directory );
+            return;
+        }
+
+        long shutdownSpoolTime = diskFileCacheAttributes.getShutdownSpoolTimeLimit() * 1000L;
+        while ( !pendingWrites.isEmpty() && shutdownSpoolTime > 0 )
+        {
+            try
+            {
+                Thread.sleep( 10 );
+                shutdownSpoolTime -= 10;
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        // Prevents any interaction with the cache while we're shutting down.
+        setAlive( false );
+
+        log.info( "{0}: Shutdown complete, {1} writes were not complete.", logCacheName, pendingWrites.size() );
+    }
+
+    /**
+     * Gets the element being written for the key, or reads the file of the key.
+     * <p>
+     * @param key
+     * @return ICacheElement
+     */
+    @Override
+    protected ICacheElement<K, V> processGet( final K key )
+    {
+        if ( !isAlive() )
+        {
+            return null;
+        }
+
+        final PendingWrite<K, V> pending = pendingWrites.get( key );
+        if ( pending != null )
+        {
+            return pending.element;
+        }
+
+        final FileEntry entry = index.get( key );
+        if ( entry == null )
+        {
+            return null;
+        }
+
+        return toElement( key, entry, read( file( key ) ) );
+    }
+
+    /**
+     * Starts the reads of all the files and then waits for them, so the files are read
+     * concurrently.
+     * <p>
+     * @param keys
+     * @return a map of key to element, with the keys that were found
+     */
+    @Override
+    protected Map<K, ICacheElement<K, V>> processGetMultiple( final Set<K> keys )
+    {
+        final Map<K, ICacheElement<K, V>> results = new HashMap<>();
+        if ( !isAlive() || keys == null )
+        {
+            return results;
+        }
+
+        final Map<K, FileEntry> entries = new HashMap<>();
+        final Map<K, CompletableFuture<byte[]>> reads = new HashMap<>();
+        for ( final K key : keys )
+        {
+            ICacheElement<K, V> ce = getPurgatoryElement( key );
+            if ( ce == null )
+            {
+                final PendingWrite<K, V> pending = pendingWrites.get( key );
+                ce = pending == null ? null : pending.element;
+            }
+
+            if ( ce != null )
+            {
+                results.put( key, ce );
+                continue;
+            }
+
+            final FileEntry entry = index.get( key );
+            if ( entry != null )
+            {
+                entries.put( key, entry );
+                reads.put( key, read( file( key ) ) );
+            }
+        }
+
+        reads.forEach( ( key, read ) -> {
+            final ICacheElement<K, V> ce = toElement( key, entries.get( key ), read );
+            if ( ce != null )
+            {
+                results.put( key, ce );
+            }
+        } );
+
+        return results;
+    }
+
+    /**
+     * Gets the elements of the keys of the index matching the pattern.
+     * <p>
+     * @param pattern
+     * @return Map
+     * @throws IOException
+     */
+    @Override
+    protected Map<K, ICacheElement<K, V>> processGetMatching( final String pattern )
+        throws IOException
+    {
+        return processGetMultiple( getKeyMatcher().getMatchingKeysFromArray( pattern, getKeySet() ) );
+    }
+
+    /**
+     * Waits for the read of the file of a key and deserializes the element.
+     * <p>
+     * @param key
+     * @param entry the entry of the key in the index
+     * @param read
+     * @return the element, null if the file is gone or does not hold the key
+     */
+    private ICacheElement<K, V> toElement( final K key, final FileEntry entry, final CompletableFuture<byte[]> read )
+    {
+        try
+        {
+            final ByteBuffer bytes = ByteBuffer.wrap( read.get() );
+            if ( bytes.getInt() != MAGIC )
+            {
+                throw new IOException( "Not a cache file" );
+            }
+            final int offset = HEADER_LENGTH + bytes.getInt();
+            final ICacheElement<K, V> element =
+                    getElementSerializer().deSerialize( Arrays.copyOfRange( bytes.array(), offset, bytes.limit() ), null );
+
+            // test that the retrieved object has equal key, the hashes of two keys may collide
+            if ( element == null || !key.equals( element.getKey() ) )
+            {
+                log.info( "{0}: key: [{1}] point to cached object with key: [{2}]", logCacheName, key,
+                        element == null ? null : element.getKey() );
+                forget( key, entry );
+                return null;
+            }
+
+            // If this is true and we have a limit, the Least Recently Used file will be removed.
+            if ( diskFileCacheAttributes.isTouchOnGet() )
+            {
+                entry.lastAccess = System.currentTimeMillis();
+            }
+            return element;
+        }
+        catch ( final ExecutionException e )
+        {
+            if ( e.getCause() instanceof NoSuchFileException )
+            {
+                // removed or replaced by a colliding key
+                log.debug( "{0}: File does not exist. Returning null from Get, key: [{1}]", logCacheName, key );
+                forget( key, entry );
+            }
+            else
+            {
+                log.error( "{0}: Failure getting element, key: [{1}]", logCacheName, key, e.getCause() );
+            }
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch ( final IOException | ClassNotFoundException | RuntimeException e )
+        {
+            log.error( "{0}: Failure getting element, key: [{1}]", logCacheName, key, e );
+        }
+        return null;
+    }
+
+    /**
+     * Reads a file with an asynchronous channel.
+     * <p>
+     * @param file
+     * @return the content of the file, once read
+     */
+    private CompletableFuture<byte[]> read( final Path file )
+    {
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        try
+        {
+            final AsynchronousFileChannel channel = AsynchronousFileChannel.open( file, StandardOpenOption.READ );
+            final ByteBuffer buffer = ByteBuffer.allocate( (int) channel.size() );
+            channel.read( buffer, 0, buffer, new CompletionHandler<Integer, ByteBuffer>()
+            {
+                @Override
+                public void completed( final Integer count, final ByteBuffer attachment )
+                {
+                    if ( count.intValue() >= 0 && attachment.hasRemaining() )
+                    {
+                        channel.read( attachment, attachment.position(), attachment, this );
+                        return;
+                    }
+
+                    close( channel );
+                    if ( attachment.hasRemaining() )
+                    {
+                        result.completeExceptionally( new EOFException( "Truncated file " + file ) );
+                    }
+                    else
+                    {
+                        result.complete( attachment.array() );
+                    }
+                }
+
+                @Override
+                public void failed( final Throwable exc, final ByteBuffer attachment )
+                {
+                    close( channel );
+                    result.completeExceptionally( exc );
+                }
+            } );
+        }
+        catch ( final IOException | RuntimeException e )
+        {
+            result.completeExceptionally( e );
+        }
+        return result;
+    }
+
+    /**
+     * Removes the file of the key, with the files of all the keys of the name hierarchy if the key
+     * ends with the delimiter, or with the files of the group if the key is a group name without
+     * attribute.
+     * <p>
+     * @param key
+     * @return true if the item was removed
+     */
+    @Override
+    protected boolean processRemove( final K key )
+    {
+        if ( !isAlive() )
+        {
+            log.debug( "{0}: No longer alive so returning false for key = {1}", logCacheName, key );
+            return false;
+        }
+
+        if ( key instanceof String && key.toString().endsWith( NAME_COMPONENT_DELIMITER ) )
+        {
+            return removeAll( k -> k instanceof String && k.toString().startsWith( key.toString() ) );
+        }
+        if ( key instanceof GroupAttrName && ( (GroupAttrName<?>) key ).attrName == null )
+        {
+            final GroupAttrName<?> group = (GroupAttrName<?>) key;
+            return removeAll( k -> k instanceof GroupAttrName && ( (GroupAttrName<?>) k ).groupId.equals( group.groupId ) );
+        }
+        return removeKey( key );
+    }
+
+    /**
+     * Removes the files of the keys matching the filter.
+     * <p>
+     * @param filter
+     * @return true if a file was removed
+     */
+    private boolean removeAll( final Predicate<K> filter )
+    {
+        boolean removed = false;
+        for ( final K k : processGetKeyStream().filter( filter ).collect( Collectors.toList() ) )
+        {
+            removed |= removeKey( k );
+        }
+        return removed;
+    }
+
+    /**
+     * Cancels the write of the key and removes its file.
+     * <p>
+     * @param key
+     * @return true if there was a file or a write
+     */
+    private boolean removeKey( final K key )
+    {
+        final AtomicBoolean removed = new AtomicBoolean();
+        pendingWrites.compute( key, ( k, pending ) -> {
+            removed.set( pending != null );
+            if ( removeFile( k ) )
+            {
+                removed.set( true );
+            }
+            // the write sees it is no longer pending and deletes its temporary file
+            return null;
+        } );
+
+        log.debug( "{0}: Disk removal: Removed from index, key [{1}] removed = {2}", logCacheName, key, removed );
+        return removed.get();
+    }
+
+    /**
+     * Removes the key from the index and deletes its file. To call in a compute of the pending
+     * writes on the key.
+     * <p>
+     * @param key
+     * @return true if the key was in the index
+     */
+    private boolean removeFile( final K key )
+    {
+        final FileEntry entry = index.remove( key );
+        if ( entry == null )
+        {
+            return false;
+        }
+
+        totalBytes.addAndGet( -entry.size );
+        deleteWithRetry( file( key ) );
+        return true;
+    }
+
+    /**
+     * Removes the key from the index if it still has the entry, when its file is gone.
+     * <p>
+     * @param key
+     * @param entry
+     */
+    private void forget( final K key, final FileEntry entry )
+    {
+        if ( index.remove( key, entry ) )
+        {
+            totalBytes.addAndGet( -entry.size );
+        }
+    }
+
+    /**
+     * Remove all the files below the directory. The directories are kept.
+     * <p>
+     * Assumes that this is the only region in the directory.
+     * <p>
+     * @throws IOException
+     */
+    @Override
+    protected void processRemoveAll()
+        throws IOException
+    {
+        // the writes in progress see they are no longer pending and delete their temporary files
+        pendingWrites.clear();
+        index.clear();
+        totalBytes.set( 0 );
+
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk( directory ))
+        {
+            files = walk.filter( Files::isRegularFile ).collect( Collectors.toList() );
+        }
+        files.forEach( this::deleteWithRetry );
+    }
+
+    /**
+     * Serializes the element and starts the write of a temporary file next to the file of the
+     * key. The temporary file is renamed once written, see {@link WriteHandler}.
+     * <p>
+     * @param element
+     * @throws IOException
+     */
+    @Override
+    protected void processUpdate( final ICacheElement<K, V> element )
+        throws IOException
+    {
+        final K key = element.getKey();
+        final byte[] keyBytes = getElementSerializer().serialize( key );
+        final byte[] elementBytes = getElementSerializer().serialize( element );
+        final ByteBuffer buffer = ByteBuffer.allocate( HEADER_LENGTH + keyBytes.length + elementBytes.length );
+        buffer.putInt( MAGIC ).putInt( keyBytes.length ).put( keyBytes ).put( elementBytes );
+        buffer.flip();
+
+        final Path file = file( key );
+        Files.createDirectories( file.getParent() );
+        final Path temp = file.resolveSibling( file.getFileName() + "." + tempCounter.incrementAndGet() + TEMP_SUFFIX );
+
+        final PendingWrite<K, V> pending = new PendingWrite<>( element, file, temp, buffer );
+        pendingWrites.put( key, pending );
+        try
+        {
+            pending.channel = AsynchronousFileChannel.open( temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE );
+        }
+        catch ( final IOException e )
+        {
+            pendingWrites.remove( key, pending );
+            log.error( "{0}: Failure updating element, key: [{1}]", logCacheName, key, e );
+            return;
+        }
+
+        log.debug( "{0}: Writing {1} bytes to file {2}", logCacheName, buffer.limit(), temp );
+        pending.channel.write( buffer, 0, pending, writeHandler );
+    }
+
+    /**
+     * @return true if there are more files or bytes than allowed
+     */
+    private boolean isOverLimit()
+    {
+        final int maxFiles = diskFileCacheAttributes.getMaxNumberOfFiles();
+        final long maxBytes = diskFileCacheAttributes.getMaxTotalBytes();
+        return maxFiles > 0 && index.size() > maxFiles || maxBytes > 0 && totalBytes.get() > maxBytes;
+    }
+
+    /**
+     * Runs the sweeper, unless it is already running.
+     */
+    private void sweepIfNeeded()
+    {
+        while ( isOverLimit() && sweeping.compareAndSet( false, true ) )
+        {
+            try
+            {
+                sweep();
+            }
+            finally
+            {
+                sweeping.set( false );
+            }
+        }
+    }
+
+    /**
+     * Removes the least recently used files until the number of files and their size are below
+     * the low water mark. The files being written are not removed.
+     */
+    private void sweep()
+    {
+        final int percent = diskFileCacheAttributes.getLowWaterMarkPercent();
+        final int maxFiles = diskFileCacheAttributes.getMaxNumberOfFiles();
+        final long maxBytes = diskFileCacheAttributes.getMaxTotalBytes();
+        final long targetFiles = maxFiles > 0 ? maxFiles * (long) percent / 100 : Long.MAX_VALUE;
+        final long targetBytes = maxBytes > 0 ? maxBytes / 100 * percent + maxBytes % 100 * percent / 100 : Long.MAX_VALUE;
+
+        // reads change lastAccess, so sort on a snapshot to keep the order consistent
+        final List<Map.Entry<K, FileEntry>> entries = new ArrayList<>( index.entrySet() );
+        final long[] lastAccess = new long[entries.size()];
+        final Integer[] order = new Integer[entries.size()];
+        for ( int i = 0; i < order.length; i++ )
+        {
+            lastAccess[i] = entries.get( i ).getValue().lastAccess;
+            order[i] = Integer.valueOf( i );
+        }
+        Arrays.sort( order, Comparator.comparingLong( i -> lastAccess[i.intValue()] ) );
+
+        final AtomicLong swept = new AtomicLong();
+        for ( final Integer i : order )
+        {
+            final Map.Entry<K, FileEntry> e = entries.get( i.intValue() );
+            if ( index.size() <= targetFiles && totalBytes.get() <= targetBytes )
+            {
+                break;
+            }
+
+            final FileEntry entry = e.getValue();
+            pendingWrites.computeIfAbsent( e.getKey(), key -> {
+                if ( index.remove( key, entry ) )
+                {
+                    totalBytes.addAndGet( -entry.size );
+                    deleteWithRetry( file( key ) );
+                    swept.incrementAndGet();
+                }
+                return null;
+            } );
+        }
+
+        sweptCount.addAndGet( swept.get() );
+        log.debug( "{0}: Swept {1} files", logCacheName, swept );
+    }
+
+    /**
+     * Tries to delete a file. If it fails, it tries several more times, pausing a few ms. each
+     * time.
+     * <p>
+     * @param file
+     * @return true if the file does not exist or if it was removed
+     */
+    private boolean deleteWithRetry( final Path file )
+    {
+        final int maxRetries = diskFileCacheAttributes.getMaxRetriesOnDelete();
+        for ( int i = 0; ; i++ )
+        {
+            try
+            {
+                Files.deleteIfExists( file );
+                return true;
+            }
+            catch ( final IOException e )
+            {
+                if ( i >= maxRetries )
+                {
+                    log.warn( "{0}: Could not delete file {1}", logCacheName, file, e );
+                    return false;
+                }
+            }
+
+            try
+            {
+                Thread.sleep( 5 );
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Closes a channel and swallows errors.
+     * <p>
+     * @param channel
+     */
+    private void close( final AsynchronousFileChannel channel )
+    {
+        try
+        {
+            channel.close();
+        }
+        catch ( final IOException e )
+        {
+            log.error( "{0}: Failure closing channel", logCacheName, e );
+        }
+    }
+
+    /**
+     * Returns info about the disk cache.
+     * <p>
+     * @see org.apache.commons.jcs3.auxiliary.AuxiliaryCache#getStatistics()
+     */
+    @Override
+    public IStats getStatistics()
+    {
+        final IStats stats = new Stats();
+        stats.setTypeName( "File Disk Cache" );
+
+        final ArrayList<IStatElement<?>> elems = new ArrayList<>();
+
+        elems.add( new StatElement<>( "Is Alive", Boolean.valueOf( isAlive() ) ) );
+        elems.add( new StatElement<>( "Directory", directory ) );
+        elems.add( new StatElement<>( "Number Of Files", Integer.valueOf( index.size() ) ) );
+        elems.add( new StatElement<>( "Total Bytes", Long.valueOf( totalBytes.get() ) ) );
+        elems.add( new StatElement<>( "Pending Writes", Integer.valueOf( pendingWrites.size() ) ) );
+        elems.add( new StatElement<>( "Swept Files", Long.valueOf( sweptCount.get() ) ) );
+
+        // get the stats from the super too
+        final IStats sStats = super.getStatistics();
+        elems.addAll( sStats.getStatElements() );
+
+        stats.setStatElements( elems );
+
+        return stats;
+    }
+
+    /**
+     * The size of a file and the last time it was written or, if TouchOnGet is set, read.
+     */
+    private static final class FileEntry
+    {
+        /** The size of the file. */
+        final long size;
+
+        /** The last access, for the sweeper. */
+        volatile long lastAccess;
+
+        /**
+         * @param size
+         * @param lastAccess
+         */
+        FileEntry( final long size, final long lastAccess )
+        {
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * A write in progress.
+     */
+    private static final class PendingWrite<K, V>
+    {
+        /** The element, served to gets until the file is renamed. */
+        final ICacheElement<K, V> element;
+
+        /** The file of the key. */
+        final Path file;
+
+        /** The temporary file. */
+        final Path temp;
+
+        /** The header and the serialized element. */
+        final ByteBuffer buffer;
+
+        /** The channel on the temporary file. */
+        AsynchronousFileChannel channel;
+
+        /**
+         * @param element
+         * @param file
+         * @param temp
+         * @param buffer
+         */
+        PendingWrite( final ICacheElement<K, V> element, final Path file, final Path temp, final ByteBuffer buffer )
+        {
+            this.element = element;
+            this.file = file;
+            this.temp = temp;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Writes the rest of the buffer, then renames the temporary file over the file of the key if
+     * the write is still the pending one for the key.
+     */
+    private class WriteHandler
+        implements CompletionHandler<Integer, PendingWrite<K, V>>
+    {
+        @Override
+        public void completed( final Integer count, final PendingWrite<K, V> pending )
+        {
+            if ( pending.buffer.hasRemaining() )
+            {
+                pending.channel.write( pending.buffer, pending.buffer.position(), pending, this );
+                return;
+            }
+
+            try
+            {
+                if ( diskFileCacheAttributes.isFsyncOnWrite() )
+                {
+                    pending.channel.force( false );
+                }
+            }
+            catch ( final IOException e )
+            {
+                failed( e, pending );
+                return;
+            }
+            close( pending.channel );
+
+            final AtomicBoolean renamed = new AtomicBoolean();
+            pendingWrites.computeIfPresent( pending.element.getKey(), ( key, current ) -> {
+                if ( current != pending )
+                {
+                    // replaced by a newer write
+                    return current;
+                }
+
+                try
+                {
+                    rename( pending );
+                    final FileEntry entry = new FileEntry( pending.buffer.limit(), System.currentTimeMillis() );
+                    final FileEntry previous = index.put( key, entry );
+                    totalBytes.addAndGet( entry.size - ( previous == null ? 0 : previous.size ) );
+                    renamed.set( true );
+                }
+                catch ( final IOException e )
+                {
+                    log.error( "{0}: Failure renaming {1}, key: [{2}]", logCacheName, pending.temp, key, e );
+                    // the old file is out of date
+                    removeFile( key );
+                }
+                return null;
+            } );
+
+            if ( !renamed.get() )
+            {
+                deleteWithRetry( pending.temp );
+            }
+            else if ( isOverLimit() && !sweeping.get() )
+            {
+                final ScheduledExecutorService executor = scheduledExecutor;
+                if ( executor != null )
+                {
+                    executor.execute( FileDiskCache.this::sweepIfNeeded );
+                }
+                else
+                {
+                    sweepIfNeeded();
+                }
+            }
+        }
+
+        @Override
+        public void failed( final Throwable exc, final PendingWrite<K, V> pending )
+        {
+            log.error( "{0}: Failure writing {1}, key: [{2}]", logCacheName, pending.temp, pending.element.getKey(), exc );
+            close( pending.channel );
+
+            pendingWrites.computeIfPresent( pending.element.getKey(), ( key, current ) -> {
+                if ( current == pending )
+                {
+                    // the old file is out of date
+                    removeFile( key );
+                    return null;
+                }
+                return current;
+            } );
+            deleteWithRetry( pending.temp );
+        }
+
+        /**
+         * Renames the temporary file over the file of the key, atomically if the file system
+         * allows it.
+         * <p>
+         * @param pending
+         * @throws IOException
+         */
+        private void rename( final PendingWrite<K, V> pending )
+            throws IOException
+        {
+            try
+            {
+                Files.move( pending.temp, pending.file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+            }
+            catch ( final AtomicMoveNotSupportedException e )
+            {
+                Files.move( pending.temp, pending.file, StandardCopyOption.REPLACE_EXISTING );
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.apache.commons.jcs3.auxiliary.disk.file;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCacheAttributes;
+
+/**
+ * Configuration values for the file disk cache.
+ */
+public class FileDiskCacheAttributes
+    extends AbstractDiskCacheAttributes
+{
+    /** Don't change. */
+    private static final long serialVersionUID = -7371586172678836062L;
+
+    /** Default file count limit: -1 means no limit */
+    public static final int DEFAULT_MAX_NUMBER_OF_FILES = -1;
+
+    /** Default limit of the size of all the files: -1 means no limit */
+    public static final long DEFAULT_MAX_TOTAL_BYTES = -1;
+
+    /** Default number of directory levels between the region directory and the files. */
+    public static final int DEFAULT_DIRECTORY_LEVELS = 2;
+
+    /** Default percentage of the limits the sweeper brings the cache back to. */
+    public static final int DEFAULT_LOW_WATER_MARK_PERCENT = 90;
+
+    /** Default limit on the number of times we will retry a delete. */
+    public static final int DEFAULT_MAX_RETRIES_ON_DELETE = 10;
+
+    /** Default touch rule. */
+    public static final boolean DEFAULT_TOUCH_ON_GET = false;
+
+    /** Default fsync rule. */
+    public static final boolean DEFAULT_FSYNC_ON_WRITE = false;
+
+    /** Max number of files */
+    private int maxNumberOfFiles = DEFAULT_MAX_NUMBER_OF_FILES;
+
+    /** Max size of all the files */
+    private long maxTotalBytes = DEFAULT_MAX_TOTAL_BYTES;
+
+    /** Number of directory levels, each named after two hex digits of the key hash */
+    private int directoryLevels = DEFAULT_DIRECTORY_LEVELS;
+
+    /** Percentage of the limits the sweeper brings the cache back to */
+    private int lowWaterMarkPercent = DEFAULT_LOW_WATER_MARK_PERCENT;
+
+    /** Max number of retries on delete */
+    private int maxRetriesOnDelete = DEFAULT_MAX_RETRIES_ON_DELETE;
+
+    /**
+     * Should we touch on get. If so, a get makes the entry the most recently used one for the
+     * sweeper and the removal strategy is LRU. If this is false, then the oldest will be removed.
+     */
+    private boolean touchOnGet = DEFAULT_TOUCH_ON_GET;
+
+    /** Should the content of each file be forced to the device before it is renamed. */
+    private boolean fsyncOnWrite = DEFAULT_FSYNC_ON_WRITE;
+
+    /**
+     * @param maxNumberOfFiles the maxNumberOfFiles to set
+     */
+    public void setMaxNumberOfFiles( final int maxNumberOfFiles )
+    {
+        this.maxNumberOfFiles = maxNumberOfFiles;
+    }
+
+    /**
+     * @return the maxNumberOfFiles
+     */
+    public int getMaxNumberOfFiles()
+    {
+        return maxNumberOfFiles;
+    }
+
+    /**
+     * @param maxTotalBytes the maxTotalBytes to set
+     */
+    public void setMaxTotalBytes( final long maxTotalBytes )
+    {
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    /**
+     * @return the maxTotalBytes
+     */
+    public long getMaxTotalBytes()
+    {
+        return maxTotalBytes;
+    }
+
+    /**
+     * The files are spread over 256^directoryLevels directories. 0 puts all of them in the region
+     * directory.
+     * <p>
+     * @param directoryLevels the directoryLevels to set, at most 8
+     */
+    public void setDirectoryLevels( final int directoryLevels )
+    {
+        this.directoryLevels = Math.max( 0, Math.min( 8, directoryLevels ) );
+    }
+
+    /**
+     * @return the directoryLevels
+     */
+    public int getDirectoryLevels()
+    {
+        return directoryLevels;
+    }
+
+    /**
+     * When a limit is exceeded, the sweeper removes the least recently used files until the count
+     * and the size are at this percentage of the limits. Sweeping below the limits avoids a sweep
+     * on every write once the cache is full.
+     * <p>
+     * @param lowWaterMarkPercent the lowWaterMarkPercent to set
+     */
+    public void setLowWaterMarkPercent( final int lowWaterMarkPercent )
+    {
+        this.lowWaterMarkPercent = Math.max( 0, Math.min( 100, lowWaterMarkPercent ) );
+    }
+
+    /**
+     * @return the lowWaterMarkPercent
+     */
+    public int getLowWaterMarkPercent()
+    {
+        return lowWaterMarkPercent;
+    }
+
+    /**
+     * @param maxRetriesOnDelete the maxRetriesOnDelete to set
+     */
+    public void setMaxRetriesOnDelete( final int maxRetriesOnDelete )
+    {
+        this.maxRetriesOnDelete = maxRetriesOnDelete;
+    }
+
+    /**
+     * @return the maxRetriesOnDelete
+     */
+    public int getMaxRetriesOnDelete()
+    {
+        return maxRetriesOnDelete;
+    }
+
+    /**
+     * @param touchOnGet the touchOnGet to set
+     */
+    public void setTouchOnGet( final boolean touchOnGet )
+    {
+        this.touchOnGet = touchOnGet;
+    }
+
+    /**
+     * @return the touchOnGet
+     */
+    public boolean isTouchOnGet()
+    {
+        return touchOnGet;
+    }
+
+    /**
+     * @param fsyncOnWrite the fsyncOnWrite to set
+     */
+    public void setFsyncOnWrite( final boolean fsyncOnWrite )
+    {
+        this.fsyncOnWrite = fsyncOnWrite;
+    }
+
+    /**
+     * @return the fsyncOnWrite
+     */
+    public boolean isFsyncOnWrite()
+    {
+        return fsyncOnWrite;
+    }
+
+    /**
+     * Write out the values for debugging purposes.
+     * <p>
+     * @return String
+     */
+    @Override
+    public String toString()
+    {
+        final StringBuilder str = new StringBuilder();
+        str.append( "FileDiskCacheAttributes " );
+        str.append( "\n diskPath = " + super.getDiskPath() );
+        str.append( "\n maxNumberOfFiles   = " + getMaxNumberOfFiles() );
+        str.append( "\n maxTotalBytes   = " + getMaxTotalBytes() );
+        str.append( "\n directoryLevels   = " + getDirectoryLevels() );
+        str.append( "\n lowWaterMarkPercent   = " + getLowWaterMarkPercent() );
+        str.append( "\n maxRetriesOnDelete  = " + getMaxRetriesOnDelete() );
+        str.append( "\n touchOnGet   = " + isTouchOnGet() );
+        str.append( "\n fsyncOnWrite   = " + isFsyncOnWrite() );
+        return str.toString();
+    }
+}
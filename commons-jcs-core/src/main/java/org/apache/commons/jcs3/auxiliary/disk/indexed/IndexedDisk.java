@@ -165,6 +165,36 @@ public class IndexedDisk implements AutoCloseable
         ded.pos = newPosition;
     }
 
+    /**
+     * Appends a record, header included, to the end of another file. The bytes are copied by the
+     * channels, without going through the heap.
+     * <p>
+     * @param pos the position of the record in this file
+     * @param len the length of the data of the record
+     * @param target the file to append to, which must only be written by this method
+     * @return the position of the record in the target file
+     * @throws IOException
+     */
+    protected long transferTo(final long pos, final int len, final IndexedDisk target)
+        throws IOException
+    {
+        final long newPosition = target.fc.position();
+        final long count = HEADER_SIZE_BYTES + len;
+
+        long transferred = 0;
+        while (transferred < count)
+        {
+            final long chunk = fc.transferTo(pos + transferred, count - transferred, target.fc);
+            if (chunk <= 0)
+            {
+                throw new IOException("Record at " + pos + " exceeds file length.");
+            }
+            transferred += chunk;
+        }
+
+        return newPosition;
+    }
+
     /**
      * Writes the given byte array to the Disk at the specified position.
      * <p>
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -32,10 +33,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheAttributes;
 import org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache;
@@ -44,6 +47,8 @@ import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.engine.control.group.GroupAttrName;
 import org.apache.commons.jcs3.engine.control.group.GroupId;
+import org.apache.commons.jcs3.engine.control.group.GroupIndex;
+import org.apache.commons.jcs3.engine.match.KeyPrefixIndex;
 import org.apache.commons.jcs3.engine.logging.behavior.ICacheEvent;
 import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
 import org.apache.commons.jcs3.engine.stats.StatElement;
@@ -81,6 +86,12 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
     /** Map containing the keys and disk offsets. */
     private final Map<K, IndexedDiskElementDescriptor> keyHash;
 
+    /** The group members in the key map. */
+    private final GroupIndex<K> groupIndex = new GroupIndex<>();
+
+    /** The keys of the key map ordered by text, null unless UseKeyIndex is set. */
+    private final KeyPrefixIndex<K> keyIndex;
+
     /** The maximum number of keys that we will keep in memory. */
     private final int maxKeySize;
 
@@ -114,6 +125,9 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
     /** list where puts made during optimization are made */
     private final ConcurrentSkipListSet<IndexedDiskElementDescriptor> queuedPutList;
 
+    /** The compaction in progress, if the concurrent optimization is running. */
+    private volatile Compaction<K> compaction;
+
     /** RECYCLE BIN -- array of empty spots */
     private final ConcurrentSkipListSet<IndexedDiskElementDescriptor> recycle;
 
@@ -173,6 +187,7 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         this.diskLimitType = cattr.getDiskLimitType();
         // Make a clean file name
         this.fileName = getCacheName().replaceAll("[^a-zA-Z0-9-_\\.]", "_");
+        this.keyIndex = cattr.isUseKeyIndex() ? new KeyPrefixIndex<>() : null;
         this.keyHash = createInitialKeyMap();
         this.queuedPutList = new ConcurrentSkipListSet<>(new PositionComparator());
         this.recycle = new ConcurrentSkipListSet<>();
@@ -255,6 +270,7 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
     private void initializeEmptyStore() throws IOException
     {
         this.keyHash.clear();
+        clearIndexes();
 
         if (!dataFile.isEmpty())
         {
@@ -283,6 +299,7 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
             if (!isOk)
             {
                 keyHash.clear();
+                clearIndexes();
                 keyFile.reset();
                 dataFile.reset();
                 log.warn("{0}: Corruption detected. Resetting data and keys files.", logCacheName);
@@ -311,6 +328,7 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         {
             // clear a key map to use.
             keyHash.clear();
+            clearIndexes();
 
             final HashMap<K, IndexedDiskElementDescriptor> keys = keyFile.readObject(
                 new IndexedDiskElementDescriptor(0, (int) keyFile.length() - IndexedDisk.HEADER_SIZE_BYTES));
@@ -320,6 +338,7 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
                 log.debug("{0}: Found {1} in keys file.", logCacheName, keys.size());
 
                 keyHash.putAll(keys);
+                keyHash.keySet().forEach(this::indexKey);
 
                 log.info("{0}: Loaded keys from [{1}], key count: {2}; up to {3} will be available.",
                         () -> logCacheName, () -> fileName, keyHash::size, () -> maxKeySize);
@@ -478,6 +497,7 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
             storageLock.writeLock().lock();
             try
             {
+                logChange(ce.getKey());
                 old = keyHash.get(ce.getKey());
 
                 // Item with the same key already exists in file.
@@ -512,6 +532,7 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
 
                     // Put it in the map
                     keyHash.put(ce.getKey(), ded);
+                    indexKey(ce.getKey());
 
                     if (queueInput)
                     {
@@ -602,18 +623,22 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
     public Map<K, ICacheElement<K, V>> processGetMatching(final String pattern)
     {
         final Map<K, ICacheElement<K, V>> elements = new HashMap<>();
-        Set<K> keyArray = null;
-        storageLock.readLock().lock();
-        try
-        {
-            keyArray = new HashSet<>(keyHash.keySet());
-        }
-        finally
+        Set<K> matchingKeys = keyIndex == null ? null : keyIndex.getMatchingKeys(getKeyMatcher(), pattern);
+        if (matchingKeys == null)
         {
-            storageLock.readLock().unlock();
-        }
+            Set<K> keyArray = null;
+            storageLock.readLock().lock();
+            try
+            {
+                keyArray = new HashSet<>(keyHash.keySet());
+            }
+            finally
+            {
+                storageLock.readLock().unlock();
+            }
 
-        final Set<K> matchingKeys = getKeyMatcher().getMatchingKeysFromArray(pattern, keyArray);
+            matchingKeys = getKeyMatcher().getMatchingKeysFromArray(pattern, keyArray);
+        }
 
         for (final K key : matchingKeys)
         {
@@ -687,6 +712,30 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         return keys;
     }
 
+    /**
+     * Streams the key map without copying it when it is unlimited and concurrent, so no lock is
+     * needed. A size limited key map gives a copy of its keys.
+     * <p>
+     * @see org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache#processGetKeyStream()
+     */
+    @Override
+    protected Stream<K> processGetKeyStream()
+    {
+        return keyHash.keySet().stream();
+    }
+
+    /**
+     * Gets the keys of the group from the group index. The index is concurrent, so no lock is
+     * needed.
+     * <p>
+     * @see org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache#processGetGroupKeys(GroupId)
+     */
+    @Override
+    protected Set<K> processGetGroupKeys(final GroupId groupId)
+    {
+        return groupIndex.getKeys(groupId);
+    }
+
     /**
      * Returns true if the removal was successful; or false if there is nothing to remove. Current
      * implementation always result in a disk orphan.
@@ -765,7 +814,9 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         // remove all keys of the same name hierarchy.
         final List<K> itemsToRemove = new LinkedList<>();
 
-        for (final K k : keyHash.keySet())
+        // the key index only holds the keys having the prefix
+        final Iterable<K> candidates = keyIndex == null ? keyHash.keySet() : keyIndex.getKeysWithPrefix(key);
+        for (final K k : candidates)
         {
             if (k instanceof String && k.toString().startsWith(key))
             {
@@ -800,25 +851,12 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
     {
         boolean removed = false;
 
-        // remove all keys of the same name group.
-        final List<K> itemsToRemove = new LinkedList<>();
-
-        // remove all keys of the same name hierarchy.
-        for (final K k : keyHash.keySet())
-        {
-            if (k instanceof GroupAttrName && ((GroupAttrName<?>) k).groupId.equals(key))
-            {
-                itemsToRemove.add(k);
-            }
-        }
-
-        // remove matches.
-        for (final K fullKey : itemsToRemove)
+        // the index gives the members of the group, no need to scan the keys
+        for (final K fullKey : groupIndex.removeGroup(key))
         {
             // Don't add to recycle bin here
             // https://issues.apache.org/jira/browse/JCS-67
-            performSingleKeyRemoval(fullKey);
-            removed = true;
+            removed |= performSingleKeyRemoval(fullKey);
             // TODO this needs to update the remove count separately
         }
 
@@ -840,6 +878,8 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         // remove single item.
         final IndexedDiskElementDescriptor ded = keyHash.remove(key);
         removed = ded != null;
+        unindexKey(key);
+        logChange(key);
         addToRecycleBin(ded);
 
         log.debug("{0}: Disk removal: Removed from key hash, key [{1}] removed = {2}",
@@ -847,6 +887,64 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         return removed;
     }
 
+    /**
+     * Adds a key entering the key map to the indexes.
+     * <p>
+     *
+     * @param key
+     */
+    private void indexKey(final K key)
+    {
+        groupIndex.add(key);
+        if (keyIndex != null)
+        {
+            keyIndex.add(key);
+        }
+    }
+
+    /**
+     * Removes a key leaving the key map from the indexes.
+     * <p>
+     *
+     * @param key
+     */
+    private void unindexKey(final K key)
+    {
+        groupIndex.remove(key);
+        if (keyIndex != null)
+        {
+            keyIndex.remove(key);
+        }
+    }
+
+    /**
+     * Records that the element of a key changed, if a compaction is running. Called under the
+     * write lock.
+     * <p>
+     *
+     * @param key
+     */
+    private void logChange(final K key)
+    {
+        final Compaction<K> current = compaction;
+        if (current != null)
+        {
+            current.changedKeys.add(key);
+        }
+    }
+
+    /**
+     * Empties the indexes along with the key map.
+     */
+    private void clearIndexes()
+    {
+        groupIndex.clear();
+        if (keyIndex != null)
+        {
+            keyIndex.clear();
+        }
+    }
+
     /**
      * Remove all the items from the disk cache by resetting everything.
      */
@@ -878,6 +976,13 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         {
             storageLock.writeLock().lock();
 
+            // the compaction in progress copies elements which are gone
+            final Compaction<K> current = compaction;
+            if (current != null)
+            {
+                current.aborted = true;
+            }
+
             if (dataFile != null)
             {
                 dataFile.close();
@@ -898,6 +1003,7 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
 
             this.recycle.clear();
             this.keyHash.clear();
+            clearIndexes();
         }
         catch (final IOException e)
         {
@@ -932,9 +1038,9 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         }
         else
         {
-            // If no max size, use a plain map for memory and processing efficiency.
-            keyMap = new HashMap<>();
-            // keyHash = Collections.synchronizedMap( new HashMap() );
+            // If no max size, use a plain concurrent map, the keys can then be streamed
+            // without holding the storage lock.
+            keyMap = new ConcurrentHashMap<>();
             log.info("{0}: Set maxKeySize to unlimited", logCacheName);
         }
 
@@ -1086,7 +1192,14 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
                     if (currentOptimizationThread == null)
                     {
                         currentOptimizationThread = new Thread(() -> {
-                            optimizeFile();
+                            if (cattr.isConcurrentOptimization())
+                            {
+                                compactFile();
+                            }
+                            else
+                            {
+                                optimizeFile();
+                            }
                             currentOptimizationThread = null;
                         }, "IndexedDiskCache-OptimizationThread");
                     }
@@ -1192,6 +1305,166 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
                 logCacheName, timesOptimized, timer.getElapsedTimeString());
     }
 
+    /**
+     * Concurrent file optimization. It works as follows:
+     * <ol>
+     * <li>Under the read lock, take a snapshot of the descriptors and start logging the keys which
+     * are updated or removed.</li>
+     * <li>Copy the elements of the snapshot which did not change into a new file, in the order of
+     * their positions. Each copy holds the read lock only, so gets go on, and the puts and removes
+     * wait for one copy at most.</li>
+     * <li>Obtain the write-lock.</li>
+     * <li>Append the logged keys still in the key map to the new file.</li>
+     * <li>Replace the data file with the new file and point the descriptors to the new
+     * positions.</li>
+     * <li>Release the write-lock.</li>
+     * </ol>
+     * The keys which did not change keep their descriptor, as the updates reuse the descriptor
+     * of the key or log it, so their new position can be set once the file is switched.
+     */
+    protected void compactFile()
+    {
+        final ElapsedTimer timer = new ElapsedTimer();
+        timesOptimized++;
+        log.info("{0}: Beginning Concurrent Optimization #{1}", logCacheName, timesOptimized);
+
+        final File compactedFile = new File(rafDir, fileName + ".compact");
+        final Compaction<K> current = new Compaction<>();
+        final List<CompactedRecord<K>> records = new ArrayList<>();
+        IndexedDisk target = null;
+
+        try
+        {
+            Files.deleteIfExists(compactedFile.toPath());
+            target = new IndexedDisk(compactedFile, getElementSerializer());
+
+            // CREATE SNAPSHOT
+            storageLock.readLock().lock();
+            try
+            {
+                for (final Map.Entry<K, IndexedDiskElementDescriptor> e : keyHash.entrySet())
+                {
+                    records.add(new CompactedRecord<>(e.getKey(), e.getValue()));
+                }
+                compaction = current;
+            }
+            finally
+            {
+                storageLock.readLock().unlock();
+            }
+            records.sort((r1, r2) -> Long.compare(r1.pos, r2.pos));
+
+            // COPY THE ELEMENTS WHICH DID NOT CHANGE
+            for (final CompactedRecord<K> record : records)
+            {
+                if (current.aborted)
+                {
+                    break;
+                }
+                if (current.changedKeys.contains(record.key))
+                {
+                    continue;
+                }
+
+                storageLock.readLock().lock();
+                try
+                {
+                    record.newPos = dataFile.transferTo(record.pos, record.len, target);
+                }
+                finally
+                {
+                    storageLock.readLock().unlock();
+                }
+            }
+
+            // SWITCH TO THE NEW FILE
+            final ElapsedTimer lockTimer = new ElapsedTimer();
+            storageLock.writeLock().lock();
+            try
+            {
+                if (current.aborted || !isAlive())
+                {
+                    log.info("{0}: Concurrent Optimization #{1} aborted", logCacheName, timesOptimized);
+                    return;
+                }
+
+                final List<CompactedRecord<K>> changedRecords = new ArrayList<>();
+                for (final K key : current.changedKeys)
+                {
+                    final IndexedDiskElementDescriptor ded = keyHash.get(key);
+                    if (ded != null)
+                    {
+                        final CompactedRecord<K> record = new CompactedRecord<>(key, ded);
+                        record.newPos = dataFile.transferTo(ded.pos, ded.len, target);
+                        changedRecords.add(record);
+                    }
+                }
+
+                target.close();
+                target = null;
+                dataFile.close();
+                final File data = new File(rafDir, fileName + ".data");
+                Files.move(compactedFile.toPath(), data.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                dataFile = new IndexedDisk(data, getElementSerializer());
+
+                for (final CompactedRecord<K> record : records)
+                {
+                    if (!current.changedKeys.contains(record.key))
+                    {
+                        record.ded.pos = record.newPos;
+                    }
+                }
+                for (final CompactedRecord<K> record : changedRecords)
+                {
+                    record.ded.pos = record.newPos;
+                }
+
+                // RESTORE NORMAL OPERATION
+                removeCount = 0;
+                resetBytesFree();
+                this.recycle.clear();
+            }
+            finally
+            {
+                compaction = null;
+                isOptimizing = false;
+                storageLock.writeLock().unlock();
+                log.info("{0}: Concurrent Optimization #{1} held the write lock for {2}",
+                        logCacheName, timesOptimized, lockTimer.getElapsedTimeString());
+            }
+        }
+        catch (final IOException e)
+        {
+            log.error("{0}: Error during concurrent optimization.", logCacheName, e);
+            compaction = null;
+            isOptimizing = false;
+            if (target == null)
+            {
+                // the data file was closed, start over
+                reset();
+            }
+        }
+        finally
+        {
+            if (target != null)
+            {
+                try
+                {
+                    target.close();
+                    Files.deleteIfExists(compactedFile.toPath());
+                }
+                catch (final IOException e)
+                {
+                    log.error("{0}: Failure deleting {1}", logCacheName, compactedFile, e);
+                }
+            }
+        }
+
+        log.info("{0}: Finished #{1}, Concurrent Optimization took {2}",
+                logCacheName, timesOptimized, timer.getElapsedTimeString());
+    }
+
     /**
      * Defragments the file in place by compacting out the free space (i.e., moving records
      * forward). If there were no gaps the resulting file would be the same size as the previous
@@ -1428,6 +1701,7 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
 
         elems.add(new StatElement<>("Is Alive", Boolean.valueOf(isAlive())));
         elems.add(new StatElement<>("Key Map Size", Integer.valueOf(this.keyHash != null ? this.keyHash.size() : -1)));
+        groupIndex.addStatElements(elems);
         try
         {
             elems.add(
@@ -1478,6 +1752,51 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         return dataFile.getFilePath();
     }
 
+    /**
+     * The state of a concurrent optimization shared with the writers.
+     */
+    private static final class Compaction<K>
+    {
+        /** The keys updated or removed since the snapshot. */
+        final Set<K> changedKeys = ConcurrentHashMap.newKeySet();
+
+        /** Set by a reset, the snapshot is no longer valid. */
+        volatile boolean aborted;
+    }
+
+    /**
+     * An element copied by a concurrent optimization.
+     */
+    private static final class CompactedRecord<K>
+    {
+        /** The key of the element. */
+        final K key;
+
+        /** The descriptor of the key. */
+        final IndexedDiskElementDescriptor ded;
+
+        /** The position at the time of the snapshot. */
+        final long pos;
+
+        /** The length at the time of the snapshot. */
+        final int len;
+
+        /** The position in the new file. */
+        long newPos;
+
+        /**
+         * @param key
+         * @param ded
+         */
+        CompactedRecord(final K key, final IndexedDiskElementDescriptor ded)
+        {
+            this.key = key;
+            this.ded = ded;
+            this.pos = ded.pos;
+            this.len = ded.len;
+        }
+    }
+
     /**
      * Compares IndexedDiskElementDescriptor based on their position.
      * <p>
@@ -1607,6 +1926,8 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
             }
 
             addToRecycleBin(value);
+            unindexKey(key);
+            logChange(key);
 
             log.debug("{0}: Removing key: [{1}] from key store.", logCacheName, key);
             log.debug("{0}: Key store size: [{1}].", logCacheName, this.size());
@@ -1646,6 +1967,8 @@ public class IndexedDiskCache<K, V> extends AbstractDiskCache<K, V>
         protected void processRemovedLRU(final K key, final IndexedDiskElementDescriptor value)
         {
             addToRecycleBin(value);
+            unindexKey(key);
+            logChange(key);
             log.debug("{0}: Removing key: [{1}] from key store.", logCacheName, key);
             log.debug("{0}: Key store size: [{1}].", logCacheName, this.size());
 
@@ -51,6 +51,15 @@ public class IndexedDiskCacheAttributes
     /** Should we clear the disk on startup. If true the contents of disk are cleared. */
     private boolean clearDiskOnStartup = DEFAULT_CLEAR_DISK_ON_STARTUP;
 
+    /** Should the real time optimization compact into a new file. */
+    public static final boolean DEFAULT_CONCURRENT_OPTIMIZATION = false;
+
+    /**
+     * Should the real time optimization compact into a new file under the read lock instead of
+     * moving the elements in place under the write lock.
+     */
+    private boolean concurrentOptimization = DEFAULT_CONCURRENT_OPTIMIZATION;
+
     /**
      * Constructor for the DiskCacheAttributes object
      */
@@ -131,6 +140,27 @@ public class IndexedDiskCacheAttributes
         return clearDiskOnStartup;
     }
 
+    /**
+     * If true, the real time optimization copies the elements into a new file while only holding
+     * the read lock, so gets are not blocked. The updates made meanwhile are logged and applied to
+     * the new file, which replaces the data file under one brief write lock. This needs the disk
+     * space of a second copy of the live elements.
+     * <p>
+     * @param concurrentOptimization the concurrentOptimization to set
+     */
+    public void setConcurrentOptimization( final boolean concurrentOptimization )
+    {
+        this.concurrentOptimization = concurrentOptimization;
+    }
+
+    /**
+     * @return the concurrentOptimization
+     */
+    public boolean isConcurrentOptimization()
+    {
+        return concurrentOptimization;
+    }
+
     /**
      * Write out the values for debugging purposes.
      * <p>
@@ -148,6 +178,7 @@ public class IndexedDiskCacheAttributes
         str.append( "\n shutdownSpoolTimeLimit  = " + super.getShutdownSpoolTimeLimit() );
         str.append( "\n optimizeOnShutdown  = " + optimizeOnShutdown );
         str.append( "\n clearDiskOnStartup  = " + clearDiskOnStartup );
+        str.append( "\n concurrentOptimization  = " + concurrentOptimization );
         return str.toString();
     }
 }
@@ -25,12 +25,23 @@ import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
@@ -39,6 +50,7 @@ import org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache;
 import org.apache.commons.jcs3.auxiliary.disk.jdbc.dsfactory.DataSourceFactory;
 import org.apache.commons.jcs3.engine.behavior.ICache;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.IRequireScheduler;
 import org.apache.commons.jcs3.engine.logging.behavior.ICacheEvent;
 import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
 import org.apache.commons.jcs3.engine.stats.StatElement;
@@ -67,18 +79,26 @@ import org.apache.commons.jcs3.log.LogManager;
  *                       IS_ETERNAL                 CHAR(1),
  *                       PRIMARY KEY (CACHE_KEY, REGION)
  *                       );
+ *                       CREATE INDEX JCS_STORE_EXPIRE_IDX ON JCS_STORE (SYSTEM_EXPIRE_TIME_SECONDS);
  * </pre>
  * <p>
  * The cleanup thread will delete non eternal items where (now - create time) &gt; max life seconds *
  * 1000
  * <p>
- * To speed up the deletion the SYSTEM_EXPIRE_TIME_SECONDS is used instead. It is recommended that
- * an index be created on this column is you will have over a million records.
+ * To speed up the deletion the SYSTEM_EXPIRE_TIME_SECONDS is used instead. The expired rows are
+ * selected in chunks of ExpiryDeleteChunkSize along the index on this column and deleted by
+ * primary key, so the work is proportional to the number of expired rows and no statement
+ * locks the table for long.
+ * <p>
+ * If UpdateBatchSize is greater than one, the updates are collected and written with one JDBC
+ * batch. The batch uses the upsert of the configured SQLDialect, otherwise it updates all rows
+ * first and inserts the ones that were not there.
  * <p>
  * @author Aaron Smuts
  */
 public class JDBCDiskCache<K, V>
     extends AbstractDiskCache<K, V>
+    implements IRequireScheduler
 {
     /** The local logger. */
     private static final Log log = LogManager.getLog( JDBCDiskCache.class );
@@ -95,6 +115,33 @@ public class JDBCDiskCache<K, V>
     /** # of times getMatching was called */
     private final AtomicInteger getMatchingCount = new AtomicInteger(0);
 
+    /** # of times getMultiple was called */
+    private final AtomicInteger getMultipleCount = new AtomicInteger(0);
+
+    /** # of batches written */
+    private final AtomicInteger batchCount = new AtomicInteger(0);
+
+    /** The database specific statements, null for portable SQL only */
+    private volatile SQLDialect sqlDialect;
+
+    /** The collected updates by key, waiting for the next batch */
+    private final ConcurrentMap<K, ICacheElement<K, V>> pendingUpdates = new ConcurrentHashMap<>();
+
+    /** Keeps removals from running while a batch is written */
+    private final Object flushLock = new Object();
+
+    /** The periodic flush of the collected updates */
+    private ScheduledFuture<?> flushFuture;
+
+    /** # of expired rows deleted */
+    private final AtomicLong expiredDeleteCount = new AtomicLong(0);
+
+    /** # of chunks of expired rows deleted */
+    private final AtomicInteger expiryChunkCount = new AtomicInteger(0);
+
+    /** How long the last deletion of the expired rows took */
+    private volatile long lastExpiryRunMillis;
+
     /** db connection pool */
     private final DataSourceFactory dsFactory;
 
@@ -139,23 +186,233 @@ public class JDBCDiskCache<K, V>
 
         log.debug( "updating, ce = {0}", ce );
 
+        final int batchSize = getJdbcDiskCacheAttributes().getUpdateBatchSize();
+        if ( batchSize > 1 )
+        {
+            pendingUpdates.put( ce.getKey(), ce );
+            if ( pendingUpdates.size() >= batchSize )
+            {
+                flushUpdates();
+            }
+            return;
+        }
+
         try (Connection con = getDataSource().getConnection())
         {
             log.debug( "Putting [{0}] on disk.", ce::getKey);
 
+            writeElements( con, Collections.singletonList( ce ) );
+        }
+        catch ( final SQLException e )
+        {
+            log.error( "Problem getting connection.", e );
+        }
+    }
+
+    /**
+     * Writes the collected updates, in batches of UpdateBatchSize elements on one connection.
+     * Removals wait until this is done.
+     */
+    public void flushUpdates()
+    {
+        synchronized ( flushLock )
+        {
+            if ( pendingUpdates.isEmpty() )
+            {
+                return;
+            }
+
+            final List<ICacheElement<K, V>> elements = new ArrayList<>( pendingUpdates.values() );
+            final int batchSize = Math.max( 1, getJdbcDiskCacheAttributes().getUpdateBatchSize() );
+
+            try (Connection con = getDataSource().getConnection())
+            {
+                log.debug( "Putting {0} elements on disk.", elements.size() );
+
+                for ( int i = 0; i < elements.size(); i += batchSize )
+                {
+                    writeElements( con, elements.subList( i, Math.min( elements.size(), i + batchSize ) ) );
+                    batchCount.incrementAndGet();
+                }
+            }
+            catch ( final SQLException e )
+            {
+                log.error( "Problem getting connection.", e );
+            }
+            finally
+            {
+                // keep the elements that were replaced in the meantime
+                for ( final ICacheElement<K, V> ce : elements )
+                {
+                    pendingUpdates.remove( ce.getKey(), ce );
+                }
+            }
+        }
+    }
+
+    /**
+     * Serializes and writes the elements. A single element without a dialect goes through
+     * insertOrUpdate, so TestBeforeInsert is honored.
+     * <p>
+     * @param con
+     * @param elements
+     */
+    private void writeElements( final Connection con, final List<ICacheElement<K, V>> elements )
+    {
+        final List<ICacheElement<K, V>> ces = new ArrayList<>( elements.size() );
+        final List<byte[]> data = new ArrayList<>( elements.size() );
+
+        for ( final ICacheElement<K, V> ce : elements )
+        {
             try
             {
-                final byte[] element = getElementSerializer().serialize( ce );
-                insertOrUpdate( ce, con, element );
+                data.add( getElementSerializer().serialize( ce ) );
+                ces.add( ce );
             }
             catch ( final IOException e )
             {
                 log.error( "Could not serialize element", e );
             }
         }
+
+        if ( ces.isEmpty() || upsertRows( ces, con, data ) )
+        {
+            return;
+        }
+
+        if ( ces.size() == 1 )
+        {
+            insertOrUpdate( ces.get( 0 ), con, data.get( 0 ) );
+        }
+        else
+        {
+            updateOrInsertRows( ces, con, data );
+        }
+    }
+
+    /**
+     * Writes the elements with one batch of the upsert statement of the dialect. If the database
+     * does not understand the statement, the dialect is dropped.
+     * <p>
+     * @param ces
+     * @param con
+     * @param data the serialized elements
+     * @return false if there is no upsert or it failed
+     */
+    private boolean upsertRows( final List<ICacheElement<K, V>> ces, final Connection con, final List<byte[]> data )
+    {
+        final SQLDialect dialect = this.sqlDialect;
+        final String sqlU = dialect == null ? null : dialect.getUpsertSql( getJdbcDiskCacheAttributes().getTableName() );
+
+        if ( sqlU == null )
+        {
+            return false;
+        }
+
+        try (PreparedStatement psUpsert = con.prepareStatement( sqlU ))
+        {
+            for ( int i = 0; i < ces.size(); i++ )
+            {
+                setInsertParameters( psUpsert, ces.get( i ), data.get( i ) );
+                psUpsert.addBatch();
+            }
+            psUpsert.executeBatch();
+
+            log.debug( "ran upsert of {0} elements", ces.size() );
+            return true;
+        }
         catch ( final SQLException e )
         {
-            log.error( "Problem getting connection.", e );
+            if ( isSyntaxError( e ) )
+            {
+                log.warn( "The database does not support the upsert of {0}, using insert and update",
+                        dialect.getClass().getName(), e );
+                this.sqlDialect = null;
+            }
+            else
+            {
+                log.error( "Error executing upsert sql [{0}]", sqlU, e );
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param e
+     * @return true if the SQL state is of the syntax error class
+     */
+    private static boolean isSyntaxError( final SQLException e )
+    {
+        final String state = e.getSQLState();
+        return e instanceof SQLSyntaxErrorException
+            || state != null && ( state.startsWith( "42" ) || state.startsWith( "37" ) );
+    }
+
+    /**
+     * Updates all rows with one batch, then inserts the ones that did not exist with a second.
+     * If the driver does not report the update counts or another writer inserted the same key,
+     * the elements concerned go through insertOrUpdate.
+     * <p>
+     * @param ces
+     * @param con
+     * @param data the serialized elements
+     */
+    private void updateOrInsertRows( final List<ICacheElement<K, V>> ces, final Connection con, final List<byte[]> data )
+    {
+        final List<Integer> missing = new ArrayList<>();
+        final List<Integer> unknown = new ArrayList<>();
+
+        final String sqlU = getUpdateSql();
+        try (PreparedStatement psUpdate = con.prepareStatement( sqlU ))
+        {
+            for ( int i = 0; i < ces.size(); i++ )
+            {
+                setUpdateParameters( psUpdate, ces.get( i ), data.get( i ) );
+                psUpdate.addBatch();
+            }
+
+            final int[] counts = psUpdate.executeBatch();
+            for ( int i = 0; i < ces.size(); i++ )
+            {
+                if ( i >= counts.length || counts[i] == Statement.SUCCESS_NO_INFO )
+                {
+                    unknown.add( Integer.valueOf( i ) );
+                }
+                else if ( counts[i] == 0 )
+                {
+                    missing.add( Integer.valueOf( i ) );
+                }
+            }
+        }
+        catch ( final SQLException e )
+        {
+            log.error( "Error executing update sql [{0}]", sqlU, e );
+            return;
+        }
+
+        if ( !missing.isEmpty() )
+        {
+            final String sqlI = getInsertSql();
+            try (PreparedStatement psInsert = con.prepareStatement( sqlI ))
+            {
+                for ( final Integer i : missing )
+                {
+                    setInsertParameters( psInsert, ces.get( i.intValue() ), data.get( i.intValue() ) );
+                    psInsert.addBatch();
+                }
+                psInsert.executeBatch();
+            }
+            catch ( final SQLException e )
+            {
+                log.debug( "Batch insert failed, inserting one by one: {0}", e.getMessage() );
+                unknown.addAll( missing );
+            }
+        }
+
+        for ( final Integer i : unknown )
+        {
+            insertOrUpdate( ces.get( i.intValue() ), con, data.get( i.intValue() ) );
         }
     }
 
@@ -202,28 +459,11 @@ public class JDBCDiskCache<K, V>
     private boolean insertRow( final ICacheElement<K, V> ce, final Connection con, final byte[] element )
     {
         boolean exists = false;
-        final String sqlI = String.format("insert into %s"
-                + " (CACHE_KEY, REGION, ELEMENT, MAX_LIFE_SECONDS, IS_ETERNAL, CREATE_TIME, UPDATE_TIME_SECONDS,"
-                + " SYSTEM_EXPIRE_TIME_SECONDS) "
-                + " values (?, ?, ?, ?, ?, ?, ?, ?)", getJdbcDiskCacheAttributes().getTableName());
+        final String sqlI = getInsertSql();
 
         try (PreparedStatement psInsert = con.prepareStatement( sqlI ))
         {
-            psInsert.setString( 1, ce.getKey().toString() );
-            psInsert.setString( 2, this.getCacheName() );
-            psInsert.setBytes( 3, element );
-            psInsert.setLong( 4, ce.getElementAttributes().getMaxLife() );
-            psInsert.setString( 5, ce.getElementAttributes().getIsEternal() ? "T" : "F" );
-
-            final Timestamp createTime = new Timestamp( ce.getElementAttributes().getCreateTime() );
-            psInsert.setTimestamp( 6, createTime );
-
-            final long now = System.currentTimeMillis() / 1000;
-            psInsert.setLong( 7, now );
-
-            final long expireTime = now + ce.getElementAttributes().getMaxLife();
-            psInsert.setLong( 8, expireTime );
-
+            setInsertParameters( psInsert, ce, element );
             psInsert.execute();
         }
         catch ( final SQLException e )
@@ -247,6 +487,44 @@ public class JDBCDiskCache<K, V>
         return exists;
     }
 
+    /**
+     * @return the insert statement for the table
+     */
+    private String getInsertSql()
+    {
+        return String.format("insert into %s"
+                + " (CACHE_KEY, REGION, ELEMENT, MAX_LIFE_SECONDS, IS_ETERNAL, CREATE_TIME, UPDATE_TIME_SECONDS,"
+                + " SYSTEM_EXPIRE_TIME_SECONDS) "
+                + " values (?, ?, ?, ?, ?, ?, ?, ?)", getJdbcDiskCacheAttributes().getTableName());
+    }
+
+    /**
+     * Sets the parameters of the insert. The upsert of a dialect takes the same parameters.
+     * <p>
+     * @param psInsert
+     * @param ce
+     * @param element the serialized element
+     * @throws SQLException
+     */
+    private void setInsertParameters( final PreparedStatement psInsert, final ICacheElement<K, V> ce, final byte[] element )
+        throws SQLException
+    {
+        psInsert.setString( 1, ce.getKey().toString() );
+        psInsert.setString( 2, this.getCacheName() );
+        psInsert.setBytes( 3, element );
+        psInsert.setLong( 4, ce.getElementAttributes().getMaxLife() );
+        psInsert.setString( 5, ce.getElementAttributes().getIsEternal() ? "T" : "F" );
+
+        final Timestamp createTime = new Timestamp( ce.getElementAttributes().getCreateTime() );
+        psInsert.setTimestamp( 6, createTime );
+
+        final long now = System.currentTimeMillis() / 1000;
+        psInsert.setLong( 7, now );
+
+        final long expireTime = now + ce.getElementAttributes().getMaxLife();
+        psInsert.setLong( 8, expireTime );
+    }
+
     /**
      * This updates a row in the database.
      * <p>
@@ -256,25 +534,11 @@ public class JDBCDiskCache<K, V>
      */
     private void updateRow( final ICacheElement<K, V> ce, final Connection con, final byte[] element )
     {
-        final String sqlU = String.format("update %s"
-                + " set ELEMENT  = ?, CREATE_TIME = ?, UPDATE_TIME_SECONDS = ?, " + " SYSTEM_EXPIRE_TIME_SECONDS = ? "
-                + " where CACHE_KEY = ? and REGION = ?", getJdbcDiskCacheAttributes().getTableName());
+        final String sqlU = getUpdateSql();
 
         try (PreparedStatement psUpdate = con.prepareStatement( sqlU ))
         {
-            psUpdate.setBytes( 1, element );
-
-            final Timestamp createTime = new Timestamp( ce.getElementAttributes().getCreateTime() );
-            psUpdate.setTimestamp( 2, createTime );
-
-            final long now = System.currentTimeMillis() / 1000;
-            psUpdate.setLong( 3, now );
-
-            final long expireTime = now + ce.getElementAttributes().getMaxLife();
-            psUpdate.setLong( 4, expireTime );
-
-            psUpdate.setString( 5, (String) ce.getKey() );
-            psUpdate.setString( 6, this.getCacheName() );
+            setUpdateParameters( psUpdate, ce, element );
             psUpdate.execute();
 
             log.debug( "ran update {0}", sqlU );
@@ -285,6 +549,40 @@ public class JDBCDiskCache<K, V>
         }
     }
 
+    /**
+     * @return the update statement for the table
+     */
+    private String getUpdateSql()
+    {
+        return String.format("update %s"
+                + " set ELEMENT  = ?, CREATE_TIME = ?, UPDATE_TIME_SECONDS = ?, " + " SYSTEM_EXPIRE_TIME_SECONDS = ? "
+                + " where CACHE_KEY = ? and REGION = ?", getJdbcDiskCacheAttributes().getTableName());
+    }
+
+    /**
+     * @param psUpdate
+     * @param ce
+     * @param element the serialized element
+     * @throws SQLException
+     */
+    private void setUpdateParameters( final PreparedStatement psUpdate, final ICacheElement<K, V> ce, final byte[] element )
+        throws SQLException
+    {
+        psUpdate.setBytes( 1, element );
+
+        final Timestamp createTime = new Timestamp( ce.getElementAttributes().getCreateTime() );
+        psUpdate.setTimestamp( 2, createTime );
+
+        final long now = System.currentTimeMillis() / 1000;
+        psUpdate.setLong( 3, now );
+
+        final long expireTime = now + ce.getElementAttributes().getMaxLife();
+        psUpdate.setLong( 4, expireTime );
+
+        psUpdate.setString( 5, ce.getKey().toString() );
+        psUpdate.setString( 6, this.getCacheName() );
+    }
+
     /**
      * Does an element exist for this key?
      * <p>
@@ -338,7 +636,11 @@ public class JDBCDiskCache<K, V>
             return null;
         }
 
-        ICacheElement<K, V> obj = null;
+        ICacheElement<K, V> obj = pendingUpdates.get( key );
+        if ( obj != null )
+        {
+            return obj;
+        }
 
         // region, key
         final String selectString = String.format("select ELEMENT from %s where REGION = ? and CACHE_KEY = ?",
@@ -384,6 +686,167 @@ public class JDBCDiskCache<K, V>
         return obj;
     }
 
+    /**
+     * Gets the elements of all keys on one connection. The keys not in purgatory or waiting for
+     * a batch are selected with in lists if the dialect allows, one by one otherwise.
+     * <p>
+     * @param keys
+     * @return a map of key to element, with the keys that were found
+     */
+    @Override
+    protected Map<K, ICacheElement<K, V>> processGetMultiple( final Set<K> keys )
+    {
+        getMultipleCount.incrementAndGet();
+
+        final Map<K, ICacheElement<K, V>> results = new HashMap<>();
+
+        if ( !isAlive() || keys == null || keys.isEmpty() )
+        {
+            return results;
+        }
+
+        final List<String> missing = new ArrayList<>();
+        for ( final K key : keys )
+        {
+            ICacheElement<K, V> ce = getPurgatoryElement( key );
+            if ( ce == null )
+            {
+                ce = pendingUpdates.get( key );
+            }
+
+            if ( ce != null )
+            {
+                results.put( key, ce );
+            }
+            else
+            {
+                missing.add( key.toString() );
+            }
+        }
+
+        if ( missing.isEmpty() )
+        {
+            return results;
+        }
+
+        final SQLDialect dialect = this.sqlDialect;
+        final int maxInListSize = dialect == null ? 0 : dialect.getMaxInListSize();
+
+        try (Connection con = getDataSource().getConnection())
+        {
+            if ( maxInListSize > 1 )
+            {
+                for ( int i = 0; i < missing.size(); i += maxInListSize )
+                {
+                    selectElements( con, missing.subList( i, Math.min( missing.size(), i + maxInListSize ) ), results );
+                }
+            }
+            else
+            {
+                selectElementsOneByOne( con, missing, results );
+            }
+        }
+        catch ( final SQLException sqle )
+        {
+            log.error( "Caught a SQL exception trying to get {0} items", keys.size(), sqle );
+        }
+
+        return results;
+    }
+
+    /**
+     * Selects the elements of the keys with one query.
+     * <p>
+     * @param con
+     * @param keys at most getMaxInListSize() keys
+     * @param results the map to add the elements to
+     * @throws SQLException
+     */
+    private void selectElements( final Connection con, final List<String> keys, final Map<K, ICacheElement<K, V>> results )
+        throws SQLException
+    {
+        final StringBuilder selectString = new StringBuilder(
+                String.format("select ELEMENT from %s where REGION = ? and CACHE_KEY in (",
+                        getJdbcDiskCacheAttributes().getTableName()) );
+        for ( int i = 0; i < keys.size(); i++ )
+        {
+            selectString.append( i == 0 ? "?" : ", ?" );
+        }
+        selectString.append( ')' );
+
+        try (PreparedStatement psSelect = con.prepareStatement( selectString.toString() ))
+        {
+            psSelect.setString( 1, this.getCacheName() );
+            for ( int i = 0; i < keys.size(); i++ )
+            {
+                psSelect.setString( i + 2, keys.get( i ) );
+            }
+
+            try (ResultSet rs = psSelect.executeQuery())
+            {
+                readElements( rs, results );
+            }
+        }
+    }
+
+    /**
+     * Selects the elements of the keys with one statement, executed for each key.
+     * <p>
+     * @param con
+     * @param keys
+     * @param results the map to add the elements to
+     * @throws SQLException
+     */
+    private void selectElementsOneByOne( final Connection con, final List<String> keys, final Map<K, ICacheElement<K, V>> results )
+        throws SQLException
+    {
+        final String selectString = String.format("select ELEMENT from %s where REGION = ? and CACHE_KEY = ?",
+                getJdbcDiskCacheAttributes().getTableName());
+
+        try (PreparedStatement psSelect = con.prepareStatement( selectString ))
+        {
+            psSelect.setString( 1, this.getCacheName() );
+            for ( final String key : keys )
+            {
+                psSelect.setString( 2, key );
+
+                try (ResultSet rs = psSelect.executeQuery())
+                {
+                    readElements( rs, results );
+                }
+            }
+        }
+    }
+
+    /**
+     * Deserializes the elements of the result set.
+     * <p>
+     * @param rs a result set with the ELEMENT column
+     * @param results the map to add the elements to
+     * @throws SQLException
+     */
+    private void readElements( final ResultSet rs, final Map<K, ICacheElement<K, V>> results )
+        throws SQLException
+    {
+        while ( rs.next() )
+        {
+            final byte[] data = rs.getBytes( 1 );
+            if ( data != null )
+            {
+                try
+                {
+                    // USE THE SERIALIZER
+                    final ICacheElement<K, V> value = getElementSerializer().deSerialize( data, null );
+                    results.put( value.getKey(), value );
+                }
+                catch ( final IOException | ClassNotFoundException e )
+                {
+                    log.error( "Problem getting an item", e );
+                }
+            }
+        }
+    }
+
     /**
      * This will run a like query. It will try to construct a usable query but different
      * implementations will be needed to adjust the syntax.
@@ -403,6 +866,9 @@ public class JDBCDiskCache<K, V>
             return null;
         }
 
+        // the like query has to see the collected updates
+        flushUpdates();
+
         final Map<K, ICacheElement<K, V>> results = new HashMap<>();
 
         // region, key
@@ -470,6 +936,29 @@ public class JDBCDiskCache<K, V>
      */
     @Override
     protected boolean processRemove( final K key )
+    {
+        synchronized ( flushLock )
+        {
+            if ( key.toString().endsWith( ICache.NAME_COMPONENT_DELIMITER ) )
+            {
+                pendingUpdates.keySet().removeIf( k -> k.toString().startsWith( key.toString() ) );
+            }
+            else
+            {
+                pendingUpdates.remove( key );
+            }
+
+            return removeRows( key );
+        }
+    }
+
+    /**
+     * Deletes the row of the key, or the rows of the name group if it is a partial key.
+     * <p>
+     * @param key
+     * @return false
+     */
+    private boolean removeRows( final K key )
     {
         // remove single item.
         final String sqlSingle = String.format("delete from %s where REGION = ? and CACHE_KEY = ?",
@@ -523,33 +1012,45 @@ public class JDBCDiskCache<K, V>
         // it should never get here from the abstract disk cache.
         if ( this.jdbcDiskCacheAttributes.isAllowRemoveAll() )
         {
-            final String sql = String.format("delete from %s where REGION = ?",
-                    getJdbcDiskCacheAttributes().getTableName());
+            synchronized ( flushLock )
+            {
+                pendingUpdates.clear();
+                removeAllRows();
+            }
+        }
+        else
+        {
+            log.info( "RemoveAll was requested but the request was not fulfilled: "
+                    + "allowRemoveAll is set to false." );
+        }
+    }
 
-            try (Connection con = getDataSource().getConnection())
+    /**
+     * Deletes all rows of the region.
+     */
+    private void removeAllRows()
+    {
+        final String sql = String.format("delete from %s where REGION = ?",
+                getJdbcDiskCacheAttributes().getTableName());
+
+        try (Connection con = getDataSource().getConnection())
+        {
+            try (PreparedStatement psDelete = con.prepareStatement( sql ))
             {
-                try (PreparedStatement psDelete = con.prepareStatement( sql ))
-                {
-                    psDelete.setString( 1, this.getCacheName() );
-                    setAlive(true);
-                    psDelete.executeUpdate();
-                }
-                catch ( final SQLException e )
-                {
-                    log.error( "Problem creating statement.", e );
-                    setAlive(false);
-                }
+                psDelete.setString( 1, this.getCacheName() );
+                setAlive(true);
+                psDelete.executeUpdate();
             }
             catch ( final SQLException e )
             {
-                log.error( "Problem removing all.", e );
-                reset();
+                log.error( "Problem creating statement.", e );
+                setAlive(false);
             }
         }
-        else
+        catch ( final SQLException e )
         {
-            log.info( "RemoveAll was requested but the request was not fulfilled: "
-                    + "allowRemoveAll is set to false." );
+            log.error( "Problem removing all.", e );
+            reset();
         }
     }
 
@@ -573,27 +1074,20 @@ public class JDBCDiskCache<K, V>
             if (result.next())
             {
                 getTableState().setState( TableState.DELETE_RUNNING );
-                final long now = System.currentTimeMillis() / 1000;
-
-                final String sql = String.format("delete from %s where IS_ETERNAL = ? and REGION = ?"
-                        + " and ? > SYSTEM_EXPIRE_TIME_SECONDS", getJdbcDiskCacheAttributes().getTableName());
+                final long start = System.currentTimeMillis();
+                final long now = start / 1000;
 
-                try (PreparedStatement psDelete = con.prepareStatement( sql ))
+                if ( getJdbcDiskCacheAttributes().getExpiryDeleteChunkSize() > 0 )
                 {
-                    psDelete.setString( 1, "F" );
-                    psDelete.setString( 2, this.getCacheName() );
-                    psDelete.setLong( 3, now );
-
-                    setAlive(true);
-
-                    deleted = psDelete.executeUpdate();
+                    deleted = deleteExpiredInChunks( con, now );
                 }
-                catch ( final SQLException e )
+                else
                 {
-                    log.error( "Problem creating statement.", e );
-                    setAlive(false);
+                    deleted = deleteAllExpired( con, now );
                 }
 
+                lastExpiryRunMillis = System.currentTimeMillis() - start;
+
                 logApplicationEvent( getAuxiliaryCacheAttributes().getName(), "deleteExpired",
                                      "Deleted expired elements.  URL: " + getDiskLocation() );
             }
@@ -618,6 +1112,161 @@ public class JDBCDiskCache<K, V>
         return deleted;
     }
 
+    /**
+     * Deletes all expired rows of the region with one statement.
+     * <p>
+     * @param con
+     * @param now the current time in seconds
+     * @return the number deleted
+     */
+    private int deleteAllExpired( final Connection con, final long now )
+    {
+        int deleted = 0;
+        final String sql = String.format("delete from %s where IS_ETERNAL = ? and REGION = ?"
+                + " and ? > SYSTEM_EXPIRE_TIME_SECONDS", getJdbcDiskCacheAttributes().getTableName());
+
+        try (PreparedStatement psDelete = con.prepareStatement( sql ))
+        {
+            psDelete.setString( 1, "F" );
+            psDelete.setString( 2, this.getCacheName() );
+            psDelete.setLong( 3, now );
+
+            setAlive(true);
+
+            deleted = psDelete.executeUpdate();
+            expiredDeleteCount.addAndGet( deleted );
+        }
+        catch ( final SQLException e )
+        {
+            log.error( "Problem creating statement.", e );
+            setAlive(false);
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Deletes the expired rows of the region chunk by chunk. Each chunk is selected in the order
+     * of expiration, starting after the last row of the previous chunk, and deleted with a batch
+     * of primary key deletes. A row that was updated in the meantime is not deleted. Between the
+     * chunks this waits as long as needed to stay below ExpiryDeleteRowsPerSecond.
+     * <p>
+     * @param con
+     * @param now the current time in seconds
+     * @return the number deleted
+     */
+    private int deleteExpiredInChunks( final Connection con, final long now )
+    {
+        final int chunkSize = getJdbcDiskCacheAttributes().getExpiryDeleteChunkSize();
+        final int rowsPerSecond = getJdbcDiskCacheAttributes().getExpiryDeleteRowsPerSecond();
+
+        final String sqlS = String.format("select CACHE_KEY, SYSTEM_EXPIRE_TIME_SECONDS from %s"
+                + " where REGION = ? and IS_ETERNAL = ? and SYSTEM_EXPIRE_TIME_SECONDS < ?"
+                + " and SYSTEM_EXPIRE_TIME_SECONDS >= ? and (SYSTEM_EXPIRE_TIME_SECONDS > ? or CACHE_KEY > ?)"
+                + " order by SYSTEM_EXPIRE_TIME_SECONDS, CACHE_KEY", getJdbcDiskCacheAttributes().getTableName());
+        final String sqlD = String.format("delete from %s where REGION = ? and CACHE_KEY = ?"
+                + " and IS_ETERNAL = ? and SYSTEM_EXPIRE_TIME_SECONDS < ?", getJdbcDiskCacheAttributes().getTableName());
+
+        final long start = System.currentTimeMillis();
+        int deleted = 0;
+        long lastExpireTime = Long.MIN_VALUE;
+        String lastKey = "";
+
+        try (PreparedStatement psSelect = con.prepareStatement( sqlS );
+             PreparedStatement psDelete = con.prepareStatement( sqlD ))
+        {
+            psSelect.setMaxRows( chunkSize );
+            setAlive(true);
+
+            while ( isAlive() )
+            {
+                psSelect.setString( 1, this.getCacheName() );
+                psSelect.setString( 2, "F" );
+                psSelect.setLong( 3, now );
+                psSelect.setLong( 4, lastExpireTime );
+                psSelect.setLong( 5, lastExpireTime );
+                psSelect.setString( 6, lastKey );
+
+                int selected = 0;
+                try (ResultSet rs = psSelect.executeQuery())
+                {
+                    while ( rs.next() && selected < chunkSize )
+                    {
+                        lastKey = rs.getString( 1 );
+                        lastExpireTime = rs.getLong( 2 );
+
+                        psDelete.setString( 1, this.getCacheName() );
+                        psDelete.setString( 2, lastKey );
+                        psDelete.setString( 3, "F" );
+                        psDelete.setLong( 4, now );
+                        psDelete.addBatch();
+                        selected++;
+                    }
+                }
+
+                if ( selected == 0 )
+                {
+                    break;
+                }
+
+                int chunkDeleted = 0;
+                for ( final int count : psDelete.executeBatch() )
+                {
+                    chunkDeleted += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max( 0, count );
+                }
+
+                deleted += chunkDeleted;
+                expiredDeleteCount.addAndGet( chunkDeleted );
+                expiryChunkCount.incrementAndGet();
+
+                log.debug( "Deleted [{0}] expired for region [{1}], [{2}] so far",
+                        chunkDeleted, getCacheName(), deleted );
+
+                if ( selected < chunkSize || !pauseForRateLimit( rowsPerSecond, deleted, start ) )
+                {
+                    break;
+                }
+            }
+        }
+        catch ( final SQLException e )
+        {
+            log.error( "Problem deleting expired elements in chunks.", e );
+            setAlive(false);
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Waits until deleting this many rows since the start stays within the rate limit.
+     * <p>
+     * @param rowsPerSecond the rate limit, 0 for none
+     * @param deleted the rows deleted so far
+     * @param start the start of the deletion
+     * @return false if interrupted
+     */
+    private static boolean pauseForRateLimit( final int rowsPerSecond, final int deleted, final long start )
+    {
+        if ( rowsPerSecond > 0 )
+        {
+            final long waitMillis = deleted * 1000L / rowsPerSecond - ( System.currentTimeMillis() - start );
+            if ( waitMillis > 0 )
+            {
+                try
+                {
+                    Thread.sleep( waitMillis );
+                }
+                catch ( final InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Typically this is used to handle errors by last resort, force content update, or removeall
      */
@@ -632,6 +1281,12 @@ public class JDBCDiskCache<K, V>
     {
         final ICacheEvent<K> cacheEvent = createICacheEvent( getCacheName(), null, ICacheEventLogger.DISPOSE_EVENT );
 
+        if ( flushFuture != null )
+        {
+            flushFuture.cancel( false );
+        }
+        flushUpdates();
+
         try
         {
         	dsFactory.close();
@@ -695,6 +1350,58 @@ public class JDBCDiskCache<K, V>
         // return null;
     }
 
+    /**
+     * The keys are stored as text.
+     * <p>
+     * @param key
+     * @return the text of the key
+     * @see org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache#toKeyFilterKey(Object)
+     */
+    @Override
+    protected Object toKeyFilterKey( final K key )
+    {
+        return key.toString();
+    }
+
+    /**
+     * Selects the keys of the region, after the updates waiting for the next batch, which may be
+     * written while the keys are selected.
+     * <p>
+     * @return the keys of the region and of the pending updates, as text
+     * @throws IOException
+     * @see org.apache.commons.jcs3.auxiliary.disk.AbstractDiskCache#getKeyFilterKeys()
+     */
+    @Override
+    protected Stream<?> getKeyFilterKeys()
+        throws IOException
+    {
+        final List<String> keys = new ArrayList<>();
+        pendingUpdates.keySet().forEach( key -> keys.add( key.toString() ) );
+
+        final String selectString = String.format("select CACHE_KEY from %s where REGION = ?",
+                getJdbcDiskCacheAttributes().getTableName());
+
+        try (Connection con = getDataSource().getConnection();
+             PreparedStatement psSelect = con.prepareStatement( selectString ))
+        {
+            psSelect.setString( 1, this.getCacheName() );
+
+            try (ResultSet rs = psSelect.executeQuery())
+            {
+                while ( rs.next() )
+                {
+                    keys.add( rs.getString( 1 ) );
+                }
+            }
+        }
+        catch ( final SQLException e )
+        {
+            throw new IOException( "Problem selecting the keys of region " + getCacheName(), e );
+        }
+
+        return keys.stream();
+    }
+
     /**
      * @param jdbcDiskCacheAttributes The jdbcDiskCacheAttributes to set.
      */
@@ -736,6 +1443,13 @@ public class JDBCDiskCache<K, V>
         elems.add(new StatElement<>( "Update Count", updateCount ) );
         elems.add(new StatElement<>( "Get Count", getCount ) );
         elems.add(new StatElement<>( "Get Matching Count", getMatchingCount ) );
+        elems.add(new StatElement<>( "Get Multiple Count", getMultipleCount ) );
+        elems.add(new StatElement<>( "Batch Count", batchCount ) );
+        elems.add(new StatElement<>( "Pending Updates", Integer.valueOf( pendingUpdates.size() ) ) );
+        elems.add(new StatElement<>( "Expired Deleted", expiredDeleteCount ) );
+        elems.add(new StatElement<>( "Expiry Chunks", expiryChunkCount ) );
+        elems.add(new StatElement<>( "Last Expiry Run Millis", Long.valueOf( lastExpiryRunMillis ) ) );
+        elems.add(new StatElement<>( "SQL Dialect", sqlDialect == null ? "none" : sqlDialect.getClass().getName() ) );
         elems.add(new StatElement<>( "DB URL", getJdbcDiskCacheAttributes().getUrl()) );
 
         stats.setStatElements( elems );
@@ -758,6 +1472,46 @@ public class JDBCDiskCache<K, V>
         return name;
     }
 
+    /**
+     * @param sqlDialect the database specific statements, null for portable SQL only
+     */
+    public void setSqlDialect( final SQLDialect sqlDialect )
+    {
+        this.sqlDialect = sqlDialect;
+    }
+
+    /**
+     * @return the SQL dialect in use, null if there is none or the database did not support it
+     */
+    public SQLDialect getSqlDialect()
+    {
+        return sqlDialect;
+    }
+
+    /**
+     * Schedules the flush of the collected updates if updates are batched, and the rebuild of the
+     * key filter if it is used.
+     * <p>
+     * @see org.apache.commons.jcs3.engine.behavior.IRequireScheduler#setScheduledExecutorService(java.util.concurrent.ScheduledExecutorService)
+     */
+    @Override
+    public void setScheduledExecutorService( final ScheduledExecutorService scheduledExecutor )
+    {
+        super.setScheduledExecutorService( scheduledExecutor );
+
+        if ( getJdbcDiskCacheAttributes().getUpdateBatchSize() > 1 )
+        {
+            if ( flushFuture != null )
+            {
+                flushFuture.cancel( false );
+            }
+
+            final long intervalMillis = Math.max( 10, getJdbcDiskCacheAttributes().getUpdateBatchFlushMillis() );
+            flushFuture = scheduledExecutor.scheduleWithFixedDelay( this::flushUpdates,
+                    intervalMillis, intervalMillis, TimeUnit.MILLISECONDS );
+        }
+    }
+
     /**
      * @param tableState The tableState to set.
      */
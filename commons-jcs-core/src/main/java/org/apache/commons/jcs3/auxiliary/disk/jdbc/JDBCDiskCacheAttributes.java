@@ -77,6 +77,30 @@ public class JDBCDiskCacheAttributes
     /** Should we remove expired in the background. */
     private boolean useDiskShrinker = true;
 
+    /** The default number of expired rows deleted with one batch. */
+    public static final int DEFAULT_EXPIRY_DELETE_CHUNK_SIZE = 1000;
+
+    /** How many expired rows are deleted at a time, 0 deletes them with one statement. */
+    private int expiryDeleteChunkSize = DEFAULT_EXPIRY_DELETE_CHUNK_SIZE;
+
+    /** How many expired rows are deleted per second at most, 0 for no limit. */
+    private int expiryDeleteRowsPerSecond = 0;
+
+    /** The class name of the SQL dialect, null for the default of the factory. */
+    private String sqlDialectClassName;
+
+    /** The default number of updates written together, one writes each update on its own. */
+    public static final int DEFAULT_UPDATE_BATCH_SIZE = 1;
+
+    /** How many updates are collected and written in one batch. */
+    private int updateBatchSize = DEFAULT_UPDATE_BATCH_SIZE;
+
+    /** The default time a collected update waits for the batch to fill up. */
+    public static final long DEFAULT_UPDATE_BATCH_FLUSH_MILLIS = 1000;
+
+    /** How long a collected update waits at most before it is written. */
+    private long updateBatchFlushMillis = DEFAULT_UPDATE_BATCH_FLUSH_MILLIS;
+
     /** The default Pool Name to which the connection pool will be keyed. */
     public static final String DEFAULT_POOL_NAME = "jcs";
 
@@ -306,6 +330,97 @@ public class JDBCDiskCacheAttributes
         return connectionPoolName;
     }
 
+    /**
+     * The shrinker selects and deletes the expired rows in chunks of this size, each in its own
+     * statements. If it is 0 or less, one delete removes all expired rows of the region.
+     * <p>
+     * @param expiryDeleteChunkSize the number of expired rows deleted at a time
+     */
+    public void setExpiryDeleteChunkSize( final int expiryDeleteChunkSize )
+    {
+        this.expiryDeleteChunkSize = expiryDeleteChunkSize;
+    }
+
+    /**
+     * @return the expiryDeleteChunkSize
+     */
+    public int getExpiryDeleteChunkSize()
+    {
+        return expiryDeleteChunkSize;
+    }
+
+    /**
+     * The shrinker pauses between the chunks so that it deletes no more rows per second than this.
+     * <p>
+     * @param expiryDeleteRowsPerSecond the rate limit, 0 for none
+     */
+    public void setExpiryDeleteRowsPerSecond( final int expiryDeleteRowsPerSecond )
+    {
+        this.expiryDeleteRowsPerSecond = expiryDeleteRowsPerSecond;
+    }
+
+    /**
+     * @return the expiryDeleteRowsPerSecond
+     */
+    public int getExpiryDeleteRowsPerSecond()
+    {
+        return expiryDeleteRowsPerSecond;
+    }
+
+    /**
+     * The SQL dialect provides the upsert statement. Without one the cache checks for or tries
+     * the insert and then updates.
+     * <p>
+     * @param sqlDialectClassName the class name of a SQLDialect
+     */
+    public void setSqlDialectClassName( final String sqlDialectClassName )
+    {
+        this.sqlDialectClassName = sqlDialectClassName;
+    }
+
+    /**
+     * @return the sqlDialectClassName
+     */
+    public String getSqlDialectClassName()
+    {
+        return sqlDialectClassName;
+    }
+
+    /**
+     * If this is greater than one, updates are collected and written with one JDBC batch as soon
+     * as this many are waiting or the flush interval has passed.
+     * <p>
+     * @param updateBatchSize the number of updates to write together
+     */
+    public void setUpdateBatchSize( final int updateBatchSize )
+    {
+        this.updateBatchSize = updateBatchSize;
+    }
+
+    /**
+     * @return the updateBatchSize
+     */
+    public int getUpdateBatchSize()
+    {
+        return updateBatchSize;
+    }
+
+    /**
+     * @param updateBatchFlushMillis how long collected updates wait at most
+     */
+    public void setUpdateBatchFlushMillis( final long updateBatchFlushMillis )
+    {
+        this.updateBatchFlushMillis = updateBatchFlushMillis;
+    }
+
+    /**
+     * @return the updateBatchFlushMillis
+     */
+    public long getUpdateBatchFlushMillis()
+    {
+        return updateBatchFlushMillis;
+    }
+
     /**
      * For debugging.
      * <p>
@@ -326,6 +441,11 @@ public class JDBCDiskCacheAttributes
         buf.append( "\n AllowRemoveAll [" + isAllowRemoveAll() + "]" );
         buf.append( "\n ShrinkerIntervalSeconds [" + getShrinkerIntervalSeconds() + "]" );
         buf.append( "\n useDiskShrinker [" + isUseDiskShrinker() + "]" );
+        buf.append( "\n ExpiryDeleteChunkSize [" + getExpiryDeleteChunkSize() + "]" );
+        buf.append( "\n ExpiryDeleteRowsPerSecond [" + getExpiryDeleteRowsPerSecond() + "]" );
+        buf.append( "\n SqlDialectClassName [" + getSqlDialectClassName() + "]" );
+        buf.append( "\n UpdateBatchSize [" + getUpdateBatchSize() + "]" );
+        buf.append( "\n UpdateBatchFlushMillis [" + getUpdateBatchFlushMillis() + "]" );
         return buf.toString();
     }
 }
@@ -37,6 +37,7 @@ import org.apache.commons.jcs3.engine.behavior.IRequireScheduler;
 import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.config.OptionConverter;
 import org.apache.commons.jcs3.utils.config.PropertySetter;
 
 /**
@@ -98,6 +99,7 @@ public class JDBCDiskCacheFactory
         final JDBCDiskCache<K, V> cache = new JDBCDiskCache<>(cattr, dsFactory, tableState);
         cache.setCacheEventLogger( cacheEventLogger );
         cache.setElementSerializer( elementSerializer );
+        cache.setSqlDialect( createSqlDialect( cattr ) );
 
         // create a shrinker if we need it.
         createShrinkerWhenNeeded( cattr, cache );
@@ -172,6 +174,32 @@ public class JDBCDiskCacheFactory
         return scheduler;
     }
 
+    /**
+     * Creates the configured SQL dialect or the default one of the factory.
+     * <p>
+     * @param cattr the cache configuration
+     * @return the dialect, or null to use portable SQL only
+     */
+    protected SQLDialect createSqlDialect( final JDBCDiskCacheAttributes cattr )
+    {
+        final SQLDialect sqlDialect = OptionConverter.instantiateByClassName(
+                cattr.getSqlDialectClassName(), getDefaultSqlDialect() );
+
+        log.info( "Using SQL dialect [{0}] for table [{1}]",
+                sqlDialect == null ? "none" : sqlDialect.getClass().getName(), cattr.getTableName() );
+        return sqlDialect;
+    }
+
+    /**
+     * Portable SQL only. Subclasses return the dialect of their database.
+     * <p>
+     * @return null
+     */
+    protected SQLDialect getDefaultSqlDialect()
+    {
+        return null;
+    }
+
     /**
      * If UseDiskShrinker is true then we will create a shrinker daemon if necessary.
      * <p>
@@ -0,0 +1,48 @@
+package org.apache.commons.jcs3.auxiliary.disk.jdbc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+/**
+ * The database specific statements of the JDBC disk cache. The cache falls back to portable SQL
+ * for everything a dialect does not provide.
+ */
+public interface SQLDialect
+{
+    /**
+     * Gets a statement that inserts a row or replaces the existing row with the same key and
+     * region in one go. It takes the parameters of the plain insert in the same order:
+     * CACHE_KEY, REGION, ELEMENT, MAX_LIFE_SECONDS, IS_ETERNAL, CREATE_TIME, UPDATE_TIME_SECONDS
+     * and SYSTEM_EXPIRE_TIME_SECONDS.
+     * <p>
+     * @param tableName the name of the table
+     * @return the upsert statement, or null if the database has none
+     */
+    String getUpsertSql( String tableName );
+
+    /**
+     * Gets the most keys to select with one in list. Only databases that use the primary key for
+     * in lists should return more than one; the cache selects the keys one by one with a single
+     * statement otherwise.
+     * <p>
+     * @return the largest in list to use, or 0
+     */
+    int getMaxInListSize();
+}
@@ -0,0 +1,64 @@
+package org.apache.commons.jcs3.auxiliary.disk.jdbc.hsql;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import org.apache.commons.jcs3.auxiliary.disk.jdbc.SQLDialect;
+
+/**
+ * Upserts with the MERGE statement of HSQLDB 2.x. HSQLDB 1.8 has no MERGE and scans the table
+ * for in lists, so do not configure this dialect for it.
+ */
+public class HSQLDialect
+    implements SQLDialect
+{
+    /**
+     * @param tableName the name of the table
+     * @return a MERGE statement with a single row VALUES source
+     */
+    @Override
+    public String getUpsertSql( final String tableName )
+    {
+        return String.format( "merge into %s T using (values("
+                + "cast(? as varchar(250)), cast(? as varchar(250)), cast(? as varbinary(16777216)),"
+                + " cast(? as bigint), cast(? as char(1)), cast(? as timestamp), cast(? as bigint),"
+                + " cast(? as bigint)))"
+                + " as V(CACHE_KEY, REGION, ELEMENT, MAX_LIFE_SECONDS, IS_ETERNAL, CREATE_TIME,"
+                + " UPDATE_TIME_SECONDS, SYSTEM_EXPIRE_TIME_SECONDS)"
+                + " on T.CACHE_KEY = V.CACHE_KEY and T.REGION = V.REGION"
+                + " when matched then update set T.ELEMENT = V.ELEMENT,"
+                + " T.MAX_LIFE_SECONDS = V.MAX_LIFE_SECONDS, T.IS_ETERNAL = V.IS_ETERNAL,"
+                + " T.CREATE_TIME = V.CREATE_TIME, T.UPDATE_TIME_SECONDS = V.UPDATE_TIME_SECONDS,"
+                + " T.SYSTEM_EXPIRE_TIME_SECONDS = V.SYSTEM_EXPIRE_TIME_SECONDS"
+                + " when not matched then insert (CACHE_KEY, REGION, ELEMENT, MAX_LIFE_SECONDS,"
+                + " IS_ETERNAL, CREATE_TIME, UPDATE_TIME_SECONDS, SYSTEM_EXPIRE_TIME_SECONDS)"
+                + " values (V.CACHE_KEY, V.REGION, V.ELEMENT, V.MAX_LIFE_SECONDS, V.IS_ETERNAL,"
+                + " V.CREATE_TIME, V.UPDATE_TIME_SECONDS, V.SYSTEM_EXPIRE_TIME_SECONDS)", tableName );
+    }
+
+    /**
+     * @return 500, HSQLDB 2.x uses the primary key for in lists
+     */
+    @Override
+    public int getMaxInListSize()
+    {
+        return 500;
+    }
+}
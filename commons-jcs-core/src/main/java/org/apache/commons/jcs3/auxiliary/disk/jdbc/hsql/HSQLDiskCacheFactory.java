@@ -93,7 +93,8 @@ public class HSQLDiskCacheFactory
     }
 
     /**
-     * SETUP TABLE FOR CACHE
+     * SETUP TABLE FOR CACHE, with the index the shrinker uses to find the expired rows. The index
+     * is added to existing tables that lack it.
      * <p>
      * @param cConn
      * @param tableName
@@ -103,7 +104,14 @@ public class HSQLDiskCacheFactory
         final DatabaseMetaData dmd = cConn.getMetaData();
         final ResultSet result = dmd.getTables(null, null, tableName, null);
 
-        if (!result.next())
+        if (result.next())
+        {
+            if ( !hasExpiryIndex( dmd, result.getString( "TABLE_NAME" ) ) )
+            {
+                createExpiryIndex( cConn, tableName );
+            }
+        }
+        else
         {
             // TODO make the cached nature of the table configurable
             final StringBuilder createSql = new StringBuilder();
@@ -124,6 +132,45 @@ public class HSQLDiskCacheFactory
             {
                 sStatement.execute( createSql.toString() );
             }
+
+            createExpiryIndex( cConn, tableName );
+        }
+    }
+
+    /**
+     * @param dmd
+     * @param tableName the name of the table as stored by the database
+     * @return true if an index starts with SYSTEM_EXPIRE_TIME_SECONDS
+     * @throws SQLException
+     */
+    private static boolean hasExpiryIndex( final DatabaseMetaData dmd, final String tableName ) throws SQLException
+    {
+        try (ResultSet indexes = dmd.getIndexInfo( null, null, tableName, false, false ))
+        {
+            while ( indexes.next() )
+            {
+                if ( indexes.getShort( "ORDINAL_POSITION" ) == 1
+                    && "SYSTEM_EXPIRE_TIME_SECONDS".equalsIgnoreCase( indexes.getString( "COLUMN_NAME" ) ) )
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param cConn
+     * @param tableName
+     * @throws SQLException
+     */
+    private static void createExpiryIndex( final Connection cConn, final String tableName ) throws SQLException
+    {
+        try (Statement sStatement = cConn.createStatement())
+        {
+            sStatement.execute( "CREATE INDEX " + tableName + "_EXPIRE_IDX ON " + tableName
+                    + " (SYSTEM_EXPIRE_TIME_SECONDS)" );
         }
     }
 }
@@ -0,0 +1,56 @@
+package org.apache.commons.jcs3.auxiliary.disk.jdbc.mysql;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import org.apache.commons.jcs3.auxiliary.disk.jdbc.SQLDialect;
+
+/**
+ * Upserts with insert ... on duplicate key update. This is the default of the MySQL disk cache.
+ */
+public class MySQLDialect
+    implements SQLDialect
+{
+    /**
+     * @param tableName the name of the table
+     * @return an insert that updates the row on a duplicate primary key
+     */
+    @Override
+    public String getUpsertSql( final String tableName )
+    {
+        return String.format( "insert into %s"
+                + " (CACHE_KEY, REGION, ELEMENT, MAX_LIFE_SECONDS, IS_ETERNAL, CREATE_TIME, UPDATE_TIME_SECONDS,"
+                + " SYSTEM_EXPIRE_TIME_SECONDS)"
+                + " values (?, ?, ?, ?, ?, ?, ?, ?)"
+                + " on duplicate key update ELEMENT = values(ELEMENT),"
+                + " MAX_LIFE_SECONDS = values(MAX_LIFE_SECONDS), IS_ETERNAL = values(IS_ETERNAL),"
+                + " CREATE_TIME = values(CREATE_TIME), UPDATE_TIME_SECONDS = values(UPDATE_TIME_SECONDS),"
+                + " SYSTEM_EXPIRE_TIME_SECONDS = values(SYSTEM_EXPIRE_TIME_SECONDS)", tableName );
+    }
+
+    /**
+     * @return 500, MySQL uses the primary key for in lists
+     */
+    @Override
+    public int getMaxInListSize()
+    {
+        return 500;
+    }
+}
@@ -28,6 +28,7 @@ import javax.sql.DataSource;
 
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheAttributes;
 import org.apache.commons.jcs3.auxiliary.disk.jdbc.JDBCDiskCacheFactory;
+import org.apache.commons.jcs3.auxiliary.disk.jdbc.SQLDialect;
 import org.apache.commons.jcs3.auxiliary.disk.jdbc.TableState;
 import org.apache.commons.jcs3.auxiliary.disk.jdbc.dsfactory.DataSourceFactory;
 import org.apache.commons.jcs3.auxiliary.disk.jdbc.mysql.util.ScheduleParser;
@@ -71,6 +72,7 @@ public class MySQLDiskCacheFactory
         final MySQLDiskCache<K, V> cache = new MySQLDiskCache<>( cattr, dsFactory, tableState);
         cache.setCacheEventLogger( cacheEventLogger );
         cache.setElementSerializer( elementSerializer );
+        cache.setSqlDialect( createSqlDialect( cattr ) );
 
         // create a shrinker if we need it.
         createShrinkerWhenNeeded( cattr, cache );
@@ -80,6 +82,15 @@ public class MySQLDiskCacheFactory
 
     }
 
+    /**
+     * @return the MySQL upsert
+     */
+    @Override
+    protected SQLDialect getDefaultSqlDialect()
+    {
+        return new MySQLDialect();
+    }
+
     /**
      * For each time in the optimization schedule, this calls schedule Optimization.
      * <p>
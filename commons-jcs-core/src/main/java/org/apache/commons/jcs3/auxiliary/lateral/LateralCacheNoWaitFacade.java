@@ -22,6 +22,7 @@ package org.apache.commons.jcs3.auxiliary.lateral;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -126,6 +127,27 @@ public class LateralCacheNoWaitFacade<K, V>
         return noWaitMap.size();
     }
 
+    /**
+     * Get the no wait for the given identifying key.
+     * <p>
+     * @param tcpServer the identifying key
+     * @return the no wait or null if it is not in the list
+     */
+    protected LateralCacheNoWait<K, V> getNoWait(final String tcpServer)
+    {
+        return noWaitMap.get(tcpServer);
+    }
+
+    /**
+     * Get a read-only view of the no waits, keyed by their identifying key.
+     * <p>
+     * @return the no wait map
+     */
+    protected Map<String, LateralCacheNoWait<K, V>> getNoWaitMap()
+    {
+        return Collections.unmodifiableMap(noWaitMap);
+    }
+
     /**
      * Tells you if the no wait is in the list or not.
      * <p>
@@ -21,6 +21,7 @@ package org.apache.commons.jcs3.auxiliary.lateral.socket.tcp;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.jcs3.auxiliary.AbstractAuxiliaryCacheFactory;
@@ -116,7 +117,7 @@ public class LateralTCPCacheFactory
 
         // create the no wait facade.
         final LateralCacheNoWaitFacade<K, V> lcnwf =
-            new LateralCacheNoWaitFacade<>(listener, noWaits, lac);
+            createCacheNoWaitFacade(listener, noWaits, lac, cacheMgr);
 
         // create udp discovery if available.
         createDiscoveryService( lac, lcnwf, cacheMgr, cacheEventLogger, elementSerializer );
@@ -124,6 +125,23 @@ public class LateralTCPCacheFactory
         return lcnwf;
     }
 
+    /**
+     * Creates the facade that the region talks to. Subclasses can override this to change how
+     * operations are distributed over the no waits.
+     * <p>
+     * @param listener the listener for this region, may be null
+     * @param noWaits the statically configured no waits
+     * @param lac the configuration
+     * @param cacheMgr the composite cache manager
+     * @return LateralCacheNoWaitFacade
+     */
+    protected <K, V> LateralCacheNoWaitFacade<K, V> createCacheNoWaitFacade(
+            final ILateralCacheListener<K, V> listener, final List<LateralCacheNoWait<K, V>> noWaits,
+            final ITCPLateralCacheAttributes lac, final ICompositeCacheManager cacheMgr )
+    {
+        return new LateralCacheNoWaitFacade<>(listener, noWaits, lac);
+    }
+
     public <K, V> LateralCacheNoWait<K, V> createCacheNoWait( final ITCPLateralCacheAttributes lca,
             final ICacheEventLogger cacheEventLogger, final IElementSerializer elementSerializer )
     {
@@ -367,8 +385,9 @@ public class LateralTCPCacheFactory
      * @param cacheMgr a reference to the global cache manager
      * @param cacheEventLogger Reference to the cache event logger for auxiliary cache creation
      * @param elementSerializer Reference to the cache element serializer for auxiliary cache
+     * @return the discovery service or null if discovery is not enabled
      */
-    private synchronized <K, V> void createDiscoveryService(
+    protected synchronized <K, V> UDPDiscoveryService createDiscoveryService(
             final ITCPLateralCacheAttributes lac,
             final LateralCacheNoWaitFacade<K, V> lcnwf,
             final ICompositeCacheManager cacheMgr,
@@ -398,5 +417,7 @@ public class LateralTCPCacheFactory
             log.info( "Registered TCP lateral cache [{0}] with UDPDiscoveryService.",
                     lac::getCacheName);
         }
+
+        return discovery;
     }
 }
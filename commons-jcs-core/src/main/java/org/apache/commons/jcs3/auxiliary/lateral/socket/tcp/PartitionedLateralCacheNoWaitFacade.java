@@ -0,0 +1,446 @@
+package org.apache.commons.jcs3.auxiliary.lateral.socket.tcp;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.jcs3.auxiliary.AuxiliaryCache;
+import org.apache.commons.jcs3.auxiliary.lateral.LateralCacheNoWait;
+import org.apache.commons.jcs3.auxiliary.lateral.LateralCacheNoWaitFacade;
+import org.apache.commons.jcs3.auxiliary.lateral.behavior.ILateralCacheListener;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICompositeCacheManager;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.stats.StatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.struct.ConsistentHashRing;
+import org.apache.commons.jcs3.utils.threadpool.DaemonThreadFactory;
+
+/**
+ * A lateral facade that partitions the keys of a region over the cluster instead of replicating
+ * every put to every peer. The members, this node included, are placed on a consistent hash ring.
+ * Each key is owned by the first <i>replicationFactor</i> members found on the ring.
+ * <ul>
+ * <li>Puts are only sent to the owners of the key. Optionally the owners of the key before the
+ * last membership change get a remove, so they drop the copy they may still hold.</li>
+ * <li>Gets are sent to the owners, primary first, and never to the other peers.</li>
+ * <li>Removes are sent to all peers, since any of them may hold a copy.</li>
+ * </ul>
+ * When a member joins or leaves, the keys held by this node whose owners changed are pushed to
+ * their new owners in the background. Only the first old owner that is still a member pushes a
+ * key, so each key is transferred once.
+ * <p>
+ * Unless keepNonOwnedLocally is set, the keys put on this node that it does not own are removed
+ * from the local memory once they are queued for the owners, and the keys it stops owning are
+ * removed locally after the handoff, so each node only holds its share of the region plus what
+ * it read recently. Until the queued put reached the owners, a get of such a key may miss.
+ */
+public class PartitionedLateralCacheNoWaitFacade<K, V>
+    extends LateralCacheNoWaitFacade<K, V>
+{
+    /** The logger */
+    private static final Log log = LogManager.getLog( PartitionedLateralCacheNoWaitFacade.class );
+
+    /** User configurable attributes. */
+    private final PartitionedTCPLateralCacheAttributes attributes;
+
+    /** Used to look up the local region during handoff. */
+    private final ICompositeCacheManager cacheMgr;
+
+    /** Runs the handoff after membership changes. */
+    private final ExecutorService handoffExecutor;
+
+    /** The identifying key of this node on the ring, host:port. */
+    private volatile String localNode;
+
+    /** The current ring, replaced on membership change. */
+    private volatile ConsistentHashRing<String> ring;
+
+    /** The ring before the last membership change, null if there was none. */
+    private volatile ConsistentHashRing<String> previousRing;
+
+    /** Number of elements pushed to new owners. */
+    private final AtomicLong handoffCount = new AtomicLong();
+
+    /**
+     * Constructs the facade.
+     * <p>
+     * @param listener the cache listener
+     * @param noWaits the list of statically configured noWaits
+     * @param cattr the configuration
+     * @param cacheMgr the cache manager holding the local region
+     */
+    public PartitionedLateralCacheNoWaitFacade(final ILateralCacheListener<K, V> listener,
+            final List<LateralCacheNoWait<K, V>> noWaits, final PartitionedTCPLateralCacheAttributes cattr,
+            final ICompositeCacheManager cacheMgr)
+    {
+        super(listener, noWaits, cattr);
+        this.attributes = cattr;
+        this.cacheMgr = cacheMgr;
+        this.ring = buildRing();
+        this.handoffExecutor = Executors.newSingleThreadExecutor(
+                new DaemonThreadFactory("JCS-PartitionedLateral-" + cattr.getCacheName() + "-"));
+    }
+
+    /**
+     * Sets the identifying key of this node. It must be the same host:port the other members use
+     * to reach this node, otherwise the members will not agree on the owners of a key.
+     * <p>
+     * @param localNode host:port of the local listener
+     */
+    public synchronized void setLocalNode(final String localNode)
+    {
+        this.localNode = localNode;
+        this.ring = buildRing();
+        log.info("Local node of partitioned lateral [{0}] is [{1}]", getCacheName(), localNode);
+    }
+
+    /**
+     * @return host:port of the local listener, null if not yet known
+     */
+    public String getLocalNode()
+    {
+        return localNode;
+    }
+
+    /**
+     * Get the nodes owning a key, primary owner first.
+     * <p>
+     * @param key the key
+     * @return the identifying keys of the owners, may contain the local node
+     */
+    public List<String> getOwners(final K key)
+    {
+        return ring.getNodes(key, attributes.getReplicationFactor());
+    }
+
+    /**
+     * Adds the no wait and hands off the keys the new member now owns.
+     * <p>
+     * @see LateralCacheNoWaitFacade#addNoWait(LateralCacheNoWait)
+     */
+    @Override
+    public synchronized boolean addNoWait(final LateralCacheNoWait<K, V> noWait)
+    {
+        if (!super.addNoWait(noWait))
+        {
+            return false;
+        }
+
+        membershipChanged();
+        return true;
+    }
+
+    /**
+     * Removes the no wait and hands off the keys that lost an owner.
+     * <p>
+     * @see LateralCacheNoWaitFacade#removeNoWait(String)
+     */
+    @Override
+    public synchronized boolean removeNoWait(final String tcpServer)
+    {
+        if (!super.removeNoWait(tcpServer))
+        {
+            return false;
+        }
+
+        membershipChanged();
+        return true;
+    }
+
+    /**
+     * Sends the element to the owners of its key. If invalidateNonOwners is set, the previous
+     * owners of the key that no longer own it get a remove.
+     * <p>
+     * @param ce the cache element
+     * @throws IOException
+     */
+    @Override
+    public void update(final ICacheElement<K, V> ce)
+        throws IOException
+    {
+        final List<String> owners = getOwners(ce.getKey());
+
+        log.debug("updating partitioned lateral for key [{0}], owners = {1}",
+                ce::getKey, () -> owners);
+
+        for (final String owner : owners)
+        {
+            final LateralCacheNoWait<K, V> nw = getNoWait(owner);
+            if (nw != null)
+            {
+                nw.update(ce);
+            }
+        }
+
+        final ConsistentHashRing<String> previous = previousRing;
+        if (previous != null && attributes.isInvalidateNonOwners())
+        {
+            for (final String previousOwner : previous.getNodes(ce.getKey(), attributes.getReplicationFactor()))
+            {
+                final LateralCacheNoWait<K, V> nw = owners.contains(previousOwner) ? null : getNoWait(previousOwner);
+                if (nw != null)
+                {
+                    nw.remove(ce.getKey());
+                }
+            }
+        }
+
+        final String self = localNode;
+        if (self != null && !owners.contains(self) && !attributes.isKeepNonOwnedLocally() && cacheMgr != null)
+        {
+            // the region stored it in memory before calling the auxiliaries
+            final CompositeCache<K, V> cache = cacheMgr.getCache(getCacheName());
+            cache.getMemoryCache().remove(ce.getKey());
+        }
+    }
+
+    /**
+     * Reads from the owners of the key, primary owner first.
+     * <p>
+     * @param key
+     * @return ICacheElement or null if no remote owner has it
+     */
+    @Override
+    public ICacheElement<K, V> get(final K key)
+    {
+        for (final String owner : getOwners(key))
+        {
+            if (owner.equals(localNode))
+            {
+                // the region has already looked locally
+                continue;
+            }
+
+            final LateralCacheNoWait<K, V> nw = getNoWait(owner);
+            if (nw != null)
+            {
+                final ICacheElement<K, V> ce = nw.get(key);
+                if (ce != null)
+                {
+                    return ce;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /** Adds a dispose request to the lateral cache and stops the handoff. */
+    @Override
+    public void dispose()
+    {
+        handoffExecutor.shutdownNow();
+        super.dispose();
+    }
+
+    /**
+     * Rebuild the ring and hand off the keys whose owners changed.
+     */
+    private void membershipChanged()
+    {
+        final ConsistentHashRing<String> oldRing = ring;
+        final ConsistentHashRing<String> newRing = buildRing();
+        previousRing = oldRing;
+        ring = newRing;
+
+        log.info("Membership of partitioned lateral [{0}] changed, members = {1}",
+                this::getCacheName, newRing::getNodes);
+
+        try
+        {
+            handoffExecutor.execute(() -> handoff(oldRing, newRing));
+        }
+        catch (final RejectedExecutionException e)
+        {
+            log.debug("Handoff skipped, facade is disposed");
+        }
+    }
+
+    /**
+     * Pushes every locally held key to the members that became owners of it.
+     * <p>
+     * @param oldRing the ring before the membership change
+     * @param newRing the ring after the membership change
+     */
+    protected void handoff(final ConsistentHashRing<String> oldRing, final ConsistentHashRing<String> newRing)
+    {
+        final String self = localNode;
+        if (self == null || cacheMgr == null)
+        {
+            return;
+        }
+
+        final CompositeCache<K, V> cache = cacheMgr.getCache(getCacheName());
+        final int replicationFactor = attributes.getReplicationFactor();
+        final Set<String> members = newRing.getNodes();
+        long moved = 0;
+
+        for (final K key : cache.getKeySet(true))
+        {
+            if (Thread.currentThread().isInterrupted())
+            {
+                break;
+            }
+
+            final List<String> oldOwners = oldRing.getNodes(key, replicationFactor);
+            final List<String> newOwners = newRing.getNodes(key, replicationFactor);
+            final String sender = oldOwners.stream()
+                    .filter(members::contains)
+                    .findFirst()
+                    .orElse(self);
+
+            boolean handedOff = true;
+            if (self.equals(sender))
+            {
+                ICacheElement<K, V> ce = null;
+                for (final String owner : newOwners)
+                {
+                    if (owner.equals(self) || oldOwners.contains(owner))
+                    {
+                        continue;
+                    }
+
+                    final LateralCacheNoWait<K, V> nw = getNoWait(owner);
+                    if (nw == null)
+                    {
+                        continue;
+                    }
+
+                    if (ce == null)
+                    {
+                        ce = getQuiet(cache, key);
+                        if (ce == null)
+                        {
+                            break;
+                        }
+                    }
+
+                    try
+                    {
+                        nw.update(ce);
+                        moved++;
+                    }
+                    catch (final IOException e)
+                    {
+                        log.error("Failure handing off key [{0}] to [{1}]", key, owner, e);
+                        handedOff = false;
+                    }
+                }
+            }
+
+            // keep the copy if it could not be handed off
+            if (handedOff && !newOwners.contains(self) && !attributes.isKeepNonOwnedLocally())
+            {
+                cache.localRemove(key);
+            }
+        }
+
+        handoffCount.addAndGet(moved);
+        log.info("Handed off {0} elements of partitioned lateral [{1}]", moved, getCacheName());
+    }
+
+    /**
+     * Get an element from memory or disk without touching the LRU order or the statistics.
+     * <p>
+     * @param cache the local region
+     * @param key the key
+     * @return the element or null
+     */
+    private ICacheElement<K, V> getQuiet(final CompositeCache<K, V> cache, final K key)
+    {
+        try
+        {
+            ICacheElement<K, V> ce = cache.getMemoryCache().getQuiet(key);
+            if (ce == null)
+            {
+                for (final AuxiliaryCache<K, V> aux : cache.getAuxCacheList())
+                {
+                    if (aux.getCacheType() == CacheType.DISK_CACHE)
+                    {
+                        ce = aux.get(key);
+                        if (ce != null)
+                        {
+                            break;
+                        }
+                    }
+                }
+            }
+            return ce;
+        }
+        catch (final IOException e)
+        {
+            log.error("Failure reading key [{0}] for handoff", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return a ring of the local node and all no waits
+     */
+    private ConsistentHashRing<String> buildRing()
+    {
+        final List<String> members = new ArrayList<>(getNoWaitMap().keySet());
+        if (localNode != null)
+        {
+            members.add(localNode);
+        }
+
+        return new ConsistentHashRing<>(members, attributes.getVirtualNodes());
+    }
+
+    /**
+     * @return IStats
+     */
+    @Override
+    public IStats getStatistics()
+    {
+        final IStats stats = super.getStatistics();
+        stats.setTypeName( "Partitioned Lateral Cache No Wait Facade" );
+
+        final List<IStatElement<?>> elems = new ArrayList<>(stats.getStatElements());
+        elems.add(new StatElement<>("Local Node", localNode));
+        elems.add(new StatElement<>("Ring Members", Integer.valueOf(ring.getNodes().size())));
+        elems.add(new StatElement<>("Replication Factor", Integer.valueOf(attributes.getReplicationFactor())));
+        elems.add(new StatElement<>("Handoff Count", Long.valueOf(handoffCount.get())));
+        stats.setStatElements(elems);
+
+        return stats;
+    }
+
+    /**
+     * @return "PartitionedLateralCacheNoWaitFacade: " + cacheName;
+     */
+    @Override
+    public String toString()
+    {
+        return "PartitionedLateralCacheNoWaitFacade: " + getCacheName();
+    }
+}
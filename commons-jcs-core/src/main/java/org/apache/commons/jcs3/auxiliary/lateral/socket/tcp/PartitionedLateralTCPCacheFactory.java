@@ -0,0 +1,123 @@
+package org.apache.commons.jcs3.auxiliary.lateral.socket.tcp;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.net.UnknownHostException;
+import java.util.List;
+
+import org.apache.commons.jcs3.access.exception.ConfigurationException;
+import org.apache.commons.jcs3.auxiliary.lateral.LateralCacheNoWait;
+import org.apache.commons.jcs3.auxiliary.lateral.LateralCacheNoWaitFacade;
+import org.apache.commons.jcs3.auxiliary.lateral.behavior.ILateralCacheListener;
+import org.apache.commons.jcs3.auxiliary.lateral.socket.tcp.behavior.ITCPLateralCacheAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICompositeCacheManager;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.discovery.UDPDiscoveryService;
+import org.apache.commons.jcs3.utils.net.HostNameUtil;
+
+/**
+ * Constructs a PartitionedLateralCacheNoWaitFacade. The transport, the listener and the UDP
+ * discovery are the same as for the plain TCP lateral; only the facade differs. It must be
+ * configured with {@link PartitionedTCPLateralCacheAttributes}:
+ * <pre>
+ * jcs.auxiliary.PLTCP=org.apache.commons.jcs3.auxiliary.lateral.socket.tcp.PartitionedLateralTCPCacheFactory
+ * jcs.auxiliary.PLTCP.attributes=org.apache.commons.jcs3.auxiliary.lateral.socket.tcp.PartitionedTCPLateralCacheAttributes
+ * jcs.auxiliary.PLTCP.attributes.TcpListenerPort=1110
+ * jcs.auxiliary.PLTCP.attributes.ReplicationFactor=2
+ * </pre>
+ */
+public class PartitionedLateralTCPCacheFactory
+    extends LateralTCPCacheFactory
+{
+    /** The logger */
+    private static final Log log = LogManager.getLog( PartitionedLateralTCPCacheFactory.class );
+
+    /**
+     * Creates a partitioned facade.
+     * <p>
+     * @throws ConfigurationException if the attributes are not PartitionedTCPLateralCacheAttributes
+     * @see LateralTCPCacheFactory#createCacheNoWaitFacade(ILateralCacheListener, List, ITCPLateralCacheAttributes, ICompositeCacheManager)
+     */
+    @Override
+    protected <K, V> LateralCacheNoWaitFacade<K, V> createCacheNoWaitFacade(
+            final ILateralCacheListener<K, V> listener, final List<LateralCacheNoWait<K, V>> noWaits,
+            final ITCPLateralCacheAttributes lac, final ICompositeCacheManager cacheMgr )
+    {
+        if ( !( lac instanceof PartitionedTCPLateralCacheAttributes ) )
+        {
+            throw new ConfigurationException( "The attributes of the partitioned lateral cache of region ["
+                    + lac.getCacheName() + "] must be " + PartitionedTCPLateralCacheAttributes.class.getName()
+                    + " but are " + lac.getClass().getName() );
+        }
+
+        final PartitionedLateralCacheNoWaitFacade<K, V> facade = new PartitionedLateralCacheNoWaitFacade<>(
+                listener, noWaits, (PartitionedTCPLateralCacheAttributes) lac, cacheMgr);
+
+        // without discovery, the listener address identifies this node
+        if ( !lac.isUdpDiscoveryEnabled() )
+        {
+            String host = lac.getTcpListenerHost();
+            if ( host == null || host.isEmpty() )
+            {
+                try
+                {
+                    host = HostNameUtil.getLocalHostAddress();
+                }
+                catch ( final UnknownHostException e )
+                {
+                    log.error( "Could not determine local host, set TcpListenerHost", e );
+                }
+            }
+
+            facade.setLocalNode( host + ":" + lac.getTcpListenerPort() );
+        }
+
+        return facade;
+    }
+
+    /**
+     * Creates the discovery service and identifies this node by the address it broadcasts.
+     * <p>
+     * @see LateralTCPCacheFactory#createDiscoveryService(ITCPLateralCacheAttributes, LateralCacheNoWaitFacade, ICompositeCacheManager, ICacheEventLogger, IElementSerializer)
+     */
+    @Override
+    protected synchronized <K, V> UDPDiscoveryService createDiscoveryService(
+            final ITCPLateralCacheAttributes lac,
+            final LateralCacheNoWaitFacade<K, V> lcnwf,
+            final ICompositeCacheManager cacheMgr,
+            final ICacheEventLogger cacheEventLogger,
+            final IElementSerializer elementSerializer )
+    {
+        final UDPDiscoveryService discovery =
+                super.createDiscoveryService( lac, lcnwf, cacheMgr, cacheEventLogger, elementSerializer );
+
+        if ( discovery != null && lcnwf instanceof PartitionedLateralCacheNoWaitFacade )
+        {
+            ((PartitionedLateralCacheNoWaitFacade<K, V>) lcnwf).setLocalNode(
+                    discovery.getUdpDiscoveryAttributes().getServiceAddress() + ":"
+                    + discovery.getUdpDiscoveryAttributes().getServicePort() );
+        }
+
+        return discovery;
+    }
+}
@@ -0,0 +1,133 @@
+package org.apache.commons.jcs3.auxiliary.lateral.socket.tcp;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Configuration for the partitioned TCP lateral cache. On top of the TCP lateral settings this
+ * defines the shape of the consistent hash ring used to assign keys to nodes.
+ */
+public class PartitionedTCPLateralCacheAttributes
+    extends TCPLateralCacheAttributes
+{
+    /** Don't change. */
+    private static final long serialVersionUID = -2742215931702359216L;
+
+    /** default */
+    private static final int DEFAULT_REPLICATION_FACTOR = 2;
+
+    /** default */
+    private static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    /** default */
+    private static final boolean DEFAULT_INVALIDATE_NON_OWNERS = false;
+
+    /** default */
+    private static final boolean DEFAULT_KEEP_NON_OWNED_LOCALLY = false;
+
+    /** The number of nodes that hold a copy of each key. */
+    private int replicationFactor = DEFAULT_REPLICATION_FACTOR;
+
+    /** The number of positions each node takes on the ring. */
+    private int virtualNodes = DEFAULT_VIRTUAL_NODES;
+
+    /** Send a remove to the previous owners of a key when it is put. */
+    private boolean invalidateNonOwners = DEFAULT_INVALIDATE_NON_OWNERS;
+
+    /** Keep the keys put on this node in memory even if this node does not own them. */
+    private boolean keepNonOwnedLocally = DEFAULT_KEEP_NON_OWNED_LOCALLY;
+
+    /**
+     * The number of nodes, including the primary owner, that hold a copy of each key.
+     * <p>
+     * @return the replication factor
+     */
+    public int getReplicationFactor()
+    {
+        return replicationFactor;
+    }
+
+    /**
+     * @param replicationFactor the number of nodes that hold a copy of each key
+     */
+    public void setReplicationFactor( final int replicationFactor )
+    {
+        this.replicationFactor = replicationFactor;
+    }
+
+    /**
+     * @return the number of positions each node takes on the ring
+     */
+    public int getVirtualNodes()
+    {
+        return virtualNodes;
+    }
+
+    /**
+     * More virtual nodes give a more even key distribution at the cost of a larger ring.
+     * <p>
+     * @param virtualNodes the number of positions each node takes on the ring
+     */
+    public void setVirtualNodes( final int virtualNodes )
+    {
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * After a membership change the previous owners of a key may still hold it until their
+     * handoff dropped it, or for good if they keep non owned keys. If this is true, a put also
+     * sends a (small) remove to the previous owners that no longer own the key. Copies that other
+     * nodes read are not invalidated and only age out.
+     * <p>
+     * @return whether non owners are invalidated on put
+     */
+    public boolean isInvalidateNonOwners()
+    {
+        return invalidateNonOwners;
+    }
+
+    /**
+     * @param invalidateNonOwners whether non owners are invalidated on put
+     */
+    public void setInvalidateNonOwners( final boolean invalidateNonOwners )
+    {
+        this.invalidateNonOwners = invalidateNonOwners;
+    }
+
+    /**
+     * By default a put of a key this node does not own is dropped from the local memory once it
+     * is sent to the owners, and the keys this node stops owning are dropped after the handoff,
+     * so that the memory used by each node shrinks as nodes are added. A get of such a key is read
+     * from the owners. If this is true, the local copies are kept, as with the plain lateral.
+     * <p>
+     * @return whether non owned keys stay in the local memory
+     */
+    public boolean isKeepNonOwnedLocally()
+    {
+        return keepNonOwnedLocally;
+    }
+
+    /**
+     * @param keepNonOwnedLocally whether non owned keys stay in the local memory
+     */
+    public void setKeepNonOwnedLocally( final boolean keepNonOwnedLocally )
+    {
+        this.keepNonOwnedLocally = keepNonOwnedLocally;
+    }
+}
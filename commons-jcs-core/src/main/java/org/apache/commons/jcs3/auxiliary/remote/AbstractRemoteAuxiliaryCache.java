@@ -23,13 +23,18 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.commons.jcs3.auxiliary.AbstractAuxiliaryCacheEventLogging;
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheAttributes;
@@ -51,6 +56,7 @@ import org.apache.commons.jcs3.engine.stats.behavior.IStats;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
 import org.apache.commons.jcs3.utils.serialization.SerializationConversionUtil;
+import org.apache.commons.jcs3.utils.struct.BloomFilter;
 import org.apache.commons.jcs3.utils.threadpool.ThreadPoolManager;
 
 /** Abstract base for remote caches. I'm trying to break out and reuse common functionality. */
@@ -82,6 +88,27 @@ public abstract class AbstractRemoteAuxiliaryCache<K, V>
     /** Should we get asynchronously using a pool. */
     private boolean usePoolForGet;
 
+    /** Whether gets are checked against the key filter of the server. */
+    private boolean useKeyFilter;
+
+    /** The key filter of the server, null unless UseKeyFilter is set and the server sent one. */
+    private volatile BloomFilter keyFilter;
+
+    /**
+     * The keys put while the key filter is fetched, added to the new filter once it arrives since
+     * the server may have built it before they were put. Null when no fetch is running.
+     */
+    private Queue<K> keysPutDuringFetch;
+
+    /** Adds hold the read lock, installing a new filter holds the write lock. */
+    private final ReadWriteLock keyFilterLock = new ReentrantReadWriteLock();
+
+    /** The time after which the next get fetches the key filter again. */
+    private final AtomicLong nextKeyFilterRefresh = new AtomicLong();
+
+    /** The number of gets answered by the key filter. */
+    private final AtomicLong keyFilterMisses = new AtomicLong();
+
     /**
      * Creates the base.
      * <p>
@@ -115,6 +142,20 @@ public abstract class AbstractRemoteAuxiliaryCache<K, V>
             log.debug( "Thread Pool = {0}", pool );
             usePoolForGet = true;
         }
+
+        // the filter only follows the puts of other clients through the listener
+        if ( cattr.isUseKeyFilter() )
+        {
+            if ( cattr.isReceive() && listener instanceof AbstractRemoteCacheListener )
+            {
+                ( (AbstractRemoteCacheListener<K, V>) listener ).setPutObserver( this::addToKeyFilter );
+                useKeyFilter = true;
+            }
+            else
+            {
+                log.warn( "UseKeyFilter needs Receive for region [{0}], the key filter is off", cacheName );
+            }
+        }
     }
 
     /**
@@ -158,6 +199,11 @@ public abstract class AbstractRemoteAuxiliaryCache<K, V>
     protected ICacheElement<K, V> processGet( final K key )
         throws IOException
     {
+        if ( !mightContain( key ) )
+        {
+            return null;
+        }
+
         ICacheElement<K, V> retVal = null;
         try
         {
@@ -187,6 +233,128 @@ public abstract class AbstractRemoteAuxiliaryCache<K, V>
         return retVal;
     }
 
+    /**
+     * Checks the key against the key filter of the server, fetching the filter first if it is due.
+     * <p>
+     * @param key
+     * @return false if the server does not have the key
+     */
+    private boolean mightContain( final K key )
+    {
+        // the filter was built from the hash codes of the server
+        if ( !useKeyFilter || !BloomFilter.hasPortableHashCode( key ) )
+        {
+            return true;
+        }
+
+        refreshKeyFilter();
+
+        final BloomFilter filter = keyFilter;
+        if ( filter == null || filter.mightContain( key ) )
+        {
+            return true;
+        }
+
+        keyFilterMisses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Adds the key of an element put by another client, which the listener received from the
+     * server.
+     * <p>
+     * @param ce
+     */
+    private void addToKeyFilter( final ICacheElement<K, V> ce )
+    {
+        if ( cacheName.equals( ce.getCacheName() ) )
+        {
+            addToKeyFilter( ce.getKey() );
+        }
+    }
+
+    /**
+     * Adds a key the server has to the current filter, and to the filter being fetched if any.
+     * <p>
+     * @param key
+     */
+    private void addToKeyFilter( final K key )
+    {
+        keyFilterLock.readLock().lock();
+        try
+        {
+            final Queue<K> pending = keysPutDuringFetch;
+            if ( pending != null )
+            {
+                pending.add( key );
+            }
+
+            final BloomFilter filter = keyFilter;
+            if ( filter != null )
+            {
+                filter.add( key );
+            }
+        }
+        finally
+        {
+            keyFilterLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fetches the key filter of the server if KeyFilterRefreshSeconds passed since the last fetch.
+     * Only one caller fetches it, the others go on with the current filter. If the server does not
+     * build key filters, or cannot be reached, there is no filter until the next fetch. The keys
+     * put while the filter is on its way are added to it before it is used.
+     */
+    private void refreshKeyFilter()
+    {
+        final long now = System.currentTimeMillis();
+        final long next = nextKeyFilterRefresh.get();
+        if ( now < next || !nextKeyFilterRefresh.compareAndSet( next,
+                now + getRemoteCacheAttributes().getKeyFilterRefreshSeconds() * 1000L ) )
+        {
+            return;
+        }
+
+        keyFilterLock.writeLock().lock();
+        try
+        {
+            keysPutDuringFetch = new ConcurrentLinkedQueue<>();
+        }
+        finally
+        {
+            keyFilterLock.writeLock().unlock();
+        }
+
+        BloomFilter fetched = null;
+        try
+        {
+            fetched = getRemoteCacheService().getKeyFilter( cacheName );
+            log.debug( "Fetched key filter for [{0}]: {1}", cacheName, fetched );
+        }
+        catch ( final IOException | RuntimeException e )
+        {
+            log.warn( "Failed to get the key filter of [{0}]: {1}", cacheName, e.getMessage() );
+        }
+
+        keyFilterLock.writeLock().lock();
+        try
+        {
+            final Queue<K> pending = keysPutDuringFetch;
+            if ( fetched != null && pending != null )
+            {
+                pending.forEach( fetched::add );
+            }
+            keyFilter = fetched;
+            keysPutDuringFetch = null;
+        }
+        finally
+        {
+            keyFilterLock.writeLock().unlock();
+        }
+    }
+
     /**
      * This allows gets to timeout in case of remote server machine shutdown.
      * <p>
@@ -361,7 +529,18 @@ public abstract class AbstractRemoteAuxiliaryCache<K, V>
                 // other end.
                 serialized = SerializationConversionUtil.getSerializedCacheElement( ce, super.getElementSerializer() );
 
+                // before for the gets during the update, after for a filter fetched meanwhile
+                if ( useKeyFilter )
+                {
+                    addToKeyFilter( ce.getKey() );
+                }
+
                 remoteCacheService.update( serialized, getListenerId() );
+
+                if ( useKeyFilter )
+                {
+                    addToKeyFilter( ce.getKey() );
+                }
             }
             catch ( final NullPointerException npe )
             {
@@ -503,6 +682,11 @@ public abstract class AbstractRemoteAuxiliaryCache<K, V>
 
         elems.add(new StatElement<>( "UsePoolForGet", Boolean.valueOf(usePoolForGet) ) );
 
+        if ( keyFilter != null )
+        {
+            elems.add(new StatElement<>( "Key Filter Misses Avoided", Long.valueOf(keyFilterMisses.get()) ) );
+        }
+
         if ( pool != null )
         {
             elems.add(new StatElement<>( "Pool", pool ) );
@@ -543,6 +727,11 @@ public abstract class AbstractRemoteAuxiliaryCache<K, V>
         final
         ICacheServiceNonLocal<K, V> remote = (ICacheServiceNonLocal<K, V>)restoredRemote;
         final ICacheServiceNonLocal<K, V> prevRemote = getRemoteCacheService();
+
+        // the new server may hold other keys
+        keyFilter = null;
+        nextKeyFilterRefresh.set( 0 );
+
         if ( prevRemote instanceof ZombieCacheServiceNonLocal )
         {
             final ZombieCacheServiceNonLocal<K, V> zombie = (ZombieCacheServiceNonLocal<K, V>) prevRemote;
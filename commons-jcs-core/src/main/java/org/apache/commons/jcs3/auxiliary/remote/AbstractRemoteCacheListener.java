@@ -21,6 +21,7 @@ package org.apache.commons.jcs3.auxiliary.remote;
 
 import java.io.IOException;
 import java.net.UnknownHostException;
+import java.util.function.Consumer;
 
 import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheAttributes;
 import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheListener;
@@ -29,6 +30,7 @@ import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICacheElementSerialized;
 import org.apache.commons.jcs3.engine.behavior.ICompositeCacheManager;
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
 import org.apache.commons.jcs3.utils.net.HostNameUtil;
@@ -59,6 +61,9 @@ public abstract class AbstractRemoteCacheListener<K, V>
     /** Custom serializer. */
     private final IElementSerializer elementSerializer;
 
+    /** Told about every put from the server, the remote cache keeps its key filter with it. */
+    private volatile Consumer<ICacheElement<K, V>> putObserver;
+
     /**
      * Only need one since it does work for all regions, just reference by multiple region names.
      * <p>
@@ -92,6 +97,16 @@ public abstract class AbstractRemoteCacheListener<K, V>
         log.info( "set listenerId = [{0}]", id );
     }
 
+    /**
+     * Sets the callback told about every put received from the server, before it is applied.
+     * <p>
+     * @param putObserver the callback, or null for none
+     */
+    public void setPutObserver( final Consumer<ICacheElement<K, V>> putObserver )
+    {
+        this.putObserver = putObserver;
+    }
+
     /**
      * Gets the listenerId attribute of the RemoteCacheListener object. This is stored in the
      * object. The RemoteCache object contains a reference to the listener and get the id this way.
@@ -136,6 +151,13 @@ public abstract class AbstractRemoteCacheListener<K, V>
     public void handlePut( ICacheElement<K, V> cb )
         throws IOException
     {
+        // the server has the key whatever we do with the element here
+        final Consumer<ICacheElement<K, V>> observer = putObserver;
+        if ( observer != null )
+        {
+            observer.accept( cb );
+        }
+
         if ( irca.getRemoveUponRemotePut() )
         {
             log.debug( "PUTTING ELEMENT FROM REMOTE, (  invalidating ) " );
@@ -146,6 +168,15 @@ public abstract class AbstractRemoteCacheListener<K, V>
             log.debug( "PUTTING ELEMENT FROM REMOTE, ( updating ) " );
             log.debug( "cb = {0}", cb );
 
+            final CompositeCache<K, V> cache = getCacheManager().getCache( cb.getCacheName() );
+
+            // check the version before paying for deserialization
+            if ( cache.isStale( cb ) )
+            {
+                log.debug( "Dropping stale update from remote for key [{0}]", cb.getKey() );
+                return;
+            }
+
             // Eventually the instance of will not be necessary.
             if ( cb instanceof ICacheElementSerialized )
             {
@@ -166,7 +197,7 @@ public abstract class AbstractRemoteCacheListener<K, V>
                 }
             }
 
-            getCacheManager().<K, V>getCache( cb.getCacheName() ).localUpdate( cb );
+            cache.localUpdate( cb );
         }
     }
 
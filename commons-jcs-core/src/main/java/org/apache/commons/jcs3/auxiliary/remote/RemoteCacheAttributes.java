@@ -64,6 +64,12 @@ public class RemoteCacheAttributes
     /** If the primary fails, we will queue items before reconnect.  This limits the number of items that can be queued. */
     private int zombieQueueMaxSize = DEFAULT_ZOMBIE_QUEUE_MAX_SIZE;
 
+    /** Should the gets be checked against the key filter of the server. */
+    private boolean useKeyFilter;
+
+    /** The number of seconds between two fetches of the key filter. */
+    private int keyFilterRefreshSeconds = 30;
+
     /** Default constructor for the RemoteCacheAttributes object */
     public RemoteCacheAttributes()
     {
@@ -245,6 +251,46 @@ public class RemoteCacheAttributes
         return zombieQueueMaxSize;
     }
 
+    /**
+     * By default this option is false.
+     * <p>
+     * @param useKeyFilter The useKeyFilter to set.
+     */
+    @Override
+    public void setUseKeyFilter( final boolean useKeyFilter )
+    {
+        this.useKeyFilter = useKeyFilter;
+    }
+
+    /**
+     * @return Returns the useKeyFilter.
+     */
+    @Override
+    public boolean isUseKeyFilter()
+    {
+        return useKeyFilter;
+    }
+
+    /**
+     * By default the filter is fetched every 30 seconds.
+     * <p>
+     * @param keyFilterRefreshSeconds The keyFilterRefreshSeconds to set.
+     */
+    @Override
+    public void setKeyFilterRefreshSeconds( final int keyFilterRefreshSeconds )
+    {
+        this.keyFilterRefreshSeconds = keyFilterRefreshSeconds;
+    }
+
+    /**
+     * @return Returns the keyFilterRefreshSeconds.
+     */
+    @Override
+    public int getKeyFilterRefreshSeconds()
+    {
+        return keyFilterRefreshSeconds;
+    }
+
     /**
      * @return String, all the important values that can be configured
      */
@@ -257,6 +303,8 @@ public class RemoteCacheAttributes
         buf.append( "\n threadPoolName = [" + getThreadPoolName() + "]" );
         buf.append( "\n localClusterConsistency = [" + isLocalClusterConsistency() + "]" );
         buf.append( "\n zombieQueueMaxSize = [" + getZombieQueueMaxSize() + "]" );
+        buf.append( "\n useKeyFilter = [" + isUseKeyFilter() + "]" );
+        buf.append( "\n keyFilterRefreshSeconds = [" + getKeyFilterRefreshSeconds() + "]" );
         return buf.toString();
     }
 }
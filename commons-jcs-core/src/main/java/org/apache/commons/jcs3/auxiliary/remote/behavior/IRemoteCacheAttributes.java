@@ -179,4 +179,29 @@ public interface IRemoteCacheAttributes
      * @return Returns the zombieQueueMaxSize.
      */
     int getZombieQueueMaxSize();
+
+    /**
+     * If true, the client asks the server for a Bloom filter of the keys of the region, and answers
+     * the gets of keys that are not in it without a call to the server. Keys put by other clients
+     * are only seen once the filter is fetched again, so a get may miss a value that was put less
+     * than KeyFilterRefreshSeconds ago. The keys must have the same hash code in every JVM.
+     * <p>
+     * @param useKeyFilter The useKeyFilter to set.
+     */
+    void setUseKeyFilter( boolean useKeyFilter );
+
+    /**
+     * @return Returns the useKeyFilter.
+     */
+    boolean isUseKeyFilter();
+
+    /**
+     * @param keyFilterRefreshSeconds the number of seconds between two fetches of the key filter
+     */
+    void setKeyFilterRefreshSeconds( int keyFilterRefreshSeconds );
+
+    /**
+     * @return Returns the keyFilterRefreshSeconds.
+     */
+    int getKeyFilterRefreshSeconds();
 }
@@ -28,4 +28,7 @@ public interface IRemoteHttpCacheConstants
     /** All of the RemoteHttpCacheServiceAttributes can be configured this way. */
     String HTTP_CACHE_SERVER_ATTRIBUTES_PROPERTY_PREFIX = HTTP_CACHE_SERVER_PREFIX
         + ".serverattributes";
+
+    /** The content type of a batch of length prefixed requests or responses. */
+    String BATCH_CONTENT_TYPE = "application/x-jcs-batch";
 }
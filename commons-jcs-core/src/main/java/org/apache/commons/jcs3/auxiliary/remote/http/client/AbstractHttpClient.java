@@ -20,6 +20,7 @@ package org.apache.commons.jcs3.auxiliary.remote.http.client;
  */
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
@@ -30,6 +31,7 @@ import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.config.SocketConfig;
 import org.apache.http.impl.client.HttpClientBuilder;
 
 /**
@@ -101,6 +103,23 @@ public abstract class AbstractHttpClient
                 // By default we instruct HttpClient to ignore cookies.
                 .setCookieSpec(CookieSpecs.IGNORE_COOKIES)
                 .build());
+
+        // keep-alive: pooled connections are reused, small requests are not delayed
+        builder.setDefaultSocketConfig(SocketConfig.custom()
+                .setTcpNoDelay(getRemoteHttpCacheAttributes().isTcpNoDelay())
+                .setSoKeepAlive(true)
+                .build());
+
+        if ( getRemoteHttpCacheAttributes().getConnectionTimeToLiveMillis() > 0 )
+        {
+            builder.setConnectionTimeToLive(getRemoteHttpCacheAttributes().getConnectionTimeToLiveMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+        if ( getRemoteHttpCacheAttributes().getIdleConnectionTimeoutMillis() > 0 )
+        {
+            builder.evictIdleConnections(getRemoteHttpCacheAttributes().getIdleConnectionTimeoutMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
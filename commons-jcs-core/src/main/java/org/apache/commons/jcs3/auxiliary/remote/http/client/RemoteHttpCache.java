@@ -20,11 +20,16 @@ package org.apache.commons.jcs3.auxiliary.remote.http.client;
  */
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.jcs3.auxiliary.remote.AbstractRemoteAuxiliaryCache;
 import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheListener;
 import org.apache.commons.jcs3.engine.ZombieCacheServiceNonLocal;
 import org.apache.commons.jcs3.engine.behavior.ICacheServiceNonLocal;
+import org.apache.commons.jcs3.engine.stats.StatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
 
@@ -43,6 +48,9 @@ public class RemoteHttpCache<K, V>
     /** Keep the child copy here for the restore process. */
     private final RemoteHttpCacheAttributes remoteHttpCacheAttributes;
 
+    /** Polls for invalidations, null if not enabled. */
+    private RemoteHttpInvalidationPoller<K, V> invalidationPoller;
+
     /**
      * Constructor for the RemoteCache object. This object communicates with a remote cache server.
      * One of these exists for each region. This also holds a reference to a listener. The same
@@ -94,6 +102,23 @@ public class RemoteHttpCache<K, V>
         throw new IOException( ex.getMessage() );
     }
 
+    /**
+     * Stops the invalidation poller and disposes the listener.
+     * <p>
+     * @throws IOException
+     */
+    @Override
+    protected void processDispose()
+        throws IOException
+    {
+        if ( invalidationPoller != null )
+        {
+            invalidationPoller.dispose();
+        }
+
+        super.processDispose();
+    }
+
     /**
      * @return url of service
      */
@@ -110,4 +135,40 @@ public class RemoteHttpCache<K, V>
     {
         return remoteHttpCacheAttributes;
     }
+
+    /**
+     * @param invalidationPoller the poller feeding the listener, stopped on dispose
+     */
+    public void setInvalidationPoller( final RemoteHttpInvalidationPoller<K, V> invalidationPoller )
+    {
+        this.invalidationPoller = invalidationPoller;
+    }
+
+    /**
+     * @return the invalidation poller, null if not enabled
+     */
+    public RemoteHttpInvalidationPoller<K, V> getInvalidationPoller()
+    {
+        return invalidationPoller;
+    }
+
+    /**
+     * @return IStats object
+     */
+    @Override
+    public IStats getStatistics()
+    {
+        final IStats stats = super.getStatistics();
+
+        if ( invalidationPoller != null )
+        {
+            final List<IStatElement<?>> elems = new ArrayList<>( stats.getStatElements() );
+            elems.add( new StatElement<>( "Invalidation Sequence", Long.valueOf( invalidationPoller.getSequence() ) ) );
+            elems.add( new StatElement<>( "Invalidation Count", Long.valueOf( invalidationPoller.getInvalidationCount() ) ) );
+            elems.add( new StatElement<>( "Invalidation Resync Count", Long.valueOf( invalidationPoller.getResyncCount() ) ) );
+            stats.setStatElements( elems );
+        }
+
+        return stats;
+    }
 }
@@ -55,6 +55,36 @@ public class RemoteHttpCacheAttributes
     /** The complete URL to the service. */
     private String url;
 
+    /** Disable Nagle's algorithm on the connections. */
+    private boolean tcpNoDelay = true;
+
+    /** The maximum lifetime of a pooled connection, 0 for no limit. */
+    private long connectionTimeToLiveMillis = 0;
+
+    /** Close pooled connections idle for longer than this, 0 to keep them. */
+    private long idleConnectionTimeoutMillis = 0;
+
+    /** Combine concurrent requests into batches. */
+    private boolean batchEnabled = false;
+
+    /** The maximum number of requests per batch. */
+    private int maxBatchSize = 100;
+
+    /** The maximum number of batches in flight. */
+    private int maxConcurrentBatches = 2;
+
+    /** Gzip the batches. */
+    private boolean compressBatches = false;
+
+    /** Poll the server for invalidations. */
+    private boolean invalidationEnabled = false;
+
+    /** The socket timeout of the invalidation poll. */
+    private int invalidationSocketTimeoutMillis = 30000;
+
+    /** The pause after a failed invalidation poll. */
+    private long invalidationRetryMillis = 5000;
+
     /** The default classname for the client.  */
     public static final String DEFAULT_REMOTE_HTTP_CLIENT_CLASS_NAME = RemoteHttpCacheClient.class.getName();
 
@@ -205,6 +235,180 @@ public class RemoteHttpCacheAttributes
         return remoteHttpClientClassName;
     }
 
+    /**
+     * @param tcpNoDelay whether to disable Nagle's algorithm
+     */
+    public void setTcpNoDelay( final boolean tcpNoDelay )
+    {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    /**
+     * @return whether to disable Nagle's algorithm
+     */
+    public boolean isTcpNoDelay()
+    {
+        return tcpNoDelay;
+    }
+
+    /**
+     * @param connectionTimeToLiveMillis the maximum lifetime of a pooled connection, 0 for no limit
+     */
+    public void setConnectionTimeToLiveMillis( final long connectionTimeToLiveMillis )
+    {
+        this.connectionTimeToLiveMillis = connectionTimeToLiveMillis;
+    }
+
+    /**
+     * @return the maximum lifetime of a pooled connection, 0 for no limit
+     */
+    public long getConnectionTimeToLiveMillis()
+    {
+        return connectionTimeToLiveMillis;
+    }
+
+    /**
+     * Closing idle connections in the background avoids failures on connections the server has
+     * already dropped. This starts a thread per client.
+     * <p>
+     * @param idleConnectionTimeoutMillis the idle time after which pooled connections are closed, 0 to keep them
+     */
+    public void setIdleConnectionTimeoutMillis( final long idleConnectionTimeoutMillis )
+    {
+        this.idleConnectionTimeoutMillis = idleConnectionTimeoutMillis;
+    }
+
+    /**
+     * @return the idle time after which pooled connections are closed, 0 to keep them
+     */
+    public long getIdleConnectionTimeoutMillis()
+    {
+        return idleConnectionTimeoutMillis;
+    }
+
+    /**
+     * If enabled, requests made while other requests are in flight are collected and sent
+     * together in one http exchange. A request made when the client is idle is sent alone, as
+     * before.
+     * <p>
+     * @param batchEnabled whether to combine concurrent requests
+     */
+    public void setBatchEnabled( final boolean batchEnabled )
+    {
+        this.batchEnabled = batchEnabled;
+    }
+
+    /**
+     * @return whether to combine concurrent requests
+     */
+    public boolean isBatchEnabled()
+    {
+        return batchEnabled;
+    }
+
+    /**
+     * @param maxBatchSize the maximum number of requests per batch
+     */
+    public void setMaxBatchSize( final int maxBatchSize )
+    {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return the maximum number of requests per batch
+     */
+    public int getMaxBatchSize()
+    {
+        return maxBatchSize;
+    }
+
+    /**
+     * @param maxConcurrentBatches the maximum number of batches in flight
+     */
+    public void setMaxConcurrentBatches( final int maxConcurrentBatches )
+    {
+        this.maxConcurrentBatches = maxConcurrentBatches;
+    }
+
+    /**
+     * @return the maximum number of batches in flight
+     */
+    public int getMaxConcurrentBatches()
+    {
+        return maxConcurrentBatches;
+    }
+
+    /**
+     * @param compressBatches whether to gzip the batches
+     */
+    public void setCompressBatches( final boolean compressBatches )
+    {
+        this.compressBatches = compressBatches;
+    }
+
+    /**
+     * @return whether to gzip the batches
+     */
+    public boolean isCompressBatches()
+    {
+        return compressBatches;
+    }
+
+    /**
+     * If enabled, a background thread per region polls the server for the keys changed by other
+     * clients and removes them from the local caches. This allows keeping a local memory cache in
+     * front of the http remote cache.
+     * <p>
+     * @param invalidationEnabled whether to poll for invalidations
+     */
+    public void setInvalidationEnabled( final boolean invalidationEnabled )
+    {
+        this.invalidationEnabled = invalidationEnabled;
+    }
+
+    /**
+     * @return whether to poll for invalidations
+     */
+    public boolean isInvalidationEnabled()
+    {
+        return invalidationEnabled;
+    }
+
+    /**
+     * The server holds an invalidation poll open until there is a change or its poll timeout
+     * expires. This must be larger than the server's InvalidationPollTimeoutMillis.
+     * <p>
+     * @param invalidationSocketTimeoutMillis the socket timeout of the invalidation poll
+     */
+    public void setInvalidationSocketTimeoutMillis( final int invalidationSocketTimeoutMillis )
+    {
+        this.invalidationSocketTimeoutMillis = invalidationSocketTimeoutMillis;
+    }
+
+    /**
+     * @return the socket timeout of the invalidation poll
+     */
+    public int getInvalidationSocketTimeoutMillis()
+    {
+        return invalidationSocketTimeoutMillis;
+    }
+
+    /**
+     * @param invalidationRetryMillis the pause after a failed invalidation poll
+     */
+    public void setInvalidationRetryMillis( final long invalidationRetryMillis )
+    {
+        this.invalidationRetryMillis = invalidationRetryMillis;
+    }
+
+    /**
+     * @return the pause after a failed invalidation poll
+     */
+    public long getInvalidationRetryMillis()
+    {
+        return invalidationRetryMillis;
+    }
+
     /**
      * @return String details
      */
@@ -221,6 +425,12 @@ public class RemoteHttpCacheAttributes
         buf.append( "\n includeKeysAndPatternsAsParameter = [" + isIncludeKeysAndPatternsAsParameter() + "]" );
         buf.append( "\n includeRequestTypeasAsParameter = [" + isIncludeRequestTypeasAsParameter() + "]" );
         buf.append( "\n url = [" + getUrl() + "]" );
+        buf.append( "\n tcpNoDelay = [" + isTcpNoDelay() + "]" );
+        buf.append( "\n batchEnabled = [" + isBatchEnabled() + "]" );
+        buf.append( "\n maxBatchSize = [" + getMaxBatchSize() + "]" );
+        buf.append( "\n compressBatches = [" + isCompressBatches() + "]" );
+        buf.append( "\n invalidationEnabled = [" + isInvalidationEnabled() + "]" );
+        buf.append( "\n invalidationSocketTimeoutMillis = [" + getInvalidationSocketTimeoutMillis() + "]" );
         buf.append( "\n remoteHttpClientClassName = [" + getRemoteHttpClientClassName() + "]" );
         buf.append( super.toString() );
         return buf.toString();
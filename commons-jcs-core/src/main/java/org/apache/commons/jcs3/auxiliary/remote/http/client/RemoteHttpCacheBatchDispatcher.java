@@ -0,0 +1,237 @@
+package org.apache.commons.jcs3.auxiliary.remote.http.client;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteRequestType;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+
+/**
+ * A dispatcher that combines concurrent requests into batches.
+ * <p>
+ * There is no background thread. A calling thread queues its request and, if fewer than
+ * maxConcurrentBatches exchanges are in flight, sends everything queued so far itself, until the
+ * queue is empty. Other callers wait for their response. A request made while the client is idle is
+ * therefore sent alone, and the batches grow with the load.
+ * <p>
+ * Invalidation polls are held open by the server and are never batched.
+ */
+public class RemoteHttpCacheBatchDispatcher
+    extends RemoteHttpCacheDispatcher
+{
+    /** The Logger. */
+    private static final Log log = LogManager.getLog( RemoteHttpCacheBatchDispatcher.class );
+
+    /** A queued request and the future of its response. */
+    private static class PendingRequest
+    {
+        /** the request */
+        final RemoteCacheRequest<?, ?> request;
+
+        /** completed by the sending thread */
+        final CompletableFuture<RemoteCacheResponse<?>> response = new CompletableFuture<>();
+
+        /**
+         * @param request the request
+         */
+        PendingRequest( final RemoteCacheRequest<?, ?> request )
+        {
+            this.request = request;
+        }
+    }
+
+    /** The requests waiting to be sent. */
+    private final Queue<PendingRequest> queue = new ConcurrentLinkedQueue<>();
+
+    /** One permit per exchange allowed in flight. */
+    private final Semaphore senders;
+
+    /** The maximum number of requests per batch. */
+    private final int maxBatchSize;
+
+    /** Number of http exchanges made. */
+    private final AtomicLong exchangeCount = new AtomicLong();
+
+    /** Number of requests sent. */
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /**
+     * @param remoteHttpCacheAttributes
+     * @param serializer the serializer, the server must be configured with the same
+     */
+    public RemoteHttpCacheBatchDispatcher( final RemoteHttpCacheAttributes remoteHttpCacheAttributes,
+                                           final IElementSerializer serializer )
+    {
+        super( remoteHttpCacheAttributes, serializer );
+        this.senders = new Semaphore( Math.max( 1, remoteHttpCacheAttributes.getMaxConcurrentBatches() ) );
+        this.maxBatchSize = Math.max( 1, remoteHttpCacheAttributes.getMaxBatchSize() );
+    }
+
+    /**
+     * Queues the request and waits for its response.
+     * <p>
+     * @param remoteCacheRequest
+     * @return RemoteCacheResponse
+     * @throws IOException
+     */
+    @Override
+    @SuppressWarnings("unchecked") // the response belongs to the request
+    public <K, V, T>
+        RemoteCacheResponse<T> dispatchRequest( final RemoteCacheRequest<K, V> remoteCacheRequest )
+        throws IOException
+    {
+        if ( remoteCacheRequest.getRequestType() == RemoteRequestType.GET_INVALIDATIONS )
+        {
+            return super.dispatchRequest( remoteCacheRequest );
+        }
+
+        final PendingRequest pending = new PendingRequest( remoteCacheRequest );
+        queue.add( pending );
+        sendQueued();
+
+        try
+        {
+            return (RemoteCacheResponse<T>) pending.response.get();
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting for the response.", e );
+        }
+        catch ( final ExecutionException e )
+        {
+            if ( e.getCause() instanceof IOException )
+            {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException( "Problem dispatching request.", e.getCause() );
+        }
+    }
+
+    /**
+     * Sends the queued requests if a sender permit is free. The permit is checked again after each
+     * exchange, so a request queued by a thread that found no free permit is picked up by the
+     * thread holding it.
+     */
+    private void sendQueued()
+    {
+        while ( !queue.isEmpty() && senders.tryAcquire() )
+        {
+            try
+            {
+                final List<PendingRequest> batch = new ArrayList<>();
+                PendingRequest pending;
+                while ( batch.size() < maxBatchSize && ( pending = queue.poll() ) != null )
+                {
+                    batch.add( pending );
+                }
+
+                if ( !batch.isEmpty() )
+                {
+                    send( batch );
+                }
+            }
+            finally
+            {
+                senders.release();
+            }
+        }
+    }
+
+    /**
+     * Sends one batch and completes the futures.
+     * <p>
+     * @param batch the queued requests
+     */
+    private void send( final List<PendingRequest> batch )
+    {
+        exchangeCount.incrementAndGet();
+        requestCount.addAndGet( batch.size() );
+
+        try
+        {
+            if ( batch.size() == 1 )
+            {
+                final PendingRequest pending = batch.get( 0 );
+                pending.response.complete( super.dispatchRequest( pending.request ) );
+                return;
+            }
+
+            final List<RemoteCacheRequest<?, ?>> requests = new ArrayList<>( batch.size() );
+            for ( final PendingRequest pending : batch )
+            {
+                requests.add( pending.request );
+            }
+
+            final List<RemoteCacheResponse<Object>> responses = dispatchBatch( requests );
+            for ( int i = 0; i < batch.size(); i++ )
+            {
+                batch.get( i ).response.complete( responses.get( i ) );
+            }
+        }
+        catch ( final IOException | RuntimeException e )
+        {
+            log.debug( "Batch of {0} requests failed", batch.size(), e );
+            for ( final PendingRequest pending : batch )
+            {
+                pending.response.completeExceptionally( e );
+            }
+        }
+    }
+
+    /**
+     * @return the number of http exchanges made
+     */
+    public long getExchangeCount()
+    {
+        return exchangeCount.get();
+    }
+
+    /**
+     * @return the number of requests sent
+     */
+    public long getRequestCount()
+    {
+        return requestCount.get();
+    }
+
+    /**
+     * @return string with the batching counters
+     */
+    @Override
+    public String toString()
+    {
+        return "RemoteHttpCacheBatchDispatcher exchanges = " + getExchangeCount()
+            + ", requests = " + getRequestCount();
+    }
+}
@@ -28,11 +28,14 @@ import java.util.Set;
 import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheDispatcher;
 import org.apache.commons.jcs3.auxiliary.remote.http.client.behavior.IRemoteHttpCacheClient;
 import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheRequestFactory;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheInvalidations;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 
 /** This is the service used by the remote http auxiliary cache. */
 public class RemoteHttpCacheClient<K, V>
@@ -76,7 +79,26 @@ public class RemoteHttpCacheClient<K, V>
     @Override
     public void initialize( final RemoteHttpCacheAttributes attributes )
     {
-        setRemoteDispatcher( new RemoteHttpCacheDispatcher( attributes ) );
+        initialize( attributes, new StandardSerializer() );
+    }
+
+    /**
+     * Creates a batching dispatcher if batching is enabled, a plain one otherwise.
+     * <p>
+     * @param attributes
+     * @param elementSerializer the serializer used on the wire
+     */
+    @Override
+    public void initialize( final RemoteHttpCacheAttributes attributes, final IElementSerializer elementSerializer )
+    {
+        if ( attributes.isBatchEnabled() )
+        {
+            setRemoteDispatcher( new RemoteHttpCacheBatchDispatcher( attributes, elementSerializer ) );
+        }
+        else
+        {
+            setRemoteDispatcher( new RemoteHttpCacheDispatcher( attributes, elementSerializer ) );
+        }
 
         log.info( "Created remote Dispatcher. {0}", this::getRemoteDispatcher);
         setInitialized( true );
@@ -405,6 +427,42 @@ public class RemoteHttpCacheClient<K, V>
         return Collections.emptySet();
     }
 
+    /**
+     * Get the keys changed on the server after the given sequence number.
+     * <p>
+     * @param cacheName
+     * @param sequence the last sequence number seen, -1 if none
+     * @param requesterId
+     * @return the batch of invalidations
+     * @throws IOException
+     */
+    @Override
+    public RemoteCacheInvalidations<K> getInvalidations( final String cacheName, final long sequence, final long requesterId )
+        throws IOException
+    {
+        if ( !isInitialized() )
+        {
+            final String message = "The Remote Http Client is not initialized.  Cannot process request.";
+            log.warn( message );
+            throw new IOException( message );
+        }
+
+        final RemoteCacheRequest<Long, String> remoteHttpCacheRequest =
+            RemoteCacheRequestFactory.createGetInvalidationsRequest( cacheName, sequence, requesterId );
+
+        final RemoteCacheResponse<RemoteCacheInvalidations<K>> remoteHttpCacheResponse =
+            getRemoteDispatcher().dispatchRequest( remoteHttpCacheRequest );
+
+        if ( remoteHttpCacheResponse == null || !remoteHttpCacheResponse.isSuccess()
+            || remoteHttpCacheResponse.getPayload() == null )
+        {
+            throw new IOException( "Could not get invalidations for [" + cacheName + "]: "
+                + ( remoteHttpCacheResponse == null ? "no response" : remoteHttpCacheResponse.getErrorMessage() ) );
+        }
+
+        return remoteHttpCacheResponse.getPayload();
+    }
+
     /**
      * Make and alive request.
      * <p>
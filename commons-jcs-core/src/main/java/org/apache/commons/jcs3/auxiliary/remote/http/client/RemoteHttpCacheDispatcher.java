@@ -19,21 +19,36 @@ package org.apache.commons.jcs3.auxiliary.remote.http.client;
  * under the License.
  */
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheDispatcher;
+import org.apache.commons.jcs3.auxiliary.remote.http.behavior.IRemoteHttpCacheConstants;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheFrameCodec;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteRequestType;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
 import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 import org.apache.http.HttpException;
 import org.apache.http.HttpResponse;
+import org.apache.http.client.config.CookieSpecs;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.methods.RequestBuilder;
 import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.util.EntityUtils;
 
 /** Calls the service. */
@@ -56,15 +71,95 @@ public class RemoteHttpCacheDispatcher
     /** The Logger. */
     private static final Log log = LogManager.getLog( RemoteHttpCacheDispatcher.class );
 
-    /** This needs to be standard, since the other side is standard */
-    private final StandardSerializer serializer = new StandardSerializer();
+    /** Value of the request type parameter for batches */
+    private static final String BATCH_REQUEST_TYPE = "BATCH";
+
+    /** The content type of batches */
+    private static final ContentType BATCH_CONTENT_TYPE =
+        ContentType.create( IRemoteHttpCacheConstants.BATCH_CONTENT_TYPE );
+
+    /** The wire format, must match the server. */
+    private final IElementSerializer serializer;
 
     /**
      * @param remoteHttpCacheAttributes
      */
     public RemoteHttpCacheDispatcher( final RemoteHttpCacheAttributes remoteHttpCacheAttributes )
+    {
+        this( remoteHttpCacheAttributes, new StandardSerializer() );
+    }
+
+    /**
+     * @param remoteHttpCacheAttributes
+     * @param serializer the serializer, the server must be configured with the same
+     */
+    public RemoteHttpCacheDispatcher( final RemoteHttpCacheAttributes remoteHttpCacheAttributes,
+                                      final IElementSerializer serializer )
     {
         super( remoteHttpCacheAttributes );
+        this.serializer = serializer;
+    }
+
+    /**
+     * Sends many requests in one http exchange. The responses are returned in the order of the
+     * requests.
+     * <p>
+     * @param remoteCacheRequests the requests
+     * @return the responses, one per request
+     * @throws IOException if the exchange fails
+     */
+    public List<RemoteCacheResponse<Object>> dispatchBatch( final List<? extends RemoteCacheRequest<?, ?>> remoteCacheRequests )
+        throws IOException
+    {
+        final boolean compress = getRemoteHttpCacheAttributes().isCompressBatches();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        try (OutputStream target = compress ? new GZIPOutputStream( body ) : body;
+             DataOutputStream out = new DataOutputStream( target ))
+        {
+            for ( final RemoteCacheRequest<?, ?> remoteCacheRequest : remoteCacheRequests )
+            {
+                RemoteCacheFrameCodec.writeFrame( serializer, remoteCacheRequest, out );
+            }
+        }
+
+        final RequestBuilder builder = RequestBuilder.post( getRemoteHttpCacheAttributes().getUrl() )
+            .setCharset( DEFAULT_ENCODING );
+        if ( getRemoteHttpCacheAttributes().isIncludeRequestTypeasAsParameter() )
+        {
+            builder.addParameter( PARAMETER_REQUEST_TYPE, BATCH_REQUEST_TYPE );
+        }
+        if ( compress )
+        {
+            // the response is decompressed by the http client
+            builder.setHeader( "Content-Encoding", "gzip" );
+        }
+        builder.setEntity( new ByteArrayEntity( body.toByteArray(), BATCH_CONTENT_TYPE ) );
+
+        final HttpResponse httpResponse = doWebserviceCall( builder );
+        final List<RemoteCacheResponse<Object>> responses = new ArrayList<>( remoteCacheRequests.size() );
+
+        try (InputStream content = httpResponse.getEntity().getContent();
+             DataInputStream in = new DataInputStream( content ))
+        {
+            RemoteCacheResponse<Object> response;
+            while ( ( response = RemoteCacheFrameCodec.readFrame( serializer, in, null ) ) != null )
+            {
+                responses.add( response );
+            }
+        }
+        catch ( final ClassNotFoundException e )
+        {
+            throw new IOException( "Couldn't deserialize the batch response.", e );
+        }
+
+        if ( responses.size() != remoteCacheRequests.size() )
+        {
+            throw new IOException( "Expected " + remoteCacheRequests.size() + " responses, got " + responses.size() );
+        }
+
+        log.debug( "Dispatched a batch of {0} requests", responses::size );
+        return responses;
     }
 
     /**
@@ -137,6 +232,7 @@ public class RemoteHttpCacheDispatcher
                 case GET:
                 case REMOVE:
                 case GET_KEYSET:
+                case GET_INVALIDATIONS:
                     keyValue = remoteCacheRequest.getKey().toString();
                     break;
                 case GET_MATCHING:
@@ -159,6 +255,16 @@ public class RemoteHttpCacheDispatcher
                 remoteCacheRequest.getRequestType().toString() );
         }
 
+        if ( remoteCacheRequest.getRequestType() == RemoteRequestType.GET_INVALIDATIONS )
+        {
+            // the server holds this request open until something changes
+            builder.setConfig( RequestConfig.custom()
+                .setConnectTimeout( getRemoteHttpCacheAttributes().getConnectionTimeoutMillis() )
+                .setSocketTimeout( getRemoteHttpCacheAttributes().getInvalidationSocketTimeoutMillis() )
+                .setCookieSpec( CookieSpecs.IGNORE_COOKIES )
+                .build() );
+        }
+
         builder.setEntity(new ByteArrayEntity( requestAsByteArray ));
         final HttpResponse httpResponse = doWebserviceCall( builder );
         return EntityUtils.toByteArray( httpResponse.getEntity() );
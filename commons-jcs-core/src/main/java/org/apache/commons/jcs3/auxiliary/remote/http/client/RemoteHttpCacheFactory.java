@@ -19,11 +19,13 @@ package org.apache.commons.jcs3.auxiliary.remote.http.client;
  * under the License.
  */
 
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
 import org.apache.commons.jcs3.auxiliary.AbstractAuxiliaryCacheFactory;
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCache;
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheAttributes;
 import org.apache.commons.jcs3.auxiliary.remote.RemoteCacheNoWait;
-import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheClient;
 import org.apache.commons.jcs3.auxiliary.remote.http.client.behavior.IRemoteHttpCacheClient;
 import org.apache.commons.jcs3.auxiliary.remote.server.behavior.RemoteType;
 import org.apache.commons.jcs3.engine.behavior.ICompositeCacheManager;
@@ -72,13 +74,18 @@ public class RemoteHttpCacheFactory
 
         final RemoteHttpClientListener<K, V> listener = new RemoteHttpClientListener<>( rca, cacheMgr, elementSerializer );
 
-        final IRemoteHttpCacheClient<K, V> remoteService = createRemoteHttpCacheClientForAttributes(rca);
+        final IRemoteHttpCacheClient<K, V> remoteService = createRemoteHttpCacheClientForAttributes( rca, elementSerializer );
 
-        final IRemoteCacheClient<K, V> remoteCacheClient =
+        final RemoteHttpCache<K, V> remoteCacheClient =
                 new RemoteHttpCache<>( rca, remoteService, listener, monitor );
         remoteCacheClient.setCacheEventLogger( cacheEventLogger );
         remoteCacheClient.setElementSerializer( elementSerializer );
 
+        if ( rca.isInvalidationEnabled() )
+        {
+            startInvalidationPoller( rca, remoteService, listener, remoteCacheClient );
+        }
+
         final RemoteCacheNoWait<K, V> remoteCacheNoWait = new RemoteCacheNoWait<>( remoteCacheClient );
         remoteCacheNoWait.setCacheEventLogger( cacheEventLogger );
         remoteCacheNoWait.setElementSerializer( elementSerializer );
@@ -86,6 +93,40 @@ public class RemoteHttpCacheFactory
         return remoteCacheNoWait;
     }
 
+    /**
+     * Starts polling the server for the keys changed by other clients. The listener gets a random
+     * id so that the server can leave out the changes made by this client.
+     * <p>
+     * @param rca the cache configuration
+     * @param remoteService the client used to poll
+     * @param listener removes the changed keys locally
+     * @param remoteCache the cache owning the poller
+     */
+    protected <K, V> void startInvalidationPoller( final RemoteHttpCacheAttributes rca,
+            final IRemoteHttpCacheClient<K, V> remoteService, final RemoteHttpClientListener<K, V> listener,
+            final RemoteHttpCache<K, V> remoteCache )
+    {
+        try
+        {
+            long listenerId = 0;
+            while ( listenerId == 0 )
+            {
+                listenerId = ThreadLocalRandom.current().nextLong();
+            }
+            listener.setListenerId( listenerId );
+        }
+        catch ( final IOException e )
+        {
+            // cannot happen, the http listener is local
+            log.warn( "Could not set listener id", e );
+        }
+
+        final RemoteHttpInvalidationPoller<K, V> poller = new RemoteHttpInvalidationPoller<>(
+                rca.getCacheName(), remoteService, listener, rca.getInvalidationRetryMillis() );
+        remoteCache.setInvalidationPoller( poller );
+        poller.start();
+    }
+
     /**
      * This is an extension point. The manager and other classes will only create
      * RemoteHttpCacheClient through this method.
@@ -94,6 +135,20 @@ public class RemoteHttpCacheFactory
      * @return the client instance
      */
     protected <V, K> IRemoteHttpCacheClient<K, V> createRemoteHttpCacheClientForAttributes(final RemoteHttpCacheAttributes cattr)
+    {
+        return createRemoteHttpCacheClientForAttributes( cattr, null );
+    }
+
+    /**
+     * This is an extension point. The manager and other classes will only create
+     * RemoteHttpCacheClient through this method.
+
+     * @param cattr the cache configuration
+     * @param elementSerializer the serializer used on the wire, null for the standard one
+     * @return the client instance
+     */
+    protected <V, K> IRemoteHttpCacheClient<K, V> createRemoteHttpCacheClientForAttributes(final RemoteHttpCacheAttributes cattr,
+            final IElementSerializer elementSerializer)
     {
         IRemoteHttpCacheClient<K, V> remoteService = OptionConverter.instantiateByClassName( cattr
                         .getRemoteHttpClientClassName(), null );
@@ -105,7 +160,14 @@ public class RemoteHttpCacheFactory
             remoteService = new RemoteHttpCacheClient<>();
         }
 
-        remoteService.initialize( cattr );
+        if ( elementSerializer == null )
+        {
+            remoteService.initialize( cattr );
+        }
+        else
+        {
+            remoteService.initialize( cattr, elementSerializer );
+        }
         return remoteService;
     }
 
@@ -104,7 +104,7 @@ public class RemoteHttpCacheMonitor extends AbstractAuxiliaryCacheMonitor
                     final RemoteHttpCacheAttributes attributes = remoteCache.getRemoteHttpCacheAttributes();
 
                     final IRemoteHttpCacheClient<Serializable, Serializable> remoteService =
-                            factory.createRemoteHttpCacheClientForAttributes( attributes );
+                            factory.createRemoteHttpCacheClientForAttributes( attributes, remoteCache.getElementSerializer() );
 
                     if ( log.isInfoEnabled() )
                     {
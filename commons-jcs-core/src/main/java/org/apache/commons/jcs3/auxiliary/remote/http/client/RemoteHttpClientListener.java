@@ -24,7 +24,10 @@ import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheAttributes;
 import org.apache.commons.jcs3.engine.behavior.ICompositeCacheManager;
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 
-/** Does nothing */
+/**
+ * Receives no calls from the server. If invalidation is enabled, a RemoteHttpInvalidationPoller
+ * feeds it the keys changed by other clients, which are then removed locally.
+ */
 public class RemoteHttpClientListener<K, V>
     extends AbstractRemoteCacheListener<K, V>
 {
@@ -0,0 +1,228 @@
+package org.apache.commons.jcs3.auxiliary.remote.http.client;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheListener;
+import org.apache.commons.jcs3.auxiliary.remote.http.client.behavior.IRemoteHttpCacheClient;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheInvalidations;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.threadpool.DaemonThreadFactory;
+
+/**
+ * Polls the http cache server for the keys of a region changed by other clients and hands them to
+ * the listener, which removes them from the local caches.
+ * <p>
+ * The server answers a poll as soon as something changed, or after its poll timeout. Every batch
+ * carries the sequence number to send next. The first poll only fetches the current sequence
+ * number. If the server later reports a gap, or was restarted, all local data of the region is
+ * dropped, since some changes may have been missed.
+ */
+public class RemoteHttpInvalidationPoller<K, V>
+    implements Runnable
+{
+    /** The logger. */
+    private static final Log log = LogManager.getLog( RemoteHttpInvalidationPoller.class );
+
+    /** The region */
+    private final String cacheName;
+
+    /** The client used to poll. */
+    private final IRemoteHttpCacheClient<K, V> client;
+
+    /** Applies the invalidations locally. */
+    private final IRemoteCacheListener<K, V> listener;
+
+    /** The pause after a failed poll. */
+    private final long retryMillis;
+
+    /** The polling thread. */
+    private Thread thread;
+
+    /** Set on dispose. */
+    private volatile boolean alive = true;
+
+    /** The last sequence number received, -1 if none. */
+    private long sequence = -1;
+
+    /** The epoch of the server log, 0 if none. */
+    private long epoch;
+
+    /** Number of keys invalidated. */
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /** Number of times the whole region was dropped. */
+    private final AtomicLong resyncCount = new AtomicLong();
+
+    /**
+     * @param cacheName the region
+     * @param client the client used to poll
+     * @param listener applies the invalidations locally
+     * @param retryMillis the pause after a failed poll
+     */
+    public RemoteHttpInvalidationPoller( final String cacheName, final IRemoteHttpCacheClient<K, V> client,
+            final IRemoteCacheListener<K, V> listener, final long retryMillis )
+    {
+        this.cacheName = cacheName;
+        this.client = client;
+        this.listener = listener;
+        this.retryMillis = retryMillis;
+    }
+
+    /**
+     * Starts the polling thread.
+     */
+    public synchronized void start()
+    {
+        if ( thread == null )
+        {
+            thread = new DaemonThreadFactory( "JCS-RemoteHttpInvalidationPoller-" + cacheName + "-" ).newThread( this );
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the polling thread.
+     */
+    public synchronized void dispose()
+    {
+        alive = false;
+        if ( thread != null )
+        {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /** Polls until disposed. */
+    @Override
+    public void run()
+    {
+        while ( alive )
+        {
+            try
+            {
+                poll();
+            }
+            catch ( final IOException e )
+            {
+                if ( !alive )
+                {
+                    break;
+                }
+
+                log.warn( "Problem polling invalidations for [{0}], retrying in {1} ms: {2}",
+                        cacheName, retryMillis, e.getMessage() );
+                try
+                {
+                    Thread.sleep( retryMillis );
+                }
+                catch ( final InterruptedException ie )
+                {
+                    break;
+                }
+            }
+        }
+
+        log.info( "Invalidation poller for [{0}] stopped", cacheName );
+    }
+
+    /**
+     * Makes one poll and applies the result.
+     * <p>
+     * @throws IOException if the server could not be reached
+     */
+    protected void poll()
+        throws IOException
+    {
+        final RemoteCacheInvalidations<K> batch =
+                client.getInvalidations( cacheName, sequence, listener.getListenerId() );
+
+        log.debug( "Got invalidations for [{0}]: {1}", cacheName, batch );
+
+        apply( batch );
+    }
+
+    /**
+     * Removes the changed keys locally, or everything if the client is out of sync.
+     * <p>
+     * @param batch the invalidations
+     * @throws IOException
+     */
+    protected void apply( final RemoteCacheInvalidations<K> batch )
+        throws IOException
+    {
+        final boolean restarted = epoch != 0 && epoch != batch.getEpoch();
+
+        if ( batch.isResync() && sequence < 0 )
+        {
+            // the first poll only establishes the starting point, like a new RMI listener
+            log.debug( "Starting invalidations of [{0}] at {1}", cacheName, batch.getSequence() );
+        }
+        else if ( batch.isResync() || batch.isRemoveAll() || restarted )
+        {
+            if ( batch.isResync() || restarted )
+            {
+                log.info( "Dropping local data of [{0}], resync = {1}, restarted = {2}",
+                        cacheName, batch.isResync(), restarted );
+                resyncCount.incrementAndGet();
+            }
+            listener.handleRemoveAll( cacheName );
+        }
+        else
+        {
+            for ( final K key : batch.getKeys() )
+            {
+                listener.handleRemove( cacheName, key );
+            }
+            invalidationCount.addAndGet( batch.getKeys().size() );
+        }
+
+        epoch = batch.getEpoch();
+        sequence = batch.getSequence();
+    }
+
+    /**
+     * @return the last sequence number received, -1 if none
+     */
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * @return the number of keys invalidated
+     */
+    public long getInvalidationCount()
+    {
+        return invalidationCount.get();
+    }
+
+    /**
+     * @return the number of times the local data of the region was dropped
+     */
+    public long getResyncCount()
+    {
+        return resyncCount.get();
+    }
+}
@@ -22,6 +22,8 @@ package org.apache.commons.jcs3.auxiliary.remote.http.client.behavior;
 import java.io.IOException;
 
 import org.apache.commons.jcs3.auxiliary.remote.http.client.RemoteHttpCacheAttributes;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheInvalidations;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.engine.behavior.ICacheServiceNonLocal;
 
 
@@ -40,6 +42,18 @@ public interface IRemoteHttpCacheClient<K, V>
      */
     void initialize( RemoteHttpCacheAttributes attributes );
 
+    /**
+     * Initializes the client with the serializer to use on the wire. The default ignores the
+     * serializer.
+     * <p>
+     * @param attributes
+     * @param elementSerializer the serializer of the region, the server must use the same
+     */
+    default void initialize( final RemoteHttpCacheAttributes attributes, final IElementSerializer elementSerializer )
+    {
+        initialize( attributes );
+    }
+
     /**
      * Make and alive request.
      * <p>
@@ -48,4 +62,20 @@ public interface IRemoteHttpCacheClient<K, V>
      */
     boolean isAlive()
         throws IOException;
+
+    /**
+     * Gets the keys changed on the server after the given sequence number. The server may hold
+     * the request open until there is a change.
+     * <p>
+     * @param cacheName the region
+     * @param sequence the last sequence number seen, -1 if none
+     * @param requesterId the listener id of this client
+     * @return the batch of invalidations
+     * @throws IOException if the server cannot be reached or does not support invalidations
+     */
+    default RemoteCacheInvalidations<K> getInvalidations( final String cacheName, final long sequence, final long requesterId )
+        throws IOException
+    {
+        throw new IOException( "Invalidations are not supported by " + getClass().getName() );
+    }
 }
@@ -20,6 +20,7 @@ package org.apache.commons.jcs3.auxiliary.remote.http.server;
  */
 
 import org.apache.commons.jcs3.auxiliary.AbstractAuxiliaryCacheAttributes;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheFrameCodec;
 
 /**
  * Configuration for the RemoteHttpCacheServer. Most of these properties are used only by the
@@ -37,6 +38,21 @@ public class RemoteHttpCacheServerAttributes
     /** Can a cluster remote get from other remotes */
     private boolean allowClusterGet = true;
 
+    /** The number of changes kept per region for polling clients, 0 disables the log. */
+    private int invalidationLogSize = 10000;
+
+    /** How long a poll for invalidations waits for a change. */
+    private long invalidationPollTimeoutMillis = 15000;
+
+    /** The largest request frame accepted in a batch. */
+    private int maxFrameSize = RemoteCacheFrameCodec.DEFAULT_MAX_FRAME_SIZE;
+
+    /** The largest number of requests accepted in a batch. */
+    private int maxBatchFrames = 10000;
+
+    /** The largest batch accepted, in bytes once uncompressed. */
+    private long maxBatchBytes = 64L * 1024 * 1024;
+
     /**
      * Should cluster updates be propagated to the locals
      * <p>
@@ -77,6 +93,100 @@ public class RemoteHttpCacheServerAttributes
         allowClusterGet = r;
     }
 
+    /**
+     * The number of changes kept per region for clients polling for invalidations. A client that
+     * falls further behind has to drop its local copy of the region.
+     * <p>
+     * @return the invalidationLogSize value, 0 if disabled
+     */
+    public int getInvalidationLogSize()
+    {
+        return invalidationLogSize;
+    }
+
+    /**
+     * @param invalidationLogSize the number of changes kept per region, 0 to disable
+     */
+    public void setInvalidationLogSize( final int invalidationLogSize )
+    {
+        this.invalidationLogSize = invalidationLogSize;
+    }
+
+    /**
+     * How long a poll for invalidations is held open when there are no changes. Clients must use
+     * a larger socket timeout.
+     * <p>
+     * @return the invalidationPollTimeoutMillis value
+     */
+    public long getInvalidationPollTimeoutMillis()
+    {
+        return invalidationPollTimeoutMillis;
+    }
+
+    /**
+     * @param invalidationPollTimeoutMillis how long a poll waits for a change
+     */
+    public void setInvalidationPollTimeoutMillis( final long invalidationPollTimeoutMillis )
+    {
+        this.invalidationPollTimeoutMillis = invalidationPollTimeoutMillis;
+    }
+
+    /**
+     * @return the largest request frame accepted in a batch, in bytes
+     */
+    public int getMaxFrameSize()
+    {
+        return maxFrameSize;
+    }
+
+    /**
+     * Batches holding a larger frame are refused with 413 before the frame is read.
+     * <p>
+     * @param maxFrameSize the largest request frame accepted in a batch
+     */
+    public void setMaxFrameSize( final int maxFrameSize )
+    {
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * @return the largest number of requests accepted in a batch
+     */
+    public int getMaxBatchFrames()
+    {
+        return maxBatchFrames;
+    }
+
+    /**
+     * Batches holding more requests are refused with 413. It should be at least the
+     * MaxBatchSize of the clients.
+     * <p>
+     * @param maxBatchFrames the largest number of requests accepted in a batch
+     */
+    public void setMaxBatchFrames( final int maxBatchFrames )
+    {
+        this.maxBatchFrames = maxBatchFrames;
+    }
+
+    /**
+     * @return the largest batch accepted, in bytes once uncompressed
+     */
+    public long getMaxBatchBytes()
+    {
+        return maxBatchBytes;
+    }
+
+    /**
+     * Larger batches are refused with 413, before reading them if the request announces its
+     * length.
+     * <p>
+     * @param maxBatchBytes the largest batch accepted, in bytes once uncompressed
+     */
+    public void setMaxBatchBytes( final long maxBatchBytes )
+    {
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
     /**
      * @return String details
      */
@@ -88,6 +198,11 @@ public class RemoteHttpCacheServerAttributes
         buf.append( "\n cacheName = [" + this.getCacheName() + "]" );
         buf.append( "\n allowClusterGet = [" + this.isAllowClusterGet() + "]" );
         buf.append( "\n localClusterConsistency = [" + this.isLocalClusterConsistency() + "]" );
+        buf.append( "\n invalidationLogSize = [" + this.getInvalidationLogSize() + "]" );
+        buf.append( "\n invalidationPollTimeoutMillis = [" + this.getInvalidationPollTimeoutMillis() + "]" );
+        buf.append( "\n maxFrameSize = [" + this.getMaxFrameSize() + "]" );
+        buf.append( "\n maxBatchFrames = [" + this.getMaxBatchFrames() + "]" );
+        buf.append( "\n maxBatchBytes = [" + this.getMaxBatchBytes() + "]" );
         buf.append( "\n eventQueueType = [" + this.getEventQueueType() + "]" );
         buf.append( "\n eventQueuePoolName = [" + this.getEventQueuePoolName() + "]" );
         return buf.toString();
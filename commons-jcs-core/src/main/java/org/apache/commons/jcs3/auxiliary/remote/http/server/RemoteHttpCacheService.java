@@ -22,7 +22,10 @@ package org.apache.commons.jcs3.auxiliary.remote.http.server;
 import java.io.IOException;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheInvalidations;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICompositeCacheManager;
 import org.apache.commons.jcs3.engine.control.CompositeCache;
@@ -32,8 +35,8 @@ import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
  * This does the work. It's called by the processor. The base class wraps the processing calls in
  * event logs, if an event logger is present.
  * <p>
- * For now we assume that all clients are non-cluster clients. And listener notification is not
- * supported.
+ * For now we assume that all clients are non-cluster clients. Listeners are not called back.
+ * Instead, updates and removes are recorded in a per region invalidation log that clients poll.
  */
 public class RemoteHttpCacheService<K, V>
     extends AbstractRemoteCacheService<K, V>
@@ -44,6 +47,9 @@ public class RemoteHttpCacheService<K, V>
     /** The configuration */
     private final RemoteHttpCacheServerAttributes remoteHttpCacheServerAttributes;
 
+    /** The invalidation logs by region name. */
+    private final ConcurrentMap<String, RemoteHttpInvalidationLog<K>> invalidationLogs = new ConcurrentHashMap<>();
+
     /**
      * Create a process with a cache manager.
      * <p>
@@ -162,6 +168,11 @@ public class RemoteHttpCacheService<K, V>
         {
             cache.update( item );
         }
+
+        if ( isInvalidationLogEnabled() )
+        {
+            getInvalidationLog( item.getCacheName() ).recordRemove( item.getKey(), requesterId );
+        }
     }
 
     /**
@@ -190,6 +201,11 @@ public class RemoteHttpCacheService<K, V>
         {
             cache.remove( key );
         }
+
+        if ( isInvalidationLogEnabled() )
+        {
+            getInvalidationLog( cacheName ).recordRemove( key, requesterId );
+        }
     }
 
     /**
@@ -217,6 +233,59 @@ public class RemoteHttpCacheService<K, V>
         {
             cache.removeAll();
         }
+
+        if ( isInvalidationLogEnabled() )
+        {
+            getInvalidationLog( cacheName ).recordRemoveAll( requesterId );
+        }
+    }
+
+    /**
+     * Gets the changes made to the region after the given sequence number, waiting up to the
+     * configured poll timeout if there are none yet.
+     * <p>
+     * @param cacheName
+     * @param sequence the last sequence number seen by the requester, -1 if none
+     * @param requesterId
+     * @return the batch of invalidations
+     * @throws IOException if the invalidation log is disabled or the wait was interrupted
+     */
+    public RemoteCacheInvalidations<K> getInvalidations( final String cacheName, final long sequence, final long requesterId )
+        throws IOException
+    {
+        if ( !isInvalidationLogEnabled() )
+        {
+            throw new IOException( "The invalidation log is disabled." );
+        }
+
+        try
+        {
+            return getInvalidationLog( cacheName ).getInvalidations( sequence, requesterId,
+                    remoteHttpCacheServerAttributes.getInvalidationPollTimeoutMillis() );
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting for invalidations.", e );
+        }
+    }
+
+    /**
+     * @param cacheName
+     * @return the invalidation log of the region, created on first use
+     */
+    protected RemoteHttpInvalidationLog<K> getInvalidationLog( final String cacheName )
+    {
+        return invalidationLogs.computeIfAbsent( cacheName,
+                name -> new RemoteHttpInvalidationLog<>( remoteHttpCacheServerAttributes.getInvalidationLogSize() ) );
+    }
+
+    /**
+     * @return true if changes are recorded for polling clients
+     */
+    private boolean isInvalidationLogEnabled()
+    {
+        return remoteHttpCacheServerAttributes.getInvalidationLogSize() > 0;
     }
 
     /**
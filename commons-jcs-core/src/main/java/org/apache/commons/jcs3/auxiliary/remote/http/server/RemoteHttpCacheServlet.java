@@ -19,14 +19,23 @@ package org.apache.commons.jcs3.auxiliary.remote.http.server;
  * under the License.
  */
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -37,11 +46,14 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.jcs3.access.exception.CacheException;
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheConfigurator;
 import org.apache.commons.jcs3.auxiliary.remote.http.behavior.IRemoteHttpCacheConstants;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheFrameCodec;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheFrameTooLargeException;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICacheServiceNonLocal;
 import org.apache.commons.jcs3.engine.behavior.ICompositeCacheManager;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.engine.control.CompositeCacheManager;
 import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
 import org.apache.commons.jcs3.log.Log;
@@ -52,6 +64,13 @@ import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 /**
  * This servlet simply reads and writes objects. The requests are packaged in a general wrapper. The
  * processor works on the wrapper object and returns a response wrapper.
+ * <p>
+ * A post with the content type {@link IRemoteHttpCacheConstants#BATCH_CONTENT_TYPE} carries many
+ * length prefixed requests. The responses are written back in the same order and format. A gzip
+ * compressed batch gets a gzip compressed answer.
+ * <p>
+ * Requests and responses are serialized with the serializer configured as
+ * jcs.remotehttpcache.serializer, by default the StandardSerializer. Clients must use the same.
  */
 public class RemoteHttpCacheServlet
     extends HttpServlet
@@ -68,8 +87,11 @@ public class RemoteHttpCacheServlet
     /** The service that does the work. */
     private static ICacheServiceNonLocal<Serializable, Serializable> remoteCacheService;
 
-    /** This needs to be standard, since the other side is standard */
-    private final StandardSerializer serializer = new StandardSerializer();
+    /** The wire format, must match the clients. */
+    private IElementSerializer serializer = new StandardSerializer();
+
+    /** The limits of the batches. */
+    private RemoteHttpCacheServerAttributes serverAttributes = new RemoteHttpCacheServerAttributes();
 
     /** Number of service calls. */
     private int serviceCalls;
@@ -99,6 +121,8 @@ public class RemoteHttpCacheServlet
         }
 
         remoteCacheService = createRemoteHttpCacheService( cacheMgr );
+        serializer = configureElementSerializer( cacheMgr.getConfigurationProperties() );
+        serverAttributes = configureRemoteHttpCacheServerAttributes( cacheMgr.getConfigurationProperties() );
 
         super.init( config );
     }
@@ -118,12 +142,133 @@ public class RemoteHttpCacheServlet
         incrementServiceCallCount();
         log.debug( "Servicing a request. {0}", request );
 
+        final String contentType = request.getContentType();
+        if ( contentType != null && contentType.startsWith( IRemoteHttpCacheConstants.BATCH_CONTENT_TYPE ) )
+        {
+            serviceBatch( request, response );
+            return;
+        }
+
         final RemoteCacheRequest<Serializable, Serializable> remoteRequest = readRequest( request );
         final RemoteCacheResponse<Object> cacheResponse = processRequest( remoteRequest );
 
         writeResponse( response, cacheResponse );
     }
 
+    /**
+     * Read all requests of a batch, process them in order and stream the responses back.
+     * <p>
+     * The requests are read completely before the first response is written, so that neither
+     * side can block writing while the other is not reading. A batch above the MaxFrameSize,
+     * MaxBatchFrames or MaxBatchBytes of the server attributes is refused with 413 before the
+     * offending frame is allocated, a malformed batch with 400.
+     * <p>
+     * @param request
+     * @param response
+     * @throws IOException
+     */
+    protected void serviceBatch( final HttpServletRequest request, final HttpServletResponse response )
+        throws IOException
+    {
+        final boolean compressed = "gzip".equalsIgnoreCase( request.getHeader( "Content-Encoding" ) );
+        final List<RemoteCacheRequest<Serializable, Serializable>> requests = new ArrayList<>();
+        final RemoteHttpCacheServerAttributes limits = serverAttributes;
+
+        // the compressed length is a lower bound of the batch size
+        final int contentLength = request.getContentLength();
+        if ( contentLength > limits.getMaxBatchBytes() )
+        {
+            refuseBatch( response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                    "Batch of " + contentLength + " bytes is above the limit of " + limits.getMaxBatchBytes() );
+            return;
+        }
+
+        try (InputStream raw = request.getInputStream();
+             DataInputStream in = new DataInputStream( new BufferedInputStream(
+                 compressed ? new GZIPInputStream( raw ) : raw ) ))
+        {
+            long batchBytes = 0;
+            while ( true )
+            {
+                if ( requests.size() >= limits.getMaxBatchFrames() )
+                {
+                    if ( in.read() != -1 )
+                    {
+                        refuseBatch( response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                                "Batch holds more than " + limits.getMaxBatchFrames() + " requests" );
+                        return;
+                    }
+                    break;
+                }
+
+                // a frame may use what is left of the batch, less its length
+                final int maxFrameSize = (int) Math.max( -1,
+                        Math.min( limits.getMaxFrameSize(), limits.getMaxBatchBytes() - batchBytes - 4 ) );
+                final byte[] bytes = RemoteCacheFrameCodec.readFrameBytes( in, maxFrameSize );
+                if ( bytes == null )
+                {
+                    break;
+                }
+                batchBytes += 4 + bytes.length;
+
+                RemoteCacheRequest<Serializable, Serializable> remoteRequest = null;
+                try
+                {
+                    remoteRequest = serializer.deSerialize( bytes, null );
+                }
+                catch ( final ClassNotFoundException e )
+                {
+                    // keep the position, processRequest answers null with an error
+                    log.error( "Could not read a request of the batch.", e );
+                }
+                requests.add( remoteRequest );
+            }
+        }
+        catch ( final RemoteCacheFrameTooLargeException e )
+        {
+            refuseBatch( response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage() );
+            return;
+        }
+        catch ( final IOException e )
+        {
+            refuseBatch( response, HttpServletResponse.SC_BAD_REQUEST, "Malformed batch: " + e.getMessage() );
+            return;
+        }
+
+        log.debug( "Servicing a batch of {0} requests.", requests.size() );
+
+        response.setContentType( IRemoteHttpCacheConstants.BATCH_CONTENT_TYPE );
+        if ( compressed )
+        {
+            response.setHeader( "Content-Encoding", "gzip" );
+        }
+
+        try (OutputStream raw = response.getOutputStream();
+             DataOutputStream out = new DataOutputStream( new BufferedOutputStream(
+                 compressed ? new GZIPOutputStream( raw ) : raw ) ))
+        {
+            for ( final RemoteCacheRequest<Serializable, Serializable> remoteRequest : requests )
+            {
+                RemoteCacheFrameCodec.writeFrame( serializer, processRequest( remoteRequest ), out );
+            }
+        }
+    }
+
+    /**
+     * Answers a batch with an error instead of processing it.
+     * <p>
+     * @param response
+     * @param status the HTTP status
+     * @param message the reason
+     * @throws IOException
+     */
+    private void refuseBatch( final HttpServletResponse response, final int status, final String message )
+        throws IOException
+    {
+        log.warn( "Refusing batch: {0}", message );
+        response.sendError( status, message );
+    }
+
     /**
      * Read the request from the input stream.
      * <p>
@@ -158,7 +303,16 @@ public class RemoteHttpCacheServlet
     protected RemoteCacheRequest<Serializable, Serializable> readRequestFromStream( final InputStream inputStream )
         throws IOException, ClassNotFoundException
     {
-        return serializer.deSerializeFrom(inputStream, null);
+        // the client sends the plain serialized request, without a length prefix
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ( ( read = inputStream.read( buffer ) ) != -1 )
+        {
+            bytes.write( buffer, 0, read );
+        }
+
+        return serializer.deSerialize( bytes.toByteArray(), null );
     }
 
     /**
@@ -172,7 +326,7 @@ public class RemoteHttpCacheServlet
         try (final OutputStream outputStream = response.getOutputStream())
         {
             response.setContentType( "application/octet-stream" );
-            serializer.serializeTo(cacheResponse, outputStream);
+            outputStream.write( serializer.serialize( cacheResponse ) );
         }
         catch ( final IOException e )
         {
@@ -242,6 +396,19 @@ public class RemoteHttpCacheServlet
                         final Set<Serializable> keys = remoteCacheService.getKeySet( request.getCacheName() );
                         response.setPayload( keys );
                         break;
+                    case GET_INVALIDATIONS:
+                        if ( remoteCacheService instanceof RemoteHttpCacheService )
+                        {
+                            final long sequence = ((Long) request.getKey()).longValue();
+                            response.setPayload( ((RemoteHttpCacheService<Serializable, Serializable>) remoteCacheService)
+                                    .getInvalidations( request.getCacheName(), sequence, request.getRequesterId() ) );
+                        }
+                        else
+                        {
+                            response.setSuccess( false );
+                            response.setErrorMessage( "Invalidations are not supported by " + remoteCacheService );
+                        }
+                        break;
                     default:
                         final String message = "Unknown event type.  Cannot process " + request;
                         log.warn( message );
@@ -279,6 +446,20 @@ public class RemoteHttpCacheServlet
         return service;
     }
 
+    /**
+     * Gets the serializer used on the wire.
+     * <p>
+     * jcs.remotehttpcache.serializer=CLASSNAME
+     * <p>
+     * @param props
+     * @return the configured serializer, StandardSerializer if none
+     */
+    protected IElementSerializer configureElementSerializer( final Properties props )
+    {
+        return AuxiliaryCacheConfigurator
+            .parseElementSerializer( props, IRemoteHttpCacheConstants.HTTP_CACHE_SERVER_PREFIX );
+    }
+
     /**
      * Tries to get the event logger.
      * <p>
@@ -319,6 +500,14 @@ public class RemoteHttpCacheServlet
         remoteCacheService = rcs;
     }
 
+    /**
+     * @param serverAttributes the attributes holding the limits of the batches
+     */
+    protected void setServerAttributes(final RemoteHttpCacheServerAttributes serverAttributes)
+    {
+        this.serverAttributes = serverAttributes;
+    }
+
     /**
      * Log some details.
      */
@@ -0,0 +1,190 @@
+package org.apache.commons.jcs3.auxiliary.remote.http.server;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheInvalidations;
+
+/**
+ * A bounded log of the changes made to one region through the http service. Every change gets the
+ * next sequence number. Clients poll with the last sequence number they have seen and get the
+ * changed keys back in one batch. A poll that finds nothing new waits for a change, up to a time
+ * limit, so that clients learn about changes without polling in a tight loop.
+ * <p>
+ * Only the last <i>capacity</i> changes are kept. A client that falls further behind, or that
+ * starts polling for the first time, is told to resync.
+ */
+public class RemoteHttpInvalidationLog<K>
+{
+    /** Marks a removeAll in the log. */
+    private static final Object REMOVE_ALL = new Object();
+
+    /** Identifies this log instance. */
+    private final long epoch = System.currentTimeMillis();
+
+    /** The changed keys, indexed by sequence modulo capacity. */
+    private final Object[] keys;
+
+    /** The source of each change, indexed like the keys. */
+    private final long[] requesterIds;
+
+    /** The sequence number of the last change, 0 if none. */
+    private long sequence;
+
+    /**
+     * @param capacity the number of changes kept, at least 1
+     */
+    public RemoteHttpInvalidationLog( final int capacity )
+    {
+        this.keys = new Object[Math.max( 1, capacity )];
+        this.requesterIds = new long[keys.length];
+    }
+
+    /**
+     * Records that a key was updated or removed.
+     * <p>
+     * @param key the changed key
+     * @param requesterId the source of the change
+     */
+    public synchronized void recordRemove( final K key, final long requesterId )
+    {
+        record( key, requesterId );
+    }
+
+    /**
+     * Records that the region was cleared.
+     * <p>
+     * @param requesterId the source of the change
+     */
+    public synchronized void recordRemoveAll( final long requesterId )
+    {
+        record( REMOVE_ALL, requesterId );
+    }
+
+    /**
+     * Gets the changes made after the given sequence number. Changes made by the requester itself
+     * are skipped. If there are none, waits up to maxWaitMillis for one.
+     * <p>
+     * @param since the last sequence number seen by the requester, negative if none
+     * @param requesterId the id of the polling client, 0 if unknown
+     * @param maxWaitMillis the maximum time to wait for a change
+     * @return the batch, never null
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @SuppressWarnings("unchecked") // only K and REMOVE_ALL are stored
+    public synchronized RemoteCacheInvalidations<K> getInvalidations( final long since, final long requesterId,
+            final long maxWaitMillis )
+        throws InterruptedException
+    {
+        final RemoteCacheInvalidations<K> result = new RemoteCacheInvalidations<>();
+        result.setEpoch( epoch );
+
+        if ( since < 0 || since > sequence || since < sequence - keys.length )
+        {
+            result.setResync( true );
+            result.setSequence( sequence );
+            return result;
+        }
+
+        final long deadline = System.currentTimeMillis() + maxWaitMillis;
+        long remaining = maxWaitMillis;
+        while ( sequence == since && remaining > 0 )
+        {
+            wait( remaining );
+            remaining = deadline - System.currentTimeMillis();
+        }
+
+        if ( since < sequence - keys.length )
+        {
+            // overrun while waiting
+            result.setResync( true );
+            result.setSequence( sequence );
+            return result;
+        }
+
+        final Set<K> changed = new LinkedHashSet<>();
+        for ( long s = since + 1; s <= sequence; s++ )
+        {
+            final int index = index( s );
+            if ( requesterId != 0 && requesterIds[index] == requesterId )
+            {
+                continue;
+            }
+
+            if ( keys[index] == REMOVE_ALL )
+            {
+                result.setRemoveAll( true );
+            }
+            else
+            {
+                changed.add( (K) keys[index] );
+            }
+        }
+
+        if ( !result.isRemoveAll() )
+        {
+            result.getKeys().addAll( changed );
+        }
+        result.setSequence( sequence );
+        return result;
+    }
+
+    /**
+     * @return the sequence number of the last change
+     */
+    public synchronized long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * @return the identifier of this log instance
+     */
+    public long getEpoch()
+    {
+        return epoch;
+    }
+
+    /**
+     * Appends a change and wakes up the waiting pollers.
+     * <p>
+     * @param key the key or REMOVE_ALL
+     * @param requesterId the source of the change
+     */
+    private void record( final Object key, final long requesterId )
+    {
+        sequence++;
+        final int index = index( sequence );
+        keys[index] = key;
+        requesterIds[index] = requesterId;
+        notifyAll();
+    }
+
+    /**
+     * @param s a sequence number
+     * @return the slot of the sequence number
+     */
+    private int index( final long s )
+    {
+        return (int) ( s % keys.length );
+    }
+}
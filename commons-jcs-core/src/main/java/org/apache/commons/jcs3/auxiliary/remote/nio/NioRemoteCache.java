@@ -0,0 +1,132 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.jcs3.auxiliary.remote.AbstractRemoteAuxiliaryCache;
+import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheListener;
+import org.apache.commons.jcs3.engine.stats.StatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+
+/**
+ * This uses an NIO client as the service. The client reconnects by itself, so failures are only
+ * reported; there is no zombie and no monitor.
+ */
+public class NioRemoteCache<K, V>
+    extends AbstractRemoteAuxiliaryCache<K, V>
+{
+    /** The logger. */
+    private static final Log log = LogManager.getLog( NioRemoteCache.class );
+
+    /** The client, shared by all regions using the same server. */
+    private final NioRemoteCacheClient<K, V> client;
+
+    /**
+     * Constructor for the NioRemoteCache object.
+     * <p>
+     * @param attributes the region configuration
+     * @param client the connection to the server
+     * @param listener applies the events of the server to the region
+     */
+    public NioRemoteCache( final NioRemoteCacheAttributes attributes, final NioRemoteCacheClient<K, V> client,
+                           final IRemoteCacheListener<K, V> listener )
+    {
+        super( attributes, client, listener );
+        this.client = client;
+    }
+
+    /**
+     * Logs and rethrows. The next request will reconnect.
+     * <p>
+     * @param ex
+     * @param msg
+     * @param eventName
+     * @throws IOException
+     */
+    @Override
+    protected void handleException( final Exception ex, final String msg, final String eventName )
+        throws IOException
+    {
+        final String message = "Error in NIO remote cache: " + msg;
+        logError( cacheName, eventName, message );
+        log.error( message, ex );
+
+        if ( ex instanceof IOException )
+        {
+            throw (IOException) ex;
+        }
+        throw new IOException( ex.getMessage() );
+    }
+
+    /**
+     * Deregisters the listener of the region. The connection stays open for the other regions.
+     * <p>
+     * @throws IOException
+     */
+    @Override
+    protected void processDispose()
+        throws IOException
+    {
+        super.processDispose();
+
+        try
+        {
+            client.dispose( cacheName );
+        }
+        catch ( final IOException e )
+        {
+            log.warn( "Could not deregister listener of [{0}]: {1}", cacheName, e.getMessage() );
+        }
+    }
+
+    /**
+     * @return the server
+     */
+    @Override
+    public String getEventLoggingExtraInfo()
+    {
+        return client.getNioRemoteCacheAttributes().getServer();
+    }
+
+    /**
+     * @return IStats object
+     */
+    @Override
+    public IStats getStatistics()
+    {
+        final IStats stats = super.getStatistics();
+        stats.setTypeName( "NIO Remote Cache" );
+
+        final List<IStatElement<?>> elems = new ArrayList<>( stats.getStatElements() );
+        elems.add( new StatElement<>( "Server", client.getNioRemoteCacheAttributes().getServer() ) );
+        elems.add( new StatElement<>( "Connected", Boolean.valueOf( client.isConnected() ) ) );
+        elems.add( new StatElement<>( "Pending Requests", Integer.valueOf( client.getPendingRequestCount() ) ) );
+        elems.add( new StatElement<>( "Event Count", Long.valueOf( client.getEventCount() ) ) );
+        stats.setStatElements( elems );
+
+        return stats;
+    }
+}
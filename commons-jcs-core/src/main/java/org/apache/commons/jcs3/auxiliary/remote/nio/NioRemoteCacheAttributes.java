@@ -0,0 +1,143 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.jcs3.auxiliary.remote.RemoteCacheAttributes;
+import org.apache.commons.jcs3.auxiliary.remote.RemoteLocation;
+
+/** NIO client specific settings. */
+public class NioRemoteCacheAttributes
+    extends RemoteCacheAttributes
+{
+    /** Don't change. */
+    private static final long serialVersionUID = 6306271546209873120L;
+
+    /** The socket connection timeout. */
+    private int connectionTimeoutMillis = 5000;
+
+    /** How long a request waits for its response. */
+    private int requestTimeoutMillis = 5000;
+
+    /** The maximum number of requests waiting for a response. */
+    private int maxPendingRequests = 256;
+
+    /** The minimum time between two connection attempts. */
+    private long reconnectIntervalMillis = 5000;
+
+    /**
+     * @param server the server as host:port
+     */
+    public void setServer( final String server )
+    {
+        final RemoteLocation location = RemoteLocation.parseServerAndPort( server );
+        if ( location != null )
+        {
+            setRemoteLocation( location );
+        }
+    }
+
+    /**
+     * @return the server as host:port
+     */
+    public String getServer()
+    {
+        return getRemoteLocation() == null ? null : getRemoteLocation().toString();
+    }
+
+    /**
+     * @return the socket connection timeout
+     */
+    public int getConnectionTimeoutMillis()
+    {
+        return connectionTimeoutMillis;
+    }
+
+    /**
+     * @param connectionTimeoutMillis the socket connection timeout
+     */
+    public void setConnectionTimeoutMillis( final int connectionTimeoutMillis )
+    {
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+    }
+
+    /**
+     * @return how long a request waits for its response
+     */
+    public int getRequestTimeoutMillis()
+    {
+        return requestTimeoutMillis;
+    }
+
+    /**
+     * @param requestTimeoutMillis how long a request waits for its response
+     */
+    public void setRequestTimeoutMillis( final int requestTimeoutMillis )
+    {
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    /**
+     * Callers block when this many requests wait for a response on the connection.
+     * <p>
+     * @return the maximum number of requests waiting for a response
+     */
+    public int getMaxPendingRequests()
+    {
+        return maxPendingRequests;
+    }
+
+    /**
+     * @param maxPendingRequests the maximum number of requests waiting for a response
+     */
+    public void setMaxPendingRequests( final int maxPendingRequests )
+    {
+        this.maxPendingRequests = maxPendingRequests;
+    }
+
+    /**
+     * @return the minimum time between two connection attempts
+     */
+    public long getReconnectIntervalMillis()
+    {
+        return reconnectIntervalMillis;
+    }
+
+    /**
+     * @param reconnectIntervalMillis the minimum time between two connection attempts
+     */
+    public void setReconnectIntervalMillis( final long reconnectIntervalMillis )
+    {
+        this.reconnectIntervalMillis = reconnectIntervalMillis;
+    }
+
+    /**
+     * @return String details
+     */
+    @Override
+    public String toString()
+    {
+        final StringBuilder buf = new StringBuilder(super.toString());
+        buf.append( "\n connectionTimeoutMillis = [" + getConnectionTimeoutMillis() + "]" );
+        buf.append( "\n requestTimeoutMillis = [" + getRequestTimeoutMillis() + "]" );
+        buf.append( "\n maxPendingRequests = [" + getMaxPendingRequests() + "]" );
+        buf.append( "\n reconnectIntervalMillis = [" + getReconnectIntervalMillis() + "]" );
+        return buf.toString();
+    }
+}
@@ -0,0 +1,675 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.jcs3.auxiliary.remote.RemoteLocation;
+import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheListener;
+import org.apache.commons.jcs3.auxiliary.remote.server.NioRemoteCacheServer;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheFrameCodec;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheRequestFactory;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheServiceNonLocal;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.threadpool.DaemonThreadFactory;
+
+/**
+ * Talks to a {@link NioRemoteCacheServer} over a single connection. Requests from any number of
+ * threads are written to the connection as they come and matched to their responses by
+ * correlation id, so a slow request does not hold up the others. Events pushed by the server are
+ * applied in order by a single thread to the listener registered for their region.
+ * <p>
+ * If the connection is lost, all waiting requests fail. The next request reconnects, at most once
+ * per reconnect interval, and registers the listeners again.
+ */
+public class NioRemoteCacheClient<K, V>
+    implements ICacheServiceNonLocal<K, V>
+{
+    /** The logger. */
+    private static final Log log = LogManager.getLog( NioRemoteCacheClient.class );
+
+    /** The configuration */
+    private final NioRemoteCacheAttributes attributes;
+
+    /** Serializes the frames */
+    private final IElementSerializer serializer;
+
+    /** Requests waiting for their response, by correlation id */
+    private final ConcurrentMap<Long, CompletableFuture<RemoteCacheResponse<Object>>> pending = new ConcurrentHashMap<>();
+
+    /** The last correlation id */
+    private final AtomicLong nextId = new AtomicLong();
+
+    /** Limits the number of requests waiting for a response */
+    private final Semaphore permits;
+
+    /** Applies the events in order */
+    private final ExecutorService eventExecutor;
+
+    /** The listeners by region */
+    private final ConcurrentMap<String, IRemoteCacheListener<K, V>> listeners = new ConcurrentHashMap<>();
+
+    /** The id the server assigned to the listener of this client, 0 if none yet */
+    private volatile long listenerId;
+
+    /** The current socket, null if not connected */
+    private Socket socket;
+
+    /** The output stream of the current socket, writes are synchronized on it */
+    private DataOutputStream out;
+
+    /** When we last tried to connect */
+    private long lastConnectAttempt;
+
+    /** Set by release */
+    private volatile boolean released;
+
+    /** Number of events received */
+    private final AtomicLong eventCount = new AtomicLong();
+
+    /**
+     * Creates a client. It connects on the first request.
+     * <p>
+     * @param attributes the configuration
+     * @param serializer the serializer, must be the one of the server
+     */
+    public NioRemoteCacheClient( final NioRemoteCacheAttributes attributes, final IElementSerializer serializer )
+    {
+        this.attributes = attributes;
+        this.serializer = serializer;
+        this.permits = new Semaphore( Math.max( 1, attributes.getMaxPendingRequests() ) );
+        this.eventExecutor = Executors.newSingleThreadExecutor(
+                new DaemonThreadFactory( "JCS-NioRemoteCacheClient-Events-" ) );
+    }
+
+    /**
+     * Registers the listener for a region. The listener is registered again after a reconnect, so
+     * it is kept even if the server cannot be reached now.
+     * <p>
+     * @param cacheName the region
+     * @param listener applies the events of the region locally
+     * @throws IOException if the server cannot be reached
+     */
+    public void addCacheListener( final String cacheName, final IRemoteCacheListener<K, V> listener )
+        throws IOException
+    {
+        listeners.put( cacheName, listener );
+        registerListener( cacheName, listener );
+    }
+
+    /**
+     * Deregisters the listener of a region.
+     * <p>
+     * @param cacheName the region
+     * @throws IOException
+     */
+    public void removeCacheListener( final String cacheName )
+        throws IOException
+    {
+        if ( listeners.remove( cacheName ) != null && isConnected() )
+        {
+            call( RemoteCacheRequestFactory.createRemoveListenerRequest( cacheName, listenerId ) );
+        }
+    }
+
+    /**
+     * @param cacheName the region
+     * @param listener the listener
+     * @throws IOException
+     */
+    private void registerListener( final String cacheName, final IRemoteCacheListener<K, V> listener )
+        throws IOException
+    {
+        final Object id = call( RemoteCacheRequestFactory.createAddListenerRequest(
+                cacheName, listener.getRemoteType(), listenerId ) );
+
+        if ( id instanceof Long )
+        {
+            listenerId = ( (Long) id ).longValue();
+            listener.setListenerId( listenerId );
+        }
+    }
+
+    /**
+     * @param item
+     * @throws IOException
+     */
+    @Override
+    public void update( final ICacheElement<K, V> item )
+        throws IOException
+    {
+        update( item, 0 );
+    }
+
+    /**
+     * @param item
+     * @param requesterId
+     * @throws IOException
+     */
+    @Override
+    public void update( final ICacheElement<K, V> item, final long requesterId )
+        throws IOException
+    {
+        call( RemoteCacheRequestFactory.createUpdateRequest( item, requesterId ) );
+    }
+
+    /**
+     * @param cacheName
+     * @param key
+     * @return ICacheElement
+     * @throws IOException
+     */
+    @Override
+    public ICacheElement<K, V> get( final String cacheName, final K key )
+        throws IOException
+    {
+        return get( cacheName, key, 0 );
+    }
+
+    /**
+     * @param cacheName
+     * @param key
+     * @param requesterId
+     * @return ICacheElement
+     * @throws IOException
+     */
+    @Override
+    @SuppressWarnings("unchecked") // Need to cast from Object
+    public ICacheElement<K, V> get( final String cacheName, final K key, final long requesterId )
+        throws IOException
+    {
+        return (ICacheElement<K, V>) call( RemoteCacheRequestFactory.createGetRequest( cacheName, key, requesterId ) );
+    }
+
+    /**
+     * @param cacheName
+     * @param keys
+     * @return a map of K key to ICacheElement&lt;K, V&gt; element
+     * @throws IOException
+     */
+    @Override
+    public Map<K, ICacheElement<K, V>> getMultiple( final String cacheName, final Set<K> keys )
+        throws IOException
+    {
+        return getMultiple( cacheName, keys, 0 );
+    }
+
+    /**
+     * @param cacheName
+     * @param keys
+     * @param requesterId
+     * @return a map of K key to ICacheElement&lt;K, V&gt; element
+     * @throws IOException
+     */
+    @Override
+    @SuppressWarnings("unchecked") // Need to cast from Object
+    public Map<K, ICacheElement<K, V>> getMultiple( final String cacheName, final Set<K> keys, final long requesterId )
+        throws IOException
+    {
+        return (Map<K, ICacheElement<K, V>>) call(
+                RemoteCacheRequestFactory.createGetMultipleRequest( cacheName, keys, requesterId ) );
+    }
+
+    /**
+     * @param cacheName
+     * @param pattern
+     * @return a map of K key to ICacheElement&lt;K, V&gt; element
+     * @throws IOException
+     */
+    @Override
+    public Map<K, ICacheElement<K, V>> getMatching( final String cacheName, final String pattern )
+        throws IOException
+    {
+        return getMatching( cacheName, pattern, 0 );
+    }
+
+    /**
+     * @param cacheName
+     * @param pattern
+     * @param requesterId
+     * @return a map of K key to ICacheElement&lt;K, V&gt; element
+     * @throws IOException
+     */
+    @Override
+    @SuppressWarnings("unchecked") // Need to cast from Object
+    public Map<K, ICacheElement<K, V>> getMatching( final String cacheName, final String pattern, final long requesterId )
+        throws IOException
+    {
+        return (Map<K, ICacheElement<K, V>>) call(
+                RemoteCacheRequestFactory.createGetMatchingRequest( cacheName, pattern, requesterId ) );
+    }
+
+    /**
+     * @param cacheName
+     * @param key
+     * @throws IOException
+     */
+    @Override
+    public void remove( final String cacheName, final K key )
+        throws IOException
+    {
+        remove( cacheName, key, 0 );
+    }
+
+    /**
+     * @param cacheName
+     * @param key
+     * @param requesterId
+     * @throws IOException
+     */
+    @Override
+    public void remove( final String cacheName, final K key, final long requesterId )
+        throws IOException
+    {
+        call( RemoteCacheRequestFactory.createRemoveRequest( cacheName, key, requesterId ) );
+    }
+
+    /**
+     * @param cacheName
+     * @throws IOException
+     */
+    @Override
+    public void removeAll( final String cacheName )
+        throws IOException
+    {
+        removeAll( cacheName, 0 );
+    }
+
+    /**
+     * @param cacheName
+     * @param requesterId
+     * @throws IOException
+     */
+    @Override
+    public void removeAll( final String cacheName, final long requesterId )
+        throws IOException
+    {
+        call( RemoteCacheRequestFactory.createRemoveAllRequest( cacheName, requesterId ) );
+    }
+
+    /**
+     * @param cacheName
+     * @return a set of the keys of the region
+     * @throws IOException
+     */
+    @Override
+    @SuppressWarnings("unchecked") // Need to cast from Object
+    public Set<K> getKeySet( final String cacheName )
+        throws IOException
+    {
+        return (Set<K>) call( RemoteCacheRequestFactory.createGetKeySetRequest( cacheName, 0 ) );
+    }
+
+    /**
+     * Deregisters the listener of the region.
+     * <p>
+     * @param cacheName
+     * @throws IOException
+     */
+    @Override
+    public void dispose( final String cacheName )
+        throws IOException
+    {
+        removeCacheListener( cacheName );
+    }
+
+    /**
+     * Closes the connection and stops the event thread.
+     * <p>
+     * @throws IOException
+     */
+    @Override
+    public void release()
+        throws IOException
+    {
+        released = true;
+
+        final Socket current;
+        synchronized ( this )
+        {
+            current = socket;
+        }
+        if ( current != null )
+        {
+            connectionLost( current );
+        }
+
+        eventExecutor.shutdown();
+    }
+
+    /**
+     * Sends a request and waits for the response.
+     * <p>
+     * @param request the request
+     * @return the payload of the response
+     * @throws IOException if the server cannot be reached, times out or reports an error
+     */
+    protected Object call( final RemoteCacheRequest<?, ?> request )
+        throws IOException
+    {
+        final Socket current = ensureConnected();
+        final DataOutputStream stream;
+        synchronized ( this )
+        {
+            stream = out;
+        }
+        if ( stream == null )
+        {
+            throw new IOException( "Connection to " + attributes.getServer() + " lost" );
+        }
+
+        try
+        {
+            if ( !permits.tryAcquire( attributes.getRequestTimeoutMillis(), TimeUnit.MILLISECONDS ) )
+            {
+                throw new IOException( "Too many pending requests to " + attributes.getServer() );
+            }
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting to send " + request.getRequestType() );
+        }
+
+        final Long id = Long.valueOf( nextId.incrementAndGet() );
+        final CompletableFuture<RemoteCacheResponse<Object>> future = new CompletableFuture<>();
+
+        try
+        {
+            pending.put( id, future );
+
+            try
+            {
+                synchronized ( stream )
+                {
+                    RemoteCacheFrameCodec.writeTaggedFrame( serializer, id.longValue(), request, stream );
+                    stream.flush();
+                }
+            }
+            catch ( final IOException e )
+            {
+                connectionLost( current );
+                throw e;
+            }
+
+            final RemoteCacheResponse<Object> response =
+                    future.get( attributes.getRequestTimeoutMillis(), TimeUnit.MILLISECONDS );
+
+            if ( !response.isSuccess() )
+            {
+                throw new IOException( response.getErrorMessage() );
+            }
+
+            return response.getPayload();
+        }
+        catch ( final TimeoutException e )
+        {
+            throw new IOException( "Timed out waiting for " + request.getRequestType() + " from " + attributes.getServer() );
+        }
+        catch ( final ExecutionException e )
+        {
+            if ( e.getCause() instanceof IOException )
+            {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException( e.getCause() );
+        }
+        catch ( final InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting for " + request.getRequestType() );
+        }
+        finally
+        {
+            pending.remove( id );
+            permits.release();
+        }
+    }
+
+    /**
+     * Connects if needed and registers the listeners after a new connection.
+     * <p>
+     * @return the connected socket
+     * @throws IOException if not connected and the server cannot be reached
+     */
+    private Socket ensureConnected()
+        throws IOException
+    {
+        final Socket connected;
+        synchronized ( this )
+        {
+            if ( socket != null )
+            {
+                return socket;
+            }
+
+            if ( released )
+            {
+                throw new IOException( "Client is released" );
+            }
+
+            final long now = System.currentTimeMillis();
+            if ( lastConnectAttempt != 0 && now - lastConnectAttempt < attributes.getReconnectIntervalMillis() )
+            {
+                throw new IOException( "Not connected to " + attributes.getServer() );
+            }
+            lastConnectAttempt = now;
+
+            final RemoteLocation location = attributes.getRemoteLocation();
+            final Socket newSocket = new Socket();
+            newSocket.setTcpNoDelay( true );
+            newSocket.setKeepAlive( true );
+            newSocket.connect( new InetSocketAddress( location.getHost(), location.getPort() ),
+                    attributes.getConnectionTimeoutMillis() );
+
+            final DataInputStream in = new DataInputStream( new BufferedInputStream( newSocket.getInputStream() ) );
+            out = new DataOutputStream( new BufferedOutputStream( newSocket.getOutputStream() ) );
+            socket = newSocket;
+            connected = newSocket;
+
+            new DaemonThreadFactory( "JCS-NioRemoteCacheClient-Reader-" )
+                .newThread( () -> readResponses( newSocket, in ) ).start();
+
+            log.info( "Connected to NIO remote cache server {0}", location );
+        }
+
+        for ( final Map.Entry<String, IRemoteCacheListener<K, V>> entry : listeners.entrySet() )
+        {
+            registerListener( entry.getKey(), entry.getValue() );
+        }
+
+        return connected;
+    }
+
+    /**
+     * Reads frames until the connection fails. Responses complete their request, events are
+     * handed to the event thread.
+     * <p>
+     * @param current the socket
+     * @param in its input stream
+     */
+    private void readResponses( final Socket current, final DataInputStream in )
+    {
+        try
+        {
+            while ( true )
+            {
+                final int length = in.readInt();
+                final long id = in.readLong();
+                final byte[] bytes = new byte[length - 8];
+                in.readFully( bytes );
+
+                if ( id == NioRemoteCacheServer.EVENT_ID )
+                {
+                    eventCount.incrementAndGet();
+                    eventExecutor.execute( () -> handleEvent( bytes ) );
+                }
+                else
+                {
+                    final CompletableFuture<RemoteCacheResponse<Object>> future = pending.get( Long.valueOf( id ) );
+                    if ( future != null )
+                    {
+                        future.complete( serializer.deSerialize( bytes, null ) );
+                    }
+                }
+            }
+        }
+        catch ( final IOException | ClassNotFoundException | RejectedExecutionException e )
+        {
+            if ( !released )
+            {
+                log.warn( "Lost connection to NIO remote cache server {0}: {1}",
+                        attributes.getServer(), e.getMessage() );
+            }
+        }
+        finally
+        {
+            connectionLost( current );
+        }
+    }
+
+    /**
+     * Applies an event to the listener of its region.
+     * <p>
+     * @param bytes the serialized event
+     */
+    private void handleEvent( final byte[] bytes )
+    {
+        try
+        {
+            final RemoteCacheRequest<K, V> event = serializer.deSerialize( bytes, null );
+            final IRemoteCacheListener<K, V> listener = listeners.get( event.getCacheName() );
+            if ( listener == null )
+            {
+                log.debug( "No listener for region [{0}]", event::getCacheName );
+                return;
+            }
+
+            switch ( event.getRequestType() )
+            {
+                case UPDATE:
+                    listener.handlePut( event.getCacheElement() );
+                    break;
+                case REMOVE:
+                    listener.handleRemove( event.getCacheName(), event.getKey() );
+                    break;
+                case REMOVE_ALL:
+                    listener.handleRemoveAll( event.getCacheName() );
+                    break;
+                case DISPOSE:
+                    listener.handleDispose( event.getCacheName() );
+                    break;
+                default:
+                    log.warn( "Unexpected event {0}", event );
+                    break;
+            }
+        }
+        catch ( final IOException | ClassNotFoundException e )
+        {
+            log.error( "Problem applying event", e );
+        }
+    }
+
+    /**
+     * Closes the socket if it is still the current one and fails the waiting requests.
+     * <p>
+     * @param lost the socket that failed
+     */
+    private void connectionLost( final Socket lost )
+    {
+        synchronized ( this )
+        {
+            if ( socket != lost )
+            {
+                return;
+            }
+            socket = null;
+            out = null;
+        }
+
+        try
+        {
+            lost.close();
+        }
+        catch ( final IOException e )
+        {
+            log.debug( "Problem closing socket", e );
+        }
+
+        final IOException cause = new IOException( "Connection to " + attributes.getServer() + " lost" );
+        pending.values().forEach( future -> future.completeExceptionally( cause ) );
+    }
+
+    /**
+     * @return true if the client holds a connection
+     */
+    public synchronized boolean isConnected()
+    {
+        return socket != null;
+    }
+
+    /**
+     * @return the number of requests waiting for a response
+     */
+    public int getPendingRequestCount()
+    {
+        return pending.size();
+    }
+
+    /**
+     * @return the number of events received
+     */
+    public long getEventCount()
+    {
+        return eventCount.get();
+    }
+
+    /**
+     * @return the configuration
+     */
+    public NioRemoteCacheAttributes getNioRemoteCacheAttributes()
+    {
+        return attributes;
+    }
+}
@@ -0,0 +1,135 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.jcs3.auxiliary.AbstractAuxiliaryCacheFactory;
+import org.apache.commons.jcs3.auxiliary.AuxiliaryCache;
+import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheAttributes;
+import org.apache.commons.jcs3.auxiliary.remote.RemoteCacheNoWait;
+import org.apache.commons.jcs3.engine.behavior.ICompositeCacheManager;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+
+/**
+ * Creates remote caches talking to a NIO remote cache server. All regions configured with the
+ * same server share one connection.
+ * <pre>
+ * jcs.auxiliary.NRC=org.apache.commons.jcs3.auxiliary.remote.nio.NioRemoteCacheFactory
+ * jcs.auxiliary.NRC.attributes=org.apache.commons.jcs3.auxiliary.remote.nio.NioRemoteCacheAttributes
+ * jcs.auxiliary.NRC.attributes.Server=localhost:1103
+ * </pre>
+ */
+public class NioRemoteCacheFactory
+    extends AbstractAuxiliaryCacheFactory
+{
+    /** The logger */
+    private static final Log log = LogManager.getLog( NioRemoteCacheFactory.class );
+
+    /** The clients by server */
+    private final ConcurrentMap<String, NioRemoteCacheClient<?, ?>> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a cache for the region, registering a listener if the region receives.
+     * <p>
+     * @param iaca
+     * @param cacheMgr
+     * @param cacheEventLogger
+     * @param elementSerializer
+     * @return AuxiliaryCache
+     */
+    @Override
+    public <K, V> AuxiliaryCache<K, V> createCache( final AuxiliaryCacheAttributes iaca, final ICompositeCacheManager cacheMgr,
+                                       final ICacheEventLogger cacheEventLogger, final IElementSerializer elementSerializer )
+    {
+        final NioRemoteCacheAttributes rca = (NioRemoteCacheAttributes) iaca;
+
+        final NioRemoteCacheClient<K, V> client = getClient( rca, elementSerializer );
+        final NioRemoteCacheListener<K, V> listener = new NioRemoteCacheListener<>( rca, cacheMgr, elementSerializer );
+
+        if ( rca.isReceive() )
+        {
+            try
+            {
+                client.addCacheListener( rca.getCacheName(), listener );
+            }
+            catch ( final IOException e )
+            {
+                log.error( "Could not register listener for [{0}] with {1}, will retry on reconnect",
+                        rca.getCacheName(), rca.getServer(), e );
+            }
+        }
+
+        final NioRemoteCache<K, V> remoteCache = new NioRemoteCache<>( rca, client, listener );
+        remoteCache.setCacheEventLogger( cacheEventLogger );
+        remoteCache.setElementSerializer( elementSerializer );
+
+        final RemoteCacheNoWait<K, V> remoteCacheNoWait = new RemoteCacheNoWait<>( remoteCache );
+        remoteCacheNoWait.setCacheEventLogger( cacheEventLogger );
+        remoteCacheNoWait.setElementSerializer( elementSerializer );
+
+        return remoteCacheNoWait;
+    }
+
+    /**
+     * Gets the client of the configured server, creating it if needed.
+     * <p>
+     * @param rca the region configuration
+     * @param elementSerializer the serializer, the standard one if null
+     * @return the client
+     */
+    @SuppressWarnings("unchecked") // Need to cast to specific return type
+    protected <K, V> NioRemoteCacheClient<K, V> getClient( final NioRemoteCacheAttributes rca, final IElementSerializer elementSerializer )
+    {
+        return (NioRemoteCacheClient<K, V>) clients.computeIfAbsent( rca.getServer(),
+                server -> new NioRemoteCacheClient<>( rca,
+                        elementSerializer == null ? new StandardSerializer() : elementSerializer ) );
+    }
+
+    /**
+     * Closes the connections.
+     * <p>
+     * @see org.apache.commons.jcs3.auxiliary.AbstractAuxiliaryCacheFactory#dispose()
+     */
+    @Override
+    public void dispose()
+    {
+        for ( final NioRemoteCacheClient<?, ?> client : clients.values() )
+        {
+            try
+            {
+                client.release();
+            }
+            catch ( final IOException e )
+            {
+                log.warn( "Problem releasing client", e );
+            }
+        }
+        clients.clear();
+
+        super.dispose();
+    }
+}
@@ -0,0 +1,50 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.jcs3.auxiliary.remote.AbstractRemoteCacheListener;
+import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICompositeCacheManager;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+
+/**
+ * Applies the events the NIO server pushes over the connection of the client to the local region.
+ * The client reads the events and calls this listener; nothing is exported.
+ */
+public class NioRemoteCacheListener<K, V>
+    extends AbstractRemoteCacheListener<K, V>
+{
+    /**
+     * @param irca cache configuration
+     * @param cacheMgr the cache hub
+     * @param elementSerializer a custom serializer
+     */
+    public NioRemoteCacheListener( final IRemoteCacheAttributes irca, final ICompositeCacheManager cacheMgr, final IElementSerializer elementSerializer )
+    {
+        super( irca, cacheMgr, elementSerializer );
+    }
+
+    /** Nothing, the connection belongs to the client. */
+    @Override
+    public void dispose()
+    {
+        // noop
+    }
+}
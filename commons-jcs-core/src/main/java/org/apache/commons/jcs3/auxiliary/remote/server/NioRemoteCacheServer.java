@@ -0,0 +1,969 @@
+package org.apache.commons.jcs3.auxiliary.remote.server;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.rmi.NoSuchObjectException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheListener;
+import org.apache.commons.jcs3.auxiliary.remote.server.behavior.RemoteType;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheFrameCodec;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheRequestFactory;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.log.Log;
+import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+import org.apache.commons.jcs3.utils.threadpool.DaemonThreadFactory;
+
+/**
+ * A remote cache server that speaks a framed binary protocol over non blocking sockets instead of
+ * RMI. The regions, the listener bookkeeping and the event queues are those of a
+ * {@link RemoteCacheServer}; this class only replaces the transport.
+ * <p>
+ * Every frame carries a correlation id (see {@link RemoteCacheFrameCodec}). A client may send many
+ * requests over one connection without waiting for the responses, which come back tagged with the
+ * id of their request, possibly out of order. Frames with id 0 sent by the server are listener
+ * events: an UPDATE, REMOVE, REMOVE_ALL or DISPOSE request for the client to apply.
+ * <p>
+ * One selector thread accepts connections, reads and writes; a pool of workers processes the
+ * requests. Reading from a connection stops while too many of its requests are in progress or too
+ * many bytes wait to be written to it, so a slow client cannot make the server buffer without
+ * limit. Events for such a client wait for the connection to drain and close it if it does not.
+ */
+public class NioRemoteCacheServer<K, V>
+{
+    /** The logger */
+    private static final Log log = LogManager.getLog( NioRemoteCacheServer.class );
+
+    /** The correlation id of server pushed events */
+    public static final long EVENT_ID = 0;
+
+    /** Configuration settings */
+    private final NioRemoteCacheServerAttributes attributes;
+
+    /** Holds the regions and the listeners */
+    private final RemoteCacheServer<K, V> cacheServer;
+
+    /** Serializes the frames */
+    private IElementSerializer serializer = new StandardSerializer();
+
+    /** The server socket */
+    private ServerSocketChannel serverChannel;
+
+    /** Selects the ready connections */
+    private Selector selector;
+
+    /** The selector thread */
+    private Thread selectorThread;
+
+    /** Processes the requests */
+    private ExecutorService workers;
+
+    /** Set when the server is shut down */
+    private final AtomicBoolean terminated = new AtomicBoolean();
+
+    /** Connections with frames to write or interest to update, drained by the selector thread */
+    private final Queue<Connection> pendingFlushes = new ConcurrentLinkedQueue<>();
+
+    /** The open connections */
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+    /** Number of requests processed */
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /** Number of events pushed */
+    private final AtomicLong eventCount = new AtomicLong();
+
+    /**
+     * Creates the regions from the configuration. The server does not listen before
+     * {@link #start()}.
+     * <p>
+     * @param attributes the server configuration
+     * @param config the cache hub configuration
+     * @throws IOException if the cache manager cannot be configured
+     */
+    public NioRemoteCacheServer( final NioRemoteCacheServerAttributes attributes, final Properties config )
+        throws IOException
+    {
+        this( attributes, new RemoteCacheServer<>( attributes, config ) );
+    }
+
+    /**
+     * Uses the regions of the given server.
+     * <p>
+     * @param attributes the server configuration
+     * @param cacheServer the region and listener logic, it is unexported from RMI
+     */
+    protected NioRemoteCacheServer( final NioRemoteCacheServerAttributes attributes, final RemoteCacheServer<K, V> cacheServer )
+    {
+        this.attributes = attributes;
+        this.cacheServer = cacheServer;
+
+        try
+        {
+            UnicastRemoteObject.unexportObject( cacheServer, true );
+        }
+        catch ( final NoSuchObjectException e )
+        {
+            log.debug( "Cache server was not exported" );
+        }
+    }
+
+    /**
+     * Binds the port and starts the selector thread.
+     * <p>
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized void start()
+        throws IOException
+    {
+        if ( selectorThread != null )
+        {
+            return;
+        }
+
+        final String host = attributes.getListenerHost();
+        final SocketAddress address = host == null || host.isEmpty()
+                ? new InetSocketAddress( attributes.getListenerPort() )
+                : new InetSocketAddress( host, attributes.getListenerPort() );
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking( false );
+        serverChannel.bind( address );
+        serverChannel.register( selector, SelectionKey.OP_ACCEPT );
+
+        final int threads = attributes.getWorkerThreads() > 0
+                ? attributes.getWorkerThreads() : Runtime.getRuntime().availableProcessors();
+        workers = Executors.newFixedThreadPool( threads, new DaemonThreadFactory( "JCS-NioRemoteCacheServer-Worker-" ) );
+
+        selectorThread = new DaemonThreadFactory( "JCS-NioRemoteCacheServer-Selector-" ).newThread( this::runSelector );
+        selectorThread.start();
+
+        log.info( "NIO remote cache server listening on {0}", serverChannel.socket().getLocalSocketAddress() );
+    }
+
+    /**
+     * Closes all connections, stops the threads and releases the regions.
+     * <p>
+     * @throws IOException
+     */
+    public synchronized void shutdown()
+        throws IOException
+    {
+        if ( !terminated.compareAndSet( false, true ) )
+        {
+            return;
+        }
+
+        log.info( "Shutting down NIO remote cache server" );
+
+        if ( selector != null )
+        {
+            selector.wakeup();
+        }
+
+        if ( selectorThread != null )
+        {
+            try
+            {
+                selectorThread.join( 5000 );
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if ( workers != null )
+        {
+            workers.shutdownNow();
+        }
+
+        cacheServer.release();
+    }
+
+    /**
+     * @return the port the server listens on, -1 if not started
+     */
+    public int getLocalPort()
+    {
+        return serverChannel == null ? -1 : serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return the server holding the regions and the listeners
+     */
+    public RemoteCacheServer<K, V> getCacheServer()
+    {
+        return cacheServer;
+    }
+
+    /**
+     * Must be set before {@link #start()}. The clients must use the same serializer.
+     * <p>
+     * @param serializer the serializer of the frames
+     */
+    public void setElementSerializer( final IElementSerializer serializer )
+    {
+        if ( serializer != null )
+        {
+            this.serializer = serializer;
+        }
+    }
+
+    /**
+     * @return the number of open connections
+     */
+    public int getConnectionCount()
+    {
+        return connections.size();
+    }
+
+    /**
+     * @return the number of requests processed
+     */
+    public long getRequestCount()
+    {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of events pushed to clients
+     */
+    public long getEventCount()
+    {
+        return eventCount.get();
+    }
+
+    /**
+     * Accepts, reads and writes until the server is shut down.
+     */
+    private void runSelector()
+    {
+        try
+        {
+            while ( !terminated.get() )
+            {
+                selector.select();
+
+                Connection pending;
+                while ( ( pending = pendingFlushes.poll() ) != null )
+                {
+                    pending.flush();
+                }
+
+                for ( final Iterator<SelectionKey> i = selector.selectedKeys().iterator(); i.hasNext(); )
+                {
+                    final SelectionKey key = i.next();
+                    i.remove();
+
+                    if ( !key.isValid() )
+                    {
+                        continue;
+                    }
+
+                    if ( key.isAcceptable() )
+                    {
+                        accept();
+                        continue;
+                    }
+
+                    final Connection connection = (Connection) key.attachment();
+                    if ( key.isWritable() )
+                    {
+                        connection.flush();
+                    }
+                    if ( key.isValid() && key.isReadable() )
+                    {
+                        connection.read();
+                    }
+                }
+            }
+        }
+        catch ( final IOException e )
+        {
+            log.error( "Selector of NIO remote cache server failed", e );
+        }
+        finally
+        {
+            connections.forEach( Connection::close );
+
+            try
+            {
+                serverChannel.close();
+                selector.close();
+            }
+            catch ( final IOException e )
+            {
+                log.warn( "Problem closing server socket", e );
+            }
+
+            log.debug( "Selector thread terminated" );
+        }
+    }
+
+    /**
+     * Accepts a new connection.
+     * <p>
+     * @throws IOException
+     */
+    private void accept()
+        throws IOException
+    {
+        final SocketChannel channel = serverChannel.accept();
+        if ( channel == null )
+        {
+            // may happen in non-blocking mode
+            return;
+        }
+
+        channel.configureBlocking( false );
+        channel.socket().setTcpNoDelay( true );
+
+        final Connection connection = new Connection( channel );
+        connection.key = channel.register( selector, SelectionKey.OP_READ, connection );
+        connections.add( connection );
+
+        log.info( "Connected to client at {0}", channel.socket().getRemoteSocketAddress() );
+    }
+
+    /**
+     * Processes a request. This is called by the worker threads.
+     * <p>
+     * @param connection the connection the request came from
+     * @param request the request
+     * @return the response, never null
+     */
+    protected RemoteCacheResponse<Object> processRequest( final Connection connection, final RemoteCacheRequest<K, V> request )
+    {
+        final RemoteCacheResponse<Object> response = new RemoteCacheResponse<>();
+        requestCount.incrementAndGet();
+
+        try
+        {
+            switch ( request.getRequestType() )
+            {
+                case GET:
+                    response.setPayload( cacheServer.get( request.getCacheName(), request.getKey(), request.getRequesterId() ) );
+                    break;
+                case GET_MULTIPLE:
+                    final Map<K, ICacheElement<K, V>> elementMap =
+                        cacheServer.getMultiple( request.getCacheName(), request.getKeySet(), request.getRequesterId() );
+                    if ( elementMap != null )
+                    {
+                        response.setPayload( new HashMap<>( elementMap ) );
+                    }
+                    break;
+                case GET_MATCHING:
+                    final Map<K, ICacheElement<K, V>> elementMapMatching =
+                        cacheServer.getMatching( request.getCacheName(), request.getPattern(), request.getRequesterId() );
+                    if ( elementMapMatching != null )
+                    {
+                        response.setPayload( new HashMap<>( elementMapMatching ) );
+                    }
+                    break;
+                case REMOVE:
+                    cacheServer.remove( request.getCacheName(), request.getKey(), request.getRequesterId() );
+                    break;
+                case REMOVE_ALL:
+                    cacheServer.removeAll( request.getCacheName(), request.getRequesterId() );
+                    break;
+                case UPDATE:
+                    cacheServer.update( request.getCacheElement(), request.getRequesterId() );
+                    break;
+                case GET_KEYSET:
+                    response.setPayload( cacheServer.getKeySet( request.getCacheName() ) );
+                    break;
+                case ADD_LISTENER:
+                    response.setPayload( Long.valueOf( connection.addListener(
+                            request.getCacheName(), (RemoteType) request.getKey(), request.getRequesterId() ) ) );
+                    break;
+                case REMOVE_LISTENER:
+                    connection.removeListener( request.getCacheName() );
+                    break;
+                case ALIVE_CHECK:
+                case DISPOSE:
+                    // DO NOTHING
+                    break;
+                default:
+                    final String message = "Unknown event type.  Cannot process " + request;
+                    log.warn( message );
+                    response.setSuccess( false );
+                    response.setErrorMessage( message );
+                    break;
+            }
+        }
+        catch ( final IOException | RuntimeException e )
+        {
+            final String message = "Problem processing request. " + request + " Error: " + e.getMessage();
+            log.error( message, e );
+            response.setSuccess( false );
+            response.setErrorMessage( message );
+        }
+
+        return response;
+    }
+
+    /**
+     * The state of one client connection. The buffers and the interest set are only touched by the
+     * selector thread; the workers and the event queues append to the write queue.
+     */
+    protected class Connection
+    {
+        /** The socket */
+        private final SocketChannel channel;
+
+        /** The registration with the selector */
+        private SelectionKey key;
+
+        /** Collects the incoming frames */
+        private ByteBuffer readBuffer = ByteBuffer.allocate( 8192 );
+
+        /** Frames waiting to be written, guarded by itself */
+        private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+
+        /** The number of bytes in the write queue */
+        private final AtomicLong pendingBytes = new AtomicLong();
+
+        /** The number of requests in progress */
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        /** Set when reading was stopped because of backpressure */
+        private boolean readPaused;
+
+        /** Set once closed */
+        private volatile boolean closed;
+
+        /** The listener of this connection, created by the first ADD_LISTENER */
+        private ConnectionListener listener;
+
+        /**
+         * @param channel the socket
+         */
+        protected Connection( final SocketChannel channel )
+        {
+            this.channel = channel;
+        }
+
+        /**
+         * Reads what is available and hands complete frames to the workers.
+         */
+        private void read()
+        {
+            try
+            {
+                if ( channel.read( readBuffer ) < 0 )
+                {
+                    close();
+                    return;
+                }
+
+                readBuffer.flip();
+                while ( readBuffer.remaining() >= 4 )
+                {
+                    final int length = readBuffer.getInt( readBuffer.position() );
+                    if ( length < 8 || length > attributes.getMaxFrameSize() )
+                    {
+                        log.warn( "Closing connection to {0}, invalid frame length {1}",
+                                channel.socket().getRemoteSocketAddress(), length );
+                        close();
+                        return;
+                    }
+
+                    if ( readBuffer.remaining() < 4 + length )
+                    {
+                        break;
+                    }
+
+                    readBuffer.getInt();
+                    final long id = readBuffer.getLong();
+                    final byte[] bytes = new byte[length - 8];
+                    readBuffer.get( bytes );
+                    dispatch( id, bytes );
+                }
+                readBuffer.compact();
+
+                // make room for a large frame
+                if ( readBuffer.position() >= 4 )
+                {
+                    final int needed = 4 + readBuffer.getInt( 0 );
+                    if ( needed > readBuffer.capacity() )
+                    {
+                        final ByteBuffer larger = ByteBuffer.allocate( needed );
+                        readBuffer.flip();
+                        larger.put( readBuffer );
+                        readBuffer = larger;
+                    }
+                }
+
+                updateInterest();
+            }
+            catch ( final IOException e )
+            {
+                log.debug( "Connection closed by peer", e );
+                close();
+            }
+        }
+
+        /**
+         * Processes one request on a worker.
+         * <p>
+         * @param id the correlation id
+         * @param bytes the serialized request
+         */
+        private void dispatch( final long id, final byte[] bytes )
+        {
+            inFlight.incrementAndGet();
+
+            try
+            {
+                workers.execute( () -> {
+                    try
+                    {
+                        final RemoteCacheRequest<K, V> request = serializer.deSerialize( bytes, null );
+                        send( id, processRequest( this, request ) );
+                    }
+                    catch ( final IOException | ClassNotFoundException e )
+                    {
+                        log.error( "Problem processing request {0}", id, e );
+                        final RemoteCacheResponse<Object> response = new RemoteCacheResponse<>();
+                        response.setSuccess( false );
+                        response.setErrorMessage( e.getMessage() );
+                        trySend( id, response );
+                    }
+                    finally
+                    {
+                        inFlight.decrementAndGet();
+                        requestFlush();
+                    }
+                } );
+            }
+            catch ( final RejectedExecutionException e )
+            {
+                inFlight.decrementAndGet();
+                log.debug( "Request dropped, server is shut down" );
+            }
+        }
+
+        /**
+         * Queues a frame for writing.
+         * <p>
+         * @param id the correlation id
+         * @param obj the payload
+         * @throws IOException if the connection is closed
+         */
+        protected void send( final long id, final Object obj )
+            throws IOException
+        {
+            if ( closed )
+            {
+                throw new IOException( "Connection is closed" );
+            }
+
+            final ByteBuffer frame = RemoteCacheFrameCodec.encodeTaggedFrame( serializer, id, obj );
+            synchronized ( writeQueue )
+            {
+                writeQueue.add( frame );
+            }
+            pendingBytes.addAndGet( frame.remaining() );
+            requestFlush();
+        }
+
+        /**
+         * Queues a response, logging failures.
+         * <p>
+         * @param id the correlation id
+         * @param response the response
+         */
+        private void trySend( final long id, final RemoteCacheResponse<Object> response )
+        {
+            try
+            {
+                send( id, response );
+            }
+            catch ( final IOException e )
+            {
+                log.debug( "Could not send response {0}", id, e );
+            }
+        }
+
+        /**
+         * Pushes an event, waiting for a congested connection to drain.
+         * <p>
+         * @param event the event
+         * @throws IOException if the connection is closed or stays congested
+         */
+        protected void push( final RemoteCacheRequest<K, V> event )
+            throws IOException
+        {
+            if ( pendingBytes.get() > attributes.getHighWatermarkBytes() )
+            {
+                final long deadline = System.currentTimeMillis() + attributes.getEventPushTimeoutMillis();
+                synchronized ( this )
+                {
+                    long wait;
+                    while ( !closed && pendingBytes.get() > attributes.getLowWatermarkBytes()
+                            && ( wait = deadline - System.currentTimeMillis() ) > 0 )
+                    {
+                        try
+                        {
+                            wait( wait );
+                        }
+                        catch ( final InterruptedException e )
+                        {
+                            Thread.currentThread().interrupt();
+                            throw new IOException( "Interrupted while waiting for connection to drain" );
+                        }
+                    }
+                }
+
+                if ( !closed && pendingBytes.get() > attributes.getLowWatermarkBytes() )
+                {
+                    log.warn( "Closing congested connection to {0}", channel.socket().getRemoteSocketAddress() );
+                    close();
+                }
+            }
+
+            send( EVENT_ID, event );
+            eventCount.incrementAndGet();
+        }
+
+        /**
+         * Asks the selector thread to write and update the interest set.
+         */
+        private void requestFlush()
+        {
+            pendingFlushes.add( this );
+            selector.wakeup();
+        }
+
+        /**
+         * Writes as much as the socket takes. Called by the selector thread.
+         */
+        private void flush()
+        {
+            if ( closed )
+            {
+                return;
+            }
+
+            try
+            {
+                synchronized ( writeQueue )
+                {
+                    ByteBuffer head;
+                    while ( ( head = writeQueue.peek() ) != null )
+                    {
+                        final int written = channel.write( head );
+                        pendingBytes.addAndGet( -written );
+                        if ( head.hasRemaining() )
+                        {
+                            break;
+                        }
+                        writeQueue.poll();
+                    }
+                }
+
+                if ( pendingBytes.get() <= attributes.getLowWatermarkBytes() )
+                {
+                    synchronized ( this )
+                    {
+                        notifyAll();
+                    }
+                }
+
+                updateInterest();
+            }
+            catch ( final IOException e )
+            {
+                log.debug( "Write failed", e );
+                close();
+            }
+        }
+
+        /**
+         * Reads unless backpressure applies, writes while frames are queued. Called by the
+         * selector thread.
+         */
+        private void updateInterest()
+        {
+            if ( closed || !key.isValid() )
+            {
+                return;
+            }
+
+            final long pending = pendingBytes.get();
+            if ( readPaused )
+            {
+                readPaused = pending > attributes.getLowWatermarkBytes()
+                        || inFlight.get() >= attributes.getMaxInFlightRequests();
+            }
+            else
+            {
+                readPaused = pending > attributes.getHighWatermarkBytes()
+                        || inFlight.get() >= attributes.getMaxInFlightRequests();
+            }
+
+            int ops = readPaused ? 0 : SelectionKey.OP_READ;
+            if ( pending > 0 )
+            {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            key.interestOps( ops );
+        }
+
+        /**
+         * Registers the listener of this connection for a region.
+         * <p>
+         * @param cacheName the region
+         * @param remoteType LOCAL or CLUSTER
+         * @param listenerId the id known by the client, 0 if none
+         * @return the id of the listener
+         * @throws IOException
+         */
+        protected synchronized long addListener( final String cacheName, final RemoteType remoteType, final long listenerId )
+            throws IOException
+        {
+            if ( listener == null )
+            {
+                listener = new ConnectionListener( this, remoteType, listenerId );
+            }
+
+            cacheServer.addCacheListener( cacheName, listener );
+            return listener.getListenerId();
+        }
+
+        /**
+         * Deregisters the listener of this connection from a region.
+         * <p>
+         * @param cacheName the region
+         * @throws IOException
+         */
+        protected synchronized void removeListener( final String cacheName )
+            throws IOException
+        {
+            if ( listener != null )
+            {
+                cacheServer.removeCacheListener( cacheName, listener.getListenerId() );
+            }
+        }
+
+        /**
+         * Closes the socket and deregisters the listener.
+         */
+        protected void close()
+        {
+            synchronized ( this )
+            {
+                if ( closed )
+                {
+                    return;
+                }
+                closed = true;
+                notifyAll();
+            }
+
+            connections.remove( this );
+
+            if ( key != null )
+            {
+                key.cancel();
+            }
+
+            try
+            {
+                channel.close();
+            }
+            catch ( final IOException e )
+            {
+                log.debug( "Problem closing channel", e );
+            }
+
+            synchronized ( writeQueue )
+            {
+                writeQueue.clear();
+            }
+
+            final ConnectionListener connectionListener;
+            synchronized ( this )
+            {
+                connectionListener = listener;
+            }
+
+            if ( connectionListener != null )
+            {
+                try
+                {
+                    cacheServer.removeCacheListener( connectionListener );
+                }
+                catch ( final IOException e )
+                {
+                    log.warn( "Problem removing listener {0}", connectionListener.getListenerId(), e );
+                }
+            }
+
+            log.info( "Closed connection to {0}", channel.socket().getRemoteSocketAddress() );
+        }
+    }
+
+    /**
+     * Receives the events of the regions a connection listens to and pushes them to the client.
+     */
+    protected class ConnectionListener
+        implements IRemoteCacheListener<K, V>
+    {
+        /** The connection to push to */
+        private final Connection connection;
+
+        /** LOCAL or CLUSTER */
+        private final RemoteType remoteType;
+
+        /** Assigned by the cache server */
+        private volatile long listenerId;
+
+        /**
+         * @param connection the connection to push to
+         * @param remoteType LOCAL or CLUSTER
+         * @param listenerId the id known by the client, 0 if none
+         */
+        protected ConnectionListener( final Connection connection, final RemoteType remoteType, final long listenerId )
+        {
+            this.connection = connection;
+            this.remoteType = remoteType == null ? RemoteType.LOCAL : remoteType;
+            this.listenerId = listenerId;
+        }
+
+        /**
+         * @param item the element put by another client
+         * @throws IOException
+         */
+        @Override
+        public void handlePut( final ICacheElement<K, V> item )
+            throws IOException
+        {
+            connection.push( RemoteCacheRequestFactory.createUpdateRequest( item, listenerId ) );
+        }
+
+        /**
+         * @param cacheName the region
+         * @param key the key removed by another client
+         * @throws IOException
+         */
+        @Override
+        public void handleRemove( final String cacheName, final K key )
+            throws IOException
+        {
+            connection.push( RemoteCacheRequestFactory.createRemoveRequest( cacheName, key, listenerId ) );
+        }
+
+        /**
+         * @param cacheName the region
+         * @throws IOException
+         */
+        @Override
+        public void handleRemoveAll( final String cacheName )
+            throws IOException
+        {
+            connection.push( RemoteCacheRequestFactory.createRemoveAllRequest( cacheName, listenerId ) );
+        }
+
+        /**
+         * @param cacheName the region
+         * @throws IOException
+         */
+        @Override
+        public void handleDispose( final String cacheName )
+            throws IOException
+        {
+            connection.push( RemoteCacheRequestFactory.createDisposeRequest( cacheName, listenerId ) );
+        }
+
+        /**
+         * @param id the id assigned by the cache server
+         */
+        @Override
+        public void setListenerId( final long id )
+        {
+            this.listenerId = id;
+        }
+
+        /**
+         * @return the listener id
+         */
+        @Override
+        public long getListenerId()
+        {
+            return listenerId;
+        }
+
+        /**
+         * @return LOCAL or CLUSTER
+         */
+        @Override
+        public RemoteType getRemoteType()
+        {
+            return remoteType;
+        }
+
+        /**
+         * @return the address of the client
+         */
+        @Override
+        public String getLocalHostAddress()
+        {
+            final InetSocketAddress address = (InetSocketAddress) connection.channel.socket().getRemoteSocketAddress();
+            return address == null ? null : address.getAddress().getHostAddress();
+        }
+
+        /** Closes the connection. */
+        @Override
+        public void dispose()
+        {
+            connection.close();
+        }
+    }
+}
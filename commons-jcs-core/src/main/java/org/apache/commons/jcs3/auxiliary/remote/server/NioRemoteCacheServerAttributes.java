@@ -0,0 +1,227 @@
+package org.apache.commons.jcs3.auxiliary.remote.server;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * These attributes are used to configure the NIO remote cache server. The region and listener
+ * settings are the same as for the RMI server.
+ */
+public class NioRemoteCacheServerAttributes
+    extends RemoteCacheServerAttributes
+{
+    /** Don't change */
+    private static final long serialVersionUID = 3181596622960862447L;
+
+    /** The default port */
+    public static final int DEFAULT_LISTENER_PORT = 1103;
+
+    /** The default maximum frame size, 16 MB */
+    private static final int DEFAULT_MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    /** The default high watermark, 4 MB */
+    private static final int DEFAULT_HIGH_WATERMARK_BYTES = 4 * 1024 * 1024;
+
+    /** The default low watermark, 1 MB */
+    private static final int DEFAULT_LOW_WATERMARK_BYTES = 1024 * 1024;
+
+    /** The default maximum number of requests in progress per connection */
+    private static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 64;
+
+    /** The default time an event waits for a congested connection */
+    private static final int DEFAULT_EVENT_PUSH_TIMEOUT_MILLIS = 10000;
+
+    /** The address to bind to, all addresses if empty */
+    private String listenerHost = "";
+
+    /** The port to listen on */
+    private int listenerPort = DEFAULT_LISTENER_PORT;
+
+    /** The number of threads processing requests, 0 for the number of processors */
+    private int workerThreads;
+
+    /** The largest frame accepted from a client */
+    private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+
+    /** Reading from a connection stops when this many bytes wait to be written to it */
+    private int highWatermarkBytes = DEFAULT_HIGH_WATERMARK_BYTES;
+
+    /** Reading from a connection resumes when fewer bytes wait to be written to it */
+    private int lowWatermarkBytes = DEFAULT_LOW_WATERMARK_BYTES;
+
+    /** Reading from a connection stops when this many of its requests are in progress */
+    private int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+
+    /** How long an event waits for a congested connection before it is dropped */
+    private int eventPushTimeoutMillis = DEFAULT_EVENT_PUSH_TIMEOUT_MILLIS;
+
+    /**
+     * @return the address to bind to, all addresses if empty
+     */
+    public String getListenerHost()
+    {
+        return listenerHost;
+    }
+
+    /**
+     * @param listenerHost the address to bind to, all addresses if empty
+     */
+    public void setListenerHost( final String listenerHost )
+    {
+        this.listenerHost = listenerHost;
+    }
+
+    /**
+     * This must not be the RMI service port.
+     * <p>
+     * @return the port to listen on
+     */
+    public int getListenerPort()
+    {
+        return listenerPort;
+    }
+
+    /**
+     * @param listenerPort the port to listen on, 0 for an ephemeral port
+     */
+    public void setListenerPort( final int listenerPort )
+    {
+        this.listenerPort = listenerPort;
+    }
+
+    /**
+     * @return the number of threads processing requests, 0 for the number of processors
+     */
+    public int getWorkerThreads()
+    {
+        return workerThreads;
+    }
+
+    /**
+     * @param workerThreads the number of threads processing requests, 0 for the number of processors
+     */
+    public void setWorkerThreads( final int workerThreads )
+    {
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * @return the largest frame accepted from a client
+     */
+    public int getMaxFrameSize()
+    {
+        return maxFrameSize;
+    }
+
+    /**
+     * Connections sending larger frames are closed.
+     * <p>
+     * @param maxFrameSize the largest frame accepted from a client
+     */
+    public void setMaxFrameSize( final int maxFrameSize )
+    {
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * @return the number of queued outgoing bytes above which reading from a connection stops
+     */
+    public int getHighWatermarkBytes()
+    {
+        return highWatermarkBytes;
+    }
+
+    /**
+     * @param highWatermarkBytes the number of queued outgoing bytes above which reading from a
+     *            connection stops
+     */
+    public void setHighWatermarkBytes( final int highWatermarkBytes )
+    {
+        this.highWatermarkBytes = highWatermarkBytes;
+    }
+
+    /**
+     * @return the number of queued outgoing bytes below which reading from a connection resumes
+     */
+    public int getLowWatermarkBytes()
+    {
+        return lowWatermarkBytes;
+    }
+
+    /**
+     * @param lowWatermarkBytes the number of queued outgoing bytes below which reading from a
+     *            connection resumes
+     */
+    public void setLowWatermarkBytes( final int lowWatermarkBytes )
+    {
+        this.lowWatermarkBytes = lowWatermarkBytes;
+    }
+
+    /**
+     * @return the number of requests per connection in progress at which reading stops
+     */
+    public int getMaxInFlightRequests()
+    {
+        return maxInFlightRequests;
+    }
+
+    /**
+     * @param maxInFlightRequests the number of requests per connection in progress at which
+     *            reading stops
+     */
+    public void setMaxInFlightRequests( final int maxInFlightRequests )
+    {
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    /**
+     * @return how long an event waits for a congested connection before the connection is closed
+     */
+    public int getEventPushTimeoutMillis()
+    {
+        return eventPushTimeoutMillis;
+    }
+
+    /**
+     * @param eventPushTimeoutMillis how long an event waits for a congested connection before
+     *            the connection is closed
+     */
+    public void setEventPushTimeoutMillis( final int eventPushTimeoutMillis )
+    {
+        this.eventPushTimeoutMillis = eventPushTimeoutMillis;
+    }
+
+    /**
+     * @return String details
+     */
+    @Override
+    public String toString()
+    {
+        final StringBuilder buf = new StringBuilder(super.toString());
+        buf.append( "\n listenerHost = [" + this.getListenerHost() + "]" );
+        buf.append( "\n listenerPort = [" + this.getListenerPort() + "]" );
+        buf.append( "\n workerThreads = [" + this.getWorkerThreads() + "]" );
+        buf.append( "\n maxFrameSize = [" + this.getMaxFrameSize() + "]" );
+        buf.append( "\n highWatermarkBytes = [" + this.getHighWatermarkBytes() + "]" );
+        buf.append( "\n lowWatermarkBytes = [" + this.getLowWatermarkBytes() + "]" );
+        buf.append( "\n maxInFlightRequests = [" + this.getMaxInFlightRequests() + "]" );
+        buf.append( "\n eventPushTimeoutMillis = [" + this.getEventPushTimeoutMillis() + "]" );
+        return buf.toString();
+    }
+}
@@ -34,6 +34,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.jcs3.access.exception.CacheException;
+import org.apache.commons.jcs3.auxiliary.AuxiliaryCache;
 import org.apache.commons.jcs3.auxiliary.remote.behavior.IRemoteCacheListener;
 import org.apache.commons.jcs3.auxiliary.remote.server.behavior.IRemoteCacheServer;
 import org.apache.commons.jcs3.auxiliary.remote.server.behavior.IRemoteCacheServerAttributes;
@@ -43,6 +44,7 @@ import org.apache.commons.jcs3.engine.CacheListeners;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICacheEventQueue;
 import org.apache.commons.jcs3.engine.behavior.ICacheListener;
+import org.apache.commons.jcs3.engine.behavior.ICacheType.CacheType;
 import org.apache.commons.jcs3.engine.control.CompositeCache;
 import org.apache.commons.jcs3.engine.control.CompositeCacheManager;
 import org.apache.commons.jcs3.engine.logging.CacheEvent;
@@ -50,6 +52,7 @@ import org.apache.commons.jcs3.engine.logging.behavior.ICacheEvent;
 import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.struct.BloomFilter;
 import org.apache.commons.jcs3.utils.timing.ElapsedTimer;
 
 /**
@@ -112,6 +115,12 @@ public class RemoteCacheServer<K, V>
     /** An optional event logger */
     private transient ICacheEventLogger cacheEventLogger;
 
+    /** The key filters sent to the clients, by region, with the time they were built. */
+    private final transient ConcurrentMap<String, KeyFilter> keyFilters = new ConcurrentHashMap<>();
+
+    /** The key filters being built, by region. They get the keys put while the keys are read. */
+    private final transient ConcurrentMap<String, BloomFilter> rebuildingKeyFilters = new ConcurrentHashMap<>();
+
     /**
      * Constructor for the RemoteCacheServer object. This initializes the server with the values
      * from the properties object.
@@ -274,9 +283,19 @@ public class RemoteCacheServer<K, V>
             // ordered cache item update and notification.
             synchronized ( cacheDesc )
             {
+                final CompositeCache<K, V> c = (CompositeCache<K, V>) cacheDesc.cache;
+
+                // Drop updates that are older than what we have, before they
+                // overwrite the newer value here and on the listeners.
+                if ( c.isStale( item ) )
+                {
+                    log.debug( "Dropping stale update for key [{0}] requesterId [{1}]",
+                            item.getKey(), requesterId );
+                    return;
+                }
+
                 try
                 {
-                    final CompositeCache<K, V> c = (CompositeCache<K, V>) cacheDesc.cache;
 
                     // If the source of this request was not from a cluster,
                     // then consider it a local update. The cache manager will
@@ -304,6 +323,8 @@ public class RemoteCacheServer<K, V>
                                 + " requesterId [{0}]", requesterId );
                         c.update( item );
                     }
+
+                    addToKeyFilters( item.getCacheName(), item.getKey() );
                 }
                 catch ( final IOException ce )
                 {
@@ -754,6 +775,99 @@ public class RemoteCacheServer<K, V>
         return c.getKeySet();
     }
 
+    /**
+     * Gets the key filter of the region, built again if it is older than KeyFilterRebuildSeconds.
+     * The keys put since it was built are in it. No filter is built for a region with auxiliaries
+     * other than disk caches, since a get may find the value there.
+     * <p>
+     * @param cacheName the name of the cache region
+     * @return the key filter, or null
+     * @throws IOException
+     * @see org.apache.commons.jcs3.engine.behavior.ICacheServiceNonLocal#getKeyFilter(String)
+     */
+    @Override
+    public BloomFilter getKeyFilter( final String cacheName )
+        throws IOException
+    {
+        final KeyFilter current = keyFilters.get( cacheName );
+        if ( current != null && System.currentTimeMillis() - current.built
+                < remoteCacheServerAttributes.getKeyFilterRebuildSeconds() * 1000L )
+        {
+            return current.filter;
+        }
+
+        final CacheListeners<K, V> cacheDesc = getCacheListeners( cacheName );
+        final CompositeCache<K, V> c = (CompositeCache<K, V>) cacheDesc.cache;
+
+        long size = c.getMemoryCache().getSize();
+        for ( final AuxiliaryCache<K, V> aux : c.getAuxCacheList() )
+        {
+            if ( aux.getCacheType() != CacheType.DISK_CACHE )
+            {
+                return null;
+            }
+            size += aux.getSize();
+        }
+
+        final BloomFilter filter = new BloomFilter( (int) Math.min( Integer.MAX_VALUE, Math.max( 1024, 2 * size ) ),
+                remoteCacheServerAttributes.getKeyFilterFalsePositiveRate() );
+
+        // updates hold the lock, so the ones not in the filter are in the cache
+        synchronized ( cacheDesc )
+        {
+            if ( rebuildingKeyFilters.putIfAbsent( cacheName, filter ) != null )
+            {
+                // another client is building it
+                return current == null ? null : current.filter;
+            }
+        }
+
+        final long start = System.currentTimeMillis();
+        try
+        {
+            c.getMemoryCache().getKeyStream().forEach( filter::add );
+            for ( final AuxiliaryCache<K, V> aux : c.getAuxCacheList() )
+            {
+                aux.getKeyStream().forEach( filter::add );
+            }
+
+            keyFilters.put( cacheName, new KeyFilter( filter, start ) );
+            log.debug( "Built key filter for region [{0}]: {1}", cacheName, filter );
+            return filter;
+        }
+        catch ( final UnsupportedOperationException e )
+        {
+            log.info( "The keys of region [{0}] cannot be listed, no key filter", cacheName );
+            return null;
+        }
+        finally
+        {
+            rebuildingKeyFilters.remove( cacheName, filter );
+        }
+    }
+
+    /**
+     * Adds a key to the key filter of the region and to the one being built. To call while holding
+     * the lock of the region.
+     * <p>
+     * @param cacheName
+     * @param key
+     */
+    private void addToKeyFilters( final String cacheName, final K key )
+    {
+        final BloomFilter rebuilding = rebuildingKeyFilters.get( cacheName );
+        if ( rebuilding != null )
+        {
+            rebuilding.add( key );
+        }
+
+        final KeyFilter current = keyFilters.get( cacheName );
+        if ( current != null )
+        {
+            current.filter.add( key );
+        }
+    }
+
     /**
      * Removes the given key from the specified remote cache. Defaults the listener id to 0.
      * <p>
@@ -1512,4 +1626,24 @@ public class RemoteCacheServer<K, V>
     {
         this.cacheEventLogger = cacheEventLogger;
     }
+
+    /** A key filter and the time it was built. */
+    private static class KeyFilter
+    {
+        /** The filter */
+        final BloomFilter filter;
+
+        /** When the keys started to be read */
+        final long built;
+
+        /**
+         * @param filter
+         * @param built
+         */
+        KeyFilter( final BloomFilter filter, final long built )
+        {
+            this.filter = filter;
+            this.built = built;
+        }
+    }
 }
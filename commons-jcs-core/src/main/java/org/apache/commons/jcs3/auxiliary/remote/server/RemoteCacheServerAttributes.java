@@ -56,6 +56,12 @@ public class RemoteCacheServerAttributes
     /** The delay between runs */
     private long registryKeepAliveDelayMillis = 15 * 1000;
 
+    /** The number of seconds a key filter is kept before it is built again */
+    private int keyFilterRebuildSeconds = 300;
+
+    /** The false positive rate of the key filters */
+    private double keyFilterFalsePositiveRate = 0.01;
+
     /** Default constructor for the RemoteCacheAttributes object */
     public RemoteCacheServerAttributes()
     {
@@ -193,6 +199,42 @@ public class RemoteCacheServerAttributes
         return registryKeepAliveDelayMillis;
     }
 
+    /**
+     * @param keyFilterRebuildSeconds the keyFilterRebuildSeconds to set
+     */
+    @Override
+    public void setKeyFilterRebuildSeconds( final int keyFilterRebuildSeconds )
+    {
+        this.keyFilterRebuildSeconds = keyFilterRebuildSeconds;
+    }
+
+    /**
+     * @return the keyFilterRebuildSeconds
+     */
+    @Override
+    public int getKeyFilterRebuildSeconds()
+    {
+        return keyFilterRebuildSeconds;
+    }
+
+    /**
+     * @param keyFilterFalsePositiveRate the keyFilterFalsePositiveRate to set
+     */
+    @Override
+    public void setKeyFilterFalsePositiveRate( final double keyFilterFalsePositiveRate )
+    {
+        this.keyFilterFalsePositiveRate = keyFilterFalsePositiveRate;
+    }
+
+    /**
+     * @return the keyFilterFalsePositiveRate
+     */
+    @Override
+    public double getKeyFilterFalsePositiveRate()
+    {
+        return keyFilterFalsePositiveRate;
+    }
+
     /**
      * @return String details
      */
@@ -206,6 +248,8 @@ public class RemoteCacheServerAttributes
         buf.append( "\n rmiSocketFactoryTimeoutMillis = [" + this.getRmiSocketFactoryTimeoutMillis() + "]" );
         buf.append( "\n useRegistryKeepAlive = [" + this.isUseRegistryKeepAlive() + "]" );
         buf.append( "\n registryKeepAliveDelayMillis = [" + this.getRegistryKeepAliveDelayMillis() + "]" );
+        buf.append( "\n keyFilterRebuildSeconds = [" + this.getKeyFilterRebuildSeconds() + "]" );
+        buf.append( "\n keyFilterFalsePositiveRate = [" + this.getKeyFilterFalsePositiveRate() + "]" );
         buf.append( "\n eventQueueType = [" + this.getEventQueueType() + "]" );
         buf.append( "\n eventQueuePoolName = [" + this.getEventQueuePoolName() + "]" );
         return buf.toString();
@@ -119,4 +119,27 @@ public interface IRemoteCacheServerAttributes
      * @return the registryKeepAliveDelayMillis
      */
     long getRegistryKeepAliveDelayMillis();
+
+    /**
+     * The key filter of a region is built when a client first asks for it, and built again when
+     * a client asks for it this many seconds later. Puts are added to it in between.
+     * <p>
+     * @param keyFilterRebuildSeconds the keyFilterRebuildSeconds to set
+     */
+    void setKeyFilterRebuildSeconds( int keyFilterRebuildSeconds );
+
+    /**
+     * @return the keyFilterRebuildSeconds
+     */
+    int getKeyFilterRebuildSeconds();
+
+    /**
+     * @param keyFilterFalsePositiveRate the keyFilterFalsePositiveRate to set
+     */
+    void setKeyFilterFalsePositiveRate( double keyFilterFalsePositiveRate );
+
+    /**
+     * @return the rate of gets of missing keys that the key filters sent to the clients let through
+     */
+    double getKeyFilterFalsePositiveRate();
 }
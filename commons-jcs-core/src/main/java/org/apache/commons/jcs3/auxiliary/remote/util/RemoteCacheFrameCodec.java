@@ -0,0 +1,182 @@
+package org.apache.commons.jcs3.auxiliary.remote.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+
+/**
+ * Reads and writes length prefixed frames. Each frame holds one object serialized with the given
+ * serializer: a four byte length followed by the bytes. This is the format of the batched remote
+ * requests and responses.
+ * <p>
+ * Multiplexed connections use tagged frames instead: a four byte length, an eight byte
+ * correlation id and the bytes. The length counts the id and the bytes.
+ */
+public final class RemoteCacheFrameCodec
+{
+    /** The size of the length and correlation id of a tagged frame. */
+    public static final int TAGGED_HEADER_SIZE = 12;
+
+    /** The largest frame read when no limit is given, the default of the NIO remote cache server. */
+    public static final int DEFAULT_MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    /** Static methods only. */
+    private RemoteCacheFrameCodec()
+    {
+        // nothing
+    }
+
+    /**
+     * Writes one frame.
+     * <p>
+     * @param serializer the serializer
+     * @param obj the object to write
+     * @param out the stream
+     * @throws IOException
+     */
+    public static <T> void writeFrame( final IElementSerializer serializer, final T obj, final DataOutputStream out )
+        throws IOException
+    {
+        final byte[] bytes = serializer.serialize( obj );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    /**
+     * Reads one frame of at most DEFAULT_MAX_FRAME_SIZE bytes. Unlike
+     * IElementSerializer.deSerializeFrom this keeps reading until the frame is complete, which
+     * matters for network streams.
+     * <p>
+     * @param serializer the serializer
+     * @param in the stream
+     * @param loader the class loader, may be null
+     * @return the object or null if the stream ended before a new frame
+     * @throws IOException if the stream ended inside a frame
+     * @throws ClassNotFoundException
+     */
+    public static <T> T readFrame( final IElementSerializer serializer, final DataInputStream in, final ClassLoader loader )
+        throws IOException, ClassNotFoundException
+    {
+        return readFrame( serializer, in, loader, DEFAULT_MAX_FRAME_SIZE );
+    }
+
+    /**
+     * Reads one frame, refusing it before allocating anything if it is larger than maxFrameSize.
+     * <p>
+     * @param serializer the serializer
+     * @param in the stream
+     * @param loader the class loader, may be null
+     * @param maxFrameSize the largest frame accepted, in bytes
+     * @return the object or null if the stream ended before a new frame
+     * @throws RemoteCacheFrameTooLargeException if the frame is larger than maxFrameSize
+     * @throws IOException if the stream ended inside a frame
+     * @throws ClassNotFoundException
+     */
+    public static <T> T readFrame( final IElementSerializer serializer, final DataInputStream in, final ClassLoader loader,
+                                   final int maxFrameSize )
+        throws IOException, ClassNotFoundException
+    {
+        final byte[] bytes = readFrameBytes( in, maxFrameSize );
+        return bytes == null ? null : serializer.deSerialize( bytes, loader );
+    }
+
+    /**
+     * Reads the bytes of one frame, refusing it before allocating anything if it is larger than
+     * maxFrameSize.
+     * <p>
+     * @param in the stream
+     * @param maxFrameSize the largest frame accepted, in bytes
+     * @return the bytes of the frame, without the length, or null if the stream ended before a
+     *         new frame
+     * @throws RemoteCacheFrameTooLargeException if the frame is larger than maxFrameSize
+     * @throws IOException if the length is invalid or the stream ended inside a frame
+     */
+    public static byte[] readFrameBytes( final DataInputStream in, final int maxFrameSize )
+        throws IOException
+    {
+        final int length;
+        try
+        {
+            length = in.readInt();
+        }
+        catch ( final EOFException e )
+        {
+            return null;
+        }
+
+        if ( length < 0 )
+        {
+            throw new IOException( "Invalid frame length " + length );
+        }
+        if ( length > maxFrameSize )
+        {
+            throw new RemoteCacheFrameTooLargeException( length, maxFrameSize );
+        }
+
+        final byte[] bytes = new byte[length];
+        in.readFully( bytes );
+        return bytes;
+    }
+
+    /**
+     * Writes one tagged frame.
+     * <p>
+     * @param serializer the serializer
+     * @param id the correlation id
+     * @param obj the object to write
+     * @param out the stream
+     * @throws IOException
+     */
+    public static <T> void writeTaggedFrame( final IElementSerializer serializer, final long id, final T obj, final DataOutputStream out )
+        throws IOException
+    {
+        final byte[] bytes = serializer.serialize( obj );
+        out.writeInt( bytes.length + 8 );
+        out.writeLong( id );
+        out.write( bytes );
+    }
+
+    /**
+     * Encodes one tagged frame into a buffer ready to be written to a channel.
+     * <p>
+     * @param serializer the serializer
+     * @param id the correlation id
+     * @param obj the object to write
+     * @return the flipped buffer
+     * @throws IOException
+     */
+    public static <T> ByteBuffer encodeTaggedFrame( final IElementSerializer serializer, final long id, final T obj )
+        throws IOException
+    {
+        final byte[] bytes = serializer.serialize( obj );
+        final ByteBuffer buffer = ByteBuffer.allocate( TAGGED_HEADER_SIZE + bytes.length );
+        buffer.putInt( bytes.length + 8 );
+        buffer.putLong( id );
+        buffer.put( bytes );
+        buffer.flip();
+        return buffer;
+    }
+}
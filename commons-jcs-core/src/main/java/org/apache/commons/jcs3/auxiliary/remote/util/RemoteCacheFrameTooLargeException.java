@@ -1,4 +1,4 @@
-package org.apache.commons.jcs.utils.props;
+package org.apache.commons.jcs3.auxiliary.remote.util;
 
 /*
  * Licensed to the Apache Software Foundation (ASF) under one
@@ -19,18 +19,24 @@ package org.apache.commons.jcs.utils.props;
  * under the License.
  */
 
-import java.util.Properties;
+import java.io.IOException;
 
 /**
- * Retrieves properties from a configurable source.
+ * Thrown when a frame announces a length above the limit of the reader. Nothing was allocated
+ * for the frame and the stream is left inside it.
  */
-public interface PropertiesFactory
+public class RemoteCacheFrameTooLargeException
+    extends IOException
 {
+    /** Don't change. */
+    private static final long serialVersionUID = -6529514432960531873L;
+
     /**
-     * Fetches a set of properties for the specified group.
-     * <p>
-     * @param groupName the group to pull properties from.
-     * @return a properties object.
+     * @param length the length announced by the frame
+     * @param maxFrameSize the limit of the reader
      */
-    Properties getProperties( String groupName );
+    public RemoteCacheFrameTooLargeException( final int length, final int maxFrameSize )
+    {
+        super( "Frame length " + length + " is above the limit of " + maxFrameSize + " bytes" );
+    }
 }
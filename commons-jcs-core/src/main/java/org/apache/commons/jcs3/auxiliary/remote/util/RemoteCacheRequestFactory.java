@@ -21,6 +21,7 @@ package org.apache.commons.jcs3.auxiliary.remote.util;
 
 import java.util.Set;
 
+import org.apache.commons.jcs3.auxiliary.remote.server.behavior.RemoteType;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteRequestType;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
@@ -195,4 +196,50 @@ public class RemoteCacheRequestFactory
 
         return createRequest(null, RemoteRequestType.ALIVE_CHECK, requesterId);
     }
+
+    /**
+     * Creates a request for the invalidations recorded after the given sequence number.
+     * <p>
+     * @param cacheName
+     * @param sequence the last sequence number seen by the client, -1 if none
+     * @param requesterId
+     * @return RemoteHttpCacheRequest
+     */
+    public static RemoteCacheRequest<Long, String> createGetInvalidationsRequest( final String cacheName, final long sequence, final long requesterId )
+    {
+        final RemoteCacheRequest<Long, String> request = createRequest(cacheName, RemoteRequestType.GET_INVALIDATIONS, requesterId);
+        request.setKey( Long.valueOf( sequence ) );
+
+        return request;
+    }
+
+    /**
+     * Creates a request to register the listener of the connection for a region. The requester id
+     * is the current listener id, 0 to let the server assign one.
+     * <p>
+     * @param cacheName
+     * @param remoteType the type of the listener, LOCAL or CLUSTER
+     * @param requesterId
+     * @return RemoteCacheRequest
+     */
+    public static RemoteCacheRequest<RemoteType, String> createAddListenerRequest( final String cacheName, final RemoteType remoteType, final long requesterId )
+    {
+        final RemoteCacheRequest<RemoteType, String> request = createRequest(cacheName, RemoteRequestType.ADD_LISTENER, requesterId);
+        request.setKey( remoteType );
+
+        return request;
+    }
+
+    /**
+     * Creates a request to deregister the listener of the connection from a region.
+     * <p>
+     * @param cacheName
+     * @param requesterId the listener id
+     * @return RemoteCacheRequest
+     */
+    public static <K, V> RemoteCacheRequest<K, V> createRemoveListenerRequest( final String cacheName, final long requesterId )
+    {
+
+        return createRequest(cacheName, RemoteRequestType.REMOVE_LISTENER, requesterId);
+    }
 }
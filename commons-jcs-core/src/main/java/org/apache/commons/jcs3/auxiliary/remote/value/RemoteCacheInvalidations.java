@@ -0,0 +1,150 @@
+package org.apache.commons.jcs3.auxiliary.remote.value;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch of invalidations for one region, as returned to a polling client.
+ * <p>
+ * The server numbers every change of a region. The client sends the last sequence number it has
+ * seen and receives the keys changed since then. If the server no longer has all the changes
+ * since that number, or if it was restarted in the meantime, the batch is flagged as a resync and
+ * the client has to drop everything it holds for the region.
+ */
+public class RemoteCacheInvalidations<K>
+    implements Serializable
+{
+    /** Don't change. */
+    private static final long serialVersionUID = 3185287462541389107L;
+
+    /** Identifies the lifetime of the server side log. Changes when the server restarts. */
+    private long epoch;
+
+    /** The sequence number of the last change included in this batch. */
+    private long sequence;
+
+    /** The client missed changes and must drop all its data for the region. */
+    private boolean resync;
+
+    /** A removeAll was done on the region. */
+    private boolean removeAll;
+
+    /** The changed keys. */
+    private final List<K> keys = new ArrayList<>();
+
+    /**
+     * @return the epoch of the server side log
+     */
+    public long getEpoch()
+    {
+        return epoch;
+    }
+
+    /**
+     * @param epoch the epoch of the server side log
+     */
+    public void setEpoch( final long epoch )
+    {
+        this.epoch = epoch;
+    }
+
+    /**
+     * @return the sequence number to send with the next request
+     */
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * @param sequence the sequence number of the last change included
+     */
+    public void setSequence( final long sequence )
+    {
+        this.sequence = sequence;
+    }
+
+    /**
+     * @return true if the client missed changes
+     */
+    public boolean isResync()
+    {
+        return resync;
+    }
+
+    /**
+     * @param resync true if the client missed changes
+     */
+    public void setResync( final boolean resync )
+    {
+        this.resync = resync;
+    }
+
+    /**
+     * @return true if the region was cleared
+     */
+    public boolean isRemoveAll()
+    {
+        return removeAll;
+    }
+
+    /**
+     * @param removeAll true if the region was cleared
+     */
+    public void setRemoveAll( final boolean removeAll )
+    {
+        this.removeAll = removeAll;
+    }
+
+    /**
+     * @return the changed keys, never null
+     */
+    public List<K> getKeys()
+    {
+        return keys;
+    }
+
+    /**
+     * @return true if there is nothing to invalidate
+     */
+    public boolean isEmpty()
+    {
+        return !resync && !removeAll && keys.isEmpty();
+    }
+
+    /**
+     * @return string
+     */
+    @Override
+    public String toString()
+    {
+        final StringBuilder buf = new StringBuilder();
+        buf.append( "\nRemoteCacheInvalidations" );
+        buf.append( "\n Epoch [" + getEpoch() + "]" );
+        buf.append( "\n Sequence [" + getSequence() + "]" );
+        buf.append( "\n Resync [" + isResync() + "]" );
+        buf.append( "\n RemoveAll [" + isRemoveAll() + "]" );
+        buf.append( "\n Keys [" + getKeys().size() + "]" );
+        return buf.toString();
+    }
+}
@@ -50,4 +50,13 @@ public enum RemoteRequestType
 
     /** Dispose request type. */
     DISPOSE,
+
+    /** Get invalidations request type. */
+    GET_INVALIDATIONS,
+
+    /** Add listener request type. */
+    ADD_LISTENER,
+
+    /** Remove listener request type. */
+    REMOVE_LISTENER,
 }
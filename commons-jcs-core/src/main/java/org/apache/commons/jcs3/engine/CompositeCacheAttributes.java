@@ -100,6 +100,18 @@ public class CompositeCacheAttributes
     /** How many to spool to disk at a time. */
     private int spoolChunkSize = DEFAULT_CHUNK_SIZE;
 
+    /** Whether elements are stamped with a version to reject stale remote updates. */
+    private boolean useVersioning;
+
+    /** Whether the latencies of each tier are recorded. */
+    private boolean useLatencyHistograms;
+
+    /** Whether the memory cache keeps a key index. */
+    private boolean useKeyIndex;
+
+    /** The number of regions the keys are spread over. */
+    private int numberOfPartitions = 1;
+
     /**
      * Constructor for the CompositeCacheAttributes object
      */
@@ -392,6 +404,99 @@ public class CompositeCacheAttributes
         this.spoolChunkSize = spoolChunkSize;
     }
 
+    /**
+     * Whether elements put into this region are stamped with a hybrid logical clock version, so
+     * that stale updates arriving from laterals or remote servers can be rejected.
+     * <p>
+     * @return true if versioning is enabled
+     */
+    @Override
+    public boolean isUseVersioning()
+    {
+        return useVersioning;
+    }
+
+    /**
+     * By default this is false.
+     * <p>
+     * @param useVersioning
+     */
+    @Override
+    public void setUseVersioning( final boolean useVersioning )
+    {
+        this.useVersioning = useVersioning;
+    }
+
+    /**
+     * Whether the durations of the gets, puts and removes of each tier of this region, the memory
+     * cache and every auxiliary, are recorded in histograms reported with the statistics.
+     * <p>
+     * @return true if the latencies are recorded
+     */
+    @Override
+    public boolean isUseLatencyHistograms()
+    {
+        return useLatencyHistograms;
+    }
+
+    /**
+     * By default this is false.
+     * <p>
+     * @param useLatencyHistograms
+     */
+    @Override
+    public void setUseLatencyHistograms( final boolean useLatencyHistograms )
+    {
+        this.useLatencyHistograms = useLatencyHistograms;
+    }
+
+    /**
+     * Whether the memory cache keeps its keys ordered by text, so that hierarchical removals and
+     * getMatching patterns starting with a literal prefix don't scan all the keys.
+     * <p>
+     * @return true if the memory cache keeps a key index
+     */
+    @Override
+    public boolean isUseKeyIndex()
+    {
+        return useKeyIndex;
+    }
+
+    /**
+     * By default this is false.
+     * <p>
+     * @param useKeyIndex
+     */
+    @Override
+    public void setUseKeyIndex( final boolean useKeyIndex )
+    {
+        this.useKeyIndex = useKeyIndex;
+    }
+
+    /**
+     * The number of regions the keys of this region are spread over by hash. Each partition is a
+     * region of its own, with its own memory cache and auxiliaries, all configured like this
+     * region.
+     * <p>
+     * @return the number of partitions, 1 if the region is not partitioned
+     */
+    @Override
+    public int getNumberOfPartitions()
+    {
+        return numberOfPartitions;
+    }
+
+    /**
+     * By default this is 1.
+     * <p>
+     * @param numberOfPartitions
+     */
+    @Override
+    public void setNumberOfPartitions( final int numberOfPartitions )
+    {
+        this.numberOfPartitions = numberOfPartitions;
+    }
+
     /**
      * @return Returns the diskUsagePattern.
      */
@@ -419,6 +524,10 @@ public class CompositeCacheAttributes
         dump.append( ", maxSpoolPerRun = " ).append( maxSpoolPerRun );
         dump.append( ", diskUsagePattern = " ).append( diskUsagePattern );
         dump.append( ", spoolChunkSize = " ).append( spoolChunkSize );
+        dump.append( ", useVersioning = " ).append( useVersioning );
+        dump.append( ", useLatencyHistograms = " ).append( useLatencyHistograms );
+        dump.append( ", useKeyIndex = " ).append( useKeyIndex );
+        dump.append( ", numberOfPartitions = " ).append( numberOfPartitions );
         dump.append( " ]" );
 
         return dump.toString();
@@ -67,6 +67,9 @@ public class ElementAttributes
      */
     private long maxIdleTime = -1;
 
+    /** How long before the expiration a hit triggers a reload, -1 for never. */
+    private long refreshAhead = -1;
+
     /** The byte size of the field. Must be manually set. */
     private int size;
 
@@ -76,6 +79,9 @@ public class ElementAttributes
     /** The last access time. This is used to enforce the max idel time. */
     private long lastAccessTime;
 
+    /** The hybrid logical clock timestamp of the last update, 0 if not versioned. */
+    private long version;
+
     /**
      * The list of Event handlers to use. This is transient, since the event handlers cannot usually
      * be serialized. This means that you cannot attach a post serialization event to an item.
@@ -117,7 +123,9 @@ public class ElementAttributes
         maxLife = attr.maxLife;
         // time-to-live
         maxIdleTime = attr.maxIdleTime;
+        refreshAhead = attr.refreshAhead;
         size = attr.size;
+        version = attr.version;
     }
 
     /**
@@ -216,6 +224,28 @@ public class ElementAttributes
         return this.maxIdleTime;
     }
 
+    /**
+     * Sets the refresh ahead window, in the same unit as the max life.
+     * <p>
+     * @param refreshAhead The new refresh ahead window, -1 to disable it
+     */
+    @Override
+    public void setRefreshAhead( final long refreshAhead )
+    {
+        this.refreshAhead = refreshAhead;
+    }
+
+    /**
+     * Gets the refresh ahead window.
+     * <p>
+     * @return The refresh ahead window, -1 if disabled
+     */
+    @Override
+    public long getRefreshAhead()
+    {
+        return this.refreshAhead;
+    }
+
     /**
      * Gets the time left to live of the IAttributes object.
      * <p>
@@ -392,6 +422,29 @@ public class ElementAttributes
         }
     }
 
+    /**
+     * Gets the version of the element. This is a hybrid logical clock timestamp stamped by regions
+     * that have versioning enabled. 0 means the element is not versioned.
+     * <p>
+     * @return the version
+     */
+    @Override
+    public long getVersion()
+    {
+        return this.version;
+    }
+
+    /**
+     * Sets the version of the element.
+     * <p>
+     * @param version the hybrid logical clock timestamp, 0 for none
+     */
+    @Override
+    public void setVersion( final long version )
+    {
+        this.version = version;
+    }
+
     @Override
     public long getTimeFactorForMilliseconds()
     {
@@ -431,8 +484,10 @@ public class ElementAttributes
         dump.append( ", IS_ETERNAL = " ).append( IS_ETERNAL );
         dump.append( ", MaxLifeSeconds = " ).append( this.getMaxLife() );
         dump.append( ", IdleTime = " ).append( this.getIdleTime() );
+        dump.append( ", RefreshAhead = " ).append( this.getRefreshAhead() );
         dump.append( ", CreateTime = " ).append( this.getCreateTime() );
         dump.append( ", LastAccessTime = " ).append( this.getLastAccessTime() );
+        dump.append( ", Version = " ).append( this.getVersion() );
         dump.append( ", getTimeToLiveSeconds() = " ).append( String.valueOf( getTimeToLiveSeconds() ) );
         dump.append( ", createTime = " ).append( String.valueOf( createTime ) ).append( " ]" );
 
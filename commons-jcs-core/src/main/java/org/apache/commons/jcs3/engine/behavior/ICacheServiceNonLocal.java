@@ -24,6 +24,8 @@ import java.rmi.Remote;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.jcs3.utils.struct.BloomFilter;
+
 /**
  * Used to retrieve and update non local caches, such as the remote and lateral caches. Unlike
  * ICacheService, the methods here have a requester id. This allows us to avoid propagating events
@@ -115,4 +117,19 @@ public interface ICacheServiceNonLocal<K, V>
      *       region.
      */
     Set<K> getKeySet( String cacheName ) throws IOException;
+
+    /**
+     * Gets a Bloom filter of the hash codes of the keys in the cache. A get of a key the filter
+     * does not contain would return null. The filter is a snapshot: keys put afterwards are not
+     * in it.
+     * <p>
+     * @param cacheName the name of the cache
+     * @return the key filter, or null if the service does not build key filters
+     * @throws IOException
+     */
+    default BloomFilter getKeyFilter( final String cacheName )
+        throws IOException
+    {
+        return null;
+    }
 }
@@ -237,6 +237,68 @@ public interface ICompositeCacheAttributes
      */
     void setSpoolChunkSize( int spoolChunkSize );
 
+    /**
+     * Whether elements put into this region are stamped with a hybrid logical clock version, so
+     * that stale updates arriving from laterals or remote servers can be rejected.
+     * <p>
+     * @return true if versioning is enabled
+     */
+    boolean isUseVersioning();
+
+    /**
+     * By default this is false.
+     * <p>
+     * @param useVersioning
+     */
+    void setUseVersioning( boolean useVersioning );
+
+    /**
+     * Whether the durations of the gets, puts and removes of each tier of this region, the memory
+     * cache and every auxiliary, are recorded in histograms reported with the statistics.
+     * <p>
+     * @return true if the latencies are recorded
+     */
+    boolean isUseLatencyHistograms();
+
+    /**
+     * By default this is false.
+     * <p>
+     * @param useLatencyHistograms
+     */
+    void setUseLatencyHistograms( boolean useLatencyHistograms );
+
+    /**
+     * Whether the memory cache keeps its keys ordered by text, so that hierarchical removals and
+     * getMatching patterns starting with a literal prefix don't scan all the keys.
+     * <p>
+     * @return true if the memory cache keeps a key index
+     */
+    boolean isUseKeyIndex();
+
+    /**
+     * By default this is false.
+     * <p>
+     * @param useKeyIndex
+     */
+    void setUseKeyIndex( boolean useKeyIndex );
+
+    /**
+     * The number of regions the keys of this region are spread over by hash. Each partition is a
+     * region of its own, with its own memory cache and auxiliaries, all configured like this
+     * region. The first partition is the region itself, the others are named after it with the
+     * suffixes _1 to _N-1.
+     * <p>
+     * @return the number of partitions, 1 if the region is not partitioned
+     */
+    int getNumberOfPartitions();
+
+    /**
+     * By default this is 1.
+     * <p>
+     * @param numberOfPartitions
+     */
+    void setNumberOfPartitions( int numberOfPartitions );
+
     /**
      * Clone object
      */
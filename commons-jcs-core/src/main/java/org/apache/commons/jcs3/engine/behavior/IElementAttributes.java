@@ -103,6 +103,23 @@ public interface IElementAttributes extends Serializable, Cloneable
      */
     long getIdleTime();
 
+    /**
+     * Sets the refresh ahead window, in the same unit as the max life. A hit on an element expiring
+     * within this window returns the cached value and reloads it in the background when the reader
+     * provided a way to load it, so hot keys don't wait for a reload when they expire.
+     * <p>
+     * -1, the default, disables it.
+     * @param refreshAhead The new refresh ahead window
+     */
+    void setRefreshAhead( long refreshAhead );
+
+    /**
+     * Gets the refresh ahead window.
+     * <p>
+     * @return The refresh ahead window, -1 if disabled
+     */
+    long getRefreshAhead();
+
     /**
      * Gets the time left to live of the IAttributes object.
      * <p>
@@ -193,6 +210,21 @@ public interface IElementAttributes extends Serializable, Cloneable
      */
     void addElementEventHandlers( List<IElementEventHandler> eventHandlers );
 
+    /**
+     * Gets the version of the element. This is a hybrid logical clock timestamp stamped by regions
+     * that have versioning enabled. 0 means the element is not versioned.
+     * <p>
+     * @return the version
+     */
+    long getVersion();
+
+    /**
+     * Sets the version of the element.
+     * <p>
+     * @param version the hybrid logical clock timestamp, 0 for none
+     */
+    void setVersion( long version );
+
     long getTimeFactorForMilliseconds();
 
     void setTimeFactorForMilliseconds(long factor);
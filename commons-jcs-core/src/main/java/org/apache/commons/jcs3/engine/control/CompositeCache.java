@@ -30,12 +30,16 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -61,12 +65,15 @@ import org.apache.commons.jcs3.engine.memory.behavior.IMemoryCache;
 import org.apache.commons.jcs3.engine.memory.lru.LRUMemoryCache;
 import org.apache.commons.jcs3.engine.memory.shrinking.ShrinkerThread;
 import org.apache.commons.jcs3.engine.stats.CacheStats;
+import org.apache.commons.jcs3.engine.stats.LatencyHistogram;
 import org.apache.commons.jcs3.engine.stats.StatElement;
 import org.apache.commons.jcs3.engine.stats.behavior.ICacheStats;
 import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
 import org.apache.commons.jcs3.engine.stats.behavior.IStats;
 import org.apache.commons.jcs3.log.Log;
 import org.apache.commons.jcs3.log.LogManager;
+import org.apache.commons.jcs3.utils.threadpool.ThreadPoolManager;
+import org.apache.commons.jcs3.utils.timing.HybridLogicalClock;
 
 /**
  * This is the primary hub for a single cache/region. It controls the flow of items through the
@@ -99,22 +106,40 @@ public class CompositeCache<K, V>
     private ICompositeCacheAttributes cacheAttr;
 
     /** How many times update was called. */
-    private final AtomicLong updateCount;
+    private final LongAdder updateCount;
 
     /** How many times remove was called. */
-    private final AtomicLong removeCount;
+    private final LongAdder removeCount;
 
     /** Memory cache hit count */
-    private final AtomicLong hitCountRam;
+    private final LongAdder hitCountRam;
 
     /** Auxiliary cache hit count (number of times found in ANY auxiliary) */
-    private final AtomicLong hitCountAux;
+    private final LongAdder hitCountAux;
 
     /** Count of misses where element was not found. */
-    private final AtomicLong missCountNotFound;
+    private final LongAdder missCountNotFound;
 
     /** Count of misses where element was expired. */
-    private final AtomicLong missCountExpired;
+    private final LongAdder missCountExpired;
+
+    /** Count of local updates rejected because a newer version was already present. */
+    private final LongAdder staleUpdateCount;
+
+    /** Clock used to version elements if the region has versioning enabled. */
+    private final HybridLogicalClock clock = new HybridLogicalClock();
+
+    /** How long the version of a removed key is kept to reject late updates, in milliseconds */
+    private static final long TOMBSTONE_MILLIS = 60000;
+
+    /** Version of the element removed last for each recently removed key, if versioning is enabled */
+    private final ConcurrentMap<K, Tombstone> tombstones = new ConcurrentHashMap<>();
+
+    /** Highest version removed by the last removeAll, updates at or below it are stale */
+    private volatile long removeAllVersion;
+
+    /** Last time the expired tombstones were dropped */
+    private volatile long lastTombstonePrune;
 
     /** Cache manager. */
     private CompositeCacheManager cacheManager;
@@ -130,6 +155,27 @@ public class CompositeCache<K, V>
 
     private ScheduledFuture<?> future;
 
+    /** Keys with a refresh ahead in progress */
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+
+    /** Number of key lock stripes, a power of two */
+    private static final int KEY_LOCK_STRIPES = 64;
+
+    /** Make the checks on the element in memory and its update atomic, one lock per stripe of keys */
+    private final Lock[] keyLocks = new Lock[KEY_LOCK_STRIPES];
+
+    /** Index of the get latencies of a tier */
+    private static final int LATENCY_GET = 0;
+
+    /** Index of the put latencies of a tier */
+    private static final int LATENCY_PUT = 1;
+
+    /** Index of the remove latencies of a tier */
+    private static final int LATENCY_REMOVE = 2;
+
+    /** Get, put and remove latencies in microseconds by tier, the memory cache or an auxiliary */
+    private final ConcurrentMap<Object, LatencyHistogram[]> latencies = new ConcurrentHashMap<>();
+
     /**
      * Constructor for the Cache object
      * <p>
@@ -141,12 +187,17 @@ public class CompositeCache<K, V>
         this.attr = attr;
         this.cacheAttr = cattr;
         this.alive = new AtomicBoolean(true);
-        this.updateCount = new AtomicLong(0);
-        this.removeCount = new AtomicLong(0);
-        this.hitCountRam = new AtomicLong(0);
-        this.hitCountAux = new AtomicLong(0);
-        this.missCountNotFound = new AtomicLong(0);
-        this.missCountExpired = new AtomicLong(0);
+        this.updateCount = new LongAdder();
+        this.removeCount = new LongAdder();
+        this.hitCountRam = new LongAdder();
+        this.hitCountAux = new LongAdder();
+        this.missCountNotFound = new LongAdder();
+        this.missCountExpired = new LongAdder();
+        this.staleUpdateCount = new LongAdder();
+        for (int i = 0; i < KEY_LOCK_STRIPES; i++)
+        {
+            keyLocks[i] = new ReentrantLock();
+        }
 
         createMemoryCache(cattr);
 
@@ -265,6 +316,10 @@ public class CompositeCache<K, V>
      * Put an item into the cache. If it is localOnly, then do no notify remote or lateral
      * auxiliaries.
      * <p>
+     * If versioning is enabled for the region, updates that originate here are stamped with a new
+     * version. Local only updates, which come from laterals and remote servers, are dropped if
+     * the memory cache already holds a newer version of the element.
+     * <p>
      * @param cacheElement the ICacheElement&lt;K, V&gt;
      * @param localOnly Whether the operation should be restricted to local auxiliaries.
      * @throws IOException
@@ -284,13 +339,187 @@ public class CompositeCache<K, V>
             throw new IllegalArgumentException("key cannot be a GroupId " + " for a put operation");
         }
 
-        log.debug("Updating memory cache {0}", cacheElement::getKey);
+        if (updateMemory(cacheElement, localOnly, null, false))
+        {
+            updateAuxiliaries(cacheElement, localOnly);
+
+            cacheElement.getElementAttributes().setLastAccessTimeNow();
+        }
+    }
+
+    /**
+     * Puts an element into the cache only if the memory cache still holds the expected element
+     * for its key. The check and the update of the memory cache are atomic with the other
+     * updates of the key, so that a reload does not overwrite a value put meanwhile.
+     * <p>
+     * @param expected the element read before the reload, compared by identity
+     * @param cacheElement the new element
+     * @return false if the element was replaced or removed meanwhile, and nothing was put
+     * @throws IOException
+     */
+    public boolean replace(final ICacheElement<K, V> expected, final ICacheElement<K, V> cacheElement)
+        throws IOException
+    {
+        if (!updateMemory(cacheElement, false, expected, true))
+        {
+            return false;
+        }
 
-        updateCount.incrementAndGet();
-        memCache.update(cacheElement);
-        updateAuxiliaries(cacheElement, localOnly);
+        updateAuxiliaries(cacheElement, false);
 
         cacheElement.getElementAttributes().setLastAccessTimeNow();
+        return true;
+    }
+
+    /**
+     * Updates the memory cache under the lock of the key, after checking the version and
+     * optionally the current element.
+     * <p>
+     * @param cacheElement the ICacheElement&lt;K, V&gt;
+     * @param localOnly Whether the operation comes from a lateral or remote cache
+     * @param expected the element the memory cache must hold, if compare is set
+     * @param compare whether to check the current element
+     * @return false if the update was dropped
+     * @throws IOException
+     */
+    private boolean updateMemory(final ICacheElement<K, V> cacheElement, final boolean localOnly,
+            final ICacheElement<K, V> expected, final boolean compare)
+        throws IOException
+    {
+        final Lock lock = keyLock(cacheElement.getKey());
+        lock.lock();
+        try
+        {
+            if (compare && memCache.getQuiet(cacheElement.getKey()) != expected)
+            {
+                log.debug("Not replacing {0}, it changed", cacheElement::getKey);
+                return false;
+            }
+
+            if (cacheAttr.isUseVersioning())
+            {
+                if (!localOnly)
+                {
+                    cacheElement.getElementAttributes().setVersion(clock.tick());
+                }
+                else if (isStale(cacheElement))
+                {
+                    log.debug("Rejecting stale update for {0}", cacheElement::getKey);
+                    return false;
+                }
+            }
+
+            log.debug("Updating memory cache {0}", cacheElement::getKey);
+
+            updateCount.increment();
+            final long start = latencyStart();
+            memCache.update(cacheElement);
+            recordLatency(memCache, LATENCY_PUT, start);
+            if (cacheAttr.isUseVersioning())
+            {
+                // the new version is above the tombstone
+                tombstones.remove(cacheElement.getKey());
+            }
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param key
+     * @return the lock of the stripe of the key
+     */
+    private Lock keyLock(final Object key)
+    {
+        final int hash = key.hashCode();
+        return keyLocks[(hash ^ (hash >>> 16)) & (KEY_LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Checks whether an update received from a lateral or remote cache is older than the element
+     * currently held in memory, or than the last remove of its key. Only the element attributes
+     * are inspected, so this can be called on a serialized element before its value is
+     * deserialized. The updates make this check again under the lock of the key, so that it is
+     * atomic with the update.
+     * <p>
+     * Removes carry no version: a remove is versioned with the version of the element it removed
+     * from memory, which was written by the same or an earlier put than the remove, and this
+     * version is kept for a minute. An update written after the remove has a higher version and
+     * is applied, whatever the skew between the clocks of the nodes. Always returns false if versioning is not enabled for the
+     * region or the element carries no version. Auxiliaries are not consulted, so an element that
+     * was spooled to disk will not protect against stale updates.
+     * <p>
+     * @param cacheElement the incoming element
+     * @return true if a newer version is already present and the update should be dropped
+     * @throws IOException
+     */
+    public boolean isStale(final ICacheElement<K, V> cacheElement)
+        throws IOException
+    {
+        if (!cacheAttr.isUseVersioning())
+        {
+            return false;
+        }
+
+        final long version = cacheElement.getElementAttributes().getVersion();
+        if (version == 0)
+        {
+            return false;
+        }
+
+        clock.update(version);
+
+        final ICacheElement<K, V> current = memCache.getQuiet(cacheElement.getKey());
+        final Tombstone removed = tombstones.get(cacheElement.getKey());
+        if ((current != null && current.getElementAttributes().getVersion() > version)
+            || (removed != null && removed.version >= version)
+            || removeAllVersion >= version)
+        {
+            staleUpdateCount.increment();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Records the version of a removed element and drops the tombstones older than
+     * TOMBSTONE_MILLIS, at most once a second. Called under the lock of the key.
+     * <p>
+     * @param key the removed key
+     * @param version the version of the removed element
+     */
+    private void addTombstone(final K key, final long version)
+    {
+        final long now = System.currentTimeMillis();
+        tombstones.put(key, new Tombstone(version, now));
+
+        if (now - lastTombstonePrune > 1000)
+        {
+            lastTombstonePrune = now;
+            tombstones.values().removeIf(t -> t.removedAt < now - TOMBSTONE_MILLIS);
+        }
+    }
+
+    /**
+     * The version of a removed element and when it was removed.
+     */
+    private static final class Tombstone
+    {
+        /** The version of the removed element */
+        final long version;
+
+        /** When it was removed, in milliseconds */
+        final long removedAt;
+
+        Tombstone(final long version, final long removedAt)
+        {
+            this.version = version;
+            this.removedAt = removedAt;
+        }
     }
 
     /**
@@ -349,7 +578,9 @@ public class CompositeCache<K, V>
                         {
                             // need to make sure the group cache understands that
                             // the key is a group attribute on update
+                            final long start = latencyStart();
                             aux.update(cacheElement);
+                            recordLatency(aux, LATENCY_PUT, start);
                             log.debug("Updated remote store for {0} {1}",
                                     cacheElement.getKey(), cacheElement);
                         }
@@ -370,7 +601,9 @@ public class CompositeCache<K, V>
                         // DISTRIBUTE LATERALLY
                         // Currently always multicast even if the value is
                         // unchanged, to cause the cache item to move to the front.
+                        final long start = latencyStart();
                         aux.update(cacheElement);
+                        recordLatency(aux, LATENCY_PUT, start);
                         log.debug("updated lateral cache for {0}", cacheElement::getKey);
                     }
                     break;
@@ -382,7 +615,9 @@ public class CompositeCache<K, V>
                         && cacheAttr.getDiskUsagePattern() == DiskUsagePattern.UPDATE
                         && cacheElement.getElementAttributes().getIsSpool())
                     {
+                        final long start = latencyStart();
                         aux.update(cacheElement);
+                        recordLatency(aux, LATENCY_PUT, start);
                         log.debug("updated disk cache for {0}", cacheElement::getKey);
                     }
                     break;
@@ -393,6 +628,52 @@ public class CompositeCache<K, V>
         }
     }
 
+    /**
+     * Replaces the attributes of an element where it is held, without moving it to the front of
+     * the memory cache or loading it from disk into memory. An element held in memory gets the
+     * attributes in place, an element only held on disk is written back to the disk. Nothing is
+     * sent to the remote or lateral caches.
+     * <p>
+     * @param key the key
+     * @param attributes the new attributes
+     * @return false if the element is not held here anymore
+     * @throws IOException
+     */
+    public boolean updateElementAttributes(final K key, final IElementAttributes attributes)
+        throws IOException
+    {
+        final Lock lock = keyLock(key);
+        lock.lock();
+        try
+        {
+            final ICacheElement<K, V> inMemory = memCache.getQuiet(key);
+            if (inMemory != null)
+            {
+                inMemory.setElementAttributes(attributes);
+                return true;
+            }
+
+            for (final AuxiliaryCache<K, V> aux : auxCaches)
+            {
+                if (aux.getCacheType() == CacheType.DISK_CACHE)
+                {
+                    final ICacheElement<K, V> onDisk = aux.get(key);
+                    if (onDisk != null)
+                    {
+                        onDisk.setElementAttributes(attributes);
+                        aux.update(onDisk);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
     /**
      * Writes the specified element to any disk auxiliaries. Might want to rename this "overflow" in
      * case the hub wants to do something else.
@@ -427,7 +708,9 @@ public class CompositeCache<K, V>
                     try
                     {
                         handleElementEvent(ce, ElementEventType.SPOOLED_DISK_AVAILABLE);
+                        final long start = latencyStart();
                         aux.update(ce);
+                        recordLatency(aux, LATENCY_PUT, start);
                     }
                     catch (final IOException ex)
                     {
@@ -499,7 +782,9 @@ public class CompositeCache<K, V>
         try
         {
             // First look in memory cache
+            final long start = latencyStart();
             element = memCache.get(key);
+            recordLatency(memCache, LATENCY_GET, start);
 
             if (element != null)
             {
@@ -517,7 +802,7 @@ public class CompositeCache<K, V>
                     log.debug("{0} - Memory cache hit", () -> cacheAttr.getCacheName());
 
                     // Update counters
-                    hitCountRam.incrementAndGet();
+                    hitCountRam.increment();
                 }
 
                 found = true;
@@ -537,7 +822,9 @@ public class CompositeCache<K, V>
 
                         try
                         {
+                            final long auxStart = latencyStart();
                             element = aux.get(key);
+                            recordLatency(aux, LATENCY_GET, auxStart);
                         }
                         catch (final IOException e)
                         {
@@ -568,7 +855,7 @@ public class CompositeCache<K, V>
                                     () -> cacheAttr.getCacheName(), aux::getCacheName);
 
                             // Update counters
-                            hitCountAux.incrementAndGet();
+                            hitCountAux.increment();
                             copyAuxiliaryRetrievedItemToMemory(element);
                         }
 
@@ -586,7 +873,7 @@ public class CompositeCache<K, V>
 
         if (!found)
         {
-            missCountNotFound.incrementAndGet();
+            missCountNotFound.increment();
 
             log.debug("{0} - Miss", () -> cacheAttr.getCacheName());
         }
@@ -601,7 +888,7 @@ public class CompositeCache<K, V>
 
     protected void doExpires(final ICacheElement<K, V> element)
     {
-        missCountExpired.incrementAndGet();
+        missCountExpired.increment();
         remove(element.getKey());
     }
 
@@ -669,7 +956,7 @@ public class CompositeCache<K, V>
         // if we didn't find all the elements, increment the miss count by the number of elements not found
         if (elements.size() != keys.size())
         {
-            missCountNotFound.addAndGet(keys.size() - elements.size());
+            missCountNotFound.add(keys.size() - elements.size());
 
             log.debug("{0} - {1} Misses", () -> cacheAttr.getCacheName(),
                     () -> keys.size() - elements.size());
@@ -702,7 +989,7 @@ public class CompositeCache<K, V>
             log.debug("{0} - Memory cache hit", () -> cacheAttr.getCacheName());
 
             // Update counters
-            hitCountRam.incrementAndGet();
+            hitCountRam.increment();
             return false;
         });
 
@@ -834,10 +1121,9 @@ public class CompositeCache<K, V>
     protected Map<K, ICacheElement<K, V>> getMatchingFromMemory(final String pattern)
         throws IOException
     {
-        // find matches in key array
+        // find matches in the key index or the key array
         // this avoids locking the memory cache, but it uses more memory
-        final Set<K> keyArray = memCache.getKeySet();
-        final Set<K> matchingKeys = getKeyMatcher().getMatchingKeysFromArray(pattern, keyArray);
+        final Set<K> matchingKeys = memCache.getMatchingKeys(getKeyMatcher(), pattern);
 
         // call get multiple
         return getMultipleFromMemory(matchingKeys);
@@ -925,7 +1211,7 @@ public class CompositeCache<K, V>
                         () -> cacheAttr.getCacheName(), aux::getCacheName);
 
                 // Update counters
-                hitCountAux.incrementAndGet();
+                hitCountAux.increment();
                 try
                 {
                     copyAuxiliaryRetrievedItemToMemory(element);
@@ -1011,6 +1297,109 @@ public class CompositeCache<K, V>
             .collect(Collectors.toSet());
     }
 
+    /**
+     * Gets the keys of the members of a group in memory and in the auxiliaries. The memory cache
+     * and the disk caches answer from their group index, without scanning all the keys.
+     * <p>
+     * @param groupId the group
+     * @return a set of the GroupAttrName keys of the group
+     */
+    public Set<K> getGroupKeys(final GroupId groupId)
+    {
+        final Set<K> keys = new HashSet<>(memCache.getGroupKeys(groupId));
+        for (final AuxiliaryCache<K, V> aux : auxCaches)
+        {
+            try
+            {
+                keys.addAll(aux.getGroupKeys(groupId));
+            }
+            catch (final IOException e)
+            {
+                log.error("{0}: Failure getting group keys from aux {1}", cacheAttr.getCacheName(), aux.getCacheName(), e);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Streams the elements of the memory cache, then the elements of the disk caches whose keys are
+     * not in memory. Nothing is copied up front: the keys are walked in place and each element is
+     * read when the stream reaches it.
+     * <p>
+     * The stream is weakly consistent. Elements changed while it is consumed may or may not be
+     * seen, and an element moving between memory and disk at that time may be missed. Reading does
+     * not change the LRU order, the hit statistics or the content of the memory cache, and expired
+     * elements are skipped without being removed. The underlying key streams can be split, so the
+     * stream can be processed in parallel.
+     * <p>
+     * @return a stream of the elements of the region
+     */
+    public Stream<ICacheElement<K, V>> getElementStream()
+    {
+        Stream<ICacheElement<K, V>> elements = memCache.getKeyStream()
+                .map(this::getQuietFromMemory);
+        for (final AuxiliaryCache<K, V> aux : auxCaches)
+        {
+            if (aux.getCacheType() == CacheType.DISK_CACHE)
+            {
+                elements = Stream.concat(elements, getElementStream(aux));
+            }
+        }
+
+        return elements.filter(element -> element != null
+                && !isExpired(element, System.currentTimeMillis(), null, null));
+    }
+
+    /**
+     * Streams the elements of an auxiliary that are not in memory.
+     * <p>
+     * @param aux the auxiliary cache
+     * @return a stream of elements, null for the keys that vanished
+     */
+    private Stream<ICacheElement<K, V>> getElementStream(final AuxiliaryCache<K, V> aux)
+    {
+        try
+        {
+            return aux.getKeyStream()
+                    .filter(key -> getQuietFromMemory(key) == null)
+                    .map(key -> {
+                        try
+                        {
+                            return aux.get(key);
+                        }
+                        catch (final IOException e)
+                        {
+                            log.error("{0}: Failure getting from aux {1}", cacheAttr.getCacheName(), aux.getCacheName(), e);
+                            return null;
+                        }
+                    });
+        }
+        catch (final IOException e)
+        {
+            log.error("{0}: Failure getting keys from aux {1}", cacheAttr.getCacheName(), aux.getCacheName(), e);
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Gets an element from memory without touching it.
+     * <p>
+     * @param key
+     * @return the element or null
+     */
+    private ICacheElement<K, V> getQuietFromMemory(final K key)
+    {
+        try
+        {
+            return memCache.getQuiet(key);
+        }
+        catch (final IOException e)
+        {
+            log.error("{0}: Failure getting from memory", cacheAttr.getCacheName(), e);
+            return null;
+        }
+    }
+
     /**
      * Removes an item from the cache.
      * <p>
@@ -1054,18 +1443,31 @@ public class CompositeCache<K, V>
      */
     protected boolean remove(final K key, final boolean localOnly)
     {
-        removeCount.incrementAndGet();
+        removeCount.increment();
 
         boolean removed = false;
 
+        final Lock lock = keyLock(key);
+        lock.lock();
         try
         {
+            final ICacheElement<K, V> current = cacheAttr.isUseVersioning() ? memCache.getQuiet(key) : null;
+            final long start = latencyStart();
             removed = memCache.remove(key);
+            recordLatency(memCache, LATENCY_REMOVE, start);
+            if (current != null && current.getElementAttributes().getVersion() > 0)
+            {
+                addTombstone(key, current.getElementAttributes().getVersion());
+            }
         }
         catch (final IOException e)
         {
             log.error(e);
         }
+        finally
+        {
+            lock.unlock();
+        }
 
         // Removes from all auxiliary caches.
         for (final ICache<K, V> aux : auxCaches)
@@ -1086,7 +1488,9 @@ public class CompositeCache<K, V>
             {
                 log.debug("Removing {0} from cacheType {1}", key, cacheType);
 
+                final long start = latencyStart();
                 final boolean b = aux.remove(key);
+                recordLatency(aux, LATENCY_REMOVE, start);
 
                 // Don't take the remote removal into account.
                 if (!removed && cacheType != CacheType.REMOTE_CACHE)
@@ -1139,6 +1543,25 @@ public class CompositeCache<K, V>
     {
         try
         {
+            if (cacheAttr.isUseVersioning())
+            {
+                // the highest version removed, like the tombstone of each key
+                long highest = removeAllVersion;
+                for (final K key : memCache.getKeySet())
+                {
+                    final ICacheElement<K, V> ce = memCache.getQuiet(key);
+                    if (ce != null)
+                    {
+                        highest = Math.max(highest, ce.getElementAttributes().getVersion());
+                    }
+                }
+                for (final Tombstone tombstone : tombstones.values())
+                {
+                    highest = Math.max(highest, tombstone.version);
+                }
+                removeAllVersion = highest;
+                tombstones.clear();
+            }
             memCache.removeAll();
 
             log.debug("Removed All keys from the memory cache.");
@@ -1368,15 +1791,19 @@ public class CompositeCache<K, V>
 
         elems.add(new StatElement<>("HitCountRam", Long.valueOf(getHitCountRam())));
         elems.add(new StatElement<>("HitCountAux", Long.valueOf(getHitCountAux())));
+        if (cacheAttr.isUseVersioning())
+        {
+            elems.add(new StatElement<>("StaleUpdateCount", Long.valueOf(getStaleUpdateCount())));
+        }
 
         stats.setStatElements(elems);
 
         // memory + aux, memory is not considered an auxiliary internally
         final ArrayList<IStats> auxStats = new ArrayList<>(auxCaches.size() + 1);
 
-        auxStats.add(getMemoryCache().getStatistics());
+        auxStats.add(addLatencyStats(memCache, getMemoryCache().getStatistics()));
         auxStats.addAll(auxCaches.stream()
-                .map(AuxiliaryCache::getStatistics)
+                .map(aux -> addLatencyStats(aux, aux.getStatistics()))
                 .collect(Collectors.toList()));
 
         // store the auxiliary stats
@@ -1385,6 +1812,58 @@ public class CompositeCache<K, V>
         return stats;
     }
 
+    /**
+     * Adds the latency histograms of the tier, if any, to its statistics.
+     * <p>
+     * @param tier the memory cache or an auxiliary
+     * @param stats the statistics of the tier
+     * @return the statistics
+     */
+    private IStats addLatencyStats(final Object tier, final IStats stats)
+    {
+        final LatencyHistogram[] histograms = latencies.get(tier);
+        if (histograms != null && stats != null)
+        {
+            final List<IStatElement<?>> elems = stats.getStatElements() == null ?
+                    new ArrayList<>() : new ArrayList<>(stats.getStatElements());
+            histograms[LATENCY_GET].addStatElements("Get Micros", elems);
+            histograms[LATENCY_PUT].addStatElements("Put Micros", elems);
+            histograms[LATENCY_REMOVE].addStatElements("Remove Micros", elems);
+            stats.setStatElements(elems);
+        }
+        return stats;
+    }
+
+    /**
+     * @return the time to start measuring an operation from, 0 if the latencies are not recorded
+     */
+    private long latencyStart()
+    {
+        return cacheAttr.isUseLatencyHistograms() ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the duration of an operation on a tier.
+     * <p>
+     * @param tier the memory cache or an auxiliary
+     * @param operation LATENCY_GET, LATENCY_PUT or LATENCY_REMOVE
+     * @param start the result of latencyStart() before the operation
+     */
+    private void recordLatency(final Object tier, final int operation, final long start)
+    {
+        if (start == 0)
+        {
+            return;
+        }
+        LatencyHistogram[] histograms = latencies.get(tier);
+        if (histograms == null)
+        {
+            histograms = latencies.computeIfAbsent(tier, t -> new LatencyHistogram[] {
+                    new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram() });
+        }
+        histograms[operation].record((System.nanoTime() - start) / 1000);
+    }
+
     /**
      * Gets the cacheName attribute of the Cache object. This is also known as the region name.
      * <p>
@@ -1481,8 +1960,8 @@ public class CompositeCache<K, V>
      *
      * @param element the element
      * @param timestamp the timestamp to compare to
-     * @param eventMaxlife the event to fire in case the max life time is exceeded
-     * @param eventIdle the event to fire in case the idle time is exceeded
+     * @param eventMaxlife the event to fire in case the max life time is exceeded, null for none
+     * @param eventIdle the event to fire in case the idle time is exceeded, null for none
      *
      * @return true if the element is expired
      */
@@ -1505,7 +1984,10 @@ public class CompositeCache<K, V>
                 {
                     log.debug("Exceeded maxLife: {0}", element::getKey);
 
-                    handleElementEvent(element, eventMaxlife);
+                    if (eventMaxlife != null)
+                    {
+                        handleElementEvent(element, eventMaxlife);
+                    }
                     return true;
                 }
                 final long idleTime = attributes.getIdleTime();
@@ -1519,7 +2001,10 @@ public class CompositeCache<K, V>
                 {
                     log.debug("Exceeded maxIdle: {0}", element::getKey);
 
-                    handleElementEvent(element, eventIdle);
+                    if (eventIdle != null)
+                    {
+                        handleElementEvent(element, eventIdle);
+                    }
                     return true;
                 }
             }
@@ -1533,6 +2018,91 @@ public class CompositeCache<K, V>
         return false;
     }
 
+    /**
+     * Checks if the element is within its refresh ahead window, using the window of its attributes.
+     * <p>
+     * @param element the element
+     * @param timestamp the timestamp to compare to
+     * @return true if the element expires within its refresh ahead window but is not expired yet
+     */
+    public boolean isRefreshAheadDue(final ICacheElement<K, V> element, final long timestamp)
+    {
+        final IElementAttributes attributes = element.getElementAttributes();
+        final long refreshAhead = attributes.getRefreshAhead();
+        return refreshAhead > 0
+                && isRefreshAheadDue(element, timestamp, refreshAhead * attributes.getTimeFactorForMilliseconds());
+    }
+
+    /**
+     * Checks if the element expires, by max life or idle time, within the given window.
+     * <p>
+     * @param element the element
+     * @param timestamp the timestamp to compare to
+     * @param windowMillis the refresh ahead window in milliseconds
+     * @return true if the element expires within the window but is not expired yet
+     */
+    public boolean isRefreshAheadDue(final ICacheElement<K, V> element, final long timestamp, final long windowMillis)
+    {
+        final IElementAttributes attributes = element.getElementAttributes();
+        if (windowMillis <= 0 || attributes.getIsEternal())
+        {
+            return false;
+        }
+
+        final long timeFactorForMilliseconds = attributes.getTimeFactorForMilliseconds();
+        long expiration = Long.MAX_VALUE;
+        if (attributes.getMaxLife() != -1)
+        {
+            expiration = attributes.getCreateTime() + attributes.getMaxLife() * timeFactorForMilliseconds;
+        }
+        if (attributes.getIdleTime() != -1)
+        {
+            expiration = Math.min(expiration,
+                    attributes.getLastAccessTime() + attributes.getIdleTime() * timeFactorForMilliseconds);
+        }
+        return expiration != Long.MAX_VALUE && timestamp >= expiration - windowMillis && timestamp <= expiration;
+    }
+
+    /**
+     * Runs the reload of a key in the background unless one is already running for this key.
+     * Readers keep getting the current value in the meantime.
+     * <p>
+     * @param key the key to reload
+     * @param reload loads and puts the new value
+     * @return true if the reload was started by this call
+     */
+    public boolean refreshAhead(final K key, final Runnable reload)
+    {
+        if (!refreshing.add(key))
+        {
+            return false;
+        }
+
+        try
+        {
+            ThreadPoolManager.getInstance().getExecutorService("refresh_ahead").execute(() -> {
+                try
+                {
+                    reload.run();
+                }
+                catch (final RuntimeException e)
+                {
+                    log.error("{0}: Failure refreshing key [{1}] ahead of its expiration", cacheAttr.getCacheName(), key, e);
+                }
+                finally
+                {
+                    refreshing.remove(key);
+                }
+            });
+        }
+        catch (final RuntimeException e)
+        {
+            refreshing.remove(key);
+            throw e;
+        }
+        return true;
+    }
+
     /**
      * If there are event handlers for the item, then create an event and queue it up.
      * <p>
@@ -1620,7 +2190,7 @@ public class CompositeCache<K, V>
      */
     public long getHitCountRam()
     {
-        return hitCountRam.get();
+        return hitCountRam.sum();
     }
 
     /**
@@ -1629,7 +2199,7 @@ public class CompositeCache<K, V>
      */
     public long getHitCountAux()
     {
-        return hitCountAux.get();
+        return hitCountAux.sum();
     }
 
     /**
@@ -1638,7 +2208,7 @@ public class CompositeCache<K, V>
      */
     public long getMissCountNotFound()
     {
-        return missCountNotFound.get();
+        return missCountNotFound.sum();
     }
 
     /**
@@ -1647,7 +2217,17 @@ public class CompositeCache<K, V>
      */
     public long getMissCountExpired()
     {
-        return missCountExpired.get();
+        return missCountExpired.sum();
+    }
+
+    /**
+     * Number of updates from laterals or remote servers that were dropped because a newer version
+     * of the element was already present.
+     * @return number of stale updates.
+     */
+    public long getStaleUpdateCount()
+    {
+        return staleUpdateCount.sum();
     }
 
     /**
@@ -1655,7 +2235,7 @@ public class CompositeCache<K, V>
      */
     public long getUpdateCount()
     {
-        return updateCount.get();
+        return updateCount.sum();
     }
 
     /**
@@ -23,7 +23,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.management.ManagementFactory;
 import java.security.AccessControlException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
@@ -40,6 +42,7 @@ import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
 import org.apache.commons.jcs3.access.exception.CacheException;
+import org.apache.commons.jcs3.access.exception.ConfigurationException;
 import org.apache.commons.jcs3.admin.JCSAdminBean;
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCache;
 import org.apache.commons.jcs3.auxiliary.AuxiliaryCacheAttributes;
@@ -97,6 +100,9 @@ public class CompositeCacheManager
     /** Caches managed by this cache manager */
     private final ConcurrentMap<String, ICache<?, ?>> caches = new ConcurrentHashMap<>();
 
+    /** The partitions of the partitioned regions, by region name */
+    private final ConcurrentMap<String, List<CompositeCache<?, ?>>> partitions = new ConcurrentHashMap<>();
+
     /** Number of clients accessing this cache manager */
     private final AtomicInteger clients = new AtomicInteger(0);
 
@@ -555,6 +561,94 @@ public class CompositeCacheManager
         });
     }
 
+    /**
+     * Gets the partitions of a region configured with more than one partition. The first one is
+     * the region itself, the others are the regions named after it with the suffixes #1 to #N-1.
+     * They are created on first use with a copy of the attributes of the region and the
+     * auxiliaries configured for the region, each partition getting auxiliaries of its own.
+     * <p>
+     * MaxObjects is the limit of the whole region: on creation of the partitions, the limit of the
+     * region and of each partition is set to its share of it. The partitions are freed with the
+     * region.
+     * <p>
+     * @param cache the partitioned region
+     * @return the partitions, only the region if it is not partitioned
+     * @throws ConfigurationException if a region not created as a partition has the name of one
+     */
+    @SuppressWarnings("unchecked") // Need to cast because of common map for all caches
+    public <K, V> List<CompositeCache<K, V>> getPartitions( final CompositeCache<K, V> cache )
+    {
+        final ICompositeCacheAttributes cattr = cache.getCacheAttributes();
+        if ( cattr.getNumberOfPartitions() <= 1 )
+        {
+            return Collections.singletonList( cache );
+        }
+
+        final List<CompositeCache<?, ?>> regionPartitions = partitions.computeIfAbsent(
+                cattr.getCacheName(), regionName -> createPartitions( cache ) );
+        final List<CompositeCache<K, V>> result = new ArrayList<>( regionPartitions.size() );
+        regionPartitions.forEach( partition -> result.add( (CompositeCache<K, V>) partition ) );
+        return result;
+    }
+
+    /**
+     * Creates and registers the partitions of a region, and divides MaxObjects between them.
+     * <p>
+     * @param cache the partitioned region
+     * @return the partitions, the region first
+     */
+    private <K, V> List<CompositeCache<?, ?>> createPartitions( final CompositeCache<K, V> cache )
+    {
+        final ICompositeCacheAttributes cattr = cache.getCacheAttributes();
+        final int numberOfPartitions = cattr.getNumberOfPartitions();
+        final List<CompositeCache<?, ?>> regionPartitions = new ArrayList<>( numberOfPartitions );
+        regionPartitions.add( cache );
+
+        final int maxObjects = cattr.getMaxObjects() > 0
+                ? ( cattr.getMaxObjects() + numberOfPartitions - 1 ) / numberOfPartitions : cattr.getMaxObjects();
+
+        final String regionName = cattr.getCacheName();
+        String auxiliaries = OptionConverter.findAndSubst(
+                CompositeCacheConfigurator.REGION_PREFIX + regionName, this.getConfigurationProperties() );
+        if ( auxiliaries == null )
+        {
+            auxiliaries = this.defaultAuxValues;
+        }
+
+        for ( int i = 1; i < numberOfPartitions; i++ )
+        {
+            final String partitionName = regionName + "#" + i;
+            final CompositeCacheConfigurator configurator = newConfigurator();
+            final ICompositeCacheAttributes partitionAttr = cattr.clone();
+            partitionAttr.setCacheName( partitionName );
+            partitionAttr.setMaxObjects( maxObjects );
+            final CompositeCache<K, V> partition = caches.containsKey( partitionName ) ? null
+                    : configurator.parseRegion( this.getConfigurationProperties(),
+                            this, partitionName, auxiliaries, partitionAttr );
+
+            if ( partition == null || caches.putIfAbsent( partitionName, partition ) != null )
+            {
+                // a region of the user has the name, don't take it over
+                if ( partition != null )
+                {
+                    partition.dispose();
+                }
+                regionPartitions.subList( 1, regionPartitions.size() ).forEach( created -> {
+                    caches.remove( created.getCacheName(), created );
+                    created.dispose();
+                });
+                throw new ConfigurationException( "Region [" + partitionName
+                        + "] already exists, it cannot be used as partition " + i + " of [" + regionName + "]" );
+            }
+
+            partition.setElementAttributes( cache.getElementAttributes() );
+            regionPartitions.add( partition );
+        }
+
+        cattr.setMaxObjects( maxObjects );
+        return regionPartitions;
+    }
+
     protected CompositeCacheConfigurator newConfigurator() {
         return new CompositeCacheConfigurator();
     }
@@ -579,6 +673,18 @@ public class CompositeCacheManager
         {
             cache.dispose( fromRemote );
         }
+
+        final List<CompositeCache<?, ?>> regionPartitions = partitions.remove( name );
+        if ( regionPartitions != null )
+        {
+            for ( final CompositeCache<?, ?> partition : regionPartitions.subList( 1, regionPartitions.size() ) )
+            {
+                if ( caches.remove( partition.getCacheName(), partition ) )
+                {
+                    partition.dispose( fromRemote );
+                }
+            }
+        }
     }
 
     /**
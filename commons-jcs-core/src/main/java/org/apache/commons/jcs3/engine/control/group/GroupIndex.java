@@ -0,0 +1,195 @@
+package org.apache.commons.jcs3.engine.control.group;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.jcs3.engine.stats.StatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+
+/**
+ * Index of the group members of a key store, so that the keys of a group can be listed or removed
+ * without scanning all the keys. Only GroupAttrName keys are indexed, other keys are ignored.
+ * <p>
+ * The store must call add and remove whenever a key enters or leaves it, including evictions, and
+ * clear when it is emptied.
+ */
+public class GroupIndex<K>
+{
+    /**
+     * Rough size of a ConcurrentHashMap node and its table slot, with compressed references. Used
+     * to estimate the memory used by the index.
+     */
+    private static final int ENTRY_BYTES = 40;
+
+    /** Rough size of the set created for each group */
+    private static final int GROUP_BYTES = 160;
+
+    /** The keys by group */
+    private final ConcurrentMap<GroupId, Set<K>> groups = new ConcurrentHashMap<>();
+
+    /** Number of indexed keys */
+    private final LongAdder keyCount = new LongAdder();
+
+    /**
+     * Indexes a key if it is a group member.
+     * <p>
+     * @param key a key added to the store
+     */
+    public void add( final K key )
+    {
+        final GroupId groupId = groupIdOf( key );
+        if ( groupId != null )
+        {
+            groups.compute( groupId, ( id, keys ) -> {
+                final Set<K> members = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+                if ( members.add( key ) )
+                {
+                    keyCount.increment();
+                }
+                return members;
+            } );
+        }
+    }
+
+    /**
+     * Forgets a key.
+     * <p>
+     * @param key a key which left the store
+     */
+    public void remove( final Object key )
+    {
+        final GroupId groupId = groupIdOf( key );
+        if ( groupId != null )
+        {
+            groups.computeIfPresent( groupId, ( id, keys ) -> {
+                if ( keys.remove( key ) )
+                {
+                    keyCount.decrement();
+                }
+                return keys.isEmpty() ? null : keys;
+            } );
+        }
+    }
+
+    /**
+     * @param groupId the group
+     * @return a copy of the keys of the group, empty if there is none
+     */
+    public Set<K> getKeys( final GroupId groupId )
+    {
+        final Set<K> keys = groups.get( groupId );
+        return keys == null ? Collections.emptySet() : new HashSet<>( keys );
+    }
+
+    /**
+     * Forgets a group. The store should then remove the returned keys. Keys of the group added
+     * afterwards are indexed again.
+     * <p>
+     * @param groupId the group
+     * @return the keys of the group, empty if there is none
+     */
+    public Set<K> removeGroup( final GroupId groupId )
+    {
+        final Set<K> keys = groups.remove( groupId );
+        if ( keys == null )
+        {
+            return Collections.emptySet();
+        }
+        keyCount.add( -keys.size() );
+        return keys;
+    }
+
+    /**
+     * @return the groups having at least one key
+     */
+    public Set<GroupId> getGroupIds()
+    {
+        return Collections.unmodifiableSet( groups.keySet() );
+    }
+
+    /**
+     * Forgets everything.
+     */
+    public void clear()
+    {
+        groups.clear();
+        keyCount.reset();
+    }
+
+    /**
+     * @return the number of indexed keys
+     */
+    public long getKeyCount()
+    {
+        return keyCount.sum();
+    }
+
+    /**
+     * @return the number of groups
+     */
+    public int getGroupCount()
+    {
+        return groups.size();
+    }
+
+    /**
+     * Estimates the memory used by the index, not counting the keys which are shared with the
+     * store.
+     * <p>
+     * @return an approximate number of bytes
+     */
+    public long getEstimatedBytes()
+    {
+        final long groupCount = getGroupCount();
+        return groupCount * ( ENTRY_BYTES + GROUP_BYTES ) + getKeyCount() * ENTRY_BYTES;
+    }
+
+    /**
+     * Adds the size of the index to the statistics.
+     * <p>
+     * @param elems where to add the stats
+     */
+    public void addStatElements( final List<IStatElement<?>> elems )
+    {
+        elems.add( new StatElement<>( "Group Index Groups", Integer.valueOf( getGroupCount() ) ) );
+        elems.add( new StatElement<>( "Group Index Keys", Long.valueOf( getKeyCount() ) ) );
+        elems.add( new StatElement<>( "Group Index Estimated Bytes", Long.valueOf( getEstimatedBytes() ) ) );
+    }
+
+    /**
+     * @param key a key
+     * @return the group of the key, null if it is not a group member
+     */
+    private static GroupId groupIdOf( final Object key )
+    {
+        if ( key instanceof GroupAttrName )
+        {
+            return ( (GroupAttrName<?>) key ).groupId;
+        }
+        return null;
+    }
+}
@@ -20,6 +20,8 @@ package org.apache.commons.jcs3.engine.match;
  */
 
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -32,6 +34,18 @@ public class KeyMatcherPatternImpl<K>
     /** Serial version */
     private static final long serialVersionUID = 6667352064144381264L;
 
+    /** Maximum number of compiled patterns kept */
+    private static final int MAX_CACHED_PATTERNS = 256;
+
+    /** Characters having a special meaning in a pattern */
+    private static final String META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    /** Characters making the previous character optional or repeated */
+    private static final String QUANTIFIERS = "?*+{";
+
+    /** The compiled patterns, shared by the matchers as they are immutable */
+    private static final ConcurrentMap<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
     /**
      * Creates a pattern and find matches on the array.
      * <p>
@@ -42,10 +56,136 @@ public class KeyMatcherPatternImpl<K>
     @Override
     public Set<K> getMatchingKeysFromArray( final String pattern, final Set<K> keyArray )
     {
-        final Pattern compiledPattern = Pattern.compile( pattern );
+        final Pattern compiledPattern = compile( pattern );
 
         return keyArray.stream()
                 .filter(key -> compiledPattern.matcher(key.toString()).matches())
                 .collect(Collectors.toSet());
     }
+
+    /**
+     * Gets the characters the pattern starts with, up to the first one which is not a plain
+     * literal. A pattern having an alternation at its top level has no prefix.
+     * <p>
+     * @param pattern
+     * @return the literal prefix, possibly empty
+     */
+    @Override
+    public String getLiteralPrefix( final String pattern )
+    {
+        if ( hasTopLevelAlternation( pattern ) )
+        {
+            return "";
+        }
+
+        final StringBuilder prefix = new StringBuilder();
+        int i = pattern.startsWith( "^" ) ? 1 : 0;
+        while ( i < pattern.length() )
+        {
+            final char c = pattern.charAt( i );
+            final char literal;
+            final int next;
+            if ( c == '\\' )
+            {
+                // an escaped letter or digit is a class, a reference or a quote
+                if ( i + 1 >= pattern.length() || Character.isLetterOrDigit( pattern.charAt( i + 1 ) ) )
+                {
+                    break;
+                }
+                literal = pattern.charAt( i + 1 );
+                next = i + 2;
+            }
+            else if ( META_CHARACTERS.indexOf( c ) >= 0 )
+            {
+                break;
+            }
+            else
+            {
+                literal = c;
+                next = i + 1;
+            }
+
+            if ( next < pattern.length() && QUANTIFIERS.indexOf( pattern.charAt( next ) ) >= 0 )
+            {
+                break;
+            }
+            prefix.append( literal );
+            i = next;
+        }
+        return prefix.toString();
+    }
+
+    /**
+     * Gets the compiled pattern from the cache, compiling it when needed. The cache is emptied
+     * when it is full, patterns built from request parameters should not make it grow forever.
+     * <p>
+     * @param pattern
+     * @return the compiled pattern
+     */
+    private static Pattern compile( final String pattern )
+    {
+        Pattern compiled = PATTERNS.get( pattern );
+        if ( compiled == null )
+        {
+            compiled = Pattern.compile( pattern );
+            if ( PATTERNS.size() >= MAX_CACHED_PATTERNS )
+            {
+                PATTERNS.clear();
+            }
+            PATTERNS.put( pattern, compiled );
+        }
+        return compiled;
+    }
+
+    /**
+     * @param pattern
+     * @return true if the pattern has a | outside of any group or character class
+     */
+    private static boolean hasTopLevelAlternation( final String pattern )
+    {
+        int groups = 0;
+        int classes = 0;
+        boolean quoted = false;
+        for ( int i = 0; i < pattern.length(); i++ )
+        {
+            final char c = pattern.charAt( i );
+            if ( quoted )
+            {
+                if ( c == '\\' && i + 1 < pattern.length() && pattern.charAt( i + 1 ) == 'E' )
+                {
+                    quoted = false;
+                    i++;
+                }
+            }
+            else if ( c == '\\' )
+            {
+                quoted = i + 1 < pattern.length() && pattern.charAt( i + 1 ) == 'Q';
+                i++;
+            }
+            else if ( c == '[' )
+            {
+                classes++;
+            }
+            else if ( c == ']' && classes > 0 )
+            {
+                classes--;
+            }
+            else if ( classes == 0 )
+            {
+                if ( c == '(' )
+                {
+                    groups++;
+                }
+                else if ( c == ')' && groups > 0 )
+                {
+                    groups--;
+                }
+                else if ( c == '|' && groups == 0 )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 }
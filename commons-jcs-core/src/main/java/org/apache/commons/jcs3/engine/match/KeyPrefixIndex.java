@@ -0,0 +1,134 @@
+package org.apache.commons.jcs3.engine.match;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.commons.jcs3.engine.match.behavior.IKeyMatcher;
+
+/**
+ * Ordered index of the keys of a store by their text, toString(), so that the keys starting with
+ * a prefix are found in time proportional to the number of matches. It serves the hierarchical
+ * removals, keys ending with the name component delimiter, and the getMatching patterns having a
+ * literal prefix.
+ * <p>
+ * The store must call add and remove whenever a key enters or leaves it, including evictions, and
+ * clear when it is emptied.
+ */
+public class KeyPrefixIndex<K>
+{
+    /** The keys by text. Distinct keys with the same text share an entry. */
+    private final ConcurrentNavigableMap<String, Set<K>> keys = new ConcurrentSkipListMap<>();
+
+    /**
+     * Indexes a key.
+     * <p>
+     * @param key a key added to the store
+     */
+    public void add( final K key )
+    {
+        // the sets are never modified, the functions may be applied more than once
+        keys.compute( key.toString(), ( text, current ) -> {
+            if ( current == null )
+            {
+                return Collections.singleton( key );
+            }
+            if ( current.contains( key ) )
+            {
+                return current;
+            }
+            final Set<K> updated = new HashSet<>( current );
+            updated.add( key );
+            return Collections.unmodifiableSet( updated );
+        } );
+    }
+
+    /**
+     * Forgets a key.
+     * <p>
+     * @param key a key which left the store
+     */
+    public void remove( final Object key )
+    {
+        keys.computeIfPresent( key.toString(), ( text, current ) -> {
+            if ( !current.contains( key ) )
+            {
+                return current;
+            }
+            if ( current.size() == 1 )
+            {
+                return null;
+            }
+            final Set<K> updated = new HashSet<>( current );
+            updated.remove( key );
+            return Collections.unmodifiableSet( updated );
+        } );
+    }
+
+    /**
+     * @param prefix the start of the keys
+     * @return the keys whose text starts with the prefix
+     */
+    public Set<K> getKeysWithPrefix( final String prefix )
+    {
+        final Set<K> result = new HashSet<>();
+        for ( final Map.Entry<String, Set<K>> entry : keys.tailMap( prefix ).entrySet() )
+        {
+            if ( !entry.getKey().startsWith( prefix ) )
+            {
+                break;
+            }
+            result.addAll( entry.getValue() );
+        }
+        return result;
+    }
+
+    /**
+     * Finds the keys matched by a pattern, looking only at the keys starting with the literal
+     * prefix of the pattern.
+     * <p>
+     * @param keyMatcher the matcher of the store
+     * @param pattern the pattern
+     * @return the matching keys, null if the pattern has no literal prefix and all the keys must
+     *         be scanned
+     */
+    public Set<K> getMatchingKeys( final IKeyMatcher<K> keyMatcher, final String pattern )
+    {
+        final String prefix = keyMatcher.getLiteralPrefix( pattern );
+        if ( prefix == null || prefix.isEmpty() )
+        {
+            return null;
+        }
+        return keyMatcher.getMatchingKeysFromArray( pattern, getKeysWithPrefix( prefix ) );
+    }
+
+    /**
+     * Forgets everything.
+     */
+    public void clear()
+    {
+        keys.clear();
+    }
+}
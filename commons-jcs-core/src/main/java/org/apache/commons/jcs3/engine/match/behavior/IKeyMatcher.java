@@ -33,4 +33,16 @@ public interface IKeyMatcher<K> extends Serializable
      * @return Set of the matching keys
      */
     Set<K> getMatchingKeysFromArray( String pattern, Set<K> keyArray );
+
+    /**
+     * Gets a string starting the text, toString(), of every key matched by the pattern. Key
+     * indexes use it to only look at the keys having this prefix.
+     * <p>
+     * @param pattern
+     * @return the prefix, empty if the pattern may match any key, null if the matcher can't tell
+     */
+    default String getLiteralPrefix( final String pattern )
+    {
+        return null;
+    }
 }
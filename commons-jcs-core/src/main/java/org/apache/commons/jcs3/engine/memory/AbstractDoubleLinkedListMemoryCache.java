@@ -103,6 +103,7 @@ public abstract class AbstractDoubleLinkedListMemoryCache<K, V> extends Abstract
             // this should be synchronized if we were not using a ConcurrentHashMap
             final K key = newNode.getCacheElement().getKey();
             final MemoryElementDescriptor<K, V> oldNode = map.put(key, newNode);
+            indexKey(key);
 
             // If the node was the same as an existing node, remove it.
             if (oldNode != null && key.equals(oldNode.getCacheElement().getKey()))
@@ -236,6 +237,7 @@ public abstract class AbstractDoubleLinkedListMemoryCache<K, V> extends Abstract
                 throw new Error("update: last.ce is null!");
             }
             getCompositeCache().spoolToDisk(toSpool);
+            unindexKey(toSpool.getKey());
             if (map.remove(toSpool.getKey()) == null)
             {
                 log.warn("update: remove failed for key: {0}", toSpool.getKey());
@@ -26,10 +26,12 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.jcs3.engine.behavior.ICache;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
@@ -37,6 +39,9 @@ import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes;
 import org.apache.commons.jcs3.engine.control.CompositeCache;
 import org.apache.commons.jcs3.engine.control.group.GroupAttrName;
 import org.apache.commons.jcs3.engine.control.group.GroupId;
+import org.apache.commons.jcs3.engine.control.group.GroupIndex;
+import org.apache.commons.jcs3.engine.match.KeyPrefixIndex;
+import org.apache.commons.jcs3.engine.match.behavior.IKeyMatcher;
 import org.apache.commons.jcs3.engine.memory.behavior.IMemoryCache;
 import org.apache.commons.jcs3.engine.memory.util.MemoryElementDescriptor;
 import org.apache.commons.jcs3.engine.stats.StatElement;
@@ -69,6 +74,12 @@ public abstract class AbstractMemoryCache<K, V>
     /** Map where items are stored by key.  This is created by the concrete child class. */
     protected Map<K, MemoryElementDescriptor<K, V>> map;// TODO privatise
 
+    /** The group members in the map. Children must keep it in step with the map. */
+    protected GroupIndex<K> groupIndex;
+
+    /** The keys ordered by text, null unless the region uses a key index. */
+    protected KeyPrefixIndex<K> keyIndex;
+
     /** number of hits */
     protected AtomicLong hitCnt;
 
@@ -94,6 +105,8 @@ public abstract class AbstractMemoryCache<K, V>
         this.chunkSize = cacheAttributes.getSpoolChunkSize();
         this.cache = hub;
 
+        this.groupIndex = new GroupIndex<>();
+        this.keyIndex = cacheAttributes.isUseKeyIndex() ? new KeyPrefixIndex<>() : null;
         this.map = createMap();
     }
 
@@ -193,6 +206,11 @@ public abstract class AbstractMemoryCache<K, V>
         {
             lockedRemoveAll();
             map.clear();
+            groupIndex.clear();
+            if (keyIndex != null)
+            {
+                keyIndex.clear();
+            }
         }
         finally
         {
@@ -238,6 +256,7 @@ public abstract class AbstractMemoryCache<K, V>
         elems.add(new StatElement<>("Hit Count", hitCnt));
         elems.add(new StatElement<>("Miss Count", missCnt));
         elems.add(new StatElement<>( "Map Size", Integer.valueOf(getSize()) ) );
+        groupIndex.addStatElements(elems);
 
         return stats;
     }
@@ -336,26 +355,15 @@ public abstract class AbstractMemoryCache<K, V>
     {
         final GroupId groupId = ((GroupAttrName<?>) key).groupId;
 
-        // remove all keys of the same group hierarchy.
-        return map.entrySet().removeIf(entry -> {
-            final K k = entry.getKey();
-
-            if (k instanceof GroupAttrName && ((GroupAttrName<?>) k).groupId.equals(groupId))
-            {
-                lock.lock();
-                try
-                {
-                    lockedRemoveElement(entry.getValue());
-                    return true;
-                }
-                finally
-                {
-                    lock.unlock();
-                }
-            }
+        // remove the members found by the index, not scanning the map. Each key leaves the map
+        // and the index together under the lock, so a member put meanwhile stays indexed
+        boolean removed = false;
+        for (final K k : groupIndex.getKeys(groupId))
+        {
+            removed |= removeIndexed(k);
+        }
 
-            return false;
-        });
+        return removed;
     }
 
     /**
@@ -368,6 +376,20 @@ public abstract class AbstractMemoryCache<K, V>
     {
         final String keyString = key.toString();
 
+        if (keyIndex != null)
+        {
+            // only visit the keys having the prefix
+            boolean removed = false;
+            for (final K k : keyIndex.getKeysWithPrefix(keyString))
+            {
+                if (k instanceof String)
+                {
+                    removed |= removeIndexed(k);
+                }
+            }
+            return removed;
+        }
+
         // remove all keys of the same name hierarchy.
         return map.entrySet().removeIf(entry -> {
             final K k = entry.getKey();
@@ -427,23 +449,64 @@ public abstract class AbstractMemoryCache<K, V>
         else
         {
             // remove single item.
-            lock.lock();
-            try
+            removed = removeIndexed(key);
+        }
+
+        return removed;
+    }
+
+    /**
+     * Removes a single item and its index entries.
+     *
+     * @param key the key
+     * @return true if the item was in the map
+     */
+    private boolean removeIndexed(final K key)
+    {
+        lock.lock();
+        try
+        {
+            final MemoryElementDescriptor<K, V> me = map.remove(key);
+            if (me != null)
             {
-                final MemoryElementDescriptor<K, V> me = map.remove(key);
-                if (me != null)
-                {
-                    lockedRemoveElement(me);
-                    removed = true;
-                }
-            }
-            finally
-            {
-                lock.unlock();
+                unindexKey(key);
+                lockedRemoveElement(me);
+                return true;
             }
+            return false;
         }
+        finally
+        {
+            lock.unlock();
+        }
+    }
 
-        return removed;
+    /**
+     * Adds a key entering the map to the indexes. Children call it from update.
+     *
+     * @param key the key
+     */
+    protected void indexKey(final K key)
+    {
+        groupIndex.add(key);
+        if (keyIndex != null)
+        {
+            keyIndex.add(key);
+        }
+    }
+
+    /**
+     * Removes a key leaving the map from the indexes. Children call it when they evict.
+     *
+     * @param key the key
+     */
+    protected void unindexKey(final Object key)
+    {
+        groupIndex.remove(key);
+        if (keyIndex != null)
+        {
+            keyIndex.remove(key);
+        }
     }
 
     /**
@@ -457,6 +520,55 @@ public abstract class AbstractMemoryCache<K, V>
         return new LinkedHashSet<>(map.keySet());
     }
 
+    /**
+     * Streams the keys of the map directly if it is a concurrent one, otherwise streams a copy.
+     * <p>
+     * @return a weakly consistent stream of the keys
+     */
+    @Override
+    public Stream<K> getKeyStream()
+    {
+        if (map instanceof ConcurrentMap)
+        {
+            return map.keySet().stream();
+        }
+        return getKeySet().stream();
+    }
+
+    /**
+     * Gets the keys of a group from the group index.
+     * <p>
+     * @param groupId the group
+     * @return a copy of the keys of the group
+     */
+    @Override
+    public Set<K> getGroupKeys(final GroupId groupId)
+    {
+        return groupIndex.getKeys(groupId);
+    }
+
+    /**
+     * Gets the keys matched by a pattern, from the key index when the region has one and the
+     * pattern starts with a literal prefix.
+     * <p>
+     * @param keyMatcher the matcher of the region
+     * @param pattern the pattern
+     * @return a set of the matching keys
+     */
+    @Override
+    public Set<K> getMatchingKeys(final IKeyMatcher<K> keyMatcher, final String pattern)
+    {
+        if (keyIndex != null)
+        {
+            final Set<K> matchingKeys = keyIndex.getMatchingKeys(keyMatcher, pattern);
+            if (matchingKeys != null)
+            {
+                return matchingKeys;
+            }
+        }
+        return keyMatcher.getMatchingKeysFromArray(pattern, getKeySet());
+    }
+
     /**
      * Get an item from the cache.
      * <p>
@@ -22,10 +22,15 @@ package org.apache.commons.jcs3.engine.memory.behavior;
 import java.io.IOException;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes;
 import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.control.group.GroupAttrName;
+import org.apache.commons.jcs3.engine.control.group.GroupId;
+import org.apache.commons.jcs3.engine.match.behavior.IKeyMatcher;
 import org.apache.commons.jcs3.engine.stats.behavior.IStats;
 
 /** For the framework. Insures methods a MemoryCache needs to access. */
@@ -70,6 +75,45 @@ public interface IMemoryCache<K, V>
      */
     Set<K> getKeySet();
 
+    /**
+     * Streams the keys of the elements in the memory cache without copying them first, if the
+     * implementation allows it. The stream is weakly consistent: it may or may not reflect the
+     * changes made while it is consumed, and never fails because of them.
+     * <p>
+     * @return a stream of the keys
+     */
+    default Stream<K> getKeyStream()
+    {
+        return getKeySet().stream();
+    }
+
+    /**
+     * Gets the keys of the members of a group. Implementations keeping a group index answer
+     * without scanning all the keys, the default filters the key stream.
+     * <p>
+     * @param groupId the group
+     * @return a set of the GroupAttrName keys of the group
+     */
+    default Set<K> getGroupKeys( final GroupId groupId )
+    {
+        return getKeyStream()
+                .filter( key -> key instanceof GroupAttrName && ( (GroupAttrName<?>) key ).groupId.equals( groupId ) )
+                .collect( Collectors.toSet() );
+    }
+
+    /**
+     * Gets the keys matched by a pattern. Implementations keeping a key index only look at the
+     * keys starting with the literal prefix of the pattern, the default matches all the keys.
+     * <p>
+     * @param keyMatcher the matcher of the region
+     * @param pattern the pattern
+     * @return a set of the matching keys
+     */
+    default Set<K> getMatchingKeys( final IKeyMatcher<K> keyMatcher, final String pattern )
+    {
+        return keyMatcher.getMatchingKeysFromArray( pattern, getKeySet() );
+    }
+
     /**
      * Removes an item from the cache
      * <p>
@@ -74,7 +74,17 @@ public class LHMLRUMemoryCache<K, V>
         throws IOException
     {
         putCnt.incrementAndGet();
-        map.put( ce.getKey(), new MemoryElementDescriptor<>(ce) );
+        // the lock keeps the group index in step with the map, see remove
+        lock.lock();
+        try
+        {
+            map.put( ce.getKey(), new MemoryElementDescriptor<>(ce) );
+            indexKey( ce.getKey() );
+        }
+        finally
+        {
+            lock.unlock();
+        }
     }
 
     /**
@@ -191,6 +201,7 @@ public class LHMLRUMemoryCache<K, V>
                     () -> getCacheAttributes().getMaxObjects(), element::getKey);
 
             waterfal( element );
+            unindexKey( eldest.getKey() );
 
             log.debug( "LHMLRU size: {0}", () -> map.size() );
             return true;
@@ -32,6 +32,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes;
 import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.control.group.GroupId;
 import org.apache.commons.jcs3.engine.memory.AbstractMemoryCache;
 import org.apache.commons.jcs3.engine.memory.util.MemoryElementDescriptor;
 import org.apache.commons.jcs3.engine.memory.util.SoftReferenceElementDescriptor;
@@ -107,6 +108,23 @@ public class SoftReferenceMemoryCache<K, V> extends AbstractMemoryCache<K, V>
         return keys;
     }
 
+    /**
+     * Gets the keys of a group from the group index, skipping the cleared references.
+     * <p>
+     * @param groupId the group
+     * @return a copy of the keys of the group
+     */
+    @Override
+    public Set<K> getGroupKeys(final GroupId groupId)
+    {
+        final Set<K> keys = super.getGroupKeys(groupId);
+        keys.removeIf(key -> {
+            final MemoryElementDescriptor<K, V> me = map.get(key);
+            return me == null || me.getCacheElement() == null;
+        });
+        return keys;
+    }
+
     /**
      * Returns the current cache size.
      * <p>
@@ -200,6 +218,7 @@ public class SoftReferenceMemoryCache<K, V> extends AbstractMemoryCache<K, V>
         try
         {
             map.put(ce.getKey(), new SoftReferenceElementDescriptor<>(ce));
+            indexKey(ce.getKey());
             strongReferences.add(ce);
             trimStrongReferences();
         }
@@ -0,0 +1,201 @@
+package org.apache.commons.jcs3.engine.stats;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+
+/**
+ * A concurrent histogram of durations. Values are counted in log-linear buckets: each power of two
+ * is split in 8 buckets, so a percentile is reported with at most 12.5% error whatever the
+ * magnitude, using a fixed amount of memory. The counters are striped, recording doesn't contend
+ * between threads.
+ * <p>
+ * The histogram doesn't know the unit of the values, it is the one used by the caller.
+ */
+public class LatencyHistogram
+{
+    /** Number of bits of a value kept below its highest bit */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /** Number of buckets per power of two */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Enough buckets for any positive long */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /** The counts per bucket */
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+    /** The sum of the recorded values */
+    private final LongAdder total = new LongAdder();
+
+    /** The highest recorded value */
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    /**
+     * Constructor
+     */
+    public LatencyHistogram()
+    {
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a value, negative values are recorded as 0.
+     * <p>
+     * @param value the duration
+     */
+    public void record(final long value)
+    {
+        final long v = Math.max(0, value);
+        counts[bucket(v)].increment();
+        total.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getCount()
+    {
+        long count = 0;
+        for (final LongAdder c : counts)
+        {
+            count += c.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return the average of the recorded values, 0 if there is none
+     */
+    public double getMean()
+    {
+        final long count = getCount();
+        return count == 0 ? 0 : total.sum() / (double) count;
+    }
+
+    /**
+     * @return the highest recorded value
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     * Gets the value below or at which the given part of the recorded values are. This is the
+     * highest value of the bucket holding it, so it may be slightly above the exact percentile.
+     * <p>
+     * @param quantile between 0 and 1, 0.99 for the 99th percentile
+     * @return the percentile, 0 if nothing was recorded
+     */
+    public long getPercentile(final double quantile)
+    {
+        final long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            snapshot[i] = counts[i].sum();
+            count += snapshot[i];
+        }
+        if (count == 0)
+        {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(1, Math.max(0, quantile)) * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            seen += snapshot[i];
+            if (seen >= rank)
+            {
+                return Math.min(highestValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Forgets all the recorded values.
+     */
+    public void reset()
+    {
+        for (final LongAdder c : counts)
+        {
+            c.reset();
+        }
+        total.reset();
+        max.reset();
+    }
+
+    /**
+     * Adds the count, the percentiles 50, 99 and 99.9 and the maximum to the list.
+     * <p>
+     * @param prefix the start of the names of the stats, the operation measured for instance
+     * @param elems where to add the stats
+     */
+    public void addStatElements(final String prefix, final List<IStatElement<?>> elems)
+    {
+        elems.add(new StatElement<>(prefix + " Count", Long.valueOf(getCount())));
+        elems.add(new StatElement<>(prefix + " p50", Long.valueOf(getPercentile(0.5))));
+        elems.add(new StatElement<>(prefix + " p99", Long.valueOf(getPercentile(0.99))));
+        elems.add(new StatElement<>(prefix + " p999", Long.valueOf(getPercentile(0.999))));
+        elems.add(new StatElement<>(prefix + " Max", Long.valueOf(getMax())));
+    }
+
+    /**
+     * @param value a positive value
+     * @return the index of the bucket of the value
+     */
+    private static int bucket(final long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        final int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int sub = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @param bucket the index of a bucket
+     * @return the highest value counted in the bucket
+     */
+    private static long highestValue(final int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+        {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
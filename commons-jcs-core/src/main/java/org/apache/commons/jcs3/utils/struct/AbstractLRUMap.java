@@ -523,7 +523,7 @@ public abstract class AbstractLRUMap<K, V>
     }
 
     /**
-     * @return map.keySet();
+     * @return a copy of the keys, which callers may iterate and change while the map changes
      */
     @Override
     public Set<K> keySet()
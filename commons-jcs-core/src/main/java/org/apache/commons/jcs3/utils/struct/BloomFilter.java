@@ -0,0 +1,228 @@
+package org.apache.commons.jcs3.utils.struct;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.jcs3.engine.control.group.GroupAttrName;
+
+/**
+ * A Bloom filter over the hash codes of the keys. {@link #mightContain(Object)} never returns
+ * false for a key that was added, and returns true for a key that was not added with about the
+ * false positive rate given at creation, as long as no more than the expected number of keys
+ * were added.
+ * <p>
+ * Keys cannot be removed: the owner builds a new filter from time to time. Since only the hash
+ * code of a key is used, a filter sent to another JVM must only be asked about the keys for
+ * which {@link #hasPortableHashCode(Object)} is true.
+ * <p>
+ * The filter is thread safe and does not lock.
+ */
+public class BloomFilter
+    implements Serializable
+{
+    /** Don't change. */
+    private static final long serialVersionUID = 4418297306157362491L;
+
+    /** The smallest number of bits. */
+    private static final int MIN_BITS = 64;
+
+    /** The largest number of bits, the limit of the array. */
+    private static final long MAX_BITS = (long) Integer.MAX_VALUE * Long.SIZE;
+
+    /** The bits. */
+    private final AtomicLongArray bits;
+
+    /** The number of bits. */
+    private final long numberOfBits;
+
+    /** The number of bits set per key. */
+    private final int numberOfHashes;
+
+    /** The number of keys the filter was sized for. */
+    private final int expectedInsertions;
+
+    /** The number of calls to add. */
+    private final AtomicLong insertions = new AtomicLong();
+
+    /**
+     * Creates an empty filter.
+     * <p>
+     * @param expectedInsertions the number of keys to size the filter for
+     * @param falsePositiveRate the rate of false positives at the expected number of keys, between
+     *            0 and 1 exclusive
+     */
+    public BloomFilter(final int expectedInsertions, final double falsePositiveRate)
+    {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1)
+        {
+            throw new IllegalArgumentException("The false positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+
+        this.expectedInsertions = Math.max(1, expectedInsertions);
+
+        // m = -n ln(p) / ln(2)^2 and k = m / n ln(2)
+        final double optimalBits = -this.expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        final long words = (Math.min(Math.max((long) Math.ceil(optimalBits), MIN_BITS), MAX_BITS) + Long.SIZE - 1) / Long.SIZE;
+        this.bits = new AtomicLongArray((int) words);
+        this.numberOfBits = words * Long.SIZE;
+        this.numberOfHashes = Math.max(1, (int) Math.round((double) numberOfBits / this.expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Adds a key.
+     * <p>
+     * @param key
+     */
+    public void add(final Object key)
+    {
+        final long hash = mix(key.hashCode());
+        final long hash1 = hash >>> 32;
+        final long hash2 = hash & 0xFFFFFFFFL;
+
+        for (int i = 0; i < numberOfHashes; i++)
+        {
+            final long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % numberOfBits;
+            final int word = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask))
+            {
+                current = bits.get(word);
+            }
+        }
+
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * @param key
+     * @return false if the key was certainly not added, true if it may have been
+     */
+    public boolean mightContain(final Object key)
+    {
+        final long hash = mix(key.hashCode());
+        final long hash1 = hash >>> 32;
+        final long hash2 = hash & 0xFFFFFFFFL;
+
+        for (int i = 0; i < numberOfHashes; i++)
+        {
+            final long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % numberOfBits;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Tells if the hash code of a key is the same in every JVM, so that a filter built in another
+     * JVM can be asked about it. This is true for strings, boxed primitives and group attribute
+     * names of such attributes. It is false for enums and for classes which may use the identity
+     * hash code.
+     * <p>
+     * @param key
+     * @return true if the hash code of the key does not depend on the JVM
+     */
+    public static boolean hasPortableHashCode(final Object key)
+    {
+        if (key instanceof GroupAttrName)
+        {
+            final Object attrName = ((GroupAttrName<?>) key).attrName;
+            return attrName == null || hasPortableHashCode(attrName);
+        }
+
+        return key instanceof String
+                || key instanceof Integer
+                || key instanceof Long
+                || key instanceof Short
+                || key instanceof Byte
+                || key instanceof Character
+                || key instanceof Boolean
+                || key instanceof Double
+                || key instanceof Float;
+    }
+
+    /**
+     * @return the number of calls to add, which counts a key added twice twice
+     */
+    public long getInsertions()
+    {
+        return insertions.get();
+    }
+
+    /**
+     * @return true if more keys were added than the filter was sized for, so that the false
+     *         positive rate is higher than requested
+     */
+    public boolean isSaturated()
+    {
+        return insertions.get() > expectedInsertions;
+    }
+
+    /**
+     * @return the number of bits
+     */
+    public long getNumberOfBits()
+    {
+        return numberOfBits;
+    }
+
+    /**
+     * @return the number of bits set per key
+     */
+    public int getNumberOfHashes()
+    {
+        return numberOfHashes;
+    }
+
+    /**
+     * Spreads a hash code over 64 bits (the finalizer of MurmurHash3), so that keys with close
+     * hash codes set unrelated bits.
+     * <p>
+     * @param hashCode
+     * @return the mixed hash
+     */
+    private static long mix(final int hashCode)
+    {
+        long h = hashCode;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * @return the size and fill of the filter
+     */
+    @Override
+    public String toString()
+    {
+        return "BloomFilter bits = " + numberOfBits + ", hashes = " + numberOfHashes
+                + ", insertions = " + insertions.get() + "/" + expectedInsertions;
+    }
+}
@@ -0,0 +1,783 @@
+package org.apache.commons.jcs3.utils.struct;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A key index mapping each key to a position and a length, such as the location of a value on
+ * disk. The keys are kept in an open addressing table with linear probing, and the positions and
+ * lengths in primitive arrays, or in a direct buffer outside of the heap, so an entry costs a
+ * reference, a hash, a long, an int and a byte instead of the map entry, list node and value
+ * objects of a map.
+ * <p>
+ * The index is not limited. The owner evicts entries with {@link #evict()}, which picks an entry
+ * that was not read since the clock hand last passed it (approximate LRU). Only once the table
+ * reached its largest capacity does a put of a new key evict an entry itself, to keep room.
+ * <p>
+ * The index is thread safe. Gets share a read lock.
+ */
+public class CompactKeyIndex<K>
+{
+    /** Called for the entries removed by {@link CompactKeyIndex#evict()}. */
+    @FunctionalInterface
+    public interface EvictionListener<K>
+    {
+        /**
+         * @param key the evicted key
+         * @param position the position of the evicted entry
+         * @param length the length of the evicted entry
+         */
+        void evicted(K key, long position, int length);
+    }
+
+    /** Called for each entry. */
+    @FunctionalInterface
+    public interface EntryVisitor<K>
+    {
+        /**
+         * @param key the key
+         * @param position the position of the entry
+         * @param length the length of the entry
+         */
+        void visit(K key, long position, int length);
+    }
+
+    /** The bytes used per slot by the arrays, besides the reference to the key. */
+    private static final int SLOT_BYTES = 4 + 8 + 4 + 1;
+
+    /** The assumed size of a reference. */
+    private static final int REFERENCE_BYTES = 8;
+
+    /** The initial number of slots. */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /** The largest number of slots, limited by the off heap buffer of 12 bytes per slot. */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE / 12;
+
+    /** An entry removed under the lock, passed to the listener after it is released. */
+    private static final class Evicted<K>
+    {
+        /** The key. */
+        final K key;
+
+        /** The position. */
+        final long position;
+
+        /** The length. */
+        final int length;
+
+        /**
+         * @param key
+         * @param position
+         * @param length
+         */
+        Evicted(final K key, final long position, final int length)
+        {
+            this.key = key;
+            this.position = position;
+            this.length = length;
+        }
+    }
+
+    /** A copy of the entries, taken with {@link CompactKeyIndex#snapshot()}. */
+    public static final class Snapshot<K>
+    {
+        /** The keys. */
+        private final Object[] keys;
+
+        /** The positions. */
+        private final long[] positions;
+
+        /** The lengths. */
+        private final int[] lengths;
+
+        /**
+         * @param size the number of entries
+         */
+        Snapshot(final int size)
+        {
+            keys = new Object[size];
+            positions = new long[size];
+            lengths = new int[size];
+        }
+
+        /**
+         * @return the number of entries
+         */
+        public int size()
+        {
+            return keys.length;
+        }
+
+        /**
+         * @param i the entry, from 0 to size() - 1
+         * @return the key of the entry
+         */
+        @SuppressWarnings("unchecked")
+        public K getKey(final int i)
+        {
+            return (K) keys[i];
+        }
+
+        /**
+         * @param i the entry, from 0 to size() - 1
+         * @return the position of the entry
+         */
+        public long getPosition(final int i)
+        {
+            return positions[i];
+        }
+
+        /**
+         * @param i the entry, from 0 to size() - 1
+         * @return the length of the entry
+         */
+        public int getLength(final int i)
+        {
+            return lengths[i];
+        }
+    }
+
+    /** The keys, null for an empty slot. */
+    private Object[] keys;
+
+    /** The spread hash codes of the keys. */
+    private int[] hashes;
+
+    /** The positions, when on heap. */
+    private long[] positions;
+
+    /** The lengths, when on heap. */
+    private int[] lengths;
+
+    /** The positions and lengths, 12 bytes per slot, when off heap. */
+    private ByteBuffer offHeap;
+
+    /** Set when the entry is read, cleared by the clock hand. */
+    private byte[] referenced;
+
+    /** Whether the positions and lengths are kept outside of the heap. */
+    private final boolean useOffHeap;
+
+    /** The number of entries. */
+    private int size;
+
+    /** The slot the clock hand points to. */
+    private int hand;
+
+    /** Called on eviction. */
+    private final EvictionListener<K> evictionListener;
+
+    /** The largest number of slots. */
+    private final int maxCapacity;
+
+    /** Guards the table. */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates an index.
+     * <p>
+     * @param expectedSize the number of entries to make room for
+     * @param useOffHeap whether to keep the positions and lengths outside of the heap
+     * @param evictionListener called for the evicted entries, may be null
+     */
+    public CompactKeyIndex(final int expectedSize, final boolean useOffHeap,
+            final EvictionListener<K> evictionListener)
+    {
+        this(expectedSize, useOffHeap, evictionListener, MAX_CAPACITY);
+    }
+
+    /**
+     * Creates an index with a smaller largest capacity, for testing.
+     * <p>
+     * @param expectedSize the number of entries to make room for
+     * @param useOffHeap whether to keep the positions and lengths outside of the heap
+     * @param evictionListener called for the evicted entries, may be null
+     * @param maxCapacity the largest number of slots
+     */
+    CompactKeyIndex(final int expectedSize, final boolean useOffHeap,
+            final EvictionListener<K> evictionListener, final int maxCapacity)
+    {
+        this.useOffHeap = useOffHeap;
+        this.evictionListener = evictionListener;
+        this.maxCapacity = Math.max(DEFAULT_CAPACITY, Math.min(MAX_CAPACITY, maxCapacity));
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * @param expectedSize
+     * @return the number of slots keeping the table at most 3/4 full, up to the largest capacity
+     */
+    private int tableSizeFor(final int expectedSize)
+    {
+        return Math.max(DEFAULT_CAPACITY, (int) Math.min(maxCapacity, expectedSize * 4L / 3 + 1));
+    }
+
+    /**
+     * Allocates empty arrays.
+     * <p>
+     * @param capacity
+     */
+    private void allocate(final int capacity)
+    {
+        keys = new Object[capacity];
+        hashes = new int[capacity];
+        referenced = new byte[capacity];
+        if (useOffHeap)
+        {
+            offHeap = ByteBuffer.allocateDirect(capacity * 12);
+        }
+        else
+        {
+            positions = new long[capacity];
+            lengths = new int[capacity];
+        }
+        hand = 0;
+    }
+
+    /**
+     * @param key
+     * @return the hash code of the key, spread over the bits
+     */
+    private static int hash(final Object key)
+    {
+        final int h = key.hashCode() * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+
+    /**
+     * Maps a hash to a slot with a multiplication rather than a modulo, so the table does not
+     * need a power of two size.
+     * <p>
+     * @param hash
+     * @return the first slot to probe for the hash
+     */
+    private int home(final int hash)
+    {
+        return (int) ((hash & 0xFFFFFFFFL) * keys.length >>> 32);
+    }
+
+    /**
+     * @param slot
+     * @return the next slot to probe
+     */
+    private int next(final int slot)
+    {
+        return slot + 1 == keys.length ? 0 : slot + 1;
+    }
+
+    /**
+     * Finds the slot of a key.
+     * <p>
+     * @param key
+     * @param hash
+     * @return the slot of the key, or -1 - the empty slot where it would go, or -1 - the table
+     *         length if the key is missing and the table has no empty slot
+     */
+    private int find(final Object key, final int hash)
+    {
+        int slot = home(hash);
+        for (int probes = 0; probes < keys.length; probes++)
+        {
+            final Object k = keys[slot];
+            if (k == null)
+            {
+                return -1 - slot;
+            }
+            if (hashes[slot] == hash && k.equals(key))
+            {
+                return slot;
+            }
+            slot = next(slot);
+        }
+        return -1 - keys.length;
+    }
+
+    /**
+     * @param slot
+     * @return the position stored in the slot
+     */
+    private long position(final int slot)
+    {
+        return useOffHeap ? offHeap.getLong(slot * 12) : positions[slot];
+    }
+
+    /**
+     * @param slot
+     * @return the length stored in the slot
+     */
+    private int length(final int slot)
+    {
+        return useOffHeap ? offHeap.getInt(slot * 12 + 8) : lengths[slot];
+    }
+
+    /**
+     * Stores an entry in a slot.
+     */
+    private void set(final int slot, final Object key, final int hash, final long position, final int length)
+    {
+        keys[slot] = key;
+        hashes[slot] = hash;
+        if (useOffHeap)
+        {
+            offHeap.putLong(slot * 12, position);
+            offHeap.putInt(slot * 12 + 8, length);
+        }
+        else
+        {
+            positions[slot] = position;
+            lengths[slot] = length;
+        }
+    }
+
+    /**
+     * Gets the position of a key, and marks it as recently used.
+     * <p>
+     * @param key
+     * @return the position, or -1 if the key is not in the index
+     */
+    public long getPosition(final K key)
+    {
+        lock.readLock().lock();
+        try
+        {
+            final int slot = find(key, hash(key));
+            if (slot < 0)
+            {
+                return -1;
+            }
+            referenced[slot] = 1;
+            return position(slot);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the position and the length of a key, and marks it as recently used.
+     * <p>
+     * @param key
+     * @return the position and the length, or null if the key is not in the index
+     */
+    public long[] get(final K key)
+    {
+        lock.readLock().lock();
+        try
+        {
+            final int slot = find(key, hash(key));
+            if (slot < 0)
+            {
+                return null;
+            }
+            referenced[slot] = 1;
+            return new long[] { position(slot), length(slot) };
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param key
+     * @return whether the key is in the index
+     */
+    public boolean containsKey(final K key)
+    {
+        lock.readLock().lock();
+        try
+        {
+            return find(key, hash(key)) >= 0;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Puts a key in the index, replacing its entry if it is there. The key is marked as recently
+     * used, so that an eviction right after the put does not pick it. If the table is at its
+     * largest capacity and 3/4 full, an entry is evicted to make room for a new key.
+     * <p>
+     * @param key
+     * @param position
+     * @param length
+     * @return the previous position and length, or null
+     */
+    public long[] put(final K key, final long position, final int length)
+    {
+        final int hash = hash(key);
+        Evicted<K> evicted = null;
+        lock.writeLock().lock();
+        try
+        {
+            int slot = find(key, hash);
+            if (slot >= 0)
+            {
+                final long[] previous = { position(slot), length(slot) };
+                set(slot, key, hash, position, length);
+                referenced[slot] = 1;
+                return previous;
+            }
+
+            if ((size + 1) * 4L > keys.length * 3L)
+            {
+                if (keys.length < maxCapacity)
+                {
+                    resize(tableSizeFor(size * 3 / 2 + 1));
+                }
+                else
+                {
+                    // the table cannot grow, the probe sequences must keep reaching an empty slot
+                    evicted = evictLocked();
+                }
+                slot = find(key, hash);
+            }
+            set(-1 - slot, key, hash, position, length);
+            referenced[-1 - slot] = 1;
+            size++;
+            return null;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+            notifyEvicted(evicted);
+        }
+    }
+
+    /**
+     * Removes a key.
+     * <p>
+     * @param key
+     * @return the position and length of the key, or null if it was not in the index
+     */
+    public long[] remove(final K key)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            final int slot = find(key, hash(key));
+            if (slot < 0)
+            {
+                return null;
+            }
+            final long[] removed = { position(slot), length(slot) };
+            delete(slot);
+            return removed;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Evicts the first entry the clock hand finds that was not read since the hand last passed
+     * it. The listener is called with the entry.
+     * <p>
+     * @return false if the index is empty
+     */
+    public boolean evict()
+    {
+        final Evicted<K> evicted;
+        lock.writeLock().lock();
+        try
+        {
+            if (size == 0)
+            {
+                return false;
+            }
+            evicted = evictLocked();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        notifyEvicted(evicted);
+        return true;
+    }
+
+    /**
+     * Removes the first entry the clock hand finds that was not read since the hand last passed
+     * it. The caller holds the write lock and the index is not empty.
+     * <p>
+     * @return the evicted entry
+     */
+    private Evicted<K> evictLocked()
+    {
+        while (keys[hand] == null || referenced[hand] != 0)
+        {
+            referenced[hand] = 0;
+            hand = next(hand);
+        }
+
+        @SuppressWarnings("unchecked")
+        final Evicted<K> evicted = new Evicted<>((K) keys[hand], position(hand), length(hand));
+        delete(hand);
+        return evicted;
+    }
+
+    /**
+     * Calls the listener, outside of the lock.
+     * <p>
+     * @param evicted the entry returned by evictLocked, may be null
+     */
+    private void notifyEvicted(final Evicted<K> evicted)
+    {
+        if (evicted != null && evictionListener != null)
+        {
+            evictionListener.evicted(evicted.key, evicted.position, evicted.length);
+        }
+    }
+
+    /**
+     * Empties a slot, moving back the following entries of the probe sequence so that no
+     * tombstone is needed.
+     * <p>
+     * @param slot
+     */
+    private void delete(final int slot)
+    {
+        int hole = slot;
+        int current = slot;
+        while (true)
+        {
+            current = next(current);
+            final Object k = keys[current];
+            if (k == null)
+            {
+                break;
+            }
+
+            // move the entry to the hole unless its home slot is cyclically in (hole, current]
+            final int home = home(hashes[current]);
+            final boolean stays = hole <= current ? hole < home && home <= current : hole < home || home <= current;
+            if (!stays)
+            {
+                set(hole, k, hashes[current], position(current), length(current));
+                referenced[hole] = referenced[current];
+                hole = current;
+            }
+        }
+
+        keys[hole] = null;
+        referenced[hole] = 0;
+        size--;
+    }
+
+    /**
+     * Rehashes the entries into a new table.
+     * <p>
+     * @param capacity
+     */
+    private void resize(final int capacity)
+    {
+        final Object[] oldKeys = keys;
+        final int[] oldHashes = hashes;
+        final byte[] oldReferenced = referenced;
+        final long[] oldPositions = positions;
+        final int[] oldLengths = lengths;
+        final ByteBuffer oldOffHeap = offHeap;
+
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] != null)
+            {
+                int slot = home(oldHashes[i]);
+                while (keys[slot] != null)
+                {
+                    slot = next(slot);
+                }
+                final long position = useOffHeap ? oldOffHeap.getLong(i * 12) : oldPositions[i];
+                final int length = useOffHeap ? oldOffHeap.getInt(i * 12 + 8) : oldLengths[i];
+                set(slot, oldKeys[i], oldHashes[i], position, length);
+                referenced[slot] = oldReferenced[i];
+            }
+        }
+    }
+
+    /**
+     * Visits every entry under the read lock. The visitor must not modify the index.
+     * <p>
+     * @param visitor
+     */
+    public void forEach(final EntryVisitor<K> visitor)
+    {
+        lock.readLock().lock();
+        try
+        {
+            for (int i = 0; i < keys.length; i++)
+            {
+                if (keys[i] != null)
+                {
+                    @SuppressWarnings("unchecked")
+                    final K key = (K) keys[i];
+                    visitor.visit(key, position(i), length(i));
+                }
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the entries under the read lock, so they can be visited without holding it. The
+     * copy takes a reference, a long and an int per entry.
+     * <p>
+     * @return the copy
+     */
+    public Snapshot<K> snapshot()
+    {
+        lock.readLock().lock();
+        try
+        {
+            final Snapshot<K> snapshot = new Snapshot<>(size);
+            int n = 0;
+            for (int i = 0; i < keys.length; i++)
+            {
+                if (keys[i] != null)
+                {
+                    snapshot.keys[n] = keys[i];
+                    snapshot.positions[n] = position(i);
+                    snapshot.lengths[n] = length(i);
+                    n++;
+                }
+            }
+            return snapshot;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return a copy of the keys
+     */
+    public List<K> keys()
+    {
+        lock.readLock().lock();
+        try
+        {
+            final List<K> result = new ArrayList<>(size);
+            for (final Object k : keys)
+            {
+                if (k != null)
+                {
+                    @SuppressWarnings("unchecked")
+                    final K key = (K) k;
+                    result.add(key);
+                }
+            }
+            return result;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all the entries and shrinks the table.
+     */
+    public void clear()
+    {
+        lock.writeLock().lock();
+        try
+        {
+            allocate(tableSizeFor(0));
+            size = 0;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return size;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of slots
+     */
+    public int capacity()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return keys.length;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The memory used by the table, counting 8 bytes per reference. The keys themselves are not
+     * counted.
+     * <p>
+     * @return the bytes used on heap
+     */
+    public long getHeapBytes()
+    {
+        return (long) capacity() * (REFERENCE_BYTES + SLOT_BYTES - (useOffHeap ? 12 : 0));
+    }
+
+    /**
+     * @return the bytes used outside of the heap
+     */
+    public long getOffHeapBytes()
+    {
+        return useOffHeap ? capacity() * 12L : 0;
+    }
+
+    /**
+     * @return whether the positions and lengths are kept outside of the heap
+     */
+    public boolean isOffHeap()
+    {
+        return useOffHeap;
+    }
+}
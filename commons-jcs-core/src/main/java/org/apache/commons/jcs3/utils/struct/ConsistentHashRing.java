@@ -0,0 +1,176 @@
+package org.apache.commons.jcs3.utils.struct;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An immutable consistent hash ring. Every node is placed on the ring a configurable number of
+ * times (virtual nodes) so that keys spread evenly and only about 1/N of the keys move when a node
+ * joins or leaves.
+ * <p>
+ * Positions are derived from {@link Object#hashCode()} of the nodes and keys. All members of a
+ * cluster must therefore use keys whose hash code is stable across JVMs, e.g. String or the boxed
+ * primitives.
+ */
+public class ConsistentHashRing<T>
+{
+    /** Position on the ring to node. */
+    private final TreeMap<Long, T> ring = new TreeMap<>();
+
+    /** The distinct nodes on the ring. */
+    private final Set<T> nodes;
+
+    /** The number of positions per node. */
+    private final int virtualNodes;
+
+    /**
+     * Build a ring from the given nodes.
+     * <p>
+     * @param nodes the members of the ring
+     * @param virtualNodes the number of positions per node, at least 1
+     */
+    public ConsistentHashRing(final Collection<T> nodes, final int virtualNodes)
+    {
+        this.virtualNodes = Math.max(1, virtualNodes);
+        this.nodes = Collections.unmodifiableSet(new LinkedHashSet<>(nodes));
+
+        for (final T node : this.nodes)
+        {
+            for (int i = 0; i < this.virtualNodes; i++)
+            {
+                ring.put(Long.valueOf(mix((node.toString() + "#" + i).hashCode())), node);
+            }
+        }
+    }
+
+    /**
+     * Create a new ring with the given node added.
+     * <p>
+     * @param node the new member
+     * @return a new ring, this ring is not modified
+     */
+    public ConsistentHashRing<T> with(final T node)
+    {
+        final List<T> newNodes = new ArrayList<>(nodes);
+        newNodes.add(node);
+        return new ConsistentHashRing<>(newNodes, virtualNodes);
+    }
+
+    /**
+     * Create a new ring with the given node removed.
+     * <p>
+     * @param node the member to remove
+     * @return a new ring, this ring is not modified
+     */
+    public ConsistentHashRing<T> without(final T node)
+    {
+        final List<T> newNodes = new ArrayList<>(nodes);
+        newNodes.remove(node);
+        return new ConsistentHashRing<>(newNodes, virtualNodes);
+    }
+
+    /**
+     * Get the owners of a key. The first entry is the primary owner, the following ones are the
+     * replicas, in ring order.
+     * <p>
+     * @param key the key
+     * @param count the number of distinct owners wanted
+     * @return up to count distinct nodes, fewer if the ring has fewer members
+     */
+    public List<T> getNodes(final Object key, final int count)
+    {
+        final int wanted = Math.min(count, nodes.size());
+        final List<T> owners = new ArrayList<>(wanted);
+
+        if (wanted <= 0)
+        {
+            return owners;
+        }
+
+        final Long position = Long.valueOf(mix(key.hashCode()));
+
+        for (final T node : ring.tailMap(position).values())
+        {
+            if (!owners.contains(node))
+            {
+                owners.add(node);
+                if (owners.size() == wanted)
+                {
+                    return owners;
+                }
+            }
+        }
+
+        // wrap around
+        for (final T node : ring.headMap(position).values())
+        {
+            if (!owners.contains(node))
+            {
+                owners.add(node);
+                if (owners.size() == wanted)
+                {
+                    return owners;
+                }
+            }
+        }
+
+        return owners;
+    }
+
+    /**
+     * @return the distinct members of the ring
+     */
+    public Set<T> getNodes()
+    {
+        return nodes;
+    }
+
+    /**
+     * @return the number of positions per node
+     */
+    public int getVirtualNodes()
+    {
+        return virtualNodes;
+    }
+
+    /**
+     * Spread a 32 bit hash code over the full 64 bit ring (MurmurHash3 finalizer).
+     * <p>
+     * @param hash the hash code
+     * @return the ring position
+     */
+    private static long mix(final int hash)
+    {
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
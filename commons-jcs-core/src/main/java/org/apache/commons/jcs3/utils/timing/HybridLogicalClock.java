@@ -0,0 +1,96 @@
+package org.apache.commons.jcs3.utils.timing;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A hybrid logical clock. The timestamps it hands out are packed into a single long: the upper 48
+ * bits hold the wall clock time in milliseconds, the lower 16 bits a logical counter that breaks
+ * ties within the same millisecond. The resulting values are monotonic on this node and can be
+ * compared with a plain numeric comparison.
+ * <p>
+ * Timestamps received from other nodes are fed back through {@link #update(long)}, so that any
+ * timestamp created afterwards is larger than everything this node has seen, even if the local
+ * wall clock lags behind.
+ */
+public class HybridLogicalClock
+{
+    /** Number of bits reserved for the logical counter. */
+    private static final int LOGICAL_BITS = 16;
+
+    /** The last timestamp handed out or observed. */
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * Creates a new timestamp for a local event.
+     * <p>
+     * @return a timestamp larger than any previously created or observed
+     */
+    public long tick()
+    {
+        final long physical = physicalNow();
+        return last.updateAndGet(l -> Math.max(l + 1, physical));
+    }
+
+    /**
+     * Merges a timestamp received from another node into this clock.
+     * <p>
+     * @param remote the remote timestamp, values &lt;= 0 are ignored
+     * @return the new value of this clock
+     */
+    public long update(final long remote)
+    {
+        if (remote <= 0)
+        {
+            return last.get();
+        }
+
+        final long physical = physicalNow();
+        return last.updateAndGet(l -> Math.max(Math.max(l, remote) + 1, physical));
+    }
+
+    /**
+     * @return the last timestamp handed out or observed, without advancing the clock
+     */
+    public long current()
+    {
+        return last.get();
+    }
+
+    /**
+     * Extracts the wall clock part of a timestamp.
+     * <p>
+     * @param timestamp a timestamp created by this class
+     * @return the time in milliseconds
+     */
+    public static long toMillis(final long timestamp)
+    {
+        return timestamp >>> LOGICAL_BITS;
+    }
+
+    /**
+     * @return the current wall clock time shifted into the physical part of a timestamp
+     */
+    private static long physicalNow()
+    {
+        return System.currentTimeMillis() << LOGICAL_BITS;
+    }
+}
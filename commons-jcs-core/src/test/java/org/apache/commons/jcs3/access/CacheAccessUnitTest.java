@@ -22,6 +22,10 @@ package org.apache.commons.jcs3.access;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.apache.commons.jcs3.JCS;
 import org.apache.commons.jcs3.access.exception.CacheException;
@@ -363,4 +367,102 @@ public class CacheAccessUnitTest
             assertTrue( "Should be a cache element.", value instanceof ICacheElement );
         }
     }
+
+    /**
+     * Verify that a hit in the refresh ahead window returns the cached value and reloads it once
+     * in the background.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetWithSupplierRefreshesAhead()
+        throws Exception
+    {
+        // SETUP
+        final IElementAttributes attr = new ElementAttributes();
+        attr.setIsEternal( false );
+        attr.setMaxLife( 3 );
+        attr.setRefreshAhead( 2 );
+        final CacheAccess<String, String> access = JCS.getInstance( "testGetWithSupplierRefreshesAhead" );
+        access.setDefaultElementAttributes( attr );
+
+        final AtomicInteger loads = new AtomicInteger();
+        final Supplier<String> supplier = () -> {
+            try
+            {
+                Thread.sleep( 200 );
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+            return "v" + loads.incrementAndGet();
+        };
+        assertEquals( "Wrong loaded value", "v1", access.get( "key", supplier ) );
+        assertEquals( "Should not reload before the window", "v1", access.get( "key", supplier ) );
+
+        // DO WORK
+        Thread.sleep( 1500 );
+        for ( int i = 0; i < 5; i++ )
+        {
+            assertEquals( "Should return the cached value", "v1", access.get( "key", supplier ) );
+        }
+        for ( int i = 0; i < 50 && !"v2".equals( access.get( "key" ) ); i++ )
+        {
+            Thread.sleep( 50 );
+        }
+
+        // VERIFY
+        assertEquals( "Should have been refreshed", "v2", access.get( "key" ) );
+        assertEquals( "Should reload once", 2, loads.get() );
+    }
+
+    /**
+     * Verify that a value put while the key is reloaded in the background is not overwritten by
+     * the reloaded value.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetWithSupplierRefreshKeepsNewerPut()
+        throws Exception
+    {
+        // SETUP
+        final IElementAttributes attr = new ElementAttributes();
+        attr.setIsEternal( false );
+        attr.setMaxLife( 3 );
+        attr.setRefreshAhead( 2 );
+        final CacheAccess<String, String> access = JCS.getInstance( "testGetWithSupplierRefreshKeepsNewerPut" );
+        access.setDefaultElementAttributes( attr );
+
+        final CountDownLatch reloading = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final AtomicInteger loads = new AtomicInteger();
+        final Supplier<String> supplier = () -> {
+            if ( loads.incrementAndGet() > 1 )
+            {
+                reloading.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch ( final InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return "reloaded";
+            }
+            return "loaded";
+        };
+        access.get( "key", supplier );
+        Thread.sleep( 1500 );
+
+        // DO WORK
+        access.get( "key", supplier );
+        assertTrue( "Should reload", reloading.await( 5, TimeUnit.SECONDS ) );
+        access.put( "key", "newer" );
+        release.countDown();
+        Thread.sleep( 300 );
+
+        // VERIFY
+        assertEquals( "The reload should not overwrite the newer value", "newer", access.get( "key" ) );
+    }
 }
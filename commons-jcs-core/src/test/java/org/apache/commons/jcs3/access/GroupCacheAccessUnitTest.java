@@ -20,6 +20,7 @@ package org.apache.commons.jcs3.access;
  */
 
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.jcs3.JCS;
 import org.apache.commons.jcs3.access.exception.CacheException;
@@ -237,4 +238,80 @@ public class GroupCacheAccessUnitTest
         assertTrue(access.getGroupNames().contains(groupName1));
         assertTrue(access.getGroupNames().contains(groupName2));
     }
+    /**
+     * Verify the group keys follow the removals and invalidations.
+     *
+     * @throws Exception
+     */
+    public void testGroupKeysAfterRemove()
+        throws Exception
+    {
+        final GroupCacheAccess<String, Integer> access = JCS.getGroupCacheInstance( "testGroup" );
+        final String groupName1 = "testGroupKeysAfterRemove1";
+        final String groupName2 = "testGroupKeysAfterRemove2";
+
+        for ( int i = 0; i < 20; i++ )
+        {
+            access.putInGroup( String.valueOf( i ), groupName1, Integer.valueOf( i ) );
+            access.putInGroup( String.valueOf( i ), groupName2, Integer.valueOf( i ) );
+        }
+
+        access.removeFromGroup( "3", groupName1 );
+        final Set<String> keys1 = access.getGroupKeys( groupName1 );
+        assertEquals( 19, keys1.size() );
+        assertFalse( keys1.contains( "3" ) );
+
+        access.invalidateGroup( groupName1 );
+        assertTrue( access.getGroupKeys( groupName1 ).isEmpty() );
+        assertNull( access.getFromGroup( "5", groupName1 ) );
+        assertEquals( 20, access.getGroupKeys( groupName2 ).size() );
+
+        access.putInGroup( "5", groupName1, Integer.valueOf( 5 ) );
+        assertEquals( 1, access.getGroupKeys( groupName1 ).size() );
+    }
+
+    /**
+     * Verify the group keys match the members in the cache when the group is invalidated while
+     * members are put.
+     *
+     * @throws Exception
+     */
+    public void testGroupKeysWithConcurrentInvalidate()
+        throws Exception
+    {
+        final GroupCacheAccess<String, Integer> access = JCS.getGroupCacheInstance( "testGroup" );
+        final String groupName = "testGroupKeysWithConcurrentInvalidate";
+        final AtomicBoolean done = new AtomicBoolean();
+
+        final Thread invalidator = new Thread( () -> {
+            while ( !done.get() )
+            {
+                access.invalidateGroup( groupName );
+            }
+        } );
+        invalidator.start();
+        try
+        {
+            for ( int round = 0; round < 200; round++ )
+            {
+                for ( int i = 0; i < 20; i++ )
+                {
+                    access.putInGroup( String.valueOf( i ), groupName, Integer.valueOf( i ) );
+                }
+            }
+        }
+        finally
+        {
+            done.set( true );
+            invalidator.join();
+        }
+
+        final Set<String> keys = access.getGroupKeys( groupName );
+        for ( int i = 0; i < 20; i++ )
+        {
+            final String key = String.valueOf( i );
+            assertEquals( "Index and cache disagree for " + key,
+                    access.getFromGroup( key, groupName ) != null, keys.contains( key ) );
+        }
+    }
 }
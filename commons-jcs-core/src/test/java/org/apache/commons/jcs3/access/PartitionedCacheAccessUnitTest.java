@@ -0,0 +1,280 @@
+package org.apache.commons.jcs3.access;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.jcs3.JCS;
+import org.apache.commons.jcs3.access.exception.ConfigurationException;
+import org.apache.commons.jcs3.engine.CompositeCacheAttributes;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.control.CompositeCacheManager;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the access to partitioned regions.
+ */
+public class PartitionedCacheAccessUnitTest
+    extends TestCase
+{
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        JCS.setConfigFilename( "/TestPartitionedCache.ccf" );
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        JCS.shutdown();
+    }
+
+    /**
+     * Verify that the keys are spread over the configured partitions and read back.
+     * @throws Exception
+     */
+    public void testPutGet()
+        throws Exception
+    {
+        // SETUP
+        final CacheAccess<String, String> access = JCS.getInstance( "partitioned" );
+        assertTrue( "Should be partitioned", access instanceof PartitionedCacheAccess );
+        assertEquals( "Wrong number of partitions", 4, ( (PartitionedCacheAccess<String, String>) access ).getNumberOfPartitions() );
+
+        // DO WORK
+        for ( int i = 0; i < 200; i++ )
+        {
+            access.put( "key" + i, "value" + i );
+        }
+
+        // VERIFY
+        for ( int i = 0; i < 200; i++ )
+        {
+            assertEquals( "Wrong value", "value" + i, access.get( "key" + i ) );
+        }
+
+        final CompositeCacheManager manager = CompositeCacheManager.getInstance();
+        int total = manager.getCache( "partitioned" ).getSize();
+        for ( int i = 1; i < 4; i++ )
+        {
+            final CompositeCache<String, String> partition = manager.getCache( "partitioned#" + i );
+            assertTrue( "Partition " + i + " should hold keys", partition.getSize() > 0 );
+            assertEquals( "Partition should have its share of MaxObjects", 250, partition.getCacheAttributes().getMaxObjects() );
+            total += partition.getSize();
+        }
+        assertEquals( "Each key should be in a single partition", 200, total );
+        assertEquals( "The region should have its share of MaxObjects", 250,
+                manager.getCache( "partitioned" ).getCacheAttributes().getMaxObjects() );
+
+        // DO WORK
+        JCS.getInstance( "partitioned" );
+
+        // VERIFY
+        assertEquals( "MaxObjects should be divided once", 250,
+                manager.getCache( "partitioned" ).getCacheAttributes().getMaxObjects() );
+    }
+
+    /**
+     * Verify that new attributes divide MaxObjects between the partitions, so the capacity of the
+     * region is the configured one.
+     * @throws Exception
+     */
+    public void testSetCacheAttributes()
+        throws Exception
+    {
+        // SETUP
+        final CacheAccess<String, String> access = JCS.getInstance( "partitioned" );
+        final CompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName( "partitioned" );
+        cattr.setMaxObjects( 2000 );
+
+        // DO WORK
+        access.setCacheAttributes( cattr );
+
+        // VERIFY
+        final CompositeCacheManager manager = CompositeCacheManager.getInstance();
+        int total = manager.getCache( "partitioned" ).getCacheAttributes().getMaxObjects();
+        for ( int i = 1; i < 4; i++ )
+        {
+            final CompositeCache<String, String> partition = manager.getCache( "partitioned#" + i );
+            assertEquals( "Wrong partition name", "partitioned#" + i, partition.getCacheAttributes().getCacheName() );
+            total += partition.getCacheAttributes().getMaxObjects();
+        }
+        assertEquals( "Wrong capacity of the region", 2000, total );
+        assertEquals( "Should not change the attributes passed", 2000, cattr.getMaxObjects() );
+
+        // DO WORK
+        for ( int i = 0; i < 3000; i++ )
+        {
+            access.put( "key" + i, "value" + i );
+        }
+
+        // VERIFY
+        int size = 0;
+        for ( int i = 0; i < 4; i++ )
+        {
+            size += manager.getCache( i == 0 ? "partitioned" : "partitioned#" + i ).getMemoryCache().getSize();
+        }
+        assertTrue( "Should hold at most the capacity of the region in memory: " + size, size <= 2000 );
+    }
+
+    /**
+     * Verify that the partitions are freed with the region.
+     * @throws Exception
+     */
+    public void testFreeCache()
+        throws Exception
+    {
+        // SETUP
+        JCS.getInstance( "partitioned" );
+        final CompositeCacheManager manager = CompositeCacheManager.getInstance();
+        assertTrue( "Should have the partitions", manager.getCacheNames().contains( "partitioned#3" ) );
+
+        // DO WORK
+        manager.freeCache( "partitioned" );
+
+        // VERIFY
+        for ( int i = 1; i < 4; i++ )
+        {
+            assertFalse( "Partition " + i + " should be freed", manager.getCacheNames().contains( "partitioned#" + i ) );
+        }
+    }
+
+    /**
+     * Verify that a region of the user is not taken over as a partition.
+     * @throws Exception
+     */
+    public void testPartitionNameCollision()
+        throws Exception
+    {
+        // SETUP
+        final CacheAccess<String, String> other = JCS.getInstance( "collision#2" );
+        other.put( "key", "value" );
+        final CompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName( "collision" );
+        cattr.setNumberOfPartitions( 3 );
+        final CompositeCacheManager manager = CompositeCacheManager.getInstance();
+
+        try
+        {
+            // DO WORK
+            JCS.getInstance( "collision", cattr );
+            fail( "Should refuse to use an existing region as a partition" );
+        }
+        catch ( final ConfigurationException e )
+        {
+            // expected
+        }
+
+        // VERIFY
+        assertFalse( "The first partition should be freed", manager.getCacheNames().contains( "collision#1" ) );
+        assertEquals( "The region of the user should be kept", "value", other.get( "key" ) );
+    }
+
+    /**
+     * Verify that the operations on several keys see all the partitions.
+     * @throws Exception
+     */
+    public void testBulkOperations()
+        throws Exception
+    {
+        // SETUP
+        final CacheAccess<String, String> access = JCS.getInstance( "partitioned" );
+        final Set<String> keys = new HashSet<>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            access.put( "key" + i, "value" + i );
+            keys.add( "key" + i );
+        }
+        keys.add( "missing" );
+
+        // DO WORK
+        final Map<String, ICacheElement<String, String>> elements = access.getCacheElements( keys );
+        final Map<String, String> matching = access.getMatching( "key1\\d" );
+
+        // VERIFY
+        assertEquals( "Wrong number of elements", 100, elements.size() );
+        assertEquals( "Wrong value", "value42", elements.get( "key42" ).getVal() );
+        assertEquals( "Wrong number of matching elements", 10, matching.size() );
+        assertEquals( "Wrong value", "value15", matching.get( "key15" ) );
+        assertEquals( "Wrong number of streamed elements", 100, access.getCacheElementStream().count() );
+
+        // DO WORK
+        final int freed = access.freeMemoryElements( 20 );
+        access.remove( "key99" );
+
+        // VERIFY
+        assertTrue( "Should have freed at least the requested number", freed >= 20 );
+        assertEquals( "Wrong number of elements left", 100 - freed - 1, access.getCacheElementStream().count() );
+
+        // DO WORK
+        access.clear();
+
+        // VERIFY
+        assertEquals( "Should be empty", 0, access.getCacheElementStream().count() );
+        assertEquals( "Should have the statistics of each partition", 4,
+                access.getStatistics().getAuxiliaryCacheStats().size() );
+    }
+
+    /**
+     * Verify that each partition gets auxiliaries of its own.
+     * @throws Exception
+     */
+    public void testPartitionAuxiliaries()
+        throws Exception
+    {
+        // SETUP
+        final CacheAccess<Integer, String> access = JCS.getInstance( "partitionedDisk" );
+
+        // DO WORK
+        for ( int i = 0; i < 300; i++ )
+        {
+            access.put( Integer.valueOf( i ), "value" + i );
+        }
+
+        // VERIFY
+        final CompositeCacheManager manager = CompositeCacheManager.getInstance();
+        final Set<String> auxiliaryNames = new HashSet<>();
+        for ( final String name : new String[] { "partitionedDisk", "partitionedDisk#1", "partitionedDisk#2" } )
+        {
+            final CompositeCache<Integer, String> partition = manager.getCache( name );
+            assertEquals( "Partition should have the disk cache of the region", 1, partition.getAuxCacheList().size() );
+            auxiliaryNames.add( partition.getAuxCacheList().get( 0 ).getCacheName() );
+        }
+        assertEquals( "Each partition should have its own disk cache", 3, auxiliaryNames.size() );
+
+        for ( int i = 0; i < 300; i++ )
+        {
+            assertEquals( "Wrong value", "value" + i, access.get( Integer.valueOf( i ) ) );
+        }
+    }
+}
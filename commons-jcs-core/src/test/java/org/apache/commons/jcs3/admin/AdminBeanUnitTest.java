@@ -20,9 +20,11 @@ package org.apache.commons.jcs3.admin;
  */
 
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.jcs3.JCS;
 import org.apache.commons.jcs3.access.CacheAccess;
+import org.apache.commons.jcs3.engine.CompositeCacheAttributes;
 
 
 /*
@@ -171,4 +173,28 @@ public class AdminBeanUnitTest
         final List<CacheElementInfo> elements2 = admin.buildElementInfo( regionName );
         assertEquals( "Wrong number of elements in the region after remove.", 0, elements2.size() );
     }
+
+    /**
+     * Create a region recording its latencies and verify the percentiles are reported.
+     *
+     * @throws Exception
+     */
+    public void testGetLatencyPercentiles()
+        throws Exception
+    {
+        final String regionName = "latencyRegion";
+        final CompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setUseLatencyHistograms( true );
+        final CacheAccess<String, String> cache = JCS.getInstance( regionName, cattr );
+
+        cache.put( "key", "value" );
+        cache.get( "key" );
+
+        final JCSAdminBean admin = new JCSAdminBean();
+
+        final Map<String, Long> percentiles = admin.getLatencyPercentiles( regionName );
+        assertFalse( "Should have percentiles", percentiles.isEmpty() );
+        assertTrue( "Should have the get p99 of the memory cache",
+                percentiles.keySet().stream().anyMatch( name -> name.endsWith( "Memory Cache Get Micros p99" ) ) );
+    }
 }
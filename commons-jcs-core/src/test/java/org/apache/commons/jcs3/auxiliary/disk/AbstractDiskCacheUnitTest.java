@@ -21,6 +21,7 @@ package org.apache.commons.jcs3.auxiliary.disk;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -166,6 +167,43 @@ public class AbstractDiskCacheUnitTest
         assertNull( "Item should not be in the map.", diskCache.get( key ) );
     }
 
+    /**
+     * Verify that the key filter answers the gets of missing keys without reaching the store, and
+     * lets the keys put after the build through.
+     * <p>
+     * @throws IOException
+     */
+    public void testGet_keyFilter()
+        throws IOException
+    {
+        // SETUP
+        final String cacheName = "testGet_keyFilter";
+        final IndexedDiskCacheAttributes diskCacheAttributes = new IndexedDiskCacheAttributes();
+        diskCacheAttributes.setCacheName( cacheName );
+        diskCacheAttributes.setUseKeyFilter( true );
+
+        final AbstractDiskCacheTestInstance<String, String> diskCache = new AbstractDiskCacheTestInstance<>( diskCacheAttributes );
+        final IElementAttributes elementAttributes = new ElementAttributes();
+        diskCache.processUpdate( new CacheElement<>( cacheName, "onDisk", "value", elementAttributes ) );
+
+        // DO WORK
+        diskCache.rebuildKeyFilter();
+        diskCache.update( new CacheElement<>( cacheName, "putLater", "value", elementAttributes ) );
+        final int storeGetsBefore = diskCache.storeGets;
+        final ICacheElement<String, String> missing = diskCache.get( "missing" );
+        final Map<String, ICacheElement<String, String>> missingMultiple =
+                diskCache.getMultiple( new HashSet<>( Arrays.asList( "missing1", "missing2" ) ) );
+        final int storeGetsAfter = diskCache.storeGets;
+
+        // VERIFY
+        assertNull( "Item should not be in the map.", missing );
+        assertTrue( "Items should not be in the map.", missingMultiple.isEmpty() );
+        assertEquals( "The store should not be asked", storeGetsBefore, storeGetsAfter );
+        assertNotNull( "Item on disk should be found.", diskCache.get( "onDisk" ) );
+        assertNotNull( "Item put after the build should be found.", diskCache.get( "putLater" ) );
+        assertTrue( "Should report the avoided gets", diskCache.getStats().indexOf( "Key Filter Misses Avoided = 3" ) != -1 );
+    }
+
     /** Concrete, testable instance. */
     protected static class AbstractDiskCacheTestInstance<K, V>
         extends AbstractDiskCache<K, V>
@@ -176,6 +214,9 @@ public class AbstractDiskCacheUnitTest
         /** used by the abstract aux class */
         protected IDiskCacheAttributes diskCacheAttributes;
 
+        /** The number of calls to processGet */
+        protected int storeGets;
+
         /**
          * Creates the disk cache.
          * <p>
@@ -239,6 +280,7 @@ public class AbstractDiskCacheUnitTest
             throws IOException
         {
             //System.out.println( "processGet: " + key );
+            storeGets++;
             return map.get( key );
         }
 
@@ -0,0 +1,148 @@
+package org.apache.commons.jcs3.auxiliary.disk.block;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the free space manager of the block disk.
+ */
+public class BlockDiskAllocatorUnitTest
+    extends TestCase
+{
+    /**
+     * Verify that the blocks are taken at the end of the file when nothing is free.
+     */
+    public void testAllocate_Append()
+    {
+        // SETUP
+        final BlockDiskAllocator allocator = new BlockDiskAllocator( 2 );
+
+        // DO WORK
+        final int[] blocks = allocator.allocate( 3 );
+
+        // VERIFY
+        assertTrue( "Wrong blocks " + Arrays.toString( blocks ), Arrays.equals( new int[] { 2, 3, 4 }, blocks ) );
+        assertEquals( "Wrong number of blocks", 5, allocator.getNumberOfBlocks() );
+        assertEquals( "Wrong number of free blocks", 0, allocator.getNumberOfFreeBlocks() );
+    }
+
+    /**
+     * Verify that the first free run large enough is used, and a smaller one is skipped.
+     */
+    public void testAllocate_FirstFit()
+    {
+        // SETUP
+        final BlockDiskAllocator allocator = new BlockDiskAllocator( 10 );
+        allocator.free( new int[] { 1 } );
+        allocator.free( new int[] { 4, 5, 6 } );
+
+        // DO WORK
+        final int[] blocks = allocator.allocate( 2 );
+
+        // VERIFY
+        assertTrue( "Wrong blocks " + Arrays.toString( blocks ), Arrays.equals( new int[] { 4, 5 }, blocks ) );
+        assertEquals( "Wrong number of blocks", 10, allocator.getNumberOfBlocks() );
+        assertEquals( "Wrong number of free blocks", 2, allocator.getNumberOfFreeBlocks() );
+        assertEquals( "Wrong number of free runs", 2, allocator.getNumberOfFreeRuns() );
+    }
+
+    /**
+     * Verify that a free run at the end of the file is extended.
+     */
+    public void testAllocate_ExtendLastRun()
+    {
+        // SETUP
+        final BlockDiskAllocator allocator = new BlockDiskAllocator( 10 );
+        allocator.free( new int[] { 8, 9 } );
+
+        // DO WORK
+        final int[] blocks = allocator.allocate( 4 );
+
+        // VERIFY
+        assertTrue( "Wrong blocks " + Arrays.toString( blocks ), Arrays.equals( new int[] { 8, 9, 10, 11 }, blocks ) );
+        assertEquals( "Wrong number of blocks", 12, allocator.getNumberOfBlocks() );
+        assertEquals( "Wrong number of free blocks", 0, allocator.getNumberOfFreeBlocks() );
+    }
+
+    /**
+     * Verify that the holes are filled when most of the file is free and no run is large enough.
+     */
+    public void testAllocate_Fragmented()
+    {
+        // SETUP
+        final BlockDiskAllocator allocator = new BlockDiskAllocator( 7 );
+        allocator.free( new int[] { 0, 1, 3, 4 } );
+
+        // DO WORK
+        final int[] blocks = allocator.allocate( 3 );
+
+        // VERIFY
+        assertTrue( "Wrong blocks " + Arrays.toString( blocks ), Arrays.equals( new int[] { 0, 1, 3 }, blocks ) );
+        assertEquals( "Wrong number of blocks", 7, allocator.getNumberOfBlocks() );
+        assertEquals( "Wrong number of free blocks", 1, allocator.getNumberOfFreeBlocks() );
+    }
+
+    /**
+     * Verify that freeing a block twice counts it once.
+     */
+    public void testFree_Twice()
+    {
+        // SETUP
+        final BlockDiskAllocator allocator = new BlockDiskAllocator( 4 );
+
+        // DO WORK
+        allocator.free( new int[] { 1, 2 } );
+        allocator.free( new int[] { 2 } );
+        allocator.use( new int[] { 1 } );
+
+        // VERIFY
+        assertEquals( "Wrong number of free blocks", 1, allocator.getNumberOfFreeBlocks() );
+    }
+
+    /**
+     * Verify that the free runs are read back, and only for the same number of blocks.
+     * @throws Exception
+     */
+    public void testSaveAndLoad()
+        throws Exception
+    {
+        // SETUP
+        final File file = new File( "target/test-sandbox/block/testSaveAndLoad.free" );
+        file.getParentFile().mkdirs();
+        final BlockDiskAllocator allocator = new BlockDiskAllocator( 100 );
+        allocator.free( new int[] { 3, 4, 5, 50, 99 } );
+
+        // DO WORK
+        allocator.save( file );
+        final BlockDiskAllocator loaded = new BlockDiskAllocator( 100 );
+        final boolean result = loaded.load( file );
+
+        // VERIFY
+        assertTrue( "Should have loaded", result );
+        assertEquals( "Wrong number of free blocks", 5, loaded.getNumberOfFreeBlocks() );
+        assertEquals( "Wrong number of free runs", 3, loaded.getNumberOfFreeRuns() );
+        assertTrue( "Should reuse the run", Arrays.equals( new int[] { 3, 4, 5 }, loaded.allocate( 3 ) ) );
+        assertFalse( "Should not load for another file size", new BlockDiskAllocator( 120 ).load( file ) );
+    }
+}
@@ -1,6 +1,9 @@
 package org.apache.commons.jcs3.auxiliary.disk.block;
 
+import java.io.File;
+
 import org.apache.commons.jcs3.auxiliary.disk.behavior.IDiskCacheAttributes.DiskLimitType;
+import org.apache.commons.jcs3.engine.CacheElement;
 
 
 /*
@@ -69,6 +72,20 @@ public class BlockDiskCacheKeyStoreUnitTest
         innerTestPutKeys(attributes);
     }
 
+    public void testPutKeysCompact()
+            throws Exception
+    {
+        // SETUP
+        final BlockDiskCacheAttributes attributes = new BlockDiskCacheAttributes();
+        attributes.setCacheName("testPutKeysCompact");
+        attributes.setDiskPath(rootDirName);
+        attributes.setMaxKeySize(1000);
+        attributes.setBlockSizeBytes(2000);
+        attributes.setCompactKeyStore(true);
+
+        innerTestPutKeys(attributes);
+    }
+
     private void innerTestPutKeys(final BlockDiskCacheAttributes attributes)
     {
         final BlockDiskCache<String, String> blockDiskCache = new BlockDiskCache<>(attributes);
@@ -124,6 +141,21 @@ public class BlockDiskCacheKeyStoreUnitTest
         testSaveLoadKeysInner(attributes);
     }
 
+    public void testSaveLoadKeysCompactOffHeap()
+            throws Exception
+    {
+        // SETUP
+        final BlockDiskCacheAttributes attributes = new BlockDiskCacheAttributes();
+        attributes.setCacheName("testSaveLoadKeysCompact");
+        attributes.setDiskPath(rootDirName);
+        attributes.setMaxKeySize(10000);
+        attributes.setBlockSizeBytes(2000);
+        attributes.setCompactKeyStore(true);
+        attributes.setCompactKeyStoreOffHeap(true);
+
+        testSaveLoadKeysInner(attributes);
+    }
+
     private void testSaveLoadKeysInner(final BlockDiskCacheAttributes attributes)
     {
         final BlockDiskKeyStore<String> keyStore = new BlockDiskKeyStore<>(attributes, null);
@@ -189,4 +221,104 @@ public class BlockDiskCacheKeyStoreUnitTest
         assertNull(keyStore.get("1"));
         assertNotNull(keyStore.get("2"));
     }
+
+    /**
+     * Verify that the free blocks are saved on shutdown and restored on startup, and rebuilt from
+     * the keys if the free blocks file is missing.
+     *
+     * @throws Exception
+     */
+    public void testRestoreFreeSpace()
+            throws Exception
+    {
+        // SETUP
+        final BlockDiskCacheAttributes attributes = new BlockDiskCacheAttributes();
+        attributes.setCacheName("testRestoreFreeSpace");
+        attributes.setDiskPath(rootDirName);
+        attributes.setMaxKeySize(1000);
+        attributes.setBlockSizeBytes(1024);
+        final File freeFile = new File(rootDirName, "testRestoreFreeSpace.free");
+
+        BlockDiskCache<String, String> cache = new BlockDiskCache<>(attributes);
+        cache.processRemoveAll();
+        for (int i = 0; i < 10; i++)
+        {
+            cache.processUpdate(new CacheElement<>("testRestoreFreeSpace", String.valueOf(i), "value" + i));
+        }
+        for (int i = 0; i < 4; i++)
+        {
+            cache.processRemove(String.valueOf(i));
+        }
+
+        // DO WORK
+        cache.dispose();
+
+        // VERIFY
+        assertTrue("Should have saved the free blocks", freeFile.exists());
+
+        // DO WORK
+        cache = new BlockDiskCache<>(attributes);
+
+        // VERIFY
+        assertFalse("Should have used the free blocks file", freeFile.exists());
+        assertEquals("Wrong number of empty blocks", "4", getStat(cache, "Empty Blocks"));
+        assertEquals("Wrong value", "value5", cache.get("5").getVal());
+
+        // DO WORK
+        cache.dispose();
+        freeFile.delete();
+        cache = new BlockDiskCache<>(attributes);
+
+        // VERIFY
+        assertEquals("Wrong number of rebuilt empty blocks", "4", getStat(cache, "Empty Blocks"));
+        cache.processUpdate(new CacheElement<>("testRestoreFreeSpace", "new", "value"));
+        assertEquals("Should reuse an empty block", "3", getStat(cache, "Empty Blocks"));
+        assertEquals("Wrong value", "value9", cache.get("9").getVal());
+        cache.dispose();
+    }
+
+    /**
+     * Verify that the compact key store evicts keys past the limit, frees their blocks and
+     * reports its footprint.
+     *
+     * @throws Exception
+     */
+    public void testCompactKeyStoreEviction()
+            throws Exception
+    {
+        // SETUP
+        final BlockDiskCacheAttributes attributes = new BlockDiskCacheAttributes();
+        attributes.setCacheName("testCompactKeyStoreEviction");
+        attributes.setDiskPath(rootDirName);
+        attributes.setMaxKeySize(100);
+        attributes.setBlockSizeBytes(1024);
+        attributes.setCompactKeyStore(true);
+        final BlockDiskCache<String, String> cache = new BlockDiskCache<>(attributes);
+        cache.processRemoveAll();
+
+        // DO WORK
+        for (int i = 0; i < 150; i++)
+        {
+            cache.processUpdate(new CacheElement<>("testCompactKeyStoreEviction", String.valueOf(i), "value" + i));
+        }
+
+        // VERIFY
+        assertEquals("Wrong number of keys", 100, cache.getSize());
+        assertEquals("Wrong value", "value149", cache.get("149").getVal());
+        // the blocks of a new key are allocated before the eviction frees one
+        assertEquals("Should reuse the evicted blocks", "101", getStat(cache, "Number Of Blocks"));
+        assertNotNull("Should report the footprint", getStat(cache, "Key Store Heap Bytes"));
+        cache.dispose();
+    }
+
+    /**
+     * Gets the value of a statistic of the cache.
+     */
+    private static String getStat(final BlockDiskCache<String, String> cache, final String name)
+    {
+        return cache.getStatistics().getStatElements().stream()
+                .filter(e -> name.equals(e.getName()))
+                .map(e -> String.valueOf(e.getData()))
+                .findFirst().orElse(null);
+    }
 }
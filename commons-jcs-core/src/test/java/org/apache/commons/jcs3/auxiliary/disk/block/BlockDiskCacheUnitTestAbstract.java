@@ -23,7 +23,9 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.jcs3.engine.CacheElement;
 import org.apache.commons.jcs3.engine.ElementAttributes;
@@ -541,6 +543,81 @@ public abstract class BlockDiskCacheUnitTestAbstract extends TestCase
 
     }
 
+    /**
+     * Verify that the group keys come from an index kept in step with the key store, evictions
+     * included.
+     *
+     * @throws IOException
+     */
+    public void testGetGroupKeys_Index() throws IOException
+    {
+        // SETUP
+        final BlockDiskCacheAttributes cattr = getCacheAttributes();
+        cattr.setCacheName("testGetGroupKeys_Index");
+        cattr.setMaxKeySize(100);
+        cattr.setDiskPath("target/test-sandbox/BlockDiskCacheUnitTest");
+        final BlockDiskCache<GroupAttrName<String>, String> disk = new BlockDiskCache<>(cattr);
+
+        disk.processRemoveAll();
+
+        final String cacheName = "testGetGroupKeys_Index_Region";
+        final GroupId group1 = new GroupId(cacheName, "group1");
+        final GroupId group2 = new GroupId(cacheName, "group2");
+
+        // DO WORK
+        for (int i = 0; i < 150; i++)
+        {
+            final GroupId groupId = i % 3 == 0 ? group2 : group1;
+            final CacheElement<GroupAttrName<String>, String> element = new CacheElement<>(cacheName,
+                new GroupAttrName<>(groupId, i + ":key"), "data:" + i);
+            disk.processUpdate(element);
+        }
+        disk.processRemove(new GroupAttrName<>(group1, "1:key"));
+
+        // VERIFY
+        final Set<GroupAttrName<String>> keys = disk.getKeySet();
+        final Set<GroupAttrName<String>> groupKeys = new HashSet<>(disk.getGroupKeys(group1));
+        groupKeys.addAll(disk.getGroupKeys(group2));
+        assertEquals("Group keys should be the stored keys", keys, groupKeys);
+        assertFalse("Removed key should not be in the group", groupKeys.contains(new GroupAttrName<>(group1, "1:key")));
+
+        disk.processRemove(new GroupAttrName<>(group1, null));
+        assertTrue("Group should be empty", disk.getGroupKeys(group1).isEmpty());
+        assertEquals("Other group should be untouched", disk.getKeySet(), disk.getGroupKeys(group2));
+    }
+
+    /**
+     * Verify that the key index gives the same matches and removes hierarchies.
+     *
+     * @throws IOException
+     */
+    public void testGetMatching_KeyIndex() throws IOException
+    {
+        // SETUP
+        final BlockDiskCacheAttributes cattr = getCacheAttributes();
+        cattr.setCacheName("testGetMatching_KeyIndex");
+        cattr.setMaxKeySize(1000);
+        cattr.setUseKeyIndex(true);
+        cattr.setDiskPath("target/test-sandbox/BlockDiskCacheUnitTest");
+        final BlockDiskCache<String, String> disk = new BlockDiskCache<>(cattr);
+
+        disk.processRemoveAll();
+
+        // DO WORK
+        for (int i = 0; i < 120; i++)
+        {
+            disk.processUpdate(new CacheElement<>("testGetMatching_KeyIndex", "a:" + i % 3 + ":" + i, "data:" + i));
+        }
+        disk.processRemove("a:2:");
+
+        // VERIFY
+        assertEquals("Wrong number of matches", 40, disk.processGetMatching("a:1:\\d+").size());
+        assertEquals("Wrong number of matches", 4, disk.processGetMatching("a:1:1\\d").size());
+        assertEquals("Wrong number of matches", 1, disk.processGetMatching("a:1:1").size());
+        assertTrue("Hierarchy should be removed", disk.processGetMatching("a:2:.*").isEmpty());
+        assertEquals("Wrong number of keys", 80, disk.getKeySet().size());
+    }
+
     /**
      * Internal method used for group functionality.
      * <p>
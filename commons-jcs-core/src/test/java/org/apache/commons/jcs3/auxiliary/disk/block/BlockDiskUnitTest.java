@@ -2,6 +2,7 @@ package org.apache.commons.jcs3.auxiliary.disk.block;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Random;
 
 import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
@@ -357,6 +358,35 @@ public class BlockDiskUnitTest
         assertEquals( "Wrong item retured.", string, result );
     }
 
+    /**
+     * Verify that the blocks of a removed element are reused as a run by an element of the same
+     * size, and that the element is read back.
+     * <p>
+     * @throws Exception
+     */
+    public void testWriteAndRead_ReuseFreedRun()
+        throws Exception
+    {
+        // SETUP
+        setUpBlockDisk("testWriteAndRead_ReuseFreedRun", 1024);
+        final int bytes = getBytesForBlocksOfByteArrays( disk.getBlockSizeBytes(), 3 );
+        final int[] first = disk.write( new byte[bytes] );
+        disk.write( new byte[bytes] );
+        disk.freeBlocks( first );
+
+        // DO WORK
+        final byte[] src = new byte[bytes];
+        new Random( 42 ).nextBytes( src );
+        final int[] blocks = disk.write( src );
+        final byte[] result = (byte[]) disk.read( blocks );
+
+        // VERIFY
+        assertTrue( "Should reuse the freed run", Arrays.equals( first, blocks ) );
+        assertEquals( "Should not grow the file", 6, disk.getNumberOfBlocks() );
+        assertEquals( "Wrong number of empty blocks", 0, disk.getEmptyBlocks() );
+        assertTrue( "Wrong item returned", Arrays.equals( src, result ) );
+    }
+
     public void testJCS156() throws Exception
     {
         // SETUP
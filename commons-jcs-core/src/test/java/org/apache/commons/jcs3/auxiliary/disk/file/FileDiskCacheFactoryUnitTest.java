@@ -1,4 +1,4 @@
-package org.apache.commons.jcs.auxiliary.disk.file;
+package org.apache.commons.jcs3.auxiliary.disk.file;
 
 /*
  * Licensed to the Apache Software Foundation (ASF) under one
@@ -19,13 +19,14 @@ package org.apache.commons.jcs.auxiliary.disk.file;
  * under the License.
  */
 
+import org.apache.commons.jcs3.auxiliary.MockCacheEventLogger;
+import org.apache.commons.jcs3.engine.behavior.ICompositeCacheManager;
+import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs3.engine.control.MockCompositeCacheManager;
+import org.apache.commons.jcs3.engine.control.MockElementSerializer;
+import org.apache.commons.jcs3.engine.logging.behavior.ICacheEventLogger;
+
 import junit.framework.TestCase;
-import org.apache.commons.jcs.auxiliary.MockCacheEventLogger;
-import org.apache.commons.jcs.engine.behavior.ICompositeCacheManager;
-import org.apache.commons.jcs.engine.behavior.IElementSerializer;
-import org.apache.commons.jcs.engine.control.MockCompositeCacheManager;
-import org.apache.commons.jcs.engine.control.MockElementSerializer;
-import org.apache.commons.jcs.engine.logging.behavior.ICacheEventLogger;
 
 /** Verify that the factory works */
 public class FileDiskCacheFactoryUnitTest
@@ -35,23 +36,24 @@ public class FileDiskCacheFactoryUnitTest
     public void testCreateCache_Normal()
     {
         // SETUP
-        String cacheName = "testCreateCache_Normal";
-        FileDiskCacheAttributes cattr = new FileDiskCacheAttributes();
+        final String cacheName = "testCreateCache_Normal";
+        final FileDiskCacheAttributes cattr = new FileDiskCacheAttributes();
         cattr.setCacheName( cacheName );
         cattr.setDiskPath( "target/test-sandbox/FileDiskCacheFactoryUnitTest" );
 
-        ICompositeCacheManager cacheMgr = new MockCompositeCacheManager();
-        ICacheEventLogger cacheEventLogger = new MockCacheEventLogger();
-        IElementSerializer elementSerializer = new MockElementSerializer();
+        final ICompositeCacheManager cacheMgr = new MockCompositeCacheManager();
+        final ICacheEventLogger cacheEventLogger = new MockCacheEventLogger();
+        final IElementSerializer elementSerializer = new MockElementSerializer();
 
-        FileDiskCacheFactory factory = new FileDiskCacheFactory();
+        final FileDiskCacheFactory factory = new FileDiskCacheFactory();
 
         // DO WORK
-        FileDiskCache<String, String> result = factory.createCache( cattr, cacheMgr, cacheEventLogger,
+        final FileDiskCache<String, String> result = factory.createCache( cattr, cacheMgr, cacheEventLogger,
                                                                     elementSerializer );
 
         // VERIFY
         assertNotNull( "Should have a disk cache", result );
         assertEquals( "Should have a disk cache with a serializer", elementSerializer, result.getElementSerializer() );
+        assertEquals( "Should have a disk cache with an event logger", cacheEventLogger, result.getCacheEventLogger() );
     }
 }
@@ -0,0 +1,441 @@
+package org.apache.commons.jcs3.auxiliary.disk.file;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.CacheStatus;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+
+import junit.framework.TestCase;
+
+/** Unit tests for the file disk cache. */
+public class FileDiskCacheUnitTest
+    extends TestCase
+{
+    /** Directory name */
+    private static final String DISK_PATH = "target/test-sandbox/FileDiskCacheUnitTest";
+
+    /**
+     * Creates attributes for a test region.
+     * <p>
+     * @param cacheName
+     * @return the attributes
+     */
+    private static FileDiskCacheAttributes attributes( final String cacheName )
+    {
+        final FileDiskCacheAttributes cattr = new FileDiskCacheAttributes();
+        cattr.setCacheName( cacheName );
+        cattr.setDiskPath( DISK_PATH );
+        return cattr;
+    }
+
+    /**
+     * Creates a disk cache and removes what a previous run left.
+     * <p>
+     * @param cattr
+     * @return an empty disk cache
+     * @throws Exception
+     */
+    private static FileDiskCache<String, String> emptyCache( final FileDiskCacheAttributes cattr )
+        throws Exception
+    {
+        final FileDiskCache<String, String> diskCache = new FileDiskCache<>( cattr );
+        diskCache.removeAll();
+        return diskCache;
+    }
+
+    /**
+     * Waits until the files of the keys are renamed.
+     * <p>
+     * @param diskCache
+     * @param keys
+     * @throws Exception
+     */
+    private static void waitForFiles( final FileDiskCache<String, String> diskCache, final String... keys )
+        throws Exception
+    {
+        for ( int i = 0; i < 500; i++ )
+        {
+            boolean written = getStat( diskCache, "Pending Writes" ).equals( "0" );
+            for ( final String key : keys )
+            {
+                written &= Files.exists( diskCache.file( key ) );
+            }
+            if ( written && getStat( diskCache, "Pending Writes" ).equals( "0" ) )
+            {
+                return;
+            }
+            Thread.sleep( 10 );
+        }
+        fail( "The files were not written" );
+    }
+
+    /**
+     * Waits until the sweeper brought the number of files down.
+     * <p>
+     * @param diskCache
+     * @param size
+     * @throws Exception
+     */
+    private static void waitForSize( final FileDiskCache<String, String> diskCache, final int size )
+        throws Exception
+    {
+        for ( int i = 0; i < 500 && diskCache.getSize() > size; i++ )
+        {
+            Thread.sleep( 10 );
+        }
+    }
+
+    /**
+     * @param diskCache
+     * @param name
+     * @return the value of the statistic
+     */
+    private static String getStat( final FileDiskCache<String, String> diskCache, final String name )
+    {
+        for ( final IStatElement<?> elem : diskCache.getStatistics().getStatElements() )
+        {
+            if ( name.equals( elem.getName() ) )
+            {
+                return String.valueOf( elem.getData() );
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Verify initialization.
+     * <p>
+     * @throws Exception
+     */
+    public void testInitialization_Normal()
+        throws Exception
+    {
+        // SETUP
+        final String cacheName = "testInitialization_Normal";
+
+        // DO WORK
+        final FileDiskCache<String, String> diskCache = new FileDiskCache<>( attributes( cacheName ) );
+        final Path directory = diskCache.file( "key" ).getParent().getParent().getParent();
+
+        // VERIFY
+        assertTrue( "Should have an existing directory", Files.isDirectory( directory ) );
+        assertEquals( "Directory should be named after the cache name", cacheName, directory.getFileName().toString() );
+        assertEquals( "Should be alive", CacheStatus.ALIVE, diskCache.getStatus() );
+    }
+
+    /**
+     * Verify dispose.
+     * <p>
+     * @throws Exception
+     */
+    public void testDispose_Normal()
+        throws Exception
+    {
+        // SETUP
+        final FileDiskCache<String, String> diskCache = new FileDiskCache<>( attributes( "testDispose_Normal" ) );
+
+        // DO WORK
+        diskCache.dispose();
+
+        // VERIFY
+        assertEquals( "Should not be alive", CacheStatus.DISPOSED, diskCache.getStatus() );
+    }
+
+    /**
+     * Verify that the files are spread over directories named after the hash of the key.
+     * <p>
+     * @throws Exception
+     */
+    public void testFile_Sharded()
+        throws Exception
+    {
+        // SETUP
+        final FileDiskCacheAttributes cattr = attributes( "testFile_Sharded" );
+        cattr.setDirectoryLevels( 3 );
+        final FileDiskCache<String, String> diskCache = new FileDiskCache<>( cattr );
+
+        // DO WORK
+        final Path file = diskCache.file( "simple%string" );
+        final Set<Path> directories = new HashSet<>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            directories.add( diskCache.file( "key" + i ).getParent() );
+        }
+
+        // VERIFY
+        final String name = file.getFileName().toString();
+        assertTrue( "Wrong name " + name, name.matches( "[0-9a-f]{16}\\.data" ) );
+        assertEquals( "Should be idempotent", file, diskCache.file( "simple%string" ) );
+        assertEquals( "Wrong first level", name.substring( 0, 2 ), file.getParent().getParent().getParent().getFileName().toString() );
+        assertEquals( "Wrong second level", name.substring( 2, 4 ), file.getParent().getParent().getFileName().toString() );
+        assertEquals( "Wrong third level", name.substring( 4, 6 ), file.getParent().getFileName().toString() );
+        assertTrue( "Keys should be spread over directories", directories.size() > 90 );
+    }
+
+    /**
+     * Verify getSize and get.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetSize_OneItem()
+        throws Exception
+    {
+        // SETUP
+        final String cacheName = "testGetSize_OneItem";
+        final FileDiskCache<String, String> diskCache = emptyCache( attributes( cacheName ) );
+
+        // DO WORK
+        diskCache.update( new CacheElement<>( cacheName, "key1", "Data" ) );
+        waitForFiles( diskCache, "key1" );
+
+        // VERIFY
+        assertEquals( "Should not be empty.", 1, diskCache.getSize() );
+        assertEquals( "Wrong keys", 1, diskCache.getKeySet().size() );
+        assertEquals( "Wrong value", "Data", diskCache.get( "key1" ).getVal() );
+        assertNull( "Should be null.", diskCache.get( "key2" ) );
+    }
+
+    /**
+     * Verify that the disk file cache can handle a big string.
+     * <p>
+     * @throws Exception
+     */
+    public void testPutGet_BigString()
+        throws Exception
+    {
+        // SETUP
+        final String cacheName = "testPutGet_BigString";
+        final FileDiskCache<String, String> diskCache = emptyCache( attributes( cacheName ) );
+
+        final StringBuilder sb = new StringBuilder( "This is my big string ABCDEFGH" );
+        for ( int i = 0; i < 10; i++ )
+        {
+            sb.append( " " + i + sb.toString() ); // big string
+        }
+        final String string = sb.toString();
+
+        // DO WORK
+        diskCache.update( new CacheElement<>( cacheName, "x", string ) );
+        waitForFiles( diskCache, "x" );
+
+        // VERIFY
+        final ICacheElement<String, String> afterElement = diskCache.get( "x" );
+        assertNotNull( afterElement );
+        assertEquals( "wrong string after retrieval", string, afterElement.getVal() );
+    }
+
+    /**
+     * Verify that the files of several keys are read together.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetMultiple()
+        throws Exception
+    {
+        // SETUP
+        final String cacheName = "testGetMultiple";
+        final FileDiskCache<String, String> diskCache = emptyCache( attributes( cacheName ) );
+        final Set<String> keys = new HashSet<>();
+        for ( int i = 0; i < 20; i++ )
+        {
+            diskCache.update( new CacheElement<>( cacheName, "key" + i, "data" + i ) );
+            keys.add( "key" + i );
+        }
+        waitForFiles( diskCache, keys.toArray( new String[0] ) );
+        keys.add( "missing" );
+
+        // DO WORK
+        final Map<String, ICacheElement<String, String>> result = diskCache.getMultiple( keys );
+        final Map<String, ICacheElement<String, String>> matching = diskCache.getMatching( "key1\\d" );
+
+        // VERIFY
+        assertEquals( "Wrong number of elements", 20, result.size() );
+        assertEquals( "Wrong value", "data7", result.get( "key7" ).getVal() );
+        assertEquals( "Wrong number of matching elements", 10, matching.size() );
+    }
+
+    /**
+     * Verify remove and partial remove.
+     * <p>
+     * @throws Exception
+     */
+    public void testRemove()
+        throws Exception
+    {
+        // SETUP
+        final String cacheName = "testRemove";
+        final FileDiskCache<String, String> diskCache = emptyCache( attributes( cacheName ) );
+        diskCache.update( new CacheElement<>( cacheName, "key1", "Data" ) );
+        diskCache.update( new CacheElement<>( cacheName, "a:b", "Data" ) );
+        diskCache.update( new CacheElement<>( cacheName, "a:c", "Data" ) );
+        waitForFiles( diskCache, "key1", "a:b", "a:c" );
+
+        // DO WORK
+        diskCache.remove( "key1" );
+
+        // VERIFY
+        assertEquals( "Wrong size.", 2, diskCache.getSize() );
+        assertNull( "Should be removed", diskCache.get( "key1" ) );
+        assertFalse( "File should be removed", Files.exists( diskCache.file( "key1" ) ) );
+
+        // DO WORK
+        diskCache.remove( "a:" );
+
+        // VERIFY
+        assertEquals( "Should be empty.", 0, diskCache.getSize() );
+    }
+
+    /**
+     * Verify remove all.
+     * <p>
+     * @throws Exception
+     */
+    public void testRemoveAll_OneItem()
+        throws Exception
+    {
+        // SETUP
+        final String cacheName = "testRemoveAll_OneItem";
+        final FileDiskCache<String, String> diskCache = emptyCache( attributes( cacheName ) );
+        diskCache.update( new CacheElement<>( cacheName, "key1", "Data" ) );
+        waitForFiles( diskCache, "key1" );
+
+        // DO WORK
+        diskCache.removeAll();
+
+        // VERIFY
+        assertEquals( "Should be empty.", 0, diskCache.getSize() );
+        assertFalse( "File should be removed", Files.exists( diskCache.file( "key1" ) ) );
+    }
+
+    /**
+     * Verify that the index is rebuilt from the files and that the temporary files are removed.
+     * <p>
+     * @throws Exception
+     */
+    public void testLoadIndex()
+        throws Exception
+    {
+        // SETUP
+        final String cacheName = "testLoadIndex";
+        final FileDiskCacheAttributes cattr = attributes( cacheName );
+        final FileDiskCache<String, String> diskCache = emptyCache( cattr );
+        for ( int i = 0; i < 10; i++ )
+        {
+            diskCache.update( new CacheElement<>( cacheName, "key" + i, "data" + i ) );
+        }
+        waitForFiles( diskCache, "key0", "key9" );
+        diskCache.dispose();
+
+        final Path temp = diskCache.file( "key0" ).resolveSibling( "leftover.tmp" );
+        Files.write( temp, new byte[] { 1, 2, 3 } );
+
+        // DO WORK
+        final FileDiskCache<String, String> reloaded = new FileDiskCache<>( cattr );
+
+        // VERIFY
+        assertEquals( "Wrong size", 10, reloaded.getSize() );
+        assertTrue( "Should have the key", reloaded.getKeySet().contains( "key5" ) );
+        assertEquals( "Wrong value", "data5", reloaded.get( "key5" ).getVal() );
+        assertFalse( "Temporary file should be removed", Files.exists( temp ) );
+    }
+
+    /**
+     * Verify that the sweeper removes the least recently used file once the limit is reached.
+     * <p>
+     * @throws Exception
+     */
+    public void testSweep_MaxNumberOfFiles_TouchTrue()
+        throws Exception
+    {
+        // SETUP
+        final int maxNumberOfFiles = 10;
+        final String cacheName = "testSweep_MaxNumberOfFiles_TouchTrue";
+        final FileDiskCacheAttributes cattr = attributes( cacheName );
+        cattr.setMaxNumberOfFiles( maxNumberOfFiles );
+        cattr.setLowWaterMarkPercent( 100 );
+        cattr.setTouchOnGet( true );
+        final FileDiskCache<String, String> diskCache = emptyCache( cattr );
+
+        for ( int i = 0; i < maxNumberOfFiles; i++ )
+        {
+            diskCache.update( new CacheElement<>( cacheName, "key" + i, "Data" ) );
+            waitForFiles( diskCache, "key" + i );
+            Thread.sleep( 5 );
+        }
+        assertNotNull( "Should be on disk", diskCache.get( "key0" ) );
+        Thread.sleep( 5 );
+
+        // DO WORK
+        diskCache.update( new CacheElement<>( cacheName, "key" + maxNumberOfFiles, "Data" ) );
+        waitForFiles( diskCache, "key" + maxNumberOfFiles );
+        waitForSize( diskCache, maxNumberOfFiles );
+
+        // VERIFY
+        assertEquals( "Wrong size", maxNumberOfFiles, diskCache.getSize() );
+        assertNotNull( "Touched file should be kept", diskCache.get( "key0" ) );
+        assertNull( "Least recently used file should be removed", diskCache.get( "key1" ) );
+        assertFalse( "Least recently used file should be deleted", Files.exists( diskCache.file( "key1" ) ) );
+    }
+
+    /**
+     * Verify that the sweeper brings the size of the files down to the low water mark.
+     * <p>
+     * @throws Exception
+     */
+    public void testSweep_MaxTotalBytes()
+        throws Exception
+    {
+        // SETUP
+        final String cacheName = "testSweep_MaxTotalBytes";
+        final FileDiskCacheAttributes cattr = attributes( cacheName );
+        final FileDiskCache<String, String> probe = emptyCache( cattr );
+        probe.update( new CacheElement<>( cacheName, "key99", "Data" ) );
+        waitForFiles( probe, "key99" );
+        final long fileSize = Long.parseLong( getStat( probe, "Total Bytes" ) );
+        probe.removeAll();
+        probe.dispose();
+
+        cattr.setMaxTotalBytes( fileSize * 20 );
+        cattr.setLowWaterMarkPercent( 50 );
+        final FileDiskCache<String, String> diskCache = new FileDiskCache<>( cattr );
+
+        // DO WORK
+        for ( int i = 0; i <= 20; i++ )
+        {
+            diskCache.update( new CacheElement<>( cacheName, "key" + ( i + 10 ), "Data" ) );
+            waitForFiles( diskCache, "key" + ( i + 10 ) );
+            Thread.sleep( 5 );
+        }
+        waitForSize( diskCache, 10 );
+
+        // VERIFY
+        assertTrue( "Should be swept to the low water mark " + diskCache.getSize(), diskCache.getSize() <= 10 );
+        assertTrue( "Should be below the low water mark", Long.parseLong( getStat( diskCache, "Total Bytes" ) ) <= fileSize * 10 );
+        assertNotNull( "Last file should be kept", diskCache.get( "key30" ) );
+    }
+}
@@ -23,13 +23,20 @@ import junit.framework.TestCase;
 
 import java.io.Serializable;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.apache.commons.jcs3.JCS;
-import org.apache.commons.jcs3.access.CacheAccess;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 
 /**
- * This is for manually testing the defrag process.
+ * This is for manually benchmarking the defrag process. A fragmented cache is optimized while
+ * reader threads get elements, once in place and once concurrently, and the latency of the gets
+ * is reported. The maximum latency is the time the readers were stalled by the optimization.
  */
 public class IndexedDiskCacheDefragPerformanceTest
     extends TestCase
@@ -40,11 +47,11 @@ public class IndexedDiskCacheDefragPerformanceTest
     /** total to test with */
     private static final int TOTAL_ELEMENTS = 30000;
 
-    /** time to wait */
-    private static final long SLEEP_TIME_DISK = 8000;
+    /** number of reader threads */
+    private static final int READERS = 4;
 
-    /** how often to log */
-    private static final int LOG_INCREMENT = 5000;
+    /** the gets recorded by each reader */
+    private static final int MAX_SAMPLES = 1000000;
 
     /** for getting memory usage */
     private static final Runtime rt = Runtime.getRuntime();
@@ -62,61 +69,124 @@ public class IndexedDiskCacheDefragPerformanceTest
         System.out.println( "JCS DEFRAG PERFORMANCE TESTS" );
         System.out.println( LOG_DIVIDER );
         logMemoryUsage();
-        IndexedDiskCacheDefragPerformanceTest.runRealTimeOptimizationTest();
+        IndexedDiskCacheDefragPerformanceTest.runOptimizationBenchmark( false );
+        logMemoryUsage();
+        IndexedDiskCacheDefragPerformanceTest.runOptimizationBenchmark( true );
         logMemoryUsage();
 
         System.out.println( LOG_DIVIDER );
     }
 
     /**
+     * Fills the cache with tiles, removes every other one and measures the gets during the
+     * optimization.
+     * <p>
+     * @param concurrent whether to run the concurrent optimization
      * @throws Exception
      */
-    private static void runRealTimeOptimizationTest()
+    private static void runOptimizationBenchmark( final boolean concurrent )
         throws Exception
     {
-        JCS.setConfigFilename( "/TestDiskCacheDefragPerformance.ccf" );
-        final CacheAccess<Integer, Tile> jcs = JCS.getInstance( "defrag" );
+        final IndexedDiskCacheAttributes cattr = new IndexedDiskCacheAttributes();
+        cattr.setCacheName( "defrag" + ( concurrent ? "Concurrent" : "InPlace" ) );
+        cattr.setMaxKeySize( TOTAL_ELEMENTS );
+        cattr.setOptimizeAtRemoveCount( -1 );
+        cattr.setConcurrentOptimization( concurrent );
+        cattr.setDiskPath( "target/test-sandbox/defrag" );
+        final IndexedDiskCache<Integer, Tile> disk = new IndexedDiskCache<>( cattr );
+        disk.removeAll();
 
-        Tile tile;
-        System.out.println( "Cache Defrag Test" );
+        System.out.println( LOG_DIVIDER );
+        System.out.println( ( concurrent ? "Concurrent" : "In place" ) + " Defrag Benchmark" );
 
         final Random random = new Random( 89 );
         for ( int i = 0; i < TOTAL_ELEMENTS; i++ )
         {
             final int bytes = random.nextInt( 20 );
             // 4-24 KB
-            tile = new Tile( Integer.valueOf( i ), new byte[( bytes + 4 ) * 1024] );
-            // images
-
-            jcs.put( tile.id, tile );
-
-            if ( ( i != 0 ) && ( 0 == ( i % 100 ) ) )
-            {
-                jcs.get( Integer.valueOf( random.nextInt( i ) ) );
-            }
+            final Tile tile = new Tile( Integer.valueOf( i ), new byte[( bytes + 4 ) * 1024] );
+            disk.processUpdate( new CacheElement<>( cattr.getCacheName(), tile.id, tile ) );
+        }
+        for ( int i = 0; i < TOTAL_ELEMENTS; i += 2 )
+        {
+            disk.processRemove( Integer.valueOf( i ) );
+        }
+        System.out.println( "Data file size before optimization = " + format.format( disk.getDataFileSize() ) );
+
+        // READ WHILE OPTIMIZING
+        final AtomicBoolean running = new AtomicBoolean( true );
+        final long[][] samples = new long[READERS][MAX_SAMPLES];
+        final int[] counts = new int[READERS];
+        final Thread[] readers = new Thread[READERS];
+        // a failure in a reader thread does not fail the test, it is checked after the join
+        final List<Throwable> errors = Collections.synchronizedList( new ArrayList<>() );
+        for ( int r = 0; r < READERS; r++ )
+        {
+            final int reader = r;
+            readers[r] = new Thread( () -> {
+                try
+                {
+                    final Random keys = new Random( reader );
+                    while ( running.get() && counts[reader] < MAX_SAMPLES )
+                    {
+                        final Integer key = Integer.valueOf( keys.nextInt( TOTAL_ELEMENTS / 2 ) * 2 + 1 );
+                        final long start = System.nanoTime();
+                        final ICacheElement<Integer, Tile> element = disk.processGet( key );
+                        samples[reader][counts[reader]++] = System.nanoTime() - start;
+                        assertNotNull( "Missing tile " + key, element );
+                    }
+                }
+                catch ( final Throwable e )
+                {
+                    errors.add( e );
+                }
+            } );
+            readers[r].start();
+        }
 
-            if ( 0 == ( i % LOG_INCREMENT ) )
-            {
-                System.out.print( i + ", " );
-                Thread.sleep( SLEEP_TIME_DISK );
-            }
+        final long start = System.nanoTime();
+        if ( concurrent )
+        {
+            disk.compactFile();
+        }
+        else
+        {
+            disk.optimizeFile();
         }
+        final long optimizationNanos = System.nanoTime() - start;
 
-        System.out.println( LOG_DIVIDER );
-        System.out.println( "Total elements = " + TOTAL_ELEMENTS );
-        System.out.println( "Stats prior to sleeping " + jcs.getStats() );
+        running.set( false );
+        for ( final Thread reader : readers )
+        {
+            reader.join();
+        }
+        assertTrue( "Reader failures: " + errors, errors.isEmpty() );
 
-        // Allow system to settle down
-        System.out.println( "Sleeping for a a minute." );
-        Thread.sleep( 60000 );
+        int total = 0;
+        for ( final int count : counts )
+        {
+            total += count;
+        }
+        final long[] latencies = new long[total];
+        int offset = 0;
+        for ( int r = 0; r < READERS; r++ )
+        {
+            System.arraycopy( samples[r], 0, latencies, offset, counts[r] );
+            offset += counts[r];
+        }
+        Arrays.sort( latencies );
 
-        System.out.println( LOG_DIVIDER );
-        System.out.println( "Stats prior to dispose " + jcs.getStats() );
+        System.out.println( "Data file size after optimization = " + format.format( disk.getDataFileSize() ) );
+        System.out.println( "Optimization took " + format.format( optimizationNanos / 1000000 ) + " ms" );
+        System.out.println( "Gets during optimization = " + format.format( total ) );
+        if ( total > 0 )
+        {
+            System.out.println( "Get latency p50 = " + format.format( latencies[total / 2] / 1000 ) + " us"
+                + ", p99 = " + format.format( latencies[(int) ( total * 0.99 )] / 1000 ) + " us"
+                + ", max (stall) = " + format.format( latencies[total - 1] / 1000 ) + " us" );
+        }
 
-        jcs.dispose();
-        System.out.println( LOG_DIVIDER );
-        System.out.println( "Stats after dispose " + jcs.getStats() );
-        System.out.println( "Done testing." );
+        disk.dispose();
     }
 
     /**
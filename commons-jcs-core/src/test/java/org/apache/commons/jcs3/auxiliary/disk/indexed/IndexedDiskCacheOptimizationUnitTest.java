@@ -1,8 +1,9 @@
 package org.apache.commons.jcs3.auxiliary.disk.indexed;
 
 import org.apache.commons.jcs3.auxiliary.disk.DiskTestObject;
-import org.apache.commons.jcs3.utils.timing.SleepUtil;
+import org.apache.commons.jcs3.engine.CacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.utils.timing.SleepUtil;
 
 /*
  * Licensed to the Apache Software Foundation (ASF) under one
@@ -91,4 +92,67 @@ public class IndexedDiskCacheOptimizationUnitTest
                 , sizeAfterRemove < sizeBeforeRemove );
         assertEquals( "The file size is not as expected size.", expectedSizeAfterRemove, sizeAfterRemove );
     }
+
+    /**
+     * Remove a third of the elements, then compact the file in a thread while elements are
+     * updated and removed. Verify that the elements are all there and the file shrank.
+     * @throws Exception
+     */
+    public void testConcurrentOptimization()
+        throws Exception
+    {
+        // SETUP
+        final int removeCount = 50;
+
+        final IndexedDiskCacheAttributes cattr = new IndexedDiskCacheAttributes();
+        cattr.setCacheName( "testConcurrentOptimization" );
+        cattr.setMaxKeySize( removeCount * 4 );
+        cattr.setOptimizeAtRemoveCount( -1 );
+        cattr.setConcurrentOptimization( true );
+        cattr.setDiskPath( "target/test-sandbox/testConcurrentOptimization" );
+        final IndexedDiskCache<Integer, DiskTestObject> disk = new IndexedDiskCache<>( cattr );
+
+        disk.removeAll();
+
+        final int numberToInsert = removeCount * 3;
+        final ICacheElement<Integer, DiskTestObject>[] elements = DiskTestObjectUtil
+            .createCacheElementsWithTestObjectsOfVariableSizes( numberToInsert, cattr.getCacheName() );
+
+        for (final ICacheElement<Integer, DiskTestObject> element : elements) {
+            disk.processUpdate( element );
+        }
+        for ( int i = 0; i < removeCount; i++ )
+        {
+            disk.processRemove( Integer.valueOf( i ) );
+        }
+        final long sizeBeforeOptimization = disk.getDataFileSize();
+
+        // DO WORK
+        final Thread optimizer = new Thread( disk::compactFile );
+        optimizer.start();
+        for ( int i = removeCount; i < removeCount * 2; i++ )
+        {
+            disk.processUpdate( new CacheElement<>( cattr.getCacheName(), Integer.valueOf( i ),
+                    new DiskTestObject( Integer.valueOf( i ), new byte[i] ) ) );
+            disk.processRemove( Integer.valueOf( i + removeCount ) );
+        }
+        optimizer.join();
+
+        // VERIFY
+        assertEquals( "Wrong number of times optimized", 1, disk.getTimesOptimized() );
+        assertTrue( "The post optimization size should be smaller.",
+                disk.getDataFileSize() < sizeBeforeOptimization );
+        for ( int i = 0; i < removeCount; i++ )
+        {
+            assertNull( "Should have been removed " + i, disk.processGet( Integer.valueOf( i ) ) );
+            assertNull( "Should have been removed " + ( i + removeCount * 2 ),
+                    disk.processGet( Integer.valueOf( i + removeCount * 2 ) ) );
+        }
+        for ( int i = removeCount; i < removeCount * 2; i++ )
+        {
+            final ICacheElement<Integer, DiskTestObject> element = disk.processGet( Integer.valueOf( i ) );
+            assertNotNull( "Should have the updated element " + i, element );
+            assertEquals( "Wrong value", i, element.getVal().imageBytes.length );
+        }
+    }
 }
@@ -0,0 +1,159 @@
+package org.apache.commons.jcs3.auxiliary.disk.jdbc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.control.MockCompositeCacheManager;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+
+import junit.framework.TestCase;
+
+/**
+ * This is for manually comparing the single row writes and reads of the JDBC disk cache with
+ * the batched ones, against the embedded hsql database.
+ */
+public class JDBCDiskCacheBatchPerformanceTest
+    extends TestCase
+{
+    /** For readability */
+    private static final String LOG_DIVIDER = "---------------------------";
+
+    /** total to test with */
+    private static final int TOTAL_ELEMENTS = 20000;
+
+    /** The database */
+    private static final String URL = "jdbc:hsqldb:target/JDBCDiskCacheBatchPerformanceTest";
+
+    /**
+     * @throws Exception
+     */
+    public void testSingleVersusBatched()
+        throws Exception
+    {
+        System.out.println( LOG_DIVIDER );
+        System.out.println( "JCS JDBC BATCH PERFORMANCE TESTS" );
+        System.out.println( LOG_DIVIDER );
+
+        Class.forName( "org.hsqldb.jdbcDriver" );
+        try (Connection cConn = DriverManager.getConnection( URL, "sa", "" ))
+        {
+            HsqlSetupTableUtil.setupTABLE( cConn, "JCS_STORE_SINGLE" );
+            HsqlSetupTableUtil.setupTABLE( cConn, "JCS_STORE_BATCH" );
+        }
+
+        // warm up
+        runTest( "JCS_STORE_SINGLE", 1, false );
+        runTest( "JCS_STORE_BATCH", 100, false );
+
+        runTest( "JCS_STORE_SINGLE", 1, true );
+        runTest( "JCS_STORE_BATCH", 100, true );
+
+        System.out.println( LOG_DIVIDER );
+    }
+
+    /**
+     * Inserts, then updates, then reads all elements.
+     * <p>
+     * @param tableName
+     * @param batchSize the UpdateBatchSize
+     * @param print whether to print the results
+     * @throws Exception
+     */
+    private static void runTest( final String tableName, final int batchSize, final boolean print )
+        throws Exception
+    {
+        final JDBCDiskCacheAttributes cattr = new JDBCDiskCacheAttributes();
+        cattr.setCacheName( "perf" );
+        cattr.setTableName( tableName );
+        cattr.setUrl( URL );
+        cattr.setDriverClassName( "org.hsqldb.jdbcDriver" );
+        cattr.setUserName( "sa" );
+        cattr.setPassword( "" );
+        cattr.setUseDiskShrinker( false );
+        cattr.setTestBeforeInsert( false );
+        cattr.setUpdateBatchSize( batchSize );
+
+        final JDBCDiskCacheFactory factory = new JDBCDiskCacheFactory();
+        factory.initialize();
+        final JDBCDiskCache<String, String> cache =
+            factory.createCache( cattr, new MockCompositeCacheManager(), null, new StandardSerializer() );
+        cache.processRemoveAll();
+
+        final long insertStart = System.currentTimeMillis();
+        for ( int i = 0; i < TOTAL_ELEMENTS; i++ )
+        {
+            cache.processUpdate( new CacheElement<>( "perf", "key" + i, "value" + i ) );
+        }
+        cache.flushUpdates();
+        final long insertTime = System.currentTimeMillis() - insertStart;
+
+        final long updateStart = System.currentTimeMillis();
+        for ( int i = 0; i < TOTAL_ELEMENTS; i++ )
+        {
+            cache.processUpdate( new CacheElement<>( "perf", "key" + i, "updated" + i ) );
+        }
+        cache.flushUpdates();
+        final long updateTime = System.currentTimeMillis() - updateStart;
+
+        final long readStart = System.currentTimeMillis();
+        if ( batchSize > 1 )
+        {
+            final Set<String> keys = new HashSet<>();
+            for ( int i = 0; i < TOTAL_ELEMENTS; i++ )
+            {
+                keys.add( "key" + i );
+            }
+            assertEquals( "Wrong number of elements", TOTAL_ELEMENTS, cache.processGetMultiple( keys ).size() );
+        }
+        else
+        {
+            for ( int i = 0; i < TOTAL_ELEMENTS; i++ )
+            {
+                assertNotNull( "Missing element", cache.processGet( "key" + i ) );
+            }
+        }
+        final long readTime = System.currentTimeMillis() - readStart;
+
+        factory.dispose();
+
+        if ( print )
+        {
+            System.out.println( "Batch size " + batchSize + ", " + TOTAL_ELEMENTS + " elements" );
+            System.out.println( "  insert " + insertTime + " ms, " + rate( insertTime ) + " per second" );
+            System.out.println( "  update " + updateTime + " ms, " + rate( updateTime ) + " per second" );
+            System.out.println( "  read   " + readTime + " ms, " + rate( readTime ) + " per second" );
+        }
+    }
+
+    /**
+     * @param millis
+     * @return elements per second
+     */
+    private static long rate( final long millis )
+    {
+        return TOTAL_ELEMENTS * 1000L / Math.max( 1, millis );
+    }
+}
@@ -0,0 +1,295 @@
+package org.apache.commons.jcs3.auxiliary.disk.jdbc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.commons.jcs3.auxiliary.disk.jdbc.hsql.HSQLDialect;
+import org.apache.commons.jcs3.auxiliary.disk.jdbc.mysql.MySQLDialect;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.control.MockCompositeCacheManager;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the batched updates and the bulk reads of the JDBC disk cache with a hsql backing.
+ */
+public class JDBCDiskCacheBatchUnitTest
+    extends TestCase
+{
+    /** The table */
+    private static final String TABLE_NAME = "JCS_STORE_BATCH";
+
+    /** The database */
+    private static final String URL = "jdbc:hsqldb:target/JDBCDiskCacheBatchUnitTest";
+
+    /** The region */
+    private static final String CACHE_NAME = "testBatch";
+
+    /** The factory */
+    private JDBCDiskCacheFactory factory;
+
+    /**
+     * Creates the table.
+     * <p>
+     * @throws Exception
+     */
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        System.setProperty( "hsqldb.cache_scale", "8" );
+        Class.forName( "org.hsqldb.jdbcDriver" );
+        try (Connection cConn = DriverManager.getConnection( URL, "sa", "" ))
+        {
+            HsqlSetupTableUtil.setupTABLE( cConn, TABLE_NAME );
+        }
+
+        factory = new JDBCDiskCacheFactory();
+        factory.initialize();
+    }
+
+    /**
+     * @throws Exception
+     */
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        factory.dispose();
+        super.tearDown();
+    }
+
+    /**
+     * @param batchSize the UpdateBatchSize
+     * @return an empty cache on the test table
+     * @throws Exception
+     */
+    private JDBCDiskCache<String, String> createCache( final int batchSize )
+        throws Exception
+    {
+        final JDBCDiskCacheAttributes cattr = new JDBCDiskCacheAttributes();
+        cattr.setCacheName( CACHE_NAME );
+        cattr.setTableName( TABLE_NAME );
+        cattr.setUrl( URL );
+        cattr.setDriverClassName( "org.hsqldb.jdbcDriver" );
+        cattr.setUserName( "sa" );
+        cattr.setPassword( "" );
+        cattr.setUseDiskShrinker( false );
+        cattr.setUpdateBatchSize( batchSize );
+
+        final JDBCDiskCache<String, String> cache =
+            factory.createCache( cattr, new MockCompositeCacheManager(), null, new StandardSerializer() );
+        cache.processRemoveAll();
+        return cache;
+    }
+
+    /**
+     * @param key
+     * @param value
+     * @return a new element of the test region
+     */
+    private static ICacheElement<String, String> element( final String key, final String value )
+    {
+        return new CacheElement<>( CACHE_NAME, key, value );
+    }
+
+    /**
+     * Verify that updates are written once a batch is full and are visible while they wait.
+     * <p>
+     * @throws Exception
+     */
+    public void testBatchedUpdates()
+        throws Exception
+    {
+        // SETUP
+        final JDBCDiskCache<String, String> cache = createCache( 10 );
+
+        // DO WORK
+        for ( int i = 0; i < 25; i++ )
+        {
+            cache.processUpdate( element( "key" + i, "value" + i ) );
+        }
+
+        // VERIFY
+        assertEquals( "Only full batches should be written", 20, cache.getSize() );
+        assertEquals( "Waiting update should be visible", "value24", cache.processGet( "key24" ).getVal() );
+
+        cache.flushUpdates();
+        assertEquals( "Wrong size after flush", 25, cache.getSize() );
+        assertEquals( "Wrong value", "value24", cache.processGet( "key24" ).getVal() );
+    }
+
+    /**
+     * Verify that a batch replaces the existing rows and inserts the new ones.
+     * <p>
+     * @throws Exception
+     */
+    public void testBatchedUpdatesReplaceRows()
+        throws Exception
+    {
+        // SETUP
+        final JDBCDiskCache<String, String> cache = createCache( 10 );
+        for ( int i = 0; i < 5; i++ )
+        {
+            cache.processUpdate( element( "key" + i, "old" + i ) );
+        }
+        cache.flushUpdates();
+
+        // DO WORK
+        for ( int i = 0; i < 10; i++ )
+        {
+            cache.processUpdate( element( "key" + i, "new" + i ) );
+        }
+
+        // VERIFY
+        assertEquals( "Wrong size", 10, cache.getSize() );
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertEquals( "Wrong value", "new" + i, cache.processGet( "key" + i ).getVal() );
+        }
+    }
+
+    /**
+     * Verify that a remove drops the waiting update, so the flush does not bring it back.
+     * <p>
+     * @throws Exception
+     */
+    public void testRemoveDropsPendingUpdate()
+        throws Exception
+    {
+        // SETUP
+        final JDBCDiskCache<String, String> cache = createCache( 10 );
+        cache.processUpdate( element( "key", "value" ) );
+        cache.processUpdate( element( "group:1", "value" ) );
+        cache.processUpdate( element( "other", "value" ) );
+
+        // DO WORK
+        cache.processRemove( "key" );
+        cache.processRemove( "group:" );
+        cache.flushUpdates();
+
+        // VERIFY
+        assertNull( "Should be removed", cache.processGet( "key" ) );
+        assertNull( "Group should be removed", cache.processGet( "group:1" ) );
+        assertEquals( "Wrong size", 1, cache.getSize() );
+    }
+
+    /**
+     * Verify that getMultiple finds the rows and the waiting updates with the portable SQL.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetMultiple()
+        throws Exception
+    {
+        runGetMultiple( createCache( 100 ) );
+    }
+
+    /**
+     * Verify that getMultiple finds more keys than fit in one in list.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetMultipleWithInList()
+        throws Exception
+    {
+        final JDBCDiskCache<String, String> cache = createCache( 100 );
+        cache.setSqlDialect( new SQLDialect()
+        {
+            @Override
+            public String getUpsertSql( final String tableName )
+            {
+                return null;
+            }
+
+            @Override
+            public int getMaxInListSize()
+            {
+                return 500;
+            }
+        } );
+
+        runGetMultiple( cache );
+    }
+
+    /**
+     * Puts 1210 elements with batches of 100 and gets them all.
+     * <p>
+     * @param cache
+     * @throws Exception
+     */
+    private void runGetMultiple( final JDBCDiskCache<String, String> cache )
+        throws Exception
+    {
+        // SETUP
+        final Set<String> keys = new HashSet<>();
+        for ( int i = 0; i < 1210; i++ )
+        {
+            cache.processUpdate( element( "key" + i, "value" + i ) );
+            keys.add( "key" + i );
+        }
+        keys.add( "missing" );
+
+        // DO WORK
+        final Map<String, ICacheElement<String, String>> elements = cache.processGetMultiple( keys );
+
+        // VERIFY
+        assertEquals( "Wrong number of rows", 1200, cache.getSize() );
+        assertEquals( "Wrong number of elements", 1210, elements.size() );
+        assertEquals( "Wrong value", "value1209", elements.get( "key1209" ).getVal() );
+        assertEquals( "Wrong value", "value7", elements.get( "key7" ).getVal() );
+        assertFalse( "Should not find missing key", elements.containsKey( "missing" ) );
+    }
+
+    /**
+     * Verify that a dialect the database does not understand is dropped and the elements are
+     * still written. HSQLDB 1.8 has neither MERGE nor on duplicate key update.
+     * <p>
+     * @throws Exception
+     */
+    public void testUnsupportedDialect()
+        throws Exception
+    {
+        // SETUP
+        final JDBCDiskCache<String, String> cache = createCache( 1 );
+        cache.setSqlDialect( new HSQLDialect() );
+        cache.processUpdate( element( "key1", "value1" ) );
+        cache.setSqlDialect( new MySQLDialect() );
+
+        // DO WORK
+        cache.processUpdate( element( "key2", "value2" ) );
+
+        // VERIFY
+        assertNull( "Dialect should be dropped", cache.getSqlDialect() );
+        assertEquals( "Wrong value", "value1", cache.processGet( "key1" ).getVal() );
+        assertEquals( "Wrong value", "value2", cache.processGet( "key2" ).getVal() );
+    }
+}
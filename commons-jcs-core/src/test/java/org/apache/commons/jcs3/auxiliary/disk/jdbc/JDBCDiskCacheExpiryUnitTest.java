@@ -0,0 +1,251 @@
+package org.apache.commons.jcs3.auxiliary.disk.jdbc;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import org.apache.commons.jcs3.engine.control.MockCompositeCacheManager;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the chunked deletion of the expired rows with a hsql backing.
+ */
+public class JDBCDiskCacheExpiryUnitTest
+    extends TestCase
+{
+    /** The table */
+    private static final String TABLE_NAME = "JCS_STORE_EXPIRY";
+
+    /** The database */
+    private static final String URL = "jdbc:hsqldb:target/JDBCDiskCacheExpiryUnitTest";
+
+    /** The region */
+    private static final String CACHE_NAME = "testExpiry";
+
+    /** The factory */
+    private JDBCDiskCacheFactory factory;
+
+    /**
+     * Creates the table.
+     * <p>
+     * @throws Exception
+     */
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        System.setProperty( "hsqldb.cache_scale", "8" );
+        Class.forName( "org.hsqldb.jdbcDriver" );
+        try (Connection cConn = DriverManager.getConnection( URL, "sa", "" ))
+        {
+            HsqlSetupTableUtil.setupTABLE( cConn, TABLE_NAME );
+            try (Statement sStatement = cConn.createStatement())
+            {
+                sStatement.execute( "delete from " + TABLE_NAME );
+            }
+        }
+
+        factory = new JDBCDiskCacheFactory();
+        factory.initialize();
+    }
+
+    /**
+     * @throws Exception
+     */
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        factory.dispose();
+        super.tearDown();
+    }
+
+    /**
+     * @param chunkSize the ExpiryDeleteChunkSize
+     * @param rowsPerSecond the ExpiryDeleteRowsPerSecond
+     * @return a cache on the test table
+     * @throws Exception
+     */
+    private JDBCDiskCache<String, String> createCache( final int chunkSize, final int rowsPerSecond )
+        throws Exception
+    {
+        final JDBCDiskCacheAttributes cattr = new JDBCDiskCacheAttributes();
+        cattr.setCacheName( CACHE_NAME );
+        cattr.setTableName( TABLE_NAME );
+        cattr.setUrl( URL );
+        cattr.setDriverClassName( "org.hsqldb.jdbcDriver" );
+        cattr.setUserName( "sa" );
+        cattr.setPassword( "" );
+        cattr.setUseDiskShrinker( false );
+        cattr.setExpiryDeleteChunkSize( chunkSize );
+        cattr.setExpiryDeleteRowsPerSecond( rowsPerSecond );
+
+        final JDBCDiskCache<String, String> cache =
+            factory.createCache( cattr, new MockCompositeCacheManager(), null, new StandardSerializer() );
+        return cache;
+    }
+
+    /**
+     * Inserts rows directly, with the given expiration.
+     * <p>
+     * @param region
+     * @param prefix of the keys
+     * @param count
+     * @param expireTime the SYSTEM_EXPIRE_TIME_SECONDS
+     * @param eternal
+     * @throws Exception
+     */
+    private static void insertRows( final String region, final String prefix, final int count,
+                                    final long expireTime, final boolean eternal )
+        throws Exception
+    {
+        try (Connection cConn = DriverManager.getConnection( URL, "sa", "" );
+             PreparedStatement ps = cConn.prepareStatement( "insert into " + TABLE_NAME
+                 + " (CACHE_KEY, REGION, ELEMENT, MAX_LIFE_SECONDS, IS_ETERNAL, CREATE_TIME,"
+                 + " UPDATE_TIME_SECONDS, SYSTEM_EXPIRE_TIME_SECONDS) values (?, ?, ?, ?, ?, ?, ?, ?)" ))
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                ps.setString( 1, prefix + i );
+                ps.setString( 2, region );
+                ps.setBytes( 3, new byte[] { 1 } );
+                ps.setLong( 4, 1 );
+                ps.setString( 5, eternal ? "T" : "F" );
+                ps.setTimestamp( 6, new Timestamp( 0 ) );
+                ps.setLong( 7, 0 );
+                // spread the rows over a few seconds so the chunks span ties
+                ps.setLong( 8, expireTime + i % 3 );
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Verify that the chunks delete exactly the expired, non eternal rows of the region.
+     * <p>
+     * @throws Exception
+     */
+    public void testDeleteExpiredInChunks()
+        throws Exception
+    {
+        // SETUP
+        final JDBCDiskCache<String, String> cache = createCache( 7, 0 );
+        final long now = System.currentTimeMillis() / 1000;
+        insertRows( CACHE_NAME, "expired", 100, now - 1000, false );
+        insertRows( CACHE_NAME, "eternal", 10, now - 1000, true );
+        insertRows( CACHE_NAME, "alive", 10, now + 1000, false );
+        insertRows( "otherRegion", "expired", 10, now - 1000, false );
+
+        // DO WORK
+        final int deleted = cache.deleteExpired();
+
+        // VERIFY
+        assertEquals( "Wrong number deleted", 100, deleted );
+        assertEquals( "Wrong number left", 20, cache.getSize() );
+        assertEquals( "Nothing left to delete", 0, cache.deleteExpired() );
+        assertEquals( "Wrong table state", TableState.FREE, cache.getTableState().getState() );
+    }
+
+    /**
+     * Verify that the single statement is still available.
+     * <p>
+     * @throws Exception
+     */
+    public void testDeleteExpiredWithoutChunks()
+        throws Exception
+    {
+        // SETUP
+        final JDBCDiskCache<String, String> cache = createCache( 0, 0 );
+        final long now = System.currentTimeMillis() / 1000;
+        insertRows( CACHE_NAME, "expired", 50, now - 1000, false );
+        insertRows( CACHE_NAME, "alive", 10, now + 1000, false );
+
+        // DO WORK
+        final int deleted = cache.deleteExpired();
+
+        // VERIFY
+        assertEquals( "Wrong number deleted", 50, deleted );
+        assertEquals( "Wrong number left", 10, cache.getSize() );
+    }
+
+    /**
+     * Verify that the rate limit slows the deletion down.
+     * <p>
+     * @throws Exception
+     */
+    public void testRateLimit()
+        throws Exception
+    {
+        // SETUP
+        final JDBCDiskCache<String, String> cache = createCache( 10, 100 );
+        final long now = System.currentTimeMillis() / 1000;
+        insertRows( CACHE_NAME, "expired", 50, now - 1000, false );
+
+        // DO WORK
+        final long start = System.currentTimeMillis();
+        final int deleted = cache.deleteExpired();
+        final long elapsed = System.currentTimeMillis() - start;
+
+        // VERIFY
+        assertEquals( "Wrong number deleted", 50, deleted );
+        // 4 pauses between the 5 chunks, the last chunk is not followed by one
+        assertTrue( "Should have waited, took " + elapsed, elapsed >= 350 );
+    }
+
+    /**
+     * Verify that the table setup adds the expiration index.
+     * <p>
+     * @throws Exception
+     */
+    public void testExpiryIndex()
+        throws Exception
+    {
+        // DO WORK
+        boolean found = false;
+        try (Connection cConn = DriverManager.getConnection( URL, "sa", "" ))
+        {
+            HsqlSetupTableUtil.setupTABLE( cConn, TABLE_NAME );
+
+            final DatabaseMetaData dmd = cConn.getMetaData();
+            try (ResultSet indexes = dmd.getIndexInfo( null, null, TABLE_NAME, false, false ))
+            {
+                while ( indexes.next() )
+                {
+                    found |= "SYSTEM_EXPIRE_TIME_SECONDS".equals( indexes.getString( "COLUMN_NAME" ) );
+                }
+            }
+        }
+
+        // VERIFY
+        assertTrue( "Should have the expiration index", found );
+    }
+}
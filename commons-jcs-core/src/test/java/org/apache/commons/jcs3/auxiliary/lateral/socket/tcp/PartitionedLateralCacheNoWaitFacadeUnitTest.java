@@ -0,0 +1,386 @@
+package org.apache.commons.jcs3.auxiliary.lateral.socket.tcp;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.jcs3.access.exception.ConfigurationException;
+import org.apache.commons.jcs3.auxiliary.lateral.LateralCache;
+import org.apache.commons.jcs3.auxiliary.lateral.LateralCacheNoWait;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.control.CompositeCache;
+import org.apache.commons.jcs3.engine.control.MockCompositeCacheManager;
+import org.apache.commons.jcs3.utils.struct.ConsistentHashRing;
+
+/**
+ * Tests the routing and the handoff of the partitioned lateral facade.
+ */
+public class PartitionedLateralCacheNoWaitFacadeUnitTest
+    extends TestCase
+{
+    /** The identifying key of the local node. */
+    private static final String SELF = "self:1110";
+
+    /** The configuration. */
+    private PartitionedTCPLateralCacheAttributes cattr;
+
+    /** Holds the local region. */
+    private MockCompositeCacheManager cacheMgr;
+
+    /** The local region. */
+    private CompositeCache<String, String> cache;
+
+    /**
+     * Creates the configuration and the local region.
+     */
+    @Override
+    protected void setUp()
+    {
+        cattr = new PartitionedTCPLateralCacheAttributes();
+        cattr.setCacheName( "testCache" );
+        cattr.setVirtualNodes( 64 );
+        cacheMgr = new MockCompositeCacheManager();
+        cache = cacheMgr.getCache( "testCache" );
+    }
+
+    /**
+     * Verify that a put is only sent to the owners of the key and that nothing is sent to the other
+     * peers.
+     * <p>
+     * @throws Exception
+     */
+    public void testUpdate_SendsToOwnersOnly()
+        throws Exception
+    {
+        // SETUP
+        final RecordingNoWait a = new RecordingNoWait( "a:1110" );
+        final RecordingNoWait b = new RecordingNoWait( "b:1110" );
+        final RecordingNoWait c = new RecordingNoWait( "c:1110" );
+        final PartitionedLateralCacheNoWaitFacade<String, String> facade = createFacade( a, b, c );
+
+        // DO WORK
+        for ( int i = 0; i < 100; i++ )
+        {
+            facade.update( new CacheElement<>( "testCache", "key" + i, "value" + i ) );
+        }
+
+        // VERIFY
+        for ( int i = 0; i < 100; i++ )
+        {
+            final String key = "key" + i;
+            final List<String> owners = facade.getOwners( key );
+            assertEquals( "Wrong number of owners", 2, owners.size() );
+            for ( final RecordingNoWait nw : Arrays.asList( a, b, c ) )
+            {
+                final boolean owner = owners.contains( nw.getIdentityKey() );
+                assertEquals( "Put sent to the wrong peer for " + key, owner, nw.puts.contains( key ) );
+            }
+        }
+        for ( final RecordingNoWait nw : Arrays.asList( a, b, c ) )
+        {
+            assertTrue( "Should not send removes", nw.removes.isEmpty() );
+        }
+        facade.dispose();
+    }
+
+    /**
+     * Verify that with invalidateNonOwners a put only sends a remove to the previous owners of the
+     * key that lost it when a member joined.
+     * <p>
+     * @throws Exception
+     */
+    public void testUpdate_InvalidatesPreviousOwnersOnly()
+        throws Exception
+    {
+        // SETUP
+        cattr.setInvalidateNonOwners( true );
+        final RecordingNoWait a = new RecordingNoWait( "a:1110" );
+        final RecordingNoWait b = new RecordingNoWait( "b:1110" );
+        final RecordingNoWait c = new RecordingNoWait( "c:1110" );
+        final RecordingNoWait d = new RecordingNoWait( "d:1110" );
+        final PartitionedLateralCacheNoWaitFacade<String, String> facade = createFacade( a, b, c );
+        final ConsistentHashRing<String> oldRing =
+                new ConsistentHashRing<>( Arrays.asList( "a:1110", "b:1110", "c:1110", SELF ), 64 );
+
+        // DO WORK
+        facade.update( new CacheElement<>( "testCache", "key", "value" ) );
+
+        // VERIFY
+        for ( final RecordingNoWait nw : Arrays.asList( a, b, c ) )
+        {
+            assertTrue( "Should not send removes before a membership change", nw.removes.isEmpty() );
+        }
+
+        // DO WORK
+        facade.addNoWait( d );
+        int invalidated = 0;
+        for ( int i = 0; i < 100; i++ )
+        {
+            facade.update( new CacheElement<>( "testCache", "key" + i, "value" + i ) );
+        }
+
+        // VERIFY
+        for ( int i = 0; i < 100; i++ )
+        {
+            final String key = "key" + i;
+            final List<String> previousOwners = oldRing.getNodes( key, 2 );
+            final List<String> owners = facade.getOwners( key );
+            for ( final RecordingNoWait nw : Arrays.asList( a, b, c, d ) )
+            {
+                final String node = nw.getIdentityKey();
+                final boolean lostKey = previousOwners.contains( node ) && !owners.contains( node );
+                assertEquals( "Remove sent to the wrong peer for " + key, lostKey, nw.removes.contains( key ) );
+                invalidated += lostKey ? 1 : 0;
+            }
+        }
+        assertTrue( "Some keys should move to the new member", invalidated > 0 );
+        facade.dispose();
+    }
+
+    /**
+     * Verify that a put of a key this node does not own leaves the local memory, unless configured
+     * to keep it.
+     * <p>
+     * @throws Exception
+     */
+    public void testUpdate_DropsNonOwnedLocalCopy()
+        throws Exception
+    {
+        // SETUP
+        final PartitionedLateralCacheNoWaitFacade<String, String> facade =
+                createFacade( new RecordingNoWait( "a:1110" ), new RecordingNoWait( "b:1110" ) );
+        cattr.setReplicationFactor( 1 );
+
+        // DO WORK
+        int owned = 0;
+        for ( int i = 0; i < 100; i++ )
+        {
+            final ICacheElement<String, String> ce = new CacheElement<>( "testCache", "key" + i, "value" + i );
+            cache.getMemoryCache().update( ce );
+            facade.update( ce );
+        }
+
+        // VERIFY
+        for ( int i = 0; i < 100; i++ )
+        {
+            final String key = "key" + i;
+            final boolean owner = facade.getOwners( key ).contains( SELF );
+            assertEquals( "Local copy of " + key, owner, cache.getMemoryCache().getQuiet( key ) != null );
+            owned += owner ? 1 : 0;
+        }
+        assertTrue( "Should own some keys, owned " + owned, owned > 0 && owned < 100 );
+
+        // DO WORK
+        cattr.setKeepNonOwnedLocally( true );
+        for ( int i = 0; i < 100; i++ )
+        {
+            final ICacheElement<String, String> ce = new CacheElement<>( "testCache", "key" + i, "value" + i );
+            cache.getMemoryCache().update( ce );
+            facade.update( ce );
+        }
+
+        // VERIFY
+        assertEquals( "Should keep all the keys", 100, cache.getMemoryCache().getSize() );
+        facade.dispose();
+    }
+
+    /**
+     * Verify that a get is only sent to the remote owners of the key.
+     * <p>
+     * @throws Exception
+     */
+    public void testGet_ReadsOwnersOnly()
+        throws Exception
+    {
+        // SETUP
+        final RecordingNoWait a = new RecordingNoWait( "a:1110" );
+        final RecordingNoWait b = new RecordingNoWait( "b:1110" );
+        final RecordingNoWait c = new RecordingNoWait( "c:1110" );
+        final PartitionedLateralCacheNoWaitFacade<String, String> facade = createFacade( a, b, c );
+        for ( final RecordingNoWait nw : Arrays.asList( a, b, c ) )
+        {
+            for ( int i = 0; i < 100; i++ )
+            {
+                nw.store.put( "key" + i, new CacheElement<>( "testCache", "key" + i, nw.getIdentityKey() ) );
+            }
+        }
+
+        // DO WORK
+        for ( int i = 0; i < 100; i++ )
+        {
+            final String key = "key" + i;
+            final ICacheElement<String, String> ce = facade.get( key );
+
+            // VERIFY
+            final List<String> remoteOwners = new ArrayList<>( facade.getOwners( key ) );
+            remoteOwners.remove( SELF );
+            assertNotNull( "Should find " + key, ce );
+            assertEquals( "Should read the first remote owner", remoteOwners.get( 0 ), ce.getVal() );
+            for ( final RecordingNoWait nw : Arrays.asList( a, b, c ) )
+            {
+                if ( !remoteOwners.contains( nw.getIdentityKey() ) )
+                {
+                    assertFalse( "Get sent to a non owner for " + key, nw.gets.contains( key ) );
+                }
+            }
+        }
+        facade.dispose();
+    }
+
+    /**
+     * Verify that the keys are pushed to their new owner when a member joins, and that this node
+     * drops the keys it no longer owns.
+     * <p>
+     * @throws Exception
+     */
+    public void testHandoff_PushesToNewOwners()
+        throws Exception
+    {
+        // SETUP
+        cattr.setReplicationFactor( 1 );
+        final RecordingNoWait a = new RecordingNoWait( "a:1110" );
+        final RecordingNoWait b = new RecordingNoWait( "b:1110" );
+        final PartitionedLateralCacheNoWaitFacade<String, String> facade = createFacade( a, b );
+        for ( int i = 0; i < 100; i++ )
+        {
+            cache.getMemoryCache().update( new CacheElement<>( "testCache", "key" + i, "value" + i ) );
+        }
+        final ConsistentHashRing<String> oldRing = new ConsistentHashRing<>( Arrays.asList( "a:1110", SELF ), 64 );
+        final ConsistentHashRing<String> newRing = oldRing.with( "b:1110" );
+
+        // DO WORK
+        facade.handoff( oldRing, newRing );
+
+        // VERIFY
+        int moved = 0;
+        for ( int i = 0; i < 100; i++ )
+        {
+            final String key = "key" + i;
+            final List<String> oldOwners = oldRing.getNodes( key, 1 );
+            final List<String> newOwners = newRing.getNodes( key, 1 );
+            final boolean pushed = oldOwners.contains( SELF ) && newOwners.contains( "b:1110" );
+            assertEquals( "Handoff of " + key, pushed, b.puts.contains( key ) );
+            assertFalse( "Nothing moves to the old member", a.puts.contains( key ) );
+            assertEquals( "Local copy of " + key, newOwners.contains( SELF ),
+                    cache.getMemoryCache().getQuiet( key ) != null );
+            moved += pushed ? 1 : 0;
+        }
+        assertTrue( "Should move some keys", moved > 0 );
+        facade.dispose();
+    }
+
+    /**
+     * Verify that the factory refuses the attributes of the plain TCP lateral.
+     */
+    public void testCreateFacade_PlainAttributes()
+    {
+        // SETUP
+        final TCPLateralCacheAttributes plain = new TCPLateralCacheAttributes();
+        plain.setCacheName( "testCache" );
+        final List<LateralCacheNoWait<String, String>> noWaits = Collections.emptyList();
+
+        // DO WORK
+        try
+        {
+            new PartitionedLateralTCPCacheFactory().createCacheNoWaitFacade( null, noWaits, plain, cacheMgr );
+
+            // VERIFY
+            fail( "Should refuse TCPLateralCacheAttributes" );
+        }
+        catch ( final ConfigurationException e )
+        {
+            assertTrue( "Should name the expected class: " + e.getMessage(),
+                    e.getMessage().contains( PartitionedTCPLateralCacheAttributes.class.getName() ) );
+        }
+    }
+
+    /**
+     * @param peers the remote members
+     * @return a facade over the peers with the local node set
+     */
+    private PartitionedLateralCacheNoWaitFacade<String, String> createFacade( final RecordingNoWait... peers )
+    {
+        final List<LateralCacheNoWait<String, String>> noWaits = new ArrayList<>( Arrays.asList( peers ) );
+        final PartitionedLateralCacheNoWaitFacade<String, String> facade =
+                new PartitionedLateralCacheNoWaitFacade<>( null, noWaits, cattr, cacheMgr );
+        facade.setLocalNode( SELF );
+        return facade;
+    }
+
+    /** Records the calls instead of sending them. */
+    private final class RecordingNoWait
+        extends LateralCacheNoWait<String, String>
+    {
+        /** The keys put. */
+        final List<String> puts = Collections.synchronizedList( new ArrayList<>() );
+
+        /** The keys read. */
+        final List<String> gets = Collections.synchronizedList( new ArrayList<>() );
+
+        /** The keys removed. */
+        final List<String> removes = Collections.synchronizedList( new ArrayList<>() );
+
+        /** The elements returned by get. */
+        final Map<String, ICacheElement<String, String>> store = new ConcurrentHashMap<>();
+
+        /**
+         * @param identityKey host:port of the peer
+         */
+        RecordingNoWait( final String identityKey )
+        {
+            super( new LateralCache<>( cattr ) );
+            setIdentityKey( identityKey );
+        }
+
+        @Override
+        public void update( final ICacheElement<String, String> ce )
+        {
+            puts.add( ce.getKey() );
+        }
+
+        @Override
+        public ICacheElement<String, String> get( final String key )
+        {
+            gets.add( key );
+            return store.get( key );
+        }
+
+        @Override
+        public boolean remove( final String key )
+        {
+            removes.add( key );
+            return true;
+        }
+
+        @Override
+        public void dispose()
+        {
+            // there is no connection
+        }
+    }
+}
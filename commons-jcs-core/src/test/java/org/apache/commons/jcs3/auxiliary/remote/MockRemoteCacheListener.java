@@ -53,6 +53,9 @@ public class MockRemoteCacheListener<K, V>
     /** Number of times handleRemote was called. */
     public int removeCount;
 
+    /** Number of times handleRemoveAll was called. */
+    public int removeAllCount;
+
     /** The type of remote listener */
     public RemoteType remoteType = RemoteType.LOCAL;
 
@@ -163,6 +166,6 @@ public class MockRemoteCacheListener<K, V>
     public void handleRemoveAll( final String cacheName )
         throws IOException
     {
-        // TODO Auto-generated method stub
+        removeAllCount++;
     }
 }
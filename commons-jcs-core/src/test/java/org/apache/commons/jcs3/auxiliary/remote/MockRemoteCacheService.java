@@ -29,6 +29,7 @@ import java.util.Set;
 
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICacheServiceNonLocal;
+import org.apache.commons.jcs3.utils.struct.BloomFilter;
 
 /**
  * This is a mock impl of the remote cache service.
@@ -60,6 +61,12 @@ public class MockRemoteCacheService<K, V>
     /** The cache name that was last passed to removeAll. */
     public String lastRemoveAllCacheName;
 
+    /** The filter returned by getKeyFilter. */
+    public BloomFilter keyFilter;
+
+    /** The number of calls to getKeyFilter. */
+    public int getKeyFilterCount;
+
     /**
      * @param cacheName
      * @param key
@@ -83,6 +90,17 @@ public class MockRemoteCacheService<K, V>
         return new HashSet<>();
     }
 
+    /**
+     * @param cacheName
+     * @return keyFilter
+     */
+    @Override
+    public BloomFilter getKeyFilter( final String cacheName )
+    {
+        getKeyFilterCount++;
+        return keyFilter;
+    }
+
     /**
      * Set the last remove key.
      * <p>
@@ -30,7 +30,10 @@ import org.apache.commons.jcs3.engine.CacheElement;
 import org.apache.commons.jcs3.engine.ZombieCacheServiceNonLocal;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICacheElementSerialized;
+import org.apache.commons.jcs3.engine.control.MockCompositeCacheManager;
 import org.apache.commons.jcs3.utils.serialization.SerializationConversionUtil;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+import org.apache.commons.jcs3.utils.struct.BloomFilter;
 
 /**
  * Unit Tests for the Remote Cache.
@@ -162,6 +165,94 @@ public class RemoteCacheUnitTest
         assertEquals( "End should have been called.", 1, cacheEventLogger.endICacheEventCalls );
     }
 
+    /**
+     * Verify that the gets of keys not in the key filter of the server do not reach the server,
+     * and that the keys put through the cache do.
+     * <p>
+     * @throws Exception
+     */
+    public void testGet_keyFilter()
+        throws Exception
+    {
+        // SETUP
+        final RemoteCacheAttributes attributes = new RemoteCacheAttributes();
+        attributes.setCacheName( "testGet_keyFilter" );
+        attributes.setUseKeyFilter( true );
+        attributes.setRemoveUponRemotePut( true );
+        service.keyFilter = new BloomFilter( 100, 0.01 );
+        service.keyFilter.add( "onServer" );
+        final RemoteCacheListener<String, String> receiver =
+            new RemoteCacheListener<>( attributes, new MockCompositeCacheManager(), new StandardSerializer() );
+        final RemoteCache<String, String> remoteCache = new RemoteCache<>( attributes, service, receiver, monitor );
+
+        // DO WORK
+        remoteCache.get( "missing" );
+        final String missingKey = service.lastGetKey;
+        remoteCache.get( "onServer" );
+        final String serverKey = service.lastGetKey;
+        remoteCache.update( new CacheElement<>( "testGet_keyFilter", "putLater", "value" ) );
+        remoteCache.get( "putLater" );
+        final String putKey = service.lastGetKey;
+        receiver.handlePut( new CacheElement<>( "testGet_keyFilter", "putElsewhere", "value" ) );
+        remoteCache.get( "putElsewhere" );
+
+        // VERIFY
+        assertNull( "The server should not be asked for a missing key", missingKey );
+        assertEquals( "The server should be asked for its key", "onServer", serverKey );
+        assertEquals( "The server should be asked for a key put here", "putLater", putKey );
+        assertEquals( "The server should be asked for a key put by another client", "putElsewhere",
+                service.lastGetKey );
+        assertEquals( "The filter should be fetched once", 1, service.getKeyFilterCount );
+    }
+
+    /**
+     * Verify that keys whose hash code depends on the JVM are not checked against the filter.
+     * <p>
+     * @throws Exception
+     */
+    public void testGet_keyFilterNotPortable()
+        throws Exception
+    {
+        // SETUP
+        final RemoteCacheAttributes attributes = new RemoteCacheAttributes();
+        attributes.setCacheName( "testGet_keyFilterNotPortable" );
+        attributes.setUseKeyFilter( true );
+        final MockRemoteCacheService<Object, String> enumService = new MockRemoteCacheService<>();
+        enumService.keyFilter = new BloomFilter( 100, 0.01 );
+        final RemoteCacheListener<Object, String> receiver =
+            new RemoteCacheListener<>( attributes, new MockCompositeCacheManager(), new StandardSerializer() );
+        final RemoteCache<Object, String> remoteCache = new RemoteCache<>( attributes, enumService, receiver, monitor );
+
+        // DO WORK
+        remoteCache.get( Thread.State.NEW );
+
+        // VERIFY
+        assertEquals( "The server should be asked for an enum key", Thread.State.NEW, enumService.lastGetKey );
+    }
+
+    /**
+     * Verify that the key filter is off without a listener receiving the puts of the server.
+     * <p>
+     * @throws Exception
+     */
+    public void testGet_keyFilterNeedsReceive()
+        throws Exception
+    {
+        // SETUP
+        final RemoteCacheAttributes attributes = new RemoteCacheAttributes();
+        attributes.setUseKeyFilter( true );
+        attributes.setReceive( false );
+        service.keyFilter = new BloomFilter( 100, 0.01 );
+        final RemoteCache<String, String> remoteCache = new RemoteCache<>( attributes, service, listener, monitor );
+
+        // DO WORK
+        remoteCache.get( "missing" );
+
+        // VERIFY
+        assertEquals( "The server should be asked without a filter", "missing", service.lastGetKey );
+        assertEquals( "The filter should not be fetched", 0, service.getKeyFilterCount );
+    }
+
     /**
      * Verify event log calls.
      * <p>
@@ -0,0 +1,152 @@
+package org.apache.commons.jcs3.auxiliary.remote.http.client;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheRequestFactory;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+
+import junit.framework.TestCase;
+
+/** Unit tests for the batching dispatcher. */
+public class RemoteHttpCacheBatchDispatcherUnitTest
+    extends TestCase
+{
+    /** Answers each request with its key, after a delay. */
+    private static class MockBatchDispatcher
+        extends RemoteHttpCacheBatchDispatcher
+    {
+        /** The sizes of the batches sent. */
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        /**
+         * @param attributes
+         */
+        MockBatchDispatcher( final RemoteHttpCacheAttributes attributes )
+        {
+            super( attributes, new StandardSerializer() );
+        }
+
+        @Override
+        protected <K, V> byte[] processRequest( final byte[] requestAsByteArray,
+                final RemoteCacheRequest<K, V> remoteCacheRequest, final String url )
+            throws IOException
+        {
+            pause();
+            return new StandardSerializer().serialize( respond( remoteCacheRequest ) );
+        }
+
+        @Override
+        public List<RemoteCacheResponse<Object>> dispatchBatch( final List<? extends RemoteCacheRequest<?, ?>> remoteCacheRequests )
+        {
+            batchSizes.add( Integer.valueOf( remoteCacheRequests.size() ) );
+            pause();
+            final List<RemoteCacheResponse<Object>> responses = new ArrayList<>();
+            for ( final RemoteCacheRequest<?, ?> request : remoteCacheRequests )
+            {
+                responses.add( respond( request ) );
+            }
+            return responses;
+        }
+
+        /**
+         * @param request
+         * @return a response with the key as payload
+         */
+        private static RemoteCacheResponse<Object> respond( final RemoteCacheRequest<?, ?> request )
+        {
+            final RemoteCacheResponse<Object> response = new RemoteCacheResponse<>();
+            response.setPayload( request.getKey() );
+            return response;
+        }
+
+        /** Simulates the network. */
+        private static void pause()
+        {
+            try
+            {
+                Thread.sleep( 300 );
+            }
+            catch ( final InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Verify that requests made during an exchange are sent together and get their own response.
+     * <p>
+     * @throws Exception
+     */
+    public void testDispatchRequest_batchesConcurrentRequests()
+        throws Exception
+    {
+        // SETUP
+        final RemoteHttpCacheAttributes attributes = new RemoteHttpCacheAttributes();
+        attributes.setMaxConcurrentBatches( 1 );
+        final MockBatchDispatcher dispatcher = new MockBatchDispatcher( attributes );
+        final List<Object> payloads = new CopyOnWriteArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+
+        // DO WORK
+        for ( int i = 0; i < 5; i++ )
+        {
+            final String key = "key" + i;
+            final Thread thread = new Thread( () -> {
+                try
+                {
+                    final RemoteCacheResponse<Object> response =
+                        dispatcher.dispatchRequest( RemoteCacheRequestFactory.createGetRequest( "test", key, 0 ) );
+                    if ( key.equals( response.getPayload() ) )
+                    {
+                        payloads.add( response.getPayload() );
+                    }
+                }
+                catch ( final IOException e )
+                {
+                    // counted as missing
+                }
+            } );
+            threads.add( thread );
+            thread.start();
+            if ( i == 0 )
+            {
+                // let the first request start its exchange
+                Thread.sleep( 100 );
+            }
+        }
+        for ( final Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        // VERIFY
+        assertEquals( "Every caller should get its own response", 5, payloads.size() );
+        assertEquals( "Wrong number of exchanges", 2, dispatcher.getExchangeCount() );
+        assertEquals( "Queued requests should be batched", "[4]", dispatcher.batchSizes.toString() );
+    }
+}
@@ -0,0 +1,96 @@
+package org.apache.commons.jcs3.auxiliary.remote.http.client;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+
+import org.apache.commons.jcs3.auxiliary.remote.MockRemoteCacheListener;
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheInvalidations;
+
+import junit.framework.TestCase;
+
+/** Unit tests for the invalidation poller. */
+public class RemoteHttpInvalidationPollerUnitTest
+    extends TestCase
+{
+    /**
+     * Verify that keys are removed and a later gap drops the region.
+     * <p>
+     * @throws Exception
+     */
+    public void testApply_keysAndResync()
+        throws Exception
+    {
+        // SETUP
+        final MockRemoteCacheListener<String, String> listener = new MockRemoteCacheListener<>();
+        final RemoteHttpInvalidationPoller<String, String> poller =
+            new RemoteHttpInvalidationPoller<>( "test", new RemoteHttpCacheClient<>(), listener, 10 );
+
+        // DO WORK
+        poller.apply( batch( 1, 5, true ) );
+        final RemoteCacheInvalidations<String> keys = batch( 1, 7, false );
+        keys.getKeys().addAll( Arrays.asList( "a", "b" ) );
+        poller.apply( keys );
+        poller.apply( batch( 1, 100, true ) );
+
+        // VERIFY
+        assertEquals( "Wrong removed keys", Arrays.asList( "a", "b" ), listener.removedKeys );
+        assertEquals( "Only the gap should drop the region", 1, listener.removeAllCount );
+        assertEquals( "Wrong sequence", 100, poller.getSequence() );
+        assertEquals( "Wrong resync count", 1, poller.getResyncCount() );
+    }
+
+    /**
+     * Verify that a server restart drops the region.
+     * <p>
+     * @throws Exception
+     */
+    public void testApply_restart()
+        throws Exception
+    {
+        // SETUP
+        final MockRemoteCacheListener<String, String> listener = new MockRemoteCacheListener<>();
+        final RemoteHttpInvalidationPoller<String, String> poller =
+            new RemoteHttpInvalidationPoller<>( "test", new RemoteHttpCacheClient<>(), listener, 10 );
+        poller.apply( batch( 1, 5, true ) );
+
+        // DO WORK
+        poller.apply( batch( 2, 3, false ) );
+
+        // VERIFY
+        assertEquals( "Restart should drop the region", 1, listener.removeAllCount );
+        assertEquals( "Wrong sequence", 3, poller.getSequence() );
+    }
+
+    /**
+     * @param epoch
+     * @param sequence
+     * @param resync
+     * @return a batch
+     */
+    private static RemoteCacheInvalidations<String> batch( final long epoch, final long sequence, final boolean resync )
+    {
+        final RemoteCacheInvalidations<String> batch = new RemoteCacheInvalidations<>();
+        batch.setEpoch( epoch );
+        batch.setSequence( sequence );
+        batch.setResync( resync );
+        return batch;
+    }
+}
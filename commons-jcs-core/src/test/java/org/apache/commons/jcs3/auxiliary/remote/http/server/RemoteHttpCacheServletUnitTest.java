@@ -19,17 +19,32 @@ package org.apache.commons.jcs3.auxiliary.remote.http.server;
  * under the License.
  */
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.Serializable;
+import java.lang.reflect.Proxy;
 import java.util.Collections;
 import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import junit.framework.TestCase;
 
 import org.apache.commons.jcs3.auxiliary.remote.MockRemoteCacheService;
+import org.apache.commons.jcs3.auxiliary.remote.http.behavior.IRemoteHttpCacheConstants;
+import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheFrameCodec;
 import org.apache.commons.jcs3.auxiliary.remote.util.RemoteCacheRequestFactory;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheRequest;
 import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheResponse;
 import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
 
 /** Unit tests for the servlet. */
 public class RemoteHttpCacheServletUnitTest
@@ -174,4 +189,223 @@ public class RemoteHttpCacheServletUnitTest
         assertNotNull( "Should have a result.", result );
         assertEquals( "Wrong cacheName.", cacheName, remoteHttpCacheService.lastRemoveAllCacheName );
     }
+
+    /**
+     * Verify that a compressed batch is processed in order and answered compressed.
+     * <p>
+     * @throws Exception
+     */
+    public void testService_Batch()
+        throws Exception
+    {
+        // SETUP
+        final StandardSerializer serializer = new StandardSerializer();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream( new GZIPOutputStream( body ) ))
+        {
+            RemoteCacheFrameCodec.writeFrame( serializer, RemoteCacheRequestFactory.createGetRequest( "test", "key1", 2 ), out );
+            RemoteCacheFrameCodec.writeFrame( serializer, RemoteCacheRequestFactory.createRemoveRequest( "test", "key2", 2 ), out );
+        }
+
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        final StringBuilder encoding = new StringBuilder();
+        final int[] status = new int[1];
+
+        // DO WORK
+        servlet.service( batchRequest( body.toByteArray(), true ), batchResponse( written, encoding, status ) );
+
+        // VERIFY
+        assertEquals( "Should not refuse.", 0, status[0] );
+        assertEquals( "Wrong encoding.", "gzip", encoding.toString() );
+        assertEquals( "Wrong key.", "key1", remoteHttpCacheService.lastGetKey );
+        assertEquals( "Wrong key.", "key2", remoteHttpCacheService.lastRemoveKey );
+        try (DataInputStream result = new DataInputStream( new GZIPInputStream( new ByteArrayInputStream( written.toByteArray() ) ) ))
+        {
+            final RemoteCacheResponse<Object> first = RemoteCacheFrameCodec.readFrame( serializer, result, null );
+            final RemoteCacheResponse<Object> second = RemoteCacheFrameCodec.readFrame( serializer, result, null );
+            assertTrue( "Should succeed.", first.isSuccess() );
+            assertTrue( "Should succeed.", second.isSuccess() );
+            assertNull( "Should have two responses.", RemoteCacheFrameCodec.readFrame( serializer, result, null ) );
+        }
+    }
+
+    /**
+     * Verify that a frame above the limit is refused before it is read.
+     * <p>
+     * @throws Exception
+     */
+    public void testService_Batch_FrameTooLarge()
+        throws Exception
+    {
+        // SETUP
+        final RemoteHttpCacheServerAttributes attributes = new RemoteHttpCacheServerAttributes();
+        attributes.setMaxFrameSize( 1024 );
+        servlet.setServerAttributes( attributes );
+
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream( body ))
+        {
+            // claims far more than the limit and than is sent
+            out.writeInt( Integer.MAX_VALUE );
+        }
+        final int[] status = new int[1];
+
+        // DO WORK
+        servlet.service( batchRequest( body.toByteArray(), false ),
+                         batchResponse( new ByteArrayOutputStream(), new StringBuilder(), status ) );
+
+        // VERIFY
+        assertEquals( "Should be refused.", HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, status[0] );
+    }
+
+    /**
+     * Verify that a batch with more frames than allowed is refused and nothing is processed.
+     * <p>
+     * @throws Exception
+     */
+    public void testService_Batch_TooManyFrames()
+        throws Exception
+    {
+        // SETUP
+        final RemoteHttpCacheServerAttributes attributes = new RemoteHttpCacheServerAttributes();
+        attributes.setMaxBatchFrames( 2 );
+        servlet.setServerAttributes( attributes );
+
+        final StandardSerializer serializer = new StandardSerializer();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream( body ))
+        {
+            for ( int i = 0; i < 3; i++ )
+            {
+                RemoteCacheFrameCodec.writeFrame( serializer, RemoteCacheRequestFactory.createGetRequest( "test", "key" + i, 2 ), out );
+            }
+        }
+        final int[] status = new int[1];
+
+        // DO WORK
+        servlet.service( batchRequest( body.toByteArray(), false ),
+                         batchResponse( new ByteArrayOutputStream(), new StringBuilder(), status ) );
+
+        // VERIFY
+        assertEquals( "Should be refused.", HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, status[0] );
+        assertNull( "Should not process any request.", remoteHttpCacheService.lastGetKey );
+    }
+
+    /**
+     * Verify that a batch whose frames add up to more than allowed is refused.
+     * <p>
+     * @throws Exception
+     */
+    public void testService_Batch_TooManyBytes()
+        throws Exception
+    {
+        // SETUP
+        final StandardSerializer serializer = new StandardSerializer();
+        final byte[] frame = serializer.serialize( RemoteCacheRequestFactory.createGetRequest( "test", "key", 2 ) );
+
+        final RemoteHttpCacheServerAttributes attributes = new RemoteHttpCacheServerAttributes();
+        attributes.setMaxBatchBytes( 2 * ( 4 + frame.length ) );
+        servlet.setServerAttributes( attributes );
+
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream( body ))
+        {
+            for ( int i = 0; i < 3; i++ )
+            {
+                out.writeInt( frame.length );
+                out.write( frame );
+            }
+        }
+        final int[] status = new int[1];
+
+        // DO WORK
+        servlet.service( batchRequest( body.toByteArray(), false ),
+                         batchResponse( new ByteArrayOutputStream(), new StringBuilder(), status ) );
+
+        // VERIFY
+        assertEquals( "Should be refused.", HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, status[0] );
+        assertNull( "Should not process any request.", remoteHttpCacheService.lastGetKey );
+    }
+
+    /**
+     * Verify that a truncated frame is answered with 400.
+     * <p>
+     * @throws Exception
+     */
+    public void testService_Batch_Truncated()
+        throws Exception
+    {
+        // SETUP
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream( body ))
+        {
+            out.writeInt( 100 );
+            out.write( new byte[10] );
+        }
+        final int[] status = new int[1];
+
+        // DO WORK
+        servlet.service( batchRequest( body.toByteArray(), false ),
+                         batchResponse( new ByteArrayOutputStream(), new StringBuilder(), status ) );
+
+        // VERIFY
+        assertEquals( "Should be refused.", HttpServletResponse.SC_BAD_REQUEST, status[0] );
+    }
+
+    /**
+     * @param body the request body
+     * @param compressed whether the body is gzipped
+     * @return a batch request without a content length
+     */
+    private HttpServletRequest batchRequest( final byte[] body, final boolean compressed )
+    {
+        final ByteArrayInputStream in = new ByteArrayInputStream( body );
+        return (HttpServletRequest) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] { HttpServletRequest.class },
+            ( proxy, method, args ) -> {
+                switch ( method.getName() )
+                {
+                    case "getContentType": return IRemoteHttpCacheConstants.BATCH_CONTENT_TYPE;
+                    case "getContentLength": return Integer.valueOf( -1 );
+                    case "getHeader": return compressed && "Content-Encoding".equals( args[0] ) ? "gzip" : null;
+                    case "getInputStream": return new ServletInputStream()
+                    {
+                        @Override
+                        public int read()
+                        {
+                            return in.read();
+                        }
+                    };
+                    default: return null;
+                }
+            } );
+    }
+
+    /**
+     * @param written receives the body
+     * @param headers receives the header values
+     * @param status receives the error status, if any
+     * @return a response recording what the servlet wrote
+     */
+    private HttpServletResponse batchResponse( final ByteArrayOutputStream written, final StringBuilder headers, final int[] status )
+    {
+        return (HttpServletResponse) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[] { HttpServletResponse.class },
+            ( proxy, method, args ) -> {
+                switch ( method.getName() )
+                {
+                    case "setHeader": headers.append( args[1] ); return null;
+                    case "sendError": status[0] = ( (Integer) args[0] ).intValue(); return null;
+                    case "getOutputStream": return new ServletOutputStream()
+                    {
+                        @Override
+                        public void write( final int b )
+                        {
+                            written.write( b );
+                        }
+                    };
+                    default: return null;
+                }
+            } );
+    }
 }
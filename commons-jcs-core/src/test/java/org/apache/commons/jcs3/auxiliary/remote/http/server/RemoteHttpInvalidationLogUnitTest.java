@@ -0,0 +1,153 @@
+package org.apache.commons.jcs3.auxiliary.remote.http.server;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+
+import org.apache.commons.jcs3.auxiliary.remote.value.RemoteCacheInvalidations;
+
+import junit.framework.TestCase;
+
+/** Unit tests for the invalidation log. */
+public class RemoteHttpInvalidationLogUnitTest
+    extends TestCase
+{
+    /**
+     * Verify that a first poll is told to resync and gets the current sequence.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetInvalidations_firstPoll()
+        throws Exception
+    {
+        // SETUP
+        final RemoteHttpInvalidationLog<String> invalidationLog = new RemoteHttpInvalidationLog<>( 10 );
+        invalidationLog.recordRemove( "a", 1 );
+
+        // DO WORK
+        final RemoteCacheInvalidations<String> result = invalidationLog.getInvalidations( -1, 2, 0 );
+
+        // VERIFY
+        assertTrue( "Should resync", result.isResync() );
+        assertEquals( "Wrong sequence", 1, result.getSequence() );
+        assertEquals( "Wrong epoch", invalidationLog.getEpoch(), result.getEpoch() );
+    }
+
+    /**
+     * Verify that changed keys are returned once and the requester's own changes are skipped.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetInvalidations_keys()
+        throws Exception
+    {
+        // SETUP
+        final RemoteHttpInvalidationLog<String> invalidationLog = new RemoteHttpInvalidationLog<>( 10 );
+        invalidationLog.recordRemove( "a", 1 );
+        invalidationLog.recordRemove( "b", 2 );
+        invalidationLog.recordRemove( "a", 1 );
+
+        // DO WORK
+        final RemoteCacheInvalidations<String> result = invalidationLog.getInvalidations( 0, 2, 0 );
+
+        // VERIFY
+        assertFalse( "Should not resync", result.isResync() );
+        assertEquals( "Wrong keys", Arrays.asList( "a" ), result.getKeys() );
+        assertEquals( "Wrong sequence", 3, result.getSequence() );
+    }
+
+    /**
+     * Verify that a removeAll is reported.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetInvalidations_removeAll()
+        throws Exception
+    {
+        // SETUP
+        final RemoteHttpInvalidationLog<String> invalidationLog = new RemoteHttpInvalidationLog<>( 10 );
+        invalidationLog.recordRemove( "a", 1 );
+        invalidationLog.recordRemoveAll( 1 );
+
+        // DO WORK
+        final RemoteCacheInvalidations<String> result = invalidationLog.getInvalidations( 0, 2, 0 );
+
+        // VERIFY
+        assertTrue( "Should be a removeAll", result.isRemoveAll() );
+        assertFalse( "Should not resync", result.isResync() );
+    }
+
+    /**
+     * Verify that a client that fell behind the capacity is told to resync.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetInvalidations_gap()
+        throws Exception
+    {
+        // SETUP
+        final RemoteHttpInvalidationLog<String> invalidationLog = new RemoteHttpInvalidationLog<>( 3 );
+        for ( int i = 0; i < 5; i++ )
+        {
+            invalidationLog.recordRemove( "key" + i, 1 );
+        }
+
+        // DO WORK
+        final RemoteCacheInvalidations<String> behind = invalidationLog.getInvalidations( 1, 2, 0 );
+        final RemoteCacheInvalidations<String> inTime = invalidationLog.getInvalidations( 2, 2, 0 );
+
+        // VERIFY
+        assertTrue( "Should resync", behind.isResync() );
+        assertEquals( "Wrong sequence", 5, behind.getSequence() );
+        assertFalse( "Should not resync", inTime.isResync() );
+        assertEquals( "Wrong keys", Arrays.asList( "key2", "key3", "key4" ), inTime.getKeys() );
+    }
+
+    /**
+     * Verify that a poll without changes waits for the next change.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetInvalidations_waitsForChange()
+        throws Exception
+    {
+        // SETUP
+        final RemoteHttpInvalidationLog<String> invalidationLog = new RemoteHttpInvalidationLog<>( 10 );
+        final Thread writer = new Thread( () -> {
+            try
+            {
+                Thread.sleep( 100 );
+            }
+            catch ( final InterruptedException e )
+            {
+                // ignore
+            }
+            invalidationLog.recordRemove( "a", 1 );
+        } );
+        writer.start();
+
+        // DO WORK
+        final RemoteCacheInvalidations<String> result = invalidationLog.getInvalidations( 0, 2, 10000 );
+        writer.join();
+
+        // VERIFY
+        assertEquals( "Wrong keys", Arrays.asList( "a" ), result.getKeys() );
+    }
+}
@@ -0,0 +1,240 @@
+package org.apache.commons.jcs3.auxiliary.remote.nio;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.commons.jcs3.auxiliary.remote.MockRemoteCacheListener;
+import org.apache.commons.jcs3.auxiliary.remote.RemoteUtils;
+import org.apache.commons.jcs3.auxiliary.remote.server.NioRemoteCacheServer;
+import org.apache.commons.jcs3.auxiliary.remote.server.NioRemoteCacheServerAttributes;
+import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+import org.apache.commons.jcs3.utils.timing.SleepUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Runs the NIO client against the NIO server on an ephemeral port.
+ */
+public class NioRemoteCacheClientServerUnitTest
+    extends TestCase
+{
+    /** The region */
+    private static final String CACHE_NAME = "testCache";
+
+    /** The server */
+    private NioRemoteCacheServer<String, String> server;
+
+    /** The clients to release */
+    private final List<NioRemoteCacheClient<String, String>> clients = new ArrayList<>();
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        final NioRemoteCacheServerAttributes rcsa = new NioRemoteCacheServerAttributes();
+        rcsa.setConfigFileName( "/TestRemoteCacheServer.ccf" );
+        rcsa.setListenerPort( 0 );
+        final Properties config = RemoteUtils.loadProps( rcsa.getConfigFileName() );
+        server = new NioRemoteCacheServer<>( rcsa, config );
+        server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception
+    {
+        for ( final NioRemoteCacheClient<String, String> client : clients )
+        {
+            client.release();
+        }
+        server.shutdown();
+
+        super.tearDown();
+    }
+
+    /**
+     * @return a new client connected to the test server
+     */
+    private NioRemoteCacheClient<String, String> createClient()
+    {
+        final NioRemoteCacheAttributes attributes = new NioRemoteCacheAttributes();
+        attributes.setServer( "localhost:" + server.getLocalPort() );
+        attributes.setRequestTimeoutMillis( 10000 );
+        final NioRemoteCacheClient<String, String> client = new NioRemoteCacheClient<>( attributes, new StandardSerializer() );
+        clients.add( client );
+        return client;
+    }
+
+    /**
+     * Verify the basic operations go through the server.
+     * <p>
+     * @throws Exception
+     */
+    public void testUpdateGetRemove()
+        throws Exception
+    {
+        // SETUP
+        final NioRemoteCacheClient<String, String> client = createClient();
+
+        // DO WORK
+        client.update( new CacheElement<>( CACHE_NAME, "key1", "value1" ), 0 );
+        client.update( new CacheElement<>( CACHE_NAME, "key2", "value2" ), 0 );
+
+        // VERIFY
+        final ICacheElement<String, String> element = client.get( CACHE_NAME, "key1", 0 );
+        assertNotNull( "Should have the element", element );
+        assertEquals( "Wrong value", "value1", element.getVal() );
+
+        final Set<String> keys = new HashSet<>();
+        keys.add( "key1" );
+        keys.add( "key2" );
+        final Map<String, ICacheElement<String, String>> elements = client.getMultiple( CACHE_NAME, keys, 0 );
+        assertEquals( "Wrong number of elements", 2, elements.size() );
+        assertEquals( "Wrong key set", keys, client.getKeySet( CACHE_NAME ) );
+
+        client.remove( CACHE_NAME, "key1", 0 );
+        assertNull( "Should be removed", client.get( CACHE_NAME, "key1", 0 ) );
+        assertTrue( "Should be connected", client.isConnected() );
+    }
+
+    /**
+     * Verify that many threads share one connection.
+     * <p>
+     * @throws Exception
+     */
+    public void testConcurrentRequests()
+        throws Exception
+    {
+        // SETUP
+        final NioRemoteCacheClient<String, String> client = createClient();
+        final int threadCount = 8;
+        final int perThread = 100;
+        final List<Thread> threads = new ArrayList<>();
+        final List<Throwable> errors = new ArrayList<>();
+
+        // DO WORK
+        for ( int t = 0; t < threadCount; t++ )
+        {
+            final int offset = t * perThread;
+            final Thread thread = new Thread( () -> {
+                try
+                {
+                    for ( int i = offset; i < offset + perThread; i++ )
+                    {
+                        client.update( new CacheElement<>( CACHE_NAME, "key" + i, "value" + i ), 0 );
+                    }
+                }
+                catch ( final IOException e )
+                {
+                    synchronized ( errors )
+                    {
+                        errors.add( e );
+                    }
+                }
+            } );
+            threads.add( thread );
+            thread.start();
+        }
+        for ( final Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        // VERIFY
+        assertTrue( "Unexpected errors " + errors, errors.isEmpty() );
+        assertEquals( "Wrong number of keys", threadCount * perThread, client.getKeySet( CACHE_NAME ).size() );
+        assertEquals( "Wrong value", "value512", client.get( CACHE_NAME, "key512", 0 ).getVal() );
+        assertEquals( "Should use one connection", 1, server.getConnectionCount() );
+    }
+
+    /**
+     * Verify that the changes of one client are pushed to the listener of another one, but not
+     * back to the listener of the client that made them.
+     * <p>
+     * @throws Exception
+     */
+    public void testListenerEvents()
+        throws Exception
+    {
+        // SETUP
+        final NioRemoteCacheClient<String, String> writer = createClient();
+        final NioRemoteCacheClient<String, String> receiver = createClient();
+        final MockRemoteCacheListener<String, String> listener = new MockRemoteCacheListener<>();
+
+        // DO WORK
+        receiver.addCacheListener( CACHE_NAME, listener );
+        writer.update( new CacheElement<>( CACHE_NAME, "key", "value" ), 0 );
+        receiver.update( new CacheElement<>( CACHE_NAME, "own", "value" ), listener.getListenerId() );
+        writer.remove( CACHE_NAME, "key", 0 );
+
+        // VERIFY
+        assertTrue( "Should have a listener id", listener.getListenerId() != 0 );
+        for ( int i = 0; i < 50 && listener.removeCount == 0; i++ )
+        {
+            SleepUtil.sleepAtLeast( 100 );
+        }
+        assertEquals( "Wrong number of removes", 1, listener.removeCount );
+        assertEquals( "Own put should not be pushed back", 1, listener.putCount );
+        assertEquals( "Wrong key", "key", listener.putItems.get( 0 ).getKey() );
+        assertEquals( "Wrong removed key", "key", listener.removedKeys.get( 0 ) );
+        assertEquals( "Wrong event count", 2, receiver.getEventCount() );
+    }
+
+    /**
+     * Verify that requests fail once the server is gone.
+     * <p>
+     * @throws Exception
+     */
+    public void testServerShutdown()
+        throws Exception
+    {
+        // SETUP
+        final NioRemoteCacheClient<String, String> client = createClient();
+        client.update( new CacheElement<>( CACHE_NAME, "key", "value" ), 0 );
+
+        // DO WORK
+        server.shutdown();
+        for ( int i = 0; i < 50 && client.isConnected(); i++ )
+        {
+            SleepUtil.sleepAtLeast( 100 );
+        }
+
+        // VERIFY
+        assertFalse( "Should have noticed the lost connection", client.isConnected() );
+        try
+        {
+            client.get( CACHE_NAME, "key", 0 );
+            fail( "Should not reach the server" );
+        }
+        catch ( final IOException e )
+        {
+            // expected
+        }
+    }
+}
@@ -32,6 +32,7 @@ import org.apache.commons.jcs3.auxiliary.remote.server.behavior.IRemoteCacheServ
 import org.apache.commons.jcs3.auxiliary.remote.server.behavior.RemoteType;
 import org.apache.commons.jcs3.engine.CacheElement;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.utils.struct.BloomFilter;
 
 import junit.framework.TestCase;
 
@@ -444,6 +445,29 @@ public class RemoteCacheServerUnitTest
         assertEquals( "End should have been called.", 1, cacheEventLogger.endICacheEventCalls );
     }
 
+    /**
+     * Verify that the key filter has the keys of the region, and the keys put after it was built.
+     * <p>
+     * @throws Exception
+     */
+    public void testGetKeyFilter()
+        throws Exception
+    {
+        // SETUP
+        server.update( new CacheElement<>( "keyFilterRegion", "before", "value" ) );
+
+        // DO WORK
+        final BloomFilter filter = server.getKeyFilter( "keyFilterRegion" );
+        server.update( new CacheElement<>( "keyFilterRegion", "after", "value" ) );
+
+        // VERIFY
+        assertNotNull( "Should build a filter", filter );
+        assertTrue( "Should contain the key put before", filter.mightContain( "before" ) );
+        assertTrue( "Should contain the key put after", filter.mightContain( "after" ) );
+        assertSame( "Should reuse the filter", filter, server.getKeyFilter( "keyFilterRegion" ) );
+        assertFalse( "Should not contain a missing key", filter.mightContain( "missing" ) );
+    }
+
     /**
      * Verify event log calls.
      * <p>
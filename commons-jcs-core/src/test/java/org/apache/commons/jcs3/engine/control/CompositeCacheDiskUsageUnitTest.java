@@ -290,6 +290,83 @@ public class CompositeCacheDiskUsageUnitTest
         assertEquals( "Wrong element updated with lateral.", inputElement, mockLateral.lastUpdatedItem );
     }
 
+    /**
+     * Verify that new attributes of an element held in memory are set in place, without moving
+     * the element to the front of the memory cache.
+     * <p>
+     * @throws IOException
+     */
+    public void testUpdateElementAttributes_InMemory()
+        throws IOException
+    {
+        // SETUP
+        final ICompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName(CACHE_NAME);
+        cattr.setMaxObjects( 2 );
+        cattr.setSpoolChunkSize( 1 );
+        cattr.setDiskUsagePattern( ICompositeCacheAttributes.DiskUsagePattern.SWAP );
+
+        final CompositeCache<String, String> cache = new CompositeCache<>( cattr, new ElementAttributes() );
+
+        final MockAuxCache<String, String> mock = new MockAuxCache<>();
+        mock.cacheType = CacheType.DISK_CACHE;
+        cache.setAuxCaches(Arrays.asList(mock));
+
+        cache.update( new CacheElement<>( CACHE_NAME, "key1", "value1" ) );
+        cache.update( new CacheElement<>( CACHE_NAME, "key2", "value2" ) );
+        final IElementAttributes newAttributes = new ElementAttributes();
+        newAttributes.setMaxLife( 10 );
+
+        // DO WORK
+        final boolean updated = cache.updateElementAttributes( "key1", newAttributes );
+
+        // VERIFY
+        assertTrue( "Should find the element.", updated );
+        assertEquals( "Should not write to the disk.", 0, mock.updateCount );
+        assertSame( "Wrong attributes.", newAttributes, cache.getMemoryCache().getQuiet( "key1" ).getElementAttributes() );
+
+        // DO WORK
+        cache.update( new CacheElement<>( CACHE_NAME, "key3", "value3" ) );
+
+        // VERIFY
+        assertEquals( "Should still be the least recently used.", "key1", mock.lastUpdatedItem.getKey() );
+    }
+
+    /**
+     * Verify that new attributes of an element only held on disk are written to the disk, without
+     * loading the element into memory.
+     * <p>
+     * @throws IOException
+     */
+    public void testUpdateElementAttributes_OnDisk()
+        throws IOException
+    {
+        // SETUP
+        final ICompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName(CACHE_NAME);
+        cattr.setDiskUsagePattern( ICompositeCacheAttributes.DiskUsagePattern.SWAP );
+
+        final CompositeCache<String, String> cache = new CompositeCache<>( cattr, new ElementAttributes() );
+
+        final MockAuxCache<String, String> mock = new MockAuxCache<>();
+        mock.cacheType = CacheType.DISK_CACHE;
+        mock.stored = new CacheElement<>( CACHE_NAME, "key", "value" );
+        cache.setAuxCaches(Arrays.asList(mock));
+
+        final IElementAttributes newAttributes = new ElementAttributes();
+        newAttributes.setMaxLife( 10 );
+
+        // DO WORK
+        final boolean updated = cache.updateElementAttributes( "key", newAttributes );
+
+        // VERIFY
+        assertTrue( "Should find the element.", updated );
+        assertEquals( "Wrong number of calls to the disk cache update.", 1, mock.updateCount );
+        assertSame( "Wrong attributes.", newAttributes, mock.lastUpdatedItem.getElementAttributes() );
+        assertEquals( "Should not load the element into memory.", 0, cache.getMemoryCache().getSize() );
+        assertFalse( "Should not find a missing element.", cache.updateElementAttributes( "missing", newAttributes ) );
+    }
+
     /**
      * Used to test the disk cache functionality.
      * <p>
@@ -307,6 +384,9 @@ public class CompositeCacheDiskUsageUnitTest
         /** The type that should be returned from getCacheType. */
         public CacheType cacheType = CacheType.DISK_CACHE;
 
+        /** The element returned by get for its key. */
+        public ICacheElement<K, V> stored;
+
         /** Resets counters and catchers. */
         public void reset()
         {
@@ -335,7 +415,7 @@ public class CompositeCacheDiskUsageUnitTest
         public ICacheElement<K, V> get( final K key )
             throws IOException
         {
-            return null;
+            return stored != null && stored.getKey().equals( key ) ? stored : null;
         }
 
         /**
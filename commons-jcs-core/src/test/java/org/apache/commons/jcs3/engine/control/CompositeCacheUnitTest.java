@@ -2,9 +2,15 @@ package org.apache.commons.jcs3.engine.control;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.commons.jcs3.auxiliary.MockAuxiliaryCache;
+import org.apache.commons.jcs3.auxiliary.disk.indexed.IndexedDiskCache;
+import org.apache.commons.jcs3.auxiliary.disk.indexed.IndexedDiskCacheAttributes;
 import org.apache.commons.jcs3.engine.CacheElement;
 import org.apache.commons.jcs3.engine.CompositeCacheAttributes;
 import org.apache.commons.jcs3.engine.ElementAttributes;
@@ -13,6 +19,9 @@ import org.apache.commons.jcs3.engine.behavior.ICacheType.CacheType;
 import org.apache.commons.jcs3.engine.behavior.ICompositeCacheAttributes;
 import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
 import org.apache.commons.jcs3.engine.memory.MockMemoryCache;
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs3.engine.stats.behavior.IStats;
+import org.apache.commons.jcs3.utils.timing.HybridLogicalClock;
 
 /*
  * Licensed to the Apache Software Foundation (ASF) under one
@@ -233,4 +242,325 @@ public class CompositeCacheUnitTest
         // VERIFY
         assertEquals( "Wrong number of calls", 1, diskMock.getMatchingCallCount );
     }
+
+    /**
+     * Verify that a region with a key index finds the same matches and removes hierarchies.
+     * <p>
+     * @throws IOException
+     */
+    public void testGetMatching_KeyIndex()
+        throws IOException
+    {
+        // SETUP
+        final String cacheName = "testGetMatching_KeyIndex";
+        final ICompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName( cacheName );
+        cattr.setMemoryCacheName( "org.apache.commons.jcs3.engine.memory.lru.LRUMemoryCache" );
+        cattr.setMaxObjects( 1000 );
+        cattr.setUseKeyIndex( true );
+
+        final CompositeCache<String, Integer> cache = new CompositeCache<>( cattr, new ElementAttributes() );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            cache.update( new CacheElement<>( cacheName, "a:" + ( i % 4 ) + ":" + i, Integer.valueOf( i ) ), false );
+            cache.update( new CacheElement<>( cacheName, "b:" + i, Integer.valueOf( i ) ), false );
+        }
+
+        // DO WORK
+        final Map<String, ICacheElement<String, Integer>> prefixed = cache.getMatching( "a:1:\\d+" );
+        final Map<String, ICacheElement<String, Integer>> alternation = cache.getMatching( "a:1:1\\d|b:1\\d" );
+        cache.remove( "a:2:" );
+
+        // VERIFY
+        assertEquals( "Wrong number returned for the prefix", 25, prefixed.size() );
+        assertTrue( "Missing match", prefixed.containsKey( "a:1:97" ) );
+        assertEquals( "Wrong number returned for the alternation", 12, alternation.size() );
+        assertEquals( "Hierarchy should be removed", 0, cache.getMatching( "a:2:.*" ).size() );
+        assertEquals( "Other hierarchies should stay", 25, cache.getMatching( "a:3:.*" ).size() );
+        assertEquals( "Wrong size after the removal", 175, cache.getSize() );
+    }
+
+    /**
+     * Verify that a versioned region drops local updates that are older than the element in memory.
+     * <p>
+     * @throws IOException
+     */
+    public void testLocalUpdate_StaleVersionRejected()
+        throws IOException
+    {
+        // SETUP
+        final String cacheName = "testLocalUpdate_StaleVersionRejected";
+        final ICompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName(cacheName);
+        cattr.setMaxObjects( 100 );
+        cattr.setUseVersioning( true );
+
+        final CompositeCache<String, Integer> cache = new CompositeCache<>( cattr, new ElementAttributes() );
+
+        final ICacheElement<String, Integer> newer = new CacheElement<>( cacheName, "key", Integer.valueOf( 2 ), new ElementAttributes() );
+        cache.update( newer );
+        final long version = newer.getElementAttributes().getVersion();
+
+        final IElementAttributes staleAttr = new ElementAttributes();
+        staleAttr.setVersion( version - 1 );
+        final ICacheElement<String, Integer> stale = new CacheElement<>( cacheName, "key", Integer.valueOf( 1 ), staleAttr );
+
+        // DO WORK
+        cache.localUpdate( stale );
+
+        // VERIFY
+        assertTrue( "Version should have been stamped", version > 0 );
+        assertEquals( "Stale update should be dropped", Integer.valueOf( 2 ), cache.get( "key" ).getVal() );
+        assertEquals( "Wrong stale count", 1, cache.getStaleUpdateCount() );
+
+        // a newer remote version wins
+        final IElementAttributes newerAttr = new ElementAttributes();
+        newerAttr.setVersion( version + 1 );
+        cache.localUpdate( new CacheElement<>( cacheName, "key", Integer.valueOf( 3 ), newerAttr ) );
+        assertEquals( "Newer update should be applied", Integer.valueOf( 3 ), cache.get( "key" ).getVal() );
+
+        // and local updates after that are stamped above what was observed
+        final ICacheElement<String, Integer> local = new CacheElement<>( cacheName, "key", Integer.valueOf( 4 ), new ElementAttributes() );
+        cache.update( local );
+        assertTrue( "Clock should have observed the remote version", local.getElementAttributes().getVersion() > version + 1 );
+    }
+
+    /**
+     * Verify that an update from another node older than a remove of its key is dropped, and that
+     * a newer one is applied.
+     * <p>
+     * @throws IOException
+     */
+    public void testLocalUpdate_OlderThanRemoveRejected()
+        throws IOException
+    {
+        // SETUP
+        final String cacheName = "testLocalUpdate_OlderThanRemoveRejected";
+        final ICompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName(cacheName);
+        cattr.setMaxObjects( 100 );
+        cattr.setUseVersioning( true );
+
+        final CompositeCache<String, Integer> cache = new CompositeCache<>( cattr, new ElementAttributes() );
+
+        final ICacheElement<String, Integer> put = new CacheElement<>( cacheName, "key", Integer.valueOf( 1 ), new ElementAttributes() );
+        cache.update( put );
+        final long version = put.getElementAttributes().getVersion();
+        cache.localRemove( "key" );
+
+        // DO WORK
+        final IElementAttributes lateAttr = new ElementAttributes();
+        lateAttr.setVersion( version );
+        cache.localUpdate( new CacheElement<>( cacheName, "key", Integer.valueOf( 2 ), lateAttr ) );
+
+        // VERIFY
+        assertNull( "Update older than the remove should be dropped", cache.get( "key" ) );
+        assertEquals( "Wrong stale count", 1, cache.getStaleUpdateCount() );
+
+        // DO WORK
+        final IElementAttributes newerAttr = new ElementAttributes();
+        newerAttr.setVersion( (HybridLogicalClock.toMillis( version ) + 60000) << 16 );
+        cache.localUpdate( new CacheElement<>( cacheName, "key", Integer.valueOf( 3 ), newerAttr ) );
+
+        // VERIFY
+        assertEquals( "Update newer than the remove should be applied", Integer.valueOf( 3 ), cache.get( "key" ).getVal() );
+
+        // DO WORK
+        cache.localRemoveAll();
+        cache.localUpdate( new CacheElement<>( cacheName, "key", Integer.valueOf( 4 ), newerAttr ) );
+
+        // VERIFY
+        assertNull( "Update older than the remove all should be dropped", cache.get( "key" ) );
+    }
+
+    /**
+     * Verify that a put written after a remove is applied even if the clock of its node is behind
+     * the clock of the node that removed the key.
+     * <p>
+     * @throws IOException
+     */
+    public void testLocalUpdate_AfterRemoveWithSkewedClocks()
+        throws IOException
+    {
+        // SETUP
+        final String cacheName = "testLocalUpdate_AfterRemoveWithSkewedClocks";
+        final ICompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName(cacheName);
+        cattr.setMaxObjects( 100 );
+        cattr.setUseVersioning( true );
+
+        final CompositeCache<String, Integer> nodeA = new CompositeCache<>( cattr, new ElementAttributes() );
+        final CompositeCache<String, Integer> nodeB = new CompositeCache<>( cattr, new ElementAttributes() );
+
+        // the clock of B runs 5 ms ahead of the clock of A
+        final IElementAttributes aheadAttr = new ElementAttributes();
+        aheadAttr.setVersion( ( System.currentTimeMillis() + 5 ) << 16 );
+        nodeB.localUpdate( new CacheElement<>( cacheName, "other", Integer.valueOf( 0 ), aheadAttr ) );
+
+        final ICacheElement<String, Integer> first = new CacheElement<>( cacheName, "key", Integer.valueOf( 1 ), new ElementAttributes() );
+        nodeA.update( first );
+        nodeB.localUpdate( copyOf( first ) );
+
+        // DO WORK
+        nodeB.remove( "key" );
+        final ICacheElement<String, Integer> second = new CacheElement<>( cacheName, "key", Integer.valueOf( 2 ), new ElementAttributes() );
+        nodeA.update( second );
+        nodeB.localUpdate( copyOf( second ) );
+
+        // VERIFY
+        assertNotNull( "Put after the remove should be applied", nodeB.get( "key" ) );
+        assertEquals( "Wrong value", Integer.valueOf( 2 ), nodeB.get( "key" ).getVal() );
+        assertEquals( "Wrong stale count", 0, nodeB.getStaleUpdateCount() );
+
+        // DO WORK
+        nodeB.remove( "key" );
+        nodeB.localUpdate( copyOf( second ) );
+
+        // VERIFY
+        assertNull( "Late copy of the removed put should be dropped", nodeB.get( "key" ) );
+    }
+
+    /**
+     * @param ce an element
+     * @return a copy of the element carrying its version, as received from another node
+     */
+    private static ICacheElement<String, Integer> copyOf( final ICacheElement<String, Integer> ce )
+    {
+        final IElementAttributes attr = new ElementAttributes();
+        attr.setVersion( ce.getElementAttributes().getVersion() );
+        return new CacheElement<>( ce.getCacheName(), ce.getKey(), ce.getVal(), attr );
+    }
+
+    /**
+     * Verify that the element stream returns the elements in memory and on disk once, without
+     * counting hits or changing the memory cache.
+     * <p>
+     * @throws IOException
+     */
+    public void testGetElementStream()
+        throws IOException
+    {
+        // SETUP
+        final String cacheName = "testGetElementStream";
+        final ICompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName( cacheName );
+        cattr.setMemoryCacheName( "org.apache.commons.jcs3.engine.memory.lru.LRUMemoryCache" );
+        cattr.setMaxObjects( 10 );
+
+        final IElementAttributes attr = new ElementAttributes();
+        attr.setIsEternal( true );
+
+        final CompositeCache<String, Integer> cache = new CompositeCache<>( cattr, attr );
+
+        final IndexedDiskCacheAttributes dattr = new IndexedDiskCacheAttributes();
+        dattr.setCacheName( cacheName );
+        dattr.setDiskPath( "target/test-sandbox/CompositeCacheUnitTest" );
+        final IndexedDiskCache<String, Integer> disk = new IndexedDiskCache<>( dattr );
+        disk.removeAll();
+        cache.setAuxCaches( Arrays.asList( disk ) );
+
+        final int numToInsert = 100;
+        for ( int i = 0; i < numToInsert; i++ )
+        {
+            cache.update( new CacheElement<>( cacheName, String.valueOf( i ), Integer.valueOf( i ) ), false );
+        }
+        final Set<String> memoryKeys = cache.getMemoryCache().getKeySet();
+
+        // DO WORK
+        final List<String> keys = cache.getElementStream()
+                .map( ICacheElement::getKey )
+                .collect( Collectors.toList() );
+        final long sum = cache.getElementStream()
+                .parallel()
+                .mapToLong( ICacheElement::getVal )
+                .sum();
+
+        // VERIFY
+        assertEquals( "Wrong number of elements", numToInsert, keys.size() );
+        assertEquals( "Elements should be distinct", numToInsert, new HashSet<>( keys ).size() );
+        assertEquals( "Wrong sum", numToInsert * ( numToInsert - 1 ) / 2, sum );
+        assertEquals( "Should not count hits", 0, cache.getHitCountRam() + cache.getHitCountAux() );
+        assertEquals( "Should not change memory", memoryKeys, cache.getMemoryCache().getKeySet() );
+
+        cache.dispose();
+    }
+
+    /**
+     * Verify the latencies of the memory tier are in its statistics when enabled.
+     * <p>
+     * @throws IOException
+     */
+    public void testLatencyHistograms()
+        throws IOException
+    {
+        // SETUP
+        final ICompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName( "testLatencyHistograms" );
+        cattr.setMaxObjects( 100 );
+        cattr.setUseLatencyHistograms( true );
+        final CompositeCache<String, Integer> cache = new CompositeCache<>( cattr, new ElementAttributes() );
+
+        // DO WORK
+        for ( int i = 0; i < 10; i++ )
+        {
+            cache.update( new CacheElement<>( "testLatencyHistograms", "key" + i, Integer.valueOf( i ) ), false );
+        }
+        for ( int i = 0; i < 20; i++ )
+        {
+            cache.get( "key" + i );
+        }
+        cache.remove( "key0" );
+
+        // VERIFY
+        final IStats memoryStats = cache.getStatistics().getAuxiliaryCacheStats().get( 0 );
+        assertEquals( "Wrong put count", Long.valueOf( 10 ), statData( memoryStats, "Put Micros Count" ) );
+        assertEquals( "Wrong get count", Long.valueOf( 20 ), statData( memoryStats, "Get Micros Count" ) );
+        assertEquals( "Wrong remove count", Long.valueOf( 1 ), statData( memoryStats, "Remove Micros Count" ) );
+        assertNotNull( "Missing percentile", statData( memoryStats, "Get Micros p99" ) );
+
+        cache.dispose();
+    }
+
+    /**
+     * Verify no latency is recorded by default.
+     * <p>
+     * @throws IOException
+     */
+    public void testLatencyHistograms_Disabled()
+        throws IOException
+    {
+        // SETUP
+        final ICompositeCacheAttributes cattr = new CompositeCacheAttributes();
+        cattr.setCacheName( "testLatencyHistograms_Disabled" );
+        cattr.setMaxObjects( 100 );
+        final CompositeCache<String, Integer> cache = new CompositeCache<>( cattr, new ElementAttributes() );
+
+        // DO WORK
+        cache.update( new CacheElement<>( "testLatencyHistograms_Disabled", "key", Integer.valueOf( 1 ) ), false );
+        cache.get( "key" );
+
+        // VERIFY
+        final IStats memoryStats = cache.getStatistics().getAuxiliaryCacheStats().get( 0 );
+        assertNull( "Should not have latencies", statData( memoryStats, "Get Micros Count" ) );
+
+        cache.dispose();
+    }
+
+    /**
+     * @param stats the stats of a tier
+     * @param name the name of the element
+     * @return the data of the element, null if it is missing
+     */
+    private static Object statData( final IStats stats, final String name )
+    {
+        for ( final IStatElement<?> elem : stats.getStatElements() )
+        {
+            if ( name.equals( elem.getName() ) )
+            {
+                return elem.getData();
+            }
+        }
+        return null;
+    }
 }
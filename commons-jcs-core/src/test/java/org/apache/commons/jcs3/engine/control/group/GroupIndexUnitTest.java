@@ -0,0 +1,107 @@
+package org.apache.commons.jcs3.engine.control.group;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the group index.
+ */
+public class GroupIndexUnitTest
+    extends TestCase
+{
+    /** first group */
+    private final GroupId group1 = new GroupId( "region", "group1" );
+
+    /** second group */
+    private final GroupId group2 = new GroupId( "region", "group2" );
+
+    /**
+     * Verify only the group members are indexed and removals are reflected.
+     */
+    public void testAddRemove()
+    {
+        // SETUP
+        final GroupIndex<Object> index = new GroupIndex<>();
+
+        // DO WORK
+        index.add( new GroupAttrName<>( group1, "a" ) );
+        index.add( new GroupAttrName<>( group1, "b" ) );
+        index.add( new GroupAttrName<>( group1, "b" ) );
+        index.add( new GroupAttrName<>( group2, "a" ) );
+        index.add( "not a group key" );
+        index.remove( new GroupAttrName<>( group1, "a" ) );
+        index.remove( "not a group key" );
+
+        // VERIFY
+        final Set<Object> keys = index.getKeys( group1 );
+        assertEquals( "Wrong number of keys", 1, keys.size() );
+        assertTrue( "Missing key", keys.contains( new GroupAttrName<>( group1, "b" ) ) );
+        assertEquals( "Wrong key count", 2, index.getKeyCount() );
+        assertEquals( "Wrong group count", 2, index.getGroupCount() );
+    }
+
+    /**
+     * Verify a group is forgotten when its last key is removed.
+     */
+    public void testRemoveLastKey()
+    {
+        // SETUP
+        final GroupIndex<Object> index = new GroupIndex<>();
+        index.add( new GroupAttrName<>( group1, "a" ) );
+
+        // DO WORK
+        index.remove( new GroupAttrName<>( group1, "a" ) );
+
+        // VERIFY
+        assertTrue( "Should be empty", index.getKeys( group1 ).isEmpty() );
+        assertEquals( "Wrong group count", 0, index.getGroupCount() );
+        assertEquals( "Wrong estimate", 0, index.getEstimatedBytes() );
+    }
+
+    /**
+     * Verify removing a group returns its keys and leaves the others.
+     */
+    public void testRemoveGroup()
+    {
+        // SETUP
+        final GroupIndex<Object> index = new GroupIndex<>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            index.add( new GroupAttrName<>( group1, "key" + i ) );
+            index.add( new GroupAttrName<>( group2, "key" + i ) );
+        }
+
+        // DO WORK
+        final Set<Object> removed = index.removeGroup( group1 );
+
+        // VERIFY
+        assertEquals( "Wrong number removed", 10, removed.size() );
+        assertTrue( "Group should be gone", index.getKeys( group1 ).isEmpty() );
+        assertEquals( "Wrong key count", 10, index.getKeyCount() );
+        assertTrue( "Should have an estimate", index.getEstimatedBytes() > 0 );
+
+        index.clear();
+        assertEquals( "Wrong key count after clear", 0, index.getKeyCount() );
+        assertTrue( "Should have no group", index.getGroupIds().isEmpty() );
+    }
+}
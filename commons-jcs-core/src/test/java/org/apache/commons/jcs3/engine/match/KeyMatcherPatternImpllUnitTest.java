@@ -115,4 +115,53 @@ public class KeyMatcherPatternImpllUnitTest
         assertEquals( "Wrong number returned 1: " + result1, numToInsertPrefix1, result1.size() );
         assertEquals( "Wrong number returned 2: " + result2, numToInsertPrefix2, result2.size() );
     }
+
+    /**
+     * Verify the prefix shared by the keys matching a pattern.
+     */
+    public void testGetLiteralPrefix()
+    {
+        // SETUP
+        final KeyMatcherPatternImpl<String> keyMatcher = new KeyMatcherPatternImpl<>();
+
+        // DO WORK & VERIFY
+        assertEquals( "Plain text", "a:b:c", keyMatcher.getLiteralPrefix( "a:b:c" ) );
+        assertEquals( "Wildcard", "a:b:", keyMatcher.getLiteralPrefix( "a:b:.*" ) );
+        assertEquals( "Anchor", "a:b", keyMatcher.getLiteralPrefix( "^a:b\\d" ) );
+        assertEquals( "Escaped dot", "a.b", keyMatcher.getLiteralPrefix( "a\\.b.*" ) );
+        assertEquals( "Optional character", "ab", keyMatcher.getLiteralPrefix( "abc?" ) );
+        assertEquals( "Group alternation", "a:", keyMatcher.getLiteralPrefix( "a:(b|c)" ) );
+        assertEquals( "Top level alternation", "", keyMatcher.getLiteralPrefix( "a:b|c:d" ) );
+        assertEquals( "Quoted alternation", "a:", keyMatcher.getLiteralPrefix( "a:\\Qb|c\\E" ) );
+        assertEquals( "Character class", "", keyMatcher.getLiteralPrefix( "[ab]:c" ) );
+    }
+
+    /**
+     * Verify that the keys having the prefix of a pattern are the ones which can match it.
+     */
+    public void testGetLiteralPrefix_ConsistentWithMatches()
+    {
+        // SETUP
+        final Set<String> keyArray = new HashSet<>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            keyArray.add( "a:" + ( i % 5 ) + ":" + i );
+            keyArray.add( "b" + i );
+        }
+        final KeyMatcherPatternImpl<String> keyMatcher = new KeyMatcherPatternImpl<>();
+
+        for ( final String pattern : new String[] { "a:1:.*", "a:\\d:1\\d", "b1?\\d", "a:[12]:.*|b5", "b(1|2)" } )
+        {
+            // DO WORK
+            final String prefix = keyMatcher.getLiteralPrefix( pattern );
+            final Set<String> result = keyMatcher.getMatchingKeysFromArray( pattern, keyArray );
+
+            // VERIFY
+            assertFalse( "Pattern should match: " + pattern, result.isEmpty() );
+            for ( final String key : result )
+            {
+                assertTrue( key + " should start with " + prefix, key.startsWith( prefix ) );
+            }
+        }
+    }
 }
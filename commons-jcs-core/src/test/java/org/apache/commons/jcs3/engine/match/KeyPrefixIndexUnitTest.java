@@ -0,0 +1,103 @@
+package org.apache.commons.jcs3.engine.match;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the key prefix index.
+ */
+public class KeyPrefixIndexUnitTest
+    extends TestCase
+{
+    /**
+     * Verify the keys having a prefix are found and removals are reflected.
+     */
+    public void testGetKeysWithPrefix()
+    {
+        // SETUP
+        final KeyPrefixIndex<String> index = new KeyPrefixIndex<>();
+        for ( int i = 0; i < 20; i++ )
+        {
+            index.add( "a:" + ( i % 2 ) + ":" + i );
+        }
+        index.add( "a:0:0" );
+        index.add( "a" );
+        index.add( "b:0:1" );
+
+        // DO WORK
+        index.remove( "a:0:2" );
+        index.remove( "a:0:unknown" );
+        final Set<String> keys = index.getKeysWithPrefix( "a:0:" );
+
+        // VERIFY
+        assertEquals( "Wrong number of keys", 9, keys.size() );
+        assertFalse( "Removed key found", keys.contains( "a:0:2" ) );
+        assertTrue( "Missing key", keys.contains( "a:0:18" ) );
+        assertEquals( "Wrong number of keys", 20, index.getKeysWithPrefix( "a" ).size() );
+        assertTrue( "No key should match", index.getKeysWithPrefix( "c" ).isEmpty() );
+    }
+
+    /**
+     * Verify distinct keys having the same text are all indexed.
+     */
+    public void testSameText()
+    {
+        // SETUP
+        final KeyPrefixIndex<Object> index = new KeyPrefixIndex<>();
+        index.add( "1" );
+        index.add( Integer.valueOf( 1 ) );
+        index.add( Long.valueOf( 1 ) );
+
+        // DO WORK
+        index.remove( Long.valueOf( 1 ) );
+
+        // VERIFY
+        final Set<Object> keys = index.getKeysWithPrefix( "1" );
+        assertEquals( "Wrong number of keys", 2, keys.size() );
+        assertTrue( "Missing key", keys.contains( Integer.valueOf( 1 ) ) );
+        assertTrue( "Missing key", keys.contains( "1" ) );
+    }
+
+    /**
+     * Verify patterns are only answered from the index when they have a literal prefix.
+     */
+    public void testGetMatchingKeys()
+    {
+        // SETUP
+        final KeyPrefixIndex<String> index = new KeyPrefixIndex<>();
+        for ( int i = 0; i < 50; i++ )
+        {
+            index.add( "a:" + i );
+            index.add( "b:" + i );
+        }
+        final KeyMatcherPatternImpl<String> keyMatcher = new KeyMatcherPatternImpl<>();
+
+        // DO WORK
+        final Set<String> matches = index.getMatchingKeys( keyMatcher, "a:1\\d" );
+
+        // VERIFY
+        assertEquals( "Wrong number of matches", 10, matches.size() );
+        assertNull( "Should scan without a prefix", index.getMatchingKeys( keyMatcher, ".*:1" ) );
+        assertNull( "Should scan with a top level alternation", index.getMatchingKeys( keyMatcher, "a:1|b:1" ) );
+    }
+}
@@ -0,0 +1,128 @@
+package org.apache.commons.jcs3.engine.stats;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.jcs3.engine.stats.behavior.IStatElement;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the latency histogram.
+ */
+public class LatencyHistogramUnitTest
+    extends TestCase
+{
+    /**
+     * Verify the percentiles are within the precision of the buckets.
+     */
+    public void testPercentiles()
+    {
+        // SETUP
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        // DO WORK
+        for ( int i = 1; i <= 10000; i++ )
+        {
+            histogram.record( i );
+        }
+
+        // VERIFY
+        assertEquals( "Wrong count", 10000, histogram.getCount() );
+        assertEquals( "Wrong max", 10000, histogram.getMax() );
+        assertEquals( "Wrong mean", 5000.5, histogram.getMean(), 0.001 );
+        assertPercentile( 5000, histogram.getPercentile( 0.5 ) );
+        assertPercentile( 9900, histogram.getPercentile( 0.99 ) );
+        assertPercentile( 9990, histogram.getPercentile( 0.999 ) );
+        assertEquals( "The percentile should not exceed the max", 10000, histogram.getPercentile( 1 ) );
+    }
+
+    /**
+     * Verify small values are exact and negative values count as 0.
+     */
+    public void testSmallValues()
+    {
+        // SETUP
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        // DO WORK
+        histogram.record( -5 );
+        histogram.record( 3 );
+        histogram.record( 7 );
+
+        // VERIFY
+        assertEquals( "Wrong count", 3, histogram.getCount() );
+        assertEquals( "Wrong p0", 0, histogram.getPercentile( 0 ) );
+        assertEquals( "Wrong p50", 3, histogram.getPercentile( 0.5 ) );
+        assertEquals( "Wrong max", 7, histogram.getPercentile( 1 ) );
+    }
+
+    /**
+     * Verify reset forgets the values and an empty histogram reports 0.
+     */
+    public void testReset()
+    {
+        // SETUP
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record( 123456789L );
+
+        // DO WORK
+        histogram.reset();
+
+        // VERIFY
+        assertEquals( "Wrong count", 0, histogram.getCount() );
+        assertEquals( "Wrong max", 0, histogram.getMax() );
+        assertEquals( "Wrong mean", 0, histogram.getMean(), 0 );
+        assertEquals( "Wrong percentile", 0, histogram.getPercentile( 0.99 ) );
+    }
+
+    /**
+     * Verify the stat elements are named after the prefix.
+     */
+    public void testAddStatElements()
+    {
+        // SETUP
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record( 10 );
+        final List<IStatElement<?>> elems = new ArrayList<>();
+
+        // DO WORK
+        histogram.addStatElements( "Get Micros", elems );
+
+        // VERIFY
+        assertEquals( "Wrong number of elements", 5, elems.size() );
+        assertEquals( "Get Micros Count", elems.get( 0 ).getName() );
+        assertEquals( Long.valueOf( 1 ), elems.get( 0 ).getData() );
+        assertEquals( "Get Micros Max", elems.get( 4 ).getName() );
+        assertEquals( Long.valueOf( 10 ), elems.get( 4 ).getData() );
+    }
+
+    /**
+     * @param expected the exact percentile
+     * @param actual the reported one
+     */
+    private static void assertPercentile( final long expected, final long actual )
+    {
+        assertTrue( "Percentile " + actual + " too far from " + expected,
+                actual >= expected && actual <= expected * 1.125 );
+    }
+}
@@ -0,0 +1,167 @@
+package org.apache.commons.jcs3.utils.struct;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.commons.jcs3.engine.control.group.GroupAttrName;
+import org.apache.commons.jcs3.engine.control.group.GroupId;
+
+import junit.framework.TestCase;
+
+/** Unit tests for the Bloom filter. */
+public class BloomFilterUnitTest
+    extends TestCase
+{
+    /** verify that every added key is found. */
+    public void testMightContain_NoFalseNegatives()
+    {
+        // SETUP
+        final BloomFilter filter = new BloomFilter( 10000, 0.01 );
+
+        // DO WORK
+        for ( int i = 0; i < 10000; i++ )
+        {
+            filter.add( "key" + i );
+        }
+
+        // VERIFY
+        for ( int i = 0; i < 10000; i++ )
+        {
+            assertTrue( "Should contain key" + i, filter.mightContain( "key" + i ) );
+        }
+        assertFalse( "Should not be saturated", filter.isSaturated() );
+    }
+
+    /** verify that the false positive rate is close to the requested one. */
+    public void testMightContain_FalsePositiveRate()
+    {
+        // SETUP
+        final BloomFilter filter = new BloomFilter( 10000, 0.01 );
+        for ( int i = 0; i < 10000; i++ )
+        {
+            filter.add( "key" + i );
+        }
+
+        // DO WORK
+        int falsePositives = 0;
+        for ( int i = 0; i < 100000; i++ )
+        {
+            if ( filter.mightContain( "other" + i ) )
+            {
+                falsePositives++;
+            }
+        }
+
+        // VERIFY
+        assertTrue( "Too many false positives: " + falsePositives, falsePositives < 2000 );
+    }
+
+    /** verify that the filter is saturated past the expected number of keys. */
+    public void testIsSaturated()
+    {
+        // SETUP
+        final BloomFilter filter = new BloomFilter( 2, 0.01 );
+
+        // DO WORK
+        filter.add( Integer.valueOf( 1 ) );
+        filter.add( Integer.valueOf( 2 ) );
+        final boolean before = filter.isSaturated();
+        filter.add( Integer.valueOf( 3 ) );
+
+        // VERIFY
+        assertFalse( "Should not be saturated yet", before );
+        assertTrue( "Should be saturated", filter.isSaturated() );
+        assertEquals( "Wrong insertions", 3, filter.getInsertions() );
+    }
+
+    /**
+     * verify that a serialized filter answers like the original.
+     * @throws Exception
+     */
+    public void testSerialization()
+        throws Exception
+    {
+        // SETUP
+        final BloomFilter filter = new BloomFilter( 1000, 0.01 );
+        for ( int i = 0; i < 1000; i++ )
+        {
+            filter.add( "key" + i );
+        }
+
+        // DO WORK
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream( bytes ))
+        {
+            out.writeObject( filter );
+        }
+        final BloomFilter copy;
+        try (ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ))
+        {
+            copy = (BloomFilter) in.readObject();
+        }
+
+        // VERIFY
+        for ( int i = 0; i < 1000; i++ )
+        {
+            assertTrue( "Copy should contain key" + i, copy.mightContain( "key" + i ) );
+        }
+        for ( int i = 0; i < 1000; i++ )
+        {
+            assertEquals( "Copy should answer like the original", filter.mightContain( "other" + i ),
+                    copy.mightContain( "other" + i ) );
+        }
+    }
+
+    /** verify which keys may be checked against a filter built in another JVM. */
+    public void testHasPortableHashCode()
+    {
+        // SETUP
+        final GroupId groupId = new GroupId( "region", "group" );
+
+        // VERIFY
+        assertTrue( "Strings are portable", BloomFilter.hasPortableHashCode( "key" ) );
+        assertTrue( "Longs are portable", BloomFilter.hasPortableHashCode( Long.valueOf( 1 ) ) );
+        assertTrue( "Group attributes of strings are portable",
+                BloomFilter.hasPortableHashCode( new GroupAttrName<>( groupId, "attr" ) ) );
+        assertFalse( "Enums are not portable", BloomFilter.hasPortableHashCode( Thread.State.NEW ) );
+        assertFalse( "Objects are not portable", BloomFilter.hasPortableHashCode( new Object() ) );
+        assertFalse( "Group attributes of objects are not portable",
+                BloomFilter.hasPortableHashCode( new GroupAttrName<>( groupId, new Object() ) ) );
+    }
+
+    /** verify that a bad false positive rate is refused. */
+    public void testConstructor_BadRate()
+    {
+        try
+        {
+            // DO WORK
+            new BloomFilter( 10, 1.0 );
+            fail( "Should refuse a rate of 1" );
+        }
+        catch ( final IllegalArgumentException e )
+        {
+            // expected
+        }
+    }
+}
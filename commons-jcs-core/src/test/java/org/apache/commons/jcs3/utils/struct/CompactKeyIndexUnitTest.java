@@ -0,0 +1,242 @@
+package org.apache.commons.jcs3.utils.struct;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for the compact key index.
+ */
+public class CompactKeyIndexUnitTest
+    extends TestCase
+{
+    /**
+     * Put, replace and get entries, growing the table, on and off heap.
+     */
+    public void testPutGet()
+    {
+        for ( final boolean offHeap : new boolean[] { false, true } )
+        {
+            // SETUP
+            final CompactKeyIndex<String> index = new CompactKeyIndex<>( 0, offHeap, null );
+
+            // DO WORK
+            for ( int i = 0; i < 1000; i++ )
+            {
+                assertNull( "Should be new", index.put( "key:" + i, i * 10L, i ) );
+            }
+            final long[] previous = index.put( "key:5", 7L, 8 );
+
+            // VERIFY
+            assertEquals( "Wrong size", 1000, index.size() );
+            assertEquals( "Wrong previous position", 50L, previous[0] );
+            assertEquals( "Wrong position", 7L, index.getPosition( "key:5" ) );
+            assertEquals( "Wrong length", 8L, index.get( "key:5" )[1] );
+            for ( int i = 6; i < 1000; i++ )
+            {
+                final long[] entry = index.get( "key:" + i );
+                assertEquals( "Wrong position", i * 10L, entry[0] );
+                assertEquals( "Wrong length", i, entry[1] );
+            }
+            assertNull( "Should be missing", index.get( "missing" ) );
+            assertEquals( "Should be off heap " + offHeap, offHeap, index.getOffHeapBytes() > 0 );
+        }
+    }
+
+    /**
+     * Remove random entries and verify that the others are still found, which exercises the
+     * backward shift of the probe sequences.
+     */
+    public void testRemove()
+    {
+        // SETUP
+        final CompactKeyIndex<Integer> index = new CompactKeyIndex<>( 0, false, null );
+        final Map<Integer, Long> expected = new HashMap<>();
+        final Random random = new Random( 89 );
+
+        // DO WORK
+        for ( int i = 0; i < 20000; i++ )
+        {
+            final Integer key = Integer.valueOf( random.nextInt( 5000 ) );
+            if ( random.nextBoolean() )
+            {
+                index.put( key, i, 1 );
+                expected.put( key, Long.valueOf( i ) );
+            }
+            else
+            {
+                final long[] removed = index.remove( key );
+                final Long value = expected.remove( key );
+                assertEquals( "Wrong removal of " + key, value == null, removed == null );
+            }
+        }
+
+        // VERIFY
+        assertEquals( "Wrong size", expected.size(), index.size() );
+        for ( int i = 0; i < 5000; i++ )
+        {
+            final Long value = expected.get( Integer.valueOf( i ) );
+            assertEquals( "Wrong position for " + i, value == null ? -1 : value.longValue(),
+                    index.getPosition( Integer.valueOf( i ) ) );
+        }
+    }
+
+    /**
+     * Verify that the clock evicts an entry that was not read, and calls the listener.
+     */
+    public void testEvict()
+    {
+        // SETUP
+        final List<String> evicted = new ArrayList<>();
+        final CompactKeyIndex<String> index = new CompactKeyIndex<>( 10, false,
+                ( key, position, length ) -> evicted.add( key + "@" + position ) );
+        for ( int i = 0; i < 10; i++ )
+        {
+            index.put( "key:" + i, i, 1 );
+        }
+        // the puts marked every key, the first eviction clears the marks
+        index.evict();
+        final String target = "key:3@3".equals( evicted.get( 0 ) ) ? "key:4" : "key:3";
+        for ( int i = 0; i < 10; i++ )
+        {
+            if ( !target.equals( "key:" + i ) )
+            {
+                index.get( "key:" + i );
+            }
+        }
+
+        // DO WORK
+        final boolean result = index.evict();
+
+        // VERIFY
+        assertTrue( "Should have evicted", result );
+        assertEquals( "Wrong evicted entry", target + "@" + target.substring( 4 ), evicted.get( 1 ) );
+        assertEquals( "Wrong size", 8, index.size() );
+        assertFalse( "Should be gone", index.containsKey( target ) );
+    }
+
+    /**
+     * Verify that the eviction following a put does not pick the key just put.
+     */
+    public void testEvict_KeepsNewKey()
+    {
+        // SETUP
+        final CompactKeyIndex<String> index = new CompactKeyIndex<>( 10, false, null );
+        for ( int i = 0; i < 10; i++ )
+        {
+            index.put( "key:" + i, i, 1 );
+        }
+        index.evict();
+
+        // DO WORK
+        index.put( "new", 10, 1 );
+        index.evict();
+        final String updated = index.keys().stream().filter( key -> !"new".equals( key ) ).findFirst().get();
+        index.put( updated, 11, 1 );
+        index.evict();
+
+        // VERIFY
+        assertTrue( "The new key should be kept", index.containsKey( "new" ) );
+        assertTrue( "The updated key should be kept", index.containsKey( updated ) );
+        assertEquals( "Wrong size", 8, index.size() );
+    }
+
+    /**
+     * Verify that the footprint per entry is far below the one of a linked map.
+     */
+    public void testFootprint()
+    {
+        // SETUP
+        final CompactKeyIndex<Integer> index = new CompactKeyIndex<>( 100000, false, null );
+
+        // DO WORK
+        for ( int i = 0; i < 100000; i++ )
+        {
+            index.put( Integer.valueOf( i ), i, 1 );
+        }
+
+        // VERIFY
+        assertTrue( "Too many bytes per entry: " + index.getHeapBytes() / 100000,
+                index.getHeapBytes() / 100000 < 40 );
+        index.clear();
+        assertEquals( "Should be empty", 0, index.size() );
+        assertEquals( "Should have shrunk", 64, index.capacity() );
+    }
+
+    /**
+     * Verify that a table at its largest capacity evicts to make room instead of filling up, so
+     * that lookups of missing keys still end.
+     */
+    public void testPut_AtMaxCapacity()
+    {
+        // SETUP
+        final List<String> evicted = new ArrayList<>();
+        final CompactKeyIndex<String> index = new CompactKeyIndex<>( 0, false,
+                ( key, position, length ) -> evicted.add( key ), 64 );
+
+        // DO WORK
+        for ( int i = 0; i < 1000; i++ )
+        {
+            index.put( "key:" + i, i, 1 );
+        }
+
+        // VERIFY
+        assertEquals( "Should not grow", 64, index.capacity() );
+        assertEquals( "Should stay 3/4 full", 48, index.size() );
+        assertEquals( "Should call the listener for each eviction", 1000 - 48, evicted.size() );
+        assertTrue( "Should keep the last key", index.containsKey( "key:999" ) );
+        assertNull( "Should not find a missing key", index.get( "missing" ) );
+    }
+
+    /**
+     * Verify that the snapshot holds every entry and does not change with the index.
+     */
+    public void testSnapshot()
+    {
+        // SETUP
+        final CompactKeyIndex<String> index = new CompactKeyIndex<>( 0, true, null );
+        for ( int i = 0; i < 100; i++ )
+        {
+            index.put( "key:" + i, i * 10L, i );
+        }
+
+        // DO WORK
+        final CompactKeyIndex.Snapshot<String> snapshot = index.snapshot();
+        index.clear();
+
+        // VERIFY
+        assertEquals( "Wrong size", 100, snapshot.size() );
+        final Map<String, Long> positions = new HashMap<>();
+        for ( int i = 0; i < snapshot.size(); i++ )
+        {
+            final int n = Integer.parseInt( snapshot.getKey( i ).substring( 4 ) );
+            assertEquals( "Wrong length", n, snapshot.getLength( i ) );
+            positions.put( snapshot.getKey( i ), Long.valueOf( snapshot.getPosition( i ) ) );
+        }
+        assertEquals( "Should hold every key", 100, positions.size() );
+        assertEquals( "Wrong position", Long.valueOf( 420L ), positions.get( "key:42" ) );
+    }
+}
@@ -0,0 +1,104 @@
+package org.apache.commons.jcs3.utils.struct;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/** Unit tests for the consistent hash ring. */
+public class ConsistentHashRingUnitTest
+    extends TestCase
+{
+    /** verify that owners are distinct and limited by the ring size. */
+    public void testGetNodes_Distinct()
+    {
+        // SETUP
+        final ConsistentHashRing<String> ring = new ConsistentHashRing<>( Arrays.asList( "a:1", "b:1", "c:1" ), 64 );
+
+        // DO WORK
+        final List<String> two = ring.getNodes( "key", 2 );
+        final List<String> five = ring.getNodes( "key", 5 );
+
+        // VERIFY
+        assertEquals( "Wrong number of owners", 2, two.size() );
+        assertFalse( "Owners should be distinct", two.get( 0 ).equals( two.get( 1 ) ) );
+        assertEquals( "Should be capped by ring size", 3, five.size() );
+        assertEquals( "Primary should be stable", two.get( 0 ), five.get( 0 ) );
+    }
+
+    /** verify that keys spread over all nodes. */
+    public void testGetNodes_Distribution()
+    {
+        // SETUP
+        final ConsistentHashRing<String> ring = new ConsistentHashRing<>( Arrays.asList( "a:1", "b:1", "c:1", "d:1" ), 128 );
+        final Map<String, Integer> counts = new HashMap<>();
+        final int keys = 10000;
+
+        // DO WORK
+        for ( int i = 0; i < keys; i++ )
+        {
+            counts.merge( ring.getNodes( "key" + i, 1 ).get( 0 ), Integer.valueOf( 1 ), Integer::sum );
+        }
+
+        // VERIFY
+        assertEquals( "All nodes should own keys", 4, counts.size() );
+        for ( final Integer count : counts.values() )
+        {
+            assertTrue( "Distribution too uneven: " + counts, count.intValue() > keys / 8 );
+        }
+    }
+
+    /** verify that adding a node only moves keys to the new node. */
+    public void testWith_OnlyMovesToNewNode()
+    {
+        // SETUP
+        final ConsistentHashRing<String> ring = new ConsistentHashRing<>( Arrays.asList( "a:1", "b:1", "c:1" ), 128 );
+
+        // DO WORK
+        final ConsistentHashRing<String> bigger = ring.with( "d:1" );
+
+        // VERIFY
+        int moved = 0;
+        for ( int i = 0; i < 1000; i++ )
+        {
+            final String before = ring.getNodes( "key" + i, 1 ).get( 0 );
+            final String after = bigger.getNodes( "key" + i, 1 ).get( 0 );
+            if ( !before.equals( after ) )
+            {
+                assertEquals( "Keys should only move to the new node", "d:1", after );
+                moved++;
+            }
+        }
+        assertTrue( "Some keys should move", moved > 0 );
+        assertTrue( "Too many keys moved: " + moved, moved < 500 );
+        assertEquals( "Removing should restore the ring", ring.getNodes( "key1", 2 ), bigger.without( "d:1" ).getNodes( "key1", 2 ) );
+    }
+
+    /** verify that an empty ring has no owners. */
+    public void testGetNodes_Empty()
+    {
+        final ConsistentHashRing<String> ring = new ConsistentHashRing<>( Arrays.<String>asList(), 16 );
+        assertTrue( "Should have no owners", ring.getNodes( "key", 2 ).isEmpty() );
+    }
+}
@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 
 public class CompositeCacheLoader<K, V> implements CacheLoader<K, V>, Closeable, Factory<CacheLoader<K, V>>
@@ -57,23 +58,29 @@ public class CompositeCacheLoader<K, V> implements CacheLoader<K, V>, Closeable,
     @Override
     public Map<K, V> loadAll(final Iterable<? extends K> keys) throws CacheLoaderException
     {
-        final Collection<K> list = new ArrayList<>();
+        // each delegate gets the keys still missing in a single call
+        final Collection<K> remaining = new LinkedHashSet<>();
         for (final K k : keys)
         {
-            list.add(k);
+            remaining.add(k);
         }
 
         final Map<K, V> result = new HashMap<>();
         for (final CacheLoader<K, V> delegate : delegates)
         {
-            final Map<K, V> v = delegate.loadAll(list);
+            if (remaining.isEmpty())
+            {
+                break;
+            }
+            final Map<K, V> v = delegate.loadAll(new ArrayList<>(remaining));
             if (v != null)
             {
-                result.putAll(v);
-                list.removeAll(v.keySet());
-                if (list.isEmpty())
+                for (final Map.Entry<K, V> entry : v.entrySet())
                 {
-                    return v;
+                    if (entry.getValue() != null && remaining.remove(entry.getKey()))
+                    {
+                        result.put(entry.getKey(), entry.getValue());
+                    }
                 }
             }
         }
@@ -46,17 +46,37 @@ import java.util.Collection;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPOutputStream;
 
 import static java.util.Collections.list;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
 
+/**
+ * Caches the pages rendered by the filter chain.
+ * <p>
+ * With the streaming init parameter the response is sent to the client while it is rendered and
+ * a single gzipped copy is cached for all the clients, it is decompressed on the fly for the
+ * clients not accepting gzip. The cached pages have an ETag so If-None-Match requests get a 304
+ * and bodies bigger than off-heap-threshold bytes are kept out of the heap. Responses whose
+ * gzipped body goes above max-cacheable-size bytes are streamed to the client but not cached.
+ */
 public class JCacheFilter implements Filter
 {
+    private static final int DEFAULT_OFF_HEAP_THRESHOLD = 64 * 1024;
+    private static final long DEFAULT_MAX_CACHEABLE_SIZE = 16 * 1024 * 1024;
+
     private Cache<PageKey, Page> cache;
     private CachingProvider provider;
     private CacheManager manager;
+    private boolean streaming;
+    private int offHeapThreshold;
+    private long maxCacheableSize;
+    private final String etagPrefix = Long.toString(System.currentTimeMillis(), 36) + '-';
+    private final AtomicLong etagCounter = new AtomicLong();
 
     @Override
     public void init(final FilterConfig filterConfig) throws ServletException
@@ -80,6 +100,10 @@ public class JCacheFilter implements Filter
         }
         manager = provider.getCacheManager(URI.create(uri), classLoader, properties);
 
+        streaming = "true".equals(properties.getProperty("streaming", "false"));
+        offHeapThreshold = Integer.parseInt(properties.getProperty("off-heap-threshold", Integer.toString(DEFAULT_OFF_HEAP_THRESHOLD)));
+        maxCacheableSize = Long.parseLong(properties.getProperty("max-cacheable-size", Long.toString(DEFAULT_MAX_CACHEABLE_SIZE)));
+
         String cacheName = filterConfig.getInitParameter("cache-name");
         if (cacheName == null)
         {
@@ -114,22 +138,14 @@ public class JCacheFilter implements Filter
     @Override
     public void doFilter(final ServletRequest servletRequest, final ServletResponse servletResponse, final FilterChain filterChain) throws IOException, ServletException
     {
-        boolean gzip = false;
-        if (HttpServletRequest.class.isInstance(servletRequest))
-        {
-            final Enumeration<String> acceptEncoding = HttpServletRequest.class.cast(servletRequest).getHeaders("Accept-Encoding");
-            while (acceptEncoding != null && acceptEncoding.hasMoreElements())
-            {
-                if ("gzip".equals(acceptEncoding.nextElement()))
-                {
-                    gzip = true;
-                    break;
-                }
-            }
-        }
-
+        final boolean gzip = acceptsGzip(servletRequest);
         final HttpServletResponse httpServletResponse = HttpServletResponse.class.cast(servletResponse);
         checkResponse(httpServletResponse);
+        if (streaming)
+        {
+            doStreamingFilter(servletRequest, httpServletResponse, filterChain, gzip);
+            return;
+        }
 
         final PageKey key = new PageKey(key(servletRequest), gzip);
         Page page = cache.get(key);
@@ -179,24 +195,7 @@ public class JCacheFilter implements Filter
             {
                 httpServletResponse.addCookie(c);
             }
-            for (final Map.Entry<String, List<Serializable>> entry : page.headers.entrySet())
-            {
-                for (final Serializable value : entry.getValue())
-                {
-                    if (Integer.class.isInstance(value))
-                    {
-                        httpServletResponse.addIntHeader(entry.getKey(), Integer.class.cast(value));
-                    }
-                    else if (String.class.isInstance(value))
-                    {
-                        httpServletResponse.addHeader(entry.getKey(), String.class.cast(value));
-                    }
-                    else if (Long.class.isInstance(value))
-                    {
-                        httpServletResponse.addDateHeader(entry.getKey(), Long.class.cast(value));
-                    }
-                }
-            }
+            addHeaders(httpServletResponse, page, false);
             httpServletResponse.setContentLength(page.out.length);
             final BufferedOutputStream bos = new BufferedOutputStream(httpServletResponse.getOutputStream());
             if (page.out.length != 0)
@@ -211,6 +210,143 @@ public class JCacheFilter implements Filter
         }
     }
 
+    private void doStreamingFilter(final ServletRequest servletRequest, final HttpServletResponse httpServletResponse,
+                                   final FilterChain filterChain, final boolean gzip) throws IOException, ServletException
+    {
+        // a single entry per page, the gzipped one
+        final PageKey key = new PageKey(key(servletRequest), true);
+        final Page page = cache.get(key);
+        if (page == null)
+        {
+            final String etag = "W/\"" + etagPrefix + Long.toString(etagCounter.incrementAndGet(), 36) + '"';
+            final StreamingResponse response = new StreamingResponse(httpServletResponse, gzip, etag, offHeapThreshold, maxCacheableSize);
+            filterChain.doFilter(servletRequest, response);
+            final PageBody body = response.finish();
+            if (body != null)
+            {
+                cache.put(key, new Page(
+                        response.getStatus(),
+                        response.getContentType(),
+                        response.getCookies(),
+                        response.getHeaders(),
+                        etag,
+                        body));
+            }
+            return;
+        }
+
+        addHeaders(httpServletResponse, page, true);
+        httpServletResponse.setHeader("ETag", page.etag);
+        httpServletResponse.addHeader("Vary", "Accept-Encoding");
+        if (isNotModified(servletRequest, page.etag))
+        {
+            httpServletResponse.setStatus(SC_NOT_MODIFIED);
+            return;
+        }
+
+        httpServletResponse.setStatus(page.status);
+        if (page.contentType != null)
+        {
+            httpServletResponse.setContentType(page.contentType);
+        }
+        for (final Cookie c : page.cookies)
+        {
+            httpServletResponse.addCookie(c);
+        }
+        if (gzip)
+        {
+            httpServletResponse.setHeader("Content-Encoding", "gzip");
+            httpServletResponse.setContentLength(page.body.getLength());
+            page.body.writeTo(httpServletResponse.getOutputStream());
+        }
+        else
+        {
+            if (page.body.getIdentityLength() <= Integer.MAX_VALUE)
+            {
+                httpServletResponse.setContentLength((int) page.body.getIdentityLength());
+            }
+            page.body.writeIdentityTo(httpServletResponse.getOutputStream());
+        }
+        httpServletResponse.flushBuffer();
+    }
+
+    // streamed pages set the headers describing the body from the cached body itself
+    private void addHeaders(final HttpServletResponse httpServletResponse, final Page page, final boolean skipBodyHeaders)
+    {
+        for (final Map.Entry<String, List<Serializable>> entry : page.headers.entrySet())
+        {
+            final String name = entry.getKey();
+            if (skipBodyHeaders && ("Content-Length".equalsIgnoreCase(name)
+                    || "Content-Encoding".equalsIgnoreCase(name) || "ETag".equalsIgnoreCase(name)))
+            {
+                continue;
+            }
+            for (final Serializable value : entry.getValue())
+            {
+                if (Integer.class.isInstance(value))
+                {
+                    httpServletResponse.addIntHeader(name, Integer.class.cast(value));
+                }
+                else if (String.class.isInstance(value))
+                {
+                    httpServletResponse.addHeader(name, String.class.cast(value));
+                }
+                else if (Long.class.isInstance(value))
+                {
+                    httpServletResponse.addDateHeader(name, Long.class.cast(value));
+                }
+            }
+        }
+    }
+
+    private boolean isNotModified(final ServletRequest servletRequest, final String etag)
+    {
+        if (!HttpServletRequest.class.isInstance(servletRequest))
+        {
+            return false;
+        }
+        final Enumeration<String> ifNoneMatch = HttpServletRequest.class.cast(servletRequest).getHeaders("If-None-Match");
+        final String opaqueTag = opaqueTag(etag);
+        while (ifNoneMatch != null && ifNoneMatch.hasMoreElements())
+        {
+            for (final String tag : ifNoneMatch.nextElement().split(","))
+            {
+                final String trimmed = tag.trim();
+                if ("*".equals(trimmed) || opaqueTag.equals(opaqueTag(trimmed)))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // If-None-Match uses the weak comparison
+    private static String opaqueTag(final String etag)
+    {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static boolean acceptsGzip(final ServletRequest servletRequest)
+    {
+        if (HttpServletRequest.class.isInstance(servletRequest))
+        {
+            final Enumeration<String> acceptEncoding = HttpServletRequest.class.cast(servletRequest).getHeaders("Accept-Encoding");
+            while (acceptEncoding != null && acceptEncoding.hasMoreElements())
+            {
+                for (final String coding : acceptEncoding.nextElement().split(","))
+                {
+                    final int parameters = coding.indexOf(';');
+                    if ("gzip".equalsIgnoreCase((parameters < 0 ? coding : coding.substring(0, parameters)).trim()))
+                    {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
     protected String key(final ServletRequest servletRequest)
     {
         if (HttpServletRequest.class.isInstance(servletRequest))
@@ -290,6 +426,8 @@ public class JCacheFilter implements Filter
         private final Collection<Cookie> cookies;
         private final Map<String, List<Serializable>> headers;
         private final byte[] out;
+        private final String etag;
+        private final PageBody body;
 
         public Page(final int status,
                     final String contentType, final int contentLength,
@@ -302,6 +440,22 @@ public class JCacheFilter implements Filter
             this.cookies = cookies;
             this.headers = headers;
             this.out = out;
+            this.etag = null;
+            this.body = null;
+        }
+
+        public Page(final int status, final String contentType,
+                    final Collection<Cookie> cookies, final Map<String, List<Serializable>> headers,
+                    final String etag, final PageBody body)
+        {
+            this.status = status;
+            this.contentType = contentType;
+            this.contentLength = 0;
+            this.cookies = cookies;
+            this.headers = headers;
+            this.out = null;
+            this.etag = etag;
+            this.body = body;
         }
 
         @Override
@@ -322,7 +476,9 @@ public class JCacheFilter implements Filter
                     && !(contentType != null ? !contentType.equals(page.contentType) : page.contentType != null)
                     && cookies.equals(page.cookies)
                     && headers.equals(page.headers)
-                    && Arrays.equals(out, page.out);
+                    && Arrays.equals(out, page.out)
+                    && Objects.equals(etag, page.etag)
+                    && Objects.equals(body, page.body);
 
         }
 
@@ -335,6 +491,8 @@ public class JCacheFilter implements Filter
             result = 31 * result + cookies.hashCode();
             result = 31 * result + headers.hashCode();
             result = 31 * result + Arrays.hashCode(out);
+            result = 31 * result + Objects.hashCode(etag);
+            result = 31 * result + Objects.hashCode(body);
             return result;
         }
     }
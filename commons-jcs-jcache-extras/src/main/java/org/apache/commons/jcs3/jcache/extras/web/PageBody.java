@@ -0,0 +1,409 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.commons.jcs3.jcache.extras.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The gzipped body of a cached page. Bodies above a threshold are kept in direct buffers, out of
+ * the heap, the memory is released when the page is garbage collected.
+ * A serialized body is read back in the heap.
+ */
+public class PageBody implements Serializable
+{
+    private static final int COPY_SIZE = 8192;
+
+    private final long identityLength;
+    private transient ByteBuffer[] content;
+
+    private PageBody(final ByteBuffer[] content, final long identityLength)
+    {
+        this.content = content;
+        this.identityLength = identityLength;
+    }
+
+    /**
+     * @return the size of the gzipped body.
+     */
+    public int getLength()
+    {
+        int length = 0;
+        for (final ByteBuffer buffer : content)
+        {
+            length += buffer.limit();
+        }
+        return length;
+    }
+
+    /**
+     * @return the size of the body once decompressed.
+     */
+    public long getIdentityLength()
+    {
+        return identityLength;
+    }
+
+    public boolean isOffHeap()
+    {
+        return content.length > 0 && content[0].isDirect();
+    }
+
+    /**
+     * Writes the gzipped body.
+     */
+    public void writeTo(final OutputStream out) throws IOException
+    {
+        byte[] chunk = null;
+        for (final ByteBuffer buffer : content)
+        {
+            if (buffer.hasArray())
+            {
+                out.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+                continue;
+            }
+            final ByteBuffer source = buffer.duplicate();
+            if (chunk == null)
+            {
+                chunk = new byte[COPY_SIZE];
+            }
+            while (source.hasRemaining())
+            {
+                final int length = Math.min(chunk.length, source.remaining());
+                source.get(chunk, 0, length);
+                out.write(chunk, 0, length);
+            }
+        }
+    }
+
+    /**
+     * Writes the decompressed body.
+     */
+    public void writeIdentityTo(final OutputStream out) throws IOException
+    {
+        try (final InputStream in = new GZIPInputStream(new ByteBufferInputStream(content), COPY_SIZE))
+        {
+            final byte[] chunk = new byte[COPY_SIZE];
+            int length;
+            while ((length = in.read(chunk)) >= 0)
+            {
+                out.write(chunk, 0, length);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass())
+        {
+            return false;
+        }
+
+        final PageBody other = PageBody.class.cast(o);
+        if (identityLength != other.identityLength || getLength() != other.getLength())
+        {
+            return false;
+        }
+        // the bodies may be split differently
+        final ByteBufferInputStream in = new ByteBufferInputStream(content);
+        final ByteBufferInputStream otherIn = new ByteBufferInputStream(other.content);
+        int b;
+        while ((b = in.read()) >= 0)
+        {
+            if (b != otherIn.read())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(identityLength, getLength());
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException
+    {
+        out.defaultWriteObject();
+        out.writeInt(getLength());
+        writeTo(out);
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        content = new ByteBuffer[] { ByteBuffer.wrap(bytes) };
+    }
+
+    /**
+     * Collects the gzipped bytes of a page while they are sent to the client, in chunks so the
+     * growth never copies what was already written. Once the body is above the off heap threshold
+     * the chunks are direct buffers, and once it is above the maximum size nothing more is kept.
+     */
+    public static class Capture extends OutputStream
+    {
+        private static final int FIRST_CHUNK = 4096;
+        private static final int MAX_CHUNK = 1024 * 1024;
+
+        private final int offHeapThreshold;
+        private final long maxSize;
+        private final List<byte[]> chunks = new ArrayList<>();
+        private byte[] current = new byte[FIRST_CHUNK];
+        private int position;
+        private final List<ByteBuffer> buffers = new ArrayList<>();
+        private ByteBuffer buffer;
+        private long size;
+        private boolean overflowed;
+
+        /**
+         * @param offHeapThreshold above this size the body is written out of the heap.
+         * @param maxSize above this size the body is not kept.
+         */
+        public Capture(final int offHeapThreshold, final long maxSize)
+        {
+            this.offHeapThreshold = offHeapThreshold;
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public void write(final int b)
+        {
+            if (reserve(1))
+            {
+                if (buffer != null)
+                {
+                    if (!buffer.hasRemaining())
+                    {
+                        nextBuffer();
+                    }
+                    buffer.put((byte) b);
+                    return;
+                }
+                if (position == current.length)
+                {
+                    nextChunk();
+                }
+                current[position++] = (byte) b;
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len)
+        {
+            if (!reserve(len))
+            {
+                return;
+            }
+            int offset = off;
+            int remaining = len;
+            while (remaining > 0)
+            {
+                final int length;
+                if (buffer != null)
+                {
+                    if (!buffer.hasRemaining())
+                    {
+                        nextBuffer();
+                    }
+                    length = Math.min(remaining, buffer.remaining());
+                    buffer.put(b, offset, length);
+                }
+                else
+                {
+                    if (position == current.length)
+                    {
+                        nextChunk();
+                    }
+                    length = Math.min(remaining, current.length - position);
+                    System.arraycopy(b, offset, current, position, length);
+                    position += length;
+                }
+                offset += length;
+                remaining -= length;
+            }
+        }
+
+        public long size()
+        {
+            return size;
+        }
+
+        /**
+         * @return whether the body went above the maximum size and was dropped.
+         */
+        public boolean isOverflowed()
+        {
+            return overflowed;
+        }
+
+        /**
+         * @param identityLength the size of the body before compression.
+         * @return the body or null if it is too big.
+         */
+        public PageBody toBody(final long identityLength)
+        {
+            if (overflowed)
+            {
+                return null;
+            }
+            if (buffer == null)
+            {
+                final ByteBuffer content = ByteBuffer.allocate((int) size);
+                for (final byte[] chunk : chunks)
+                {
+                    content.put(chunk);
+                }
+                content.put(current, 0, position);
+                content.flip();
+                return new PageBody(new ByteBuffer[] { content }, identityLength);
+            }
+
+            buffer.flip();
+            if (buffer.limit() < buffer.capacity() / 2)
+            {
+                // don't keep the unused half of the last chunk
+                final ByteBuffer last = ByteBuffer.allocateDirect(buffer.limit());
+                last.put(buffer).flip();
+                buffer = last;
+            }
+            buffers.add(buffer);
+            return new PageBody(buffers.toArray(new ByteBuffer[0]), identityLength);
+        }
+
+        // counts the bytes, moves them out of the heap or drops them when a limit is crossed
+        private boolean reserve(final int length)
+        {
+            if (overflowed)
+            {
+                return false;
+            }
+            if (size + length > maxSize)
+            {
+                overflowed = true;
+                chunks.clear();
+                current = null;
+                buffers.clear();
+                buffer = null;
+                return false;
+            }
+            if (buffer == null && size + length > offHeapThreshold)
+            {
+                moveOffHeap();
+            }
+            size += length;
+            return true;
+        }
+
+        private void moveOffHeap()
+        {
+            buffer = ByteBuffer.allocateDirect((int) Math.min(MAX_CHUNK, Math.max(FIRST_CHUNK, size * 2)));
+            for (final byte[] chunk : chunks)
+            {
+                buffer.put(chunk);
+            }
+            buffer.put(current, 0, position);
+            chunks.clear();
+            current = null;
+        }
+
+        private void nextChunk()
+        {
+            chunks.add(current);
+            current = new byte[Math.min(MAX_CHUNK, current.length * 2)];
+            position = 0;
+        }
+
+        private void nextBuffer()
+        {
+            buffer.flip();
+            buffers.add(buffer);
+            buffer = ByteBuffer.allocateDirect(Math.min(MAX_CHUNK, buffer.capacity() * 2));
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream
+    {
+        private final ByteBuffer[] buffers;
+        private int index;
+        private ByteBuffer buffer;
+
+        private ByteBufferInputStream(final ByteBuffer[] buffers)
+        {
+            this.buffers = buffers;
+            this.buffer = buffers.length == 0 ? null : buffers[0].duplicate();
+        }
+
+        // moves to the next buffer holding data, false at the end
+        private boolean hasRemaining()
+        {
+            while (buffer != null && !buffer.hasRemaining())
+            {
+                index++;
+                buffer = index < buffers.length ? buffers[index].duplicate() : null;
+            }
+            return buffer != null;
+        }
+
+        @Override
+        public int read()
+        {
+            return hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (!hasRemaining())
+            {
+                return -1;
+            }
+            final int length = Math.min(len, buffer.remaining());
+            buffer.get(b, off, length);
+            return length;
+        }
+
+        @Override
+        public int available()
+        {
+            return buffer == null ? 0 : buffer.remaining();
+        }
+    }
+}
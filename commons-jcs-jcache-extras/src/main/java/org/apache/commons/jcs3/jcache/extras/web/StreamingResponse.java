@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.commons.jcs3.jcache.extras.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Response sending the body to the client while it is written and keeping a gzipped copy of it
+ * for the cache. The body is compressed once: gzip clients get the very bytes which are cached.
+ * Only SC_OK responses which are not already encoded by the application are captured, the others
+ * go to the client untouched.
+ */
+class StreamingResponse extends InMemoryResponse
+{
+    private static final String CONTENT_LENGTH = "Content-Length";
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    private final HttpServletResponse delegate;
+    private final boolean gzip;
+    private final String etag;
+    private final int offHeapThreshold;
+    private final long maxCacheableSize;
+    private final TeeOutputStream tee;
+    private ServletOutputStream outputStream;
+
+    StreamingResponse(final HttpServletResponse response, final boolean gzip, final String etag, final int offHeapThreshold,
+                      final long maxCacheableSize)
+    {
+        this(response, gzip, etag, offHeapThreshold, maxCacheableSize, new TeeOutputStream());
+    }
+
+    private StreamingResponse(final HttpServletResponse response, final boolean gzip, final String etag,
+                              final int offHeapThreshold, final long maxCacheableSize, final TeeOutputStream tee)
+    {
+        super(response, tee);
+        this.delegate = response;
+        this.gzip = gzip;
+        this.etag = etag;
+        this.offHeapThreshold = offHeapThreshold;
+        this.maxCacheableSize = maxCacheableSize;
+        this.tee = tee;
+        tee.response = this;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream()
+    {
+        if (outputStream == null)
+        {
+            outputStream = new ServletOutputStream()
+            {
+                @Override
+                public void write(final int b) throws IOException
+                {
+                    tee.write(b);
+                }
+
+                @Override
+                public void write(final byte[] b, final int off, final int len) throws IOException
+                {
+                    tee.write(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException
+                {
+                    tee.flush();
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    // the length of the body is not the one sent to gzip clients
+
+    @Override
+    public void setContentLength(final int i)
+    {
+        if (!gzip)
+        {
+            super.setContentLength(i);
+        }
+    }
+
+    @Override
+    public void setHeader(final String s, final String s2)
+    {
+        if (!gzip || !CONTENT_LENGTH.equalsIgnoreCase(s))
+        {
+            super.setHeader(s, s2);
+        }
+    }
+
+    @Override
+    public void addHeader(final String s, final String s2)
+    {
+        if (!gzip || !CONTENT_LENGTH.equalsIgnoreCase(s))
+        {
+            super.addHeader(s, s2);
+        }
+    }
+
+    @Override
+    public void setIntHeader(final String s, final int i)
+    {
+        if (!gzip || !CONTENT_LENGTH.equalsIgnoreCase(s))
+        {
+            super.setIntHeader(s, i);
+        }
+    }
+
+    @Override
+    public void addIntHeader(final String s, final int i)
+    {
+        if (!gzip || !CONTENT_LENGTH.equalsIgnoreCase(s))
+        {
+            super.addIntHeader(s, i);
+        }
+    }
+
+    /**
+     * Ends the body, to call once the chain returned.
+     *
+     * @return the cached copy of the body, null if the response can't be cached.
+     */
+    PageBody finish() throws IOException
+    {
+        flushBuffer();
+        return tee.finish();
+    }
+
+    private static class TeeOutputStream extends OutputStream
+    {
+        private StreamingResponse response;
+        private OutputStream sink;
+        private GZIPOutputStream compressor;
+        private PageBody.Capture capture;
+        private long identityLength;
+
+        @Override
+        public void write(final int b) throws IOException
+        {
+            if (sink == null)
+            {
+                start();
+            }
+            sink.write(b);
+            identityLength++;
+            if (capture != null && capture.isOverflowed())
+            {
+                stopCapture();
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException
+        {
+            if (sink == null)
+            {
+                start();
+            }
+            sink.write(b, off, len);
+            identityLength += len;
+            if (capture != null && capture.isOverflowed())
+            {
+                stopCapture();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            if (sink != null)
+            {
+                sink.flush();
+            }
+        }
+
+        // headers can't change once the body is sent so what to do with it is decided on the first byte
+        private void start() throws IOException
+        {
+            final HttpServletResponse delegate = response.delegate;
+            final OutputStream client = delegate.getOutputStream();
+            if (response.getStatus() != SC_OK || response.containsHeader(CONTENT_ENCODING))
+            {
+                sink = client;
+                return;
+            }
+
+            capture = new PageBody.Capture(response.offHeapThreshold, response.maxCacheableSize);
+            delegate.setHeader("ETag", response.etag);
+            delegate.addHeader("Vary", "Accept-Encoding");
+            if (response.gzip)
+            {
+                delegate.setHeader(CONTENT_ENCODING, "gzip");
+                compressor = new GZIPOutputStream(new SplitOutputStream(client, capture));
+                sink = compressor;
+            }
+            else
+            {
+                compressor = new GZIPOutputStream(capture);
+                sink = new SplitOutputStream(client, compressor);
+            }
+        }
+
+        // the body is too big to be cached, the rest is sent as is to the client
+        private void stopCapture() throws IOException
+        {
+            if (!response.gzip && compressor != null)
+            {
+                // releases the deflater, the capture ignores what is left
+                compressor.close();
+                compressor = null;
+                sink = response.delegate.getOutputStream();
+            }
+        }
+
+        private PageBody finish() throws IOException
+        {
+            if (sink == null)
+            {
+                if (response.getStatus() != SC_OK)
+                {
+                    return null;
+                }
+                start();
+            }
+            if (compressor == null)
+            {
+                return null;
+            }
+            compressor.finish();
+            sink.flush();
+            if (response.getStatus() != SC_OK)
+            {
+                return null;
+            }
+            return capture.toBody(identityLength);
+        }
+    }
+
+    private static class SplitOutputStream extends OutputStream
+    {
+        private final OutputStream first;
+        private final OutputStream second;
+
+        private SplitOutputStream(final OutputStream first, final OutputStream second)
+        {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void write(final int b) throws IOException
+        {
+            first.write(b);
+            second.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException
+        {
+            first.write(b, off, len);
+            second.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            first.flush();
+            second.flush();
+        }
+    }
+}
@@ -0,0 +1,423 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.commons.jcs3.jcache.extras.writer;
+
+import javax.cache.Cache;
+import javax.cache.configuration.Factory;
+import javax.cache.integration.CacheWriter;
+import javax.cache.integration.CacheWriterException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Buffers the writes and deletes and applies them to the delegate from a single thread with
+ * writeAll/deleteAll, once batchSize keys are pending or flushInterval elapsed.
+ * Only the last operation of a key is kept, a key is in at most one batch at a time so the
+ * delegate sees the operations of a key in order. Callers block while maxPending keys are buffered.
+ * <p>
+ * When writeAll or deleteAll fails, the entries left in the collection passed to it (the JCache
+ * contract removes the ones which succeeded) go back to the buffer for the next flush, unless the
+ * key got a newer operation meanwhile. An operation failing more than maxRetries times in a row is
+ * dropped and counted by {@link #getDroppedCount()}.
+ * <p>
+ * The flushing thread is started by the first operation. Interrupting it closes the writer: the
+ * pending operations are flushed and the callers get a CacheWriterException.
+ */
+public class WriteBehindCacheWriter<K, V> implements CacheWriter<K, V>, Closeable, Factory<CacheWriter<K, V>>
+{
+    private static final Logger LOGGER = Logger.getLogger(WriteBehindCacheWriter.class.getName());
+
+    private final CacheWriter<K, V> writer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int maxPending;
+    private final int maxRetries;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    // a null value is a delete
+    private Map<Object, Cache.Entry<? extends K, ? extends V>> pending = new LinkedHashMap<>();
+    // failed attempts of the pending operations which were requeued, guarded by lock
+    private final Map<Object, Integer> retries = new HashMap<>();
+    private volatile boolean closed;
+    // started by the first operation, guarded by lock
+    private Thread flusher;
+
+    private final AtomicLong operations = new AtomicLong();
+    private final AtomicLong flushedOperations = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public WriteBehindCacheWriter(final CacheWriter<K, V> delegate, final int batchSize, final long flushInterval,
+                                  final TimeUnit unit, final int maxPending)
+    {
+        this(delegate, batchSize, flushInterval, unit, maxPending, 3);
+    }
+
+    public WriteBehindCacheWriter(final CacheWriter<K, V> delegate, final int batchSize, final long flushInterval,
+                                  final TimeUnit unit, final int maxPending, final int maxRetries)
+    {
+        if (batchSize <= 0 || maxPending < batchSize || maxRetries < 0)
+        {
+            throw new IllegalArgumentException("batchSize should be positive, maxPending at least batchSize and maxRetries not negative");
+        }
+        this.writer = delegate;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = unit.toNanos(flushInterval);
+        this.maxPending = maxPending;
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public void write(final Cache.Entry<? extends K, ? extends V> entry) throws CacheWriterException
+    {
+        enqueue(entry.getKey(), entry);
+    }
+
+    @Override
+    public void writeAll(final Collection<Cache.Entry<? extends K, ? extends V>> entries) throws CacheWriterException
+    {
+        for (final Cache.Entry<? extends K, ? extends V> entry : entries)
+        {
+            enqueue(entry.getKey(), entry);
+        }
+    }
+
+    @Override
+    public void delete(final Object key) throws CacheWriterException
+    {
+        enqueue(key, null);
+    }
+
+    @Override
+    public void deleteAll(final Collection<?> keys) throws CacheWriterException
+    {
+        for (final Object key : keys)
+        {
+            enqueue(key, null);
+        }
+    }
+
+    private void enqueue(final Object key, final Cache.Entry<? extends K, ? extends V> entry)
+    {
+        lock.lock();
+        try
+        {
+            if (closed)
+            {
+                throw new CacheWriterException("writer closed");
+            }
+            if (flusher == null)
+            {
+                flusher = new Thread(this::flushLoop, writer.getClass().getName() + "-" + writer.hashCode() + "-write-behind");
+                flusher.setDaemon(true);
+                flusher.start();
+            }
+            // coalescing with a pending operation doesn't need room
+            while (pending.size() >= maxPending && !pending.containsKey(key))
+            {
+                flushNeeded.signal();
+                notFull.await();
+                if (closed)
+                {
+                    throw new CacheWriterException("writer closed");
+                }
+            }
+            pending.put(key, entry);
+            // a new operation starts with its own retries
+            retries.remove(key);
+            operations.incrementAndGet();
+            if (pending.size() >= batchSize)
+            {
+                flushNeeded.signal();
+            }
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new CacheWriterException(e);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop()
+    {
+        boolean interrupted = false;
+        while (true)
+        {
+            final Map<Object, Cache.Entry<? extends K, ? extends V>> batch;
+            lock.lock();
+            try
+            {
+                long wait = flushIntervalNanos;
+                while (!closed && pending.size() < batchSize && wait > 0)
+                {
+                    try
+                    {
+                        wait = flushNeeded.awaitNanos(wait);
+                    }
+                    catch (final InterruptedException e)
+                    {
+                        // closes the writer, the blocked callers fail and what is pending is still flushed
+                        LOGGER.warning("Write behind thread interrupted, closing the writer");
+                        interrupted = true;
+                        closed = true;
+                        notFull.signalAll();
+                    }
+                }
+                if (closed && pending.isEmpty())
+                {
+                    if (interrupted)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    return;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                notFull.signalAll();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+            if (!batch.isEmpty())
+            {
+                flush(batch);
+            }
+        }
+    }
+
+    private void flush(final Map<Object, Cache.Entry<? extends K, ? extends V>> batch)
+    {
+        final long start = System.nanoTime();
+        final List<Cache.Entry<? extends K, ? extends V>> writes = new ArrayList<>(batch.size());
+        final List<Object> deletes = new ArrayList<>();
+        for (final Map.Entry<Object, Cache.Entry<? extends K, ? extends V>> op : batch.entrySet())
+        {
+            if (op.getValue() == null)
+            {
+                deletes.add(op.getKey());
+            }
+            else
+            {
+                writes.add(op.getValue());
+            }
+        }
+        // a key is only once in a batch so both calls are independent
+        List<Cache.Entry<? extends K, ? extends V>> failedWrites = Collections.emptyList();
+        try
+        {
+            if (!writes.isEmpty())
+            {
+                writer.writeAll(writes);
+            }
+        }
+        catch (final Exception e)
+        {
+            failures.incrementAndGet();
+            LOGGER.log(Level.SEVERE, e.getMessage(), e);
+            failedWrites = writes;
+        }
+        List<Object> failedDeletes = Collections.emptyList();
+        try
+        {
+            if (!deletes.isEmpty())
+            {
+                writer.deleteAll(deletes);
+            }
+        }
+        catch (final Exception e)
+        {
+            failures.incrementAndGet();
+            LOGGER.log(Level.SEVERE, e.getMessage(), e);
+            failedDeletes = deletes;
+        }
+        final int requeued = requeue(batch, failedWrites, failedDeletes);
+        flushedOperations.addAndGet(batch.size() - requeued);
+        flushes.incrementAndGet();
+        flushNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    /**
+     * Puts the failed operations back in the buffer, after the ones received during the flush
+     * and without overwriting them.
+     *
+     * @return the number of operations put back.
+     */
+    private int requeue(final Map<Object, Cache.Entry<? extends K, ? extends V>> batch,
+                        final List<Cache.Entry<? extends K, ? extends V>> failedWrites, final List<Object> failedDeletes)
+    {
+        lock.lock();
+        try
+        {
+            int requeued = 0;
+            for (final Cache.Entry<? extends K, ? extends V> entry : failedWrites)
+            {
+                requeued += requeue(entry.getKey(), entry);
+            }
+            for (final Object key : failedDeletes)
+            {
+                requeued += requeue(key, null);
+            }
+            // what is not pending anymore succeeded or was dropped
+            for (final Object key : batch.keySet())
+            {
+                if (!pending.containsKey(key))
+                {
+                    retries.remove(key);
+                }
+            }
+            return requeued;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private int requeue(final Object key, final Cache.Entry<? extends K, ? extends V> entry)
+    {
+        if (pending.containsKey(key))
+        {
+            return 0; // superseded by a newer operation
+        }
+        final int attempts = retries.merge(key, 1, Integer::sum);
+        if (attempts > maxRetries)
+        {
+            retries.remove(key);
+            dropped.incrementAndGet();
+            LOGGER.severe("Dropping the " + (entry == null ? "delete" : "write") + " of " + key + " after " + attempts + " failures");
+            return 0;
+        }
+        pending.put(key, entry);
+        return 1;
+    }
+
+    /**
+     * @return the number of keys waiting to be flushed.
+     */
+    public int getQueueDepth()
+    {
+        lock.lock();
+        try
+        {
+            return pending.size();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the average duration of a flush in milliseconds.
+     */
+    public double getAverageFlushLatencyMillis()
+    {
+        final long count = flushes.get();
+        return count == 0 ? 0 : flushNanos.get() / (count * 1000000.);
+    }
+
+    /**
+     * @return received operations per operation passed to the delegate, 1 means nothing was coalesced.
+     */
+    public double getCoalescingRatio()
+    {
+        final long flushed = flushedOperations.get();
+        return flushed == 0 ? 1 : operations.get() / (double) flushed;
+    }
+
+    public long getFlushCount()
+    {
+        return flushes.get();
+    }
+
+    public long getFailureCount()
+    {
+        return failures.get();
+    }
+
+    /**
+     * @return the number of operations given up after maxRetries failed retries.
+     */
+    public long getDroppedCount()
+    {
+        return dropped.get();
+    }
+
+    /**
+     * Flushes what is pending and stops the flushing thread.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        final Thread thread;
+        lock.lock();
+        try
+        {
+            closed = true;
+            flushNeeded.signal();
+            notFull.signalAll();
+            thread = flusher;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        if (thread == null)
+        {
+            return; // nothing was written
+        }
+        try
+        {
+            thread.join();
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public CacheWriter<K, V> create()
+    {
+        return this;
+    }
+}
@@ -26,8 +26,12 @@ import javax.cache.Cache;
 import javax.cache.configuration.Configuration;
 import javax.cache.configuration.MutableConfiguration;
 import javax.cache.integration.CacheLoaderException;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
 import static org.junit.Assert.assertEquals;
 
 public class CompositeCacheLoaderTest
@@ -43,7 +47,7 @@ public class CompositeCacheLoaderTest
         public String load(final String key) throws CacheLoaderException
         {
             count.incrementAndGet();
-            return null;
+            return "a".equals(key) ? "loader1" : null;
         }
     };
     private final CacheLoaderAdapter<String, String> loader2 = new CacheLoaderAdapter<String, String>()
@@ -67,4 +71,12 @@ public class CompositeCacheLoaderTest
         cache.get("foo");
         assertEquals(2, count.get());
     }
+
+    @Test
+    public void checkCompositeLoadAll()
+    {
+        final Map<String, String> values = cache.getAll(new HashSet<>(asList("a", "b")));
+        assertEquals(singletonMap("a", "loader1"), values);
+        assertEquals(3, count.get()); // loader2 is only asked for b
+    }
 }
@@ -19,11 +19,16 @@
 package org.apache.commons.jcs3.jcache.extras.web;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -106,6 +111,129 @@ public class JCacheFilterTest
         }
     }
 
+    @Test
+    public void testStreamingFilter() throws Exception
+    {
+        Big.COUNTER.set(0);
+        final Tomcat tomcat = new Tomcat();
+        tomcat.setPort(0);
+        try {
+            tomcat.getEngine();
+            tomcat.start();
+            final Context ctx = tomcat.addContext("/sample", docBase.getAbsolutePath());
+            Tomcat.addServlet(ctx, "big", Big.class.getName());
+            ctx.addServletMapping("/", "big");
+            final FilterDef filterDef = addJcsFilter(ctx);
+            filterDef.addInitParameter("cache-name", "streamed-pages");
+            filterDef.addInitParameter("streaming", "true");
+            filterDef.addInitParameter("off-heap-threshold", "16");
+            StandardContext.class.cast(ctx).filterStart();
+
+            final URL url = new URL("http://localhost:" + tomcat.getConnector().getLocalPort() + "/sample/");
+
+            // miss: streamed to the client
+            final HttpURLConnection first = HttpURLConnection.class.cast(url.openConnection());
+            assertEquals(Big.content(), IOUtils.toString(first.getInputStream()));
+            assertNull(first.getHeaderField("Content-Encoding"));
+            final String etag = first.getHeaderField("ETag");
+            assertNotNull(etag);
+            assertEquals(1, Big.COUNTER.get());
+
+            // hit, gzip representation, same entry
+            final HttpURLConnection gzip = HttpURLConnection.class.cast(url.openConnection());
+            gzip.setRequestProperty("Accept-Encoding", "deflate, gzip");
+            assertEquals("gzip", gzip.getHeaderField("Content-Encoding"));
+            assertEquals(etag, gzip.getHeaderField("ETag"));
+            try (final InputStream in = new GZIPInputStream(gzip.getInputStream())) {
+                assertEquals(Big.content(), IOUtils.toString(in));
+            }
+            assertEquals(1, Big.COUNTER.get());
+
+            // hit, decompressed
+            final HttpURLConnection identity = HttpURLConnection.class.cast(url.openConnection());
+            assertEquals(Big.content().length(), identity.getContentLength());
+            assertEquals(Big.content(), IOUtils.toString(identity.getInputStream()));
+            assertEquals(1, Big.COUNTER.get());
+
+            // conditional
+            final HttpURLConnection conditional = HttpURLConnection.class.cast(url.openConnection());
+            conditional.setRequestProperty("If-None-Match", "\"other\", " + etag);
+            assertEquals(HttpServletResponse.SC_NOT_MODIFIED, conditional.getResponseCode());
+            assertEquals(etag, conditional.getHeaderField("ETag"));
+            assertEquals(1, Big.COUNTER.get());
+        } finally {
+            stop(tomcat);
+        }
+    }
+
+    @Test
+    public void testStreamingFilterGzipMiss() throws Exception
+    {
+        Big.COUNTER.set(0);
+        final Tomcat tomcat = new Tomcat();
+        tomcat.setPort(0);
+        try {
+            tomcat.getEngine();
+            tomcat.start();
+            final Context ctx = tomcat.addContext("/sample", docBase.getAbsolutePath());
+            Tomcat.addServlet(ctx, "big", Big.class.getName());
+            ctx.addServletMapping("/", "big");
+            final FilterDef filterDef = addJcsFilter(ctx);
+            filterDef.addInitParameter("cache-name", "gzip-streamed-pages");
+            filterDef.addInitParameter("streaming", "true");
+            StandardContext.class.cast(ctx).filterStart();
+
+            final URL url = new URL("http://localhost:" + tomcat.getConnector().getLocalPort() + "/sample/");
+            for (int i = 0; i < 2; i++) {
+                final HttpURLConnection gzip = HttpURLConnection.class.cast(url.openConnection());
+                gzip.setRequestProperty("Accept-Encoding", "gzip");
+                assertEquals("gzip", gzip.getHeaderField("Content-Encoding"));
+                try (final InputStream in = new GZIPInputStream(gzip.getInputStream())) {
+                    assertEquals(Big.content(), IOUtils.toString(in));
+                }
+            }
+            assertEquals(Big.content(), IOUtils.toString(url.openStream()));
+            assertEquals(1, Big.COUNTER.get());
+        } finally {
+            stop(tomcat);
+        }
+    }
+
+    @Test
+    public void testStreamingFilterTooBig() throws Exception
+    {
+        Big.COUNTER.set(0);
+        final Tomcat tomcat = new Tomcat();
+        tomcat.setPort(0);
+        try {
+            tomcat.getEngine();
+            tomcat.start();
+            final Context ctx = tomcat.addContext("/sample", docBase.getAbsolutePath());
+            Tomcat.addServlet(ctx, "big", Big.class.getName());
+            ctx.addServletMapping("/", "big");
+            final FilterDef filterDef = addJcsFilter(ctx);
+            filterDef.addInitParameter("cache-name", "too-big-pages");
+            filterDef.addInitParameter("streaming", "true");
+            filterDef.addInitParameter("off-heap-threshold", "16");
+            filterDef.addInitParameter("max-cacheable-size", "1024");
+            StandardContext.class.cast(ctx).filterStart();
+
+            final URL url = new URL("http://localhost:" + tomcat.getConnector().getLocalPort() + "/sample/");
+            for (int i = 0; i < 2; i++) {
+                final HttpURLConnection gzip = HttpURLConnection.class.cast(url.openConnection());
+                gzip.setRequestProperty("Accept-Encoding", "gzip");
+                assertEquals("gzip", gzip.getHeaderField("Content-Encoding"));
+                try (final InputStream in = new GZIPInputStream(gzip.getInputStream())) {
+                    assertEquals(Big.content(), IOUtils.toString(in));
+                }
+                assertEquals(Big.content(), IOUtils.toString(url.openStream()));
+            }
+            assertEquals(4, Big.COUNTER.get());
+        } finally {
+            stop(tomcat);
+        }
+    }
+
     private void stop(final Tomcat tomcat) throws LifecycleException {
         if (LifecycleState.STARTED.equals(tomcat.getServer().getState())) {
             tomcat.stop();
@@ -113,7 +241,7 @@ public class JCacheFilterTest
         }
     }
 
-    private void addJcsFilter(final Context ctx) {
+    private FilterDef addJcsFilter(final Context ctx) {
         final FilterDef filterDef = new FilterDef();
         filterDef.setFilterName("jcs");
         filterDef.setFilterClass(JCacheFilter.class.getName());
@@ -123,6 +251,7 @@ public class JCacheFilterTest
         filterMap.setFilterName(filterDef.getFilterName());
         filterMap.addURLPattern("/*");
         ctx.addFilterMap(filterMap);
+        return filterDef;
     }
 
     public static class Hello extends HttpServlet {
@@ -144,4 +273,24 @@ public class JCacheFilterTest
             COUNTER.incrementAndGet();
         }
     }
+
+    public static class Big extends HttpServlet {
+        public static final AtomicInteger COUNTER = new AtomicInteger();
+
+        static String content() {
+            final StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < 10000; i++) {
+                builder.append("line ").append(i).append('\n');
+            }
+            return builder.toString();
+        }
+
+        @Override
+        protected void service(final HttpServletRequest req, final HttpServletResponse resp) throws ServletException, IOException {
+            resp.setContentType("text/plain");
+            resp.setContentLength(content().length());
+            resp.getOutputStream().write(content().getBytes("UTF-8"));
+            COUNTER.incrementAndGet();
+        }
+    }
 }
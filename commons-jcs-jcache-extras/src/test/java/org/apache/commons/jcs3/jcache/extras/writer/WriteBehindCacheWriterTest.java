@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.commons.jcs3.jcache.extras.writer;
+
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.integration.CacheWriter;
+import javax.cache.integration.CacheWriterException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WriteBehindCacheWriterTest
+{
+    private final Map<String, String> copy = new ConcurrentHashMap<>();
+    private final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger failingWrites = new AtomicInteger();
+
+    private final CacheWriter<String, String> delegate = new CacheWriter<String, String>()
+    {
+        @Override
+        public void write(final Cache.Entry<? extends String, ? extends String> entry) throws CacheWriterException
+        {
+            throw new UnsupportedOperationException("should be batched");
+        }
+
+        @Override
+        public void writeAll(final Collection<Cache.Entry<? extends String, ? extends String>> entries) throws CacheWriterException
+        {
+            batches.add(entries.size());
+            if (failingWrites.getAndDecrement() > 0)
+            {
+                throw new CacheWriterException("failing on purpose");
+            }
+            for (final Cache.Entry<? extends String, ? extends String> entry : entries)
+            {
+                copy.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        @Override
+        public void delete(final Object key) throws CacheWriterException
+        {
+            throw new UnsupportedOperationException("should be batched");
+        }
+
+        @Override
+        public void deleteAll(final Collection<?> keys) throws CacheWriterException
+        {
+            batches.add(keys.size());
+            copy.keySet().removeAll(keys);
+        }
+    };
+
+    @Test
+    public void coalescesUntilClose() throws Exception
+    {
+        copy.put("b", "old");
+        final WriteBehindCacheWriter<String, String> writer = new WriteBehindCacheWriter<>(delegate, 100, 1, TimeUnit.HOURS, 100);
+        writer.write(new Entry("a", "1"));
+        writer.write(new Entry("a", "2"));
+        writer.delete("a");
+        writer.write(new Entry("a", "3"));
+        writer.delete("b");
+        assertEquals(2, writer.getQueueDepth());
+        assertEquals("old", copy.get("b"));
+
+        writer.close();
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals("3", copy.get("a"));
+        assertFalse(copy.containsKey("b"));
+        assertEquals(2, batches.size()); // one writeAll and one deleteAll
+        assertEquals(2.5, writer.getCoalescingRatio(), 0.);
+    }
+
+    @Test
+    public void flushesOnBatchSize() throws Exception
+    {
+        final WriteBehindCacheWriter<String, String> writer = new WriteBehindCacheWriter<>(delegate, 10, 1, TimeUnit.HOURS, 10);
+        try
+        {
+            for (int i = 0; i < 95; i++)
+            {
+                writer.write(new Entry(Integer.toString(i), "v" + i));
+            }
+            for (int i = 0; i < 100 && copy.size() < 90; i++)
+            {
+                Thread.sleep(50);
+            }
+            assertTrue(copy.size() >= 90);
+            assertTrue(writer.getQueueDepth() <= 10);
+        }
+        finally
+        {
+            writer.close();
+        }
+        assertEquals(95, copy.size());
+        assertEquals("v94", copy.get("94"));
+    }
+
+    @Test
+    public void flushesOnInterval() throws Exception
+    {
+        final WriteBehindCacheWriter<String, String> writer = new WriteBehindCacheWriter<>(delegate, 100, 50, TimeUnit.MILLISECONDS, 100);
+        try
+        {
+            writer.write(new Entry("a", "1"));
+            for (int i = 0; i < 100 && !copy.containsKey("a"); i++)
+            {
+                Thread.sleep(20);
+            }
+            assertEquals("1", copy.get("a"));
+            // the counter is incremented after writeAll returned
+            for (int i = 0; i < 100 && writer.getFlushCount() == 0; i++)
+            {
+                Thread.sleep(20);
+            }
+            assertEquals(1, writer.getFlushCount());
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void retriesFailedWrites() throws Exception
+    {
+        failingWrites.set(2);
+        final WriteBehindCacheWriter<String, String> writer = new WriteBehindCacheWriter<>(delegate, 100, 1, TimeUnit.HOURS, 100, 2);
+        writer.write(new Entry("a", "1"));
+        writer.write(new Entry("b", "1"));
+        writer.close();
+        assertEquals("1", copy.get("a"));
+        assertEquals("1", copy.get("b"));
+        assertEquals(2, writer.getFailureCount());
+        assertEquals(0, writer.getDroppedCount());
+        assertEquals(3, batches.size());
+    }
+
+    @Test
+    public void dropsAfterMaxRetries() throws Exception
+    {
+        failingWrites.set(Integer.MAX_VALUE);
+        final WriteBehindCacheWriter<String, String> writer = new WriteBehindCacheWriter<>(delegate, 100, 1, TimeUnit.HOURS, 100, 2);
+        writer.write(new Entry("a", "1"));
+        writer.close();
+        assertFalse(copy.containsKey("a"));
+        assertEquals(3, writer.getFailureCount());
+        assertEquals(1, writer.getDroppedCount());
+        assertEquals(0, writer.getQueueDepth());
+    }
+
+    @Test
+    public void failedWriteDoesNotOverwriteNewerOperation() throws Exception
+    {
+        final CountDownLatch inFlush = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CacheWriter<String, String> blocking = new CacheWriter<String, String>()
+        {
+            @Override
+            public void write(final Cache.Entry<? extends String, ? extends String> entry)
+            {
+                throw new UnsupportedOperationException("should be batched");
+            }
+
+            @Override
+            public void writeAll(final Collection<Cache.Entry<? extends String, ? extends String>> entries)
+            {
+                if (inFlush.getCount() > 0)
+                {
+                    inFlush.countDown();
+                    try
+                    {
+                        release.await();
+                    }
+                    catch (final InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new CacheWriterException("failing on purpose");
+                }
+                delegate.writeAll(entries);
+            }
+
+            @Override
+            public void delete(final Object key)
+            {
+                throw new UnsupportedOperationException("should be batched");
+            }
+
+            @Override
+            public void deleteAll(final Collection<?> keys)
+            {
+                delegate.deleteAll(keys);
+            }
+        };
+        final WriteBehindCacheWriter<String, String> writer = new WriteBehindCacheWriter<>(blocking, 1, 1, TimeUnit.HOURS, 10);
+        writer.write(new Entry("a", "1"));
+        assertTrue(inFlush.await(1, TimeUnit.MINUTES));
+        writer.write(new Entry("a", "2"));
+        release.countDown();
+        writer.close();
+        assertEquals("2", copy.get("a"));
+        assertEquals(1, writer.getFailureCount());
+    }
+
+    @Test
+    public void interruptClosesWriter() throws Exception
+    {
+        final WriteBehindCacheWriter<String, String> writer = new WriteBehindCacheWriter<>(delegate, 100, 1, TimeUnit.HOURS, 100);
+        assertTrue(findFlusher() == null); // started by the first operation
+        writer.write(new Entry("a", "1"));
+        final Thread flusher = findFlusher();
+        flusher.interrupt();
+        flusher.join(TimeUnit.MINUTES.toMillis(1));
+        assertFalse(flusher.isAlive());
+        assertEquals("1", copy.get("a"));
+        try
+        {
+            writer.write(new Entry("b", "1"));
+            fail("the writer should be closed");
+        }
+        catch (final CacheWriterException e)
+        {
+            // ok
+        }
+        writer.close();
+        assertFalse(copy.containsKey("b"));
+    }
+
+    private Thread findFlusher()
+    {
+        final String name = delegate.getClass().getName() + "-" + delegate.hashCode() + "-write-behind";
+        for (final Thread thread : Thread.getAllStackTraces().keySet())
+        {
+            if (name.equals(thread.getName()))
+            {
+                return thread;
+            }
+        }
+        return null;
+    }
+
+    private static class Entry implements Cache.Entry<String, String>
+    {
+        private final String key;
+        private final String value;
+
+        private Entry(final String key, final String value)
+        {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey()
+        {
+            return key;
+        }
+
+        @Override
+        public String getValue()
+        {
+            return value;
+        }
+
+        @Override
+        public <T> T unwrap(final Class<T> clazz)
+        {
+            return clazz.cast(this);
+        }
+    }
+}
@@ -25,6 +25,12 @@ import org.apache.openjpa.util.OpenJPAId;
 
 import javax.cache.Cache;
 import javax.cache.CacheManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -66,7 +72,7 @@ public class OpenJPAJCacheDataCache extends AbstractDataCache
                     continue;
                 }
 
-                result = cacheManager.getCache(cacheName).get(oid);
+                result = manager.getOrCreateCache(cacheName).get(oid);
                 if (result != null)
                 {
                     break;
@@ -80,6 +86,58 @@ public class OpenJPAJCacheDataCache extends AbstractDataCache
         return DataCachePCData.class.cast(result);
     }
 
+    /**
+     * Same result as AbstractDataCache.getAll but the ids are fetched with one getAll per entity
+     * cache instead of one get each.
+     */
+    @Override
+    public Map<Object, DataCachePCData> getAll(final List<Object> keys)
+    {
+        final Map<String, Set<Object>> idsByCache = new HashMap<>();
+        final List<Object> others = new ArrayList<>();
+        for (final Object key : keys)
+        {
+            if (OpenJPAId.class.isInstance(key))
+            {
+                idsByCache.computeIfAbsent(OpenJPAId.class.cast(key).getType().getName(), name -> new HashSet<>()).add(key);
+            }
+            else
+            {
+                others.add(key);
+            }
+        }
+
+        final Map<Object, Object> found = new HashMap<>(keys.size());
+        for (final Map.Entry<String, Set<Object>> ids : idsByCache.entrySet())
+        {
+            final Cache<Object, Object> cache = manager.getOrCreateCache(OPENJPA_PREFIX, ids.getKey());
+            if (cache != null)
+            {
+                found.putAll(cache.getAll(ids.getValue()));
+            }
+        }
+
+        final Map<Object, DataCachePCData> result = new HashMap<>(keys.size());
+        for (final Object key : others)
+        {
+            result.put(key, get(key));
+        }
+        for (final Map.Entry<String, Set<Object>> ids : idsByCache.entrySet())
+        {
+            for (final Object key : ids.getValue())
+            {
+                DataCachePCData data = DataCachePCData.class.cast(found.get(key));
+                if (data != null && data.isTimedOut())
+                {
+                    data = null;
+                    removeInternal(key);
+                }
+                result.put(key, data);
+            }
+        }
+        return result;
+    }
+
     @Override
     protected DataCachePCData putInternal(final Object oid, final DataCachePCData pc)
     {
@@ -127,7 +185,7 @@ public class OpenJPAJCacheDataCache extends AbstractDataCache
             {
                 continue;
             }
-            cacheManager.getCache(cacheName).clear();
+            manager.getOrCreateCache(cacheName).clear();
         }
     }
 
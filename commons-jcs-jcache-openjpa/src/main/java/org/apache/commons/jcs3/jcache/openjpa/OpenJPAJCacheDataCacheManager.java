@@ -36,11 +36,14 @@ import javax.cache.spi.CachingProvider;
 import java.net.URI;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class OpenJPAJCacheDataCacheManager extends DataCacheManagerImpl
 {
     private CachingProvider provider;
     private CacheManager cacheManager;
+    private final ConcurrentMap<String, Cache<Object, Object>> caches = new ConcurrentHashMap<>();
 
     @Override
     public void initialize(final OpenJPAConfiguration conf, final ObjectValue dataCache, final ObjectValue queryCache)
@@ -69,6 +72,7 @@ public class OpenJPAJCacheDataCacheManager extends DataCacheManagerImpl
     public void close()
     {
         super.close();
+        caches.clear();
         if (!cacheManager.isClosed())
         {
             cacheManager.close();
@@ -78,7 +82,28 @@ public class OpenJPAJCacheDataCacheManager extends DataCacheManagerImpl
 
     Cache<Object, Object> getOrCreateCache(final String prefix, final String entity)
     {
-        final String internalName = prefix + entity;
+        return getOrCreateCache(prefix + entity);
+    }
+
+    /**
+     * The handles are kept since each lookup would otherwise go through the cache manager. A
+     * handle is resolved again if its cache was closed or destroyed.
+     */
+    Cache<Object, Object> getOrCreateCache(final String internalName)
+    {
+        final Cache<Object, Object> known = caches.get(internalName);
+        if (known != null && !known.isClosed())
+        {
+            return known;
+        }
+
+        final Cache<Object, Object> cache = lookupOrCreateCache(internalName);
+        caches.put(internalName, cache);
+        return cache;
+    }
+
+    private synchronized Cache<Object, Object> lookupOrCreateCache(final String internalName)
+    {
         Cache<Object, Object> cache = cacheManager.getCache(internalName);
         if (cache == null)
         {
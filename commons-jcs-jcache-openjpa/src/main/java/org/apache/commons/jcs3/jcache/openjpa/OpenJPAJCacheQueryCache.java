@@ -22,11 +22,12 @@ import org.apache.openjpa.datacache.AbstractQueryCache;
 import org.apache.openjpa.datacache.DataCacheManager;
 import org.apache.openjpa.datacache.QueryKey;
 import org.apache.openjpa.datacache.QueryResult;
+import org.apache.openjpa.datacache.TypesChangedEvent;
 
 import javax.cache.Cache;
-import javax.cache.CacheManager;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -36,6 +37,7 @@ public class OpenJPAJCacheQueryCache extends AbstractQueryCache
     private static final String QUERY_CACHE_NAME = "query";
 
     private final Lock lock = new ReentrantLock();
+    private final QueryKeyIndex index = new QueryKeyIndex();
     private OpenJPAJCacheDataCacheManager manager;
 
     @Override
@@ -45,24 +47,63 @@ public class OpenJPAJCacheQueryCache extends AbstractQueryCache
         this.manager = OpenJPAJCacheDataCacheManager.class.cast(manager);
     }
 
+    /**
+     * Same as the default policy of AbstractQueryCache but only the queries indexed under the
+     * changed types are checked, not the whole query cache.
+     */
     @Override
-    protected void clearInternal()
+    public void onTypesChanged(final TypesChangedEvent ev)
     {
-        final CacheManager cacheManager = manager.getCacheManager();
-        for (final String cacheName : cacheManager.getCacheNames())
+        if (getEvictPolicy() != EvictPolicy.DEFAULT)
+        {
+            super.onTypesChanged(ev);
+            return;
+        }
+
+        final Collection<QueryKey> candidates;
+        writeLock();
+        try
         {
-            if (!cacheName.startsWith(OPENJPA_PREFIX))
+            if (hasListeners())
             {
-                continue;
+                fireEvent(ev);
             }
-            cacheManager.getCache(cacheName).clear();
+            candidates = index.getKeys(ev.getTypes());
+        }
+        finally
+        {
+            writeUnlock();
+        }
+
+        List<QueryKey> removes = null;
+        for (final QueryKey qk : candidates)
+        {
+            if (qk.changeInvalidatesQuery(ev.getTypes()))
+            {
+                if (removes == null)
+                {
+                    removes = new ArrayList<>();
+                }
+                removes.add(qk);
+            }
+        }
+        if (removes != null)
+        {
+            removeAllInternal(removes);
         }
     }
 
+    @Override
+    protected void clearInternal()
+    {
+        queryCache().clear();
+        index.clear();
+    }
+
     @Override
     protected Collection keySet()
     {
-        final Collection<QueryKey> keys = new LinkedList<>();
+        final Collection<QueryKey> keys = new ArrayList<>();
         for (final Cache.Entry<Object, Object> entry : queryCache())
         {
             keys.add(QueryKey.class.cast(entry.getKey()));
@@ -84,13 +125,30 @@ public class OpenJPAJCacheQueryCache extends AbstractQueryCache
     @Override
     protected QueryResult putInternal(final QueryKey qk, final QueryResult oids)
     {
-        queryCache().put(qk, oids);
+        // index first, an invalidation running during the put then sees the key
+        final boolean prune = index.add(qk);
+        try
+        {
+            queryCache().put(qk, oids);
+        }
+        catch (final RuntimeException e)
+        {
+            index.remove(qk);
+            throw e;
+        }
+        // a prune running during the put may have dropped the key as not cached yet
+        if (index.add(qk) || prune)
+        {
+            pruneIndex();
+        }
         return oids;
     }
 
     @Override
     protected QueryResult removeInternal(final QueryKey qk)
     {
+        // unindex first, a concurrent put of the key is then indexed again
+        index.remove(qk);
         final Object remove = queryCache().getAndRemove(qk);
         if (remove == null)
         {
@@ -99,6 +157,16 @@ public class OpenJPAJCacheQueryCache extends AbstractQueryCache
         return QueryResult.class.cast(remove);
     }
 
+    private void pruneIndex()
+    {
+        final Cache<Object, Object> cache = queryCache();
+        index.prune(cache::containsKey);
+    }
+
+    int getIndexSize()
+    {
+        return index.size();
+    }
     @Override
     protected boolean pinInternal(final QueryKey qk)
     {
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.commons.jcs3.jcache.openjpa;
+
+import org.apache.openjpa.datacache.QueryKey;
+import org.apache.openjpa.enhance.PCRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+
+/**
+ * Query keys by the names of the types they access, so that a change only looks at the queries
+ * it may invalidate instead of the whole query cache.
+ *
+ * The query cache may expire or evict entries without telling, the index is pruned against the
+ * cached keys each time it doubles in size.
+ */
+class QueryKeyIndex
+{
+    private static final int MIN_PRUNE_THRESHOLD = 1024;
+
+    private final ConcurrentMap<String, Set<QueryKey>> keysByType = new ConcurrentHashMap<>();
+    private final Set<QueryKey> keys = ConcurrentHashMap.newKeySet();
+    private volatile int pruneThreshold = MIN_PRUNE_THRESHOLD;
+
+    /**
+     * @return true if the index should be pruned.
+     */
+    boolean add(final QueryKey key)
+    {
+        final Set<String> types = key.getAcessPathClassNames();
+        if (types == null || !keys.add(key))
+        {
+            return false;
+        }
+        for (final String type : types)
+        {
+            keysByType.compute(type, (name, current) -> {
+                final Set<QueryKey> typeKeys = current == null ? ConcurrentHashMap.newKeySet() : current;
+                typeKeys.add(key);
+                return typeKeys;
+            });
+        }
+        return keys.size() > pruneThreshold;
+    }
+
+    void remove(final Object key)
+    {
+        if (!keys.remove(key))
+        {
+            return;
+        }
+        final Set<String> types = QueryKey.class.cast(key).getAcessPathClassNames();
+        for (final String type : types)
+        {
+            keysByType.computeIfPresent(type, (name, typeKeys) -> {
+                typeKeys.remove(key);
+                return typeKeys.isEmpty() ? null : typeKeys;
+            });
+        }
+    }
+
+    /**
+     * Same matching as QueryKey.changeInvalidatesQuery: a changed type is looked up by the name of
+     * its least derived persistent superclass.
+     *
+     * @return the keys which may be invalidated by a change of the types.
+     */
+    Set<QueryKey> getKeys(final Collection<?> changedTypes)
+    {
+        if (changedTypes == null || changedTypes.isEmpty())
+        {
+            return Collections.emptySet();
+        }
+
+        final Set<QueryKey> result = new HashSet<>();
+        for (final Object changed : changedTypes)
+        {
+            Class<?> type = Class.class.cast(changed);
+            Class<?> parent;
+            while ((parent = PCRegistry.getPersistentSuperclass(type)) != null)
+            {
+                type = parent;
+            }
+            final Set<QueryKey> typeKeys = keysByType.get(type.getName());
+            if (typeKeys != null)
+            {
+                result.addAll(typeKeys);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops the keys which left the cache. A key is indexed again if it was put back while being
+     * dropped, a query must never miss its invalidation.
+     */
+    void prune(final Predicate<QueryKey> isCached)
+    {
+        for (final QueryKey key : new ArrayList<>(keys))
+        {
+            if (!isCached.test(key))
+            {
+                remove(key);
+                if (isCached.test(key))
+                {
+                    add(key);
+                }
+            }
+        }
+        pruneThreshold = Math.max(MIN_PRUNE_THRESHOLD, keys.size() * 2);
+    }
+
+    void clear()
+    {
+        keys.clear();
+        keysByType.clear();
+    }
+
+    int size()
+    {
+        return keys.size();
+    }
+}
@@ -20,6 +20,9 @@ package org.apache.commons.jcs3.jcache.openjpa;
 
 import org.apache.derby.jdbc.EmbeddedDriver;
 import org.apache.openjpa.conf.OpenJPAConfiguration;
+import org.apache.openjpa.datacache.DataCache;
+import org.apache.openjpa.datacache.DataCachePCData;
+import org.apache.openjpa.datacache.QueryCache;
 import org.apache.openjpa.datacache.QueryKey;
 import org.apache.openjpa.persistence.JPAFacadeHelper;
 import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
@@ -32,13 +35,16 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.Persistence;
 import javax.persistence.Query;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -46,7 +52,7 @@ public class OpenJPAJCacheDataCacheTest
 {
     private static final Properties props = new Properties()
     {{
-        setProperty("openjpa.MetaDataFactory", "jpa(Types=" + MyEntity.class.getName() + ")");
+        setProperty("openjpa.MetaDataFactory", "jpa(Types=" + MyEntity.class.getName() + ";" + MyOtherEntity.class.getName() + ")");
         setProperty("openjpa.ConnectionDriverName", EmbeddedDriver.class.getName());
         setProperty("openjpa.ConnectionURL", "jdbc:derby:memory:test;create=true");
         setProperty("openjpa.jdbc.SynchronizeMappings", "buildSchema");
@@ -115,6 +121,89 @@ public class OpenJPAJCacheDataCacheTest
         emf.close();
     }
 
+    @Test
+    public void getAll()
+    {
+        final EntityManagerFactory emf = Persistence.createEntityManagerFactory("test-jcache", props);
+        final OpenJPAConfiguration conf = OpenJPAEntityManagerFactorySPI.class.cast(emf).getConfiguration();
+
+        final EntityManager em = emf.createEntityManager();
+        final List<MyEntity> entities = new ArrayList<>();
+        em.getTransaction().begin();
+        for (int i = 0; i < 3; i++)
+        {
+            final MyEntity entity = new MyEntity();
+            entity.setName("batch" + i);
+            em.persist(entity);
+            entities.add(entity);
+        }
+        final MyOtherEntity other = new MyOtherEntity();
+        em.persist(other);
+        em.getTransaction().commit();
+
+        final List<Object> oids = new ArrayList<>();
+        for (final MyEntity entity : entities)
+        {
+            oids.add(JPAFacadeHelper.toOpenJPAObjectId(conf.getMetaDataRepositoryInstance().getCachedMetaData(MyEntity.class), entity.getId()));
+        }
+        oids.add(JPAFacadeHelper.toOpenJPAObjectId(conf.getMetaDataRepositoryInstance().getCachedMetaData(MyOtherEntity.class), other.getId()));
+
+        final DataCache dataCache = conf.getDataCacheManagerInstance().getDataCache("default");
+        final Object missing = JPAFacadeHelper.toOpenJPAObjectId(conf.getMetaDataRepositoryInstance().getCachedMetaData(MyEntity.class), -1L);
+        oids.add(missing);
+        final Map<Object, DataCachePCData> all = dataCache.getAll(oids);
+        assertEquals(5, all.size());
+        for (final Object oid : oids.subList(0, 4))
+        {
+            assertNotNull(all.get(oid));
+            assertEquals(dataCache.get(oid).getId(), all.get(oid).getId());
+        }
+        assertTrue(all.containsKey(missing));
+        assertNull(all.get(missing));
+
+        em.close();
+        emf.close();
+    }
+
+    @Test
+    public void changeOnlyEvictsQueriesOfTheType()
+    {
+        final EntityManagerFactory emf = Persistence.createEntityManagerFactory("test-jcache", props);
+        final OpenJPAConfiguration conf = OpenJPAEntityManagerFactorySPI.class.cast(emf).getConfiguration();
+
+        final EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        final MyEntity entity = new MyEntity();
+        entity.setName("indexed");
+        em.persist(entity);
+        em.persist(new MyOtherEntity());
+        em.getTransaction().commit();
+
+        final Query query = em.createQuery("select e from OpenJPAJCacheDataCacheTest$MyEntity e");
+        final Query otherQuery = em.createQuery("select e from OpenJPAJCacheDataCacheTest$MyOtherEntity e");
+        assertTrue(query.getResultList().size() >= 1);
+        assertTrue(otherQuery.getResultList().size() >= 1);
+
+        final QueryCache queryCache = conf.getDataCacheManagerInstance().getSystemQueryCache();
+        final QueryKey qk = QueryKey.newInstance(query.unwrap(org.apache.openjpa.kernel.Query.class));
+        final QueryKey otherQk = QueryKey.newInstance(otherQuery.unwrap(org.apache.openjpa.kernel.Query.class));
+        assertNotNull(queryCache.get(qk));
+        assertNotNull(queryCache.get(otherQk));
+
+        final EntityManager other = emf.createEntityManager();
+        other.getTransaction().begin();
+        other.persist(new MyOtherEntity());
+        other.getTransaction().commit();
+        other.close();
+
+        assertNotNull(queryCache.get(qk));
+        assertNull(queryCache.get(otherQk));
+        assertEquals(1, OpenJPAJCacheQueryCache.class.cast(queryCache).getIndexSize());
+
+        em.close();
+        emf.close();
+    }
+
     @Entity
     public static class MyEntity
     {
@@ -138,4 +227,17 @@ public class OpenJPAJCacheDataCacheTest
             this.name = name;
         }
     }
+
+    @Entity
+    public static class MyOtherEntity
+    {
+        @Id
+        @GeneratedValue
+        private long id;
+
+        public long getId()
+        {
+            return id;
+        }
+    }
 }
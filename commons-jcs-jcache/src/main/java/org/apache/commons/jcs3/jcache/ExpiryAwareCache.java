@@ -48,10 +48,19 @@ public class ExpiryAwareCache<A, B> extends CompositeCache<A, B>
         for (final JCSListener<A, B> listener : listeners.values())
         {
             listener.onExpired(Collections.singletonList(new JCSCacheEntryEvent<>(
-                    cacheRef, EventType.REMOVED, null, element.getKey(), element.getVal())));
+                    cacheRef, EventType.REMOVED, null, element.getKey(), valueOf(element))));
         }
     }
 
+    private B valueOf(final ICacheElement<A, B> element)
+    {
+        if (JCSCache.class.isInstance(cacheRef))
+        {
+            return ((JCSCache<A, B>) cacheRef).valueOf(element);
+        }
+        return element.getVal();
+    }
+
     void init(final Cache<A, B> cache, final Map<CacheEntryListenerConfiguration<A, B>, JCSListener<A, B>> listeners)
     {
         this.cacheRef = cache;
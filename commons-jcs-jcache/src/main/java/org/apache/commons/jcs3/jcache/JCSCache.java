@@ -20,20 +20,29 @@ package org.apache.commons.jcs3.jcache;
 
 import static org.apache.commons.jcs3.jcache.Asserts.assertNotNull;
 import static org.apache.commons.jcs3.jcache.serialization.Serializations.copy;
+import static org.apache.commons.jcs3.jcache.serialization.Serializations.isImmutable;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.Spliterator;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import javax.cache.Cache;
 import javax.cache.CacheException;
@@ -56,8 +65,10 @@ import javax.cache.processor.EntryProcessorResult;
 import javax.management.ObjectName;
 
 import org.apache.commons.jcs3.engine.CacheElement;
+import org.apache.commons.jcs3.engine.CacheElementSerialized;
 import org.apache.commons.jcs3.engine.ElementAttributes;
 import org.apache.commons.jcs3.engine.behavior.ICacheElement;
+import org.apache.commons.jcs3.engine.behavior.ICacheElementSerialized;
 import org.apache.commons.jcs3.engine.behavior.IElementAttributes;
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 import org.apache.commons.jcs3.jcache.jmx.JCSCacheMXBean;
@@ -83,7 +94,12 @@ public class JCSCache<K, V> implements Cache<K, V>
     private final Map<CacheEntryListenerConfiguration<K, V>, JCSListener<K, V>> listeners = new ConcurrentHashMap<>();
     private final Statistics statistics = new Statistics();
     private final ExecutorService pool;
+    private final int parallelism;
+    private final int loadChunkSize;
+    private final long refreshAheadMillis;
+    private final KeyLocks locks;
     private final IElementSerializer serializer; // using json/xml should work as well -> don't force Serializable
+    private final boolean serializedValues; // store by value keeps the bytes, no copy on put nor on get
 
 
     public JCSCache(final ClassLoader classLoader, final JCSCachingManager mgr,
@@ -106,6 +122,10 @@ public class JCSCache<K, V> implements Cache<K, V>
         final int poolSize = Integer.parseInt(property(properties, cacheName, "pool.size", "3"));
         final DaemonThreadFactory threadFactory = new DaemonThreadFactory("JCS-JCache-" + cacheName + "-");
         pool = poolSize > 0 ? Executors.newFixedThreadPool(poolSize, threadFactory) : Executors.newCachedThreadPool(threadFactory);
+        parallelism = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        locks = new KeyLocks(Integer.parseInt(property(properties, cacheName, "lock.stripes", "64")));
+        loadChunkSize = Math.max(1, Integer.parseInt(property(properties, cacheName, "loader.chunk.size", "1000")));
+        refreshAheadMillis = Long.parseLong(property(properties, cacheName, "refreshAhead.millis", "0"));
 
         try
         {
@@ -116,6 +136,8 @@ public class JCSCache<K, V> implements Cache<K, V>
             throw new IllegalArgumentException(e);
         }
 
+        serializedValues = config.isStoreByValue() && Boolean.parseBoolean(property(properties, cacheName, "storeByValue.serialized", "true"));
+
         final Factory<CacheLoader<K, V>> cacheLoaderFactory = configuration.getCacheLoaderFactory();
         if (cacheLoaderFactory == null)
         {
@@ -155,6 +177,7 @@ public class JCSCache<K, V> implements Cache<K, V>
         delegate.init(this, listeners);
 
         statistics.setActive(config.isStatisticsEnabled());
+        statistics.setHistograms(Boolean.parseBoolean(property(properties, cacheName, "statistics.histograms", "false")));
 
         final String mgrStr = manager.getURI().toString().replaceAll(",|:|=|\n", ".");
         final String cacheStr = name.replaceAll(",|:|=|\n", ".");
@@ -217,31 +240,224 @@ public class JCSCache<K, V> implements Cache<K, V>
         }
         if (v != null)
         {
-            final Duration duration = update ? expiryPolicy.getExpiryForUpdate() : expiryPolicy.getExpiryForCreation();
-            if (isNotZero(duration))
+            storeLoaded(key, v, update);
+        }
+        return v;
+    }
+
+    // the loader runs without the key lock, the lock is only taken to store the value if the
+    // entry still holds the value which was refreshed
+    private void doRefresh(final K key, final ICacheElement<K, V> refreshed)
+    {
+        final V v;
+        try
+        {
+            v = loader.load(key);
+        }
+        catch (final CacheLoaderException e)
+        {
+            return;
+        }
+        if (v == null)
+        {
+            return;
+        }
+        withKeyLock(key, () -> {
+            final ICacheElement<K, V> current = delegate.get(key);
+            if (current != null && sameValue(current, refreshed))
+            {
+                storeLoaded(key, v, false);
+            }
+            return null;
+        });
+    }
+
+    // access expiry stores a copy of the element, so compare what it holds
+    private static <K, V> boolean sameValue(final ICacheElement<K, V> element, final ICacheElement<K, V> other)
+    {
+        if (ICacheElementSerialized.class.isInstance(element) && ICacheElementSerialized.class.isInstance(other))
+        {
+            return ICacheElementSerialized.class.cast(element).getSerializedValue()
+                    == ICacheElementSerialized.class.cast(other).getSerializedValue();
+        }
+        return element.getVal() == other.getVal();
+    }
+
+    private void storeLoaded(final K key, final V v, final boolean update)
+    {
+        final Duration duration = update ? expiryPolicy.getExpiryForUpdate() : expiryPolicy.getExpiryForCreation();
+        if (isNotZero(duration))
+        {
+            final IElementAttributes clone = delegate.getElementAttributes().clone();
+            if (ElementAttributes.class.isInstance(clone))
             {
-                final IElementAttributes clone = delegate.getElementAttributes().clone();
-                if (ElementAttributes.class.isInstance(clone))
-                {
-                    ElementAttributes.class.cast(clone).setCreateTime();
-                }
-                final ICacheElement<K, V> element = updateElement(key, v, duration, clone);
-                try
+                ElementAttributes.class.cast(clone).setCreateTime();
+            }
+            final ICacheElement<K, V> element = updateElement(key, v, duration, clone);
+            if (!update && duration != null)
+            {
+                setCreationExpiry(element.getElementAttributes(), duration);
+            }
+            try
+            {
+                delegate.update(element);
+            }
+            catch (final IOException e)
+            {
+                throw new CacheException(e);
+            }
+        }
+    }
+
+    // one loader.loadAll() per chunk of keys, chunks are loaded and stored in parallel
+    private Map<K, V> doLoadAll(final Collection<? extends K> keys, final boolean replaceExistingValues,
+            final boolean propagateLoadException)
+    {
+        final Map<K, V> result = new ConcurrentHashMap<>();
+        if (keys.isEmpty())
+        {
+            return result;
+        }
+        final List<List<K>> chunks = new ArrayList<>(keys.size() / loadChunkSize + 1);
+        List<K> chunk = null;
+        for (final K k : keys)
+        {
+            if (chunk == null || chunk.size() == loadChunkSize)
+            {
+                chunk = new ArrayList<>(Math.min(loadChunkSize, keys.size()));
+                chunks.add(chunk);
+            }
+            chunk.add(k);
+        }
+
+        final int tasks = Math.min(chunks.size(), parallelism + 1);
+        final List<Runnable> runnables = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++)
+        {
+            final int first = i;
+            runnables.add(() -> {
+                for (int c = first; c < chunks.size(); c += tasks)
                 {
-                    delegate.update(element);
+                    loadChunk(chunks.get(c), replaceExistingValues, propagateLoadException, result);
                 }
-                catch (final IOException e)
+            });
+        }
+        runAll(runnables);
+        return result;
+    }
+
+    private void loadChunk(final List<K> keys, final boolean replaceExistingValues, final boolean propagateLoadException,
+            final Map<K, V> result)
+    {
+        final Map<K, V> loaded;
+        try
+        {
+            loaded = loader.loadAll(keys);
+        }
+        catch (final CacheLoaderException e)
+        {
+            if (propagateLoadException)
+            {
+                throw e;
+            }
+            return;
+        }
+        if (loaded == null)
+        {
+            return;
+        }
+        for (final K k : keys)
+        {
+            final V v = loaded.get(k);
+            if (v != null)
+            {
+                storeLoaded(k, v, replaceExistingValues && containsKey(k));
+                result.put(k, v);
+            }
+        }
+    }
+
+    // the first task runs in the caller thread, the others in the pool
+    private void runAll(final List<Runnable> tasks)
+    {
+        final List<FutureTask<Void>> submitted = new ArrayList<>(tasks.size());
+        for (final Runnable runnable : tasks.subList(1, tasks.size()))
+        {
+            final FutureTask<Void> task = new FutureTask<>(runnable, null);
+            submitted.add(task);
+            try
+            {
+                pool.execute(task);
+            }
+            catch (final RejectedExecutionException ree)
+            {
+                task.run();
+            }
+        }
+        RuntimeException error = null;
+        try
+        {
+            tasks.get(0).run();
+        }
+        catch (final RuntimeException e)
+        {
+            error = e;
+        }
+        for (final FutureTask<Void> task : submitted)
+        {
+            task.run(); // no-op if a pool thread took it, avoids waiting on a busy pool
+            try
+            {
+                task.get();
+            }
+            catch (final InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new CacheException(e);
+            }
+            catch (final ExecutionException e)
+            {
+                if (error == null)
                 {
-                    throw new CacheException(e);
+                    error = RuntimeException.class.isInstance(e.getCause()) ?
+                            RuntimeException.class.cast(e.getCause()) : new CacheException(e.getCause());
                 }
             }
         }
-        return v;
+        if (error != null)
+        {
+            throw error;
+        }
+    }
+
+    private void setCreationExpiry(final IElementAttributes attrs, final Duration duration)
+    {
+        attrs.setTimeFactorForMilliseconds(1);
+        final boolean eternal = duration.isEternal();
+        attrs.setIsEternal(eternal);
+        if (ElementAttributes.class.isInstance(attrs)) {
+            ElementAttributes.class.cast(attrs).setCreateTime();
+        }
+        if (!eternal)
+        {
+            if (duration == expiryPolicy.getExpiryForAccess())
+            {
+                attrs.setIdleTime(duration.getTimeUnit().toMillis(duration.getDurationAmount()));
+            }
+            else
+            {
+                attrs.setMaxLife(duration.getTimeUnit().toMillis(duration.getDurationAmount()));
+            }
+        }
     }
 
     private ICacheElement<K, V> updateElement(final K key, final V v, final Duration duration, final IElementAttributes attrs)
     {
-        final ICacheElement<K, V> element = new CacheElement<>(name, key, v);
+        return updateElement(newElement(key, v), duration, attrs);
+    }
+
+    private ICacheElement<K, V> updateElement(final ICacheElement<K, V> element, final Duration duration, final IElementAttributes attrs)
+    {
         if (duration != null)
         {
             attrs.setTimeFactorForMilliseconds(1);
@@ -257,14 +473,58 @@ public class JCSCache<K, V> implements Cache<K, V>
         return element;
     }
 
+    private ICacheElement<K, V> newElement(final K key, final V value)
+    {
+        if (serializedValues && !isImmutable(value))
+        {
+            try
+            {
+                return new CacheElementSerialized<>(name, key, serializer.serialize(value), null);
+            }
+            catch (final IOException e)
+            {
+                throw new CacheException(e);
+            }
+        }
+        return new CacheElement<>(name, key, value);
+    }
+
+    // same stored representation (bytes or instance) under another key instance, avoids a deserialization
+    private ICacheElement<K, V> storedCopy(final K key, final ICacheElement<K, V> stored)
+    {
+        if (ICacheElementSerialized.class.isInstance(stored))
+        {
+            return new CacheElementSerialized<>(name, key, ICacheElementSerialized.class.cast(stored).getSerializedValue(), null);
+        }
+        return new CacheElement<>(name, key, stored.getVal());
+    }
+
+    V valueOf(final ICacheElement<K, V> element)
+    {
+        if (ICacheElementSerialized.class.isInstance(element))
+        {
+            try
+            {
+                return serializer.deSerialize(ICacheElementSerialized.class.cast(element).getSerializedValue(), manager.getClassLoader());
+            }
+            catch (final IOException | ClassNotFoundException e)
+            {
+                throw new CacheException(e);
+            }
+        }
+        return element.getVal();
+    }
+
     private void touch(final K key, final ICacheElement<K, V> element)
     {
         if (config.isStoreByValue())
         {
             final K copy = copy(serializer, manager.getClassLoader(), key);
+            final ICacheElement<K, V> touched = storedCopy(copy, element);
+            touched.setElementAttributes(element.getElementAttributes());
             try
             {
-                delegate.update(new CacheElement<>(name, copy, element.getVal(), element.getElementAttributes()));
+                delegate.update(touched);
             }
             catch (final IOException e)
             {
@@ -282,20 +542,16 @@ public class JCSCache<K, V> implements Cache<K, V>
             assertNotNull(k, "key");
         }
 
-        final long now = Times.now(false);
         final Map<K, V> result = new HashMap<>();
+        final List<K> missing = new ArrayList<>();
         for (final K key : keys) {
             assertNotNull(key, "key");
 
             final ICacheElement<K, V> elt = delegate.get(key);
-            V val = elt != null ? elt.getVal() : null;
+            final V val = elt != null ? valueOf(elt) : null;
             if (val == null && config.isReadThrough())
             {
-                val = doLoad(key, false, now, false);
-                if (val != null)
-                {
-                    result.put(key, val);
-                }
+                missing.add(key);
             }
             else if (elt != null)
             {
@@ -311,6 +567,10 @@ public class JCSCache<K, V> implements Cache<K, V>
                 }
             }
         }
+        if (!missing.isEmpty())
+        {
+            result.putAll(doLoadAll(missing, false, false));
+        }
         return result;
     }
 
@@ -324,16 +584,24 @@ public class JCSCache<K, V> implements Cache<K, V>
 
     @Override
     public void put(final K key, final V rawValue)
+    {
+        withKeyLock(key, () -> {
+            doPut(key, rawValue);
+            return null;
+        });
+    }
+
+    private void doPut(final K key, final V rawValue)
     {
         assertNotClosed();
         assertNotNull(key, "key");
         assertNotNull(rawValue, "value");
 
         final ICacheElement<K, V> oldElt = delegate.get(key);
-        final V old = oldElt != null ? oldElt.getVal() : null;
+        final V old = oldElt != null ? valueOf(oldElt) : null;
 
         final boolean storeByValue = config.isStoreByValue();
-        final V value = storeByValue ? copy(serializer, manager.getClassLoader(), rawValue) : rawValue;
+        final V value = storeByValue && !serializedValues ? copy(serializer, manager.getClassLoader(), rawValue) : rawValue;
 
         final boolean created = old == null;
         final Duration duration = created ? expiryPolicy.getExpiryForCreation() : expiryPolicy.getExpiryForUpdate();
@@ -347,28 +615,11 @@ public class JCSCache<K, V> implements Cache<K, V>
                     jcsKey, value, created ? null : duration,
                     oldElt != null ? oldElt.getElementAttributes() : delegate.getElementAttributes().clone());
             if (created && duration != null) { // set maxLife
-                final IElementAttributes copy = element.getElementAttributes();
-                copy.setTimeFactorForMilliseconds(1);
-                final boolean eternal = duration.isEternal();
-                copy.setIsEternal(eternal);
-                if (ElementAttributes.class.isInstance(copy)) {
-                    ElementAttributes.class.cast(copy).setCreateTime();
-                }
-                if (!eternal)
-                {
-                    copy.setIsEternal(false);
-                    if (duration == expiryPolicy.getExpiryForAccess())
-                    {
-                        element.getElementAttributes().setIdleTime(duration.getTimeUnit().toMillis(duration.getDurationAmount()));
-                    }
-                    else
-                        {
-                        element.getElementAttributes().setMaxLife(duration.getTimeUnit().toMillis(duration.getDurationAmount()));
-                    }
-                }
-                element.setElementAttributes(copy);
+                setCreationExpiry(element.getElementAttributes(), duration);
             }
-            writer.write(new JCSEntry<>(jcsKey, value));
+            // serialized values keep the caller's instance out of the cache, so out of the writer and listeners too
+            final V stored = serializedValues && (writer != NoWriter.INSTANCE || !listeners.isEmpty()) ? valueOf(element) : value;
+            writer.write(new JCSEntry<>(jcsKey, stored));
             try
             {
                 delegate.update(element);
@@ -382,19 +633,19 @@ public class JCSCache<K, V> implements Cache<K, V>
                 if (created)
                 {
                     listener.onCreated(Collections.singletonList(new JCSCacheEntryEvent<>(this,
-                            EventType.CREATED, null, key, value)));
+                            EventType.CREATED, null, key, stored)));
                 }
                 else
                 {
                     listener.onUpdated(Collections.singletonList(new JCSCacheEntryEvent<>(this,
-                            EventType.UPDATED, old, key, value)));
+                            EventType.UPDATED, old, key, stored)));
                 }
             }
 
             if (statisticsEnabled)
             {
                 statistics.increasePuts(1);
-                statistics.addPutTime(System.currentTimeMillis() - start);
+                statistics.addPutTime(Times.now(false) - start);
             }
         }
         else
@@ -418,12 +669,17 @@ public class JCSCache<K, V> implements Cache<K, V>
         for (final JCSListener<K, V> listener : listeners.values())
         {
             listener.onExpired(Collections.singletonList(new JCSCacheEntryEvent<>(this,
-                    EventType.REMOVED, null, cacheKey, elt.getVal())));
+                    EventType.REMOVED, null, cacheKey, valueOf(elt))));
         }
     }
 
     @Override
     public V getAndPut(final K key, final V value)
+    {
+        return withKeyLock(key, () -> doGetAndPut(key, value));
+    }
+
+    private V doGetAndPut(final K key, final V value)
     {
         assertNotClosed();
         assertNotNull(key, "key");
@@ -449,16 +705,39 @@ public class JCSCache<K, V> implements Cache<K, V>
     @Override
     public boolean putIfAbsent(final K key, final V value)
     {
-        if (!containsKey(key))
+        return withKeyLock(key, () -> {
+            if (!containsKey(key))
+            {
+                put(key, value);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private <T> T withKeyLock(final K key, final Supplier<T> task)
+    {
+        assertNotClosed();
+        assertNotNull(key, "key");
+        final ReentrantLock lock = locks.lockFor(key);
+        lock.lock();
+        try
         {
-            put(key, value);
-            return true;
+            return task.get();
+        }
+        finally
+        {
+            lock.unlock();
         }
-        return false;
     }
 
     @Override
     public boolean remove(final K key)
+    {
+        return withKeyLock(key, () -> doRemove(key));
+    }
+
+    private boolean doRemove(final K key)
     {
         assertNotClosed();
         assertNotNull(key, "key");
@@ -471,7 +750,7 @@ public class JCSCache<K, V> implements Cache<K, V>
         final ICacheElement<K, V> v = delegate.get(key);
         delegate.remove(key);
 
-        final V value = v != null && v.getVal() != null ? v.getVal() : null;
+        final V value = v != null ? valueOf(v) : null;
         final boolean remove = v != null;
         for (final JCSListener<K, V> listener : listeners.values())
         {
@@ -488,6 +767,11 @@ public class JCSCache<K, V> implements Cache<K, V>
 
     @Override
     public boolean remove(final K key, final V oldValue)
+    {
+        return withKeyLock(key, () -> doRemove(key, oldValue));
+    }
+
+    private boolean doRemove(final K key, final V oldValue)
     {
         assertNotClosed();
         assertNotNull(key, "key");
@@ -509,6 +793,11 @@ public class JCSCache<K, V> implements Cache<K, V>
 
     @Override
     public V getAndRemove(final K key)
+    {
+        return withKeyLock(key, () -> doGetAndRemove(key));
+    }
+
+    private V doGetAndRemove(final K key)
     {
         assertNotClosed();
         assertNotNull(key, "key");
@@ -523,7 +812,7 @@ public class JCSCache<K, V> implements Cache<K, V>
     {
         final boolean statisticsEnabled = config.isStatisticsEnabled();
         final ICacheElement<K, V> elt = delegate.get(key);
-        V v = elt != null ? elt.getVal() : null;
+        V v = elt != null ? valueOf(elt) : null;
         if (v == null && (config.isReadThrough() || forceDoLoad))
         {
             if (!skipLoad)
@@ -545,32 +834,73 @@ public class JCSCache<K, V> implements Cache<K, V>
 
         if (updateAcess && elt != null)
         {
-            final Duration expiryForAccess = expiryPolicy.getExpiryForAccess();
-            if (!isNotZero(expiryForAccess))
-            {
-                forceExpires(key);
-            }
-            else if (expiryForAccess != null && (!elt.getElementAttributes().getIsEternal() || !expiryForAccess.isEternal()))
+            updateAccessExpiry(key, elt, true);
+        }
+        if (v != null && elt != null && refreshAheadMillis > 0 && config.isReadThrough()
+                && delegate.isRefreshAheadDue(elt, System.currentTimeMillis(), refreshAheadMillis))
+        {
+            // readers keep the current value while it is reloaded, at most once at a time per key
+            delegate.refreshAhead(key, () -> {
+                if (!isClosed())
+                {
+                    doRefresh(key, elt);
+                }
+            });
+        }
+        if (statisticsEnabled && v != null)
+        {
+            statistics.addGetTime(Times.now(false) - getStart);
+        }
+        return v;
+    }
+
+    // a get already moved the element to the front, iteration must leave it where it is
+    private void updateAccessExpiry(final K key, final ICacheElement<K, V> elt, final boolean promote)
+    {
+        final Duration expiryForAccess = expiryPolicy.getExpiryForAccess();
+        if (!isNotZero(expiryForAccess))
+        {
+            forceExpires(key);
+        }
+        else if (expiryForAccess != null && (!elt.getElementAttributes().getIsEternal() || !expiryForAccess.isEternal()))
+        {
+            try
             {
-                try
+                if (promote)
                 {
-                    delegate.update(updateElement(key, elt.getVal(), expiryForAccess, elt.getElementAttributes()));
+                    delegate.update(updateElement(storedCopy(key, elt), expiryForAccess, elt.getElementAttributes()));
                 }
-                catch (final IOException e)
+                else
                 {
-                    throw new CacheException(e);
+                    delegate.updateElementAttributes(key, updateElement(elt, expiryForAccess, elt.getElementAttributes()).getElementAttributes());
                 }
             }
+            catch (final IOException e)
+            {
+                throw new CacheException(e);
+            }
         }
-        if (statisticsEnabled && v != null)
+    }
+
+    // iteration is an access for JSR-107 but the element is already there, no lookup nor LRU update
+    private Entry<K, V> iterated(final ICacheElement<K, V> elt)
+    {
+        final V v = valueOf(elt);
+        if (config.isStatisticsEnabled())
         {
-            statistics.addGetTime(Times.now(false) - getStart);
+            statistics.increaseHits(1);
         }
-        return v;
+        updateAccessExpiry(elt.getKey(), elt, false);
+        return new JCSEntry<>(elt.getKey(), v);
     }
 
     @Override
     public boolean replace(final K key, final V oldValue, final V newValue)
+    {
+        return withKeyLock(key, () -> doReplace(key, oldValue, newValue));
+    }
+
+    private boolean doReplace(final K key, final V oldValue, final V newValue)
     {
         assertNotClosed();
         assertNotNull(key, "key");
@@ -580,7 +910,7 @@ public class JCSCache<K, V> implements Cache<K, V>
         final ICacheElement<K, V> elt = delegate.get(key);
         if (elt != null)
         {
-            V value = elt.getVal();
+            V value = valueOf(elt);
             if (value != null && statisticsEnabled)
             {
                 statistics.increaseHits(1);
@@ -601,7 +931,7 @@ public class JCSCache<K, V> implements Cache<K, V>
                 {
                     try
                     {
-                        delegate.update(updateElement(key, elt.getVal(), expiryForAccess, elt.getElementAttributes()));
+                        delegate.update(updateElement(storedCopy(key, elt), expiryForAccess, elt.getElementAttributes()));
                     }
                     catch (final IOException e)
                     {
@@ -619,6 +949,11 @@ public class JCSCache<K, V> implements Cache<K, V>
 
     @Override
     public boolean replace(final K key, final V value)
+    {
+        return withKeyLock(key, () -> doReplace(key, value));
+    }
+
+    private boolean doReplace(final K key, final V value)
     {
         assertNotClosed();
         assertNotNull(key, "key");
@@ -642,6 +977,11 @@ public class JCSCache<K, V> implements Cache<K, V>
 
     @Override
     public V getAndReplace(final K key, final V value)
+    {
+        return withKeyLock(key, () -> doGetAndReplace(key, value));
+    }
+
+    private V doGetAndReplace(final K key, final V value)
     {
         assertNotClosed();
         assertNotNull(key, "key");
@@ -652,7 +992,7 @@ public class JCSCache<K, V> implements Cache<K, V>
         final ICacheElement<K, V> elt = delegate.get(key);
         if (elt != null)
         {
-            V oldValue = elt.getVal();
+            V oldValue = valueOf(elt);
             if (oldValue == null && config.isReadThrough())
             {
                 oldValue = doLoad(key, false, Times.now(false), false);
@@ -722,27 +1062,31 @@ public class JCSCache<K, V> implements Cache<K, V>
         {
             assertNotNull(k, "a key");
         }
-        pool.submit(() -> doLoadAll(keys, replaceExistingValues, completionListener));
+        pool.submit(() -> loadAllAndComplete(keys, replaceExistingValues, completionListener));
     }
 
-    private void doLoadAll(final Set<? extends K> keys, final boolean replaceExistingValues, final CompletionListener completionListener)
+    private void loadAllAndComplete(final Set<? extends K> keys, final boolean replaceExistingValues, final CompletionListener completionListener)
     {
         try
         {
-            final long now = Times.now(false);
-            for (final K k : keys)
+            final Collection<? extends K> toLoad;
+            if (replaceExistingValues)
             {
-                if (replaceExistingValues)
-                {
-                    doLoad(k, containsKey(k), now, completionListener != null);
-                    continue;
-                }
-                if (containsKey(k))
+                toLoad = keys;
+            }
+            else
+            {
+                final List<K> absent = new ArrayList<>(keys.size());
+                for (final K k : keys)
                 {
-                    continue;
+                    if (!containsKey(k))
+                    {
+                        absent.add(k);
+                    }
                 }
-                doGetControllingExpiry(now, k, true, true, false, completionListener != null);
+                toLoad = absent;
             }
+            doLoadAll(toLoad, replaceExistingValues, completionListener != null);
         }
         catch (final RuntimeException e)
         {
@@ -761,10 +1105,15 @@ public class JCSCache<K, V> implements Cache<K, V>
     @Override
     public <T> T invoke(final K key, final EntryProcessor<K, V, T> entryProcessor, final Object... arguments) throws EntryProcessorException
     {
-        final TempStateCacheView<K, V> view = new TempStateCacheView<>(this);
-        final T t = doInvoke(view, key, entryProcessor, arguments);
-        view.merge();
-        return t;
+        assertNotNull(entryProcessor, "entryProcessor");
+        // the processor sees a consistent entry and its changes are applied before another writer of the key runs,
+        // the view is kept to apply nothing when the processor fails
+        return withKeyLock(key, () -> {
+            final TempStateCacheView<K, V> view = new TempStateCacheView<>(this);
+            final T t = doInvoke(view, key, entryProcessor, arguments);
+            view.merge();
+            return t;
+        });
     }
 
     private <T> T doInvoke(final TempStateCacheView<K, V> view, final K key, final EntryProcessor<K, V, T> entryProcessor,
@@ -808,8 +1157,46 @@ public class JCSCache<K, V> implements Cache<K, V>
             final Object... arguments)
     {
         assertNotClosed();
+        assertNotNull(keys, "keys");
         assertNotNull(entryProcessor, "entryProcessor");
-        final Map<K, EntryProcessorResult<T>> results = new HashMap<>();
+        for (final K k : keys)
+        {
+            assertNotNull(k, "key");
+        }
+
+        // keys of a stripe go to the same task so tasks don't contend on a lock
+        final int tasks = Math.min(keys.size(), parallelism + 1);
+        final Map<K, EntryProcessorResult<T>> results = new ConcurrentHashMap<>();
+        if (tasks <= 1)
+        {
+            doInvokeAll(keys, entryProcessor, arguments, results);
+            return results;
+        }
+        final List<List<K>> groups = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++)
+        {
+            groups.add(new ArrayList<>());
+        }
+        for (final K k : keys)
+        {
+            groups.get(locks.stripe(k) % tasks).add(k);
+        }
+
+        final List<Runnable> runnables = new ArrayList<>(tasks);
+        for (final List<K> group : groups)
+        {
+            if (!group.isEmpty() || runnables.isEmpty())
+            {
+                runnables.add(() -> doInvokeAll(group, entryProcessor, arguments, results));
+            }
+        }
+        runAll(runnables);
+        return results;
+    }
+
+    private <T> void doInvokeAll(final Collection<? extends K> keys, final EntryProcessor<K, V, T> entryProcessor,
+            final Object[] arguments, final Map<K, EntryProcessorResult<T>> results)
+    {
         for (final K k : keys)
         {
             try
@@ -825,7 +1212,6 @@ public class JCSCache<K, V> implements Cache<K, V>
                 results.put(k, () -> throwEntryProcessorException(e));
             }
         }
-        return results;
     }
 
     @Override
@@ -852,7 +1238,7 @@ public class JCSCache<K, V> implements Cache<K, V>
     public Iterator<Entry<K, V>> iterator()
     {
         assertNotClosed();
-        final Iterator<K> keys = new HashSet<>(delegate.getKeySet()).iterator();
+        final Iterator<ICacheElement<K, V>> elements = delegate.getElementStream().iterator();
         return new Iterator<Entry<K, V>>()
         {
             private K lastKey;
@@ -860,14 +1246,15 @@ public class JCSCache<K, V> implements Cache<K, V>
             @Override
             public boolean hasNext()
             {
-                return keys.hasNext();
+                return elements.hasNext();
             }
 
             @Override
             public Entry<K, V> next()
             {
-                lastKey = keys.next();
-                return new JCSEntry<>(lastKey, get(lastKey));
+                final Entry<K, V> entry = iterated(elements.next());
+                lastKey = entry.getKey();
+                return entry;
             }
 
             @Override
@@ -882,6 +1269,13 @@ public class JCSCache<K, V> implements Cache<K, V>
         };
     }
 
+    @Override
+    public Spliterator<Entry<K, V>> spliterator()
+    {
+        assertNotClosed();
+        return delegate.getElementStream().map(this::iterated).spliterator();
+    }
+
     @Override
     public String getName()
     {
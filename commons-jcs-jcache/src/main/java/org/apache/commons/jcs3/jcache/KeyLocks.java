@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.commons.jcs3.jcache;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+// per key exclusion for the compound operations (invoke, replace, ...) without a global lock,
+// keys sharing a stripe are serialized, others run concurrently
+class KeyLocks
+{
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    KeyLocks(final int stripes)
+    {
+        int size = 1;
+        while (size < stripes)
+        {
+            size <<= 1;
+        }
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++)
+        {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    int stripe(final Object key)
+    {
+        final int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    ReentrantLock lockFor(final Object key)
+    {
+        return locks[stripe(key)];
+    }
+}
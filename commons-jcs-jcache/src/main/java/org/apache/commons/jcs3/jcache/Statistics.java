@@ -18,60 +18,85 @@
  */
 package org.apache.commons.jcs3.jcache;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.apache.commons.jcs3.engine.stats.LatencyHistogram;
+
+// striped counters, concurrent updates don't contend on a single cache line
 public class Statistics
 {
     private volatile boolean active = true;
-
-    private final AtomicLong removals = new AtomicLong();
-    private final AtomicLong expiries = new AtomicLong();
-    private final AtomicLong puts = new AtomicLong();
-    private final AtomicLong hits = new AtomicLong();
-    private final AtomicLong misses = new AtomicLong();
-    private final AtomicLong evictions = new AtomicLong();
-    private final AtomicLong putTimeTaken = new AtomicLong();
-    private final AtomicLong getTimeTaken = new AtomicLong();
-    private final AtomicLong removeTimeTaken = new AtomicLong();
+    private volatile LatencyHistogram[] histograms; // get, put and remove durations when enabled
+
+    private final LongAdder removals = new LongAdder();
+    private final LongAdder expiries = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder putTimeTaken = new LongAdder();
+    private final LongAdder getTimeTaken = new LongAdder();
+    private final LongAdder removeTimeTaken = new LongAdder();
 
     public long getHits()
     {
-        return hits.get();
+        return hits.sum();
     }
 
     public long getMisses()
     {
-        return misses.get();
+        return misses.sum();
     }
 
     public long getPuts()
     {
-        return puts.get();
+        return puts.sum();
     }
 
     public long getRemovals()
     {
-        return removals.get();
+        return removals.sum();
     }
 
     public long getEvictions()
     {
-        return evictions.get();
+        return evictions.sum();
     }
 
     public long getTimeTakenForGets()
     {
-        return getTimeTaken.get();
+        return getTimeTaken.sum();
     }
 
     public long getTimeTakenForPuts()
     {
-        return putTimeTaken.get();
+        return putTimeTaken.sum();
     }
 
     public long getTimeTakenForRemovals()
     {
-        return removeTimeTaken.get();
+        return removeTimeTaken.sum();
+    }
+
+    public LatencyHistogram getGetTimes()
+    {
+        return histogram(0);
+    }
+
+    public LatencyHistogram getPutTimes()
+    {
+        return histogram(1);
+    }
+
+    public LatencyHistogram getRemoveTimes()
+    {
+        return histogram(2);
+    }
+
+    private LatencyHistogram histogram(final int index)
+    {
+        final LatencyHistogram[] current = histograms;
+        return current == null ? null : current[index];
     }
 
     public void increaseRemovals(final long number)
@@ -106,61 +131,70 @@ public class Statistics
 
     public void addGetTime(final long duration)
     {
-        increment(duration, getTimeTaken);
+        addTime(duration, getTimeTaken, 0);
     }
 
     public void addPutTime(final long duration)
     {
-        increment(duration, putTimeTaken);
+        addTime(duration, putTimeTaken, 1);
     }
 
     public void addRemoveTime(final long duration)
     {
-        increment(duration, removeTimeTaken);
+        addTime(duration, removeTimeTaken, 2);
     }
 
-    private void increment(final AtomicLong counter, final long number)
+    private void increment(final LongAdder counter, final long number)
     {
         if (!active)
         {
             return;
         }
-        counter.addAndGet(number);
+        counter.add(number);
     }
 
-    private void increment(final long duration, final AtomicLong counter)
+    private void addTime(final long duration, final LongAdder counter, final int histogram)
     {
         if (!active)
         {
             return;
         }
-
-        if (counter.get() < Long.MAX_VALUE - duration)
-        {
-            counter.addAndGet(duration);
-        }
-        else
+        counter.add(duration);
+        final LatencyHistogram[] current = histograms;
+        if (current != null)
         {
-            reset();
-            counter.set(duration);
+            current[histogram].record(duration);
         }
     }
 
     public void reset()
     {
-        puts.set(0);
-        misses.set(0);
-        removals.set(0);
-        expiries.set(0);
-        hits.set(0);
-        evictions.set(0);
-        getTimeTaken.set(0);
-        putTimeTaken.set(0);
-        removeTimeTaken.set(0);
+        puts.reset();
+        misses.reset();
+        removals.reset();
+        expiries.reset();
+        hits.reset();
+        evictions.reset();
+        getTimeTaken.reset();
+        putTimeTaken.reset();
+        removeTimeTaken.reset();
+        final LatencyHistogram[] current = histograms;
+        if (current != null)
+        {
+            for (final LatencyHistogram histogram : current)
+            {
+                histogram.reset();
+            }
+        }
     }
 
     public void setActive(final boolean active)
     {
         this.active = active;
     }
+
+    public void setHistograms(final boolean enabled)
+    {
+        histograms = enabled ? new LatencyHistogram[] { new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram() } : null;
+    }
 }
@@ -487,6 +487,7 @@ public class CDIJCacheHelper
         private final CacheResolverFactory cacheResultResolverFactory;
         private final CacheKeyGenerator cacheResultKeyGenerator;
         private final CacheResult cacheResult;
+        private final CacheResultFastPath cacheResultFastPath;
 
         private final String cachePutCacheName;
         private final CacheResolverFactory cachePutResolverFactory;
@@ -525,6 +526,7 @@ public class CDIJCacheHelper
             this.cacheResultResolverFactory = cacheResultResolverFactory;
             this.cacheResultKeyGenerator = cacheResultKeyGenerator;
             this.cacheResult = cacheResult;
+            this.cacheResultFastPath = CacheResultFastPath.of(cacheResult, cacheResultKeyGenerator, cacheResultResolverFactory, keysIndices);
             this.cachePutCacheName = cachePutCacheName;
             this.cachePutResolverFactory = cachePutResolverFactory;
             this.cachePutKeyGenerator = cachePutKeyGenerator;
@@ -580,6 +582,14 @@ public class CDIJCacheHelper
             return cacheResult;
         }
 
+        /**
+         * @return the shortcut of the @CacheResult interceptor, null if a custom key generator or resolver factory is used.
+         */
+        public CacheResultFastPath getCacheResultFastPath()
+        {
+            return cacheResultFastPath;
+        }
+
         public Integer[] getParameterIndices()
         {
             return parameterIndices;
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.commons.jcs3.jcache.cdi;
+
+import javax.cache.Cache;
+import javax.cache.annotation.CacheKeyGenerator;
+import javax.cache.annotation.CacheKeyInvocationContext;
+import javax.cache.annotation.CacheResolverFactory;
+import javax.cache.annotation.CacheResult;
+import javax.cache.annotation.GeneratedCacheKey;
+import javax.interceptor.InvocationContext;
+
+/**
+ * Per method shortcut of the @CacheResult interceptor used when the default key generator and
+ * cache resolver factory are configured: their result only depends on the method and its key
+ * parameters so the cache is resolved once and the key is built from the parameters without
+ * creating an invocation context.
+ */
+public class CacheResultFastPath
+{
+    private static final GeneratedCacheKey NO_PARAMETER_KEY = new GeneratedCacheKeyImpl(new Object[0]);
+
+    private final int[] keyIndices;
+    private volatile Cache<Object, Object> cache;
+
+    public CacheResultFastPath(final Integer[] keyIndices)
+    {
+        this.keyIndices = new int[keyIndices.length];
+        for (int i = 0; i < keyIndices.length; i++)
+        {
+            this.keyIndices[i] = keyIndices[i];
+        }
+    }
+
+    /**
+     * @return a fast path if the generator and the factory are the default ones, null otherwise.
+     */
+    public static CacheResultFastPath of(final CacheResult cacheResult, final CacheKeyGenerator keyGenerator,
+                                         final CacheResolverFactory resolverFactory, final Integer[] keyIndices)
+    {
+        if (cacheResult == null
+                || keyGenerator == null || keyGenerator.getClass() != CacheKeyGeneratorImpl.class
+                || resolverFactory == null || resolverFactory.getClass() != CacheResolverFactoryImpl.class)
+        {
+            return null;
+        }
+        return new CacheResultFastPath(keyIndices);
+    }
+
+    /**
+     * Same key as CacheKeyGeneratorImpl for the same invocation.
+     */
+    public GeneratedCacheKey generateCacheKey(final InvocationContext ic)
+    {
+        switch (keyIndices.length)
+        {
+            case 0:
+                return NO_PARAMETER_KEY;
+            case 1:
+                return new GeneratedCacheKeyImpl(new Object[]{ic.getParameters()[keyIndices[0]]});
+            default:
+                final Object[] args = ic.getParameters();
+                final Object[] keyValues = new Object[keyIndices.length];
+                for (int i = 0; i < keyIndices.length; i++)
+                {
+                    keyValues[i] = args[keyIndices[i]];
+                }
+                return new GeneratedCacheKeyImpl(keyValues);
+        }
+    }
+
+    /**
+     * @return the cache of the method, resolved again if it was closed (destroyed) since the last call.
+     */
+    public Cache<Object, Object> resolveCache(final CacheResolverFactory resolverFactory,
+                                              final CacheKeyInvocationContext<CacheResult> context)
+    {
+        Cache<Object, Object> resolved = cache;
+        if (resolved == null || resolved.isClosed())
+        {
+            resolved = resolverFactory.getCacheResolver(context).resolveCache(context);
+            cache = resolved;
+        }
+        return resolved;
+    }
+
+    /**
+     * @return the cache resolved by a previous call if it is still usable, null otherwise.
+     */
+    public Cache<Object, Object> getCache()
+    {
+        final Cache<Object, Object> resolved = cache;
+        return resolved == null || resolved.isClosed() ? null : resolved;
+    }
+}
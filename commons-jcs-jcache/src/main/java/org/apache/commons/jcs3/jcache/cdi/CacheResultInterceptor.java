@@ -19,6 +19,7 @@
 package org.apache.commons.jcs3.jcache.cdi;
 
 import java.io.Serializable;
+import java.lang.reflect.Method;
 import javax.annotation.Priority;
 import javax.cache.Cache;
 import javax.cache.annotation.CacheKeyInvocationContext;
@@ -43,22 +44,44 @@ public class CacheResultInterceptor implements Serializable
     @Inject
     private CDIJCacheHelper helper;
 
+    // an interceptor instance is bound to a bean instance, it is generally called for the same method
+    private transient volatile LastMeta last;
+
     @AroundInvoke
     public Object cache(final InvocationContext ic) throws Throwable
     {
-        final CDIJCacheHelper.MethodMeta methodMeta = helper.findMeta(ic);
+        final CDIJCacheHelper.MethodMeta methodMeta = findMeta(ic);
 
         final String cacheName = methodMeta.getCacheResultCacheName();
 
         final CacheResult cacheResult = methodMeta.getCacheResult();
-        final CacheKeyInvocationContext<CacheResult> context = new CacheKeyInvocationContextImpl<>(
-                ic, cacheResult, cacheName, methodMeta);
-
         final CacheResolverFactory cacheResolverFactory = methodMeta.getCacheResultResolverFactory();
-        final CacheResolver cacheResolver = cacheResolverFactory.getCacheResolver(context);
-        final Cache<Object, Object> cache = cacheResolver.resolveCache(context);
+        final CacheResultFastPath fastPath = methodMeta.getCacheResultFastPath();
 
-        final GeneratedCacheKey cacheKey = methodMeta.getCacheResultKeyGenerator().generateCacheKey(context);
+        CacheKeyInvocationContext<CacheResult> context = null; // only created on the fast path when needed
+        final Cache<Object, Object> cache;
+        final GeneratedCacheKey cacheKey;
+        if (fastPath != null)
+        {
+            final Cache<Object, Object> resolved = fastPath.getCache();
+            if (resolved != null)
+            {
+                cache = resolved;
+            }
+            else
+            {
+                context = new CacheKeyInvocationContextImpl<>(ic, cacheResult, cacheName, methodMeta);
+                cache = fastPath.resolveCache(cacheResolverFactory, context);
+            }
+            cacheKey = fastPath.generateCacheKey(ic);
+        }
+        else
+        {
+            context = new CacheKeyInvocationContextImpl<>(ic, cacheResult, cacheName, methodMeta);
+            final CacheResolver cacheResolver = cacheResolverFactory.getCacheResolver(context);
+            cache = cacheResolver.resolveCache(context);
+            cacheKey = methodMeta.getCacheResultKeyGenerator().generateCacheKey(context);
+        }
 
         Cache<Object, Object> exceptionCache = null; // lazily created
 
@@ -74,6 +97,10 @@ public class CacheResultInterceptor implements Serializable
 
             if (!cacheResult.exceptionCacheName().isEmpty())
             {
+                if (context == null)
+                {
+                    context = new CacheKeyInvocationContextImpl<>(ic, cacheResult, cacheName, methodMeta);
+                }
                 exceptionCache = cacheResolverFactory.getExceptionCacheResolver(context).resolveCache(context);
                 final Object exception = exceptionCache.get(cacheKey);
                 if (exception != null)
@@ -99,6 +126,10 @@ public class CacheResultInterceptor implements Serializable
             {
                 if (exceptionCache == null)
                 {
+                    if (context == null)
+                    {
+                        context = new CacheKeyInvocationContextImpl<>(ic, cacheResult, cacheName, methodMeta);
+                    }
                     exceptionCache = cacheResolverFactory.getExceptionCacheResolver(context).resolveCache(context);
                 }
                 exceptionCache.put(cacheKey, t);
@@ -106,4 +137,32 @@ public class CacheResultInterceptor implements Serializable
             throw t;
         }
     }
+
+    private CDIJCacheHelper.MethodMeta findMeta(final InvocationContext ic)
+    {
+        final Object target = ic.getTarget();
+        final Class<?> type = target == null ? null : target.getClass();
+        final LastMeta current = last;
+        if (current != null && current.type == type && current.method.equals(ic.getMethod()))
+        {
+            return current.meta;
+        }
+        final CDIJCacheHelper.MethodMeta meta = helper.findMeta(ic);
+        last = new LastMeta(ic.getMethod(), type, meta);
+        return meta;
+    }
+
+    private static final class LastMeta
+    {
+        private final Method method;
+        private final Class<?> type;
+        private final CDIJCacheHelper.MethodMeta meta;
+
+        private LastMeta(final Method method, final Class<?> type, final CDIJCacheHelper.MethodMeta meta)
+        {
+            this.method = method;
+            this.type = type;
+            this.meta = meta;
+        }
+    }
 }
@@ -1,5 +1,3 @@
-package org.apache.commons.jcs.utils.props;
-
 /*
  * Licensed to the Apache Software Foundation (ASF) under one
  * or more contributor license agreements.  See the NOTICE file
@@ -18,23 +16,28 @@ package org.apache.commons.jcs.utils.props;
  * specific language governing permissions and limitations
  * under the License.
  */
+package org.apache.commons.jcs3.jcache.jmx;
 
-import java.util.Properties;
+import javax.cache.management.CacheStatisticsMXBean;
 
-/**
- * Goes to the file system to load a properties file.
- */
-public class PropertiesFactoryFileImpl
-    implements PropertiesFactory
+// percentiles in microseconds, 0 unless the statistics.histograms property is set
+public interface JCSCacheLatencyStatisticsMXBean extends CacheStatisticsMXBean
 {
-    /**
-     * Loads the properties using the property loader.
-     * @param groupName property group name
-     * @return Properties
-     */
-    @Override
-    public Properties getProperties( String groupName )
-    {
-        return PropertyLoader.loadProperties( groupName );
-    }
+    float getGetTimeP50();
+
+    float getGetTimeP99();
+
+    float getGetTimeP999();
+
+    float getPutTimeP50();
+
+    float getPutTimeP99();
+
+    float getPutTimeP999();
+
+    float getRemoveTimeP50();
+
+    float getRemoveTimeP99();
+
+    float getRemoveTimeP999();
 }
@@ -18,11 +18,10 @@
  */
 package org.apache.commons.jcs3.jcache.jmx;
 
-import javax.cache.management.CacheStatisticsMXBean;
-
+import org.apache.commons.jcs3.engine.stats.LatencyHistogram;
 import org.apache.commons.jcs3.jcache.Statistics;
 
-public class JCSCacheStatisticsMXBean implements CacheStatisticsMXBean
+public class JCSCacheStatisticsMXBean implements JCSCacheLatencyStatisticsMXBean
 {
     private final Statistics statistics;
 
@@ -113,6 +112,65 @@ public class JCSCacheStatisticsMXBean implements CacheStatisticsMXBean
         return averageTime(statistics.getTimeTakenForRemovals());
     }
 
+    @Override
+    public float getGetTimeP50()
+    {
+        return percentile(statistics.getGetTimes(), 0.5);
+    }
+
+    @Override
+    public float getGetTimeP99()
+    {
+        return percentile(statistics.getGetTimes(), 0.99);
+    }
+
+    @Override
+    public float getGetTimeP999()
+    {
+        return percentile(statistics.getGetTimes(), 0.999);
+    }
+
+    @Override
+    public float getPutTimeP50()
+    {
+        return percentile(statistics.getPutTimes(), 0.5);
+    }
+
+    @Override
+    public float getPutTimeP99()
+    {
+        return percentile(statistics.getPutTimes(), 0.99);
+    }
+
+    @Override
+    public float getPutTimeP999()
+    {
+        return percentile(statistics.getPutTimes(), 0.999);
+    }
+
+    @Override
+    public float getRemoveTimeP50()
+    {
+        return percentile(statistics.getRemoveTimes(), 0.5);
+    }
+
+    @Override
+    public float getRemoveTimeP99()
+    {
+        return percentile(statistics.getRemoveTimes(), 0.99);
+    }
+
+    @Override
+    public float getRemoveTimeP999()
+    {
+        return percentile(statistics.getRemoveTimes(), 0.999);
+    }
+
+    private static float percentile(final LatencyHistogram histogram, final double quantile)
+    {
+        return histogram == null ? 0 : histogram.getPercentile(quantile);
+    }
+
     private float averageTime(final long timeTaken)
     {
         final long gets = getCacheGets();
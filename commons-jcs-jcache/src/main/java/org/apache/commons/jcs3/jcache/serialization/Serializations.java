@@ -18,12 +18,43 @@
  */
 package org.apache.commons.jcs3.jcache.serialization;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
 import org.apache.commons.jcs3.engine.behavior.IElementSerializer;
 
 public class Serializations
 {
+    // exact classes only, a subclass of a non final type can be mutable
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class,
+            Instant.class, Duration.class, Period.class, LocalDate.class, LocalTime.class, LocalDateTime.class,
+            OffsetTime.class, OffsetDateTime.class, ZonedDateTime.class, Year.class, YearMonth.class, MonthDay.class));
+
     public static <K> K copy(final IElementSerializer serializer, final ClassLoader loader, final K key)
     {
+        if (isImmutable(key))
+        {
+            return key;
+        }
         try
         {
             return serializer.deSerialize(serializer.serialize(key), loader);
@@ -33,4 +64,11 @@ public class Serializations
             throw new IllegalStateException(e);
         }
     }
+
+    // a copy of these would be equal and behave the same, sharing them is safe
+    public static boolean isImmutable(final Object value)
+    {
+        return value == null || IMMUTABLE_TYPES.contains(value.getClass())
+                || Enum.class.isInstance(value) || ZoneId.class.isInstance(value); // ZoneId has no public subclass
+    }
 }
@@ -0,0 +1,153 @@
+package org.apache.commons.jcs3.jcache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.integration.CacheLoader;
+import javax.cache.integration.CacheLoaderException;
+import javax.cache.integration.CompletionListenerFuture;
+import javax.cache.spi.CachingProvider;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class BulkLoadTest
+{
+    @Test
+    public void getAllLoadsMissesInChunks()
+    {
+        final CountingLoader loader = new CountingLoader();
+        final CachingProvider cachingProvider = Caching.getCachingProvider();
+        try
+        {
+            final Cache<Integer, String> cache = createCache(cachingProvider, loader);
+            cache.put(0, "cached");
+
+            final Set<Integer> keys = new HashSet<>();
+            for (int i = 0; i < 26; i++)
+            {
+                keys.add(i);
+            }
+            final Map<Integer, String> values = cache.getAll(keys);
+
+            assertEquals(26, values.size());
+            assertEquals("cached", values.get(0));
+            assertEquals("v25", values.get(25));
+            assertEquals(25, loader.loadedKeys());
+            assertEquals(3, loader.chunks.size()); // 10 + 10 + 5
+            assertEquals("v7", cache.get(7));
+            assertEquals(3, loader.chunks.size());
+        }
+        finally
+        {
+            cachingProvider.close();
+        }
+    }
+
+    @Test
+    public void loadAllReplacesExistingInChunks() throws Exception
+    {
+        final CountingLoader loader = new CountingLoader();
+        final CachingProvider cachingProvider = Caching.getCachingProvider();
+        try
+        {
+            final Cache<Integer, String> cache = createCache(cachingProvider, loader);
+            cache.put(3, "old");
+
+            final Set<Integer> keys = new HashSet<>();
+            for (int i = 0; i < 25; i++)
+            {
+                keys.add(i);
+            }
+            final CompletionListenerFuture skipExisting = new CompletionListenerFuture();
+            cache.loadAll(keys, false, skipExisting);
+            skipExisting.get();
+            assertEquals(24, loader.loadedKeys());
+            assertEquals("old", cache.get(3));
+
+            final CompletionListenerFuture replace = new CompletionListenerFuture();
+            cache.loadAll(keys, true, replace);
+            replace.get();
+            assertEquals(24 + 25, loader.loadedKeys());
+            assertEquals("v3", cache.get(3));
+            assertEquals("v24", cache.get(24));
+        }
+        finally
+        {
+            cachingProvider.close();
+        }
+    }
+
+    private static Cache<Integer, String> createCache(final CachingProvider cachingProvider, final CacheLoader<Integer, String> loader)
+    {
+        final Properties properties = new Properties();
+        properties.setProperty("bulk.loader.chunk.size", "10");
+        final CacheManager cacheManager = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(),
+                Thread.currentThread().getContextClassLoader(), properties);
+        return cacheManager.createCache("bulk", new MutableConfiguration<Integer, String>()
+                .setStoreByValue(false)
+                .setReadThrough(true)
+                .setCacheLoaderFactory(new FactoryBuilder.SingletonFactory<>(loader)));
+    }
+
+    private static class CountingLoader implements CacheLoader<Integer, String>
+    {
+        private final List<Integer> chunks = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String load(final Integer key) throws CacheLoaderException
+        {
+            throw new CacheLoaderException("bulk loads should not load key by key");
+        }
+
+        @Override
+        public Map<Integer, String> loadAll(final Iterable<? extends Integer> keys) throws CacheLoaderException
+        {
+            final Map<Integer, String> values = new HashMap<>();
+            for (final Integer key : keys)
+            {
+                values.put(key, "v" + key);
+            }
+            chunks.add(values.size());
+            return values;
+        }
+
+        private int loadedKeys()
+        {
+            synchronized (chunks)
+            {
+                return chunks.stream().mapToInt(Integer::intValue).sum();
+            }
+        }
+    }
+}
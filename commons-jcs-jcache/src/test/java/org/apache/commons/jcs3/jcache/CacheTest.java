@@ -44,6 +44,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -101,6 +102,20 @@ public class CacheTest
         cachingProvider.close();
     }
 
+    @Test
+    public void parallelStream()
+    {
+        final CachingProvider cachingProvider = Caching.getCachingProvider();
+        final CacheManager cacheManager = cachingProvider.getCacheManager();
+        final Cache<Integer, Integer> cache = cacheManager.createCache("stream", new MutableConfiguration<Integer, Integer>());
+        for (int i = 0; i < 50; i++)
+        {
+            cache.put(i, i);
+        }
+        assertEquals(1225, StreamSupport.stream(cache.spliterator(), true).mapToInt(Cache.Entry::getValue).sum());
+        cachingProvider.close();
+    }
+
     @Test
     public void listeners()
     {
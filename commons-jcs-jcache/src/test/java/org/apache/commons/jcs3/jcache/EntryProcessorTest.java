@@ -0,0 +1,133 @@
+package org.apache.commons.jcs3.jcache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.EntryProcessorResult;
+import javax.cache.spi.CachingProvider;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class EntryProcessorTest
+{
+    private static final EntryProcessor<String, Integer, Integer> INCREMENT = (entry, args) -> {
+        final Integer current = entry.getValue();
+        final int next = current == null ? 1 : current + 1;
+        entry.setValue(next);
+        return next;
+    };
+
+    @Test
+    public void concurrentInvokesAreAtomic() throws InterruptedException
+    {
+        final CachingProvider cachingProvider = Caching.getCachingProvider();
+        final CacheManager cacheManager = cachingProvider.getCacheManager();
+        final Cache<String, Integer> cache = cacheManager.createCache("invoke", new MutableConfiguration<String, Integer>());
+        try
+        {
+            final int threads = 8;
+            final int increments = 500;
+            final List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++)
+            {
+                final Thread thread = new Thread(() -> {
+                    for (int i = 0; i < increments; i++)
+                    {
+                        cache.invoke("counter", INCREMENT);
+                    }
+                });
+                workers.add(thread);
+                thread.start();
+            }
+            for (final Thread thread : workers)
+            {
+                thread.join();
+            }
+            assertEquals(threads * increments, cache.get("counter").intValue());
+        }
+        finally
+        {
+            cachingProvider.close();
+        }
+    }
+
+    @Test
+    public void invokeAll()
+    {
+        final CachingProvider cachingProvider = Caching.getCachingProvider();
+        final CacheManager cacheManager = cachingProvider.getCacheManager();
+        final Cache<String, Integer> cache = cacheManager.createCache("invokeAll", new MutableConfiguration<String, Integer>());
+        try
+        {
+            final Set<String> keys = new HashSet<>();
+            for (int i = 0; i < 100; i++)
+            {
+                keys.add("key" + i);
+                cache.put("key" + i, i);
+            }
+            keys.add("failing");
+
+            final Map<String, EntryProcessorResult<Integer>> results = cache.invokeAll(keys, (entry, args) -> {
+                if ("failing".equals(entry.getKey()))
+                {
+                    entry.setValue(-1);
+                    throw new IllegalStateException("expected");
+                }
+                entry.setValue(entry.getValue() * 2);
+                return entry.getKey().endsWith("0") ? null : entry.getValue();
+            });
+
+            assertEquals(91, results.size());
+            assertEquals(14, results.get("key7").get().intValue());
+            assertNull(results.get("key10"));
+            assertEquals(20, cache.get("key10").intValue());
+            assertEquals(198, cache.get("key99").intValue());
+            try
+            {
+                results.get("failing").get();
+                fail();
+            }
+            catch (final EntryProcessorException epe)
+            {
+                // expected
+            }
+            assertFalse(cache.containsKey("failing"));
+        }
+        finally
+        {
+            cachingProvider.close();
+        }
+    }
+}
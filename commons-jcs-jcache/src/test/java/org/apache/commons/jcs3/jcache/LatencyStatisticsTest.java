@@ -0,0 +1,100 @@
+package org.apache.commons.jcs3.jcache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.spi.CachingProvider;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyStatisticsTest
+{
+    @Test
+    public void percentilesWhenHistogramsEnabled() throws Exception
+    {
+        final Properties properties = new Properties();
+        properties.setProperty("histo.statistics.histograms", "true");
+        final CachingProvider cachingProvider = Caching.getCachingProvider();
+        try
+        {
+            final CacheManager cacheManager = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(),
+                    Thread.currentThread().getContextClassLoader(), properties);
+            final Cache<String, String> cache = cacheManager.createCache("histo", new MutableConfiguration<String, String>()
+                    .setStatisticsEnabled(true));
+            for (int i = 0; i < 100; i++)
+            {
+                cache.put("k" + i, "v" + i);
+                cache.get("k" + i);
+            }
+            cache.remove("k0");
+
+            final Statistics statistics = cache.unwrap(JCSCache.class).getStatistics();
+            assertEquals(100, statistics.getPutTimes().getCount());
+            assertEquals(100, statistics.getGetTimes().getCount());
+            assertEquals(1, statistics.getRemoveTimes().getCount());
+
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final Set<ObjectName> names = server.queryNames(new ObjectName("javax.cache:type=CacheStatistics,Cache=histo,*"), null);
+            assertEquals(1, names.size());
+            final ObjectName name = names.iterator().next();
+            final float p50 = (Float) server.getAttribute(name, "GetTimeP50");
+            final float p99 = (Float) server.getAttribute(name, "GetTimeP99");
+            assertTrue(p99 >= p50);
+            assertNotNull(server.getAttribute(name, "PutTimeP999"));
+
+            server.invoke(name, "clear", null, null);
+            assertEquals(0, statistics.getGetTimes().getCount());
+        }
+        finally
+        {
+            cachingProvider.close();
+        }
+    }
+
+    @Test
+    public void noHistogramsByDefault()
+    {
+        final CachingProvider cachingProvider = Caching.getCachingProvider();
+        try
+        {
+            final Cache<String, String> cache = cachingProvider.getCacheManager().createCache("nohisto",
+                    new MutableConfiguration<String, String>().setStatisticsEnabled(true));
+            cache.put("k", "v");
+            assertNull(cache.unwrap(JCSCache.class).getStatistics().getPutTimes());
+        }
+        finally
+        {
+            cachingProvider.close();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.apache.commons.jcs3.jcache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.Duration;
+import javax.cache.integration.CacheLoader;
+import javax.cache.integration.CacheLoaderException;
+import javax.cache.spi.CachingProvider;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RefreshAheadTest
+{
+    @Test
+    public void hitInWindowReloadsInBackground() throws InterruptedException
+    {
+        final AtomicInteger loads = new AtomicInteger();
+        final CacheLoader<String, String> loader = new CacheLoader<String, String>()
+        {
+            @Override
+            public String load(final String key) throws CacheLoaderException
+            {
+                try
+                {
+                    Thread.sleep(100);
+                }
+                catch (final InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return "v" + loads.incrementAndGet();
+            }
+
+            @Override
+            public Map<String, String> loadAll(final Iterable<? extends String> keys) throws CacheLoaderException
+            {
+                final Map<String, String> values = new HashMap<>();
+                for (final String key : keys)
+                {
+                    values.put(key, load(key));
+                }
+                return values;
+            }
+        };
+
+        final Properties properties = new Properties();
+        properties.setProperty("refresh.refreshAhead.millis", "1500");
+        final CachingProvider cachingProvider = Caching.getCachingProvider();
+        try
+        {
+            final CacheManager cacheManager = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(),
+                    Thread.currentThread().getContextClassLoader(), properties);
+            final Cache<String, String> cache = cacheManager.createCache("refresh", new MutableConfiguration<String, String>()
+                    .setStoreByValue(false)
+                    .setReadThrough(true)
+                    .setCacheLoaderFactory(new FactoryBuilder.SingletonFactory<>(loader))
+                    .setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.SECONDS, 2))));
+
+            assertEquals("v1", cache.get("key"));
+            assertEquals("v1", cache.get("key")); // not in the window yet
+
+            Thread.sleep(700);
+            for (int i = 0; i < 5; i++)
+            {
+                assertEquals("v1", cache.get("key"));
+            }
+            for (int i = 0; i < 50 && !"v2".equals(cache.get("key")); i++)
+            {
+                Thread.sleep(20);
+            }
+            assertEquals("v2", cache.get("key"));
+            assertEquals(2, loads.get());
+        }
+        finally
+        {
+            cachingProvider.close();
+        }
+    }
+
+    @Test
+    public void putDuringReloadIsKept() throws InterruptedException
+    {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch reloading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CacheLoader<String, String> loader = new CacheLoader<String, String>()
+        {
+            @Override
+            public String load(final String key) throws CacheLoaderException
+            {
+                if (loads.incrementAndGet() == 1)
+                {
+                    return "loaded";
+                }
+                reloading.countDown();
+                try
+                {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                catch (final InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return "reloaded";
+            }
+
+            @Override
+            public Map<String, String> loadAll(final Iterable<? extends String> keys) throws CacheLoaderException
+            {
+                final Map<String, String> values = new HashMap<>();
+                for (final String key : keys)
+                {
+                    values.put(key, load(key));
+                }
+                return values;
+            }
+        };
+
+        final Properties properties = new Properties();
+        properties.setProperty("refreshPut.refreshAhead.millis", "1500");
+        final CachingProvider cachingProvider = Caching.getCachingProvider();
+        try
+        {
+            final CacheManager cacheManager = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(),
+                    Thread.currentThread().getContextClassLoader(), properties);
+            final Cache<String, String> cache = cacheManager.createCache("refreshPut", new MutableConfiguration<String, String>()
+                    .setStoreByValue(false)
+                    .setReadThrough(true)
+                    .setCacheLoaderFactory(new FactoryBuilder.SingletonFactory<>(loader))
+                    .setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.SECONDS, 2))));
+
+            assertEquals("loaded", cache.get("key"));
+            Thread.sleep(700);
+            assertEquals("loaded", cache.get("key"));
+            assertTrue(reloading.await(5, TimeUnit.SECONDS));
+
+            // the loader does not hold the key lock, so the put does not wait for it
+            final long start = System.nanoTime();
+            cache.put("key", "newer");
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 2);
+            release.countDown();
+            Thread.sleep(300);
+
+            assertEquals("newer", cache.get("key"));
+        }
+        finally
+        {
+            cachingProvider.close();
+        }
+    }
+}
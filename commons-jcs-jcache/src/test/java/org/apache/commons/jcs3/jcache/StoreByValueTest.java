@@ -0,0 +1,159 @@
+package org.apache.commons.jcs3.jcache;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.jcs3.jcache.serialization.Serializations;
+import org.apache.commons.jcs3.utils.serialization.StandardSerializer;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.event.CacheEntryCreatedListener;
+import javax.cache.integration.CacheWriter;
+import javax.cache.spi.CachingProvider;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StoreByValueTest
+{
+    @Test
+    public void storedValueIsIsolated()
+    {
+        final CachingProvider cachingProvider = Caching.getCachingProvider();
+        final CacheManager cacheManager = cachingProvider.getCacheManager();
+        final Cache<String, ArrayList<String>> cache = cacheManager.createCache("byValue",
+                new MutableConfiguration<String, ArrayList<String>>().setStoreByValue(true));
+        try
+        {
+            final ArrayList<String> value = new ArrayList<>();
+            value.add("a");
+            cache.put("key", value);
+            value.add("b");
+
+            final List<String> first = cache.get("key");
+            assertEquals(1, first.size());
+            first.add("c");
+
+            final ArrayList<String> second = cache.get("key");
+            assertEquals(1, second.size());
+            assertNotSame(first, second);
+
+            assertTrue(cache.replace("key", second, new ArrayList<>()));
+            assertTrue(cache.get("key").isEmpty());
+        }
+        finally
+        {
+            cachingProvider.close();
+        }
+    }
+
+    @Test
+    public void listenersAndWriterReceiveStoredValue()
+    {
+        final CachingProvider cachingProvider = Caching.getCachingProvider();
+        final CacheManager cacheManager = cachingProvider.getCacheManager();
+        final List<ArrayList<String>> created = new ArrayList<>();
+        final List<ArrayList<String>> written = new ArrayList<>();
+        final CacheEntryCreatedListener<String, ArrayList<String>> listener = events -> events.forEach(e -> created.add(e.getValue()));
+        final CacheWriter<String, ArrayList<String>> cacheWriter = new CacheWriter<String, ArrayList<String>>()
+        {
+            @Override
+            public void write(final Cache.Entry<? extends String, ? extends ArrayList<String>> entry)
+            {
+                written.add(entry.getValue());
+            }
+
+            @Override
+            public void writeAll(final Collection<Cache.Entry<? extends String, ? extends ArrayList<String>>> entries)
+            {
+                entries.forEach(this::write);
+            }
+
+            @Override
+            public void delete(final Object key)
+            {
+                // no-op
+            }
+
+            @Override
+            public void deleteAll(final Collection<?> keys)
+            {
+                // no-op
+            }
+        };
+        final Cache<String, ArrayList<String>> cache = cacheManager.createCache("byValueListeners",
+                new MutableConfiguration<String, ArrayList<String>>()
+                        .setStoreByValue(true)
+                        .setWriteThrough(true)
+                        .setCacheWriterFactory(() -> cacheWriter)
+                        .addCacheEntryListenerConfiguration(new MutableCacheEntryListenerConfiguration<>(
+                                () -> listener, null, false, true)));
+        try
+        {
+            final ArrayList<String> value = new ArrayList<>();
+            value.add("a");
+            cache.put("key", value);
+            value.add("b");
+
+            assertEquals(1, created.size());
+            assertNotSame(value, created.get(0));
+            assertEquals(1, created.get(0).size());
+            assertEquals(1, written.size());
+            assertNotSame(value, written.get(0));
+            assertEquals(1, written.get(0).size());
+        }
+        finally
+        {
+            cachingProvider.close();
+        }
+    }
+
+    @Test
+    public void immutableTypesAreNotCopied()
+    {
+        final StandardSerializer serializer = new StandardSerializer();
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+
+        final String string = new String("value");
+        assertSame(string, Serializations.copy(serializer, loader, string));
+        final Long number = Long.valueOf(TimeUnit.DAYS.toMillis(1000));
+        assertSame(number, Serializations.copy(serializer, loader, number));
+        final LocalDate date = LocalDate.now();
+        assertSame(date, Serializations.copy(serializer, loader, date));
+        assertSame(TimeUnit.SECONDS, Serializations.copy(serializer, loader, TimeUnit.SECONDS));
+
+        final Date mutable = new Date();
+        final Date copy = Serializations.copy(serializer, loader, mutable);
+        assertNotSame(mutable, copy);
+        assertEquals(mutable, copy);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.commons.jcs3.jcache.cdi;
+
+import java.lang.reflect.Method;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Compares a cache hit through the @CacheResult interceptor with the same hit done directly on the cache.
+ */
+public class CacheResultInterceptorPerformanceTest
+{
+    private static final int LOOPS = 10;
+    private static final int TRIES = 100000;
+
+    // intercepted / direct, generous to not fail on a loaded machine
+    private static final float TARGET = 5f;
+
+    @Test
+    public void interceptedHitOverhead() throws Throwable
+    {
+        final CacheResultInterceptor interceptor = CacheResultInterceptorTest.newInterceptor();
+        final CacheResultInterceptorTest.Service service = new CacheResultInterceptorTest.Service();
+        final Method two = CacheResultInterceptorTest.Service.class.getMethod("two", String.class, int.class);
+        final CacheResultInterceptorTest.Invocation ic = new CacheResultInterceptorTest.Invocation(service, two, new Object[]{"a", 1});
+        final Object value = interceptor.cache(ic);
+
+        final CachingProvider provider = Caching.getCachingProvider();
+        final CacheManager manager = provider.getCacheManager(provider.getDefaultURI(), provider.getDefaultClassLoader());
+        final Cache<Object, Object> cache = manager.getCache("intercepted");
+        final Object key = new GeneratedCacheKeyImpl(new Object[]{"a", 1});
+        try
+        {
+            long intercepted = 0;
+            long direct = 0;
+            for (int loop = 0; loop < LOOPS; loop++)
+            {
+                long start = System.nanoTime();
+                for (int i = 0; i < TRIES; i++)
+                {
+                    assertEquals(value, interceptor.cache(ic));
+                }
+                intercepted += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < TRIES; i++)
+                {
+                    assertEquals(value, cache.get(key));
+                }
+                direct += System.nanoTime() - start;
+            }
+
+            final float ratio = intercepted / (float) direct;
+            System.out.println("intercepted hit: " + intercepted / (LOOPS * TRIES) + "ns, direct hit: "
+                    + direct / (LOOPS * TRIES) + "ns, ratio: " + ratio);
+            assertEquals(1, service.calls());
+            assertTrue("ratio " + ratio, ratio < TARGET);
+        }
+        finally
+        {
+            manager.destroyCache("intercepted");
+        }
+    }
+}
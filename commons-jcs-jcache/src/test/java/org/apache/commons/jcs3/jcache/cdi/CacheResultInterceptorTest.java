@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.commons.jcs3.jcache.cdi;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.annotation.CacheKey;
+import javax.cache.annotation.CacheResult;
+import javax.cache.annotation.CacheValue;
+import javax.cache.annotation.GeneratedCacheKey;
+import javax.cache.spi.CachingProvider;
+import javax.interceptor.InvocationContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class CacheResultInterceptorTest
+{
+    @Test
+    public void fastPathKeysMatchDefaultGenerator() throws Exception
+    {
+        final CDIJCacheHelper helper = new CDIJCacheHelper();
+        final Service service = new Service();
+        for (final Method method : new Method[]{
+                Service.class.getMethod("none"),
+                Service.class.getMethod("one", String.class),
+                Service.class.getMethod("two", String.class, int.class),
+                Service.class.getMethod("annotated", String.class, String.class, String.class)})
+        {
+            final Object[] args = new Object[method.getParameterCount()];
+            for (int i = 0; i < args.length; i++)
+            {
+                args[i] = method.getParameterTypes()[i] == int.class ? (Object) i : "p" + i;
+            }
+            final Invocation ic = new Invocation(service, method, args);
+            final CDIJCacheHelper.MethodMeta meta = helper.findMeta(ic);
+            assertNotNull(meta.getCacheResultFastPath());
+
+            final GeneratedCacheKey expected = meta.getCacheResultKeyGenerator().generateCacheKey(
+                    new CacheKeyInvocationContextImpl<>(ic, meta.getCacheResult(), meta.getCacheResultCacheName(), meta));
+            final GeneratedCacheKey actual = meta.getCacheResultFastPath().generateCacheKey(ic);
+            assertEquals(method.getName(), expected, actual);
+            assertEquals(method.getName(), expected.hashCode(), actual.hashCode());
+        }
+    }
+
+    @Test
+    public void cachesAndResolvesAgainDestroyedCache() throws Throwable
+    {
+        final CacheResultInterceptor interceptor = newInterceptor();
+        final Service service = new Service();
+        final Method one = Service.class.getMethod("one", String.class);
+
+        assertEquals("one-a-1", interceptor.cache(new Invocation(service, one, new Object[]{"a"})));
+        assertEquals("one-a-1", interceptor.cache(new Invocation(service, one, new Object[]{"a"})));
+        assertEquals("one-b-2", interceptor.cache(new Invocation(service, one, new Object[]{"b"})));
+        assertEquals(2, service.calls.get());
+
+        final CachingProvider provider = Caching.getCachingProvider();
+        final CacheManager manager = provider.getCacheManager(provider.getDefaultURI(), provider.getDefaultClassLoader());
+        manager.destroyCache("intercepted");
+
+        assertEquals("one-a-3", interceptor.cache(new Invocation(service, one, new Object[]{"a"})));
+        assertEquals("one-a-3", interceptor.cache(new Invocation(service, one, new Object[]{"a"})));
+        assertEquals(3, service.calls.get());
+        assertNotNull(manager.getCache("intercepted"));
+        manager.destroyCache("intercepted");
+    }
+
+    @Test
+    public void nullResultIsNotCached() throws Throwable
+    {
+        final CacheResultInterceptor interceptor = newInterceptor();
+        final Service service = new Service();
+        final Method none = Service.class.getMethod("none");
+
+        assertNull(interceptor.cache(new Invocation(service, none, new Object[0])));
+        assertNull(interceptor.cache(new Invocation(service, none, new Object[0])));
+        assertEquals(2, service.calls.get());
+    }
+
+    static CacheResultInterceptor newInterceptor() throws Exception
+    {
+        final CacheResultInterceptor interceptor = new CacheResultInterceptor();
+        final Field helper = CacheResultInterceptor.class.getDeclaredField("helper");
+        helper.setAccessible(true);
+        helper.set(interceptor, new CDIJCacheHelper());
+        return interceptor;
+    }
+
+    public static class Service
+    {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        int calls()
+        {
+            return calls.get();
+        }
+
+        @CacheResult(cacheName = "intercepted")
+        public String none()
+        {
+            calls.incrementAndGet();
+            return null;
+        }
+
+        @CacheResult(cacheName = "intercepted")
+        public String one(final String a)
+        {
+            return "one-" + a + "-" + calls.incrementAndGet();
+        }
+
+        @CacheResult(cacheName = "intercepted")
+        public String two(final String a, final int b)
+        {
+            return "two-" + a + b + "-" + calls.incrementAndGet();
+        }
+
+        @CacheResult(cacheName = "intercepted")
+        public String annotated(@CacheKey final String a, final String b, @CacheKey @CacheValue final String c)
+        {
+            return "annotated-" + calls.incrementAndGet();
+        }
+    }
+
+    static class Invocation implements InvocationContext
+    {
+        private final Object target;
+        private final Method method;
+        private Object[] parameters;
+
+        Invocation(final Object target, final Method method, final Object[] parameters)
+        {
+            this.target = target;
+            this.method = method;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public Object getTarget()
+        {
+            return target;
+        }
+
+        @Override
+        public Method getMethod()
+        {
+            return method;
+        }
+
+        @Override
+        public Constructor<?> getConstructor()
+        {
+            return null;
+        }
+
+        @Override
+        public Object[] getParameters()
+        {
+            return parameters;
+        }
+
+        @Override
+        public void setParameters(final Object[] objects)
+        {
+            parameters = objects;
+        }
+
+        @Override
+        public Map<String, Object> getContextData()
+        {
+            return null;
+        }
+
+        @Override
+        public Object proceed() throws Exception
+        {
+            return method.invoke(target, parameters);
+        }
+
+        @Override
+        public Object getTimer()
+        {
+            return null;
+        }
+    }
+}